@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package artisynth.core.femmodels;
+
+import java.util.concurrent.TimeUnit;
+
+import artisynth.core.materials.LinearMaterial;
+import artisynth.core.materials.NeoHookeanMaterial;
+import artisynth.core.mechmodels.MechModel;
+import maspack.matrix.Point3d;
+import maspack.matrix.Vector3d;
+import maspack.util.RandomGenerator;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks {@link FemModel3d#updateStressAndStiffness} for tetrahedral
+ * and hexahedral grids with linear and non-linear materials. Node positions
+ * are perturbed randomly (with a fixed seed) so that non-linear materials
+ * are evaluated in a deformed configuration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FemStressStiffnessBenchmark {
+
+   public static final int SEED = 0x1234;
+
+   @Param({"12"})
+   public int res;
+
+   @Param({"tet", "hex"})
+   public String elemType;
+
+   @Param({"linear", "neohookean"})
+   public String material;
+
+   FemModel3d myFem;
+
+   @Setup
+   public void setup() {
+      RandomGenerator.setSeed (SEED);
+      if (elemType.equals ("hex")) {
+         myFem = FemFactory.createHexGrid (null, 1.0, 1.0, 1.0, res, res, res);
+      }
+      else {
+         myFem = FemFactory.createTetGrid (null, 1.0, 1.0, 1.0, res, res, res);
+      }
+      if (material.equals ("linear")) {
+         myFem.setMaterial (new LinearMaterial (50000, 0.33));
+      }
+      else {
+         myFem.setMaterial (new NeoHookeanMaterial (50000, 0.33));
+      }
+      MechModel mech = new MechModel();
+      mech.addModel (myFem);
+      // one step to initialize solve indices
+      mech.preadvance (0, 0.01, /*flags=*/0);
+      mech.advance (0, 0.01, /*flags=*/0);
+      // perturb the nodes by up to 10% of the element width
+      double perturb = 0.1/res;
+      Vector3d del = new Vector3d();
+      for (FemNode3d n : myFem.getNodes()) {
+         Point3d pos = new Point3d (n.getPosition());
+         del.setRandom (-perturb, perturb);
+         pos.add (del);
+         n.setPosition (pos);
+      }
+   }
+
+   @TearDown
+   public void tearDown() {
+      myFem.dispose();
+   }
+
+   @Benchmark
+   public FemModel3d updateStressAndStiffness() {
+      myFem.invalidateStressAndStiffness();
+      myFem.updateStressAndStiffness();
+      return myFem;
+   }
+}
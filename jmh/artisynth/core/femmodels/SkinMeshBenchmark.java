@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package artisynth.core.femmodels;
+
+import java.util.concurrent.TimeUnit;
+
+import artisynth.core.mechmodels.MechModel;
+import artisynth.core.mechmodels.RigidBody;
+import maspack.geometry.MeshFactory;
+import maspack.geometry.PolygonalMesh;
+import maspack.matrix.RigidTransform3d;
+import maspack.util.RandomGenerator;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks the computation of vertex connections and vertex positions for
+ * a SkinMeshBody controlled by a chain of {@code nbodies} boxes. The skin
+ * mesh is an icosahedral sphere with {@code divisions} subdivisions
+ * (about {@code 10*4^divisions} vertices), and the {@code threads} parameter
+ * sets the number of skinning threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SkinMeshBenchmark {
+
+   @Param({"7"})
+   public int divisions;
+
+   @Param({"8"})
+   public int nbodies;
+
+   @Param({"1", "4"})
+   public int threads;
+
+   SkinMeshBody mySkin;
+   RigidBody[] myBodies;
+
+   @Setup
+   public void setup() {
+      RandomGenerator.setSeed (0x1234);
+      MechModel mech = new MechModel ("mech");
+      PolygonalMesh mesh = MeshFactory.createIcosahedralSphere (1.0, divisions);
+      mesh.scale (nbodies/2.0, 1, 1);
+      mySkin = new SkinMeshBody (mesh);
+      myBodies = new RigidBody[nbodies];
+      for (int i=0; i<nbodies; i++) {
+         RigidBody body = RigidBody.createBox ("body"+i, 0.8, 0.5, 0.5, 1000);
+         body.setPose (new RigidTransform3d (i-(nbodies-1)/2.0, 0, 0));
+         mech.addRigidBody (body);
+         mySkin.addMasterBody (body);
+         myBodies[i] = body;
+      }
+      mech.addMeshBody (mySkin);
+      mySkin.setSkinningThreads (threads);
+      mySkin.computeAllVertexConnections();
+      // displace the bodies so that updateSlavePos() does real work
+      for (int i=0; i<nbodies; i++) {
+         RigidTransform3d T = new RigidTransform3d (myBodies[i].getPose());
+         T.mulRotX (0.1*i);
+         myBodies[i].setPose (T);
+      }
+   }
+
+   @Benchmark
+   public SkinMeshBody computeConnections() {
+      mySkin.computeAllVertexConnections();
+      return mySkin;
+   }
+
+   @Benchmark
+   public SkinMeshBody updateSlavePos() {
+      mySkin.updateSlavePos();
+      return mySkin;
+   }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package artisynth.core.mechmodels;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import artisynth.core.mechmodels.MechSystemSolver.Integrator;
+import artisynth.core.opensim.OpenSimParser;
+import artisynth.core.util.ArtisynthPath;
+import artisynth.demos.opensim.OpenSimArm26;
+import maspack.matrix.RigidTransform3d;
+import maspack.solvers.SparseSolverId;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares the time needed to advance a jointed rigid body model using the
+ * regular KKT solver and the linear-time {@link maspack.solvers.TreeKKTSolver}
+ * (see {@link MechSystemSolver#setUseTreeSolver}). The {@code model}
+ * parameter selects either the OpenSim "arm26" demo model, or a chain of
+ * {@code nlinks} boxes connected by hinge joints. Models are advanced using
+ * symplectic Euler, whose velocity solve involves only the mass matrix
+ * and the joint constraints.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TreeSolverBenchmark {
+
+   @Param({"arm26", "chain"})
+   public String model;
+
+   @Param({"100"})
+   public int nlinks;
+
+   @Param({"false", "true"})
+   public boolean tree;
+
+   MechModel myMech;
+   double myTime;
+   double myStep = 0.001;
+
+   private void createChain (MechModel mech, int nlinks) {
+      RigidBody prev = null;
+      for (int i=0; i<nlinks; i++) {
+         RigidBody link = RigidBody.createBox ("link"+i, 1.0, 0.2, 0.2, 1000);
+         link.setPose (new RigidTransform3d (i+0.5, 0, 0));
+         mech.addRigidBody (link);
+         // hinge about the y axis
+         RigidTransform3d TDW =
+            new RigidTransform3d (i, 0, 0, 1, 0, 0, Math.PI/2);
+         mech.addBodyConnector (new HingeJoint (link, prev, TDW));
+         prev = link;
+      }
+   }
+
+   @Setup
+   public void setup() throws Exception {
+      myMech = new MechModel ("mech");
+      if (model.equals ("arm26")) {
+         String osimDir =
+            ArtisynthPath.getSrcRelativePath (OpenSimArm26.class, "osim/");
+         OpenSimParser parser =
+            new OpenSimParser (new File (osimDir + "arm26_v4.osim"));
+         parser.createModel (myMech);
+      }
+      else {
+         createChain (myMech, nlinks);
+      }
+      myMech.setIntegrator (Integrator.SymplecticEuler);
+      myMech.getSolver().setMatrixSolver (SparseSolverId.SparseLDLT);
+      myMech.setUseTreeSolver (tree);
+      myTime = 0;
+      // take one step so that the solvers are analyzed
+      advance();
+   }
+
+   private void advance() {
+      myMech.preadvance (myTime, myTime+myStep, /*flags=*/0);
+      myMech.advance (myTime, myTime+myStep, /*flags=*/0);
+      myTime += myStep;
+   }
+
+   @Benchmark
+   public MechModel step() {
+      advance();
+      return myMech;
+   }
+}
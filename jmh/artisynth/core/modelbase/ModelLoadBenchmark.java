@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package artisynth.core.modelbase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+import artisynth.core.femmodels.FemFactory;
+import artisynth.core.femmodels.FemModel3d;
+import artisynth.core.mechmodels.MechModel;
+import artisynth.core.util.ArtisynthIO;
+import maspack.util.BinaryReaderTokenizer;
+import maspack.util.BinaryTokenWriter;
+import maspack.util.IndentingPrintWriter;
+import maspack.util.NumberFormat;
+import maspack.util.ReaderTokenizer;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares the time needed to load a MechModel containing a hexahedral FEM
+ * grid from the text and binary token formats. Both formats are created
+ * in memory from the same model, and loaded using {@link
+ * ScanWriteUtils#scanfull}, so that the comparison excludes disk I/O.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ModelLoadBenchmark {
+
+   @Param({"10", "20"})
+   public int res;
+
+   byte[] myText;
+   byte[] myBinary;
+
+   private void write (MechModel mech, PrintWriter pw) throws IOException {
+      NumberFormat fmt = new NumberFormat ("%g");
+      mech.write (pw, fmt, mech);
+      pw.close();
+   }
+
+   @Setup
+   public void setup() throws IOException {
+      MechModel mech = new MechModel ("mech");
+      FemModel3d fem =
+         FemFactory.createHexGrid (null, 1.0, 1.0, 1.0, res, res, res);
+      fem.setName ("fem");
+      mech.addModel (fem);
+
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      write (mech, new IndentingPrintWriter (bytes));
+      myText = bytes.toByteArray();
+      bytes = new ByteArrayOutputStream();
+      write (mech, new IndentingPrintWriter (new BinaryTokenWriter (bytes)));
+      myBinary = bytes.toByteArray();
+      System.out.println (
+         "text size: " + myText.length + ", binary size: " + myBinary.length);
+   }
+
+   private MechModel load (ReaderTokenizer rtok) throws IOException {
+      rtok.wordChars ("./$");
+      MechModel mech = new MechModel();
+      ScanWriteUtils.scanfull (rtok, mech, mech);
+      rtok.close();
+      return mech;
+   }
+
+   @Benchmark
+   public MechModel loadText() throws IOException {
+      return load (
+         ArtisynthIO.newReaderTokenizer (
+            new InputStreamReader (new ByteArrayInputStream (myText))));
+   }
+
+   @Benchmark
+   public MechModel loadBinary() throws IOException {
+      return load (
+         new BinaryReaderTokenizer (new ByteArrayInputStream (myBinary)));
+   }
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.collision;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import maspack.geometry.MeshFactory;
+import maspack.geometry.PolygonalMesh;
+import maspack.matrix.RigidTransform3d;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks contour finding by {@link SurfaceMeshIntersector} for two
+ * partially overlapping icosahedral spheres, whose resolution is set by the
+ * {@code divisions} parameter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SurfaceMeshIntersectorBenchmark {
+
+   @Param({"3", "5"})
+   public int divisions;
+
+   PolygonalMesh myMesh0;
+   PolygonalMesh myMesh1;
+   SurfaceMeshIntersector myIntersector;
+
+   @Setup
+   public void setup() {
+      myMesh0 = MeshFactory.createIcosahedralSphere (1.0, divisions);
+      myMesh1 = MeshFactory.createIcosahedralSphere (1.0, divisions);
+      // fixed offset and rotation, so that the contours are repeatable
+      // but not aligned with the mesh structure
+      RigidTransform3d X = new RigidTransform3d (1.2, 0.3, 0.1);
+      X.R.setZyxAngles (0.3, 0.2, 0.1);
+      myMesh1.setMeshToWorld (X);
+      myIntersector = new SurfaceMeshIntersector();
+      if (myIntersector.findContours (myMesh0, myMesh1).size() == 0) {
+         throw new IllegalStateException ("meshes do not intersect");
+      }
+   }
+
+   @Benchmark
+   public ArrayList<IntersectionContour> findContours() {
+      return myIntersector.findContours (myMesh0, myMesh1);
+   }
+}
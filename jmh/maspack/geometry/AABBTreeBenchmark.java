@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.geometry;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks building an {@link AABBTree} for icosahedral sphere meshes,
+ * whose resolution is set by the {@code divisions} parameter (each
+ * additional division quadruples the number of faces).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AABBTreeBenchmark {
+
+   @Param({"4", "6"})
+   public int divisions;
+
+   PolygonalMesh myMesh;
+
+   @Setup
+   public void setup() {
+      myMesh = MeshFactory.createIcosahedralSphere (1.0, divisions);
+   }
+
+   @Benchmark
+   public AABBTree build() {
+      return new AABBTree (myMesh);
+   }
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.geometry;
+
+import java.util.concurrent.TimeUnit;
+
+import maspack.matrix.Point3d;
+import maspack.matrix.Vector3d;
+import maspack.util.RandomGenerator;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks distance and normal queries on a signed {@link DistanceGrid}
+ * computed for a torus mesh. Each benchmark invocation performs {@link
+ * #NUM_QUERIES} queries at random points (generated with a fixed seed)
+ * within the grid's bounds.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DistanceGridBenchmark {
+
+   public static final int SEED = 0x1234;
+   public static final int NUM_QUERIES = 1000;
+
+   @Param({"32", "64"})
+   public int maxRes;
+
+   DistanceGrid myGrid;
+   Point3d[] myPoints;
+   Vector3d myNrm = new Vector3d();
+
+   @Setup
+   public void setup() {
+      RandomGenerator.setSeed (SEED);
+      PolygonalMesh mesh = MeshFactory.createTorus (1.0, 0.3, 48, 24);
+      myGrid = new DistanceGrid (
+         mesh.getFaces(), /*marginFrac=*/0.1, maxRes, /*signed=*/true);
+      Vector3d widths = myGrid.getWidths();
+      Vector3d center = new Vector3d();
+      myGrid.getCenter (center);
+      myPoints = new Point3d[NUM_QUERIES];
+      for (int i=0; i<NUM_QUERIES; i++) {
+         // keep points slightly inside the grid bounds
+         Point3d p = new Point3d();
+         p.x = RandomGenerator.nextDouble (-0.49, 0.49)*widths.x;
+         p.y = RandomGenerator.nextDouble (-0.49, 0.49)*widths.y;
+         p.z = RandomGenerator.nextDouble (-0.49, 0.49)*widths.z;
+         p.add (center);
+         myPoints[i] = p;
+      }
+   }
+
+   @Benchmark
+   public double distanceAndNormal() {
+      double sum = 0;
+      for (int i=0; i<NUM_QUERIES; i++) {
+         sum += myGrid.getLocalDistanceAndNormal (myNrm, myPoints[i]);
+      }
+      return sum;
+   }
+}
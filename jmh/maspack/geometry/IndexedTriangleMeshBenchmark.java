@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.geometry;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import maspack.geometry.io.GenericMeshReader;
+import maspack.geometry.io.StlReader;
+import maspack.geometry.io.StlWriter;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares {@link PolygonalMesh} and {@link IndexedTriangleMesh} when
+ * reading a binary STL file and building a bounding volume hierarchy. The
+ * mesh is an icosahedral sphere with {@code divisions} subdivisions (about
+ * {@code 20*4^divisions} triangles).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class IndexedTriangleMeshBenchmark {
+
+   @Param({"7"})
+   public int divisions;
+
+   @Param({"polygonal", "indexed"})
+   public String meshType;
+
+   File myFile;
+   PolygonalMesh myMesh;
+   IndexedTriangleMesh myIndexedMesh;
+
+   @Setup
+   public void setup() throws IOException {
+      myMesh = MeshFactory.createIcosahedralSphere (1.0, divisions);
+      myIndexedMesh = new IndexedTriangleMesh (myMesh);
+      myFile = File.createTempFile ("indexedMeshBenchmark", ".stl");
+      StlWriter writer = new StlWriter (myFile);
+      writer.setBinary (true);
+      writer.writeMesh (myMesh);
+      writer.close();
+   }
+
+   @TearDown
+   public void tearDown() {
+      myFile.delete();
+   }
+
+   @Benchmark
+   public Object readStl() throws IOException {
+      if (meshType.equals ("indexed")) {
+         return GenericMeshReader.readIndexedMesh (myFile);
+      }
+      else {
+         return StlReader.read (myFile);
+      }
+   }
+
+   @Benchmark
+   public BVTree buildBVTree() {
+      if (meshType.equals ("indexed")) {
+         return new AABBTree (myIndexedMesh);
+      }
+      else {
+         return new AABBTree (myMesh);
+      }
+   }
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.image.nifti;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+import maspack.image.nifti.NiftiHeader.DataType;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the time to load a 4D NIfTI volume and read its middle slice, as
+ * done when an image plane is first displayed, comparing {@link
+ * NiftiReader#read(File)} with {@link NiftiReader#readMapped(File)}. The
+ * volume is {@code size x size x size/2} voxels of type INT16, with {@code
+ * times} time frames. The peak heap usage during each load is reported in
+ * the {@code peakHeapMB} counter.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Thread)
+public class NiftiLoadBenchmark {
+
+   @Param({"256"})
+   public int size;
+
+   @Param({"20"})
+   public int times;
+
+   @Param({"eager", "mapped"})
+   public String loading;
+
+   File myFile;
+
+   @AuxCounters(AuxCounters.Type.EVENTS)
+   @State(Scope.Thread)
+   public static class HeapCounters {
+      public double peakHeapMB;
+   }
+
+   @Setup(Level.Trial)
+   public void setup() throws IOException {
+      int nx = size;
+      int ny = size;
+      int nz = size/2;
+      ByteBuffer hdr = ByteBuffer.allocate (352);
+      hdr.order (ByteOrder.LITTLE_ENDIAN);
+      hdr.putInt (0, 348);
+      short[] dim = new short[] {4, (short)nx, (short)ny, (short)nz,
+                                 (short)times, 1, 1, 1};
+      for (int i=0; i<dim.length; i++) {
+         hdr.putShort (40+2*i, dim[i]);
+      }
+      hdr.putShort (70, (short)DataType.NIFTI_TYPE_INT16.id);
+      hdr.putShort (72, (short)16);
+      for (int i=0; i<5; i++) {
+         hdr.putFloat (76+4*i, 1f);
+      }
+      hdr.putFloat (108, 352f);
+      hdr.put (344, (byte)'n');
+      hdr.put (345, (byte)'+');
+      hdr.put (346, (byte)'1');
+
+      myFile = File.createTempFile ("niftiLoadBenchmark", ".nii");
+      FileOutputStream out = new FileOutputStream (myFile);
+      try {
+         out.write (hdr.array());
+         ByteBuffer frame = ByteBuffer.allocate (2*nx*ny*nz);
+         frame.order (ByteOrder.LITTLE_ENDIAN);
+         for (int t=0; t<times; t++) {
+            frame.clear();
+            for (int n=0; n<nx*ny*nz; n++) {
+               frame.putShort ((short)((n+t)%4096));
+            }
+            out.write (frame.array());
+         }
+      }
+      finally {
+         out.close();
+      }
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown() {
+      myFile.delete();
+   }
+
+   @Setup(Level.Invocation)
+   public void resetPeakHeap() {
+      System.gc();
+      for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+         if (pool.getType() == MemoryType.HEAP) {
+            pool.resetPeakUsage();
+         }
+      }
+   }
+
+   double peakHeapMB() {
+      long peak = 0;
+      for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+         if (pool.getType() == MemoryType.HEAP) {
+            peak += pool.getPeakUsage().getUsed();
+         }
+      }
+      return peak/(1024.0*1024.0);
+   }
+
+   @Benchmark
+   public double timeToFirstSlice (HeapCounters counters) throws IOException {
+      NiftiImage image;
+      if (loading.equals ("mapped")) {
+         image = NiftiReader.readMapped (myFile);
+      }
+      else {
+         image = NiftiReader.read (myFile);
+      }
+      int slice = image.getNumSlices()/2;
+      double sum = 0;
+      for (int row=0; row<image.getNumRows(); row++) {
+         for (int col=0; col<image.getNumCols(); col++) {
+            sum += image.getValue (0, col, row, slice);
+         }
+      }
+      counters.peakHeapMB = peakHeapMB();
+      return sum;
+   }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.interpolation;
+
+import java.util.concurrent.TimeUnit;
+
+import maspack.interpolation.Interpolation.Order;
+import maspack.matrix.VectorNd;
+import maspack.util.RandomGenerator;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks {@link NumericList#interpolate} for a list with the size of a
+ * typical motion capture data set, for both sequential access (as during
+ * simulation) and random access (as when scrubbing the timeline). Each
+ * benchmark invocation performs {@link #NUM_QUERIES} interpolations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NumericListBenchmark {
+
+   public static final int SEED = 0x1234;
+   public static final int NUM_QUERIES = 1000;
+
+   @Param({"60000"})
+   public int numKnots;
+
+   @Param({"100"})
+   public int vsize;
+
+   @Param({"Linear", "Cubic"})
+   public String order;
+
+   NumericList myList;
+   VectorNd myVec;
+   double[] mySeqTimes;
+   double[] myRandTimes;
+   int mySeqIdx;
+
+   @Setup
+   public void setup() {
+      RandomGenerator.setSeed (SEED);
+      double[] times = new double[numKnots];
+      double[] vals = new double[numKnots*vsize];
+      for (int k=0; k<numKnots; k++) {
+         times[k] = 0.001*k;
+      }
+      for (int i=0; i<vals.length; i++) {
+         vals[i] = RandomGenerator.nextDouble (-1, 1);
+      }
+      myList = new NumericList (vsize);
+      myList.setValues (times, vals);
+      myList.setInterpolation (
+         new Interpolation (Order.valueOf (order), /*extendData=*/false));
+      myVec = new VectorNd (vsize);
+      double tend = times[numKnots-1];
+      // sequential times advance by less than the knot spacing, as they
+      // would for a simulation step size smaller than the data rate
+      mySeqTimes = new double[numKnots];
+      for (int i=0; i<numKnots; i++) {
+         mySeqTimes[i] = 0.0007*i % tend;
+      }
+      myRandTimes = new double[NUM_QUERIES];
+      for (int i=0; i<NUM_QUERIES; i++) {
+         myRandTimes[i] = RandomGenerator.nextDouble (0, tend);
+      }
+   }
+
+   @Benchmark
+   public VectorNd sequential() {
+      int idx = mySeqIdx;
+      for (int i=0; i<NUM_QUERIES; i++) {
+         myList.interpolate (myVec, mySeqTimes[idx]);
+         if (++idx == mySeqTimes.length) {
+            idx = 0;
+         }
+      }
+      mySeqIdx = idx;
+      return myVec;
+   }
+
+   @Benchmark
+   public VectorNd random() {
+      for (int i=0; i<NUM_QUERIES; i++) {
+         myList.interpolate (myVec, myRandTimes[i]);
+      }
+      return myVec;
+   }
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.matrix;
+
+import java.util.concurrent.TimeUnit;
+
+import maspack.util.RandomGenerator;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks vector multiplication by a {@link SparseBlockMatrix} with the
+ * structure of the stiffness matrix of a 3D hexahedral FEM grid, together
+ * with the same products for an equivalent {@link SparseCRSMatrix}. The
+ * {@code threads} parameter sets the number of threads used for the
+ * products, so that scaling can be measured with, e.g., {@code -p
+ * threads=1,2,4,8,16,32}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SparseBlockMatrixBenchmark {
+
+   public static final int SEED = 0x1234;
+
+   @Param({"10", "20"})
+   public int res;
+
+   @Param({"1", "2", "4", "8", "16", "32"})
+   public int threads;
+
+   SparseBlockMatrix myS;
+   SparseCRSMatrix myC;
+   VectorNd myX;
+   VectorNd myY;
+
+   /**
+    * Creates a symmetric positive definite block matrix with the structure
+    * of a stiffness matrix for a res x res x res grid of hexahedral
+    * elements, with one 3 x 3 block for each pair of neighboring nodes.
+    * Values are random, with a fixed seed so that the matrix is repeatable.
+    */
+   public static SparseBlockMatrix createGridMatrix (int res) {
+      RandomGenerator.setSeed (SEED);
+      int nn = res+1;
+      int numNodes = nn*nn*nn;
+      int[] sizes = new int[numNodes];
+      for (int n=0; n<numNodes; n++) {
+         sizes[n] = 3;
+      }
+      SparseBlockMatrix S = new SparseBlockMatrix (sizes, sizes);
+      for (int n=0; n<numNodes; n++) {
+         int i = n%nn;
+         int j = (n/nn)%nn;
+         int l = n/(nn*nn);
+         for (int dl=-1; dl<=1; dl++) {
+            for (int dj=-1; dj<=1; dj++) {
+               for (int di=-1; di<=1; di++) {
+                  int ii = i+di, jj = j+dj, ll = l+dl;
+                  if (ii < 0 || ii >= nn || jj < 0 || jj >= nn ||
+                      ll < 0 || ll >= nn) {
+                     continue;
+                  }
+                  int m = ii + nn*(jj + nn*ll);
+                  if (m < n) {
+                     continue;
+                  }
+                  Matrix3x3Block blk = new Matrix3x3Block();
+                  blk.setRandom (-0.1, 0.1);
+                  if (m == n) {
+                     blk.m00 += 30;
+                     blk.m11 += 30;
+                     blk.m22 += 30;
+                     blk.setSymmetric (blk);
+                     S.addBlock (n, n, blk);
+                  }
+                  else {
+                     Matrix3x3Block blkT = new Matrix3x3Block();
+                     blkT.transpose (blk);
+                     S.addBlock (n, m, blk);
+                     S.addBlock (m, n, blkT);
+                  }
+               }
+            }
+         }
+      }
+      return S;
+   }
+
+   @Setup
+   public void setup() {
+      myS = createGridMatrix (res);
+      myS.setNumThreads (threads);
+      myC = new SparseCRSMatrix (myS);
+      myC.setNumThreads (threads);
+      myX = new VectorNd (myS.colSize());
+      myY = new VectorNd (myS.rowSize());
+      myX.setRandom();
+   }
+
+   @Benchmark
+   public VectorNd mul() {
+      myS.mul (myY, myX);
+      return myY;
+   }
+
+   @Benchmark
+   public VectorNd mulTranspose() {
+      myS.mulTranspose (myY, myX);
+      return myY;
+   }
+
+   @Benchmark
+   public VectorNd crsMul() {
+      myC.mul (myY, myX);
+      return myY;
+   }
+
+   @Benchmark
+   public VectorNd crsMulTranspose() {
+      myC.mulTranspose (myY, myX);
+      return myY;
+   }
+}
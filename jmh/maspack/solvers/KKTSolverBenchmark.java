@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.solvers;
+
+import java.util.concurrent.TimeUnit;
+
+import maspack.matrix.Matrix;
+import maspack.matrix.Matrix3x1Block;
+import maspack.matrix.SparseBlockMatrix;
+import maspack.matrix.SparseBlockMatrixBenchmark;
+import maspack.matrix.VectorNd;
+import maspack.util.RandomGenerator;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks the numeric factorization and solve phases of {@link KKTSolver}
+ * for a system whose M matrix has the structure of a 3D hexahedral FEM
+ * stiffness matrix, together with a set of bilateral constraints that each
+ * act on a single randomly chosen node. The solver type can be selected
+ * using the {@code solver} parameter, e.g., {@code -p solver=Pardiso} when
+ * the native Pardiso library is available.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class KKTSolverBenchmark {
+
+   @Param({"10", "16"})
+   public int res;
+
+   @Param({"SparseLDLT"})
+   public String solver;
+
+   KKTSolver mySolver;
+   SparseBlockMatrix myM;
+   SparseBlockMatrix myGT;
+   VectorNd myVel;
+   VectorNd myLam;
+   VectorNd myBm;
+   VectorNd myBg;
+
+   /**
+    * Creates a constraint matrix transpose with {@code numc} single-column
+    * constraints, each acting on a random node in a random direction.
+    */
+   static SparseBlockMatrix createConstraints (SparseBlockMatrix M, int numc) {
+      int numNodes = M.numBlockRows();
+      int[] rowSizes = new int[numNodes];
+      for (int n=0; n<numNodes; n++) {
+         rowSizes[n] = 3;
+      }
+      int[] colSizes = new int[numc];
+      for (int k=0; k<numc; k++) {
+         colSizes[k] = 1;
+      }
+      SparseBlockMatrix GT = new SparseBlockMatrix (rowSizes, colSizes);
+      boolean[] used = new boolean[numNodes];
+      for (int k=0; k<numc; k++) {
+         int n;
+         do {
+            n = RandomGenerator.nextInt (numNodes);
+         }
+         while (used[n]);
+         used[n] = true;
+         Matrix3x1Block blk = new Matrix3x1Block();
+         blk.m00 = RandomGenerator.nextDouble (-1, 1);
+         blk.m10 = RandomGenerator.nextDouble (-1, 1);
+         blk.m20 = RandomGenerator.nextDouble (-1, 1);
+         GT.addBlock (n, k, blk);
+      }
+      return GT;
+   }
+
+   @Setup
+   public void setup() {
+      myM = SparseBlockMatrixBenchmark.createGridMatrix (res);
+      myGT = createConstraints (myM, myM.numBlockRows()/20);
+      mySolver = new KKTSolver (SparseSolverId.valueOf (solver));
+      int sizeM = myM.rowSize();
+      mySolver.analyze (myM, sizeM, myGT, /*Rg=*/null, Matrix.SPD);
+      mySolver.factor (myM, sizeM, myGT, /*Rg=*/null);
+      myVel = new VectorNd (sizeM);
+      myLam = new VectorNd (myGT.colSize());
+      myBm = new VectorNd (sizeM);
+      myBg = new VectorNd (myGT.colSize());
+      myBm.setRandom();
+      myBg.setRandom();
+   }
+
+   @TearDown
+   public void tearDown() {
+      mySolver.dispose();
+   }
+
+   @Benchmark
+   public KKTSolver factor() {
+      mySolver.factor (myM, myM.rowSize(), myGT, /*Rg=*/null);
+      return mySolver;
+   }
+
+   @Benchmark
+   public VectorNd solve() {
+      mySolver.solve (myVel, myLam, myBm, myBg);
+      return myVel;
+   }
+}
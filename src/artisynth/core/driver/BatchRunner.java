@@ -0,0 +1,588 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package artisynth.core.driver;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import artisynth.core.modelbase.ComponentUtils;
+import artisynth.core.probes.NumericOutputProbe;
+import artisynth.core.probes.Probe;
+import artisynth.core.util.TimeBase;
+import artisynth.core.workspace.RootModel;
+import maspack.util.ClassAliases;
+import maspack.util.InternalErrorException;
+import maspack.util.NumberFormat;
+
+/**
+ * Builds and simulates a batch of independent root models concurrently,
+ * without a GUI or a {@link Main} instance. This is intended for parameter
+ * and sensitivity studies, where running many models inside one JVM avoids
+ * paying the start-up, JIT warm-up and native library loading costs for each
+ * one.
+ *
+ * <p>Each job is described by a root model class and build arguments, or by
+ * a {@link ModelFactory}, together with a stop time. When {@link #run} is
+ * called, the jobs are distributed over a pool of worker threads. Each job
+ * builds its model, initializes it, and then advances it to the stop time in
+ * steps of the model's maximum step size. Input probes, controllers,
+ * monitors and output probes are applied by the root model in the usual
+ * way, so results can be collected from the output probes once the run
+ * completes.
+ *
+ * <p>Each model is built and advanced entirely within a single worker
+ * thread, and no state is shared between jobs other than process-wide
+ * static settings. Models that rely on mutable static data, or which must
+ * interact with a viewer, should not be run this way. Models that use
+ * multi-threaded solvers will compete with each other for processors, so it
+ * is usually best to run them with single-threaded solvers and let the
+ * runner provide the parallelism.
+ */
+public class BatchRunner {
+
+   /**
+    * Creates the root model for a job. This is called from the worker
+    * thread that runs the job.
+    */
+   public interface ModelFactory {
+      RootModel createModel() throws Exception;
+   }
+
+   /**
+    * Describes a single job and, after the batch has been run, its results.
+    */
+   public static class Job {
+      String myName;
+      ModelFactory myFactory;
+      double myStopTime;
+
+      RootModel myRoot;
+      Throwable myError;
+      double mySimTime;
+      double myBuildTime;   // seconds
+      double myRunTime;     // seconds
+      int myNumSteps;
+
+      Job (String name, ModelFactory factory, double stopTime) {
+         myName = name;
+         myFactory = factory;
+         myStopTime = stopTime;
+      }
+
+      /**
+       * Returns the name of this job.
+       *
+       * @return job name
+       */
+      public String getName() {
+         return myName;
+      }
+
+      /**
+       * Returns the time to which this job's model is simulated.
+       *
+       * @return job stop time
+       */
+      public double getStopTime() {
+         return myStopTime;
+      }
+
+      /**
+       * Returns the root model created for this job, or {@code null} if the
+       * job has not been run or the model could not be created.
+       *
+       * @return root model for this job
+       */
+      public RootModel getRootModel() {
+         return myRoot;
+      }
+
+      /**
+       * Returns the error that terminated this job, or {@code null} if the
+       * job completed successfully.
+       *
+       * @return error terminating the job
+       */
+      public Throwable getError() {
+         return myError;
+      }
+
+      /**
+       * Queries whether this job completed successfully.
+       *
+       * @return {@code true} if the job completed
+       */
+      public boolean isCompleted() {
+         return myRoot != null && myError == null;
+      }
+
+      /**
+       * Returns the simulation time reached by this job.
+       *
+       * @return simulation time reached
+       */
+      public double getSimulationTime() {
+         return mySimTime;
+      }
+
+      /**
+       * Returns the wall-clock time, in seconds, used to build and initialize
+       * this job's model.
+       *
+       * @return model build time
+       */
+      public double getBuildTime() {
+         return myBuildTime;
+      }
+
+      /**
+       * Returns the wall-clock time, in seconds, used to advance this job's
+       * model.
+       *
+       * @return simulation run time
+       */
+      public double getRunTime() {
+         return myRunTime;
+      }
+
+      /**
+       * Returns the number of root model advance steps performed by this
+       * job.
+       *
+       * @return number of steps
+       */
+      public int numSteps() {
+         return myNumSteps;
+      }
+
+      /**
+       * Returns the throughput for this job, in simulated seconds per
+       * wall-clock second, not including the model build time.
+       *
+       * @return job throughput
+       */
+      public double getThroughput() {
+         return myRunTime > 0 ? mySimTime/myRunTime : 0;
+      }
+
+      /**
+       * Returns the output probes of this job's model, or an empty list if
+       * the model was not created.
+       *
+       * @return output probes for this job
+       */
+      public List<Probe> getOutputProbes() {
+         ArrayList<Probe> probes = new ArrayList<>();
+         if (myRoot != null) {
+            probes.addAll (myRoot.getOutputProbes());
+         }
+         return probes;
+      }
+
+      /**
+       * Returns the numeric output probe with a specified name, or {@code
+       * null} if there is no such probe.
+       *
+       * @param name name of the probe
+       * @return named numeric output probe
+       */
+      public NumericOutputProbe getNumericOutputProbe (String name) {
+         if (myRoot != null) {
+            Probe probe = myRoot.getOutputProbes().get (name);
+            if (probe instanceof NumericOutputProbe) {
+               return (NumericOutputProbe)probe;
+            }
+         }
+         return null;
+      }
+
+      void clearResults() {
+         myRoot = null;
+         myError = null;
+         mySimTime = 0;
+         myBuildTime = 0;
+         myRunTime = 0;
+         myNumSteps = 0;
+      }
+   }
+
+   ArrayList<Job> myJobs = new ArrayList<>();
+   int myNumThreads = Runtime.getRuntime().availableProcessors();
+   double myWallTime; // wall-clock time of the last run, in seconds
+   boolean myVerbose = false;
+
+   public BatchRunner() {
+   }
+
+   /**
+    * Sets the number of worker threads used to run the jobs. The default is
+    * the number of available processors.
+    *
+    * @param num number of worker threads
+    */
+   public void setNumThreads (int num) {
+      myNumThreads = Math.max (1, num);
+   }
+
+   /**
+    * Returns the number of worker threads used to run the jobs.
+    *
+    * @return number of worker threads
+    */
+   public int getNumThreads() {
+      return myNumThreads;
+   }
+
+   /**
+    * Enables or disables the printing of a message as each job completes.
+    *
+    * @param enable if {@code true}, enables progress messages
+    */
+   public void setVerbose (boolean enable) {
+      myVerbose = enable;
+   }
+
+   /**
+    * Queries whether progress messages are enabled.
+    *
+    * @return {@code true} if progress messages are enabled
+    */
+   public boolean getVerbose() {
+      return myVerbose;
+   }
+
+   /**
+    * Adds a job whose root model is created by a factory.
+    *
+    * @param name name of the job
+    * @param factory creates the root model
+    * @param stopTime time to which the model should be simulated
+    * @return the added job
+    */
+   public Job addJob (String name, ModelFactory factory, double stopTime) {
+      if (factory == null) {
+         throw new IllegalArgumentException ("factory is null");
+      }
+      Job job = new Job (name, factory, stopTime);
+      myJobs.add (job);
+      return job;
+   }
+
+   /**
+    * Adds a job whose root model is an instance of the specified class,
+    * created using its no-args constructor and then built using the
+    * specified arguments, in the same way as {@link Main} does.
+    *
+    * @param name name of the job, also used as the root model name
+    * @param modelClass class of the root model
+    * @param args arguments for the model's {@code build} method
+    * @param stopTime time to which the model should be simulated
+    * @return the added job
+    */
+   public Job addJob (
+      String name, Class<? extends RootModel> modelClass, String[] args,
+      double stopTime) {
+
+      final String[] buildArgs =
+         (args != null ? Arrays.copyOf (args, args.length) : new String[0]);
+      ModelFactory factory = new ModelFactory() {
+         public RootModel createModel() throws Exception {
+            RootModel root = modelClass.getConstructor().newInstance();
+            root.setName (name);
+            root.build (buildArgs);
+            ComponentUtils.checkReferenceContainment (root, root);
+            return root;
+         }
+      };
+      return addJob (name, factory, stopTime);
+   }
+
+   /**
+    * Returns the jobs in this runner.
+    *
+    * @return list of jobs
+    */
+   public List<Job> getJobs() {
+      return myJobs;
+   }
+
+   /**
+    * Returns the number of jobs in this runner.
+    *
+    * @return number of jobs
+    */
+   public int numJobs() {
+      return myJobs.size();
+   }
+
+   /**
+    * Removes all the jobs from this runner.
+    */
+   public void clearJobs() {
+      myJobs.clear();
+   }
+
+   /**
+    * Returns the wall-clock time, in seconds, used by the most recent call
+    * to {@link #run}.
+    *
+    * @return wall-clock time for the last run
+    */
+   public double getWallTime() {
+      return myWallTime;
+   }
+
+   /**
+    * Returns the total simulation time, summed over all jobs, reached by the
+    * most recent call to {@link #run}.
+    *
+    * @return total simulation time
+    */
+   public double getTotalSimulationTime() {
+      double total = 0;
+      for (Job job : myJobs) {
+         total += job.getSimulationTime();
+      }
+      return total;
+   }
+
+   /**
+    * Returns the aggregate throughput of the most recent call to {@link
+    * #run}, in simulated seconds per wall-clock second. This is the total
+    * simulation time over all jobs, divided by the wall-clock time of the
+    * run, including model build times.
+    *
+    * @return aggregate throughput
+    */
+   public double getThroughput() {
+      return myWallTime > 0 ? getTotalSimulationTime()/myWallTime : 0;
+   }
+
+   /**
+    * Returns the number of jobs that did not complete successfully in the
+    * most recent call to {@link #run}.
+    *
+    * @return number of failed jobs
+    */
+   public int numFailedJobs() {
+      int num = 0;
+      for (Job job : myJobs) {
+         if (!job.isCompleted()) {
+            num++;
+         }
+      }
+      return num;
+   }
+
+   /**
+    * Builds and simulates a single job in the calling thread.
+    */
+   void runJob (Job job) {
+      job.clearResults();
+      long t0 = System.nanoTime();
+      RootModel root = null;
+      try {
+         root = job.myFactory.createModel();
+         if (root == null) {
+            throw new InternalErrorException (
+               "model factory returned null");
+         }
+         job.myRoot = root;
+         root.initialize (0);
+         long t1 = System.nanoTime();
+         job.myBuildTime = (t1-t0)/1e9;
+
+         double stepSize = root.getMaxStepSize();
+         double time = 0;
+         root.setStopRequest (false);
+         while (TimeBase.compare (time, job.myStopTime) < 0 &&
+                !root.getStopRequest()) {
+            double next = time + (stepSize-TimeBase.modulo(time,stepSize));
+            if (TimeBase.compare (next, job.myStopTime) > 0) {
+               next = job.myStopTime;
+            }
+            next = TimeBase.round (next);
+            root.advance (time, next, 0);
+            time = next;
+            job.mySimTime = time;
+            job.myNumSteps++;
+         }
+         job.myRunTime = (System.nanoTime()-t1)/1e9;
+      }
+      catch (Throwable e) {
+         job.myError = e;
+         if (job.myBuildTime == 0) {
+            job.myBuildTime = (System.nanoTime()-t0)/1e9;
+         }
+      }
+   }
+
+   /**
+    * Runs all the jobs, using the number of worker threads specified by
+    * {@link #setNumThreads}, and waits for them to complete. Jobs that fail
+    * do not affect the other jobs; their errors can be queried using {@link
+    * Job#getError}.
+    *
+    * @return number of jobs that completed successfully
+    */
+   public int run() {
+      int nthreads = Math.min (myNumThreads, Math.max (1, myJobs.size()));
+      final AtomicInteger threadCnt = new AtomicInteger();
+      ExecutorService executor = Executors.newFixedThreadPool (
+         nthreads, new ThreadFactory() {
+            public Thread newThread (Runnable r) {
+               Thread thread = new Thread (
+                  r, "BatchRunner-" + threadCnt.getAndIncrement());
+               thread.setDaemon (true);
+               return thread;
+            }
+         });
+      long t0 = System.nanoTime();
+      try {
+         ArrayList<Future<?>> futures = new ArrayList<>();
+         for (final Job job : myJobs) {
+            futures.add (executor.submit (new Runnable() {
+               public void run() {
+                  runJob (job);
+                  if (myVerbose) {
+                     printJobSummary (System.out, job);
+                  }
+               }
+            }));
+         }
+         for (Future<?> future : futures) {
+            try {
+               future.get();
+            }
+            catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               break;
+            }
+            catch (Exception e) {
+               // errors are recorded in the job itself
+            }
+         }
+      }
+      finally {
+         executor.shutdownNow();
+      }
+      myWallTime = (System.nanoTime()-t0)/1e9;
+      return myJobs.size()-numFailedJobs();
+   }
+
+   private void printJobSummary (PrintStream ps, Job job) {
+      NumberFormat fmt = new NumberFormat ("%.3f");
+      if (job.isCompleted()) {
+         ps.println (
+            job.getName() + ": t=" + fmt.format (job.getSimulationTime()) +
+            " build=" + fmt.format (job.getBuildTime()) + "s" +
+            " run=" + fmt.format (job.getRunTime()) + "s" +
+            " throughput=" + fmt.format (job.getThroughput()));
+      }
+      else {
+         ps.println (
+            job.getName() + ": FAILED at t=" +
+            fmt.format (job.getSimulationTime()) + ": " + job.getError());
+      }
+   }
+
+   /**
+    * Prints a summary of the most recent run, giving the times and
+    * throughput for each job and the aggregate throughput.
+    *
+    * @param ps stream to print the summary to
+    */
+   public void printSummary (PrintStream ps) {
+      for (Job job : myJobs) {
+         printJobSummary (ps, job);
+      }
+      NumberFormat fmt = new NumberFormat ("%.3f");
+      ps.println (
+         myJobs.size() + " jobs, " + numFailedJobs() + " failed, " +
+         myNumThreads + " threads, wall time=" + fmt.format (myWallTime) +
+         "s, throughput=" + fmt.format (getThroughput()) +
+         " sim sec / wall sec");
+   }
+
+   private static void printUsageAndExit() {
+      System.out.println (
+         "Usage: java artisynth.core.driver.BatchRunner [options] "+
+         "<modelClass> [-- <model args>]\n"+
+         "Options:\n"+
+         "  -stop <time>     simulation stop time (default 1)\n"+
+         "  -copies <num>    number of model instances (default 1)\n"+
+         "  -threads <num>   number of worker threads\n"+
+         "  -verbose         print each job as it completes");
+      System.exit (1);
+   }
+
+   /**
+    * Runs a number of copies of a model concurrently and prints the
+    * resulting throughput.
+    */
+   public static void main (String[] args) {
+      double stopTime = 1;
+      int ncopies = 1;
+      String className = null;
+      String[] modelArgs = new String[0];
+      BatchRunner runner = new BatchRunner();
+      try {
+         for (int i=0; i<args.length; i++) {
+            if (args[i].equals ("-stop")) {
+               stopTime = Double.parseDouble (args[++i]);
+            }
+            else if (args[i].equals ("-copies")) {
+               ncopies = Integer.parseInt (args[++i]);
+            }
+            else if (args[i].equals ("-threads")) {
+               runner.setNumThreads (Integer.parseInt (args[++i]));
+            }
+            else if (args[i].equals ("-verbose")) {
+               runner.setVerbose (true);
+            }
+            else if (args[i].equals ("--")) {
+               modelArgs = Arrays.copyOfRange (args, i+1, args.length);
+               break;
+            }
+            else if (className == null && !args[i].startsWith ("-")) {
+               className = args[i];
+            }
+            else {
+               printUsageAndExit();
+            }
+         }
+      }
+      catch (Exception e) {
+         printUsageAndExit();
+      }
+      if (className == null) {
+         printUsageAndExit();
+      }
+      Class<?> cls = ClassAliases.resolveClass (className);
+      if (cls == null || !RootModel.class.isAssignableFrom (cls)) {
+         System.out.println (
+            "Error: '"+className+"' is not a RootModel class");
+         System.exit (1);
+      }
+      @SuppressWarnings("unchecked")
+      Class<? extends RootModel> modelClass = (Class<? extends RootModel>)cls;
+      for (int k=0; k<ncopies; k++) {
+         runner.addJob (
+            cls.getSimpleName()+"_"+k, modelClass, modelArgs, stopTime);
+      }
+      runner.run();
+      runner.printSummary (System.out);
+      System.exit (runner.numFailedJobs() == 0 ? 0 : 1);
+   }
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package artisynth.core.driver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import artisynth.core.driver.BatchRunner.Job;
+import artisynth.core.mechmodels.AxialSpring;
+import artisynth.core.mechmodels.MechModel;
+import artisynth.core.mechmodels.Particle;
+import artisynth.core.probes.NumericOutputProbe;
+import artisynth.core.workspace.RootModel;
+import maspack.interpolation.NumericList;
+import maspack.matrix.Vector3d;
+import maspack.util.TestException;
+import maspack.util.UnitTest;
+
+/**
+ * Tests BatchRunner by running several copies of a simple model
+ * concurrently and comparing the results with sequential runs.
+ */
+public class BatchRunnerTest extends UnitTest {
+
+   /**
+    * Mass-spring model whose stiffness is set by the build arguments.
+    */
+   public static class SpringModel extends RootModel {
+
+      public void build (String[] args) {
+         double stiffness = 10;
+         for (int i=0; i<args.length; i++) {
+            if (args[i].equals ("-stiffness")) {
+               stiffness = Double.parseDouble (args[++i]);
+            }
+         }
+         MechModel mech = new MechModel ("mech");
+         addModel (mech);
+         mech.setGravity (new Vector3d (0, 0, -9.8));
+         Particle p0 = new Particle ("p0", 1, 0, 0, 0);
+         p0.setDynamic (false);
+         Particle p1 = new Particle ("p1", 2, 1, 0, 0);
+         mech.addParticle (p0);
+         mech.addParticle (p1);
+         mech.attachAxialSpring (
+            p0, p1, new AxialSpring ("spring", stiffness, 0.5, 1.0));
+         addOutputProbe (
+            new NumericOutputProbe (p1, "position", 0, 2, 0.01));
+      }
+   }
+
+   void runJobs (BatchRunner runner, int njobs) {
+      for (int i=0; i<njobs; i++) {
+         String[] args = new String[] { "-stiffness", ""+(10.0*(i+1)) };
+         runner.addJob ("job"+i, SpringModel.class, args, 1.0);
+      }
+      int ncompleted = runner.run();
+      if (ncompleted != njobs) {
+         for (Job job : runner.getJobs()) {
+            if (job.getError() != null) {
+               job.getError().printStackTrace();
+            }
+         }
+         throw new TestException (
+            (njobs-ncompleted) + " jobs failed");
+      }
+   }
+
+   NumericList getPositions (Job job) {
+      if (job.getOutputProbes().size() != 1) {
+         throw new TestException ("no output probe found for "+job.getName());
+      }
+      NumericOutputProbe probe =
+         (NumericOutputProbe)job.getOutputProbes().get(0);
+      return probe.getNumericList();
+   }
+
+   public void test() {
+      int njobs = 6;
+      BatchRunner sequential = new BatchRunner();
+      sequential.setNumThreads (1);
+      runJobs (sequential, njobs);
+
+      BatchRunner concurrent = new BatchRunner();
+      concurrent.setNumThreads (3);
+      runJobs (concurrent, njobs);
+
+      ArrayList<double[][]> values = new ArrayList<>();
+      for (int i=0; i<njobs; i++) {
+         Job seq = sequential.getJobs().get(i);
+         Job con = concurrent.getJobs().get(i);
+         checkEquals ("simulation time", con.getSimulationTime(), 1.0);
+         checkEquals ("num steps", con.numSteps(), seq.numSteps());
+         double[][] seqVals = getPositions(seq).getValues();
+         double[][] conVals = getPositions(con).getValues();
+         checkEquals ("num knots", conVals.length, seqVals.length);
+         if (seqVals.length != 101) {
+            throw new TestException (
+               "output probe has "+seqVals.length+" knots, expected 101");
+         }
+         for (int k=0; k<seqVals.length; k++) {
+            for (int j=0; j<seqVals[k].length; j++) {
+               if (seqVals[k][j] != conVals[k][j]) {
+                  throw new TestException (
+                     "job "+i+", knot "+k+": concurrent result differs");
+               }
+            }
+         }
+         values.add (seqVals);
+      }
+      // different stiffnesses should give different results
+      double[][] vals0 = values.get(0);
+      double[][] vals1 = values.get(1);
+      int last = vals0.length-1;
+      if (Arrays.equals (vals0[last], vals1[last])) {
+         throw new TestException (
+            "jobs with different parameters gave identical results");
+      }
+      if (concurrent.getThroughput() <= 0) {
+         throw new TestException ("throughput not computed");
+      }
+      checkEquals (
+         "total simulation time",
+         concurrent.getTotalSimulationTime(), (double)njobs, 1e-12);
+   }
+
+   public static void main (String[] args) {
+      BatchRunnerTest tester = new BatchRunnerTest();
+      tester.runtest();
+   }
+}
@@ -110,6 +110,7 @@ import artisynth.core.workspace.RootModel;
 import artisynth.core.workspace.Workspace;
 import artisynth.core.renderables.VertexComponent;
 import maspack.geometry.ConstrainedTranslator3d;
+import maspack.geometry.GeometryCache;
 import maspack.geometry.GeometryTransformer;
 import maspack.geometry.GeometryTransformer.UndoState;
 import maspack.geometry.PolygonalMesh;
@@ -263,6 +264,7 @@ public class Main implements DriverInterface, ComponentChangeListener {
    protected LookAndFeel myLookAndFeel = DEFAULT_LOOK_AND_FEEL;
 
    protected String myModelSaveFormat = "%g"; // "%.8g";
+   protected boolean myModelSaveBinary = false;
 
    private Vector3d myVec = new Vector3d();
 
@@ -1721,6 +1723,17 @@ public class Main implements DriverInterface, ComponentChangeListener {
          MechSystemBase.setDefaultMatrixSolver (
             SparseSolverId.valueOf (matrixSolver.value));
       }
+
+      // on-disk cache for distance grids and BVH trees
+      if (geometryCache.value || geometryCacheSize.value != -1) {
+         long maxSize = GeometryCache.DEFAULT_MAX_SIZE;
+         if (geometryCacheSize.value != -1) {
+            maxSize = geometryCacheSize.value*(1L << 20);
+         }
+         GeometryCache.setDefault (
+            new GeometryCache (
+               new File (ArtisynthPath.getCacheDir(), "geometry"), maxSize));
+      }
    }      
 
    private void initializeMaintenancePrefs () {
@@ -2713,6 +2726,8 @@ public class Main implements DriverInterface, ComponentChangeListener {
    protected static BooleanHolder openMatlab = new BooleanHolder(false);
 
    protected static StringHolder matrixSolver = new StringHolder();
+   protected static BooleanHolder geometryCache = new BooleanHolder (false);
+   protected static IntHolder geometryCacheSize = new IntHolder (-1);
    protected static StringHolder testModelLoading = new StringHolder();
 
    // Dimension getViewerSize() {
@@ -2959,11 +2974,17 @@ public class Main implements DriverInterface, ComponentChangeListener {
          "-disableHybridSolves %v #disable hybrid linear solves",
          disableHybridSolves);
       parser.addOption (
-         "-matrixSolver %s{Pardiso,Umfpack} #default matrix solver",
+         "-matrixSolver %s{Pardiso,Umfpack,SparseLDLT} #default matrix solver",
          matrixSolver);
       parser.addOption (
          "-numSolverThreads %d #number of threads to use for linear solver",
          numSolverThreads);
+      parser.addOption (
+         "-geometryCache %v #cache distance grids and BVH trees on disk",
+         geometryCache);
+      parser.addOption (
+         "-geometryCacheSize %d{[1,1000000]} #max geometry cache size (MB)",
+         geometryCacheSize);
       parser.addOption (
          "-posCorrection %s{GlobalMass,GlobalStiffness} "+
             "#position correction mode",
@@ -3522,6 +3543,31 @@ public class Main implements DriverInterface, ComponentChangeListener {
       myModelSaveFormat = fmtStr;
    }
 
+   /**
+    * Queries whether models and components are saved in binary token
+    * format.
+    *
+    * @return {@code true} if models are saved in binary
+    * @see #setModelSaveBinary
+    */
+   public boolean getModelSaveBinary () {
+      return myModelSaveBinary;
+   }
+
+   /**
+    * Sets whether models and components are saved in the binary token
+    * format produced by {@link maspack.util.BinaryTokenWriter}, instead of
+    * text. Binary files are read back using the same scan methods as text
+    * files, and are recognized automatically when loaded, but load
+    * considerably faster for models containing large amounts of numeric
+    * data.
+    *
+    * @param enable if {@code true}, save models in binary
+    */
+   public void setModelSaveBinary (boolean enable) {
+      myModelSaveBinary = enable;
+   }
+
    public int saveModelFile (File file) throws IOException {
       return saveModelFile (file, myModelSaveFormat, false, false);
    }
@@ -3578,7 +3624,8 @@ public class Main implements DriverInterface, ComponentChangeListener {
          incomp = ComponentUtils.markInvalidSubcomps (root);
          numRemoved = incomp.size();
       }
-      IndentingPrintWriter pw = new IndentingPrintWriter (file);
+      IndentingPrintWriter pw =
+         ArtisynthIO.newIndentingPrintWriter (file, myModelSaveBinary);
       try {
          if (fmtStr == null) {
             fmtStr = getModelSaveFormat();
@@ -3657,7 +3704,7 @@ public class Main implements DriverInterface, ComponentChangeListener {
          numRemoved = incomp.size();
       }
       try {
-         pw = ArtisynthIO.newIndentingPrintWriter (file);
+         pw = ArtisynthIO.newIndentingPrintWriter (file, myModelSaveBinary);
          if (fmtStr == null) {
             fmtStr = getModelSaveFormat();
          }
@@ -5058,6 +5105,8 @@ public class Main implements DriverInterface, ComponentChangeListener {
       bgColor = new float[] { -1f, -1f, -1f};       
       openMatlab = new BooleanHolder(false);
       matrixSolver = new StringHolder();
+      geometryCache = new BooleanHolder (false);
+      geometryCacheSize = new IntHolder (-1);
       testModelLoading = new StringHolder();
 
       // statics in other classes
@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package artisynth.core.femmodels;
+
+import artisynth.core.materials.NeoHookeanMaterial;
+import artisynth.core.mechmodels.MechModel;
+import maspack.util.FunctionTimer;
+
+/**
+ * Compares the time required by {@link FemModel3d#updateStressAndStiffness}
+ * for serial and parallel element assembly, using a tetrahedral grid
+ * with a non-linear material.
+ */
+public class FemAssemblyTiming {
+
+   static int myRes = 30;       // grid resolution along each axis
+   static int myMaxThreads = 8; // maximum number of threads to try
+   static int myCnt = 20;       // number of timed updates per thread count
+
+   static void timeAssembly (FemModel3d fem, int nthreads) {
+      FunctionTimer timer = new FunctionTimer();
+      fem.setAssemblyThreads (nthreads);
+      // warm up
+      for (int i=0; i<myCnt/2; i++) {
+         fem.invalidateStressAndStiffness();
+         fem.updateStressAndStiffness();
+      }
+      timer.start();
+      for (int i=0; i<myCnt; i++) {
+         fem.invalidateStressAndStiffness();
+         fem.updateStressAndStiffness();
+      }
+      timer.stop();
+      System.out.println (
+         "threads=" + nthreads + ": " + timer.result (myCnt));
+   }
+
+   public static void main (String[] args) {
+      for (int i=0; i<args.length; i++) {
+         if (args[i].equals ("-res") && i<args.length-1) {
+            myRes = Integer.parseInt (args[++i]);
+         }
+         else if (args[i].equals ("-maxThreads") && i<args.length-1) {
+            myMaxThreads = Integer.parseInt (args[++i]);
+         }
+         else if (args[i].equals ("-cnt") && i<args.length-1) {
+            myCnt = Integer.parseInt (args[++i]);
+         }
+         else {
+            System.out.println (
+               "Usage: java "+FemAssemblyTiming.class.getName() +
+               " [-res <n>] [-maxThreads <n>] [-cnt <n>]");
+            System.exit (1);
+         }
+      }
+      FemModel3d fem = FemFactory.createTetGrid (
+         null, 1.0, 1.0, 1.0, myRes, myRes, myRes);
+      fem.setMaterial (new NeoHookeanMaterial (50000, 0.33));
+      MechModel mech = new MechModel();
+      mech.addModel (fem);
+      // one step to initialize solve indices
+      mech.preadvance (0, 0.01, /*flags=*/0);
+      mech.advance (0, 0.01, /*flags=*/0);
+
+      System.out.println (
+         "elements: " + fem.numElements() + ", nodes: " + fem.numNodes());
+      for (int nthreads=1; nthreads<=myMaxThreads; nthreads*=2) {
+         timeAssembly (fem, nthreads);
+      }
+      fem.dispose();
+   }
+}
@@ -100,6 +100,10 @@ public abstract class FemElement extends RenderableComponentBase
    protected ArrayList<FemMaterial> myAugMaterials = null;
    // Auxiliary Materials are mainly used for implementing muscle fibres
    protected ArrayList<AuxiliaryMaterial> myAuxMaterials = null;
+   // array of auxiliary materials, returned by getAuxiliaryMaterials()
+   private AuxiliaryMaterial[] myAuxMaterialArray = null;
+   private static final AuxiliaryMaterial[] myNoAuxMaterials =
+      new AuxiliaryMaterial[0];
 
    protected int myStateVersion = 0;
    protected int myNumMaterialsWithState = -1;
@@ -203,8 +207,8 @@ public abstract class FemElement extends RenderableComponentBase
          return false;
       }
       if (myAugMaterials != null) {
-         for (FemMaterial amat : myAugMaterials) {
-            if (!amat.isInvertible()) {
+         for (int i=0; i<myAugMaterials.size(); i++) {
+            if (!myAugMaterials.get(i).isInvertible()) {
                return false;
             }
          }
@@ -972,6 +976,7 @@ public abstract class FemElement extends RenderableComponentBase
          e.myAugMaterials.addAll (myAugMaterials);
       }
       e.myAuxMaterials = null;
+      e.myAuxMaterialArray = null;
       if (myAuxMaterials != null) {
          for (AuxiliaryMaterial a : myAuxMaterials) {
             try {
@@ -992,6 +997,13 @@ public abstract class FemElement extends RenderableComponentBase
       if (e instanceof MaterialChangeEvent) {
          MaterialChangeEvent mce = (MaterialChangeEvent)e;
          invalidateRestData();
+         FemModel3d fem = getFemModel();
+         if (fem != null) {
+            // copies used by parallel assembly must be recreated, even
+            // though the event is passed on only for state or symmetry
+            // changes
+            fem.clearAssemblyMaterialCopies();
+         }
          if (mce.stateChanged() && e.getHost() == getMaterial()) {
             notifyStateVersionChanged(); // clear element material state 
          }
@@ -1033,10 +1045,12 @@ public abstract class FemElement extends RenderableComponentBase
          myAuxMaterials = new ArrayList<AuxiliaryMaterial>(4);
       }
       myAuxMaterials.add (mat);
+      myAuxMaterialArray = null;
    }
 
    public boolean removeAuxiliaryMaterial (AuxiliaryMaterial mat) {
       if (myAuxMaterials != null) {
+         myAuxMaterialArray = null;
          return myAuxMaterials.remove (mat);
       }
       else {
@@ -1048,11 +1062,21 @@ public abstract class FemElement extends RenderableComponentBase
       return myAuxMaterials == null ? 0 : myAuxMaterials.size();
    }
 
+   /**
+    * Returns the auxiliary materials for this element. The returned array
+    * is cached and should not be modified.
+    *
+    * @return auxiliary materials for this element
+    */
    public AuxiliaryMaterial[] getAuxiliaryMaterials() {
       if (myAuxMaterials == null) {
-         return new AuxiliaryMaterial[0];
+         return myNoAuxMaterials;
+      }
+      if (myAuxMaterialArray == null) {
+         myAuxMaterialArray =
+            myAuxMaterials.toArray (new AuxiliaryMaterial[0]);
       }
-      return myAuxMaterials.toArray (new AuxiliaryMaterial[0]);
+      return myAuxMaterialArray;
    }
 
    /* --- partial implementation of HasNumericState --- */
@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package artisynth.core.femmodels;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Partitions a set of elements into <i>colors</i>, such that no two
+ * elements within the same color share a node. Elements within a color can
+ * therefore accumulate nodal forces and stiffness blocks concurrently
+ * without write conflicts.
+ *
+ * <p>Colors are assigned greedily, with elements visited in the order of the
+ * supplied list and each element assigned to the lowest color that does not
+ * already contain one of its nodes. The resulting coloring depends only on
+ * the element list, and so the order in which contributions are summed into
+ * any given node is fixed.
+ */
+public class FemElementColoring<E extends FemElement3dBase> {
+
+   ArrayList<E> myElems;
+   // element indices sorted by color
+   int[] myIdxs;
+   // offsets of each color within myIdxs; size is numColors()+1
+   int[] myOffsets;
+
+   /**
+    * Creates a coloring for the specified elements.
+    *
+    * @param elems elements to be colored
+    */
+   public FemElementColoring (List<E> elems) {
+      myElems = new ArrayList<E>(elems);
+      computeColors();
+   }
+
+   private void computeColors() {
+      HashMap<FemNode3d,BitSet> nodeColors = new HashMap<>();
+      int numElems = myElems.size();
+      int[] colors = new int[numElems];
+      int numColors = 0;
+      BitSet used = new BitSet();
+      for (int k=0; k<numElems; k++) {
+         FemNode3d[] nodes = myElems.get(k).getNodes();
+         used.clear();
+         for (FemNode3d n : nodes) {
+            BitSet ncolors = nodeColors.get(n);
+            if (ncolors != null) {
+               used.or (ncolors);
+            }
+         }
+         int c = used.nextClearBit (0);
+         for (FemNode3d n : nodes) {
+            BitSet ncolors = nodeColors.get(n);
+            if (ncolors == null) {
+               ncolors = new BitSet();
+               nodeColors.put (n, ncolors);
+            }
+            ncolors.set (c);
+         }
+         colors[k] = c;
+         if (c >= numColors) {
+            numColors = c+1;
+         }
+      }
+      // bucket sort element indices by color, preserving element order
+      myOffsets = new int[numColors+1];
+      for (int k=0; k<numElems; k++) {
+         myOffsets[colors[k]+1]++;
+      }
+      for (int c=0; c<numColors; c++) {
+         myOffsets[c+1] += myOffsets[c];
+      }
+      myIdxs = new int[numElems];
+      int[] fill = new int[numColors];
+      for (int k=0; k<numElems; k++) {
+         int c = colors[k];
+         myIdxs[myOffsets[c] + fill[c]++] = k;
+      }
+   }
+
+   /**
+    * Returns the number of colors in this coloring.
+    *
+    * @return number of colors
+    */
+   public int numColors() {
+      return myOffsets.length-1;
+   }
+
+   /**
+    * Returns the number of elements in color <code>c</code>.
+    *
+    * @param c color index
+    * @return number of elements in the color
+    */
+   public int numElements (int c) {
+      return myOffsets[c+1]-myOffsets[c];
+   }
+
+   /**
+    * Returns the <code>k</code>-th element of color <code>c</code>.
+    *
+    * @param c color index
+    * @param k element index within the color
+    * @return specified element
+    */
+   public E getElement (int c, int k) {
+      return myElems.get (myIdxs[myOffsets[c]+k]);
+   }
+
+   /**
+    * Returns the total number of elements in this coloring.
+    *
+    * @return total number of elements
+    */
+   public int numElements() {
+      return myElems.size();
+   }
+}
@@ -1502,7 +1502,9 @@ public abstract class FemModel extends MechSystemBase
    
    protected double computeVolume() {
       double volume = 0;
-      for (FemElement e : getAllElements()) {
+      ArrayList<? extends FemElement> elems = getAllElements();
+      for (int i=0; i<elems.size(); i++) {
+         FemElement e = elems.get(i);
          e.computeVolumes();
          volume += e.getVolume();
       }
@@ -24,6 +24,7 @@ import artisynth.core.fields.ScalarNodalField;
 import artisynth.core.materials.FemMaterial;
 import artisynth.core.materials.IncompressibleMaterialBase;
 import artisynth.core.materials.IncompressibleMaterialBase.BulkPotential;
+import artisynth.core.materials.MaterialChangeEvent;
 import artisynth.core.materials.MaterialStateObject;
 import artisynth.core.mechmodels.BodyConnector;
 import artisynth.core.mechmodels.Collidable;
@@ -54,6 +55,7 @@ import artisynth.core.modelbase.FieldComponent;
 import artisynth.core.modelbase.HasNumericState;
 import artisynth.core.modelbase.ModelComponent;
 import artisynth.core.modelbase.ModelComponentBase;
+import artisynth.core.modelbase.PropertyChangeEvent;
 import artisynth.core.modelbase.RenderableComponentList;
 import artisynth.core.modelbase.ScalarFieldComponent;
 import artisynth.core.modelbase.StepAdjustment;
@@ -65,6 +67,7 @@ import artisynth.core.util.IntegerToken;
 import artisynth.core.util.ScalableUnits;
 import artisynth.core.util.ScanToken;
 import artisynth.core.util.StringToken;
+import maspack.concurrency.ParallelLoop;
 import maspack.geometry.AABBTree;
 import maspack.geometry.BVFeatureQuery;
 import maspack.geometry.BVNode;
@@ -248,6 +251,23 @@ PointAttachable, ConnectableBody {
    // temp for computing element-wise linear stiffness strain
    protected SymmetricMatrix3d myEps = new SymmetricMatrix3d();
 
+   // number of threads used to compute element stresses and stiffnesses
+   public static int DEFAULT_ASSEMBLY_THREADS = 1;
+   protected int myAssemblyThreads = DEFAULT_ASSEMBLY_THREADS;
+   // minimum number of elements required for parallel assembly
+   public static int minParallelAssemblyElements = 256;
+   // workspace used when computing stresses and stiffnesses serially
+   protected StressStiffnessWorkspace mySerialWorkspace =
+      new StressStiffnessWorkspace (
+         myPressures, myAvgDetFs, myRinv, /*copyMaterials=*/false);
+   // workspaces and thread loop used for parallel assembly
+   protected StressStiffnessWorkspace[] myAssemblyWorkspaces;
+   protected ParallelLoop myAssemblyLoop;
+   // elements partitioned into non-conflicting colors for parallel assembly
+   protected FemElementColoring<FemElement3d> myElementColoring;
+   // elements that must be processed serially during parallel assembly
+   protected ArrayList<FemElement3d> mySerialAssemblyElements;
+
    // protected ArrayList<FemSurface> myEmbeddedSurfaces;
    protected MeshComponentList<FemMeshComp> myMeshList;
    protected RenderableComponentList<FemCutPlane> myCutPlanes;
@@ -300,6 +320,10 @@ PointAttachable, ConnectableBody {
          "useConsistentMass",
          "use consistent mass matrix and gravity loadings", 
          DEFAULT_USE_CONSISTENT_MASS);
+      myProps.add (
+         "assemblyThreads",
+         "number of threads used to compute element stresses and stiffnesses",
+         DEFAULT_ASSEMBLY_THREADS, "[1,inf]");
    }
 
    public PropertyList getAllPropertyInfo() {
@@ -577,6 +601,63 @@ PointAttachable, ConnectableBody {
       }
    }
 
+   /**
+    * Returns the number of threads used to compute element stresses and
+    * stiffnesses. See {@link #setAssemblyThreads}.
+    *
+    * @return number of assembly threads
+    */
+   public int getAssemblyThreads() {
+      return myAssemblyThreads;
+   }
+
+   /**
+    * Sets the number of threads used to compute element stresses and
+    * stiffnesses. The default value is 1, which causes the computation to
+    * be done serially. For larger values, volumetric elements are
+    * partitioned into colors such that no two elements in the same color
+    * share a node, and the elements within each color are processed
+    * concurrently. Since the nodal summation order is then determined by the
+    * coloring, the resulting forces and stiffnesses are reproducible, but may
+    * differ from those of the serial computation by round-off error.
+    *
+    * <p>Parallel assembly is not used if the model contains fewer than
+    * {@link #minParallelAssemblyElements} elements, or if the soft
+    * incompressibility method is {@link IncompMethod#NODAL}. Elements with
+    * non-linear auxiliary materials (such as muscle bundles), as well as
+    * shell elements, are always processed serially.
+    *
+    * <p>Each thread evaluates private copies of the materials, which are
+    * recreated whenever the model, one of its elements, or one of its
+    * material bundles reports a material change. Augmenting materials that
+    * are added directly to elements using {@link
+    * FemElement#addAugmentingMaterial} have no host to report changes, so
+    * if such a material is modified, {@link #clearAssemblyMaterialCopies}
+    * should be called explicitly.
+    *
+    * @param nthreads number of assembly threads
+    */
+   public void setAssemblyThreads (int nthreads) {
+      if (nthreads < 1) {
+         nthreads = 1;
+      }
+      if (nthreads != myAssemblyThreads) {
+         myAssemblyThreads = nthreads;
+         disposeAssemblyThreads();
+      }
+   }
+
+   /**
+    * Releases threads and workspaces used for parallel assembly.
+    */
+   protected void disposeAssemblyThreads() {
+      if (myAssemblyLoop != null) {
+         myAssemblyLoop.dispose();
+         myAssemblyLoop = null;
+      }
+      myAssemblyWorkspaces = null;
+   }
+
    protected void setDefaultValues() {
       super.setDefaultValues();
       myElementWidgetSize = DEFAULT_ELEMENT_WIDGET_SIZE;
@@ -903,11 +984,11 @@ PointAttachable, ConnectableBody {
    
    public double collectStrainEnergy() {
       double e = 0;
-      for (FemElement3dBase elem : getElements()) {
-         e += elem.getStrainEnergy();
+      for (int i=0; i<myElements.size(); i++) {
+         e += myElements.get(i).getStrainEnergy();
       }
-      for (FemElement3dBase elem : getShellElements()) {
-         e += elem.getStrainEnergy();
+      for (int i=0; i<myShellElements.size(); i++) {
+         e += myShellElements.get(i).getStrainEnergy();
       }
       return e;
    }
@@ -2171,6 +2252,32 @@ PointAttachable, ConnectableBody {
       myHardIncompConfigValidP = false;
       myAllElements = null;
       myNumTetElements = -1; // invalidates all element counts
+      myElementColoring = null;
+      mySerialAssemblyElements = null;
+      clearAssemblyMaterialCopies();
+   }
+
+   /**
+    * Discards the material copies used by parallel assembly, so that they
+    * will be recreated from the current materials. Should be called
+    * whenever a material used by the model's elements changes. This is done
+    * automatically for changes reported by the model, its elements, and its
+    * material bundles.
+    */
+   public void clearAssemblyMaterialCopies() {
+      if (myAssemblyWorkspaces != null) {
+         for (StressStiffnessWorkspace ws : myAssemblyWorkspaces) {
+            ws.clearMaterialCopies();
+         }
+      }
+   }
+
+   public void propertyChanged (PropertyChangeEvent e) {
+      super.propertyChanged (e);
+      if (e instanceof MaterialChangeEvent) {
+         // per-thread material copies need to be recreated
+         clearAssemblyMaterialCopies();
+      }
    }
 
    // Called when the geometry (but not the topology) of one or
@@ -2738,7 +2845,20 @@ PointAttachable, ConnectableBody {
    
    protected void computePressuresAndRinv(
       FemElement3d e, IncompressibleMaterialBase imat, FemDeformedPoint dpnt) {
+      computePressuresAndRinv (e, imat, dpnt, mySerialWorkspace);
+   }
+
+   /**
+    * Computes element pressures, average detF values, and inverse pressure
+    * stiffness, storing the results in the specified workspace.
+    */
+   protected void computePressuresAndRinv(
+      FemElement3d e, IncompressibleMaterialBase imat, FemDeformedPoint dpnt,
+      StressStiffnessWorkspace ws) {
 
+      VectorNd myPressures = ws.pressures;
+      VectorNd myAvgDetFs = ws.avgDetFs;
+      MatrixNd myRinv = ws.Rinv;
       int npvals = e.numPressureVals();
 
       myRinv.setSize(npvals, npvals);
@@ -2797,8 +2917,8 @@ PointAttachable, ConnectableBody {
             myRinv.scale(K/restVol);
          }
          else {
-            // optimize later
-            MatrixNd Wtmp = new MatrixNd(W);
+            MatrixNd Wtmp = ws.Wtmp;
+            Wtmp.set(W);
             Wtmp.scale(1.0 / restVol);
             myRinv.mul(Wtmp);
             myRinv.mul(Wtmp, myRinv);
@@ -3071,19 +3191,24 @@ PointAttachable, ConnectableBody {
       // allocate or deallocate nodal incompressibility blocks
       setNodalIncompBlocksAllocated (getSoftIncompMethod()==IncompMethod.NODAL);
 
-      // clear existing internal forces and maybe stiffnesses
-      for (FemNode3d n : myNodes) {
+      // clear existing internal forces and maybe stiffnesses. Indexed loops
+      // are used here and below to avoid allocating iterators.
+      for (int k=0; k<myNodes.size(); k++) {
+         FemNode3d n = myNodes.get(k);
          n.myInternalForce.setZero();
          if (n.myBackNode != null) {
             n.myBackNode.myInternalForce.setZero();
          }
          if (!myStiffnessesValidP) {
-            for (FemNodeNeighbor nbr : getNodeNeighbors(n)) {
-               nbr.zeroStiffness();
+            ArrayList<FemNodeNeighbor> nbrs = getNodeNeighbors(n);
+            for (int j=0; j<nbrs.size(); j++) {
+               nbrs.get(j).zeroStiffness();
             }
             // used for soft nodal-based incompressibilty:
-            for (FemNodeNeighbor nbr : getIndirectNeighbors(n)) {
-               nbr.zeroStiffness();
+            if (n.getIndirectNeighbors() != null) {
+               for (FemNodeNeighbor nbr : getIndirectNeighbors(n)) {
+                  nbr.zeroStiffness();
+               }
             }
          }
          n.zeroStressStrain();
@@ -3105,7 +3230,7 @@ PointAttachable, ConnectableBody {
          }
       }
 
-      Matrix6d D = new Matrix6d();
+      Matrix6d D = mySerialWorkspace.D;
       // compute new forces as well as stiffness matrix if warping is enabled
 
       clearElementConditionInfo();
@@ -3115,18 +3240,25 @@ PointAttachable, ConnectableBody {
 
       ArrayList<FemMaterial> amats = getAugmentingMaterials();
 
-      for (FemElement3d e : myElements) {
-         FemMaterial mat = getElementMaterial(e);
-         computeStressAndStiffness(e, mat, amats, D, softIncomp);
-         if (checkTangentStability) {
-            double s = checkMatrixStability(D);
-            if (s < mins) {
-               mins = s;
-               minE = e;
+      if (useParallelAssembly (softIncomp)) {
+         computeStressAndStiffnessInParallel (amats, softIncomp);
+      }
+      else {
+         for (int k=0; k<myElements.size(); k++) {
+            FemElement3d e = myElements.get(k);
+            FemMaterial mat = getElementMaterial(e);
+            computeStressAndStiffness(e, mat, amats, D, softIncomp);
+            if (checkTangentStability) {
+               double s = checkMatrixStability(D);
+               if (s < mins) {
+                  mins = s;
+                  minE = e;
+               }
             }
          }
       }
-      for (ShellElement3d e : myShellElements) {
+      for (int k=0; k<myShellElements.size(); k++) {
+         ShellElement3d e = myShellElements.get(k);
          FemMaterial mat = getElementMaterial(e);
          if (e.getElementClass() == ElementClass.SHELL) {
             computeShellStressAndStiffness(e, mat, amats, D);
@@ -3167,10 +3299,13 @@ PointAttachable, ConnectableBody {
       }
 
       if (!myStiffnessesValidP && mySolveMatrixSymmetricP) {
-         for (FemNode3d n : myNodes) {
+         for (int k=0; k<myNodes.size(); k++) {
+            FemNode3d n = myNodes.get(k);
             int bi = n.getLocalSolveIndex();
             if (bi != -1) {
-               for (FemNodeNeighbor nbr : getNodeNeighbors(n)) {
+               ArrayList<FemNodeNeighbor> nbrs = getNodeNeighbors(n);
+               for (int j=0; j<nbrs.size(); j++) {
+                  FemNodeNeighbor nbr = nbrs.get(j);
                   int bj = nbr.myNode.getLocalSolveIndex();
                   if (bj > bi) {
                      FemNodeNeighbor nbrT =
@@ -3179,12 +3314,14 @@ PointAttachable, ConnectableBody {
                   }
                }
                // used for soft nodal-based incompressibilty:
-               for (FemNodeNeighbor nbr : getIndirectNeighbors(n)) {
-                  int bj = nbr.myNode.getLocalSolveIndex();
-                  if (bj > bi) {
-                     FemNodeNeighbor nbrT =
-                        nbr.myNode.getIndirectNeighborBySolveIndex(bi);
-                     nbrT.setTransposedStiffness(nbr);
+               if (n.getIndirectNeighbors() != null) {
+                  for (FemNodeNeighbor nbr : getIndirectNeighbors(n)) {
+                     int bj = nbr.myNode.getLocalSolveIndex();
+                     if (bj > bi) {
+                        FemNodeNeighbor nbrT =
+                           nbr.myNode.getIndirectNeighborBySolveIndex(bi);
+                        nbrT.setTransposedStiffness(nbr);
+                     }
                   }
                }
             }
@@ -3204,15 +3341,148 @@ PointAttachable, ConnectableBody {
       }
    }
 
+   /**
+    * Returns true if element stresses and stiffnesses should be computed
+    * in parallel.
+    */
+   protected boolean useParallelAssembly (IncompMethod softIncomp) {
+      return (myAssemblyThreads > 1 &&
+              myElements.size() >= minParallelAssemblyElements &&
+              softIncomp != IncompMethod.NODAL &&
+              !checkTangentStability);
+   }
+
+   /**
+    * Returns true if the stress and stiffness of an element can be computed
+    * concurrently with other elements. This is not the case for elements with
+    * non-linear auxiliary materials, since these are not evaluated using
+    * per-thread material copies.
+    */
+   protected boolean canAssembleInParallel (FemElement3d e) {
+      return areLinear (e.getAuxiliaryMaterials());
+   }
+
+   /**
+    * Partitions the volumetric elements into those that can be assembled
+    * in parallel, which are then colored, and those that must be assembled
+    * serially.
+    */
+   protected void updateElementColoring() {
+      ArrayList<FemElement3d> pelems = new ArrayList<>();
+      mySerialAssemblyElements = new ArrayList<>();
+      for (FemElement3d e : myElements) {
+         if (canAssembleInParallel (e)) {
+            pelems.add (e);
+         }
+         else {
+            mySerialAssemblyElements.add (e);
+         }
+      }
+      myElementColoring = new FemElementColoring<FemElement3d>(pelems);
+   }
+
+   private StressStiffnessWorkspace[] getAssemblyWorkspaces() {
+      if (myAssemblyWorkspaces == null) {
+         myAssemblyWorkspaces = new StressStiffnessWorkspace[myAssemblyThreads];
+         for (int i=0; i<myAssemblyThreads; i++) {
+            myAssemblyWorkspaces[i] =
+               new StressStiffnessWorkspace (/*copyMaterials=*/true);
+         }
+      }
+      if (myAssemblyLoop == null) {
+         myAssemblyLoop = new ParallelLoop ("FemAssembly", myAssemblyThreads);
+      }
+      return myAssemblyWorkspaces;
+   }
+
+   /**
+    * Computes the stresses and stiffnesses for all volumetric elements, using
+    * multiple threads. Elements are processed one color at a time, so that
+    * the elements being processed concurrently do not share any nodes. Since
+    * the coloring depends only on the element list, the order in which
+    * contributions are added to each node, and hence the result, does not
+    * depend on thread scheduling.
+    */
+   protected void computeStressAndStiffnessInParallel (
+      final ArrayList<FemMaterial> amats, final IncompMethod softIncomp) {
+
+      if (myElementColoring == null) {
+         updateElementColoring();
+      }
+      final FemElementColoring<FemElement3d> coloring = myElementColoring;
+      final StressStiffnessWorkspace[] wss = getAssemblyWorkspaces();
+      for (StressStiffnessWorkspace ws : wss) {
+         ws.clearConditionInfo();
+      }
+      // Update warping stiffness serially beforehand, since this evaluates
+      // the original (shared) linear materials
+      for (FemElement3d e : myElements) {
+         e.getStiffnessWarper (1.0);
+         // Also initialize element type data that is created lazily and
+         // shared by all elements of the same type. The parallel kernels
+         // read this data, and creating it concurrently is not thread-safe.
+         e.getIntegrationPoints();
+         e.getWarpingPoint();
+         e.getNodalExtrapolationMatrix();
+         e.getNodalAveragingMatrix();
+         e.getPressureWeightMatrix();
+      }
+      for (int c=0; c<coloring.numColors(); c++) {
+         final int color = c;
+         myAssemblyLoop.run (
+            coloring.numElements(c), new ParallelLoop.RangeTask() {
+               public void run (int tidx, int lo, int hi) {
+                  StressStiffnessWorkspace ws = wss[tidx];
+                  for (int k=lo; k<hi; k++) {
+                     FemElement3d e = coloring.getElement (color, k);
+                     computeStressAndStiffness (
+                        e, getElementMaterial(e), amats, ws.D, softIncomp, ws);
+                  }
+               }
+            });
+      }
+      // elements that cannot be assembled in parallel
+      Matrix6d D = mySerialWorkspace.D;
+      for (FemElement3d e : mySerialAssemblyElements) {
+         computeStressAndStiffness (
+            e, getElementMaterial(e), amats, D, softIncomp);
+      }
+      // combine element condition information in thread order, using the
+      // element number to break ties so that the result is reproducible
+      for (StressStiffnessWorkspace ws : wss) {
+         if (ws.minDetJElement != null &&
+             (ws.minDetJ < myMinDetJ ||
+              (ws.minDetJ == myMinDetJ && myMinDetJElement != null &&
+               ws.minDetJElement.getNumber() < myMinDetJElement.getNumber()))) {
+            myMinDetJ = ws.minDetJ;
+            myMinDetJElement = ws.minDetJElement;
+         }
+         myNumInverted += ws.numInverted;
+      }
+   }
+
    /**
     * Accumulate nodal stress and strain values for linear materials.
     */
    protected void accumulateLinearNodalStressStrain (
       FemElement3dBase e, ArrayList<FemMaterial> amats,
       StiffnessWarper3d warper, FemDeformedPoint dpnt, int needsStressStrain) {
+      accumulateLinearNodalStressStrain (
+         e, getElementMaterial (e), amats, warper, dpnt,
+         needsStressStrain, mySerialWorkspace);
+   }
+
+   /**
+    * Accumulate nodal stress and strain values for linear materials, using a
+    * specified workspace. <code>mat</code> is the element material as
+    * returned by the workspace.
+    */
+   protected void accumulateLinearNodalStressStrain (
+      FemElement3dBase e, FemMaterial mat, ArrayList<FemMaterial> amats,
+      StiffnessWarper3d warper, FemDeformedPoint dpnt, int needsStressStrain,
+      StressStiffnessWorkspace ws) {
       
       FemNode3d[] nodes = e.getNodes();
-      FemMaterial mat = getElementMaterial (e);
 
       // estimate at warping point
       RotationMatrix3d R = warper.getRotation();
@@ -3222,7 +3492,7 @@ PointAttachable, ConnectableBody {
       int widx = e.numAllIntegrationPoints()-1;
       dpnt.setFromIntegrationPoint (wpnt, wdata, R, e, widx);
 
-      SymmetricMatrix3d tmp = new SymmetricMatrix3d();
+      SymmetricMatrix3d tmp = ws.nodalTmp;
 
       // compute nodal stress and/or energy density at wpnt
       boolean needsStress = 
@@ -3231,7 +3501,8 @@ PointAttachable, ConnectableBody {
          ((needsStressStrain & NEEDS_ENERGY) != 0);
 
       if (needsStress || needsEnergy) {
-         SymmetricMatrix3d sigma = new SymmetricMatrix3d();
+         SymmetricMatrix3d sigma = ws.nodalSigma;
+         sigma.setZero();
          double sed = 0;
          // compute linear stress
          if (mat.isLinear()) {
@@ -3245,8 +3516,10 @@ PointAttachable, ConnectableBody {
             }
          }
          if (amats != null) {
-            for (FemMaterial amat : amats) {
+            for (int k=0; k<amats.size(); k++) {
+               FemMaterial amat = amats.get(k);
                if (amat.isLinear()) {
+                  amat = ws.getMaterial (amat);
                   if (needsStress) {
                      amat.computeStressAndTangent (
                         tmp, /*D=*/null, dpnt, null, 0.0, null);
@@ -3260,8 +3533,11 @@ PointAttachable, ConnectableBody {
             }
          }
          if (e.numAugmentingMaterials() > 0) {
-            for (FemMaterial amat : e.getAugmentingMaterials()) {
+            ArrayList<FemMaterial> augmats = e.getAugmentingMaterials();
+            for (int k=0; k<augmats.size(); k++) {
+               FemMaterial amat = augmats.get(k);
                if (amat.isLinear()) {
+                  amat = ws.getMaterial (amat);
                   if (needsStress) {
                      amat.computeStressAndTangent (
                         tmp, /*D=*/null, dpnt, null, 0.0, null);
@@ -3306,7 +3582,7 @@ PointAttachable, ConnectableBody {
       }
 
       if ((needsStressStrain & NEEDS_STRAIN) != 0) {
-         SymmetricMatrix3d eps = new SymmetricMatrix3d();
+         SymmetricMatrix3d eps = ws.nodalEps;
          // Cauchy strain at warping point
          if (mat.isCorotated()) {
             // remove rotation from F
@@ -3338,6 +3614,17 @@ PointAttachable, ConnectableBody {
    protected void accumulateNonlinearNodalStressStrain (
       FemNode3d nodei, double a, SymmetricMatrix3d sigma, DoubleHolder sed,
       FemMaterial mat, FemDeformedPoint dpnt) {
+      accumulateNonlinearNodalStressStrain (
+         nodei, a, sigma, sed, mat, dpnt, mySerialWorkspace);
+   }
+
+   /**
+    * Accumulates nodal stress and strain values for nonlinear materials,
+    * using a specified workspace.
+    */
+   protected void accumulateNonlinearNodalStressStrain (
+      FemNode3d nodei, double a, SymmetricMatrix3d sigma, DoubleHolder sed,
+      FemMaterial mat, FemDeformedPoint dpnt, StressStiffnessWorkspace ws) {
 
       if (needsNodalStress() || nodei.getComputeStress()) {
          nodei.addScaledStress(
@@ -3350,7 +3637,7 @@ PointAttachable, ConnectableBody {
       // if base material non-linear and computing nodal strain 
       if ((needsNodalStrain() || nodei.getComputeStrain()) &&
          !mat.isLinear()) {
-         SymmetricMatrix3d C = new SymmetricMatrix3d();
+         SymmetricMatrix3d C = ws.C;
          mat.computeRightCauchyGreen(C,dpnt);
          C.m00 -= 1;
          C.m11 -= 1;
@@ -3363,8 +3650,8 @@ PointAttachable, ConnectableBody {
 
    protected boolean areLinear (ArrayList<FemMaterial> mats) {
       if (mats != null) {
-         for (FemMaterial amat : mats) {
-            if (!amat.isLinear()) {
+         for (int i=0; i<mats.size(); i++) {
+            if (!mats.get(i).isLinear()) {
                return false;
             }
          }
@@ -3374,8 +3661,8 @@ PointAttachable, ConnectableBody {
 
    protected boolean areInvertible (ArrayList<FemMaterial> mats) {
       if (mats != null) {
-         for (FemMaterial amat : mats) {
-            if (!amat.isInvertible()) {
+         for (int i=0; i<mats.size(); i++) {
+            if (!mats.get(i).isInvertible()) {
                return false;
             }
          }
@@ -3398,15 +3685,25 @@ PointAttachable, ConnectableBody {
       SymmetricMatrix3d sigma, Matrix6d D, DoubleHolder sed,
       ArrayList<FemMaterial> mats, FemDeformedPoint dpnt,
       IntegrationData3d dt, int ks) {
+      return addStressAndTangent (
+         sigma, D, sed, mats, dpnt, dt, ks, mySerialWorkspace);
+   }
 
-      for (FemMaterial amat : mats) {
-         SymmetricMatrix3d sigmaTmp = new SymmetricMatrix3d();
+   private int addStressAndTangent (
+      SymmetricMatrix3d sigma, Matrix6d D, DoubleHolder sed,
+      ArrayList<FemMaterial> mats, FemDeformedPoint dpnt,
+      IntegrationData3d dt, int ks, StressStiffnessWorkspace ws) {
+
+      SymmetricMatrix3d sigmaTmp = ws.sigmaTmp;
+      for (int i=0; i<mats.size(); i++) {
+         FemMaterial amat = mats.get(i);
          // skip linear materials
          if (!amat.isLinear()) {
+            amat = ws.getMaterial (amat);
             MaterialStateObject state =
                (amat.hasState() ? dt.getStateObjects()[ks++] : null); 
             if (D != null) {
-               Matrix6d Dtmp = new Matrix6d();
+               Matrix6d Dtmp = ws.Dtmp;
                amat.computeStressAndTangent (
                   sigmaTmp, Dtmp, dpnt, null, 0.0, state);
                D.add (Dtmp);
@@ -3429,15 +3726,29 @@ PointAttachable, ConnectableBody {
       SymmetricMatrix3d sigma, Matrix6d D, DoubleHolder sed,
       AuxiliaryMaterial[] mats, FemDeformedPoint dpnt,
       IntegrationPoint3d pt, IntegrationData3d dt, int ks) {
+      return addAuxStressAndTangent (
+         sigma, D, sed, mats, dpnt, pt, dt, ks, mySerialWorkspace);
+   }
 
+   /**
+    * Auxiliary materials are not evaluated using per-thread copies, and so
+    * elements with non-linear auxiliary materials are always processed
+    * using the serial workspace.
+    */
+   private int addAuxStressAndTangent (
+      SymmetricMatrix3d sigma, Matrix6d D, DoubleHolder sed,
+      AuxiliaryMaterial[] mats, FemDeformedPoint dpnt,
+      IntegrationPoint3d pt, IntegrationData3d dt, int ks,
+      StressStiffnessWorkspace ws) {
+
+      SymmetricMatrix3d sigmaTmp = ws.sigmaTmp;
       for (AuxiliaryMaterial amat : mats) {
-         SymmetricMatrix3d sigmaTmp = new SymmetricMatrix3d();
          // skip linear materials
          if (!amat.isLinear()) {
             MaterialStateObject state =
                (amat.hasState() ? dt.getStateObjects()[ks++] : null);
             if (D != null) {
-               Matrix6d Dtmp = new Matrix6d();
+               Matrix6d Dtmp = ws.Dtmp;
                amat.computeStressAndTangent (
                   sigmaTmp, Dtmp, dpnt, pt, dt, state);
                D.add (Dtmp);
@@ -3487,6 +3798,19 @@ PointAttachable, ConnectableBody {
    public void computeStressAndStiffness (
       FemElement3d e, FemMaterial mat, ArrayList<FemMaterial> amats, 
       Matrix6d D, IncompMethod softIncomp) {
+      computeStressAndStiffness (
+         e, mat, amats, D, softIncomp, mySerialWorkspace);
+   }
+
+   /**
+    * Computes the stress and stiffness for an element, using a specified
+    * workspace for temporary storage. This allows the method to be called
+    * concurrently for elements that do not share any nodes, provided that
+    * each thread uses its own workspace.
+    */
+   protected void computeStressAndStiffness (
+      FemElement3d e, FemMaterial mat, ArrayList<FemMaterial> amats, 
+      Matrix6d D, IncompMethod softIncomp, StressStiffnessWorkspace ws) {
 
       IntegrationPoint3d[] ipnts = e.getIntegrationPoints();
       IntegrationData3d[] idata = e.getIntegrationData();
@@ -3500,10 +3824,11 @@ PointAttachable, ConnectableBody {
       if (!mat.isIncompressible()) {
          softIncomp = IncompMethod.OFF;
       }
+      mat = ws.getMaterial (mat);
       
-      FemDeformedPoint dpnt = new FemDeformedPoint();
-      SymmetricMatrix3d sigma = new SymmetricMatrix3d();
-      Matrix3d invJ = new Matrix3d();
+      FemDeformedPoint dpnt = ws.dpnt;
+      SymmetricMatrix3d sigma = ws.sigma;
+      Matrix3d invJ = ws.invJ;
       
       //===========================================
       // linear material optimizations
@@ -3517,7 +3842,7 @@ PointAttachable, ConnectableBody {
       if (!warper.isCacheEmpty()) {
 
          // compute warping rotation
-         warper.computeWarpingRotation(e);
+         warper.computeWarpingRotation(e, ws);
 
          // add force and stiffness
          for (int i = 0; i < nodes.length; i++) {
@@ -3528,18 +3853,19 @@ PointAttachable, ConnectableBody {
                   for (int j = 0; j < nodes.length; j++) {
                      int bj = nodes[j].getLocalSolveIndex();
                      if (!mySolveMatrixSymmetricP || bj >= bi) {
-                        warper.addNodeStiffness(e.myNbrs[i][j].getK00(), i, j);
+                        warper.addNodeStiffness(
+                           e.myNbrs[i][j].getK00(), i, j, ws);
                      }
                   }
                }
                // add node force
-               warper.addNodeForce(ni.myInternalForce, i, nodes);
+               warper.addNodeForce(ni.myInternalForce, i, nodes, ws);
             }
          }
          int needsStressStrain = needsStressStrain (e, !mat.isLinear());
          if (needsStressStrain != 0) {
             accumulateLinearNodalStressStrain (
-               e, amats, warper, dpnt, needsStressStrain);
+               e, mat, amats, warper, dpnt, needsStressStrain, ws);
          }
       }
 
@@ -3558,24 +3884,16 @@ PointAttachable, ConnectableBody {
       // non-linear materials
       //===========================================
 
-      // temporary stress and tangent
-      SymmetricMatrix3d sigmaTmp = new SymmetricMatrix3d();
-      Matrix6d Dtmp = null;
-      if (D != null) {
-         Dtmp = new Matrix6d();
-      }
-
       // incompressibility
       IncompressibleMaterialBase imat = mat.getIncompressibleComponent();
 
       MatrixBlock[] constraints = null;
-      SymmetricMatrix3d C = new SymmetricMatrix3d();
 
       // initialize incompressible pressure
-      double[] pbuf = myPressures.getBuffer();
-      double[] jbuf = myAvgDetFs.getBuffer();
+      double[] pbuf = ws.pressures.getBuffer();
+      double[] jbuf = ws.avgDetFs.getBuffer();
       if (softIncomp == IncompMethod.ELEMENT) {
-         computePressuresAndRinv (e, imat, dpnt);
+         computePressuresAndRinv (e, imat, dpnt, ws);
          if (D != null) {
             constraints = e.getIncompressConstraints();
             for (int i = 0; i < e.myNodes.length; i++) {
@@ -3603,11 +3921,14 @@ PointAttachable, ConnectableBody {
          dpnt.setFromIntegrationPoint (pt, dt, null, e, k);
 
          double detJ = invJ.fastInvert(dpnt.getJ()); // pt.computeInverseJacobian();
-         checkElementCondition (e, detJ, !invertible);
+         checkElementCondition (ws, e, detJ, !invertible);
 
-         // compute shape function gradient and volume fraction
+         // compute shape function gradient and volume fraction. Store the
+         // gradient in the workspace, since integration points are shared
+         // between elements of the same type
          double dv = detJ * pt.getWeight();
-         Vector3d[] GNx = pt.updateShapeGradient(invJ);
+         Vector3d[] GNx = ws.getShapeGradientBuffer (nodes.length);
+         pt.computeShapeGradient (invJ, GNx);
 
          // compute pressure and average detF
          double pressure = 0;
@@ -3670,7 +3991,8 @@ PointAttachable, ConnectableBody {
          }
          DoubleHolder sed = null; // strain energy density, if needed
          if (needsEnergy) {
-            sed = new DoubleHolder();
+            sed = ws.sed;
+            sed.value = 0;
          }
 
          // base material
@@ -3690,13 +4012,16 @@ PointAttachable, ConnectableBody {
          dpnt.setAveragePressure(0);
          dpnt.setAverageDetF(0);
          if (amats != null) {
-            ks = addStressAndTangent (sigma, D, sed, amats, dpnt, dt, ks);
+            ks = addStressAndTangent (
+               sigma, D, sed, amats, dpnt, dt, ks, ws);
          }
          if ((augmats=e.getAugmentingMaterials()) != null) {
-            ks = addStressAndTangent (sigma, D, sed, augmats, dpnt, dt, ks);
+            ks = addStressAndTangent (
+               sigma, D, sed, augmats, dpnt, dt, ks, ws);
          }
          if ((auxmats=e.getAuxiliaryMaterials()) != null) {
-            ks = addAuxStressAndTangent (sigma, D, sed, auxmats, dpnt, pt, dt,ks);
+            ks = addAuxStressAndTangent (
+               sigma, D, sed, auxmats, dpnt, pt, dt, ks, ws);
          }
 
          // XXX only uses non-linear stress
@@ -3749,7 +4074,7 @@ PointAttachable, ConnectableBody {
                double a = nodalExtrapMat[i*ipnts.length + k];
                if (a != 0) {
                   accumulateNonlinearNodalStressStrain (
-                     nodei, a, sigma, sed, mat, dpnt);
+                     nodei, a, sigma, sed, mat, dpnt, ws);
                }
             }
          } // looping through nodes computing stress
@@ -3810,7 +4135,7 @@ PointAttachable, ConnectableBody {
                      int bj = e.myNodes[j].getLocalSolveIndex();
                      if (!mySolveMatrixSymmetricP || bj >= bi) {
                         e.myNbrs[i][j].addDilationalStiffness(
-                           myRinv, constraints[i], constraints[j]);
+                           ws.Rinv, constraints[i], constraints[j]);
                      }
                   }
                }
@@ -4710,6 +5035,21 @@ PointAttachable, ConnectableBody {
       myNumInverted = 0;
    }
    
+   /**
+    * Checks the condition of an element, recording the results in the
+    * specified workspace if it is being used for parallel assembly.
+    */
+   protected boolean checkElementCondition (
+      StressStiffnessWorkspace ws, FemElement3dBase e,
+      double detJ, boolean recordInversion) {
+      if (ws == mySerialWorkspace) {
+         return checkElementCondition (e, detJ, recordInversion);
+      }
+      else {
+         return ws.checkElementCondition (e, detJ, recordInversion);
+      }
+   }
+
    public boolean checkElementCondition (
       FemElement3dBase e, double detJ, boolean recordInversion) {
       if (detJ < myMinDetJ) {
@@ -5718,6 +6058,13 @@ PointAttachable, ConnectableBody {
       fem.myNodalIncompConstraintsAllocatedP = false;
 
       fem.myPressures = new VectorNd(MAX_PRESSURE_VALS);
+      fem.myAvgDetFs = new VectorNd(MAX_PRESSURE_VALS);
+      fem.myRinv = new MatrixNd();
+      fem.mySerialWorkspace = new StressStiffnessWorkspace (
+         fem.myPressures, fem.myAvgDetFs, fem.myRinv, /*copyMaterials=*/false);
+      fem.myAssemblyThreads = myAssemblyThreads;
+      fem.myAssemblyWorkspaces = null;
+      fem.myAssemblyLoop = null;
       fem.myKp = new double[MAX_PRESSURE_VALS];
       fem.myNodalConstraints = new Vector3d[MAX_NODAL_INCOMP_NODES];
       for (int i = 0; i < MAX_NODAL_INCOMP_NODES; i++) {
@@ -6336,6 +6683,7 @@ PointAttachable, ConnectableBody {
    /* --- Misc Methods --- */
 
    public void dispose() {
+      disposeAssemblyThreads();
    }
 
    /**
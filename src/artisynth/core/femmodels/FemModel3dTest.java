@@ -8,6 +8,8 @@ package artisynth.core.femmodels;
 
 import java.io.*;
 import java.util.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 
 import maspack.util.*;
 import maspack.matrix.*;
@@ -17,6 +19,7 @@ import maspack.spatialmotion.*;
 import artisynth.core.mechmodels.*;
 import artisynth.core.modelbase.*;
 import artisynth.core.materials.*;
+import artisynth.core.femmodels.FemModel.IncompMethod;
 
 public class FemModel3dTest extends UnitTest {
 
@@ -605,11 +608,318 @@ public class FemModel3dTest extends UnitTest {
       checkNumbering (fem, /*zeroBased=*/true);
    }
 
+   /**
+    * Computes nodal internal forces and stiffness blocks for an FEM model
+    * using a specified number of assembly threads.
+    */
+   private void computeForceAndStiffness (
+      VectorNd f, ArrayList<Matrix3d> K, FemModel3d fem, int nthreads) {
+
+      fem.setAssemblyThreads (nthreads);
+      fem.invalidateStressAndStiffness();
+      fem.updateStressAndStiffness();
+
+      f.setSize (3*fem.numNodes());
+      K.clear();
+      int k = 0;
+      for (FemNode3d n : fem.getNodes()) {
+         Vector3d fi = n.getInternalForce();
+         f.set (k++, fi.x);
+         f.set (k++, fi.y);
+         f.set (k++, fi.z);
+         for (FemNodeNeighbor nbr : n.getNodeNeighbors()) {
+            K.add (new Matrix3d (nbr.getK00()));
+         }
+      }
+   }
+
+   private void checkStiffness (
+      String msg, ArrayList<Matrix3d> K, ArrayList<Matrix3d> Kchk, double eps) {
+      if (K.size() != Kchk.size()) {
+         throw new TestException (
+            msg+": "+K.size()+" blocks, expected "+Kchk.size());
+      }
+      for (int i=0; i<K.size(); i++) {
+         boolean equal = (eps == 0 ?
+            K.get(i).equals (Kchk.get(i)) :
+            K.get(i).epsilonEquals (Kchk.get(i), eps));
+         if (!equal) {
+            throw new TestException (
+               msg+": block "+i+" is\n" + K.get(i).toString ("%12.8f") +
+               "\nexpected\n" + Kchk.get(i).toString ("%12.8f"));
+         }
+      }
+   }
+
+   private void testParallelAssembly (
+      FemMaterial mat, IncompMethod softIncomp) {
+
+      FemModel3d fem = FemFactory.createTetGrid (null, 1.0, 1.0, 1.0, 6, 6, 6);
+      fem.setMaterial (mat);
+      fem.setSoftIncompMethod (softIncomp);
+      for (FemNode3d n : fem.getNodes()) {
+         if (n.getPosition().z == 0.5) {
+            n.setDynamic (false);
+         }
+      }
+      // deform the model a bit using the serial assembly
+      MechModel mech = new MechModel ();
+      mech.addModel (fem);
+      double t0 = 0;
+      for (int i=1; i<=10; i++) {
+         double t1 = 0.01*i;
+         mech.preadvance (t0, t1, /*flags=*/0);
+         mech.advance (t0, t1, /*flags=*/0);
+         t0 = t1;
+      }
+      int saveMinElems = FemModel3d.minParallelAssemblyElements;
+      FemModel3d.minParallelAssemblyElements = 0;
+
+      VectorNd fserial = new VectorNd();
+      ArrayList<Matrix3d> Kserial = new ArrayList<>();
+      computeForceAndStiffness (fserial, Kserial, fem, 1);
+
+      VectorNd fpar = new VectorNd();
+      ArrayList<Matrix3d> Kpar = new ArrayList<>();
+      computeForceAndStiffness (fpar, Kpar, fem, 4);
+
+      double feps = 1e-12*fserial.infinityNorm();
+      checkEquals ("parallel force", fpar, fserial, feps);
+      double Keps = 0;
+      for (Matrix3d K : Kserial) {
+         Keps = Math.max (Keps, K.infinityNorm());
+      }
+      checkStiffness ("parallel stiffness", Kpar, Kserial, 1e-12*Keps);
+
+      // results should be bitwise reproducible for repeated computations and
+      // different thread counts, since they depend only on the coloring
+      VectorNd fchk = new VectorNd();
+      ArrayList<Matrix3d> Kchk = new ArrayList<>();
+      for (int nthreads : new int[] { 4, 3, 7 }) {
+         computeForceAndStiffness (fchk, Kchk, fem, nthreads);
+         checkEquals ("parallel force, nthreads="+nthreads, fchk, fpar);
+         checkStiffness ("parallel stiffness, nthreads="+nthreads, Kchk, Kpar, 0);
+      }
+      FemModel3d.minParallelAssemblyElements = saveMinElems;
+      fem.dispose();
+   }
+
+   public void testParallelAssembly() {
+      testParallelAssembly (
+         new NeoHookeanMaterial (50000, 0.33), IncompMethod.OFF);
+      testParallelAssembly (
+         new MooneyRivlinMaterial (50000, 0, 0, 0, 0, 5000000),
+         IncompMethod.ELEMENT);
+      testParallelAssembly (
+         new LinearMaterial (50000, 0.33), IncompMethod.OFF);
+   }
+
+   /**
+    * Checks that the force and stiffness computed for a model using
+    * parallel assembly agree with those of an identical model using serial
+    * assembly.
+    */
+   private void checkParallelAssembly (
+      String msg, FemModel3d fempar, FemModel3d femser) {
+      VectorNd fserial = new VectorNd();
+      ArrayList<Matrix3d> Kserial = new ArrayList<>();
+      computeForceAndStiffness (fserial, Kserial, femser, 1);
+      VectorNd fpar = new VectorNd();
+      ArrayList<Matrix3d> Kpar = new ArrayList<>();
+      computeForceAndStiffness (fpar, Kpar, fempar, 4);
+      checkEquals (msg+" force", fpar, fserial, 1e-12*fserial.infinityNorm());
+      double Keps = 0;
+      for (Matrix3d K : Kserial) {
+         Keps = Math.max (Keps, K.infinityNorm());
+      }
+      checkStiffness (msg+" stiffness", Kpar, Kserial, 1e-12*Keps);
+   }
+
+   /**
+    * Creates a deformed FEM model in which half the elements have their own
+    * material, and three quarters of them have an augmenting material
+    * supplied by a material bundle.
+    */
+   private FemModel3d createMaterialChangeFem() {
+      FemModel3d fem = FemFactory.createTetGrid (null, 1.0, 1.0, 1.0, 4, 4, 4);
+      fem.setMaterial (new NeoHookeanMaterial (50000, 0.33));
+      for (int i=0; i<fem.numElements()/2; i++) {
+         fem.getElement(i).setMaterial (new NeoHookeanMaterial (80000, 0.33));
+      }
+      MaterialBundle bundle = new MaterialBundle (
+         "bundle", new LinearMaterial (10000, 0.3), /*useAllElements=*/false);
+      fem.addMaterialBundle (bundle);
+      for (int i=fem.numElements()/4; i<fem.numElements(); i++) {
+         bundle.addElement (fem.getElement(i));
+      }
+      Point3d[] pos0 = new Point3d[fem.numNodes()];
+      for (int i=0; i<fem.numNodes(); i++) {
+         pos0[i] = new Point3d (fem.getNode(i).getPosition());
+      }
+      perturbNodes (fem, pos0, 0);
+      return fem;
+   }
+
+   private void setElementYoungsModulus (FemModel3d fem, double E) {
+      for (int i=0; i<fem.numElements()/2; i++) {
+         ((NeoHookeanMaterial)fem.getElement(i).getMaterial()).
+            setYoungsModulus (E);
+      }
+   }
+
+   private void setBundleYoungsModulus (FemModel3d fem, double E) {
+      MaterialBundle bundle = fem.getMaterialBundles().get(0);
+      ((LinearMaterial)bundle.getMaterial()).setYoungsModulus (E);
+   }
+
+   /**
+    * Checks that parallel assembly picks up changes to element materials
+    * and augmenting materials made after a parallel step. The per-thread
+    * material copies used by parallel assembly must be recreated even
+    * when the change does not affect the model's state or symmetry.
+    */
+   public void testParallelMaterialChange() {
+      int saveMinElems = FemModel3d.minParallelAssemblyElements;
+      FemModel3d.minParallelAssemblyElements = 0;
+      FemModel3d fempar = createMaterialChangeFem();
+      FemModel3d femser = createMaterialChangeFem();
+
+      checkParallelAssembly ("initial", fempar, femser);
+      setElementYoungsModulus (fempar, 120000);
+      setElementYoungsModulus (femser, 120000);
+      checkParallelAssembly ("element material change", fempar, femser);
+      setBundleYoungsModulus (fempar, 30000);
+      setBundleYoungsModulus (femser, 30000);
+      checkParallelAssembly ("bundle material change", fempar, femser);
+
+      FemModel3d.minParallelAssemblyElements = saveMinElems;
+      fempar.dispose();
+      femser.dispose();
+   }
+
+   /**
+    * Returns the number of bytes allocated by the current thread, or -1 if
+    * this information is not available.
+    */
+   private long allocatedBytes() {
+      ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+         return -1;
+      }
+      com.sun.management.ThreadMXBean sunBean =
+         (com.sun.management.ThreadMXBean)bean;
+      if (!sunBean.isThreadAllocatedMemorySupported() ||
+          !sunBean.isThreadAllocatedMemoryEnabled()) {
+         return -1;
+      }
+      return sunBean.getThreadAllocatedBytes (Thread.currentThread().getId());
+   }
+
+   /**
+    * Perturbs the nodes of an FEM about their positions <code>pos0</code>,
+    * and invalidates the model's stress, stiffness and volume.
+    */
+   private void perturbNodes (FemModel3d fem, Point3d[] pos0, int step) {
+      Point3d pos = new Point3d();
+      for (int i=0; i<fem.numNodes(); i++) {
+         FemNode3d n = fem.getNode(i);
+         double s = 0.001*Math.sin (0.1*(step+i));
+         pos.set (pos0[i].x+s, pos0[i].y-s, pos0[i].z+0.5*s);
+         n.setPosition (pos);
+      }
+      fem.myVolumeValid = false;
+      fem.invalidateStressAndStiffness();
+   }
+
+   private void testAssemblyAllocation (
+      FemModel3d fem, FemMaterial mat, IncompMethod softIncomp) {
+
+      fem.setMaterial (mat);
+      fem.setSoftIncompMethod (softIncomp);
+      for (FemNode3d n : fem.getNodes()) {
+         if (n.getPosition().z == 0.5) {
+            n.setDynamic (false);
+         }
+      }
+      MechModel mech = new MechModel ();
+      mech.addModel (fem);
+      double t0 = 0;
+      for (int i=1; i<=5; i++) {
+         double t1 = 0.01*i;
+         mech.preadvance (t0, t1, /*flags=*/0);
+         mech.advance (t0, t1, /*flags=*/0);
+         t0 = t1;
+      }
+      Point3d[] pos0 = new Point3d[fem.numNodes()];
+      for (int i=0; i<fem.numNodes(); i++) {
+         pos0[i] = new Point3d (fem.getNode(i).getPosition());
+      }
+      // warm up, so that any lazily allocated storage is created
+      int step = 0;
+      for (int i=0; i<20; i++) {
+         perturbNodes (fem, pos0, step++);
+         fem.updateStressAndStiffness();
+      }
+      // bytes allocated by allocatedBytes() itself
+      long overhead = Long.MAX_VALUE;
+      for (int i=0; i<10; i++) {
+         long b0 = allocatedBytes();
+         long b1 = allocatedBytes();
+         overhead = Math.min (overhead, b1-b0);
+      }
+      int nsteps = 10;
+      long allocated = 0;
+      for (int i=0; i<nsteps; i++) {
+         perturbNodes (fem, pos0, step++);
+         long b0 = allocatedBytes();
+         fem.updateStressAndStiffness();
+         long b1 = allocatedBytes();
+         allocated += Math.max (0, b1-b0-overhead);
+      }
+      if (allocated > 0) {
+         throw new TestException (
+            "updateStressAndStiffness() for "+mat.getClass().getSimpleName()+
+            ", softIncomp="+softIncomp+" allocated "+(allocated/nsteps)+
+            " bytes per step; expected 0");
+      }
+   }
+
+   /**
+    * Checks that, in steady state, the serial computation of element
+    * stresses and stiffnesses does not allocate any memory.
+    */
+   public void testAssemblyAllocation() {
+      if (allocatedBytes() == -1) {
+         System.out.println (
+            "Thread allocation counting not supported; "+
+            "skipping testAssemblyAllocation");
+         return;
+      }
+      testAssemblyAllocation (
+         FemFactory.createTetGrid (null, 1.0, 1.0, 1.0, 4, 4, 4),
+         new NeoHookeanMaterial (50000, 0.33), IncompMethod.OFF);
+      testAssemblyAllocation (
+         FemFactory.createTetGrid (null, 1.0, 1.0, 1.0, 4, 4, 4),
+         new MooneyRivlinMaterial (50000, 0, 0, 0, 0, 5000000),
+         IncompMethod.ELEMENT);
+      testAssemblyAllocation (
+         FemFactory.createTetGrid (null, 1.0, 1.0, 1.0, 4, 4, 4),
+         new LinearMaterial (50000, 0.33, /*corotated=*/true),
+         IncompMethod.OFF);
+      testAssemblyAllocation (
+         FemFactory.createHexGrid (null, 1.0, 1.0, 1.0, 4, 4, 4),
+         new MooneyRivlinMaterial (50000, 0, 0, 0, 0, 5000000),
+         IncompMethod.ELEMENT);
+   }
+
    public void test() {
       //testFrameRelativeMass();
       testFindNearestElement();
       testSetNumbering();
       testFemCopy();
+      testParallelAssembly();
+      testParallelMaterialChange();
+      testAssemblyAllocation();
    }
 
    public static void main (String[] args) {
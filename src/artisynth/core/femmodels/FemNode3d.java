@@ -722,7 +722,9 @@ public class FemNode3d extends FemNode implements Boundable {
    }
 
    public FemNodeNeighbor getNodeNeighborBySolveIndex (int idx) {
-      for (FemNodeNeighbor nbr : myNodeNeighbors) {
+      // indexed loop avoids allocating an iterator
+      for (int i=0; i<myNodeNeighbors.size(); i++) {
+         FemNodeNeighbor nbr = myNodeNeighbors.get(i);
          if (nbr.myNode.getLocalSolveIndex() == idx) {
             return nbr;
          }
@@ -371,6 +371,21 @@ public class IntegrationPoint3d {
     * @return determinant of the Jacobian
     */
    public double computeJacobianDeterminant (FemNode3d[] nodes) {
+      if (myElemClass == ElementClass.VOLUMETRIC) {
+         // accumulate J directly, to avoid allocating a matrix
+         double m00 = 0, m01 = 0, m02 = 0;
+         double m10 = 0, m11 = 0, m12 = 0;
+         double m20 = 0, m21 = 0, m22 = 0;
+         for (int i=0; i<nodes.length; i++) {
+            Vector3d pos = nodes[i].getLocalPosition();
+            Vector3d dNds = GNs[i];
+            m00 += pos.x*dNds.x; m01 += pos.x*dNds.y; m02 += pos.x*dNds.z;
+            m10 += pos.y*dNds.x; m11 += pos.y*dNds.y; m12 += pos.y*dNds.z;
+            m20 += pos.z*dNds.x; m21 += pos.z*dNds.y; m22 += pos.z*dNds.z;
+         }
+         return (m00 * m11 * m22 + m10 * m21 * m02 + m20 * m01 * m12 -
+                 m20 * m11 * m02 - m00 * m21 * m12 - m10 * m01 * m22);
+      }
       Matrix3d J = new Matrix3d();
       computeJacobian (J, nodes);
       return J.determinant();
@@ -447,6 +447,7 @@ public class MaterialBundle extends RenderableComponentBase
          FemModel3d fem = getAncestorFem(this);
          if (fem != null) {
             fem.invalidateStressAndStiffness();
+            fem.clearAssemblyMaterialCopies();
             if (e.getHost() instanceof FemMaterial && 
                 ((FemMaterial)e.getHost()).isLinear()) {
                // invalidate rest data for linear materials, to rebuild
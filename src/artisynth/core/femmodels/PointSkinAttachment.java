@@ -912,6 +912,7 @@ public class PointSkinAttachment extends PointAttachment
     */
    public void setBasePosition(Vector3d pos) {
       myBasePos.set(pos);
+      invalidateWeightTable();
    }
 
    /**
@@ -939,6 +940,7 @@ public class PointSkinAttachment extends PointAttachment
          }
       }
       myBaseWeight = (float)w;
+      invalidateWeightTable();
    }
 
    /**
@@ -1050,6 +1052,7 @@ public class PointSkinAttachment extends PointAttachment
       else {
          appendConnection (myFrameConnections, fcon);
       }
+      invalidateWeightTable();
    }
 
    public FrameConnection getFrameConnections() {
@@ -1197,6 +1200,7 @@ public class PointSkinAttachment extends PointAttachment
       else {
          appendConnection (myFemConnections, fcon);
       }
+      invalidateWeightTable();
    }
 
    public FemConnection getFemConnections() {
@@ -1223,8 +1227,21 @@ public class PointSkinAttachment extends PointAttachment
       super.invalidateMasters();
       myMasterBlocks = null;
       myMasterBlocksValid = false;
+      invalidateWeightTable();
    }  
 
+   /**
+    * If this is a vertex attachment of a SkinMeshBody, invalidates the
+    * body's packed weight table, which must be rebuilt whenever the
+    * connections, weights or base position change.
+    */
+   protected void invalidateWeightTable() {
+      CompositeComponent gparent = getGrandParent();
+      if (gparent instanceof SkinMeshBody) {
+         ((SkinMeshBody)gparent).invalidateWeightTable();
+      }
+   }
+
    protected void printConnections () {
       for (FrameConnection c=myFrameConnections; c!=null; c=c.getNext()) {
          System.out.printf (
@@ -1845,6 +1862,7 @@ public class PointSkinAttachment extends PointAttachment
          for (FemConnection c=myFemConnections; c!=null; c=c.getNext()) {
             c.postscan (tokens, bodyInfos);
          }
+         invalidateWeightTable();
          return true;
       }
       return super.postscanItem(tokens, ancestor);
@@ -1923,6 +1941,7 @@ public class PointSkinAttachment extends PointAttachment
       for (SkinConnection c=myFemConnections; c!=null; c=c.getNext()) {
          c.scaleDistance (s);
       }  
+      invalidateWeightTable();
    }
 
    public void scaleMass(double s) {
@@ -2038,6 +2057,7 @@ public class PointSkinAttachment extends PointAttachment
       for (FemConnection c=myFemConnections; c!=null; c=c.getNext()) {
          c.scaleWeight(s);
       }
+      invalidateWeightTable();
    }
 
    private <C extends SkinConnection<C>>
@@ -2201,6 +2221,7 @@ public class PointSkinAttachment extends PointAttachment
       }
       // update base position
       gtr.transformPnt (myBasePos);
+      invalidateWeightTable();
    }
 
    /**
@@ -47,6 +47,7 @@ import artisynth.core.modelbase.TransformGeometryAction;
 import artisynth.core.modelbase.TransformableGeometry;
 import artisynth.core.util.ScanToken;
 import artisynth.core.util.StringToken;
+import maspack.concurrency.ParallelLoop;
 import maspack.function.ConstantFunction1x1;
 import maspack.function.Function1x1;
 import maspack.geometry.BVFeatureQuery;
@@ -198,6 +199,15 @@ public class SkinMeshBody extends SkinMeshBase
    public static boolean DEFAULT_ATTACH_POINTS_TO_MESH = true;
    protected boolean myAttachPointsToMesh = DEFAULT_ATTACH_POINTS_TO_MESH;
 
+   public static int DEFAULT_SKINNING_THREADS = 1;
+   protected int mySkinningThreads = DEFAULT_SKINNING_THREADS;
+
+   /**
+    * Minimum number of vertices required for vertex connections and
+    * positions to be computed using multiple threads.
+    */
+   public static int minParallelSkinningVertices = 1000;
+
    /* --- misc attributes --- */
 
    protected int myCollidableIndex;
@@ -215,6 +225,12 @@ public class SkinMeshBody extends SkinMeshBase
    protected NearestPoint[] myNearestPoints = new NearestPoint[0];
    protected double[] myWeights = new double[0];
 
+   // packed vertex weights used to update vertex positions; rebuilt on
+   // demand after the vertex attachments change:
+   protected SkinWeightTable myWeightTable;
+   protected ParallelLoop mySkinningLoop;
+   protected SkinWeightTable.Workspace[] mySkinningWorkspaces;
+
    public static final FemConnectionType 
       DEFAULT_FEM_CONNECTION_TYPE = FemConnectionType.ELEMENT;
    protected FemConnectionType myFemConnectionType = 
@@ -482,6 +498,10 @@ public class SkinMeshBody extends SkinMeshBase
          "attachPointsToMesh",
          "createPointAttachment() should attach points to mesh if possible",
          DEFAULT_ATTACH_POINTS_TO_MESH);
+      myProps.add (
+         "skinningThreads",
+         "number of threads used to compute vertex connections and positions",
+         DEFAULT_SKINNING_THREADS, "[1,inf]");
    }
 
    /**
@@ -689,6 +709,65 @@ public class SkinMeshBody extends SkinMeshBase
       myAttachPointsToMesh = enable;
    }
 
+   /**
+    * Returns the number of threads used to compute vertex connections and
+    * positions. See {@link #setSkinningThreads}.
+    *
+    * @return number of skinning threads
+    */
+   public int getSkinningThreads() {
+      return mySkinningThreads;
+   }
+
+   /**
+    * Sets the number of threads used to compute vertex connections (in
+    * {@link #computeAllVertexConnections}) and vertex positions (in {@link
+    * #updateSlavePos}). The default value is 1, which causes these
+    * computations to be done serially. For larger values, the mesh
+    * vertices are divided into contiguous ranges which are processed
+    * concurrently. Since the result for each vertex does not depend on the
+    * other vertices, the results are identical to those of the serial
+    * computation.
+    *
+    * <p>Multiple threads are not used if the mesh has fewer than {@link
+    * #minParallelSkinningVertices} vertices. The weighting function (see
+    * {@link #setWeightingFunction}) must be safe to call from multiple
+    * threads; this is true for the functions supplied with ArtiSynth.
+    *
+    * @param nthreads number of skinning threads
+    */
+   public void setSkinningThreads (int nthreads) {
+      if (nthreads < 1) {
+         nthreads = 1;
+      }
+      if (nthreads != mySkinningThreads) {
+         mySkinningThreads = nthreads;
+         disposeSkinningThreads();
+      }
+   }
+
+   /**
+    * Releases threads and workspaces used for parallel skinning.
+    */
+   protected void disposeSkinningThreads() {
+      if (mySkinningLoop != null) {
+         mySkinningLoop.dispose();
+         mySkinningLoop = null;
+      }
+      mySkinningWorkspaces = null;
+   }
+
+   private boolean useParallelSkinning (int numv) {
+      return mySkinningThreads > 1 && numv >= minParallelSkinningVertices;
+   }
+
+   private ParallelLoop getSkinningLoop() {
+      if (mySkinningLoop == null) {
+         mySkinningLoop = new ParallelLoop ("SkinMeshBody", mySkinningThreads);
+      }
+      return mySkinningLoop;
+   }
+
    /* --- mesh and vertex attachment methods --- */
    
    protected void setMeshFromInfo () {
@@ -771,6 +850,7 @@ public class SkinMeshBody extends SkinMeshBase
          setBaseAttachment (a, mesh.getVertex(i).getPosition());
          myVertexAttachments.add (a);
       }
+      invalidateWeightTable();
    }
 
    /**
@@ -1140,6 +1220,11 @@ public class SkinMeshBody extends SkinMeshBase
       // PointSkinAttacher attacher =
       //    new PointSkinAttacher (myBodyInfos);
 
+      if (useParallelSkinning (mesh.numVertices())) {
+         computeVertexConnectionsInParallel (
+            useNew ? myFemConnectionType : FemConnectionType.DISPLACEMENT);
+         return;
+      }
       for (int i=0; i<mesh.numVertices(); i++) {
          Vertex3d vtx = mesh.getVertices().get(i);
          PointSkinAttachment a = myVertexAttachments.get(i);
@@ -1153,6 +1238,71 @@ public class SkinMeshBody extends SkinMeshBase
       }
    }
 
+   /**
+    * Computes the connections for all mesh vertices using multiple threads.
+    * The nearest point queries and weight computations for each vertex are
+    * independent and are done concurrently, using per-thread query
+    * storage, while the back references to the master components are
+    * removed and added serially.
+    */
+   protected void computeVertexConnectionsInParallel (
+      final FemConnectionType femConType) {
+
+      final MeshBase mesh = getMesh();
+      final int numv = mesh.numVertices();
+      final int nbodies = myBodyInfos.size();
+      prepareBodiesForQueries (femConType);
+      final PointSkinAttachment[] attachments = new PointSkinAttachment[numv];
+      for (int i=0; i<numv; i++) {
+         attachments[i] = myVertexAttachments.get(i);
+         attachments[i].removeBackRefsIfConnected();
+      }
+      getSkinningLoop().run (numv, new ParallelLoop.RangeTask() {
+            public void run (int tidx, int lo, int hi) {
+               NearestPoint[] nearPnts = createNearestPoints (nbodies);
+               double[] wbuf = new double[nbodies+1];
+               BVFeatureQuery query = new BVFeatureQuery();
+               for (int i=lo; i<hi; i++) {
+                  computeConnections (
+                     attachments[i], mesh.getVertex(i).getPosition(), null,
+                     femConType, nearPnts, wbuf, query);
+               }
+            }
+         });
+      for (int i=0; i<numv; i++) {
+         attachments[i].addBackRefsIfConnected();
+      }
+      invalidateWeightTable();
+   }
+
+   /**
+    * Ensures that data structures which are created on demand by nearest
+    * point queries on the master bodies (such as bounding volume
+    * hierarchies) are created before the queries are made by multiple
+    * threads.
+    */
+   private void prepareBodiesForQueries (FemConnectionType femConType) {
+      for (BodyInfo binfo : myBodyInfos) {
+         if (binfo instanceof FrameInfo ||
+             femConType == FemConnectionType.DISPLACEMENT) {
+            PolygonalMesh bmesh = binfo.getMesh();
+            if (bmesh != null) {
+               bmesh.updateFaceNormals();
+               bmesh.isTriangular();
+               bmesh.getBVTree();
+            }
+         }
+         else {
+            FemModel3d fem = ((FemModelInfo)binfo).getFemModel();
+            fem.getBVTree();
+            for (FemElement3dBase e : fem.getAllElements()) {
+               e.getIntegrationPoints();
+               e.getWarpingData();
+            }
+         }
+      }
+   }
+
    /**
     * Computes master body connections for a specified vertex of this
     * SkinMeshBody's mesh. The current vertex position is used as the initial
@@ -1281,6 +1431,7 @@ public class SkinMeshBody extends SkinMeshBase
             }
          }
       }
+      invalidateWeightTable();
    }
    
 
@@ -1369,24 +1520,93 @@ public class SkinMeshBody extends SkinMeshBase
       // own version of getCurrentPos()
 
       maybeUpdateBodyPositionInfo();
-      MeshBase mesh = getMesh();
+      final MeshBase mesh = getMesh();
       if (mesh != null) {
-         PolarDecomposition3d polard = new PolarDecomposition3d();
-         Point3d pos = new Point3d();
-         int numa = numVertexAttachments();
-         for (int i=0; i<numa; i++) {
-            PointSkinAttachment a = myVertexAttachments.getByNumber(i);
-            if (a != null) {
-               Vertex3d vtx = mesh.getVertices().get(i);
-               a.computePosState (pos, polard);
-               vtx.setPosition(pos);
-            }
+         final SkinWeightTable table = getWeightTable();
+         int numa = table.numVertices();
+         if (useParallelSkinning (numa)) {
+            // compute element rotations serially, since they are computed
+            // on demand and may be shared by many vertices
+            table.updateElementRotations (new PolarDecomposition3d());
+            ParallelLoop loop = getSkinningLoop();
+            final SkinWeightTable.Workspace[] wss =
+               getSkinningWorkspaces (loop.numThreads(), table);
+            loop.run (numa, new ParallelLoop.RangeTask() {
+                  public void run (int tidx, int lo, int hi) {
+                     updateVertexPositions (mesh, table, wss[tidx], lo, hi);
+                  }
+               });
+         }
+         else {
+            SkinWeightTable.Workspace[] wss = getSkinningWorkspaces (1, table);
+            updateVertexPositions (mesh, table, wss[0], 0, numa);
          }
          mesh.notifyVertexPositionsModified();
       }
       myBodyInfoUpdated = false;
    }
 
+   /**
+    * Updates the positions of the vertices in the range {@code [lo, hi)}
+    * using the packed weight table.
+    */
+   private void updateVertexPositions (
+      MeshBase mesh, SkinWeightTable table, SkinWeightTable.Workspace ws,
+      int lo, int hi) {
+
+      ArrayList<Vertex3d> vtxs = mesh.getVertices();
+      Point3d pos = new Point3d();
+      FrameBlending blending = myFrameBlending;
+      for (int i=lo; i<hi; i++) {
+         if (table.computePosition (
+                pos, i, blending, myDQBlendTolerance, myDQMaxBlendSteps, ws)) {
+            vtxs.get(i).setPosition (pos);
+         }
+      }
+   }
+
+   private SkinWeightTable.Workspace[] getSkinningWorkspaces (
+      int nthreads, SkinWeightTable table) {
+      SkinWeightTable.Workspace[] wss = mySkinningWorkspaces;
+      if (wss == null || wss.length < nthreads) {
+         wss = new SkinWeightTable.Workspace[nthreads];
+         mySkinningWorkspaces = wss;
+      }
+      for (int k=0; k<nthreads; k++) {
+         if (wss[k] == null ||
+             wss[k].dqs.length < table.myMaxFrameConnections) {
+            wss[k] = table.createWorkspace();
+         }
+      }
+      return wss;
+   }
+
+   /**
+    * Returns the packed weight table for the vertex attachments, rebuilding
+    * it if necessary.
+    */
+   SkinWeightTable getWeightTable() {
+      SkinWeightTable table = myWeightTable;
+      if (table == null ||
+          table.numVertices() != myVertexAttachments.size()) {
+         table = new SkinWeightTable (myVertexAttachments);
+         myWeightTable = table;
+      }
+      return table;
+   }
+
+   /**
+    * Invalidates the packed weight table used to compute the vertex
+    * positions, causing it to be rebuilt on the next call to {@link
+    * #updateSlavePos}. This is done automatically when vertex connections
+    * are computed or changed through the methods of this class and {@link
+    * PointSkinAttachment}, but must be called explicitly by applications
+    * that set the weights of individual connections directly.
+    */
+   public void invalidateWeightTable() {
+      myWeightTable = null;
+   }
+
    /* --- attachment computation --- */
 
    /**
@@ -1516,18 +1736,39 @@ public class SkinMeshBody extends SkinMeshBase
       
       int nbodies = myBodyInfos.size();
 
-      if (myNearestPoints.length < nbodies) {
-         myNearestPoints = new NearestPoint[nbodies];
-         for (int i=0; i<nbodies; i++) {
-            myNearestPoints[i] = new NearestPoint();
-         }
+      if (myNearestPoints.length != nbodies) {
+         myNearestPoints = createNearestPoints (nbodies);
          myWeights = new double[nbodies+1];
       }
+      a.removeBackRefsIfConnected();
+      computeConnections (
+         a, pos, weights, femConType, myNearestPoints, myWeights,
+         new BVFeatureQuery());
+      a.addBackRefsIfConnected();
+   }
 
-      BVFeatureQuery query = new BVFeatureQuery();
+   private NearestPoint[] createNearestPoints (int nbodies) {
+      NearestPoint[] nearPnts = new NearestPoint[nbodies];
+      for (int i=0; i<nbodies; i++) {
+         nearPnts[i] = new NearestPoint();
+      }
+      return nearPnts;
+   }
 
+   /**
+    * Computes the connections of a PointSkinAttachment, without updating
+    * the back references to its master components. Storage for the nearest
+    * point queries and weights is supplied by the caller, so that this
+    * method can be called concurrently for different attachments.
+    */
+   private void computeConnections (
+      PointSkinAttachment a, Point3d pos, double[] weights,
+      FemConnectionType femConType, NearestPoint[] nearPnts, double[] wbuf,
+      BVFeatureQuery query) {
+
+      int nbodies = myBodyInfos.size();
       for (int j=0; j<nbodies; j++) {
-         NearestPoint near = myNearestPoints[j];
+         NearestPoint near = nearPnts[j];
          BodyInfo binfo = myBodyInfos.get(j);
          if (binfo instanceof FrameInfo ||
              femConType == FemConnectionType.DISPLACEMENT) {
@@ -1548,17 +1789,16 @@ public class SkinMeshBody extends SkinMeshBase
       }
 
       if (weights == null) {
-         myWeights[nbodies] = 0; // preset base weight in case it is not set
-         myWeightingFxn.computeWeights (myWeights, pos, myNearestPoints);
-         weights = myWeights;
+         wbuf[nbodies] = 0; // preset base weight in case it is not set
+         myWeightingFxn.computeWeights (wbuf, pos, nearPnts);
+         weights = wbuf;
       }
 
       // create an attachment for each body. Assume that
       // thmyBodyInfos.get(j);at vertexAttachments have already be allocated 
-      a.removeBackRefsIfConnected();
       a.clearConnections();
       for (int j=0; j<nbodies; j++) {
-         NearestPoint drec = myNearestPoints[j];
+         NearestPoint drec = nearPnts[j];
          double wgt = weights[j];
          if (wgt != 0) {
             BodyInfo binfo = myBodyInfos.get(j);
@@ -1592,7 +1832,6 @@ public class SkinMeshBody extends SkinMeshBase
          baseWeight = weights[nbodies];
       }
       a.setBaseWeight (baseWeight, false);
-      a.addBackRefsIfConnected();
    }
 
    void setBaseAttachment (PointSkinAttachment a, Point3d pos) {
@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package artisynth.core.femmodels;
+
+import artisynth.core.femmodels.SkinMeshBody.FrameBlending;
+import artisynth.core.mechmodels.MechModel;
+import artisynth.core.mechmodels.RigidBody;
+import maspack.geometry.MeshFactory;
+import maspack.geometry.PolygonalMesh;
+import maspack.matrix.Point3d;
+import maspack.matrix.RigidTransform3d;
+import maspack.matrix.Vector3d;
+import maspack.util.RandomGenerator;
+import maspack.util.TestException;
+import maspack.util.UnitTest;
+
+/**
+ * Tests the parallel computation of vertex connections and positions in
+ * SkinMeshBody, and checks that positions computed from the packed weight
+ * table agree with those computed by the vertex attachments.
+ */
+public class SkinMeshBodyTest extends UnitTest {
+
+   MechModel myMech;
+   RigidBody myBox0;
+   RigidBody myBox1;
+   FemModel3d myFem;
+
+   void createModel() {
+      myMech = new MechModel ("mech");
+      myBox0 = RigidBody.createBox ("box0", 0.5, 0.5, 0.5, 1000);
+      myBox0.setPose (new RigidTransform3d (-0.6, 0, 0));
+      myBox1 = RigidBody.createBox ("box1", 0.5, 0.5, 0.5, 1000);
+      myBox1.setPose (new RigidTransform3d (0.6, 0, 0));
+      myMech.addRigidBody (myBox0);
+      myMech.addRigidBody (myBox1);
+      myFem = FemFactory.createHexGrid (null, 0.4, 0.4, 0.4, 2, 2, 2);
+      myFem.transformGeometry (new RigidTransform3d (0, 0, 0.6));
+      myMech.addModel (myFem);
+   }
+
+   SkinMeshBody createSkin (boolean withFem, int nthreads) {
+      PolygonalMesh mesh = MeshFactory.createIcosahedralSphere (1.0, 3);
+      SkinMeshBody skin = new SkinMeshBody (mesh);
+      skin.addMasterBody (myBox0);
+      skin.addMasterBody (myBox1);
+      if (withFem) {
+         skin.addMasterBody (myFem);
+      }
+      skin.setSkinningThreads (nthreads);
+      myMech.addMeshBody (skin);
+      skin.computeAllVertexConnections();
+      return skin;
+   }
+
+   void checkConnections (SkinMeshBody skin, SkinMeshBody check) {
+      checkEquals (
+         "num attachments",
+         skin.numVertexAttachments(), check.numVertexAttachments());
+      for (int i=0; i<skin.numVertexAttachments(); i++) {
+         PointSkinAttachment a = skin.getVertexAttachment(i);
+         PointSkinAttachment c = check.getVertexAttachment(i);
+         checkEquals (
+            "num connections, vertex "+i,
+            a.numConnections(), c.numConnections());
+         for (int k=0; k<a.numConnections(); k++) {
+            if (a.getConnectionWeight(k) != c.getConnectionWeight(k)) {
+               throw new TestException (
+                  "vertex "+i+", connection "+k+": weight is "+
+                  a.getConnectionWeight(k)+", expected "+
+                  c.getConnectionWeight(k));
+            }
+         }
+         checkEquals (
+            "base position, vertex "+i,
+            a.getBasePosition(), c.getBasePosition());
+         checkEquals (
+            "base weight, vertex "+i, a.getBaseWeight(), c.getBaseWeight());
+      }
+   }
+
+   /**
+    * Checks that each vertex position agrees with the position computed by
+    * its attachment.
+    */
+   void checkPositions (SkinMeshBody skin) {
+      Point3d pos = new Point3d();
+      for (int i=0; i<skin.numVertexAttachments(); i++) {
+         skin.getVertexAttachment(i).computePosState (pos);
+         Point3d vpos = skin.getMesh().getVertex(i).getPosition();
+         if (!vpos.epsilonEquals (pos, 1e-14)) {
+            throw new TestException (
+               "vertex "+i+": position is "+vpos.toString ("%18.14f")+
+               ", expected "+pos.toString ("%18.14f"));
+         }
+      }
+   }
+
+   void checkSamePositions (SkinMeshBody skin, SkinMeshBody check) {
+      for (int i=0; i<skin.numVertexAttachments(); i++) {
+         checkEquals (
+            "position, vertex "+i,
+            skin.getMesh().getVertex(i).getPosition(),
+            check.getMesh().getVertex(i).getPosition());
+      }
+   }
+
+   void moveBodies () {
+      RigidTransform3d T = new RigidTransform3d();
+      T.setRandom();
+      T.p.scale (0.1);
+      myBox0.setPose (T);
+      T.setRandom();
+      T.p.scale (0.1);
+      T.p.x += 0.6;
+      myBox1.setPose (T);
+      for (FemNode3d n : myFem.getNodes()) {
+         Vector3d del = new Vector3d();
+         del.setRandom (-0.05, 0.05);
+         n.getPosition().add (del);
+      }
+   }
+
+   void testSkinning (boolean withFem) {
+      createModel();
+      SkinMeshBody serial = createSkin (withFem, 1);
+      SkinMeshBody parallel = createSkin (withFem, 4);
+      checkConnections (parallel, serial);
+
+      for (FrameBlending blending : FrameBlending.values()) {
+         serial.setFrameBlending (blending);
+         parallel.setFrameBlending (blending);
+         for (int k=0; k<3; k++) {
+            moveBodies();
+            serial.updateSlavePos();
+            parallel.updateSlavePos();
+            checkPositions (serial);
+            checkSamePositions (parallel, serial);
+         }
+      }
+
+      // changing a vertex base weight should be reflected in the positions
+      int vidx = serial.numVertexAttachments()/2;
+      serial.setVertexBaseWeight (vidx, 0.5, /*normalize=*/true);
+      parallel.setVertexBaseWeight (vidx, 0.5, /*normalize=*/true);
+      moveBodies();
+      serial.updateSlavePos();
+      parallel.updateSlavePos();
+      checkPositions (serial);
+      checkSamePositions (parallel, serial);
+   }
+
+   public void test() {
+      int minVertices = SkinMeshBody.minParallelSkinningVertices;
+      SkinMeshBody.minParallelSkinningVertices = 0;
+      try {
+         testSkinning (/*withFem=*/false);
+         testSkinning (/*withFem=*/true);
+      }
+      finally {
+         SkinMeshBody.minParallelSkinningVertices = minVertices;
+      }
+   }
+
+   public static void main (String[] args) {
+      RandomGenerator.setSeed (0x1234);
+      SkinMeshBodyTest tester = new SkinMeshBodyTest();
+      tester.runtest();
+   }
+}
@@ -0,0 +1,284 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package artisynth.core.femmodels;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+
+import artisynth.core.femmodels.PointSkinAttachment.ElementConnection;
+import artisynth.core.femmodels.PointSkinAttachment.FemConnection;
+import artisynth.core.femmodels.PointSkinAttachment.FrameConnection;
+import artisynth.core.femmodels.SkinMeshBody.FrameBlending;
+import artisynth.core.femmodels.SkinMeshBody.FrameInfo;
+import artisynth.core.modelbase.ComponentList;
+import maspack.matrix.DualQuaternion;
+import maspack.matrix.Point3d;
+import maspack.matrix.PolarDecomposition3d;
+import maspack.matrix.RigidTransform3d;
+import maspack.matrix.Vector3d;
+
+/**
+ * Packed representation of the vertex attachments of a SkinMeshBody, used
+ * to compute the vertex positions without traversing the connection lists
+ * of each PointSkinAttachment. The frame connections are stored in
+ * compressed row form: the connections for vertex {@code i} are located at
+ * {@code myOffsets[i]} to {@code myOffsets[i+1]-1} within {@code myFrameIdxs}
+ * (which index into {@code myFrames}) and {@code myWeights}.
+ *
+ * <p>Vertices whose attachments also have FEM connections are marked as
+ * {@link #GENERAL}, and their positions are computed by the attachment
+ * itself. The table is a snapshot and must be rebuilt whenever the
+ * attachments change.
+ */
+class SkinWeightTable {
+
+   /**
+    * Vertex has no attachment and is not updated.
+    */
+   static final byte NONE = 0;
+
+   /**
+    * Vertex position depends only on frame connections and the base
+    * position, and is computed from the table.
+    */
+   static final byte FRAMES = 1;
+
+   /**
+    * Vertex position is computed by the attachment.
+    */
+   static final byte GENERAL = 2;
+
+   int myNumVertices;
+   byte[] myTypes;
+   int[] myOffsets;
+   int[] myFrameIdxs;
+   float[] myWeights;
+   float[] myBaseWeights;
+   double[] myBasePos;
+   FrameInfo[] myFrames;
+   PointSkinAttachment[] myAttachments;
+   // elements whose rotations are needed by GENERAL vertices
+   FemElement3dBase[] myElements;
+   int myMaxFrameConnections;
+
+   /**
+    * Workspace for computing vertex positions, one of which is required for
+    * each thread.
+    */
+   static class Workspace {
+      Point3d base = new Point3d();
+      Point3d tmp = new Point3d();
+      DualQuaternion dq = new DualQuaternion();
+      PolarDecomposition3d polard = new PolarDecomposition3d();
+      DualQuaternion[] dqs;
+      double[] weights;
+
+      Workspace (int maxcons) {
+         dqs = new DualQuaternion[maxcons];
+         weights = new double[maxcons];
+      }
+   }
+
+   SkinWeightTable (ComponentList<PointSkinAttachment> attachments) {
+      int numv = attachments.size();
+      myNumVertices = numv;
+      myTypes = new byte[numv];
+      myOffsets = new int[numv+1];
+      myBaseWeights = new float[numv];
+      myBasePos = new double[3*numv];
+      myAttachments = new PointSkinAttachment[numv];
+
+      HashMap<FrameInfo,Integer> frameIdxMap = new HashMap<>();
+      ArrayList<FrameInfo> frames = new ArrayList<>();
+      LinkedHashSet<FemElement3dBase> elems = new LinkedHashSet<>();
+      int ncons = 0;
+      for (int i=0; i<numv; i++) {
+         PointSkinAttachment a = attachments.getByNumber (i);
+         myAttachments[i] = a;
+         if (a != null) {
+            int nf = a.numFrameConnections();
+            ncons += nf;
+            if (nf > myMaxFrameConnections) {
+               myMaxFrameConnections = nf;
+            }
+         }
+      }
+      myFrameIdxs = new int[ncons];
+      myWeights = new float[ncons];
+      int k = 0;
+      for (int i=0; i<numv; i++) {
+         myOffsets[i] = k;
+         PointSkinAttachment a = myAttachments[i];
+         if (a == null) {
+            myTypes[i] = NONE;
+            continue;
+         }
+         for (FrameConnection c=a.getFrameConnections(); c!=null;
+              c=c.getNext()) {
+            Integer fidx = frameIdxMap.get (c.myFrameInfo);
+            if (fidx == null) {
+               fidx = frames.size();
+               frames.add (c.myFrameInfo);
+               frameIdxMap.put (c.myFrameInfo, fidx);
+            }
+            myFrameIdxs[k] = fidx;
+            myWeights[k] = c.myWeight;
+            k++;
+         }
+         if (a.getFemConnections() != null) {
+            myTypes[i] = GENERAL;
+            for (FemConnection c=a.getFemConnections(); c!=null;
+                 c=c.getNext()) {
+               if (c instanceof ElementConnection) {
+                  elems.add (((ElementConnection)c).getElement());
+               }
+            }
+         }
+         else {
+            myTypes[i] = FRAMES;
+         }
+         myBaseWeights[i] = a.getBaseWeight();
+         Point3d pos = a.getBasePosition();
+         myBasePos[3*i  ] = pos.x;
+         myBasePos[3*i+1] = pos.y;
+         myBasePos[3*i+2] = pos.z;
+      }
+      myOffsets[numv] = k;
+      myFrames = frames.toArray (new FrameInfo[0]);
+      myElements = elems.toArray (new FemElement3dBase[0]);
+   }
+
+   /**
+    * Returns the number of vertices described by this table.
+    */
+   int numVertices() {
+      return myNumVertices;
+   }
+
+   /**
+    * Returns the total number of frame connections in this table.
+    */
+   int numFrameConnections() {
+      return myOffsets[myNumVertices];
+   }
+
+   /**
+    * Creates a workspace for use with {@link #computePosition}.
+    */
+   Workspace createWorkspace() {
+      return new Workspace (myMaxFrameConnections);
+   }
+
+   /**
+    * Computes the rotations for all elements referenced by the FEM
+    * connections. Element rotations are computed on demand, and so this
+    * should be called before positions are computed by multiple threads.
+    */
+   void updateElementRotations (PolarDecomposition3d polard) {
+      for (FemElement3dBase e : myElements) {
+         e.getRotation (polard);
+      }
+   }
+
+   /**
+    * Computes the current position for vertex {@code vidx}. The result is
+    * identical to that of {@link PointSkinAttachment#computePosState}.
+    *
+    * @param pos returns the vertex position
+    * @param vidx vertex index
+    * @param blending frame blending method
+    * @param dqTol tolerance for iterative dual quaternion blending
+    * @param dqMaxSteps maximum steps for iterative dual quaternion blending
+    * @param ws workspace for the calling thread
+    * @return {@code false} if the vertex has no attachment and {@code pos}
+    * was not set
+    */
+   boolean computePosition (
+      Point3d pos, int vidx, FrameBlending blending,
+      double dqTol, int dqMaxSteps, Workspace ws) {
+
+      switch (myTypes[vidx]) {
+         case NONE: {
+            return false;
+         }
+         case GENERAL: {
+            myAttachments[vidx].computePosState (pos, ws.polard);
+            return true;
+         }
+         default: {
+            break;
+         }
+      }
+      Point3d base = ws.base;
+      base.set (myBasePos[3*vidx], myBasePos[3*vidx+1], myBasePos[3*vidx+2]);
+      int k0 = myOffsets[vidx];
+      int k1 = myOffsets[vidx+1];
+      pos.setZero();
+      if (k1 > k0) {
+         switch (blending) {
+            case LINEAR: {
+               addLinearPosition (pos, base, k0, k1);
+               break;
+            }
+            case DUAL_QUATERNION_LINEAR: {
+               DualQuaternion dq = ws.dq;
+               double wtotal = 0;
+               dq.setZero();
+               for (int k=k0; k<k1; k++) {
+                  FrameInfo finfo = myFrames[myFrameIdxs[k]];
+                  dq.scaledAdd (myWeights[k], finfo.myBlendQuaternion);
+                  wtotal += myWeights[k];
+               }
+               dq.normalize();
+               dq.transform (ws.tmp, base);
+               pos.scaledAdd (wtotal, ws.tmp);
+               break;
+            }
+            case DUAL_QUATERNION_ITERATIVE: {
+               double wtotal = 0;
+               for (int k=k0; k<k1; k++) {
+                  ws.dqs[k-k0] = myFrames[myFrameIdxs[k]].myBlendQuaternion;
+                  ws.weights[k-k0] = myWeights[k];
+                  wtotal += myWeights[k];
+               }
+               ws.dq.dualQuaternionIterativeBlending (
+                  ws.weights, ws.dqs, k1-k0, dqTol, dqMaxSteps);
+               ws.dq.transform (ws.tmp, base);
+               pos.scaledAdd (wtotal, ws.tmp);
+               break;
+            }
+            default: {
+               throw new UnsupportedOperationException (
+                  "frameBlending "+blending+" not implemented");
+            }
+         }
+      }
+      if (myBaseWeights[vidx] != 0) {
+         pos.scaledAdd (myBaseWeights[vidx], base);
+      }
+      return true;
+   }
+
+   private void addLinearPosition (Vector3d pos, Point3d base, int k0, int k1) {
+      double bx = base.x;
+      double by = base.y;
+      double bz = base.z;
+      for (int k=k0; k<k1; k++) {
+         RigidTransform3d T = myFrames[myFrameIdxs[k]].myDeltaPose;
+         double w = myWeights[k];
+         // same operations as Point3d.transform(RigidTransform3d,Vector3d)
+         // followed by a scale, so that results match the attachment
+         double x = T.R.m00*bx + T.R.m01*by + T.R.m02*bz + T.p.x;
+         double y = T.R.m10*bx + T.R.m11*by + T.R.m12*bz + T.p.y;
+         double z = T.R.m20*bx + T.R.m21*by + T.R.m22*bz + T.p.z;
+         pos.x += w*x;
+         pos.y += w*y;
+         pos.z += w*z;
+      }
+   }
+}
@@ -159,6 +159,24 @@ public class StiffnessWarper3d {
       computeRotation(F, null);
    }
 
+   /**
+    * Computes the warping rotation, using temporary storage from a
+    * workspace so that no memory is allocated.
+    *
+    * @param elem element associated with this warper
+    * @param ws workspace providing temporary storage
+    */
+   public void computeWarpingRotation (
+      FemElement3dBase elem, StressStiffnessWorkspace ws) {
+      IntegrationPoint3d wpnt = elem.getWarpingPoint();
+      IntegrationData3d wdata = elem.getWarpingData();
+      wpnt.computeGradient(ws.F, elem.getNodes(), wdata.myInvJ0);
+      if (R == null) {
+         R = new RotationMatrix3d();
+      }
+      ws.svd.polarDecomposition(R, (SymmetricMatrix3d)null, ws.F);
+   }
+
    /**
     * Computes a corotated rotation based on the deformation gradient
     * and stores the result in this warper
@@ -225,10 +243,27 @@ public class StiffnessWarper3d {
     * @param j second node index
     */
    public void addNodeStiffness (Matrix3d K, int i, int j) {
+      addNodeStiffness (K, i, j, corotated != null ? new Matrix3d() : null);
+   }
+
+   /**
+    * Adds the total stiffness contributions between nodes i and j, using
+    * temporary storage from a workspace so that no memory is allocated.
+    * 
+    * @param K local stiffness matrix
+    * @param i first node index
+    * @param j second node index
+    * @param ws workspace providing temporary storage
+    */
+   public void addNodeStiffness (
+      Matrix3d K, int i, int j, StressStiffnessWorkspace ws) {
+      addNodeStiffness (K, i, j, ws.Kr);
+   }
+
+   private void addNodeStiffness (Matrix3d K, int i, int j, Matrix3d Kr) {
      
       // corotated component
       if (corotated != null) {
-         Matrix3d Kr = new Matrix3d();
          rotateStiffness(Kr, corotated.getInitialStiffness00(i, j));
          K.add(Kr);
       }
@@ -277,11 +312,30 @@ public class StiffnessWarper3d {
     */
    public void addNodeForce (
       Vector3d f, int i, FemNode3d[] nodes) {
+      addNodeForce (f, i, nodes, new Vector3d(), new Vector3d());
+   }
+
+   /**
+    * Adds the total force contribution due to stiffness from all cached
+    * linear materials for node i, using temporary storage from a workspace
+    * so that no memory is allocated.
+    *  
+    * @param f output force
+    * @param i node index
+    * @param nodes element nodes
+    * @param ws workspace providing temporary storage
+    */
+   public void addNodeForce (
+      Vector3d f, int i, FemNode3d[] nodes, StressStiffnessWorkspace ws) {
+      addNodeForce (f, i, nodes, ws.ftmp, ws.pos);
+   }
+
+   private void addNodeForce (
+      Vector3d f, int i, FemNode3d[] nodes, Vector3d tmp, Vector3d pos) {
       
       // corotated
       if (corotated != null) {
-         Vector3d tmp = new Vector3d();
-         Vector3d pos = new Vector3d();
+         tmp.setZero();
          for (int j=0; j<nodes.length; j++) {
             // rotate position
             R.mulTranspose (pos, nodes[j].getLocalPosition());
@@ -297,7 +351,7 @@ public class StiffnessWarper3d {
       
       // linear
       if (linear != null) {
-         Vector3d tmp = new Vector3d();
+         tmp.setZero();
          for (int j=0; j<nodes.length; j++) {
             linear.getInitialStiffness00(i, j).mulAdd (
                tmp, nodes[j].getLocalPosition(), tmp);
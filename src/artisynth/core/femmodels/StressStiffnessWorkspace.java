@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package artisynth.core.femmodels;
+
+import java.util.IdentityHashMap;
+
+import artisynth.core.materials.FemMaterial;
+import maspack.matrix.Matrix3d;
+import maspack.matrix.Matrix6d;
+import maspack.matrix.MatrixNd;
+import maspack.matrix.SVDecomposition3d;
+import maspack.matrix.SymmetricMatrix3d;
+import maspack.matrix.Vector3d;
+import maspack.matrix.VectorNd;
+import maspack.util.DoubleHolder;
+
+/**
+ * Work storage used by {@link FemModel3d} when computing element stresses
+ * and stiffnesses. Each thread that participates in the computation uses
+ * its own workspace, so that elements can be processed concurrently.
+ * Reusing the workspace also means that, once it has been sized for the
+ * elements and materials being processed, the computation does not
+ * allocate any memory. Per-element information that must be reduced across threads, such as the
+ * minimum Jacobian determinant and the number of inverted elements, is also
+ * recorded here.
+ */
+public class StressStiffnessWorkspace {
+
+   // maximum number of pressure DOFs that can occur in an element
+   static final int MAX_PRESSURE_VALS = 8;
+
+   FemDeformedPoint dpnt = new FemDeformedPoint();
+   SymmetricMatrix3d sigma = new SymmetricMatrix3d();
+   SymmetricMatrix3d sigmaTmp = new SymmetricMatrix3d();
+   SymmetricMatrix3d C = new SymmetricMatrix3d();
+   Matrix3d invJ = new Matrix3d();
+   Matrix6d D = new Matrix6d();
+   Matrix6d Dtmp = new Matrix6d();
+   Vector3d[] GNx = new Vector3d[0];
+   DoubleHolder sed = new DoubleHolder();
+
+   // used for nodal stress and strain
+   SymmetricMatrix3d nodalTmp = new SymmetricMatrix3d();
+   SymmetricMatrix3d nodalSigma = new SymmetricMatrix3d();
+   SymmetricMatrix3d nodalEps = new SymmetricMatrix3d();
+
+   // used for element pressure computations
+   MatrixNd Wtmp = new MatrixNd();
+
+   // used by StiffnessWarper3d
+   Matrix3d F = new Matrix3d();
+   Matrix3d Kr = new Matrix3d();
+   Vector3d ftmp = new Vector3d();
+   Vector3d pos = new Vector3d();
+   SVDecomposition3d svd = new SVDecomposition3d();
+
+   VectorNd pressures;
+   VectorNd avgDetFs;
+   MatrixNd Rinv;
+
+   // element condition information
+   double minDetJ;
+   FemElement3dBase minDetJElement;
+   int numInverted;
+
+   // per-thread copies of materials, used when the workspace is employed
+   // by a worker thread so that material temporaries are not shared
+   IdentityHashMap<FemMaterial,FemMaterial> myMaterialCopies;
+
+   /**
+    * Creates a workspace with its own pressure storage.
+    *
+    * @param copyMaterials if {@code true}, materials are evaluated using
+    * copies private to this workspace
+    */
+   public StressStiffnessWorkspace (boolean copyMaterials) {
+      this (new VectorNd(MAX_PRESSURE_VALS), new VectorNd(MAX_PRESSURE_VALS),
+            new MatrixNd(), copyMaterials);
+   }
+
+   /**
+    * Creates a workspace that uses supplied storage for element pressure
+    * values, average deformation determinants, and inverse pressure
+    * stiffness.
+    */
+   StressStiffnessWorkspace (
+      VectorNd pressures, VectorNd avgDetFs, MatrixNd Rinv,
+      boolean copyMaterials) {
+      this.pressures = pressures;
+      this.avgDetFs = avgDetFs;
+      this.Rinv = Rinv;
+      if (copyMaterials) {
+         myMaterialCopies = new IdentityHashMap<>();
+      }
+      clearConditionInfo();
+   }
+
+   /**
+    * Returns the material that should be used to evaluate <code>mat</code>
+    * with this workspace. If the workspace keeps private material copies,
+    * this is a copy of <code>mat</code> created on first use; otherwise it
+    * is <code>mat</code> itself.
+    *
+    * @param mat material to evaluate
+    * @return material to use for the evaluation
+    */
+   public FemMaterial getMaterial (FemMaterial mat) {
+      if (myMaterialCopies == null || mat == null) {
+         return mat;
+      }
+      FemMaterial copy = myMaterialCopies.get (mat);
+      if (copy == null) {
+         copy = mat.clone();
+         myMaterialCopies.put (mat, copy);
+      }
+      return copy;
+   }
+
+   /**
+    * Discards any private material copies, so that they will be recreated
+    * from the original materials on next use. Should be called whenever
+    * material properties change.
+    */
+   public void clearMaterialCopies() {
+      if (myMaterialCopies != null) {
+         myMaterialCopies.clear();
+      }
+   }
+
+   /**
+    * Returns an array of at least <code>n</code> vectors for storing
+    * shape function gradients.
+    */
+   Vector3d[] getShapeGradientBuffer (int n) {
+      if (GNx.length < n) {
+         Vector3d[] newGNx = new Vector3d[n];
+         for (int i=0; i<n; i++) {
+            newGNx[i] = (i < GNx.length ? GNx[i] : new Vector3d());
+         }
+         GNx = newGNx;
+      }
+      return GNx;
+   }
+
+   void clearConditionInfo() {
+      minDetJ = Double.MAX_VALUE;
+      minDetJElement = null;
+      numInverted = 0;
+   }
+
+   boolean checkElementCondition (
+      FemElement3dBase e, double detJ, boolean recordInversion) {
+      if (detJ < minDetJ) {
+         minDetJ = detJ;
+         minDetJElement = e;
+      }
+      if (detJ <= 0 && recordInversion) {
+         e.setInverted(true);
+         numInverted++;
+         return false;
+      }
+      else {
+         return true;
+      }
+   }
+}
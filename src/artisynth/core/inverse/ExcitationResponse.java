@@ -63,6 +63,8 @@ public class ExcitationResponse
    VectorNd fa = new VectorNd();
    VectorNd[] HuCols = new VectorNd[0];
    VectorNd[] HlamCols = new VectorNd[0];
+   VectorNd[] BfCols = new VectorNd[0];
+   double[] myDex = new double[0];
    VectorNd u0 = new VectorNd();
    VectorNd ex = new VectorNd();
    VectorNd fp = new VectorNd();
@@ -70,8 +72,6 @@ public class ExcitationResponse
    VectorNd ftmp = new VectorNd();
 
    VectorNd lam0 = new VectorNd(0);
-   
-   VectorNd the = new VectorNd(0);
 
    VectorNd curEx = new VectorNd(0);
    VectorNd curVel = new VectorNd(0);
@@ -123,16 +123,22 @@ public class ExcitationResponse
       if (HuCols.length != exSize) {
          HuCols = new VectorNd[exSize];
          HlamCols = new VectorNd[exSize];
+         BfCols = new VectorNd[exSize];
+         myDex = new double[exSize];
          for (int i=0; i<exSize; i++) {
             HuCols[i] = new VectorNd (velSize);
             HlamCols[i] = new VectorNd (); // size will be initialized on demand
+            BfCols[i] = new VectorNd (velSize);
          }
       }
       else {
          for (int i=0; i<exSize; i++) {
             HuCols[i].setSize (velSize);
+            BfCols[i].setSize (velSize);
          }
       }
+      myMechSysSolver.setNumSolverThreads (
+         myController.getNumSolverThreads());
 
       u0.setSize(velSize);
       ex.setSize(exSize);
@@ -191,6 +197,12 @@ public class ExcitationResponse
       lam0.set (myMechSysSolver.getLambda ());
       // where e_j is elementary unit vector
 
+      // if the KKT system is not refactored for each exciter, the right hand
+      // sides are collected in BfCols and solved together after the loop
+      boolean prefactored =
+         !(myController.getUseKKTFactorization() || 
+           (incremental && refactorForIncremental));
+
       for (int j = 0; j < exSize; j++) {
          double dex = deltaEx;
          if (incremental) {
@@ -208,10 +220,12 @@ public class ExcitationResponse
             ex.setZero();
             ex.set (j, 1.0);
          }
+         myDex[j] = dex;
          myController.updateForces(t1, fa, ex);
          
          // XXX scale fa by excitation weight??
          
+         VectorNd bf = prefactored ? BfCols[j] : this.bf;
          if (incremental) {
             if (refactorForIncremental) {
                //myMechSysSolver.addScaledMassForces(fa, 1, t0);
@@ -228,9 +242,7 @@ public class ExcitationResponse
             bf.scale (h);
          }
 
-         if (myController.getUseKKTFactorization() || 
-             (incremental && refactorForIncremental)) {        
-
+         if (!prefactored) {
             if (useTrapezoidal) {
                // use Trapezoidal integration
                myMechSysSolver.KKTFactorAndSolve (
@@ -252,18 +264,18 @@ public class ExcitationResponse
                HlamCols[j].scale (1/dex);  
             }
          }
-         else {
-            // use pre-factored KKT system
-            // Note neglecting change in jacobians due to excitation
-            myMechSysSolver.KKTSolve(HuCols[j], HlamCols[j], the, bf);
-            // System.out.println ("bf"+j+"=" + bf.toString("%12.8f"));
-            // System.out.println ("Hu"+j+"=" + HuCols[j].toString("%12.4f"));
-            if (incremental) {
+      }
+      if (prefactored && exSize > 0) {
+         // use pre-factored KKT system, solving for all the exciters at once
+         // Note neglecting change in jacobians due to excitation
+         myMechSysSolver.KKTSolve (HuCols, HlamCols, BfCols, exSize);
+         if (incremental) {
+            for (int j = 0; j < exSize; j++) {
                HuCols[j].sub (u0);
-               HuCols[j].scale (1/dex);
+               HuCols[j].scale (1/myDex[j]);
                HlamCols[j].sub (lam0);  
-               HlamCols[j].scale (1/dex);  
-            }            
+               HlamCols[j].scale (1/myDex[j]);  
+            }
          }
       }
 
@@ -11,7 +11,11 @@ import maspack.solvers.DantzigQPSolver;
 import maspack.solvers.DantzigQPSolver.Status;
 
 /**
- * Solves a quadratic program given a set of cost and constraint terms.
+ * Solves a quadratic program given a set of cost and constraint terms.  The
+ * matrices and vectors used to assemble the program are retained between
+ * calls, and, if warm starting is enabled, the active set from each solve is
+ * used to seed the next one. Since the active set usually changes very little
+ * between time steps, this greatly reduces the number of solver pivots.
  */
 public class QPSolver {
 
@@ -22,7 +26,84 @@ public class QPSolver {
    String myQPTestCaseFile = null; // "frameQP.txt";
    int myQPTestCaseCnt = 200;
    int myQPCnt = 0;
-   FunctionTimer timer = new FunctionTimer();
+
+   // workspace retained between solves
+   MatrixNd myQ = new MatrixNd();
+   VectorNd myP = new VectorNd();
+   MatrixNd myA = new MatrixNd();
+   VectorNd myb = new VectorNd();
+   MatrixNd myAeq = new MatrixNd();
+   VectorNd mybeq = new VectorNd();
+   VectorNd myx = new VectorNd();
+
+   // statistics for the most recent solve
+   int myLastIterationCount = 0;
+   double myLastSolveTime = 0; // msec
+   Status myLastStatus = Status.SOLVED;
+
+   public static boolean DEFAULT_WARM_START_ENABLED = true;
+
+   public QPSolver() {
+      setWarmStartEnabled (DEFAULT_WARM_START_ENABLED);
+   }
+
+   /**
+    * Enables or disables warm starting, in which the active set from the
+    * previous solve is used to seed the next one. Warm starting is enabled by
+    * default.
+    *
+    * @param enable if {@code true}, enables warm starting
+    */
+   public void setWarmStartEnabled (boolean enable) {
+      mySolver.setWarmStartEnabled (enable);
+   }
+
+   /**
+    * Queries whether warm starting is enabled.
+    *
+    * @return {@code true} if warm starting is enabled
+    */
+   public boolean getWarmStartEnabled() {
+      return mySolver.getWarmStartEnabled();
+   }
+
+   /**
+    * Discards the warm start information, so that the next solve is done
+    * from scratch. Should be called when the problem changes abruptly, such
+    * as after a state reset.
+    */
+   public void resetWarmStart() {
+      mySolver.resetWarmStart();
+   }
+
+   /**
+    * Returns the number of solver iterations used by the most recent call to
+    * {@link #solve}.
+    *
+    * @return iteration count for the most recent solve
+    */
+   public int getLastIterationCount() {
+      return myLastIterationCount;
+   }
+
+   /**
+    * Returns the time, in milliseconds, used by the most recent call to
+    * {@link #solve}, including the time required to assemble the program.
+    *
+    * @return time for the most recent solve
+    */
+   public double getLastSolveTime() {
+      return myLastSolveTime;
+   }
+
+   /**
+    * Returns the solver status for the most recent call to {@link #solve}.
+    *
+    * @return status of the most recent solve
+    */
+   public Status getLastStatus() {
+      return myLastStatus;
+   }
 
    /**
     * Solves the quadratic program of the form:
@@ -42,15 +123,21 @@ public class QPSolver {
     * @param t0 time step start time
     * @param t1 time step end time
     * 
-    * @return solution to the program
+    * @return solution to the program. This vector is reused by subsequent
+    * calls and should be copied if it needs to be retained.
     */
    public VectorNd solve (
       List<QPCostTerm> costTerms,
       List<QPConstraintTerm> constraintTerms, 
       int size, double t0, double t1) {
 
-      MatrixNd Q = new MatrixNd (size, size);
-      VectorNd P = new VectorNd (size);
+      long startTime = System.nanoTime();
+      MatrixNd Q = myQ;
+      VectorNd P = myP;
+      Q.setSize (size, size);
+      Q.setZero();
+      P.setSize (size);
+      P.setZero();
 
       int numEq = 0;
       int numIneq = 0;
@@ -67,13 +154,24 @@ public class QPSolver {
          }
       }
 
-      MatrixNd A = new MatrixNd (numIneq, size);
-      VectorNd b = new VectorNd (numIneq);
+      MatrixNd A = myA;
+      VectorNd b = myb;
+      A.setSize (numIneq, size);
+      A.setZero();
+      b.setSize (numIneq);
+      b.setZero();
 
-      MatrixNd Aeq = new MatrixNd (numEq, size);
-      VectorNd beq = new VectorNd (numEq);
+      MatrixNd Aeq = myAeq;
+      VectorNd beq = mybeq;
+      Aeq.setSize (numEq, size);
+      Aeq.setZero();
+      beq.setSize (numEq);
+      beq.setZero();
 
-      VectorNd x = new VectorNd (size);
+      VectorNd x = myx;
+      x.setSize (size);
+      x.setZero();
+      myLastStatus = Status.SOLVED;
 
       // collect all cost terms
       for (QPCostTerm term : costTerms) {
@@ -112,7 +210,7 @@ public class QPSolver {
                   timer.start();
                }
             }
-            mySolver.solve (x,Q,P,A,b);
+            myLastStatus = mySolver.solve (x,Q,P,A,b);
             if (myQPTestCaseFile != null) {
                if (myQPCnt == myQPTestCaseCnt) {
                   timer.stop();
@@ -123,16 +221,18 @@ public class QPSolver {
             }
          }
          else {
-            Status qpStatus = mySolver.solve (x, Q, P, A, b, Aeq, beq);
-            if (qpStatus != Status.SOLVED) {
+            myLastStatus = mySolver.solve (x, Q, P, A, b, Aeq, beq);
+            if (myLastStatus != Status.SOLVED) {
                System.err.println (
-                  "InverseSolve failed: solver status = "+qpStatus.toString ());
+                  "InverseSolve failed: solver status = "+myLastStatus);
             }
          }
       }
       catch (Exception e) {
          e.printStackTrace();
       }
+      myLastIterationCount = mySolver.getIterationCount();
+      myLastSolveTime = (System.nanoTime()-startTime)/1e6;
       return x;
    }
 
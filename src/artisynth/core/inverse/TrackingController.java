@@ -144,6 +144,10 @@ public class TrackingController extends ControllerBase
    public static boolean DEFAULT_USE_KKT_FACTORIZATION = false;
    protected boolean myUseKKTFactorization = DEFAULT_USE_KKT_FACTORIZATION;
 
+   // number of threads used for solving the excitation responses
+   public static int DEFAULT_NUM_SOLVER_THREADS = 1;
+   protected int myNumSolverThreads = DEFAULT_NUM_SOLVER_THREADS;
+
    // normalize the optimization cost terms, so that their weights better
    // reflect the tradeoffs between them
    public static boolean DEFAULT_NORMALIZE_COST_TERMS = true;
@@ -246,6 +250,18 @@ public class TrackingController extends ControllerBase
          "useKKTFactorization",
          "flag for re-factoring at each internal KKT solve",
          DEFAULT_USE_KKT_FACTORIZATION);
+      myProps.add(
+         "numSolverThreads",
+         "number of threads for solving the excitation responses",
+         DEFAULT_NUM_SOLVER_THREADS);
+      myProps.add(
+         "useQPWarmStart",
+         "warm start the QP solve using the previous active set",
+         QPSolver.DEFAULT_WARM_START_ENABLED);
+      myProps.addReadOnly (
+         "QPIterations", "number of QP solver iterations at the last step");
+      myProps.addReadOnly (
+         "QPSolveTime", "QP assembly and solve time (msec) at the last step");
       myProps.add(
          "normalizeCostTerms",
          "normalize contribution of each cost terms using a frobenius norm",
@@ -600,6 +616,79 @@ public class TrackingController extends ControllerBase
    public void setUseKKTFactorization (boolean enable) {
       myUseKKTFactorization = enable;
    }
+
+   /**
+    * Queries whether the QP solve for the excitations is warm started. See
+    * {@link #setUseQPWarmStart}.
+    *
+    * @return {@code true} if the QP solve is warm started
+    */
+   public boolean getUseQPWarmStart () {
+      return myQPSolver.getWarmStartEnabled();
+   }
+
+   /**
+    * Sets whether the QP solve for the excitations is warm started, using
+    * the active set of constraints from the previous time step. This
+    * typically reduces the QP solve time substantially. The default value is
+    * {@code true}.
+    *
+    * @param enable if {@code true}, enables warm starting
+    */
+   public void setUseQPWarmStart (boolean enable) {
+      myQPSolver.setWarmStartEnabled (enable);
+   }
+
+   /**
+    * Returns the number of QP solver iterations used to compute the
+    * excitations at the most recent time step.
+    *
+    * @return number of QP iterations for the last step
+    */
+   public int getQPIterations () {
+      return myQPSolver.getLastIterationCount();
+   }
+
+   /**
+    * Returns the time, in milliseconds, used to assemble and solve the QP
+    * for the excitations at the most recent time step.
+    *
+    * @return QP solve time for the last step
+    */
+   public double getQPSolveTime () {
+      return myQPSolver.getLastSolveTime();
+   }
+
+   /**
+    * Queries the number of threads used for solving the excitation
+    * responses. See {@link #setNumSolverThreads}.
+    *
+    * @return number of solver threads
+    */
+   public int getNumSolverThreads () {
+      return myNumSolverThreads;
+   }
+
+   /**
+    * Sets the number of threads used for solving the excitation responses.
+    * Unless KKT factorization is enabled (see {@link
+    * #setUseKKTFactorization}), the responses for all the exciters are
+    * computed using a single solve with multiple right hand sides, and if
+    * the matrix solver is {@link
+    * maspack.solvers.SparseSolverId#SparseLDLT}, the right
+    * hand sides are divided among this number of threads. Pardiso manages
+    * its own threads and ignores this setting.
+    *
+    * <p>The default value is 1.
+    *
+    * @param num number of solver threads
+    */
+   public void setNumSolverThreads (int num) {
+      if (num < 1) {
+         num = 1;
+      }
+      myNumSolverThreads = num;
+   }
    
    /**
     * @deprecated Use {@link #getNormalizeCostTerms} intead.
@@ -993,6 +1082,18 @@ public class TrackingController extends ControllerBase
       myExcitationResponse.update(t0, t1);
    }
    
+   /**
+    * {@inheritDoc}
+    *
+    * <p>Since the model is being reset, the QP warm start information from
+    * previous time steps is discarded.
+    */
+   @Override
+   public void initialize (double t0) {
+      super.initialize (t0);
+      myQPSolver.resetWarmStart();
+   }
+
    /**
     * Applies the controller, estimating and setting the next
     * set of muscle activations
@@ -1032,6 +1133,12 @@ public class TrackingController extends ControllerBase
 
       // solve for the excitations, given the cost and constraint terms
       VectorNd x = myQPSolver.solve (costs, constraints, numExciters(), t0, t1);
+      if (getDebug()) {
+         System.out.printf (
+            "QP solve: iterations=%d time=%.3f msec\n",
+            myQPSolver.getLastIterationCount(),
+            myQPSolver.getLastSolveTime());
+      }
       if (myComputeIncrementally) {
          // VectorNd deltaActivations = myCostFunction.solve (t0, t1);
          // myExcitations.add (deltaActivations);
@@ -2691,6 +2798,8 @@ public class TrackingController extends ControllerBase
    public void setState (ComponentState state) {
       NumericState nstate = castToNumericState(state);
       nstate.resetOffsets();
+      // the active set from the last solve may not match the restored state
+      myQPSolver.resetWarmStart();
       // Get number of stored excitation values
       setExcitationState (nstate);
       for (Point p : myMotionTerm.myTargetPoints) {
@@ -457,6 +457,43 @@ public class FemMaterialTest extends UnitTest {
    /**
     * Test method executed by runtest().
     */
+   /**
+    * Checks that a clone of a material does not share any arrays, matrices
+    * or vectors with the original. FEM models evaluate private clones of
+    * their materials when assembling in parallel, so any work storage
+    * shared with the original would be overwritten concurrently.
+    */
+   public void testCloneStorage (FemMaterial mat) {
+      FemMaterial clone = mat.clone();
+      for (Class<?> cls = mat.getClass();
+           cls != Object.class; cls = cls.getSuperclass()) {
+         for (java.lang.reflect.Field field : cls.getDeclaredFields()) {
+            int mods = field.getModifiers();
+            Class<?> type = field.getType();
+            if (java.lang.reflect.Modifier.isStatic (mods) ||
+                !(type.isArray() ||
+                  Matrix.class.isAssignableFrom (type) ||
+                  maspack.matrix.Vector.class.isAssignableFrom (type) ||
+                  type == SVDecomposition3d.class)) {
+               continue;
+            }
+            field.setAccessible (true);
+            try {
+               Object value = field.get (mat);
+               if (value != null && value == field.get (clone)) {
+                  throw new TestException (
+                     mat.getClass().getSimpleName()+"."+field.getName()+
+                     " is shared by the material and its clone");
+               }
+            }
+            catch (IllegalAccessException e) {
+               throw new TestException (
+                  "cannot access "+cls.getSimpleName()+"."+field.getName());
+            }
+         }
+      }
+   }
+
    public void test () {
 
       // numeric and analytical tangents should match within this tolerance
@@ -546,6 +583,16 @@ public class FemMaterialTest extends UnitTest {
       testStress (simpMuscle, tol);
       testTangent (genericMuscle, tol);
       testStress (genericMuscle, 2e-4);
+
+      // materials have all been evaluated, so any lazily allocated work
+      // storage should exist
+      FemMaterial[] cloneMats = new FemMaterial[] {
+         neohook, mooney, stvk, incompNeohook, ogden, fung,
+         new FungMaterial(), cubicHyper, yeoh, rawIncomp, vwm, abm,
+         linMat, linMatCorotated };
+      for (FemMaterial mat : cloneMats) {
+         testCloneStorage (mat);
+      }
    }
 
    public static void main (String[] args) {
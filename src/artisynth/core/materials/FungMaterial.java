@@ -729,6 +729,10 @@ public class FungMaterial extends IncompressibleMaterialBase {
    public FungMaterial clone() {
       FungMaterial mat = (FungMaterial)super.clone();
       mat.myB = new SymmetricMatrix3d();
+      mat.myC = new SymmetricMatrix3d();
+      mat.myC2 = new SymmetricMatrix3d();
+      mat.mu = new double[3];
+      mat.lam = new double[3][3];
       return mat;
    }
 
@@ -742,6 +742,8 @@ public class FungOrthotropicMaterial extends IncompressibleMaterialBase {
 
    public FungOrthotropicMaterial clone() {
       FungOrthotropicMaterial mat = (FungOrthotropicMaterial)super.clone();
+      mat.mu = new double[3];
+      mat.lam = new double[3][3];
       return mat;
    }
 
@@ -208,6 +208,7 @@ public abstract class LinearMaterialBase extends FemMaterial {
 
    public LinearMaterialBase clone() {
       LinearMaterialBase mat = (LinearMaterialBase)super.clone();
+      mat.mySVD = null;
       return mat;
    }
 
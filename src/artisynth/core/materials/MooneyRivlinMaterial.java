@@ -475,6 +475,7 @@ public class MooneyRivlinMaterial extends IncompressibleMaterialBase {
       mat.myB = new SymmetricMatrix3d();
       mat.myB2 = new SymmetricMatrix3d();
       mat.myTmp = new SymmetricMatrix3d();
+      mat.myPhiVals = new double[3];
       return mat;
    }
 
@@ -728,6 +728,10 @@ public class OgdenMaterial extends IncompressibleMaterialBase {
    public OgdenMaterial clone() {
       OgdenMaterial mat = (OgdenMaterial)super.clone();
       mat.myB = new SymmetricMatrix3d();
+      mat.myB2 = new SymmetricMatrix3d();
+      mat.myTmp = new SymmetricMatrix3d();
+      mat.myMu = myMu.clone();
+      mat.myAlpha = myAlpha.clone();
       return mat;
    }
 
@@ -0,0 +1,352 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package artisynth.core.mechmodels;
+
+import java.util.List;
+
+import maspack.geometry.PolygonalMesh;
+import maspack.matrix.RigidTransform3d;
+import maspack.matrix.RotationMatrix3d;
+import maspack.matrix.Vector3d;
+import maspack.util.ArraySort;
+import maspack.util.DynamicIntArray;
+
+/**
+ * Broad phase collision culling for a set of {@link CollidableBody}
+ * objects, based on sweep-and-prune (also known as sort-and-sweep) of
+ * world-aligned bounding boxes.
+ *
+ * <p>Each body is assigned a <i>slot</i>, and the slots are sorted along a
+ * sweep axis by the minimum coordinate of their bounding boxes. Because
+ * bodies generally move only a little between time steps, the sorted order
+ * from the previous call is retained and brought up to date with an
+ * insertion sort, which in that case runs in nearly linear time. A full
+ * sort is performed only when the set of bodies changes, or when the
+ * distribution of the bodies makes a different sweep axis substantially
+ * better. Sweeping the sorted boxes then finds all overlapping pairs in
+ * time proportional to the number of bodies plus the number of overlaps
+ * along the sweep axis.
+ *
+ * <p>Bodies are specified each time by calling {@link #clearBodies} followed
+ * by one or more calls to {@link #addBodies}, which also assign an integer
+ * group number to each body. If the bodies and groups are the same as
+ * before, the previous sort order is retained.
+ */
+public class CollisionBroadPhase {
+
+   private static final double INF = Double.POSITIVE_INFINITY;
+
+   // factor by which the spread of box centers along another axis
+   // must exceed that of the current sweep axis before switching axes
+   private static final double AXIS_SWITCH_RATIO = 2.0;
+
+   CollidableBody[] myBodies = new CollidableBody[0];
+   int[] myGroups = new int[0];
+   int myNumBodies = 0;
+   int myLastNumBodies = 0;
+   boolean myBodiesChanged = true;
+
+   // bounding boxes, stored as (x,y,z) triples for each slot
+   double[] myMin = new double[0];
+   double[] myMax = new double[0];
+
+   // slots sorted by minimum box coordinate along the sweep axis
+   int[] myOrder = new int[0];
+   int myAxis = 0;
+
+   int myNumCandidatePairs;
+
+   // temporary storage
+   private Vector3d myLocalMin = new Vector3d();
+   private Vector3d myLocalMax = new Vector3d();
+   private Vector3d myWorldMin = new Vector3d();
+   private Vector3d myWorldMax = new Vector3d();
+
+   /**
+    * Creates a new, empty broad phase.
+    */
+   public CollisionBroadPhase() {
+   }
+
+   /**
+    * Removes the current bodies in preparation for specifying them again
+    * with {@link #addBodies}.
+    */
+   public void clearBodies() {
+      // the previous slots are retained so that addBodies() can detect
+      // changes by comparing against them
+      myLastNumBodies = myNumBodies;
+      myNumBodies = 0;
+   }
+
+   private void ensureCapacity (int cap) {
+      if (myBodies.length < cap) {
+         int newcap = Math.max (cap, 2*myBodies.length);
+         CollidableBody[] bodies = new CollidableBody[newcap];
+         System.arraycopy (myBodies, 0, bodies, 0, myBodies.length);
+         myBodies = bodies;
+         int[] groups = new int[newcap];
+         System.arraycopy (myGroups, 0, groups, 0, myGroups.length);
+         myGroups = groups;
+         myMin = new double[3*newcap];
+         myMax = new double[3*newcap];
+         myOrder = new int[newcap];
+         myBodiesChanged = true;
+      }
+   }
+
+   /**
+    * Appends a list of bodies to the set of bodies being processed.
+    *
+    * @param bodies bodies to add
+    * @param group group number for the added bodies
+    * @return slot index of the first added body
+    */
+   public int addBodies (List<? extends CollidableBody> bodies, int group) {
+      int base = myNumBodies;
+      ensureCapacity (base + bodies.size());
+      for (int i=0; i<bodies.size(); i++) {
+         CollidableBody body = bodies.get(i);
+         int k = base+i;
+         if (myBodies[k] != body || myGroups[k] != group) {
+            myBodies[k] = body;
+            myGroups[k] = group;
+            myBodiesChanged = true;
+         }
+      }
+      myNumBodies = base + bodies.size();
+      return base;
+   }
+
+   /**
+    * Returns the number of bodies currently being processed.
+    *
+    * @return number of bodies
+    */
+   public int numBodies() {
+      return myNumBodies;
+   }
+
+   /**
+    * Returns the body associated with a specific slot.
+    *
+    * @param slot slot index
+    * @return body at the slot
+    */
+   public CollidableBody getBody (int slot) {
+      return myBodies[slot];
+   }
+
+   /**
+    * Returns the group number associated with a specific slot.
+    *
+    * @param slot slot index
+    * @return group number of the slot
+    */
+   public int getGroup (int slot) {
+      return myGroups[slot];
+   }
+
+   /**
+    * Returns the number of overlapping pairs found by the most recent call
+    * to {@link #findOverlappingPairs}.
+    *
+    * @return number of candidate pairs
+    */
+   public int numCandidatePairs() {
+      return myNumCandidatePairs;
+   }
+
+   /**
+    * Returns the index (0, 1 or 2) of the current sweep axis.
+    *
+    * @return current sweep axis
+    */
+   public int getSweepAxis() {
+      return myAxis;
+   }
+
+   /**
+    * Computes the world-aligned bounds of a body's collision mesh.  For
+    * meshes whose vertices are fixed with respect to the mesh coordinate
+    * frame, the bounds are computed by transforming the local bounds, which
+    * avoids having to visit all the vertices each time the body moves, at
+    * the expense of a slightly larger box. Bodies without a collision mesh,
+    * or whose mesh is empty, are given an empty box.
+    */
+   void computeBounds (CollidableBody body, int slot) {
+      PolygonalMesh mesh = body.getCollisionMesh();
+      int k = 3*slot;
+      if (mesh == null || mesh.numVertices() == 0) {
+         myMin[k] = myMin[k+1] = myMin[k+2] = INF;
+         myMax[k] = myMax[k+1] = myMax[k+2] = -INF;
+         return;
+      }
+      if (mesh.isFixed()) {
+         mesh.getLocalBounds (myLocalMin, myLocalMax);
+         RigidTransform3d X = mesh.getMeshToWorld();
+         RotationMatrix3d R = X.R;
+         // center and half widths of the local box
+         double cx = (myLocalMax.x+myLocalMin.x)/2;
+         double cy = (myLocalMax.y+myLocalMin.y)/2;
+         double cz = (myLocalMax.z+myLocalMin.z)/2;
+         double hx = (myLocalMax.x-myLocalMin.x)/2;
+         double hy = (myLocalMax.y-myLocalMin.y)/2;
+         double hz = (myLocalMax.z-myLocalMin.z)/2;
+         double wx = R.m00*cx + R.m01*cy + R.m02*cz + X.p.x;
+         double wy = R.m10*cx + R.m11*cy + R.m12*cz + X.p.y;
+         double wz = R.m20*cx + R.m21*cy + R.m22*cz + X.p.z;
+         double ex =
+            Math.abs(R.m00)*hx + Math.abs(R.m01)*hy + Math.abs(R.m02)*hz;
+         double ey =
+            Math.abs(R.m10)*hx + Math.abs(R.m11)*hy + Math.abs(R.m12)*hz;
+         double ez =
+            Math.abs(R.m20)*hx + Math.abs(R.m21)*hy + Math.abs(R.m22)*hz;
+         myMin[k  ] = wx-ex; myMax[k  ] = wx+ex;
+         myMin[k+1] = wy-ey; myMax[k+1] = wy+ey;
+         myMin[k+2] = wz-ez; myMax[k+2] = wz+ez;
+      }
+      else {
+         mesh.getWorldBounds (myWorldMin, myWorldMax);
+         myMin[k  ] = myWorldMin.x; myMax[k  ] = myWorldMax.x;
+         myMin[k+1] = myWorldMin.y; myMax[k+1] = myWorldMax.y;
+         myMin[k+2] = myWorldMin.z; myMax[k+2] = myWorldMax.z;
+      }
+   }
+
+   /**
+    * Returns the axis along which the box centers have the largest spread,
+    * together with the variances along each axis.
+    */
+   private int bestAxis (double[] var) {
+      double[] sum = new double[3];
+      double[] sumSqr = new double[3];
+      int nvalid = 0;
+      for (int i=0; i<myNumBodies; i++) {
+         int k = 3*i;
+         if (myMin[k] > myMax[k]) {
+            continue; // empty box
+         }
+         for (int j=0; j<3; j++) {
+            double c = (myMin[k+j]+myMax[k+j])/2;
+            sum[j] += c;
+            sumSqr[j] += c*c;
+         }
+         nvalid++;
+      }
+      int best = 0;
+      for (int j=0; j<3; j++) {
+         var[j] = (nvalid > 0 ? sumSqr[j]/nvalid - sqr(sum[j]/nvalid) : 0);
+         if (var[j] > var[best]) {
+            best = j;
+         }
+      }
+      return best;
+   }
+
+   private static double sqr (double x) {
+      return x*x;
+   }
+
+   private void fullSort() {
+      int n = myNumBodies;
+      double[] keys = new double[n];
+      for (int i=0; i<n; i++) {
+         myOrder[i] = i;
+         keys[i] = myMin[3*i+myAxis];
+      }
+      ArraySort.quickSort (keys, myOrder, 0, n-1);
+   }
+
+   private void insertionSort() {
+      int[] order = myOrder;
+      double[] min = myMin;
+      int axis = myAxis;
+      for (int i=1; i<myNumBodies; i++) {
+         int slot = order[i];
+         double key = min[3*slot+axis];
+         int j = i-1;
+         while (j >= 0 && min[3*order[j]+axis] > key) {
+            order[j+1] = order[j];
+            j--;
+         }
+         order[j+1] = slot;
+      }
+   }
+
+   /**
+    * Updates the bounding boxes of all the bodies and brings the sorted
+    * order up to date.
+    */
+   public void update() {
+      for (int i=0; i<myNumBodies; i++) {
+         computeBounds (myBodies[i], i);
+      }
+      double[] var = new double[3];
+      int best = bestAxis (var);
+      if (myNumBodies != myLastNumBodies) {
+         myBodiesChanged = true;
+         myLastNumBodies = myNumBodies;
+      }
+      if (myBodiesChanged) {
+         myAxis = best;
+         fullSort();
+         myBodiesChanged = false;
+      }
+      else if (var[best] > AXIS_SWITCH_RATIO*var[myAxis]) {
+         myAxis = best;
+         fullSort();
+      }
+      else {
+         insertionSort();
+      }
+   }
+
+   /**
+    * Finds all pairs of slots whose bounding boxes overlap, and appends
+    * them to <code>pairs</code> as consecutive entries. {@link #update}
+    * should be called beforehand. The order in which pairs are found
+    * depends on the sort order, so callers that require a specific
+    * processing order should sort the results.
+    *
+    * @param pairs returns the overlapping slot pairs
+    * @return number of pairs found
+    */
+   public int findOverlappingPairs (DynamicIntArray pairs) {
+      int[] order = myOrder;
+      double[] min = myMin;
+      double[] max = myMax;
+      int a0 = myAxis;
+      int a1 = (myAxis+1)%3;
+      int a2 = (myAxis+2)%3;
+      int npairs = 0;
+      for (int i=0; i<myNumBodies; i++) {
+         int si = order[i];
+         int ki = 3*si;
+         double maxi = max[ki+a0];
+         if (min[ki+a0] > maxi) {
+            // empty boxes sort to the end
+            break;
+         }
+         for (int j=i+1; j<myNumBodies; j++) {
+            int sj = order[j];
+            int kj = 3*sj;
+            if (min[kj+a0] > maxi) {
+               break;
+            }
+            if (min[kj+a1] <= max[ki+a1] && min[ki+a1] <= max[kj+a1] &&
+                min[kj+a2] <= max[ki+a2] && min[ki+a2] <= max[kj+a2]) {
+               pairs.add (si);
+               pairs.add (sj);
+               npairs++;
+            }
+         }
+      }
+      myNumCandidatePairs = npairs;
+      return npairs;
+   }
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package artisynth.core.mechmodels;
+
+import java.util.ArrayList;
+
+import maspack.matrix.RigidTransform3d;
+import maspack.util.FunctionTimer;
+import maspack.util.RandomGenerator;
+
+/**
+ * Measures how the time required by {@link CollisionManager#updateConstraints}
+ * scales with the number of bodies in a scene, with and without the
+ * sweep-and-prune broad phase, and optionally with a parallel narrow
+ * phase. Each scene consists of rigid boxes arranged on a cubic lattice,
+ * with each box jittered randomly between updates so that a small fraction
+ * of neighboring boxes are in contact.
+ */
+public class CollisionBroadPhaseTiming {
+
+   static int myMaxBodies = 1600; // largest number of bodies to time
+   static int myCnt = 20;         // number of timed updates per scene
+   static int myThreads = 1;      // number of narrow phase threads
+
+   static final double SPACING = 1.0;
+   static final double WIDTH = 0.9;
+   static final double JITTER = 0.06;
+
+   static MechModel createScene (int nbodies) {
+      MechModel mech = new MechModel ("mech");
+      int res = (int)Math.ceil (Math.cbrt (nbodies));
+      for (int k=0; k<nbodies; k++) {
+         RigidBody body = RigidBody.createBox (
+            "box"+k, WIDTH, WIDTH, WIDTH, /*density=*/1000);
+         body.setPose (new RigidTransform3d (
+            SPACING*(k%res), SPACING*((k/res)%res), SPACING*(k/(res*res))));
+         mech.addRigidBody (body);
+      }
+      mech.setDefaultCollisionBehavior (true, /*mu=*/0.2);
+      return mech;
+   }
+
+   static void jitter (MechModel mech, ArrayList<RigidTransform3d> poses) {
+      for (int k=0; k<mech.rigidBodies().size(); k++) {
+         RigidTransform3d X = new RigidTransform3d (poses.get(k));
+         X.p.x += RandomGenerator.nextDouble (-JITTER, JITTER);
+         X.p.y += RandomGenerator.nextDouble (-JITTER, JITTER);
+         X.p.z += RandomGenerator.nextDouble (-JITTER, JITTER);
+         mech.rigidBodies().get(k).setPose (X);
+      }
+   }
+
+   static String timeUpdates (
+      MechModel mech, ArrayList<RigidTransform3d> poses,
+      boolean broadPhase, int nthreads) {
+
+      CollisionManager cm = mech.getCollisionManager();
+      cm.setBroadPhase (broadPhase);
+      cm.setNarrowPhaseThreads (nthreads);
+      FunctionTimer timer = new FunctionTimer();
+      RandomGenerator.setSeed (0x1234);
+      // warm up
+      for (int i=0; i<myCnt/2; i++) {
+         jitter (mech, poses);
+         cm.updateConstraints (0, /*flags=*/0);
+      }
+      int ncontacts = 0;
+      for (int i=0; i<myCnt; i++) {
+         jitter (mech, poses);
+         timer.restart();
+         cm.updateConstraints (0, /*flags=*/0);
+         timer.stop();
+         for (CollisionHandler ch : cm.getHandlers()) {
+            ncontacts += ch.numUnilateralConstraints();
+         }
+      }
+      return timer.result (myCnt) + " (contacts=" + ncontacts/myCnt + ")";
+   }
+
+   public static void main (String[] args) {
+      for (int i=0; i<args.length; i++) {
+         if (args[i].equals ("-maxBodies") && i<args.length-1) {
+            myMaxBodies = Integer.parseInt (args[++i]);
+         }
+         else if (args[i].equals ("-cnt") && i<args.length-1) {
+            myCnt = Integer.parseInt (args[++i]);
+         }
+         else if (args[i].equals ("-threads") && i<args.length-1) {
+            myThreads = Integer.parseInt (args[++i]);
+         }
+         else {
+            System.out.println (
+               "Usage: java "+CollisionBroadPhaseTiming.class.getName() +
+               " [-maxBodies <n>] [-cnt <n>] [-threads <n>]");
+            System.exit (1);
+         }
+      }
+      for (int nbodies=50; nbodies<=myMaxBodies; nbodies*=2) {
+         MechModel mech = createScene (nbodies);
+         ArrayList<RigidTransform3d> poses = new ArrayList<>();
+         for (RigidBody body : mech.rigidBodies()) {
+            poses.add (new RigidTransform3d (body.getPose()));
+         }
+         System.out.println ("bodies=" + nbodies + ":");
+         System.out.println (
+            "  all pairs:   " + timeUpdates (mech, poses, false, 1));
+         System.out.println (
+            "  broad phase: " + timeUpdates (mech, poses, true, 1));
+         if (myThreads > 1) {
+            System.out.println (
+               "  broad phase, narrow phase threads=" + myThreads + ": " +
+               timeUpdates (mech, poses, true, myThreads));
+         }
+         mech.getCollisionManager().dispose();
+      }
+   }
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package artisynth.core.mechmodels;
+
+import java.util.ArrayList;
+
+import artisynth.core.femmodels.FemFactory;
+import artisynth.core.femmodels.FemModel3d;
+import maspack.matrix.RigidTransform3d;
+import maspack.matrix.SparseBlockMatrix;
+import maspack.matrix.VectorNd;
+import maspack.util.RandomGenerator;
+import maspack.util.TestException;
+import maspack.util.UnitTest;
+
+/**
+ * Tests the contacts found by CollisionManager, checking that alternative
+ * ways of detecting collisions give the same contacts and constraints.
+ */
+public class CollisionContactTest extends UnitTest {
+
+   static final double SPACING = 1.0;
+   static final double WIDTH = 0.9;
+   static final double JITTER = 0.06;
+   static final int RES = 4;
+
+   /**
+    * Creates a lattice of rigid boxes, together with a FEM block that
+    * overlaps the boxes in one corner.
+    */
+   MechModel createScene () {
+      MechModel mech = new MechModel ("mech");
+      int nbodies = RES*RES*2;
+      for (int k=0; k<nbodies; k++) {
+         RigidBody body = RigidBody.createBox (
+            "box"+k, WIDTH, WIDTH, WIDTH, /*density=*/1000);
+         body.setPose (new RigidTransform3d (
+            SPACING*(k%RES), SPACING*((k/RES)%RES), SPACING*(k/(RES*RES))));
+         mech.addRigidBody (body);
+      }
+      FemModel3d fem =
+         FemFactory.createHexGrid (null, 1.2, 1.2, 0.4, 3, 3, 1);
+      fem.setName ("fem");
+      fem.transformGeometry (new RigidTransform3d (0.5, 0.5, -0.6));
+      mech.addModel (fem);
+      mech.setDefaultCollisionBehavior (true, /*mu=*/0.2);
+      return mech;
+   }
+
+   /**
+    * Randomly moves each box away from its lattice position, so that a
+    * fraction of the neighboring boxes are in contact.
+    */
+   void jitter (MechModel mech, ArrayList<RigidTransform3d> poses) {
+      for (int k=0; k<mech.rigidBodies().size(); k++) {
+         RigidTransform3d X = new RigidTransform3d (poses.get(k));
+         X.p.x += RandomGenerator.nextDouble (-JITTER, JITTER);
+         X.p.y += RandomGenerator.nextDouble (-JITTER, JITTER);
+         X.p.z += RandomGenerator.nextDouble (-JITTER, JITTER);
+         mech.rigidBodies().get(k).setPose (X);
+      }
+   }
+
+   /**
+    * Contacts and constraints found by one collision update.
+    */
+   static class ContactResults {
+      ArrayList<String> pairs = new ArrayList<>();
+      int numUnilateral;
+      SparseBlockMatrix NT;
+      VectorNd dn;
+      SparseBlockMatrix GT;
+      VectorNd dg;
+   }
+
+   ContactResults collectResults (MechModel mech) {
+      ContactResults res = new ContactResults();
+      CollisionManager cm = mech.getCollisionManager();
+      for (CollisionHandler ch : cm.getHandlers()) {
+         res.pairs.add (
+            ch.getCollidablePair().toString (mech) + " " +
+            ch.numUnilateralConstraints() + " " +
+            ch.numBilateralConstraints());
+         res.numUnilateral += ch.numUnilateralConstraints();
+      }
+      mech.updateDynamicComponentLists();
+      res.NT = new SparseBlockMatrix ();
+      res.dn = new VectorNd ();
+      mech.getUnilateralConstraints (res.NT, res.dn);
+      res.GT = new SparseBlockMatrix ();
+      res.dg = new VectorNd ();
+      mech.getBilateralConstraints (res.GT, res.dg);
+      return res;
+   }
+
+   void checkResults (
+      String msg, ContactResults res, ContactResults chk) {
+      checkEquals (msg+" handlers", res.pairs, chk.pairs);
+      checkEquals (msg+" NT", res.NT, chk.NT, 0);
+      checkEquals (msg+" dn", res.dn, chk.dn, 0);
+      checkEquals (msg+" GT", res.GT, chk.GT, 0);
+      checkEquals (msg+" dg", res.dg, chk.dg, 0);
+   }
+
+   /**
+    * Updates the contacts of two identical scenes over a sequence of
+    * random poses, using different collision settings for each, and
+    * checks that the resulting contacts and constraints are identical.
+    * Returns the total number of unilateral contact constraints found.
+    */
+   int compareContacts (
+      String msg, boolean broadPhase0, int nthreads0,
+      boolean broadPhase1, int nthreads1) {
+
+      MechModel mech0 = createScene();
+      MechModel mech1 = createScene();
+      CollisionManager cm0 = mech0.getCollisionManager();
+      CollisionManager cm1 = mech1.getCollisionManager();
+      cm0.setBroadPhase (broadPhase0);
+      cm0.setNarrowPhaseThreads (nthreads0);
+      cm1.setBroadPhase (broadPhase1);
+      cm1.setNarrowPhaseThreads (nthreads1);
+      ArrayList<RigidTransform3d> poses = new ArrayList<>();
+      for (RigidBody body : mech0.rigidBodies()) {
+         poses.add (new RigidTransform3d (body.getPose()));
+      }
+      int ncontacts = 0;
+      for (int i=0; i<10; i++) {
+         RandomGenerator.setSeed (0x1234+i);
+         jitter (mech0, poses);
+         RandomGenerator.setSeed (0x1234+i);
+         jitter (mech1, poses);
+         cm0.updateConstraints (0, /*flags=*/0);
+         cm1.updateConstraints (0, /*flags=*/0);
+         ContactResults res0 = collectResults (mech0);
+         ContactResults res1 = collectResults (mech1);
+         checkResults (msg+", step "+i, res1, res0);
+         ncontacts += res0.numUnilateral;
+      }
+      cm0.dispose();
+      cm1.dispose();
+      return ncontacts;
+   }
+
+   /**
+    * Checks that the broad phase finds the same contacts as explicitly
+    * checking all pairs of bodies.
+    */
+   void testBroadPhase() {
+      int ncontacts = compareContacts ("broad phase", false, 1, true, 1);
+      if (ncontacts == 0) {
+         throw new TestException ("no contacts found");
+      }
+   }
+
+   /**
+    * Checks that computing contacts with a parallel narrow phase gives the
+    * same contacts, with the same constraint ordering, as computing them
+    * serially.
+    */
+   void testParallelNarrowPhase() {
+      int minPairs = CollisionManager.minParallelNarrowPhasePairs;
+      CollisionManager.minParallelNarrowPhasePairs = 2;
+      try {
+         compareContacts ("parallel narrow phase", true, 1, true, 4);
+         compareContacts (
+            "parallel narrow phase, all pairs", false, 1, false, 3);
+      }
+      finally {
+         CollisionManager.minParallelNarrowPhasePairs = minPairs;
+      }
+   }
+
+   public void test() {
+      testBroadPhase();
+      testParallelNarrowPhase();
+   }
+
+   public static void main (String[] args) {
+      CollisionContactTest tester = new CollisionContactTest();
+      tester.runtest();
+   }
+}
@@ -3,6 +3,7 @@ package artisynth.core.mechmodels;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Deque;
@@ -11,6 +12,7 @@ import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import maspack.collision.AbstractCollider;
 import maspack.collision.ContactInfo;
@@ -18,6 +20,7 @@ import maspack.collision.MeshCollider;
 import maspack.collision.SurfaceMeshIntersector;
 import maspack.collision.SurfaceMeshIntersector.RegionType;
 import maspack.collision.SignedDistanceCollider;
+import maspack.concurrency.ParallelLoop;
 import maspack.geometry.PolygonalMesh;
 import maspack.geometry.DistanceGrid;
 import maspack.matrix.SparseBlockMatrix;
@@ -37,6 +40,8 @@ import maspack.render.Renderer.ColorInterpolation;
 import maspack.render.color.ColorMapBase;
 import maspack.render.color.HueColorMap;
 import maspack.util.DataBuffer;
+import maspack.util.Disposable;
+import maspack.util.DynamicIntArray;
 import maspack.util.InternalErrorException;
 import maspack.util.NumberFormat;
 import maspack.util.ReaderTokenizer;
@@ -61,6 +66,7 @@ import artisynth.core.modelbase.ModelComponent;
 import artisynth.core.modelbase.ModelComponentBase;
 import artisynth.core.modelbase.RenderableCompositeBase;
 import artisynth.core.modelbase.StructureChangeEvent;
+import artisynth.core.modelbase.StepProfiler;
 import artisynth.core.util.ScalableUnits;
 import artisynth.core.util.ScalarRange;
 import artisynth.core.util.ScanToken;
@@ -126,7 +132,7 @@ import artisynth.core.util.ScanToken;
  * pairs of leaf-nodes located at or below A and B.
  */
 public class CollisionManager extends RenderableCompositeBase
-   implements ScalableUnits, Constrainer, HasNumericState {
+   implements ScalableUnits, Constrainer, HasNumericState, Disposable {
 
    // Current assumptions:
    //
@@ -166,9 +172,39 @@ public class CollisionManager extends RenderableCompositeBase
 
    AbstractCollider myCollider = null;
 
-   SurfaceMeshIntersector myAjlIntersector = null;
-   SignedDistanceCollider mySDCollider = null;
-   MeshCollider myTriTriCollider = null;
+   /**
+    * Colliders used to compute contact information. Colliders keep internal
+    * working storage, so each thread that computes contacts concurrently
+    * uses its own set.
+    */
+   static class ColliderSet {
+      SurfaceMeshIntersector ajlIntersector = null;
+      SignedDistanceCollider sdCollider = null;
+      MeshCollider triTriCollider = null;
+   }
+
+   /**
+    * Pair of bodies for which contact information is to be computed by the
+    * parallel narrow phase, together with the resulting information.
+    */
+   static class ContactRequest {
+      CollidableBody c0;
+      CollidableBody c1;
+      CollisionBehavior behav;
+      BehaviorSource src;
+      ContactInfo cinfo;
+
+      ContactRequest (
+         CollidableBody c0, CollidableBody c1,
+         CollisionBehavior behav, BehaviorSource src) {
+         this.c0 = c0;
+         this.c1 = c1;
+         this.behav = behav;
+         this.src = src;
+      }
+   }
+
+   ColliderSet mySerialColliders = new ColliderSet();
 
    double myMaxpen; // accumulates maximum penetration 
 
@@ -341,6 +377,26 @@ public class CollisionManager extends RenderableCompositeBase
 
    static double DEFAULT_CONTACT_FORCE_LEN_SCALE = 1.0;
    private double myContactForceLenScale = DEFAULT_CONTACT_FORCE_LEN_SCALE;
+
+   static int DEFAULT_NARROW_PHASE_THREADS = 1;
+   private int myNarrowPhaseThreads = DEFAULT_NARROW_PHASE_THREADS;
+   // minimum number of pairs required for the parallel narrow phase
+   public static int minParallelNarrowPhasePairs = 2;
+   // colliders and thread loop used for the parallel narrow phase
+   ColliderSet[] myThreadColliders;
+   ParallelLoop myNarrowPhaseLoop;
+   // pairs collected for the parallel narrow phase
+   ArrayList<ContactRequest> myContactRequests = new ArrayList<>();
+   boolean myCollectingContactRequests = false;
+
+   static boolean DEFAULT_BROAD_PHASE = true;
+   private boolean myBroadPhaseP = DEFAULT_BROAD_PHASE;
+
+   // broad phase used to cull external collision pairs, and associated
+   // storage for the candidate pairs
+   CollisionBroadPhase myBroadPhase;
+   DynamicIntArray myBroadPhasePairs;
+   long[] myBroadPhaseKeys = new long[0];
    
    // Estimate of the radius of the set of collidable objects.
    // Used for computing default tolerances.
@@ -487,6 +543,14 @@ public class CollisionManager extends RenderableCompositeBase
          "contactForceLenScale",
          "length scale to be used when drawing contact forces",
          DEFAULT_CONTACT_FORCE_LEN_SCALE);
+      myProps.add (
+         "broadPhase",
+         "use a sweep-and-prune broad phase to cull external collision pairs",
+         DEFAULT_BROAD_PHASE);
+      myProps.add (
+         "narrowPhaseThreads",
+         "number of threads used to compute contact information",
+         DEFAULT_NARROW_PHASE_THREADS, "[1,inf]");
       myProps.addInheritable (
          "drawColorMap:Inherited", 
          "draw a color map of the specified data",
@@ -691,6 +755,86 @@ public class CollisionManager extends RenderableCompositeBase
     public double getContactForceLenScale() {
       return myContactForceLenScale;
    }
+
+   /**
+    * Queries whether a broad phase is used to cull external collision
+    * pairs. See {@link #setBroadPhase}.
+    *
+    * @return {@code true} if the broad phase is enabled
+    */
+   public boolean getBroadPhase() {
+      return myBroadPhaseP;
+   }
+
+   /**
+    * Sets whether a broad phase is used to cull external collision
+    * pairs. When enabled, the world-aligned bounding boxes of all externally
+    * collidable bodies are sorted and swept once per time step, and
+    * behaviors are determined and contact is checked only for bodies whose
+    * boxes overlap. Otherwise, every pair of bodies is checked explicitly.
+    * Both approaches find the same contacts, but the broad phase is
+    * considerably faster when there are many bodies that are not in
+    * contact. The default value is {@code true}.
+    *
+    * @param enable if {@code true}, enables the broad phase
+    */
+   public void setBroadPhase (boolean enable) {
+      myBroadPhaseP = enable;
+   }
+
+   /**
+    * Returns the number of threads used to compute contact information.
+    * See {@link #setNarrowPhaseThreads}.
+    *
+    * @return number of narrow phase threads
+    */
+   public int getNarrowPhaseThreads() {
+      return myNarrowPhaseThreads;
+   }
+
+   /**
+    * Sets the number of threads used to compute contact information for
+    * colliding pairs. The default value is 1, which causes the contact
+    * information to be computed serially, as each pair is checked. For
+    * larger values, the pairs are first collected, their contact
+    * information is then computed concurrently, and the collision handlers
+    * are finally updated serially in the order in which the pairs were
+    * collected. Since the contact information for each pair does not depend
+    * on the other pairs, the results are identical to those of the serial
+    * computation, regardless of the number of threads.
+    *
+    * <p>The parallel computation is not used if there are fewer than {@link
+    * #minParallelNarrowPhasePairs} pairs to check.
+    *
+    * @param nthreads number of narrow phase threads
+    */
+   public void setNarrowPhaseThreads (int nthreads) {
+      if (nthreads < 1) {
+         nthreads = 1;
+      }
+      if (nthreads != myNarrowPhaseThreads) {
+         myNarrowPhaseThreads = nthreads;
+         disposeNarrowPhaseThreads();
+      }
+   }
+
+   /**
+    * Releases threads and colliders used for the parallel narrow phase.
+    */
+   protected void disposeNarrowPhaseThreads() {
+      if (myNarrowPhaseLoop != null) {
+         myNarrowPhaseLoop.dispose();
+         myNarrowPhaseLoop = null;
+      }
+      myThreadColliders = null;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void dispose() {
+      disposeNarrowPhaseThreads();
+   }
     
    /** 
     * Gets the Coulomb friction coefficient
@@ -2565,6 +2709,12 @@ public class CollisionManager extends RenderableCompositeBase
 
    ContactInfo computeContactInfo (
       CollidableBody c0, CollidableBody c1, CollisionBehavior behav) {
+      return computeContactInfo (c0, c1, behav, mySerialColliders);
+   }
+
+   ContactInfo computeContactInfo (
+      CollidableBody c0, CollidableBody c1, CollisionBehavior behav,
+      ColliderSet colliders) {
 
       PolygonalMesh mesh0 = c0.getCollisionMesh();
       PolygonalMesh mesh1 = c1.getCollisionMesh();
@@ -2582,8 +2732,8 @@ public class CollisionManager extends RenderableCompositeBase
       //timer.start();
       switch (colliderType) {
          case AJL_CONTOUR: {
-            if (myAjlIntersector == null) {
-               myAjlIntersector = new SurfaceMeshIntersector();
+            if (colliders.ajlIntersector == null) {
+               colliders.ajlIntersector = new SurfaceMeshIntersector();
             }
             // types of regions that we need to compute for mesh0 and mesh1
             RegionType regions0 = RegionType.INSIDE;
@@ -2603,24 +2753,24 @@ public class CollisionManager extends RenderableCompositeBase
                   regions1 = RegionType.NONE;
                }
             }
-            cinfo = myAjlIntersector.findContoursAndRegions (
+            cinfo = colliders.ajlIntersector.findContoursAndRegions (
                mesh0, regions0, mesh1, regions1);
             break;
          }
          case TRI_INTERSECTION: {
-            if (myTriTriCollider == null) {
-               myTriTriCollider = new MeshCollider();
+            if (colliders.triTriCollider == null) {
+               colliders.triTriCollider = new MeshCollider();
             }
-            cinfo = myTriTriCollider.getContacts (mesh0, mesh1);
+            cinfo = colliders.triTriCollider.getContacts (mesh0, mesh1);
             break;
          }
          case SIGNED_DISTANCE: {
-            if (mySDCollider == null) {
-               mySDCollider = new SignedDistanceCollider();
+            if (colliders.sdCollider == null) {
+               colliders.sdCollider = new SignedDistanceCollider();
             }
             DistanceGridComp gcomp0 = c0.getDistanceGridComp();
             DistanceGridComp gcomp1 = c1.getDistanceGridComp();
-            cinfo = mySDCollider.getContacts (
+            cinfo = colliders.sdCollider.getContacts (
                mesh0, gcomp0 != null ? gcomp0.getGrid() : null,
                mesh1, gcomp1 != null ? gcomp1.getGrid() : null);
             break;
@@ -2645,6 +2795,11 @@ public class CollisionManager extends RenderableCompositeBase
          // swap the collidable references to match the behavior
          CollidableBody tmp = c0; c0 = c1; c1 = tmp;
       }
+      if (myCollectingContactRequests && !testMode) {
+         // contact information will be computed by the parallel narrow phase
+         myContactRequests.add (new ContactRequest (c0, c1, behav, src));
+         return;
+      }
       ContactInfo cinfo;
       if (testMode) {
          cinfo = new ContactInfo (c0.getCollisionMesh(), c1.getCollisionMesh());
@@ -2751,6 +2906,252 @@ public class CollisionManager extends RenderableCompositeBase
       }
    }
 
+   // Broad phase pair keys encode the pass of the original pair checking
+   // order (bits 42 and up), and the indices of the two bodies within the
+   // lists for that pass (bits 21-41 and 0-20). Sorting the keys therefore
+   // reproduces the order in which pairs are checked without the broad
+   // phase, so that handlers are created in the same order.
+   private static final int KEY_IDX_BITS = 21;
+   private static final long KEY_IDX_MASK = (1L << KEY_IDX_BITS) - 1;
+
+   // passes for the self and deformable/rigid checks of this manager. The
+   // internal collision checks (pass 3) are done directly, and passes for
+   // collisions between sub models start at 4.
+   private static final int PASS_RIGID_RIGID = 0;
+   private static final int PASS_DEFORMABLE_RIGID = 1;
+   private static final int PASS_DEFORMABLE_DEFORMABLE = 2;
+   private static final int PASS_INTERNAL = 3;
+   private static final int PASS_SUBMODELS = 4;
+
+   private static long pairKey (int pass, int i, int j) {
+      return ((long)pass << 2*KEY_IDX_BITS) | ((long)i << KEY_IDX_BITS) | j;
+   }
+
+   /**
+    * Returns the external body list associated with a broad phase group.
+    * Group 2*k contains the rigid bodies of the k-th sub model (with k = 0
+    * denoting this manager's model) and group 2*k+1 contains the deformable
+    * bodies.
+    */
+   private ArrayList<CollidableBody> getGroupBodies (
+      ArrayList<MechModel> subMechs, int group) {
+      CollisionManager cm = subMechs.get(group/2).getCollisionManager();
+      return (group%2 == 0 ? cm.myRigidExts : cm.myDeformableExts);
+   }
+
+   /**
+    * Performs the same external collision checks as the {@code
+    * checkExternalCollisions} calls made by {@link #updateConstraints}, along
+    * with the internal checks for this manager, but uses a sweep-and-prune
+    * broad phase so that behaviors are determined and contact is checked only
+    * for bodies whose bounding boxes overlap. Pairs are processed in the same
+    * order as they would be without the broad phase.
+    */
+   void checkExternalCollisionsWithBroadPhase (ArrayList<MechModel> subMechs) {
+      if (myBroadPhase == null) {
+         myBroadPhase = new CollisionBroadPhase();
+         myBroadPhasePairs = new DynamicIntArray();
+      }
+      int numMechs = subMechs.size();
+      int[] groupBase = new int[2*numMechs];
+      myBroadPhase.clearBodies();
+      for (int g=0; g<2*numMechs; g++) {
+         ArrayList<CollidableBody> bodies = getGroupBodies (subMechs, g);
+         if (bodies.size() > KEY_IDX_MASK) {
+            throw new UnsupportedOperationException (
+               "Number of collidable bodies exceeds "+KEY_IDX_MASK);
+         }
+         groupBase[g] = myBroadPhase.addBodies (bodies, g);
+      }
+      myBroadPhase.update();
+      myBroadPhasePairs.clear();
+      int npairs = myBroadPhase.findOverlappingPairs (myBroadPhasePairs);
+
+      // convert the slot pairs into sorted keys
+      if (myBroadPhaseKeys.length < npairs) {
+         myBroadPhaseKeys =
+            new long[Math.max (npairs, 2*myBroadPhaseKeys.length)];
+      }
+      long[] keys = myBroadPhaseKeys;
+      int[] slots = myBroadPhasePairs.getArray();
+      int nkeys = 0;
+      for (int k=0; k<npairs; k++) {
+         int sa = slots[2*k];
+         int sb = slots[2*k+1];
+         int ga = myBroadPhase.getGroup (sa);
+         int gb = myBroadPhase.getGroup (sb);
+         if (ga > gb || (ga == gb && sa > sb)) {
+            int tmp = sa; sa = sb; sb = tmp;
+            tmp = ga; ga = gb; gb = tmp;
+         }
+         int ia = sa - groupBase[ga];
+         int ib = sb - groupBase[gb];
+         int ma = ga/2;
+         int mb = gb/2;
+         long key;
+         if (ma == mb) {
+            if (ma != 0) {
+               // pairs within a sub model are handled by its own manager
+               continue;
+            }
+            else if (ga != gb) {
+               // deformable bodies are listed first for this pass
+               key = pairKey (PASS_DEFORMABLE_RIGID, ib, ia);
+            }
+            else if (ga == 0) {
+               key = pairKey (PASS_RIGID_RIGID, ia, ib);
+            }
+            else {
+               key = pairKey (PASS_DEFORMABLE_DEFORMABLE, ia, ib);
+            }
+         }
+         else {
+            int pass =
+               PASS_SUBMODELS + 4*(ma*numMechs+mb) + 2*(ga%2) + (gb%2);
+            key = pairKey (pass, ia, ib);
+         }
+         keys[nkeys++] = key;
+      }
+      Arrays.sort (keys, 0, nkeys);
+
+      boolean internalChecked = false;
+      for (int k=0; k<nkeys; k++) {
+         long key = keys[k];
+         int pass = (int)(key >>> 2*KEY_IDX_BITS);
+         int i = (int)((key >>> KEY_IDX_BITS) & KEY_IDX_MASK);
+         int j = (int)(key & KEY_IDX_MASK);
+         if (!internalChecked && pass > PASS_INTERNAL) {
+            checkInternalCollisions (myDeformableInts, false);
+            internalChecked = true;
+         }
+         CollidableBody ci;
+         CollidableBody cj;
+         boolean selfPass = false;
+         switch (pass) {
+            case PASS_RIGID_RIGID: {
+               ci = myRigidExts.get(i);
+               cj = myRigidExts.get(j);
+               selfPass = true;
+               break;
+            }
+            case PASS_DEFORMABLE_RIGID: {
+               ci = myDeformableExts.get(i);
+               cj = myRigidExts.get(j);
+               break;
+            }
+            case PASS_DEFORMABLE_DEFORMABLE: {
+               ci = myDeformableExts.get(i);
+               cj = myDeformableExts.get(j);
+               selfPass = true;
+               break;
+            }
+            default: {
+               int p = pass-PASS_SUBMODELS;
+               int ma = (p/4)/numMechs;
+               int mb = (p/4)%numMechs;
+               ci = getGroupBodies (subMechs, 2*ma+(p/2)%2).get(i);
+               cj = getGroupBodies (subMechs, 2*mb+p%2).get(j);
+               break;
+            }
+         }
+         if (getExplicitBehavior (ci, cj) == null &&
+             (!selfPass || nearestCommonCollidableAncestor (ci, cj) == null)) {
+            CollisionBehavior behav = getExternalBehavior (ci, cj);
+            if (behav.isEnabled()) {
+               checkForContact (
+                  ci, cj, behav, BehaviorSource.EXTERNAL, false);
+            }
+         }
+      }
+      if (!internalChecked) {
+         checkInternalCollisions (myDeformableInts, false);
+      }
+   }
+
+   /**
+    * Brings up to date the cached quantities of a body's collision mesh
+    * that the colliders would otherwise compute on demand, such as face
+    * normals, bounds, closedness, the bounding volume hierarchy and the
+    * signed distance grid. This allows the colliders to be used
+    * concurrently on different pairs that share the same body.
+    */
+   private void prepareForContact (
+      CollidableBody c, CollisionBehavior behav) {
+      PolygonalMesh mesh = c.getCollisionMesh();
+      if (mesh != null) {
+         mesh.updateFaceNormals();
+         mesh.isTriangular();
+         // the intersector queries this, and recomputing it resets the
+         // topology flags before setting them again
+         mesh.isClosed();
+         mesh.getLocalBounds (null, null);
+         mesh.getWorldBounds (null, null);
+         mesh.getRadius();
+         mesh.getBVTree();
+      }
+      if (behav.getColliderType() == ColliderType.SIGNED_DISTANCE) {
+         DistanceGridComp gcomp = c.getDistanceGridComp();
+         if (gcomp != null) {
+            gcomp.getGrid();
+         }
+      }
+   }
+
+   /**
+    * Computes the contact information for all pairs collected while
+    * {@code myCollectingContactRequests} was set, using multiple threads,
+    * and then adds or updates the handlers for the pairs in the order in
+    * which they were collected.
+    */
+   void processContactRequests() {
+      final ArrayList<ContactRequest> reqs = myContactRequests;
+      final int nreqs = reqs.size();
+      if (nreqs < minParallelNarrowPhasePairs) {
+         for (int k=0; k<nreqs; k++) {
+            ContactRequest req = reqs.get(k);
+            req.cinfo = computeContactInfo (req.c0, req.c1, req.behav);
+         }
+      }
+      else {
+         for (int k=0; k<nreqs; k++) {
+            ContactRequest req = reqs.get(k);
+            prepareForContact (req.c0, req.behav);
+            prepareForContact (req.c1, req.behav);
+         }
+         int nthreads = myNarrowPhaseThreads;
+         if (myNarrowPhaseLoop == null) {
+            myNarrowPhaseLoop = new ParallelLoop ("narrowPhase", nthreads);
+            myThreadColliders = new ColliderSet[nthreads];
+            for (int i=0; i<nthreads; i++) {
+               myThreadColliders[i] = new ColliderSet();
+            }
+         }
+         // pair costs vary widely, so each thread takes the next
+         // unprocessed pair rather than a fixed range of pairs
+         final AtomicInteger nextReq = new AtomicInteger();
+         myNarrowPhaseLoop.run (
+            nthreads, new ParallelLoop.RangeTask() {
+               public void run (int tidx, int lo, int hi) {
+                  ColliderSet colliders = myThreadColliders[tidx];
+                  int k;
+                  while ((k = nextReq.getAndIncrement()) < nreqs) {
+                     ContactRequest req = reqs.get(k);
+                     req.cinfo = computeContactInfo (
+                        req.c0, req.c1, req.behav, colliders);
+                  }
+               }
+            });
+      }
+      // merge the results serially, in collection order
+      for (int k=0; k<nreqs; k++) {
+         ContactRequest req = reqs.get(k);
+         if (req.cinfo != null) {
+            addOrUpdateHandler (req.cinfo, req.c0, req.c1, req.behav, req.src);
+         }
+      }
+      reqs.clear();
+   }
+
    private void addOrUpdateHandler (
       ContactInfo cinfo, CollidableBody c0, CollidableBody c1,
       CollisionBehavior behav, BehaviorSource src) {
@@ -2974,8 +3375,15 @@ public class CollisionManager extends RenderableCompositeBase
          return myHandlers.size() == 0 ? -1 : 0;
       }
 
+      StepProfiler prof = StepProfiler.getCurrent();
+      if (prof != null) {
+         prof.begin (StepProfiler.Phase.COLLISION);
+      }
       myHandlers.clear();
       double maxpen = updateConstraints (myHandlers, t, flags);
+      if (prof != null) {
+         prof.end (StepProfiler.Phase.COLLISION);
+      }
       return myHandlers.size() == 0 ? -1 : maxpen;
    }
    
@@ -3012,6 +3420,11 @@ public class CollisionManager extends RenderableCompositeBase
       myHandlerTable.saveLastConstraintData();
       //myHandlerTable.setHandlerActivity (false);
 
+      // if the narrow phase is parallel, pairs are collected and their
+      // contact information is computed by processContactRequests()
+      myCollectingContactRequests = (!testMode && myNarrowPhaseThreads > 1);
+      myContactRequests.clear();
+
       // compute explicit collisions
       for (Map.Entry<CollidablePair,CollisionBehavior> e :
               myExplicitBehaviors.entrySet()) {
@@ -3025,28 +3438,39 @@ public class CollisionManager extends RenderableCompositeBase
       }
       // compute implicit collisions
 
-      checkExternalCollisions (myRigidExts, testMode);
-      checkExternalCollisions (myDeformableExts, myRigidExts, testMode);
-      checkExternalCollisions (myDeformableExts, testMode);
-      checkInternalCollisions (myDeformableInts, testMode);
-
-      for (int i=0; i<subMechs.size(); i++) {
-         CollisionManager cmi = null;
-         cmi = subMechs.get(i).getCollisionManager();
-         for (int j=i+1; j<subMechs.size(); j++) {
-            CollisionManager cmj = null;
-            cmj = subMechs.get(j).getCollisionManager();
-            
-            checkExternalCollisions (
-               cmi.myRigidExts, cmj.myRigidExts, testMode);
-            checkExternalCollisions (
-               cmi.myRigidExts, cmj.myDeformableExts, testMode);
-            checkExternalCollisions (
-               cmi.myDeformableExts, cmj.myRigidExts, testMode);
-            checkExternalCollisions (
-               cmi.myDeformableExts, cmj.myDeformableExts, testMode);
+      if (myBroadPhaseP && !testMode) {
+         // test mode requires handlers for every pair, so the broad phase
+         // is used only when not in test mode
+         checkExternalCollisionsWithBroadPhase (subMechs);
+      }
+      else {
+         checkExternalCollisions (myRigidExts, testMode);
+         checkExternalCollisions (myDeformableExts, myRigidExts, testMode);
+         checkExternalCollisions (myDeformableExts, testMode);
+         checkInternalCollisions (myDeformableInts, testMode);
+
+         for (int i=0; i<subMechs.size(); i++) {
+            CollisionManager cmi = null;
+            cmi = subMechs.get(i).getCollisionManager();
+            for (int j=i+1; j<subMechs.size(); j++) {
+               CollisionManager cmj = null;
+               cmj = subMechs.get(j).getCollisionManager();
+
+               checkExternalCollisions (
+                  cmi.myRigidExts, cmj.myRigidExts, testMode);
+               checkExternalCollisions (
+                  cmi.myRigidExts, cmj.myDeformableExts, testMode);
+               checkExternalCollisions (
+                  cmi.myDeformableExts, cmj.myRigidExts, testMode);
+               checkExternalCollisions (
+                  cmi.myDeformableExts, cmj.myDeformableExts, testMode);
+            }
          }
       }
+      if (myCollectingContactRequests) {
+         myCollectingContactRequests = false;
+         processContactRequests();
+      }
 
       myHandlerTable.removeInactiveHandlers();
       myHandlerTable.collectHandlers (handlers);
@@ -75,6 +75,9 @@ public class DistanceGridComp extends GridCompBase {
    static boolean DEFAULT_FIT_WITH_OBB = false;
    boolean myFitWithOBB = DEFAULT_FIT_WITH_OBB;
 
+   static boolean DEFAULT_SPARSE = false;
+   boolean mySparseP = DEFAULT_SPARSE;
+
    static double DEFAULT_MARGIN_FRACTION = 0.1;
    double myMarginFraction = DEFAULT_MARGIN_FRACTION;
 
@@ -106,6 +109,10 @@ public class DistanceGridComp extends GridCompBase {
          "fitWithOBB", 
          "if true, grid is fitted using an oriented bounded box (OBB)",
          DEFAULT_FIT_WITH_OBB);
+      myProps.add (
+         "sparse", 
+         "if true, grid stores distances only in a narrow band about the "+
+         "surface", DEFAULT_SPARSE);
       myProps.add (
          "marginFraction", 
          "margin fraction used when creating a grid",
@@ -296,6 +303,34 @@ public class DistanceGridComp extends GridCompBase {
 
    // TODO get OBB coordinate frame?
 
+   /**
+    * Queries whether a sparse grid is used when automatically constructing a
+    * grid. See {@link #setSparse} for more details.
+    * 
+    * @return {@code true} if automatically constructed grids are sparse
+    */
+   public boolean getSparse () {
+      return mySparseP;
+   }
+
+   /**
+    * Enables a sparse grid to be used when automatically constructing a
+    * grid. A sparse grid, implemented by {@link SparseDistanceGrid}, stores
+    * distances only within a narrow band about the mesh surface(s), which
+    * greatly reduces memory and build time at high resolutions, but
+    * distances further from the surface are clamped to the band width.
+    * 
+    * @param enable if {@code true}, enables sparse grid construction
+    */
+   public void setSparse (boolean enable) {
+      if (mySparseP != enable) {
+         mySparseP = enable;
+         if (!myGridExplicitP) {
+            invalidateGrid();
+         }
+      }
+   }
+
    /**
     * Returns the margin fraction used when automatically constructing a grid.
     *
@@ -421,21 +456,47 @@ public class DistanceGridComp extends GridCompBase {
       return myGrid;
    }
 
+   private DistanceGrid createGrid (Vector3i res) {
+      if (mySparseP) {
+         return new SparseDistanceGrid (res);
+      }
+      else {
+         return new DistanceGrid (res);
+      }
+   }
+
    protected void buildGridFromMeshes (ArrayList<MeshComponent> meshes) {
 
       DistanceGrid grid = null;
 
-      if (canGenerateGrid()) {
+      GeometryCache cache = GeometryCache.getDefault();
+      String cacheKey = null;
+      if (canGenerateGrid() && cache != null &&
+          myPolygonalMeshes.size() == 1) {
+         // grids for multiple meshes are not cached, since their features
+         // belong to a generated surface mesh
+         cacheKey = GeometryCache.createKey (
+            myPolygonalMeshes, "DistanceGridComp", myResolution,
+            myMaxResolution, myFitWithOBB, myMarginFraction, mySparseP,
+            SparseDistanceGrid.DEFAULT_BAND_CELLS);
+         grid = cache.getDistanceGrid (
+            cacheKey, myPolygonalMeshes.get(0).getFaces());
+         if (grid != null) {
+            grid.setLocalToWorld (getLocalToWorld());
+            setRenderRanges (myRenderRanges);
+         }
+      }
+      if (grid == null && canGenerateGrid()) {
          
          // create the grid with the specified resolution
          int maxRes = myMaxResolution;
          if (!myResolution.equals (Vector3i.ZERO)) {
-            grid = new DistanceGrid (myResolution);
+            grid = createGrid (myResolution);
             maxRes = 0;
          }
          else {
             // resolution will be recomputed in computeFromFeatures
-            grid = new DistanceGrid (new Vector3i (1,1,1));
+            grid = createGrid (new Vector3i (1,1,1));
          }
                   
          // fit the grid to the faces
@@ -468,6 +529,10 @@ public class DistanceGridComp extends GridCompBase {
          Vector3d margins = new Vector3d(grid.getWidths());
          margins.scale (myMarginFraction);
          //grid.markOutsideQuadtets (margins.minElement());         
+         if (cacheKey != null) {
+            cache.putDistanceGrid (
+               cacheKey, grid, myPolygonalMeshes.get(0).getFaces());
+         }
       }
       super.setGrid (grid); // set myBaseGrid in the super class
       myGrid = grid;
@@ -653,7 +718,7 @@ public class DistanceGridComp extends GridCompBase {
 
    protected InterpolatingGridBase scanGrid (
       ReaderTokenizer rtok) throws IOException {
-      myGrid = new DistanceGrid();
+      myGrid = mySparseP ? new SparseDistanceGrid() : new DistanceGrid();
       myGrid.scan (rtok, null);
       myResolution.set (myGrid.getResolution());
       return myGrid;
@@ -27,6 +27,7 @@ import maspack.properties.PropertyMode;
 import maspack.properties.PropertyUtils;
 import maspack.render.Renderer;
 import maspack.render.RenderableUtils;
+import maspack.solvers.SparseSolverId;
 import maspack.util.FunctionTimer;
 import maspack.util.NumberFormat;
 import maspack.util.ReaderTokenizer;
@@ -1177,6 +1178,64 @@ TransformableGeometry, ScalableUnits {
       return 0;
    }
 
+   /**
+    * Sets the solver used for static solves. {@code null} means static
+    * solves use the matrix solver. See {@link
+    * MechSystemSolver#setStaticSolver}.
+    *
+    * @param solver solver for static solves, or {@code null}
+    */
+   public void setStaticSolver (SparseSolverId solver) {
+      if (mySolver != null) {
+         mySolver.setStaticSolver (solver);
+      }
+   }
+
+   public SparseSolverId getStaticSolver() {
+      if (mySolver != null) {
+         return mySolver.getStaticSolver();
+      }
+      return null;
+   }
+
+   public void setStaticSolverTolerance (double tol) {
+      if (mySolver != null) {
+         mySolver.setStaticSolverTolerance (tol);
+      }
+   }
+
+   public double getStaticSolverTolerance() {
+      if (mySolver != null) {
+         return mySolver.getStaticSolverTolerance();
+      }
+      return 0;
+   }
+
+   /**
+    * Enables velocity solves to use a linear-time solver when the system
+    * is tree structured. See {@link MechSystemSolver#setUseTreeSolver}.
+    *
+    * @param enable if {@code true}, enables tree solves
+    */
+   public void setUseTreeSolver (boolean enable) {
+      if (mySolver != null) {
+         mySolver.setUseTreeSolver (enable);
+      }
+   }
+
+   /**
+    * Queries whether velocity solves use a linear-time solver when the
+    * system is tree structured. See {@link MechSystemSolver#setUseTreeSolver}.
+    *
+    * @return {@code true} if tree solves are enabled
+    */
+   public boolean getUseTreeSolver() {
+      if (mySolver != null) {
+         return mySolver.getUseTreeSolver();
+      }
+      return false;
+   }
+
    /* ==== default Particle container ==== */
 
    /**
@@ -1666,7 +1666,8 @@ public abstract class MechSystemBase extends RenderableModelBase
       return new EnumRange<SparseSolverId>(
          SparseSolverId.class, new SparseSolverId[] {
             SparseSolverId.Pardiso,
-            SparseSolverId.Umfpack });
+            SparseSolverId.Umfpack,
+            SparseSolverId.SparseLDLT });
    }
 
    public void setIntegrator (Integrator integrator) {
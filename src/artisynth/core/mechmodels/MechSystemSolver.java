@@ -16,6 +16,7 @@ import artisynth.core.modelbase.ModelComponent;
 import artisynth.core.modelbase.StepAdjustment;
 import artisynth.core.modelbase.*;
 import artisynth.core.util.ArtisynthIO;
+import maspack.concurrency.ParallelLoop;
 import maspack.function.Function1x1;
 import maspack.matrix.EigenDecomposition;
 import maspack.matrix.Matrix;
@@ -36,6 +37,7 @@ import maspack.matrix.VectorNd;
 import maspack.matrix.VectorNi;
 import maspack.solvers.CGSolver;
 import maspack.solvers.DirectSolver;
+import maspack.solvers.IterativeKKTSolver;
 import maspack.solvers.IterativeSolver;
 import maspack.solvers.IterativeSolver.ToleranceType;
 import maspack.solvers.KKTSolver;
@@ -44,6 +46,8 @@ import maspack.solvers.PardisoSolver;
 import maspack.solvers.UmfpackSolver;
 import maspack.solvers.LCPSolver;
 import maspack.solvers.SparseSolverId;
+import maspack.solvers.TreeKKTSolver;
+import maspack.solvers.SparseLDLTSolver;
 import maspack.solvers.MurtyMechSolver;
 import maspack.numerics.BrentRootSolver;
 import maspack.numerics.GoldenSectionSearch;
@@ -192,6 +196,10 @@ public class MechSystemSolver {
    private int myRegSolveMatrixVersion = -1;
    private int myKKTSolveMatrixVersion = -1;
    private int myKKTGTVersion = -1;
+   // true if the KKT system was last factored by the tree solver, in which
+   // case KKTSolve() uses the tree solver, with the given structure version
+   boolean myKKTTreeFactored = false;
+   private int myKKTTreeVersion = -1;
    private int myConMassVersion = -1;
    private int myConGTVersion = -1;
    private int myStaticKKTVersion = -1;
@@ -329,6 +337,39 @@ public class MechSystemSolver {
       myUseImplicitFriction = enable;
    }
    
+   /**
+    * Queries whether velocity solves use a {@link TreeKKTSolver} when
+    * possible.
+    *
+    * @return {@code true} if tree solves are enabled
+    * @see #setUseTreeSolver
+    */
+   public boolean getUseTreeSolver () {
+      return myUseTreeSolver;
+   }
+
+   /**
+    * Enables velocity solves to be done using a {@link TreeKKTSolver}, which
+    * factors and solves the KKT system in linear time when its structure
+    * forms a tree. This is the case for articulated rigid bodies
+    * connected by joints, without closed loops, when integrated using
+    * {@link Integrator#SymplecticEuler}. For implicit integrators, the
+    * structure must also be a tree after stiffness terms are added, so that
+    * force effectors acting between jointed bodies will usually prevent the
+    * tree solve. The tree solve is used only when there are no unilateral
+    * constraints and implicit friction is not being used; otherwise, or if
+    * the system is not tree structured, the regular KKT solver is used.
+    *
+    * @param enable if {@code true}, enables tree solves
+    */
+   public void setUseTreeSolver (boolean enable) {
+      if (enable && myKKTTree == null) {
+         myKKTTree = new TreeSolve();
+         myConTree = new TreeSolve();
+      }
+      myUseTreeSolver = enable;
+   }
+
    public boolean usingImplicitFriction() {
       return (myUseImplicitFriction && 
               (myIntegrator == Integrator.ConstrainedBackwardEuler ||
@@ -346,12 +387,19 @@ public class MechSystemSolver {
 
    PardisoSolver myPardisoSolver;
    UmfpackSolver myUmfpackSolver;
+   SparseLDLTSolver mySparseLDLTSolver;
    KKTSolver myKKTSolver;
    KKTSolver myConSolver;
    KKTSolver myStaticSolver;
    MurtyMechSolver myMurtySolver;
+   TreeSolve myKKTTree; // tree solver for KKTFactorAndSolve
+   TreeSolve myConTree; // tree solver for constraint corrections
+   boolean myUseTreeSolver = false;
 
    private SparseSolverId myMatrixSolver = SparseSolverId.Pardiso;
+   int myNumSolverThreads = 1;
+   // shared by the solve and constraint matrices for parallel products
+   ParallelLoop myMulLoop;
    Integrator myIntegrator = Integrator.SymplecticEuler;
    boolean myComplianceSupported = true; // true for default integrator
    double myTol = 0.01;
@@ -361,6 +409,13 @@ public class MechSystemSolver {
    PosStabilization myStabilization = PosStabilization.GlobalMass;
    
    double myStaticTikhonov = -1;  // tikhonov regularization parameter for static solves
+   // if non-null, overrides myMatrixSolver for static solves
+   SparseSolverId myStaticSolverType = null;
+   IterativeKKTSolver myIterativeStaticSolver;
+   double myStaticSolverTol = IterativeKKTSolver.DEFAULT_TOLERANCE;
+   int myStaticSolverMaxIterations = IterativeKKTSolver.DEFAULT_MAX_ITERATIONS;
+   boolean myStaticUnilateralWarningGiven = false;
+   boolean myStaticNonSymmetricWarningGiven = false;
    double myStaticTol = 1e-8;    // static solver tolerance (small displacement value per element)
    int myStaticIncrements = 20;  // number of load increments for static solve
 
@@ -389,6 +444,10 @@ public class MechSystemSolver {
 
    public void updateMassMatrix (double t) {
       // assumes that updateStateSizes() has been called
+      StepProfiler prof = StepProfiler.getCurrent();
+      if (prof != null) {
+         prof.begin (StepProfiler.Phase.MASS_UPDATE);
+      }
       int version = mySys.getStructureVersion();
       if (version != myMassVersion) {
          myMass = new SparseNumberedBlockMatrix();
@@ -405,6 +464,9 @@ public class MechSystemSolver {
          mySys.getMassMatrix (myMass, myMassForces, t);
          myMassTime = t;
       }
+      if (prof != null) {
+         prof.end (StepProfiler.Phase.MASS_UPDATE);
+      }
    }
 
    /** 
@@ -605,7 +667,8 @@ public class MechSystemSolver {
       if (solver != myMatrixSolver) {
          switch (solver) {
             case Pardiso: 
-            case Umfpack: {
+            case Umfpack:
+            case SparseLDLT: {
                break;
             }
             default: {
@@ -630,10 +693,23 @@ public class MechSystemSolver {
 
    /** 
     * Make sure that the current solver matches the one specified by
-    * myMatrixSolver.
+    * myMatrixSolver. If myMatrixSolver is direct but cannot handle the
+    * current solve matrix type (e.g., SparseLDLT with a non-symmetric
+    * matrix), a compatible direct solver is used instead.
     */   
    private void updateSolver () {
-      switch (myMatrixSolver) {
+      SparseSolverId solverType = myMatrixSolver;
+      if (solverType.isDirect()) {
+         int matrixType = mySys.getSolveMatrixType();
+         solverType = myMatrixSolver.getCompatibleDirectSolver (matrixType);
+         if (solverType == null) {
+            throw new UnsupportedOperationException (
+               "Matrix solver "+myMatrixSolver+" cannot handle the solve "+
+               "matrix, and neither Pardiso nor Umfpack is available");
+         }
+      }
+      DirectSolver prevSolver = myDirectSolver;
+      switch (solverType) {
          case Pardiso: {
             if (myPardisoSolver == null) {
                myPardisoSolver = new PardisoSolver();
@@ -650,6 +726,14 @@ public class MechSystemSolver {
             myUseDirectSolver = true;
             break;
          }
+         case SparseLDLT: {
+            if (mySparseLDLTSolver == null) {
+               mySparseLDLTSolver = new SparseLDLTSolver();
+            }
+            myDirectSolver = mySparseLDLTSolver;
+            myUseDirectSolver = true;
+            break;
+         }
          case ConjugateGradient: {
             if (!(myIterativeSolver instanceof CGSolver)) {
                setIterativeSolver (new CGSolver());
@@ -662,12 +746,66 @@ public class MechSystemSolver {
                "Unknown solver " + myMatrixSolver);
          }
       }
+      if (myDirectSolver != prevSolver) {
+         // new solver needs to be analyzed
+         myRegSolveMatrixVersion = -1;
+      }
    }
 
    public SparseSolverId getMatrixSolver() {
       return myMatrixSolver;
    }
 
+   /**
+    * Sets the number of threads used by the KKT matrix solver. This
+    * currently only affects {@link SparseSolverId#SparseLDLT}, for which
+    * the threads are used for numeric factorization and for solves with
+    * multiple right hand sides (see {@link
+    * #KKTSolve(VectorNd[],VectorNd[],VectorNd[],int)}). The threads
+    * are also used for vector products with the solve matrix and the
+    * constraint matrices, when these are large enough (see {@link
+    * maspack.matrix.SparseMatrixBase#setNumThreads}).
+    *
+    * @param num number of solver threads
+    */
+   public void setNumSolverThreads (int num) {
+      myNumSolverThreads = Math.max (1, num);
+      if (myKKTSolver != null) {
+         myKKTSolver.setNumThreads (myNumSolverThreads);
+      }
+      if (mySolveMatrix != null) {
+         updateMulThreads (mySolveMatrix);
+      }
+   }
+
+   /**
+    * Sets up a solve or constraint matrix to use the solver threads for
+    * its vector products.
+    */
+   private void updateMulThreads (SparseBlockMatrix S) {
+      if (myNumSolverThreads > 1) {
+         if (myMulLoop == null ||
+             myMulLoop.numThreads() != myNumSolverThreads) {
+            myMulLoop =
+               new ParallelLoop ("MechSystemSolver", myNumSolverThreads);
+         }
+         S.setParallelLoop (myMulLoop);
+      }
+      else if (S.getNumThreads() > 1) {
+         S.setParallelLoop (null);
+      }
+   }
+
+   /**
+    * Returns the number of threads used by the KKT matrix solver.
+    *
+    * @return number of solver threads
+    * @see #setNumSolverThreads
+    */
+   public int getNumSolverThreads() {
+      return myNumSolverThreads;
+   }
+
    /** 
     * Create a new MechSystem solver for a specified MechSystem.
     */
@@ -690,7 +828,11 @@ public class MechSystemSolver {
       setHybridSolve (solver.getHybridSolve());
       setIntegrator (solver.getIntegrator());
       setMatrixSolver (solver.getMatrixSolver());
+      setStaticSolver (solver.getStaticSolver());
+      setStaticSolverTolerance (solver.getStaticSolverTolerance());
+      setStaticSolverMaxIterations (solver.getStaticSolverMaxIterations());
       setUseImplicitFriction (solver.getUseImplicitFriction());
+      setUseTreeSolver (solver.getUseTreeSolver());
    }
 
    public void nonDynamicSolve (double t0, double t1, StepAdjustment stepAdjust) {
@@ -1189,6 +1331,7 @@ public class MechSystemSolver {
          mySolveMatrixVersion = mySys.getStructureVersion();
          mySolveMatrix = new SparseNumberedBlockMatrix();
          mySys.buildSolveMatrix (mySolveMatrix);
+         updateMulThreads (mySolveMatrix);
       }
    }
 
@@ -1221,11 +1364,18 @@ public class MechSystemSolver {
    }
    
    public void updateConstraintMatrices(double h, boolean includeFriction) {
+      StepProfiler prof = StepProfiler.getCurrent();
+      if (prof != null) {
+         prof.begin (StepProfiler.Phase.CONSTRAINT_MATRICES);
+      }
       updateBilateralConstraintMatrix();
       updateUnilateralConstraintMatrix();
       if (includeFriction) {
          updateFrictionConstraints (h, /*prune=*/false);
       }
+      if (prof != null) {
+         prof.end (StepProfiler.Phase.CONSTRAINT_MATRICES);
+      }
    }
 
    /**
@@ -1237,6 +1387,7 @@ public class MechSystemSolver {
          myGTSystemVersion = mySys.getStructureVersion();
       }
       myGT = new SparseBlockMatrix ();
+      updateMulThreads (myGT);
       mySys.getBilateralConstraints (myGT, myGdot);
       // need to check  to see if structure of GT has changed
       myGTVersionValid = false;
@@ -1256,6 +1407,7 @@ public class MechSystemSolver {
          myNTSystemVersion = mySys.getStructureVersion();
       }
       myNT = new SparseBlockMatrix ();
+      updateMulThreads (myNT);
       mySys.getUnilateralConstraints (myNT, myNdot);
       myNsize = myNT.colSize();
       ensureNInfoCapacity (myNsize);
@@ -1267,6 +1419,7 @@ public class MechSystemSolver {
    protected void updateUnilateralConstraintsNorm () {
       // assumes that updateStateSizes() has been called
       myNT = new SparseBlockMatrix ();
+      updateMulThreads (myNT);
       mySys.getUnilateralConstraints (myNT, myNdot);
       myNsize = myNT.colSize();
       ensureNInfoCapacity (myNsize);
@@ -1282,6 +1435,7 @@ public class MechSystemSolver {
    protected boolean updateFrictionConstraints (double h, boolean prune) {
       // assumes that updateStateSizes() has been called
       myDT = new SparseBlockMatrix ();
+      updateMulThreads (myDT);
 
       int fmax = mySys.maxFrictionConstraintSets();
       ensureFrictionCapacity (myFrictionInfo, fmax);
@@ -1568,6 +1722,10 @@ public class MechSystemSolver {
       int flags) {
 
       myKKTCnt++;
+      StepProfiler prof = StepProfiler.getCurrent();
+      if (prof != null) {
+         prof.begin (StepProfiler.Phase.KKT_SOLVE);
+      }
       boolean updateSystem = ((flags & NO_SYS_UPDATE) == 0);
       boolean trapezoidal = ((flags & TRAPEZOIDAL) != 0);
       
@@ -1648,6 +1806,7 @@ public class MechSystemSolver {
       else {
          if (myKKTSolver == null) {
             myKKTSolver = new KKTSolver(myMatrixSolver);
+            myKKTSolver.setNumThreads (myNumSolverThreads);
          }
       }
       
@@ -1750,6 +1909,8 @@ public class MechSystemSolver {
          }
       }
 
+      boolean treeSolved = false;
+      myKKTTreeFactored = false;
       if (velSize != 0) {
          if (vel0 != null) {
             // set vel to vel0 in case the solver needs a warm start
@@ -1796,6 +1957,15 @@ public class MechSystemSolver {
             myMurtySolverTimer.stop();
             //showContactSolverTiming();
          }
+         else if (myUseTreeSolver && myNT.colSize() == 0 &&
+                  treeFactorAndSolve (
+                     myKKTTree, S, mySolveMatrixVersion, velSize, vel, bf)) {
+            treeSolved = true;
+            myKKTTreeFactored = true;
+            myKKTTreeVersion = mySolveMatrixVersion;
+            // KKT solver will need to be reanalyzed if used again
+            myKKTSolveMatrixVersion = -1;
+         }
          else {
             if (analyze) {
                if (profileKKTSolveTime|profileImplicitFriction) {
@@ -1850,7 +2020,7 @@ public class MechSystemSolver {
             }
             mySys.setActiveVelState (vel);
          }
-         if (computeKKTResidual && !implicitFriction) {
+         if (computeKKTResidual && !implicitFriction && !treeSolved) {
             double res = myKKTSolver.residual (
                S, velSize, myGT, myRg, myNT, myRn, 
                vel, myLam, myThe, bf, myBg, myBn);
@@ -1860,7 +2030,7 @@ public class MechSystemSolver {
          }
     
          //System.out.println ("bg=" + myBg);
-         if (crsWriter != null && !implicitFriction) {
+         if (crsWriter != null && !implicitFriction && !treeSolved) {
             String msg = 
                "# KKTsolve M="+velSize+" G="+myGT.colSize()+
                " N="+myNT.colSize()+(analyze ? " ANALYZE" : "");
@@ -1885,6 +2055,63 @@ public class MechSystemSolver {
       if (profileKKTSolveTime) {
          timerStop("    KKT solve: end stuff", myKKTTimer);
       }
+      if (prof != null) {
+         prof.end (StepProfiler.Phase.KKT_SOLVE);
+      }
+   }
+
+   /**
+    * Tree solver, together with the matrix and versions for which it was
+    * last analyzed.
+    */
+   private static class TreeSolve {
+      TreeKKTSolver mySolver = new TreeKKTSolver();
+      SparseBlockMatrix myMatrix = null;
+      int myMatrixVersion = -1;
+      int myGTVersion = -1;
+      int myVelSize = -1;
+   }
+
+   /**
+    * Attempts to factor and solve the KKT system using a tree solver.
+    * Returns {@code false} if the system is not tree structured or could
+    * not be factored, in which case the regular KKT solver should be used.
+    */
+   private boolean treeFactorAndSolve (
+      TreeSolve tree, SparseBlockMatrix S, int matrixVersion, int velSize,
+      VectorNd vel, VectorNd bf) {
+      TreeKKTSolver solver = tree.mySolver;
+      if (tree.myMatrix != S || tree.myVelSize != velSize ||
+          tree.myMatrixVersion != matrixVersion ||
+          tree.myGTVersion != getGTVersion()) {
+         tree.myMatrix = S;
+         tree.myVelSize = velSize;
+         tree.myMatrixVersion = matrixVersion;
+         tree.myGTVersion = getGTVersion();
+         if (profileKKTSolveTime) {
+            timerStart (myKKTTimer);
+         }
+         solver.analyze (S, velSize, myGT, myRg);
+         if (profileKKTSolveTime) {
+            timerStop ("    KKT solve: tree analyze", myKKTTimer);
+         }
+      }
+      if (!solver.isTreeStructured()) {
+         return false;
+      }
+      if (profileKKTSolveTime) {
+         timerStart (myKKTTimer);
+      }
+      if (!solver.factor (S, velSize, myGT, myRg)) {
+         // pivot choice may depend on regularization, so reanalyze next time
+         tree.myMatrixVersion = -1;
+         return false;
+      }
+      solver.solve (vel, myLam, bf, myBg);
+      if (profileKKTSolveTime) {
+         timerStop ("    KKT solve: tree factor and solve", myKKTTimer);
+      }
+      return true;
    }
    
    protected void maybeAccumulateConstraintForces () {
@@ -1983,10 +2210,6 @@ public class MechSystemSolver {
          bf.scaledAdd (beta, myC);
       }
       
-      if (myStaticSolver == null) {
-         myStaticSolver = new KKTSolver(myMatrixSolver);
-      }
-
       updateConstraintMatrices (0, false);
 
       if (myKKTGTVersion != getGTVersion()) {
@@ -2024,33 +2247,52 @@ public class MechSystemSolver {
          }
       }
 
+      boolean iterative = useIterativeStaticSolve();
       if (velSize != 0) {
          u.setZero();
-         if (analyze) {
-            myStaticSolver.analyze (
-               S, velSize, myGT, myRg, mySys.getSolveMatrixType());
-         }
-         if (myHybridSolveP && !analyze && myNT.colSize() == 0) {
-            myStaticSolver.factorAndSolve (
-               S, velSize, myGT, myRg, u, myLam, bf, myBg, myHybridSolveTol);
+         if (iterative) {
+            iterativeStaticSolve (S, velSize, u, bf);
+            // direct solver will need to be reanalyzed if used again
+            myStaticKKTVersion = -1;
          }
          else {
-            myStaticSolver.factor (S, velSize, myGT, myRg, myNT, myRn);
-            // int nperturbed = myStaticSolver.getNumNonZerosInFactors();
-            myStaticSolver.solve (u, myLam, myThe, bf, myBg, myBn);
+            if (myStaticSolver == null) {
+               myStaticSolver = new KKTSolver(getDirectStaticSolver());
+            }
+            if (analyze) {
+               myStaticSolver.analyze (
+                  S, velSize, myGT, myRg, mySys.getSolveMatrixType());
+            }
+            if (myHybridSolveP && !analyze && myNT.colSize() == 0) {
+               myStaticSolver.factorAndSolve (
+                  S, velSize, myGT, myRg, u, myLam, bf, myBg,
+                  myHybridSolveTol);
+            }
+            else {
+               myStaticSolver.factor (S, velSize, myGT, myRg, myNT, myRn);
+               // int nperturbed = myStaticSolver.getNumNonZerosInFactors();
+               myStaticSolver.solve (u, myLam, myThe, bf, myBg, myBn);
+            }
          }
          if (computeKKTResidual) {
-            double res = myStaticSolver.residual (
-               S, velSize, myGT, myRg, myNT, myRn, 
-               u, myLam, myThe, bf, myBg, myBn);
-            System.out.println (
-               "vel residual ("+velSize+","+myGT.colSize()+","+
+            if (iterative) {
+               System.out.println (
+                  "static relative residual ("+velSize+","+myGT.colSize()+
+                  "): " + myIterativeStaticSolver.getRelativeResidual());
+            }
+            else {
+               double res = myStaticSolver.residual (
+                  S, velSize, myGT, myRg, myNT, myRn, 
+                  u, myLam, myThe, bf, myBg, myBn);
+               System.out.println (
+                  "vel residual ("+velSize+","+myGT.colSize()+","+
                   myNT.colSize()+"): " + res);
+            }
          }
          //System.out.println ("bg=" + myBg);
          //System.out.println ("S=\n" + S);
 
-         if (crsWriter != null) {
+         if (crsWriter != null && !iterative) {
             String msg = 
                "# KKTsolve M="+velSize+" G="+myGT.colSize()+
                " N="+myNT.colSize()+(analyze ? " ANALYZE" : "");
@@ -2076,6 +2318,68 @@ public class MechSystemSolver {
       mySys.setUnilateralForces (myThe, 1);
    }
    
+   /**
+    * Returns the direct solver type to use for static solves.
+    */
+   private SparseSolverId getDirectStaticSolver() {
+      if (myStaticSolverType != null && myStaticSolverType.isDirect()) {
+         return myStaticSolverType;
+      }
+      else {
+         return myMatrixSolver;
+      }
+   }
+
+   /**
+    * Queries whether the current static solve should be done iteratively.
+    * Iterative solves require a symmetric matrix and do not handle
+    * unilateral constraints, so a direct solve is used otherwise.
+    */
+   private boolean useIterativeStaticSolve() {
+      if (myStaticSolverType == null || myStaticSolverType.isDirect()) {
+         return false;
+      }
+      if (mySys.getSolveMatrixType() != Matrix.SYMMETRIC) {
+         if (!myStaticNonSymmetricWarningGiven) {
+            System.out.println (
+               "Warning: static solver "+myStaticSolverType+
+               " requires a symmetric matrix; using "+
+               getDirectStaticSolver()+" instead");
+            myStaticNonSymmetricWarningGiven = true;
+         }
+         return false;
+      }
+      if (myNT.colSize() > 0) {
+         if (!myStaticUnilateralWarningGiven) {
+            System.out.println (
+               "Warning: static solver "+myStaticSolverType+
+               " does not handle unilateral constraints; using "+
+               getDirectStaticSolver()+" instead");
+            myStaticUnilateralWarningGiven = true;
+         }
+         return false;
+      }
+      return true;
+   }
+
+   private void iterativeStaticSolve (
+      SparseNumberedBlockMatrix S, int velSize, VectorNd u, VectorNd bf) {
+      if (myIterativeStaticSolver == null) {
+         myIterativeStaticSolver = new IterativeKKTSolver();
+      }
+      IterativeKKTSolver solver = myIterativeStaticSolver;
+      solver.setTolerance (myStaticSolverTol);
+      solver.setMaxIterations (myStaticSolverMaxIterations);
+      // myLam contains the current bilateral forces, which provide a
+      // warm start
+      if (!solver.solve (u, myLam, S, velSize, myGT, myRg, bf, myBg)) {
+         System.out.println (
+            "Warning: iterative static solve did not converge after "+
+            solver.getNumIterations()+" iterations; relative residual="+
+            solver.getRelativeResidual());
+      }
+   }
+
    public void setCrsFileName(String name) {
       if (crsWriter != null) {
          crsWriter.close();
@@ -2172,7 +2476,9 @@ public class MechSystemSolver {
          throw new IllegalStateException (
             "Velocity size != current active velocity state size");
       }
-      if (myKKTSolveMatrixVersion != mySys.getStructureVersion()) {
+      int factoredVersion =
+         (myKKTTreeFactored ? myKKTTreeVersion : myKKTSolveMatrixVersion);
+      if (factoredVersion != mySys.getStructureVersion()) {
          throw new IllegalStateException ("Solve structure has changed");
       }
 
@@ -2190,7 +2496,7 @@ public class MechSystemSolver {
                "KKTFactorAndSolve must be called prior to KKTSolve");
          }
       }
-      else {
+      else if (!myKKTTreeFactored) {
          if (myKKTSolver == null || !myKKTSolver.isFactored()) {
             throw new IllegalStateException (
                "KKTFactorAndSolve must be called prior to KKTSolve");
@@ -2208,12 +2514,67 @@ public class MechSystemSolver {
          if (usingImplicitFriction()) {
             myMurtySolver.resolveMG (vel, lam, bf, myBg);
          }
+         else if (myKKTTreeFactored) {
+            // tree solves are done only without unilateral constraints
+            myKKTTree.mySolver.solve (vel, lam, bf, myBg);
+         }
          else {
             myKKTSolver.solve (vel, lam, the, bf, myBg, myBn);
          }
       }
    }
 
+   /**
+    * Solves the KKT system factored by a previous call to {@link
+    * #KKTFactorAndSolve} for multiple right hand sides. The results are the
+    * same as calling {@link #KKTSolve(VectorNd,VectorNd,VectorNd,VectorNd)}
+    * for each right hand side {@code bf[j]}, except that the unilateral
+    * impulses are not returned. When the system has no unilateral
+    * constraints or implicit friction, and the matrix solver supports it,
+    * all the right hand sides are solved at once with a single blocked
+    * multi-rhs solve, which is usually much faster than solving them
+    * separately.
+    *
+    * @param vel returns the velocity solutions
+    * @param lam returns the bilateral constraint impulses
+    * @param bf right hand side force terms
+    * @param num number of right hand sides
+    */
+   public void KKTSolve (
+      VectorNd[] vel, VectorNd[] lam, VectorNd[] bf, int num) {
+
+      if (usingImplicitFriction() || myKKTTreeFactored ||
+          myKKTSolver == null || !myKKTSolver.canSolveMultiple() || num < 2) {
+         VectorNd the = new VectorNd();
+         for (int j=0; j<num; j++) {
+            KKTSolve (vel[j], lam[j], the, bf[j]);
+         }
+         return;
+      }
+      int velSize = mySys.getActiveVelStateSize();
+      for (int j=0; j<num; j++) {
+         if (velSize != vel[j].size()) {
+            throw new IllegalStateException (
+               "Velocity size != current active velocity state size");
+         }
+      }
+      if (myKKTSolveMatrixVersion != mySys.getStructureVersion()) {
+         throw new IllegalStateException ("Solve structure has changed");
+      }
+      if (myGT.colSize() != myBg.size()) {
+         throw new IllegalStateException (
+            "Number of bilateral offsets != number of bilateral constraints");
+      }
+      if (velSize != 0) {
+         myKKTSolver.solve (vel, lam, bf, myBg, num);
+      }
+      else {
+         for (int j=0; j<num; j++) {
+            lam[j].setSize (myGT.colSize());
+         }
+      }
+   }
+
    protected boolean updateAndProjectFrictionConstraints (
       VectorNd vel, double t0, double h) {
       // BEGIN project friction constraints
@@ -2727,14 +3088,6 @@ public class MechSystemSolver {
       myBf.scaledAdd (h, f);
 
       myMass.mulAdd (myBf, vel, velSize, velSize);
-      if (myConMassVersion != myMassVersion || myConGTVersion != getGTVersion()) {
-         analyze = true;
-      }
-      if (analyze) {
-         myConSolver.analyze (myMass, velSize, myGT, myRg, Matrix.SPD);
-         myConMassVersion = myMassVersion;
-         myConGTVersion = getGTVersion();
-      }
       // get these in case (at some future point) they are needed for warm
       // startin the solve
       mySys.getBilateralForces (myLam);
@@ -2743,10 +3096,29 @@ public class MechSystemSolver {
       myLam.scale (h);
       myThe.scale (h);
 
-      myConSolver.factor (myMass, velSize, myGT, myRg, myNT, myRn);
-      myConSolver.solve (vel, myLam, myThe, myBf, myBg, myBn);
+      boolean treeSolved = false;
+      if (myUseTreeSolver && myNT.colSize() == 0 &&
+          treeFactorAndSolve (
+             myConTree, myMass, myMassVersion, velSize, vel, myBf)) {
+         treeSolved = true;
+         // con solver will need to be reanalyzed if used again
+         myConMassVersion = -1;
+      }
+      else {
+         if (myConMassVersion != myMassVersion ||
+             myConGTVersion != getGTVersion()) {
+            analyze = true;
+         }
+         if (analyze) {
+            myConSolver.analyze (myMass, velSize, myGT, myRg, Matrix.SPD);
+            myConMassVersion = myMassVersion;
+            myConGTVersion = getGTVersion();
+         }
+         myConSolver.factor (myMass, velSize, myGT, myRg, myNT, myRn);
+         myConSolver.solve (vel, myLam, myThe, myBf, myBg, myBn);
+      }
 
-      if (computeKKTResidual) {
+      if (computeKKTResidual && !treeSolved) {
          double res = myConSolver.residual (
             myMass, velSize, myGT, myRg, myNT, myRn, 
             vel, myLam, myThe, myBf, myBg, myBn);
@@ -2762,6 +3134,10 @@ public class MechSystemSolver {
    }
 
    public void projectPosConstraints (double t) {
+      StepProfiler prof = StepProfiler.getCurrent();
+      if (prof != null) {
+         prof.begin (StepProfiler.Phase.PROJECT_POS);
+      }
       updateStateSizes();
       updateMassMatrix (t);
 
@@ -2786,6 +3162,9 @@ public class MechSystemSolver {
       }
 
       updateMassMatrix (-1);
+      if (prof != null) {
+         prof.end (StepProfiler.Phase.PROJECT_POS);
+      }
    }
 
    protected boolean computeRigidBodyPosCorrections (VectorNd pos, double t) {
@@ -2945,6 +3324,7 @@ public class MechSystemSolver {
       addActiveMassMatrix (mySys, S);
       if (myKKTSolver == null) {
          myKKTSolver = new KKTSolver(myMatrixSolver);
+         myKKTSolver.setNumThreads (myNumSolverThreads);
          analyze = true;
       }
       if (myKKTGTVersion != getGTVersion()) {
@@ -3537,6 +3917,96 @@ public class MechSystemSolver {
    public int getStaticIncrements() {
       return myStaticIncrements;
    }
+
+   /**
+    * Sets the solver used for static solves, performed by the {@link
+    * Integrator#StaticIncremental} and {@link Integrator#StaticLineSearch}
+    * integrators. A value of {@code null} (the default) means that the
+    * static solves use the same solver as the dynamic solves (see {@link
+    * #setMatrixSolver}). Specifying {@link SparseSolverId#MINRES} causes the
+    * static KKT system to be solved iteratively using an {@link
+    * IterativeKKTSolver}, whose memory use scales linearly with the number
+    * of degrees of freedom. Direct solves are still used for steps
+    * involving unilateral constraints.
+    *
+    * @param solver solver for static solves, or {@code null}
+    */
+   public void setStaticSolver (SparseSolverId solver) {
+      if (solver != myStaticSolverType) {
+         if (solver != null) {
+            switch (solver) {
+               case Pardiso:
+               case Umfpack:
+               case SparseLDLT:
+               case MINRES: {
+                  break;
+               }
+               default: {
+                  System.out.println (
+                     "Static solver "+solver+" not supported");
+                  return;
+               }
+            }
+         }
+         myStaticSolverType = solver;
+         if (myStaticSolver != null) {
+            myStaticSolver.dispose();
+            myStaticSolver = null;
+         }
+         myStaticKKTVersion = -1;
+         myStaticUnilateralWarningGiven = false;
+         myStaticNonSymmetricWarningGiven = false;
+      }
+   }
+
+   /**
+    * Returns the solver used for static solves, or {@code null} if
+    * static solves use the same solver as dynamic ones.
+    *
+    * @return solver for static solves
+    * @see #setStaticSolver
+    */
+   public SparseSolverId getStaticSolver() {
+      return myStaticSolverType;
+   }
+
+   /**
+    * Sets the relative residual tolerance for iterative static solves.
+    *
+    * @param tol relative residual tolerance
+    * @see #setStaticSolver
+    */
+   public void setStaticSolverTolerance (double tol) {
+      myStaticSolverTol = tol;
+   }
+
+   /**
+    * Returns the relative residual tolerance for iterative static solves.
+    *
+    * @return relative residual tolerance
+    */
+   public double getStaticSolverTolerance() {
+      return myStaticSolverTol;
+   }
+
+   /**
+    * Sets the maximum number of iterations for iterative static solves.
+    *
+    * @param max maximum number of iterations
+    * @see #setStaticSolver
+    */
+   public void setStaticSolverMaxIterations (int max) {
+      myStaticSolverMaxIterations = max;
+   }
+
+   /**
+    * Returns the maximum number of iterations for iterative static solves.
+    *
+    * @return maximum number of iterations
+    */
+   public int getStaticSolverMaxIterations() {
+      return myStaticSolverMaxIterations;
+   }
    
    /**
     * Scales forces and constraints down by alpha, and solves the adjusted problem
@@ -4098,6 +4568,7 @@ public class MechSystemSolver {
       mySolveMatrixVersion = -1;
       myRegSolveMatrixVersion = -1;
       myKKTSolveMatrixVersion = -1;      
+      myKKTTreeFactored = false;
       if (myRBSolver != null) {
          myRBSolver.resetBilateralVersion();
       }
@@ -4135,6 +4606,10 @@ public class MechSystemSolver {
          myUmfpackSolver.dispose();
          myUmfpackSolver = null;
       }
+      if (mySparseLDLTSolver != null) {
+         mySparseLDLTSolver.dispose();
+         mySparseLDLTSolver = null;
+      }
       if (myRBSolver != null) {
          myRBSolver.dispose();
          myRBSolver = null;
@@ -0,0 +1,204 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package artisynth.core.mechmodels;
+
+import artisynth.core.femmodels.FemFactory;
+import artisynth.core.femmodels.FemModel3d;
+import artisynth.core.femmodels.FemNode3d;
+import artisynth.core.materials.LinearMaterial;
+import artisynth.core.mechmodels.MechSystemSolver.Integrator;
+import maspack.matrix.Point3d;
+import maspack.matrix.RigidTransform3d;
+import maspack.matrix.Vector3d;
+import maspack.matrix.VectorNd;
+import maspack.solvers.SparseSolverId;
+import maspack.util.RandomGenerator;
+import maspack.util.UnitTest;
+
+/**
+ * Tests solves performed by MechSystemSolver, comparing the results of
+ * alternative solve paths.
+ */
+public class MechSystemSolverTest extends UnitTest {
+
+   static final double EPS = 1e-10;
+
+   /**
+    * Creates a chain of boxes connected by hinge joints, with the first box
+    * connected to ground.
+    */
+   MechModel createChain (int nlinks) {
+      MechModel mech = new MechModel ("mech");
+      RigidBody prev = null;
+      for (int i=0; i<nlinks; i++) {
+         RigidBody link = RigidBody.createBox ("link"+i, 1.0, 0.2, 0.2, 1000);
+         link.setPose (new RigidTransform3d (i+0.5, 0, 0));
+         mech.addRigidBody (link);
+         // hinge about the y axis
+         RigidTransform3d TDW =
+            new RigidTransform3d (i, 0, 0, 1, 0, 0, Math.PI/2);
+         mech.addBodyConnector (new HingeJoint (link, prev, TDW));
+         prev = link;
+      }
+      mech.getSolver().setMatrixSolver (SparseSolverId.SparseLDLT);
+      return mech;
+   }
+
+   void advance (MechModel mech, double t0, double t1) {
+      mech.preadvance (t0, t1, /*flags=*/0);
+      mech.advance (t0, t1, /*flags=*/0);
+   }
+
+   /**
+    * Computes the right side bf = M vel + h f for a velocity solve, where
+    * vel is the current velocity.
+    */
+   VectorNd computeBf (
+      MechSystemSolver solver, VectorNd vel, VectorNd f, double h, double t) {
+      VectorNd bf = new VectorNd (vel.size());
+      solver.mulActiveInertias (bf, vel);
+      bf.scaledAdd (h, f);
+      solver.addScaledMassForces (bf, h, t);
+      return bf;
+   }
+
+   /**
+    * Factors and solves the velocity KKT system for a jointed chain, using
+    * only the mass matrix so that the tree solver can be used, and checks
+    * that KKTSolve() gives the same results for new right sides as
+    * factoring the system again.
+    */
+   void testTreeKKTSolve (boolean useTree) {
+      MechModel mech = createChain (5);
+      mech.setUseTreeSolver (useTree);
+      double h = 0.01;
+      advance (mech, 0, h);
+      advance (mech, h, 2*h);
+
+      MechSystemSolver solver = mech.getSolver();
+      double t0 = 2*h;
+      double t1 = 3*h;
+      solver.advanceAuxComponentState (t0, t1);
+      solver.updateMassMatrix (t0);
+      solver.updateConstraintMatrices (h, /*includeFriction=*/false);
+      int velSize = mech.getActiveVelStateSize();
+      VectorNd vel0 = new VectorNd (velSize);
+      mech.getActiveVelState (vel0);
+
+      int nrhs = 3;
+      VectorNd[] f = new VectorNd[nrhs];
+      for (int j=0; j<nrhs; j++) {
+         f[j] = new VectorNd (velSize);
+         f[j].setRandom();
+      }
+      VectorNd vel = new VectorNd (velSize);
+      VectorNd btmp = new VectorNd (velSize);
+      VectorNd bf0 = computeBf (solver, vel0, f[0], h, t0);
+      solver.KKTFactorAndSolve (
+         vel, null, bf0, btmp, vel0, h, 0, 0, 0, 0,
+         MechSystemSolver.NO_SYS_UPDATE);
+      checkEquals (
+         "tree factored", solver.myKKTTreeFactored, useTree);
+
+      // right sides for KKTSolve, adjusted from the factored right side
+      VectorNd[] bf = new VectorNd[nrhs];
+      VectorNd[] velm = new VectorNd[nrhs];
+      VectorNd[] lamm = new VectorNd[nrhs];
+      for (int j=0; j<nrhs; j++) {
+         bf[j] = new VectorNd (bf0);
+         bf[j].scaledAdd (-h, f[0]);
+         bf[j].scaledAdd (h, f[j]);
+         velm[j] = new VectorNd (velSize);
+         lamm[j] = new VectorNd ();
+      }
+      VectorNd[] vels = new VectorNd[nrhs];
+      VectorNd[] lams = new VectorNd[nrhs];
+      VectorNd the = new VectorNd();
+      for (int j=0; j<nrhs; j++) {
+         vels[j] = new VectorNd (velSize);
+         lams[j] = new VectorNd ();
+         solver.KKTSolve (vels[j], lams[j], the, bf[j]);
+      }
+      solver.KKTSolve (velm, lamm, bf, nrhs);
+
+      // check against solutions from refactoring with the regular solver
+      mech.setUseTreeSolver (false);
+      for (int j=0; j<nrhs; j++) {
+         VectorNd velc = new VectorNd (velSize);
+         VectorNd bfc = computeBf (solver, vel0, f[j], h, t0);
+         solver.KKTFactorAndSolve (
+            velc, null, bfc, btmp, vel0, h, 0, 0, 0, 0,
+            MechSystemSolver.NO_SYS_UPDATE);
+         VectorNd lamc = new VectorNd (solver.getLambda());
+         checkEquals ("KKTSolve vel "+j, vels[j], velc, EPS);
+         checkEquals ("KKTSolve lam "+j, lams[j], lamc, EPS);
+         checkEquals ("multiple KKTSolve vel "+j, velm[j], velc, EPS);
+         checkEquals ("multiple KKTSolve lam "+j, lamm[j], lamc, EPS);
+      }
+   }
+
+   /**
+    * Creates a FEM beam under gravity, fixed at one end, with the nodes at
+    * the other end constrained to a plane, and solves for its static
+    * equilibrium using a given static solver. Returns the resulting node
+    * positions.
+    */
+   VectorNd solveStaticBeam (SparseSolverId staticSolver) {
+      MechModel mech = new MechModel ("mech");
+      FemModel3d fem =
+         FemFactory.createHexGrid (null, 1.0, 0.2, 0.2, 10, 2, 2);
+      fem.setMaterial (new LinearMaterial (1e7, 0.33));
+      fem.setDensity (1000);
+      mech.addModel (fem);
+      ParticlePlaneConstraint pcon = new ParticlePlaneConstraint (
+         new Vector3d (1, 0, 0), new Point3d (0.5, 0, 0));
+      for (FemNode3d n : fem.getNodes()) {
+         if (n.getPosition().x < -0.49) {
+            n.setDynamic (false);
+         }
+         else if (n.getPosition().x > 0.49) {
+            pcon.addParticle (n);
+         }
+      }
+      mech.addConstrainer (pcon);
+      mech.setIntegrator (Integrator.StaticIncremental);
+      mech.getSolver().setMatrixSolver (SparseSolverId.SparseLDLT);
+      mech.setStaticSolver (staticSolver);
+      mech.setStaticSolverTolerance (1e-12);
+      advance (mech, 0, 1);
+
+      MechSystemSolver solver = mech.getSolver();
+      checkEquals (
+         "iterative static solve used",
+         solver.myIterativeStaticSolver != null, !staticSolver.isDirect());
+      VectorNd pos = new VectorNd (mech.getActivePosStateSize());
+      mech.getActivePosState (pos);
+      return pos;
+   }
+
+   /**
+    * Checks that static solves done iteratively using MINRES give the same
+    * results as those done with a direct solver.
+    */
+   void testIterativeStaticSolve() {
+      VectorNd posDirect = solveStaticBeam (SparseSolverId.SparseLDLT);
+      VectorNd posMinres = solveStaticBeam (SparseSolverId.MINRES);
+      checkEquals ("static MINRES positions", posMinres, posDirect, 1e-8);
+   }
+
+   public void test() {
+      testTreeKKTSolve (/*useTree=*/false);
+      testTreeKKTSolve (/*useTree=*/true);
+      testIterativeStaticSolve();
+   }
+
+   public static void main (String[] args) {
+      RandomGenerator.setSeed (0x1234);
+      MechSystemSolverTest tester = new MechSystemSolverTest();
+      tester.runtest();
+   }
+}
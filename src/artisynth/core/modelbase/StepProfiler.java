@@ -0,0 +1,653 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package artisynth.core.modelbase;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Collects per-phase timing and allocation information for the simulation
+ * steps performed by a root model. Profiling is enabled for a root model
+ * using its {@code profiling} property, after which the profiler can be
+ * obtained using {@code RootModel.getStepProfiler()}.
+ *
+ * <p>Each step is divided into nested {@link Phase}s, which are delimited by
+ * calls to {@link #begin} and {@link #end}. For each phase, the profiler
+ * records the elapsed time in nanoseconds and, if supported by the JVM, the
+ * number of bytes allocated by the calling thread. Results are kept in two
+ * ring buffers: one containing a record for each step, with the time and
+ * allocation totals for each phase within that step, and one containing
+ * the individual phase events. Cumulative totals are also kept for each
+ * phase.
+ *
+ * <p>Code that wants to record a phase obtains the profiler for the current
+ * thread using {@link #getCurrent}, which returns {@code null}, after a
+ * single volatile read, when no profiler is active. Profiling therefore
+ * costs essentially nothing when it is disabled:
+ * <pre>
+ *    StepProfiler prof = StepProfiler.getCurrent();
+ *    if (prof != null) {
+ *       prof.begin (Phase.KKT_SOLVE);
+ *    }
+ *    ...
+ *    if (prof != null) {
+ *       prof.end (Phase.KKT_SOLVE);
+ *    }
+ * </pre>
+ *
+ * <p>Results can be written as CSV, with one row per step, using {@link
+ * #writeCsv}, or as a trace file in the Chrome trace event format (which
+ * can be viewed with {@code chrome://tracing} or Perfetto) using {@link
+ * #writeChromeTrace}. Phase times are inclusive, so that, for example, the
+ * time for {@link Phase#ADVANCE} includes the times for {@link
+ * Phase#COLLISION} and {@link Phase#KKT_SOLVE}.
+ */
+public class StepProfiler {
+
+   /**
+    * Phases of a simulation step that are recorded by the profiler.
+    */
+   public enum Phase {
+      /**
+       * An entire step of the root model.
+       */
+      STEP ("step"),
+
+      /**
+       * Application of input probes.
+       */
+      INPUT_PROBES ("inputProbes"),
+
+      /**
+       * Application of controllers.
+       */
+      CONTROLLERS ("controllers"),
+
+      /**
+       * Advance of each model within the root model.
+       */
+      ADVANCE ("advance"),
+
+      /**
+       * Collision detection and contact constraint generation.
+       */
+      COLLISION ("collision"),
+
+      /**
+       * Mass matrix update within the mechanical system solver.
+       */
+      MASS_UPDATE ("massUpdate"),
+
+      /**
+       * Constraint matrix update within the mechanical system solver.
+       */
+      CONSTRAINT_MATRICES ("constraintMatrices"),
+
+      /**
+       * KKT system factorization and solve within the mechanical system
+       * solver.
+       */
+      KKT_SOLVE ("KKTFactorAndSolve"),
+
+      /**
+       * Position constraint projection within the mechanical system solver.
+       */
+      PROJECT_POS ("projectPosConstraints"),
+
+      /**
+       * Application of monitors.
+       */
+      MONITORS ("monitors"),
+
+      /**
+       * Application of output probes.
+       */
+      OUTPUT_PROBES ("outputProbes");
+
+      private String myName;
+
+      Phase (String name) {
+         myName = name;
+      }
+
+      /**
+       * Returns the name used for this phase in output files.
+       *
+       * @return phase name
+       */
+      public String getName() {
+         return myName;
+      }
+   }
+
+   private static final int NUM_PHASES = Phase.values().length;
+   private static final Phase[] PHASES = Phase.values();
+   private static final int MAX_DEPTH = 64;
+
+   public static final int DEFAULT_STEP_CAPACITY = 1000;
+   public static final int DEFAULT_EVENT_CAPACITY = 100000;
+
+   private static final ThreadLocal<StepProfiler> myCurrent =
+      new ThreadLocal<StepProfiler>();
+   // number of threads with an active profiler, checked before the
+   // thread local so that getCurrent() is cheap when profiling is off
+   private static volatile int myNumActive = 0;
+
+   private static com.sun.management.ThreadMXBean myThreadBean;
+   static {
+      java.lang.management.ThreadMXBean bean =
+         ManagementFactory.getThreadMXBean();
+      if (bean instanceof com.sun.management.ThreadMXBean) {
+         com.sun.management.ThreadMXBean sunBean =
+            (com.sun.management.ThreadMXBean)bean;
+         if (sunBean.isThreadAllocatedMemorySupported() &&
+             sunBean.isThreadAllocatedMemoryEnabled()) {
+            myThreadBean = sunBean;
+         }
+      }
+   }
+
+   // step ring buffer
+   private int myStepCap;
+   private long myNumSteps;         // total number of steps started
+   private boolean myStepActive;
+   private double[] myStepT0;
+   private double[] myStepT1;
+   private long[] myStepStart;      // relative to myOrigin
+   private long[][] myStepNanos;    // [slot][phase]
+   private long[][] myStepAlloc;    // [slot][phase]
+
+   // event ring buffer
+   private int myEventCap;
+   private long myNumEvents;
+   private byte[] myEventPhase;
+   private byte[] myEventDepth;
+   private long[] myEventStep;
+   private long[] myEventStart;     // relative to myOrigin
+   private long[] myEventNanos;
+   private long[] myEventAlloc;
+
+   // cumulative totals
+   private long[] myTotalNanos = new long[NUM_PHASES];
+   private long[] myTotalAlloc = new long[NUM_PHASES];
+   private long[] myTotalCount = new long[NUM_PHASES];
+
+   // stack of open phases
+   private int myDepth;
+   private Phase[] myStackPhase = new Phase[MAX_DEPTH];
+   private long[] myStackStart = new long[MAX_DEPTH];
+   private long[] myStackAlloc = new long[MAX_DEPTH];
+
+   private long myOrigin;
+   private boolean myAllocationTracking = (myThreadBean != null);
+   private Thread myActiveThread;
+
+   /**
+    * Creates a new profiler with default ring buffer capacities.
+    */
+   public StepProfiler() {
+      this (DEFAULT_STEP_CAPACITY, DEFAULT_EVENT_CAPACITY);
+   }
+
+   /**
+    * Creates a new profiler with specified ring buffer capacities.
+    *
+    * @param stepCap maximum number of step records that are retained
+    * @param eventCap maximum number of phase events that are retained
+    */
+   public StepProfiler (int stepCap, int eventCap) {
+      if (stepCap < 1 || eventCap < 1) {
+         throw new IllegalArgumentException (
+            "capacities must be positive");
+      }
+      myStepCap = stepCap;
+      myStepT0 = new double[stepCap];
+      myStepT1 = new double[stepCap];
+      myStepStart = new long[stepCap];
+      myStepNanos = new long[stepCap][NUM_PHASES];
+      myStepAlloc = new long[stepCap][NUM_PHASES];
+      myEventCap = eventCap;
+      myEventPhase = new byte[eventCap];
+      myEventDepth = new byte[eventCap];
+      myEventStep = new long[eventCap];
+      myEventStart = new long[eventCap];
+      myEventNanos = new long[eventCap];
+      myEventAlloc = new long[eventCap];
+      myOrigin = System.nanoTime();
+   }
+
+   /**
+    * Returns the profiler that is active for the current thread, or {@code
+    * null} if there is none.
+    *
+    * @return active profiler for the current thread
+    */
+   public static StepProfiler getCurrent() {
+      if (myNumActive == 0) {
+         return null;
+      }
+      return myCurrent.get();
+   }
+
+   /**
+    * Makes this profiler active for the current thread, so that it will be
+    * returned by {@link #getCurrent}. Must be paired with a call to {@link
+    * #deactivate}.
+    */
+   public synchronized void activate() {
+      if (myActiveThread != null) {
+         throw new IllegalStateException (
+            "profiler is already active in thread " + myActiveThread);
+      }
+      myActiveThread = Thread.currentThread();
+      myCurrent.set (this);
+      synchronized (StepProfiler.class) {
+         myNumActive++;
+      }
+   }
+
+   /**
+    * Deactivates this profiler for the current thread.
+    */
+   public synchronized void deactivate() {
+      if (myActiveThread == Thread.currentThread()) {
+         myCurrent.remove();
+         myActiveThread = null;
+         synchronized (StepProfiler.class) {
+            myNumActive--;
+         }
+      }
+   }
+
+   /**
+    * Queries whether allocation tracking is supported by the JVM.
+    *
+    * @return {@code true} if allocation tracking is supported
+    */
+   public static boolean isAllocationTrackingSupported() {
+      return myThreadBean != null;
+   }
+
+   /**
+    * Queries whether allocation tracking is enabled for this profiler.
+    *
+    * @return {@code true} if allocation tracking is enabled
+    */
+   public boolean getAllocationTracking() {
+      return myAllocationTracking;
+   }
+
+   /**
+    * Enables or disables allocation tracking for this profiler. Tracking is
+    * enabled by default if it is supported by the JVM. Disabling it slightly
+    * reduces profiling overhead.
+    *
+    * @param enable if {@code true}, enables allocation tracking
+    */
+   public void setAllocationTracking (boolean enable) {
+      myAllocationTracking = enable && myThreadBean != null;
+   }
+
+   private long allocatedBytes() {
+      if (myAllocationTracking) {
+         return myThreadBean.getThreadAllocatedBytes (
+            Thread.currentThread().getId());
+      }
+      else {
+         return 0;
+      }
+   }
+
+   /**
+    * Clears all recorded data.
+    */
+   public synchronized void clear() {
+      myNumSteps = 0;
+      myNumEvents = 0;
+      myStepActive = false;
+      myDepth = 0;
+      for (int i=0; i<NUM_PHASES; i++) {
+         myTotalNanos[i] = 0;
+         myTotalAlloc[i] = 0;
+         myTotalCount[i] = 0;
+      }
+      myOrigin = System.nanoTime();
+   }
+
+   /**
+    * Starts recording a new step, which begins the {@link Phase#STEP}
+    * phase. Any phases left open by a previous step are discarded.
+    *
+    * @param t0 simulation time at the start of the step
+    * @param t1 simulation time at the end of the step
+    */
+   public synchronized void beginStep (double t0, double t1) {
+      int slot = (int)(myNumSteps % myStepCap);
+      myStepT0[slot] = t0;
+      myStepT1[slot] = t1;
+      long[] nanos = myStepNanos[slot];
+      long[] alloc = myStepAlloc[slot];
+      for (int i=0; i<NUM_PHASES; i++) {
+         nanos[i] = 0;
+         alloc[i] = 0;
+      }
+      myNumSteps++;
+      myStepActive = true;
+      myDepth = 0;
+      begin (Phase.STEP);
+      myStepStart[slot] = myStackStart[0] - myOrigin;
+   }
+
+   /**
+    * Finishes recording the current step, which ends the {@link Phase#STEP}
+    * phase.
+    */
+   public synchronized void endStep() {
+      end (Phase.STEP);
+      myStepActive = false;
+   }
+
+   /**
+    * Begins a phase. Must be followed by a matching call to {@link #end}.
+    *
+    * @param phase phase to begin
+    */
+   public synchronized void begin (Phase phase) {
+      if (myDepth == MAX_DEPTH) {
+         // shouldn't happen unless begin/end calls are mismatched
+         myDepth = 0;
+      }
+      myStackPhase[myDepth] = phase;
+      myStackAlloc[myDepth] = allocatedBytes();
+      myStackStart[myDepth] = System.nanoTime();
+      myDepth++;
+   }
+
+   /**
+    * Ends a phase. If there are unfinished phases nested inside it (which
+    * can happen if an exception was thrown), these are ended as well.
+    *
+    * @param phase phase to end
+    */
+   public synchronized void end (Phase phase) {
+      long time = System.nanoTime();
+      long alloc = allocatedBytes();
+      int d = myDepth-1;
+      while (d >= 0 && myStackPhase[d] != phase) {
+         d--;
+      }
+      if (d < 0) {
+         // no matching begin; ignore
+         return;
+      }
+      while (myDepth > d) {
+         myDepth--;
+         record (myStackPhase[myDepth], myDepth,
+                 myStackStart[myDepth], time-myStackStart[myDepth],
+                 alloc-myStackAlloc[myDepth]);
+      }
+   }
+
+   private void record (
+      Phase phase, int depth, long start, long nanos, long alloc) {
+      int p = phase.ordinal();
+      myTotalNanos[p] += nanos;
+      myTotalAlloc[p] += alloc;
+      myTotalCount[p]++;
+      long step = myStepActive ? myNumSteps-1 : -1;
+      if (step >= 0) {
+         int slot = (int)(step % myStepCap);
+         myStepNanos[slot][p] += nanos;
+         myStepAlloc[slot][p] += alloc;
+      }
+      int k = (int)(myNumEvents % myEventCap);
+      myEventPhase[k] = (byte)p;
+      myEventDepth[k] = (byte)depth;
+      myEventStep[k] = step;
+      myEventStart[k] = start-myOrigin;
+      myEventNanos[k] = nanos;
+      myEventAlloc[k] = alloc;
+      myNumEvents++;
+   }
+
+   /**
+    * Returns the total number of steps recorded since this profiler was
+    * created or last cleared.
+    *
+    * @return total number of steps
+    */
+   public long getTotalSteps() {
+      return myNumSteps;
+   }
+
+   /**
+    * Returns the number of step records currently retained in the step ring
+    * buffer.
+    *
+    * @return number of retained steps
+    */
+   public synchronized int numSteps() {
+      return (int)Math.min (myNumSteps, myStepCap);
+   }
+
+   private int stepSlot (int idx) {
+      int num = numSteps();
+      if (idx < 0 || idx >= num) {
+         throw new IndexOutOfBoundsException (
+            "step index "+idx+" not in range [0,"+(num-1)+"]");
+      }
+      return (int)((myNumSteps - num + idx) % myStepCap);
+   }
+
+   /**
+    * Returns the simulation start time of a retained step.
+    *
+    * @param idx index of the step, where 0 is the oldest retained step
+    * @return start time of the step
+    */
+   public synchronized double getStepStartTime (int idx) {
+      return myStepT0[stepSlot(idx)];
+   }
+
+   /**
+    * Returns the simulation end time of a retained step.
+    *
+    * @param idx index of the step, where 0 is the oldest retained step
+    * @return end time of the step
+    */
+   public synchronized double getStepEndTime (int idx) {
+      return myStepT1[stepSlot(idx)];
+   }
+
+   /**
+    * Returns the total time spent in a phase during a retained step.
+    *
+    * @param idx index of the step, where 0 is the oldest retained step
+    * @param phase phase to query
+    * @return time spent in the phase, in nanoseconds
+    */
+   public synchronized long getStepNanos (int idx, Phase phase) {
+      return myStepNanos[stepSlot(idx)][phase.ordinal()];
+   }
+
+   /**
+    * Returns the number of bytes allocated in a phase during a retained
+    * step, or 0 if allocation tracking is disabled.
+    *
+    * @param idx index of the step, where 0 is the oldest retained step
+    * @param phase phase to query
+    * @return bytes allocated in the phase
+    */
+   public synchronized long getStepAllocatedBytes (int idx, Phase phase) {
+      return myStepAlloc[stepSlot(idx)][phase.ordinal()];
+   }
+
+   /**
+    * Returns the total time spent in a phase since this profiler was created
+    * or last cleared.
+    *
+    * @param phase phase to query
+    * @return total time, in nanoseconds
+    */
+   public synchronized long getTotalNanos (Phase phase) {
+      return myTotalNanos[phase.ordinal()];
+   }
+
+   /**
+    * Returns the total number of bytes allocated in a phase since this
+    * profiler was created or last cleared.
+    *
+    * @param phase phase to query
+    * @return total bytes allocated
+    */
+   public synchronized long getTotalAllocatedBytes (Phase phase) {
+      return myTotalAlloc[phase.ordinal()];
+   }
+
+   /**
+    * Returns the number of times a phase has been recorded since this
+    * profiler was created or last cleared.
+    *
+    * @param phase phase to query
+    * @return number of times the phase was recorded
+    */
+   public synchronized long getTotalCount (Phase phase) {
+      return myTotalCount[phase.ordinal()];
+   }
+
+   /**
+    * Returns the number of phase events currently retained in the event ring
+    * buffer.
+    *
+    * @return number of retained events
+    */
+   public synchronized int numEvents() {
+      return (int)Math.min (myNumEvents, myEventCap);
+   }
+
+   /**
+    * Returns a summary of the cumulative phase totals, giving for each
+    * phase the number of times it was recorded, and its average time and
+    * allocation per step.
+    *
+    * @return summary string
+    */
+   public synchronized String getSummary() {
+      StringBuilder sb = new StringBuilder();
+      long nsteps = Math.max (1, myNumSteps);
+      long stepNanos = Math.max (1, myTotalNanos[Phase.STEP.ordinal()]);
+      sb.append (String.format (
+         "%-22s %10s %12s %8s %14s\n",
+         "phase", "count", "msec/step", "%step", "bytes/step"));
+      for (Phase phase : PHASES) {
+         int p = phase.ordinal();
+         if (myTotalCount[p] == 0) {
+            continue;
+         }
+         sb.append (String.format (
+            "%-22s %10d %12.4f %8.2f %14d\n",
+            phase.getName(), myTotalCount[p], 1e-6*myTotalNanos[p]/nsteps,
+            100.0*myTotalNanos[p]/stepNanos, myTotalAlloc[p]/nsteps));
+      }
+      return sb.toString();
+   }
+
+   /**
+    * Writes the retained step records as CSV, with one row per step. The
+    * columns give the step number, the simulation start and end times, and
+    * then the time (in nanoseconds) and allocated bytes for each phase.
+    *
+    * @param pw writer to write the data to
+    */
+   public synchronized void writeCsv (PrintWriter pw) {
+      pw.print ("step,t0,t1");
+      for (Phase phase : PHASES) {
+         pw.print ("," + phase.getName() + "_ns");
+      }
+      for (Phase phase : PHASES) {
+         pw.print ("," + phase.getName() + "_bytes");
+      }
+      pw.println ("");
+      int num = numSteps();
+      for (int i=0; i<num; i++) {
+         int slot = stepSlot (i);
+         pw.print ((myNumSteps-num+i) + "," + myStepT0[slot] + "," +
+                   myStepT1[slot]);
+         for (int p=0; p<NUM_PHASES; p++) {
+            pw.print ("," + myStepNanos[slot][p]);
+         }
+         for (int p=0; p<NUM_PHASES; p++) {
+            pw.print ("," + myStepAlloc[slot][p]);
+         }
+         pw.println ("");
+      }
+      pw.flush();
+   }
+
+   /**
+    * Writes the retained step records as CSV to a file.
+    *
+    * @param fileName name of the file
+    * @throws IOException if an I/O error occurred
+    * @see #writeCsv(PrintWriter)
+    */
+   public void writeCsv (String fileName) throws IOException {
+      PrintWriter pw =
+         new PrintWriter (new BufferedWriter (new FileWriter (fileName)));
+      try {
+         writeCsv (pw);
+      }
+      finally {
+         pw.close();
+      }
+   }
+
+   /**
+    * Writes the retained phase events as a JSON file in the Chrome trace
+    * event format, using one complete ("X") event per phase. Times are given
+    * in microseconds relative to when this profiler was created or last
+    * cleared.
+    *
+    * @param pw writer to write the data to
+    */
+   public synchronized void writeChromeTrace (PrintWriter pw) {
+      pw.println ("{\"traceEvents\":[");
+      int num = numEvents();
+      for (int i=0; i<num; i++) {
+         int k = (int)((myNumEvents - num + i) % myEventCap);
+         Phase phase = PHASES[myEventPhase[k]];
+         pw.print (String.format (
+            "{\"name\":\"%s\",\"ph\":\"X\",\"pid\":1,\"tid\":1," +
+            "\"ts\":%.3f,\"dur\":%.3f," +
+            "\"args\":{\"step\":%d,\"depth\":%d,\"bytes\":%d}}",
+            phase.getName(), myEventStart[k]/1000.0, myEventNanos[k]/1000.0,
+            myEventStep[k], myEventDepth[k], myEventAlloc[k]));
+         pw.println (i < num-1 ? "," : "");
+      }
+      pw.println ("],\"displayTimeUnit\":\"ms\"}");
+      pw.flush();
+   }
+
+   /**
+    * Writes the retained phase events to a file in the Chrome trace event
+    * format.
+    *
+    * @param fileName name of the file
+    * @throws IOException if an I/O error occurred
+    * @see #writeChromeTrace(PrintWriter)
+    */
+   public void writeChromeTrace (String fileName) throws IOException {
+      PrintWriter pw =
+         new PrintWriter (new BufferedWriter (new FileWriter (fileName)));
+      try {
+         writeChromeTrace (pw);
+      }
+      finally {
+         pw.close();
+      }
+   }
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package artisynth.core.modelbase;
+
+import java.io.*;
+
+import artisynth.core.modelbase.StepProfiler.Phase;
+import maspack.util.*;
+
+/**
+ * Tests the phase bookkeeping and output of StepProfiler.
+ */
+public class StepProfilerTest extends UnitTest {
+
+   static double[] myData;
+
+   private void doStep (StepProfiler prof, double t0, double t1, int nalloc) {
+      prof.beginStep (t0, t1);
+      prof.begin (Phase.INPUT_PROBES);
+      prof.end (Phase.INPUT_PROBES);
+      prof.begin (Phase.ADVANCE);
+      prof.begin (Phase.KKT_SOLVE);
+      myData = new double[nalloc];
+      prof.end (Phase.KKT_SOLVE);
+      prof.end (Phase.ADVANCE);
+      prof.endStep();
+   }
+
+   public void testStepRecords() {
+      StepProfiler prof = new StepProfiler (4, 10);
+      int nsteps = 7;
+      for (int i=0; i<nsteps; i++) {
+         doStep (prof, 0.01*i, 0.01*(i+1), 1000);
+      }
+      checkEquals ("total steps", prof.getTotalSteps(), (long)nsteps);
+      checkEquals ("numSteps", prof.numSteps(), 4);
+      checkEquals ("numEvents", prof.numEvents(), 10);
+      checkEquals (
+         "total STEP count", prof.getTotalCount(Phase.STEP), (long)nsteps);
+      checkEquals (
+         "total KKT count", prof.getTotalCount(Phase.KKT_SOLVE), (long)nsteps);
+      checkEquals (
+         "total COLLISION count", prof.getTotalCount(Phase.COLLISION), 0L);
+      long kktTotal = 0;
+      for (int i=0; i<prof.numSteps(); i++) {
+         // oldest retained step should be step 3
+         checkEquals ("step t0", prof.getStepStartTime(i), 0.01*(i+3));
+         checkEquals ("step t1", prof.getStepEndTime(i), 0.01*(i+4));
+         long step = prof.getStepNanos (i, Phase.STEP);
+         long adv = prof.getStepNanos (i, Phase.ADVANCE);
+         long kkt = prof.getStepNanos (i, Phase.KKT_SOLVE);
+         // times are inclusive, so nested phases can't exceed their parents
+         if (adv > step || kkt > adv) {
+            throw new TestException (
+               "nested phase times exceed parent times: step=" + step +
+               " advance=" + adv + " kkt=" + kkt);
+         }
+         if (StepProfiler.isAllocationTrackingSupported()) {
+            long bytes = prof.getStepAllocatedBytes (i, Phase.KKT_SOLVE);
+            if (bytes < 8000) {
+               throw new TestException (
+                  "KKT allocation is " + bytes + ", expected >= 8000");
+            }
+         }
+         kktTotal += kkt;
+      }
+      if (kktTotal > prof.getTotalNanos (Phase.KKT_SOLVE)) {
+         throw new TestException (
+            "retained KKT times exceed total KKT time");
+      }
+      try {
+         prof.getStepNanos (4, Phase.STEP);
+         throw new TestException ("out of range step index not detected");
+      }
+      catch (IndexOutOfBoundsException e) {
+         // expected
+      }
+      prof.clear();
+      checkEquals ("numSteps after clear", prof.numSteps(), 0);
+      checkEquals (
+         "total STEP count after clear", prof.getTotalCount(Phase.STEP), 0L);
+   }
+
+   public void testUnbalancedPhases() {
+      StepProfiler prof = new StepProfiler();
+      prof.beginStep (0, 1);
+      prof.begin (Phase.ADVANCE);
+      prof.begin (Phase.KKT_SOLVE);
+      // end without a matching begin should be ignored
+      prof.end (Phase.MONITORS);
+      // simulate an exception that leaves ADVANCE and KKT_SOLVE open
+      prof.endStep();
+      checkEquals ("KKT count", prof.getTotalCount(Phase.KKT_SOLVE), 1L);
+      checkEquals ("ADVANCE count", prof.getTotalCount(Phase.ADVANCE), 1L);
+      checkEquals ("STEP count", prof.getTotalCount(Phase.STEP), 1L);
+      checkEquals ("MONITORS count", prof.getTotalCount(Phase.MONITORS), 0L);
+   }
+
+   public void testActivation() {
+      check ("no current profiler", StepProfiler.getCurrent() == null);
+      StepProfiler prof = new StepProfiler();
+      prof.activate();
+      try {
+         check ("current profiler", StepProfiler.getCurrent() == prof);
+         try {
+            prof.activate();
+            throw new TestException ("repeated activation not detected");
+         }
+         catch (IllegalStateException e) {
+            // expected
+         }
+      }
+      finally {
+         prof.deactivate();
+      }
+      check ("no current profiler", StepProfiler.getCurrent() == null);
+   }
+
+   public void testOutput() {
+      StepProfiler prof = new StepProfiler (3, 100);
+      for (int i=0; i<5; i++) {
+         doStep (prof, i, i+1, 10);
+      }
+      StringWriter sw = new StringWriter();
+      prof.writeCsv (new PrintWriter (sw));
+      String[] lines = sw.toString().split ("\n");
+      checkEquals ("CSV lines", lines.length, 4);
+      int ncols = 3 + 2*Phase.values().length;
+      for (int i=0; i<lines.length; i++) {
+         checkEquals (
+            "CSV columns, line " + i, lines[i].split(",").length, ncols);
+      }
+      if (!lines[1].startsWith ("2,2.0,3.0,")) {
+         throw new TestException (
+            "unexpected first CSV data row: " + lines[1]);
+      }
+
+      sw = new StringWriter();
+      prof.writeChromeTrace (new PrintWriter (sw));
+      String trace = sw.toString();
+      if (!trace.startsWith ("{\"traceEvents\":[") ||
+          !trace.trim().endsWith ("}")) {
+         throw new TestException ("malformed trace:\n" + trace);
+      }
+      // 4 events per step
+      int nevents = trace.split ("\"ph\":\"X\"").length - 1;
+      checkEquals ("trace events", nevents, 20);
+      if (!trace.contains ("\"name\":\"KKTFactorAndSolve\"")) {
+         throw new TestException ("trace missing KKT events:\n" + trace);
+      }
+   }
+
+   public void test() {
+      testStepRecords();
+      testUnbalancedPhases();
+      testActivation();
+      testOutput();
+   }
+
+   public static void main (String[] args) {
+      StepProfilerTest tester = new StepProfilerTest();
+      tester.runtest();
+   }
+}
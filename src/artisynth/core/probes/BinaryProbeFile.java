@@ -0,0 +1,545 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package artisynth.core.probes;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+import maspack.interpolation.Interpolation.Order;
+import maspack.interpolation.NumericList;
+import maspack.interpolation.NumericListKnot;
+import maspack.util.ReaderTokenizer;
+
+/**
+ * Provides read access to numeric probe data stored in a binary probe
+ * file. The file is memory-mapped, so that data is paged in by the operating
+ * system on demand rather than being read into the heap. This allows input
+ * probes to be driven by data sets that are much larger than the available
+ * memory.
+ *
+ * <p>A binary probe file consists of a {@link #HEADER_SIZE} byte header,
+ * followed by one fixed-size record for each knot point. Each record
+ * contains the knot time followed by the {@code vsize} knot values, all
+ * stored as little-endian doubles. The header contains, in order:
+ * <ul>
+ * <li>the magic number {@code 0x41425052} (int)
+ * <li>the format version (int)
+ * <li>the vector size {@code vsize} (int)
+ * <li>a reserved int
+ * <li>the probe start time, stop time, and scale (three doubles)
+ * <li>the name of the interpolation order, as ASCII padded with zeros
+ * to 16 bytes
+ * </ul>
+ * The number of knots is determined from the file length, which allows
+ * files to be extended in streaming fashion by {@link BinaryProbeWriter}.
+ * Knot times must be strictly increasing.
+ */
+public class BinaryProbeFile {
+
+   /**
+    * File extension used for binary probe files.
+    */
+   public static final String EXTENSION = "abp";
+
+   static final int MAGIC = 0x41425052;
+   static final int VERSION = 1;
+   static final int HEADER_SIZE = 64;
+   static final int ORDER_OFFSET = 40;
+   static final int ORDER_NAME_SIZE = 16;
+
+   // approximate maximum size of each mapped segment of the file
+   static long maxSegmentSize = (1L << 28);
+
+   // number of knots loaded into the interpolation window
+   static final int WINDOW_SIZE = 64;
+
+   File myFile;
+   FileChannel myChannel;
+   int myVsize;
+   int myRecordSize;
+   long myNumKnots;
+   double myStartTime;
+   double myStopTime;
+   double myScale;
+   Order myOrder;
+
+   // mapped segments, created on demand
+   ByteBuffer[] mySegments;
+   int myKnotsPerSegment;
+
+   // range of knots currently loaded into the interpolation window
+   NumericList myWindowList;
+   long myWindowLo = -1;
+   long myWindowHi = -1;
+   double[] myWindowTimes;
+   double[] myWindowVals;
+
+   /**
+    * Opens a binary probe file for reading.
+    *
+    * @param file binary probe file to open
+    * @throws IOException if the file cannot be read or is not a binary
+    * probe file
+    */
+   public BinaryProbeFile (File file) throws IOException {
+      myFile = file;
+      myChannel = FileChannel.open (file.toPath(), StandardOpenOption.READ);
+      try {
+         ByteBuffer header = readHeader (myChannel, file);
+         myVsize = header.getInt (8);
+         myStartTime = header.getDouble (16);
+         myStopTime = header.getDouble (24);
+         myScale = header.getDouble (32);
+         myOrder = getOrder (header);
+         myRecordSize = 8*(myVsize+1);
+         myNumKnots = (myChannel.size()-HEADER_SIZE)/myRecordSize;
+         myKnotsPerSegment =
+            (int)Math.max (1, Math.min (
+                              maxSegmentSize/myRecordSize,
+                              Integer.MAX_VALUE/myRecordSize));
+         int nsegs = (int)((myNumKnots+myKnotsPerSegment-1)/myKnotsPerSegment);
+         mySegments = new ByteBuffer[nsegs];
+      }
+      catch (IOException e) {
+         myChannel.close();
+         throw e;
+      }
+   }
+
+   static ByteBuffer readHeader (FileChannel channel, File file)
+      throws IOException {
+      ByteBuffer header = ByteBuffer.allocate (HEADER_SIZE);
+      header.order (ByteOrder.LITTLE_ENDIAN);
+      while (header.hasRemaining()) {
+         if (channel.read (header, header.position()) < 0) {
+            throw new IOException (
+               "File '"+file+"' is too short to be a binary probe file");
+         }
+      }
+      if (header.getInt (0) != MAGIC) {
+         throw new IOException (
+            "File '"+file+"' is not a binary probe file");
+      }
+      if (header.getInt (4) != VERSION) {
+         throw new IOException (
+            "Binary probe file '"+file+"' has unsupported version " +
+            header.getInt (4));
+      }
+      if (header.getInt (8) < 0) {
+         throw new IOException (
+            "Binary probe file '"+file+"' has negative vector size");
+      }
+      return header;
+   }
+
+   static Order getOrder (ByteBuffer header) throws IOException {
+      byte[] bytes = new byte[ORDER_NAME_SIZE];
+      int len = 0;
+      while (len < ORDER_NAME_SIZE &&
+             header.get (ORDER_OFFSET+len) != 0) {
+         bytes[len] = header.get (ORDER_OFFSET+len);
+         len++;
+      }
+      String name = new String (bytes, 0, len, StandardCharsets.US_ASCII);
+      Order order = Order.fromString (name);
+      if (order == null) {
+         throw new IOException ("Unknown interpolation order '"+name+"'");
+      }
+      return order;
+   }
+
+   /**
+    * Returns true if a file exists and starts with the binary probe file
+    * magic number.
+    *
+    * @param file file to check
+    * @return {@code true} if {@code file} is a binary probe file
+    */
+   public static boolean isBinaryProbeFile (File file) {
+      if (!file.isFile() || file.length() < HEADER_SIZE) {
+         return false;
+      }
+      try (FileChannel channel =
+              FileChannel.open (file.toPath(), StandardOpenOption.READ)) {
+         ByteBuffer buf = ByteBuffer.allocate (4);
+         buf.order (ByteOrder.LITTLE_ENDIAN);
+         channel.read (buf, 0);
+         return buf.getInt (0) == MAGIC;
+      }
+      catch (IOException e) {
+         return false;
+      }
+   }
+
+   /**
+    * Returns the file associated with this binary probe file.
+    *
+    * @return associated file
+    */
+   public File getFile() {
+      return myFile;
+   }
+
+   /**
+    * Returns the vector size of the knot values.
+    *
+    * @return knot vector size
+    */
+   public int getVectorSize() {
+      return myVsize;
+   }
+
+   /**
+    * Returns the number of knots in this file.
+    *
+    * @return number of knots
+    */
+   public long numKnots() {
+      return myNumKnots;
+   }
+
+   /**
+    * Returns the probe start time stored in the file header.
+    *
+    * @return probe start time
+    */
+   public double getStartTime() {
+      return myStartTime;
+   }
+
+   /**
+    * Returns the probe stop time stored in the file header.
+    *
+    * @return probe stop time
+    */
+   public double getStopTime() {
+      return myStopTime;
+   }
+
+   /**
+    * Returns the probe scale stored in the file header.
+    *
+    * @return probe scale
+    */
+   public double getScale() {
+      return myScale;
+   }
+
+   /**
+    * Returns the interpolation order stored in the file header.
+    *
+    * @return interpolation order
+    */
+   public Order getInterpolationOrder() {
+      return myOrder;
+   }
+
+   private ByteBuffer getSegment (int sidx) {
+      ByteBuffer seg = mySegments[sidx];
+      if (seg == null) {
+         long k0 = (long)sidx*myKnotsPerSegment;
+         long numk = Math.min (myKnotsPerSegment, myNumKnots-k0);
+         try {
+            seg = myChannel.map (
+               FileChannel.MapMode.READ_ONLY,
+               HEADER_SIZE + k0*myRecordSize, numk*myRecordSize);
+         }
+         catch (IOException e) {
+            throw new UncheckedIOException (
+               "Can't map binary probe file '"+myFile+"'", e);
+         }
+         seg.order (ByteOrder.LITTLE_ENDIAN);
+         mySegments[sidx] = seg;
+      }
+      return seg;
+   }
+
+   /**
+    * Returns the time of the k-th knot.
+    *
+    * @param k knot index
+    * @return time of the knot
+    */
+   public double getTime (long k) {
+      ByteBuffer seg = getSegment ((int)(k/myKnotsPerSegment));
+      return seg.getDouble ((int)(k%myKnotsPerSegment)*myRecordSize);
+   }
+
+   /**
+    * Reads the values of the k-th knot.
+    *
+    * @param k knot index
+    * @param vals returns the values
+    * @param off offset within {@code vals} at which to store the values
+    */
+   public void getValues (long k, double[] vals, int off) {
+      ByteBuffer seg = getSegment ((int)(k/myKnotsPerSegment));
+      int idx = (int)(k%myKnotsPerSegment)*myRecordSize + 8;
+      for (int i=0; i<myVsize; i++) {
+         vals[off+i] = seg.getDouble (idx);
+         idx += 8;
+      }
+   }
+
+   /**
+    * Uses binary search to find the index of the last knot whose time is
+    * {@code <= t}. If {@code t} is less than the first knot time, 0 is
+    * returned, and if the file contains no knots, -1 is returned.
+    *
+    * @param t time to search for
+    * @return index of the knot at or before {@code t}
+    */
+   public long findKnotAtOrBefore (double t) {
+      if (myNumKnots == 0) {
+         return -1;
+      }
+      long lo = 0;
+      long hi = myNumKnots-1;
+      if (t < getTime (0)) {
+         return 0;
+      }
+      // invariant: time(lo) <= t, and t < time(hi+1) if hi+1 < numKnots
+      while (lo < hi) {
+         long mid = (lo+hi+1) >>> 1;
+         if (getTime (mid) <= t) {
+            lo = mid;
+         }
+         else {
+            hi = mid-1;
+         }
+      }
+      return lo;
+   }
+
+   /**
+    * Loads into {@code list} a window of knots surrounding time {@code t},
+    * so that the result of interpolating {@code list} at {@code t} is the
+    * same as it would be for a list containing all the knots in this
+    * file. If the knots already loaded into {@code list} by the previous
+    * call are sufficient, {@code list} is left unchanged, so that sequential
+    * access is inexpensive.
+    *
+    * @param list list into which the window is loaded
+    * @param t time around which the window should be loaded
+    */
+   public void loadWindow (NumericList list, double t) {
+      if (myNumKnots == 0) {
+         list.clear();
+         myWindowList = list;
+         return;
+      }
+      long k = findKnotAtOrBefore (t);
+      // interpolation uses at most the knots k-1 through k+2
+      long lo = Math.max (0, k-1);
+      long hi = Math.min (myNumKnots, k+3);
+      if (list == myWindowList && myWindowLo <= lo && hi <= myWindowHi) {
+         return;
+      }
+      // place more knots ahead of t, since access is mostly forward
+      lo = Math.max (0, k-WINDOW_SIZE/4);
+      hi = Math.min (myNumKnots, lo+WINDOW_SIZE);
+      lo = Math.max (0, hi-WINDOW_SIZE);
+      int numk = (int)(hi-lo);
+      if (myWindowTimes == null || myWindowTimes.length != numk) {
+         myWindowTimes = new double[numk];
+         myWindowVals = new double[numk*myVsize];
+      }
+      for (int i=0; i<numk; i++) {
+         myWindowTimes[i] = getTime (lo+i);
+         getValues (lo+i, myWindowVals, i*myVsize);
+      }
+      list.setValues (myWindowTimes, myWindowVals);
+      myWindowList = list;
+      myWindowLo = lo;
+      myWindowHi = hi;
+   }
+
+   /**
+    * Reads all the knots in this file into {@code list}, replacing its
+    * current contents.
+    *
+    * @param list list into which the knots are read
+    */
+   public void readAll (NumericList list) {
+      if (myNumKnots > Integer.MAX_VALUE) {
+         throw new IllegalStateException (
+            "Binary probe file '"+myFile+"' has too many knots to read");
+      }
+      int numk = (int)myNumKnots;
+      double[] times = new double[numk];
+      double[] vals = new double[numk*myVsize];
+      for (int k=0; k<numk; k++) {
+         times[k] = getTime (k);
+         getValues (k, vals, k*myVsize);
+      }
+      list.setValues (times, vals);
+      myWindowList = null;
+   }
+
+   /**
+    * Closes this file. Mapped segments are released once they are garbage
+    * collected.
+    */
+   public void close() {
+      try {
+         myChannel.close();
+      }
+      catch (IOException e) {
+         // ignore
+      }
+      mySegments = new ByteBuffer[0];
+      myNumKnots = 0;
+      myWindowList = null;
+   }
+
+   /**
+    * Writes the contents of a numeric list to a binary probe file.
+    *
+    * @param file file to write
+    * @param list list containing the knots
+    * @param startTime probe start time
+    * @param stopTime probe stop time
+    * @param scale probe scale
+    * @throws IOException if an I/O error occurred
+    */
+   public static void write (
+      File file, NumericList list,
+      double startTime, double stopTime, double scale) throws IOException {
+      BinaryProbeWriter writer = new BinaryProbeWriter (
+         file, list.getVectorSize(), list.getInterpolation().getOrder(),
+         startTime, stopTime, scale, /*append=*/false);
+      try {
+         for (NumericListKnot knot : list) {
+            writer.append (knot.t, knot.v.getBuffer());
+         }
+      }
+      finally {
+         writer.close();
+      }
+   }
+
+   /**
+    * Converts a probe data file in the text format described for {@link
+    * NumericProbeBase#read(File,boolean)} into a binary probe file. Numbers
+    * are stored with full double precision, so that the conversion is
+    * lossless. Data is streamed, so the text file may be larger than the
+    * available memory.
+    *
+    * @param textFile text probe file to convert
+    * @param binFile binary probe file to write
+    * @throws IOException if an I/O or format error occurred
+    */
+   public static void convertTextToBinary (File textFile, File binFile)
+      throws IOException {
+      ReaderTokenizer rtok =
+         new ReaderTokenizer (new BufferedReader (new FileReader (textFile)));
+      BinaryProbeWriter writer = null;
+      try {
+         // header parsing mirrors NumericProbeBase.read()
+         rtok.commentChar ('#');
+         rtok.ordinaryChar ('/');
+         double startTime = scanTime (rtok);
+         double stopTime = scanTime (rtok);
+         double scale = rtok.scanNumber();
+         String orderName = rtok.scanWord();
+         Order order = Order.fromString (orderName);
+         if (order == null) {
+            if (orderName.equalsIgnoreCase ("linear")) {
+               order = Order.Linear;
+            }
+            else if (orderName.equalsIgnoreCase ("step")) {
+               order = Order.Step;
+            }
+            else if (orderName.equalsIgnoreCase ("cubic")) {
+               order = Order.Cubic;
+            }
+            else {
+               throw new IOException (
+                  "unknown interpolation order '" + orderName + "', line " +
+                  rtok.lineno());
+            }
+         }
+         int vsize = rtok.scanInteger();
+         double timeStep;
+         if (rtok.nextToken() == ReaderTokenizer.TT_NUMBER) {
+            timeStep = rtok.nval;
+         }
+         else if (rtok.ttype == ReaderTokenizer.TT_WORD &&
+                  rtok.sval.equals ("explicit")) {
+            timeStep = NumericProbeBase.EXPLICIT_TIME;
+         }
+         else {
+            throw new IOException (
+               "expecting either a time step or the keyword 'explicit', line "
+               + rtok.lineno());
+         }
+         writer = new BinaryProbeWriter (
+            binFile, vsize, order, startTime, stopTime, scale,
+            /*append=*/false);
+         double[] vals = new double[vsize];
+         double time = 0;
+         double lastTime = -Double.MAX_VALUE;
+         while (vsize > 0 && rtok.nextToken() != ReaderTokenizer.TT_EOF) {
+            double t;
+            if (timeStep == NumericProbeBase.EXPLICIT_TIME) {
+               if (rtok.ttype != ReaderTokenizer.TT_NUMBER) {
+                  throw new IOException (
+                     "Expected time value, line " + rtok.lineno());
+               }
+               t = rtok.nval;
+            }
+            else {
+               t = time;
+               time += timeStep;
+               rtok.pushBack();
+            }
+            if (rtok.scanNumbers (vals, vsize) != vsize) {
+               if (rtok.ttype == ReaderTokenizer.TT_EOF) {
+                  break;
+               }
+               else {
+                  throw new IOException (
+                     "Unexpected token " + rtok.tokenName() + ", line " +
+                     rtok.lineno());
+               }
+            }
+            if (t < lastTime) {
+               throw new IOException (
+                  "knot times must be increasing, line " + rtok.lineno());
+            }
+            // equal times replace the previous knot, as with NumericList
+            writer.append (t, vals);
+            lastTime = t;
+         }
+      }
+      finally {
+         rtok.close();
+         if (writer != null) {
+            writer.close();
+         }
+      }
+   }
+
+   private static double scanTime (ReaderTokenizer rtok) throws IOException {
+      // same conventions as Probe.scanTimeQuantity()
+      rtok.nextToken();
+      if (!rtok.tokenIsNumber()) {
+         throw new IOException (
+            "expected time value; got "+rtok+", line "+rtok.lineno());
+      }
+      if (rtok.tokenIsInteger()) {
+         return 1.0e-9*rtok.lval;
+      }
+      else {
+         return rtok.nval;
+      }
+   }
+}
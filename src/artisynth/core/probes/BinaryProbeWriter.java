@@ -0,0 +1,252 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package artisynth.core.probes;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+import maspack.interpolation.Interpolation.Order;
+
+/**
+ * Writes numeric probe data to a binary probe file, as described for {@link
+ * BinaryProbeFile}, in streaming fashion. Knots are appended one at a time
+ * and buffered internally, so that data need not be retained in memory.
+ *
+ * <p>Knots must be appended in time order. If a knot is appended whose time
+ * is less than or equal to that of the last knot, the file is first
+ * truncated to remove all knots whose times are {@code >=} the new time.
+ * This mirrors the behavior of {@link NumericOutputProbe} when the
+ * simulation time is reset to an earlier value.
+ */
+public class BinaryProbeWriter {
+
+   private static final int BUFFER_SIZE = 1 << 16;
+
+   File myFile;
+   FileChannel myChannel;
+   int myVsize;
+   int myRecordSize;
+   long myNumKnots;    // number of knots, including those buffered
+   long myNumWritten;  // number of knots written to the channel
+   double myLastTime;
+   ByteBuffer myBuffer;
+   ByteBuffer myTimeBuf;
+
+   /**
+    * Creates a writer for a binary probe file.
+    *
+    * @param file file to write to
+    * @param vsize vector size of the knot values
+    * @param order interpolation order to store in the header
+    * @param startTime probe start time to store in the header
+    * @param stopTime probe stop time to store in the header
+    * @param scale probe scale to store in the header
+    * @param append if {@code true}, and {@code file} is an existing binary
+    * probe file with the same vector size, its knots are retained and new
+    * knots are appended to them. Otherwise, the file is overwritten.
+    * @throws IOException if an I/O error occurred
+    */
+   public BinaryProbeWriter (
+      File file, int vsize, Order order,
+      double startTime, double stopTime, double scale, boolean append)
+      throws IOException {
+
+      if (vsize < 0) {
+         throw new IllegalArgumentException (
+            "vsize=" + vsize + "; must not be negative");
+      }
+      myFile = file;
+      myVsize = vsize;
+      myRecordSize = 8*(vsize+1);
+      myLastTime = -Double.MAX_VALUE;
+      boolean keepKnots = false;
+      if (append && BinaryProbeFile.isBinaryProbeFile (file)) {
+         myChannel = FileChannel.open (
+            file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+         ByteBuffer header = BinaryProbeFile.readHeader (myChannel, file);
+         keepKnots = (header.getInt (8) == vsize);
+      }
+      else {
+         myChannel = FileChannel.open (
+            file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE,
+            StandardOpenOption.CREATE);
+      }
+      myTimeBuf = ByteBuffer.allocate (8);
+      myTimeBuf.order (ByteOrder.LITTLE_ENDIAN);
+      if (keepKnots) {
+         myNumKnots =
+            (myChannel.size()-BinaryProbeFile.HEADER_SIZE)/myRecordSize;
+         if (myNumKnots > 0) {
+            myLastTime = readTime (myNumKnots-1);
+         }
+      }
+      else {
+         myNumKnots = 0;
+      }
+      // remove any partial record at the end
+      myChannel.truncate (recordPosition (myNumKnots));
+      myNumWritten = myNumKnots;
+      writeHeader (order, startTime, stopTime, scale);
+      myBuffer = ByteBuffer.allocate (Math.max (BUFFER_SIZE, myRecordSize));
+      myBuffer.order (ByteOrder.LITTLE_ENDIAN);
+   }
+
+   private long recordPosition (long k) {
+      return BinaryProbeFile.HEADER_SIZE + k*myRecordSize;
+   }
+
+   private void writeHeader (
+      Order order, double startTime, double stopTime, double scale)
+      throws IOException {
+      ByteBuffer header = ByteBuffer.allocate (BinaryProbeFile.HEADER_SIZE);
+      header.order (ByteOrder.LITTLE_ENDIAN);
+      header.putInt (0, BinaryProbeFile.MAGIC);
+      header.putInt (4, BinaryProbeFile.VERSION);
+      header.putInt (8, myVsize);
+      header.putDouble (16, startTime);
+      header.putDouble (24, stopTime);
+      header.putDouble (32, scale);
+      byte[] name = order.toString().getBytes (StandardCharsets.US_ASCII);
+      for (int i=0; i<name.length && i<BinaryProbeFile.ORDER_NAME_SIZE; i++) {
+         header.put (BinaryProbeFile.ORDER_OFFSET+i, name[i]);
+      }
+      writeFully (header, 0);
+   }
+
+   private void writeFully (ByteBuffer buf, long pos) throws IOException {
+      while (buf.hasRemaining()) {
+         pos += myChannel.write (buf, pos);
+      }
+   }
+
+   private double readTime (long k) throws IOException {
+      myTimeBuf.clear();
+      long pos = recordPosition (k);
+      while (myTimeBuf.hasRemaining()) {
+         if (myChannel.read (myTimeBuf, pos+myTimeBuf.position()) < 0) {
+            throw new IOException (
+               "Unexpected end of binary probe file '"+myFile+"'");
+         }
+      }
+      return myTimeBuf.getDouble (0);
+   }
+
+   /**
+    * Updates the start time, stop time, and scale stored in the file header.
+    *
+    * @param startTime probe start time
+    * @param stopTime probe stop time
+    * @param scale probe scale
+    * @param order interpolation order
+    * @throws IOException if an I/O error occurred
+    */
+   public void setHeader (
+      double startTime, double stopTime, double scale, Order order)
+      throws IOException {
+      writeHeader (order, startTime, stopTime, scale);
+   }
+
+   /**
+    * Returns the number of knots in the file, including those that have
+    * been appended but not yet flushed.
+    *
+    * @return number of knots
+    */
+   public long numKnots() {
+      return myNumKnots;
+   }
+
+   /**
+    * Returns the time of the last knot in the file, or {@code
+    * -Double.MAX_VALUE} if there are no knots.
+    *
+    * @return time of the last knot
+    */
+   public double getLastTime() {
+      return myLastTime;
+   }
+
+   /**
+    * Appends a knot to the file, first removing any existing knots whose
+    * times are {@code >= t}.
+    *
+    * @param t knot time
+    * @param vals knot values, with length {@code >=} the vector size
+    * @throws IOException if an I/O error occurred
+    */
+   public void append (double t, double[] vals) throws IOException {
+      if (t <= myLastTime) {
+         truncateFrom (t);
+      }
+      if (myBuffer.remaining() < myRecordSize) {
+         flushBuffer();
+      }
+      myBuffer.putDouble (t);
+      for (int i=0; i<myVsize; i++) {
+         myBuffer.putDouble (vals[i]);
+      }
+      myNumKnots++;
+      myLastTime = t;
+   }
+
+   /**
+    * Removes all knots whose times are {@code >= t}.
+    */
+   private void truncateFrom (double t) throws IOException {
+      flushBuffer();
+      // binary search for the first knot with time >= t
+      long lo = 0;
+      long hi = myNumKnots;
+      while (lo < hi) {
+         long mid = (lo+hi) >>> 1;
+         if (readTime (mid) < t) {
+            lo = mid+1;
+         }
+         else {
+            hi = mid;
+         }
+      }
+      myChannel.truncate (recordPosition (lo));
+      myNumKnots = lo;
+      myNumWritten = lo;
+      myLastTime = (lo > 0 ? readTime (lo-1) : -Double.MAX_VALUE);
+   }
+
+   private void flushBuffer() throws IOException {
+      myBuffer.flip();
+      writeFully (myBuffer, recordPosition (myNumWritten));
+      myBuffer.clear();
+      myNumWritten = myNumKnots;
+   }
+
+   /**
+    * Writes any buffered knots to the file.
+    *
+    * @throws IOException if an I/O error occurred
+    */
+   public void flush() throws IOException {
+      flushBuffer();
+   }
+
+   /**
+    * Writes any buffered knots to the file and closes it.
+    *
+    * @throws IOException if an I/O error occurred
+    */
+   public void close() throws IOException {
+      try {
+         flushBuffer();
+      }
+      finally {
+         myChannel.close();
+      }
+   }
+}
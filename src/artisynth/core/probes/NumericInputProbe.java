@@ -227,6 +227,7 @@ public class NumericInputProbe extends NumericProbeBase
     * if an I/O error occurs.
     */
    public void write (PrintWriter pw, String fmtStr) throws IOException {
+      unmapData();
       pw.println (getStartTime() + " " + getStopTime() + " " + myScale);
       pw.print (myInterpolation.getOrder()+" "+myNumericList.getVectorSize());
       pw.println (" explicit");
@@ -252,7 +253,10 @@ public class NumericInputProbe extends NumericProbeBase
 
    /**
     * When called (perhaps by the Artsynth timeline), causes information about
-    * this probe to be written to the attached file.
+    * this probe to be written to the attached file. If the attached file has
+    * the extension {@link BinaryProbeFile#EXTENSION}, the information is
+    * written in binary. If the probe data is memory-mapped from the attached
+    * file, the file is left unchanged.
     * 
     * @see #write
     */
@@ -262,6 +266,12 @@ public class NumericInputProbe extends NumericProbeBase
          if (isAttachedFileRelative()) {
             file.getParentFile().mkdirs();
          }
+         if (BinaryProbeFile.EXTENSION.equals (
+                ArtisynthPath.getFileExtension (file))) {
+            exportBinaryData (file);
+            return;
+         }
+         unmapData();
          PrintWriter pw = 
             new PrintWriter (new BufferedWriter (new FileWriter (file)));
          try {
@@ -277,6 +287,7 @@ public class NumericInputProbe extends NumericProbeBase
    }
 
    public void loadEmpty() {
+      unmapData();
       NumericListKnot knotStart = new NumericListKnot (myVsize);
       NumericListKnot knotEnd = new NumericListKnot (myVsize);
 
@@ -349,6 +360,7 @@ public class NumericInputProbe extends NumericProbeBase
     * the point times
     */
    public void addData (double[] data, double timeStep) {
+      unmapData();
       int recSize = (timeStep == EXPLICIT_TIME ? myVsize + 1 : myVsize);
       int k = 0;
       double time = 0;
@@ -388,6 +400,7 @@ public class NumericInputProbe extends NumericProbeBase
          throw new IllegalArgumentException ("input vector has size "
          + v.size() + " vs. " + myVsize);
       }
+      unmapData();
       NumericListKnot knot = new NumericListKnot (myVsize);
       knot.t = t;
       knot.v.set (v);
@@ -400,6 +413,7 @@ public class NumericInputProbe extends NumericProbeBase
          throw new IllegalArgumentException ("input vector has size "
             + v.length + " vs. " + myVsize);
       }
+      unmapData();
       NumericListKnot knot = new NumericListKnot (myVsize);
       knot.t = t;
       knot.v.set (v);
@@ -418,6 +432,7 @@ public class NumericInputProbe extends NumericProbeBase
     * if size of vector is not equal to {@link #getVsize()}
     */
    public void addData (double t, maspack.matrix.Vector v) {
+      unmapData();
       myNumericList.add (v, t);
       // extendStopTimeIfNecessary();
    }
@@ -436,9 +451,17 @@ public class NumericInputProbe extends NumericProbeBase
     */
    public void apply (double t) {
       double tloc = (t-getStartTime()) / myScale;
-      myNumericList.interpolate (myTmpVec, tloc);
+      interpolateData (myTmpVec, tloc);
       int k = 0;
       double[] buf = myTmpVec.getBuffer();
+      if (hasDirectDrivers()) {
+         // set properties straight from the interpolated data
+         for (int i = 0; i < myPropList.size(); i++) {
+            myConverters[i].setPropertyValues (myPropList.get (i), buf, k);
+            k += myConverters[i].getDimension();
+         }
+         return;
+      }
       // load all channels
       for (NumericProbeVariable var : myVariables.values()) {
          var.setValues (buf, k);
@@ -530,6 +553,7 @@ public class NumericInputProbe extends NumericProbeBase
    }
 
    public void setData (double sec) {
+      unmapData();
       myTmpVec.setZero();
       double[] buf = myTmpVec.getBuffer();
       int k = 0;
@@ -563,6 +587,7 @@ public class NumericInputProbe extends NumericProbeBase
    }
 
    public NumericList getInput() {
+      unmapData();
       return myNumericList;
    }
 
@@ -730,6 +755,7 @@ public class NumericInputProbe extends NumericProbeBase
    public void writeItems (
       PrintWriter pw, NumberFormat fmt, CompositeComponent ancestor)
       throws IOException {
+      unmapData();
       super.writeItems (pw, fmt, ancestor);
       pw.println ("vsize=" + getVsize());
       if (myRotationRep != null) {
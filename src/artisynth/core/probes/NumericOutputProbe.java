@@ -11,6 +11,7 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.util.*;
 
 import maspack.interpolation.NumericList;
@@ -34,6 +35,9 @@ public class NumericOutputProbe extends NumericProbeBase
    private boolean myShowHeader;
    private static boolean defaultShowHeader = true;
 
+   // writer used when streaming data to a binary attached file
+   private BinaryProbeWriter myStreamWriter;
+
    public static PropertyList myProps =
       new PropertyList (NumericOutputProbe.class, NumericProbeBase.class);
 
@@ -176,6 +180,18 @@ public class NumericOutputProbe extends NumericProbeBase
       writeData (pw, fmtStr, showTime);
    }
 
+   /**
+    * {@inheritDoc}
+    *
+    * <p>If the file name has the extension {@link BinaryProbeFile#EXTENSION},
+    * output data is streamed to the file as a binary probe file each time the
+    * probe is applied, and only the most recent data is retained in memory.
+    */
+   public void setAttachedFileName (String fileName) {
+      closeStreamWriter();
+      super.setAttachedFileName (fileName);
+   }
+
    public void setAttachedFileName (String fileName, String fmtStr) {
       setAttachedFileName (fileName);
       setFormat (fmtStr);
@@ -201,6 +217,14 @@ public class NumericOutputProbe extends NumericProbeBase
          if (isAttachedFileRelative()) {
             file.getParentFile().mkdirs();
          }
+         if (isStreaming()) {
+            // data has already been written, so just update the header
+            getStreamWriter().setHeader (
+               getStartTime(), getStopTime(), myScale,
+               myInterpolation.getOrder());
+            getStreamWriter().flush();
+            return;
+         }
          PrintWriter pw = 
             new PrintWriter (new BufferedWriter (new FileWriter (file)));
          try {
@@ -278,24 +302,91 @@ public class NumericOutputProbe extends NumericProbeBase
       double tloc = (t-getStartTime())/myScale;
 
       NumericListKnot knot = new NumericListKnot (myVsize);
-      int i = 0;
-      for (NumericProbeVariable var : myVariables.values()) {
-         Object obj = myPropList.get (i).get();
-         var.setValues (myConverters[i].objectToArray (obj));
-         i++;
-      }
-      updateJythonVariables (myVariables, tloc);
-      int k = 0;
       double[] buf = knot.v.getBuffer();
-      for (NumericProbeDriver driver : myDrivers) {
-         double[] vals = driver.eval (myVariables, myJythonLocals);
-         for (int j = 0; j < vals.length; j++) {
-            buf[k++] = vals[j];
+      if (hasDirectDrivers()) {
+         // write property values straight into the knot
+         int k = 0;
+         for (int i=0; i<myPropList.size(); i++) {
+            myConverters[i].getPropertyValues (buf, k, myPropList.get (i));
+            k += myConverters[i].getDimension();
+         }
+      }
+      else {
+         int i = 0;
+         for (NumericProbeVariable var : myVariables.values()) {
+            Object obj = myPropList.get (i).get();
+            var.setValues (myConverters[i].objectToArray (obj));
+            i++;
+         }
+         updateJythonVariables (myVariables, tloc);
+         int k = 0;
+         for (NumericProbeDriver driver : myDrivers) {
+            double[] vals = driver.eval (myVariables, myJythonLocals);
+            for (int j = 0; j < vals.length; j++) {
+               buf[k++] = vals[j];
+            }
          }
       }
       knot.t = tloc;
       myNumericList.addAndAdjustRotations (knot);
       myNumericList.clearAfter (knot);
+      if (isStreaming()) {
+         try {
+            getStreamWriter().append (knot.t, buf);
+         }
+         catch (IOException e) {
+            throw new UncheckedIOException (
+               "Error streaming to probe file " + getAttachedFile(), e);
+         }
+         // retain only the previous knot, which is used to adjust rotations
+         NumericListKnot head;
+         while ((head = myNumericList.getFirst()) != knot &&
+                head != knot.getPrev()) {
+            myNumericList.remove (head);
+         }
+      }
+   }
+
+   /**
+    * Returns {@code true} if output data is being streamed to a binary
+    * attached file.
+    */
+   protected boolean isStreaming() {
+      String fileName = getAttachedFileName();
+      return (fileName != null &&
+              fileName.endsWith ("." + BinaryProbeFile.EXTENSION));
+   }
+
+   private BinaryProbeWriter getStreamWriter() throws IOException {
+      if (myStreamWriter == null) {
+         File file = getAttachedFile();
+         if (isAttachedFileRelative()) {
+            file.getParentFile().mkdirs();
+         }
+         // existing data is kept, and overwritten as new data is appended
+         myStreamWriter = new BinaryProbeWriter (
+            file, myVsize, myInterpolation.getOrder(),
+            getStartTime(), getStopTime(), myScale, /*append=*/true);
+      }
+      return myStreamWriter;
+   }
+
+   private void closeStreamWriter() {
+      if (myStreamWriter != null) {
+         try {
+            myStreamWriter.close();
+         }
+         catch (IOException e) {
+            System.out.println (
+               "WARNING: error closing probe file "+getAttachedFile()+":\n"+e);
+         }
+         myStreamWriter = null;
+      }
+   }
+
+   public void dispose() {
+      super.dispose();
+      closeStreamWriter();
    }
 
    // public void display (Component c, Graphics g)
@@ -304,6 +395,7 @@ public class NumericOutputProbe extends NumericProbeBase
 
    public Object clone() throws CloneNotSupportedException {
       NumericOutputProbe probe = (NumericOutputProbe)super.clone();
+      probe.myStreamWriter = null;
       //probe.myNumericList.clear();
       return probe;
    }
@@ -44,6 +44,9 @@ public abstract class NumericProbeBase extends Probe implements Displayable {
    public static final double EXPLICIT_TIME = -1;
 
    protected NumericList myNumericList = null;
+   // memory-mapped binary data, if any, and a window into it
+   protected BinaryProbeFile myMappedFile = null;
+   protected NumericList myMappedWindow = null;
    protected LinkedHashMap<String,NumericProbeVariable> myVariables = null;
    protected ArrayList<NumericProbeDriver> myDrivers = null;
    protected ArrayList<Property> myPropList = null;
@@ -115,6 +118,7 @@ public abstract class NumericProbeBase extends Probe implements Displayable {
     * @deprecated Use {@link #getData()} instead.
     */   
    public double[][] getValues() {
+      unmapData();
       return myNumericList.getValues();
    }
 
@@ -122,6 +126,7 @@ public abstract class NumericProbeBase extends Probe implements Displayable {
     * @deprecated Use {@link #setData(double[][])} instead.
     */  
    public void setValues(double[][] vals) {
+      unmapData();
       myNumericList.setValues (vals);
       updateDisplays();
    }
@@ -141,6 +146,8 @@ public abstract class NumericProbeBase extends Probe implements Displayable {
          tscale = src.getScale()/getScale();
          toffset = (src.getStartTime()-getStartTime())/getScale();
       }
+      unmapData();
+      src.unmapData();
       myNumericList.setValues (src.myNumericList, tscale, toffset);
       updateDisplays();
    }
@@ -155,6 +162,7 @@ public abstract class NumericProbeBase extends Probe implements Displayable {
     * @return data values of this numeric probe
     */   
    public double[][] getData() {
+      unmapData();
       return myNumericList.getValues();
    }
 
@@ -166,6 +174,7 @@ public abstract class NumericProbeBase extends Probe implements Displayable {
     * @param vals data values used to set this numeric probe
     */  
    public void setData (double[][] vals) {
+      unmapData();
       myNumericList.setValues (vals);
       updateDisplays();
    }
@@ -193,6 +202,8 @@ public abstract class NumericProbeBase extends Probe implements Displayable {
          tscale = src.getScale()/getScale();
          toffset = (src.getStartTime()-getStartTime())/getScale();
       }
+      unmapData();
+      src.unmapData();
       myNumericList.setValues (src.myNumericList, tscale, toffset);
       updateDisplays();
    }
@@ -381,7 +392,17 @@ public abstract class NumericProbeBase extends Probe implements Displayable {
 
    
    
+   private NumericList newNumericList() {
+      if (myRotationRep != null && myRotationSubvecOffsets != null) {
+         return new NumericList (myVsize, myRotationRep, myRotationSubvecOffsets); 
+      }
+      else {
+         return new NumericList (myVsize);
+      }
+   }
+
    protected void createNumericList () {
+      closeMappedData();
       // create a new list if necessaty
       if (myNumericList == null ||
           myNumericList.getVectorSize() != myVsize ||
@@ -389,13 +410,7 @@ public abstract class NumericProbeBase extends Probe implements Displayable {
           (myRotationSubvecOffsets != null &&
            !Arrays.equals (myRotationSubvecOffsets, 
               myNumericList.getRotationSubvecOffsets()))) {
-         if (myRotationRep != null && myRotationSubvecOffsets != null) {
-            myNumericList = 
-            new NumericList (myVsize, myRotationRep, myRotationSubvecOffsets); 
-         }
-         else {
-            myNumericList = new NumericList (myVsize);
-         }
+         myNumericList = newNumericList();
       }
       else {
          myNumericList.clear(); // just clear the existing list
@@ -404,9 +419,63 @@ public abstract class NumericProbeBase extends Probe implements Displayable {
    }
 
    public void clearData() {
+      closeMappedData();
       myNumericList.clear();
    }
 
+   /**
+    * Returns {@code true} if the data for this probe is currently provided by
+    * a memory-mapped binary probe file, as described for {@link
+    * #read(File,boolean)}. In that case, the data is not contained in the
+    * probe's numeric list, and is read into it by accessors such as {@link
+    * #getNumericList} or {@link #getData()}.
+    *
+    * @return {@code true} if the probe data is memory-mapped
+    */
+   public boolean isDataMapped() {
+      return myMappedFile != null;
+   }
+
+   /**
+    * If the data for this probe is currently memory-mapped, reads it into the
+    * probe's numeric list and releases the mapping. Methods that modify or
+    * return the probe data call this method automatically.
+    */
+   public void unmapData() {
+      if (myMappedFile != null) {
+         myMappedFile.readAll (myNumericList);
+         myNumericList.setInterpolation (myInterpolation);
+         closeMappedData();
+      }
+   }
+
+   protected void closeMappedData() {
+      if (myMappedFile != null) {
+         myMappedFile.close();
+         myMappedFile = null;
+         myMappedWindow = null;
+      }
+   }
+
+   /**
+    * Interpolates the data of this probe at a specified time, using the
+    * memory-mapped data if present.
+    *
+    * @param v returns the interpolated value
+    * @param t probe-relative time at which to interpolate
+    */
+   protected void interpolateData (VectorNd v, double t) {
+      if (myMappedFile != null) {
+         myMappedFile.loadWindow (myMappedWindow, t);
+         myMappedWindow.interpolate (
+            v, t, myInterpolation.getOrder(),
+            myInterpolation.isDataExtended(), null);
+      }
+      else {
+         myNumericList.interpolate (v, t);
+      }
+   }
+
    public void updateDisplays() {
       updateDisplays (null);
    }
@@ -564,16 +633,21 @@ public abstract class NumericProbeBase extends Probe implements Displayable {
    }
 
    public double[] getMinMaxValues() {
+      unmapData();
       double[] minMax = new double[2];
       myNumericList.getMinMaxValues (minMax);
       return minMax;
    }
    
    public double[] getVisibleMinMaxValues() {
+      unmapData();
       return myPlotTraceManager.getVisibleYRange (myNumericList);
    }
 
    public boolean isEmpty() {
+      if (myMappedFile != null) {
+         return myMappedFile.numKnots() == 0;
+      }
       return myNumericList.isEmpty();
    }
 
@@ -601,6 +675,7 @@ public abstract class NumericProbeBase extends Probe implements Displayable {
    }
    
    public double[] getVisibleRange() {
+      unmapData();
       return getVisibleRange (myPlotTraceManager, myNumericList);      
    }
    
@@ -612,6 +687,7 @@ public abstract class NumericProbeBase extends Probe implements Displayable {
     * the parameter by which to scale the values.
     */
    public void scaleNumericList (double s) {
+      unmapData();
       myNumericList.scale(s);
       updateDisplays();
    }
@@ -624,6 +700,7 @@ public abstract class NumericProbeBase extends Probe implements Displayable {
    }
 
    public NumericList getNumericList() {
+      unmapData();
       return myNumericList;
    }
 
@@ -651,6 +728,7 @@ public abstract class NumericProbeBase extends Probe implements Displayable {
     * reduced if necessary to fit the number of data points.
     */
    public void smoothWithMovingAverage (int winSize) {
+      unmapData();
       myNumericList.applyMovingAverageSmoothing (winSize);
    }
 
@@ -670,6 +748,7 @@ public abstract class NumericProbeBase extends Probe implements Displayable {
     * necessary to fit the number of data points.
     */
    public void smoothWithSavitzkyGolay (int winSize, int deg) {
+      unmapData();
       myNumericList.applySavitzkyGolaySmoothing (winSize, deg);
    }
 
@@ -717,6 +796,35 @@ public abstract class NumericProbeBase extends Probe implements Displayable {
       return newDrivers;
    }
 
+   /**
+    * Returns true if the properties, variables and drivers of this probe are
+    * in one-to-one correspondence, with each driver consisting of just the
+    * variable with the same index. Property values can then be transferred
+    * directly between the properties and the probe's data vector, bypassing
+    * the variables and drivers.
+    */
+   protected boolean hasDirectDrivers() {
+      if (myPropList == null || myConverters == null ||
+          myDrivers.size() != myPropList.size() ||
+          myVariables.size() != myDrivers.size()) {
+         return false;
+      }
+      int i = 0;
+      for (Map.Entry<String,NumericProbeVariable> entry :
+              myVariables.entrySet()) {
+         NumericProbeDriver driver = myDrivers.get (i);
+         int dimen = myConverters[i].getDimension();
+         if (driver.usesJythonExpression() ||
+             !entry.getKey().equals (driver.getSingleVariable()) ||
+             entry.getValue().getDimension() != dimen ||
+             driver.getOutputSize() != dimen) {
+            return false;
+         }
+         i++;
+      }
+      return true;
+   }
+
    protected void updateJythonVariables (
       HashMap<String,NumericProbeVariable> variables, double time) {
       if (myJythonLocals == null) {
@@ -825,6 +933,13 @@ public abstract class NumericProbeBase extends Probe implements Displayable {
       NumericProbeBase probe = (NumericProbeBase)super.clone();
       probe.myNumericList = (NumericList)myNumericList.clone();
       probe.myInterpolation = new Interpolation (myInterpolation);
+      if (myMappedFile != null) {
+         // the clone does not share the mapping, so read the data into it
+         probe.myMappedFile = null;
+         probe.myMappedWindow = null;
+         myMappedFile.readAll (probe.myNumericList);
+         probe.myNumericList.setInterpolation (probe.myInterpolation);
+      }
 
       if (myRotationSubvecOffsets != null) {
          probe.myRotationSubvecOffsets =
@@ -886,9 +1001,16 @@ public abstract class NumericProbeBase extends Probe implements Displayable {
    public VectorNd getData (double sec) {
 	  VectorNd vals = new VectorNd(myVsize);
       double t = getVirtualTime (sec);
-      myNumericList.interpolate (
-         vals, t, myNumericList.getInterpolation().getOrder(), 
-         true, myNumericList.getLast());
+      if (myMappedFile != null) {
+         myMappedFile.loadWindow (myMappedWindow, t);
+         myMappedWindow.interpolate (
+            vals, t, myInterpolation.getOrder(), true, null);
+      }
+      else {
+         myNumericList.interpolate (
+            vals, t, myNumericList.getInterpolation().getOrder(), 
+            true, myNumericList.getLast());
+      }
       return vals;
    }
    
@@ -993,6 +1115,7 @@ public abstract class NumericProbeBase extends Probe implements Displayable {
     */
    public void dispose () {
       removeLegend();
+      closeMappedData();
    }
 
    public String getMatlabName () {
@@ -1175,6 +1298,13 @@ public abstract class NumericProbeBase extends Probe implements Displayable {
     * <p>
     * The character '#' is a comment character, causing all subsequent input up
     * to the next new line to be ignored.
+    *
+    * <p>
+    * The file may also be a binary probe file, as described for {@link
+    * BinaryProbeFile}, which contains the same information.  For input
+    * probes, binary files are memory-mapped rather than read, with data paged
+    * in on demand when the probe is applied. Text files can be converted to
+    * binary losslessly using {@link BinaryProbeFile#convertTextToBinary}.
     * 
     * @param file
     * File from which to read the probe information
@@ -1185,6 +1315,10 @@ public abstract class NumericProbeBase extends Probe implements Displayable {
     * if an I/O or format error occurred.
     */
    public void read (File file, boolean setTimes) throws IOException {
+      if (BinaryProbeFile.isBinaryProbeFile (file)) {
+         readBinary (file, setTimes, /*map=*/isInput());
+         return;
+      }
       // myAttachedFile = null;
       ReaderTokenizer rtok =
          new ReaderTokenizer (new BufferedReader (new FileReader (file)));
@@ -1265,6 +1399,91 @@ public abstract class NumericProbeBase extends Probe implements Displayable {
       addData (rtok, timeStep);
    }
 
+   /**
+    * Reads the data for this probe from a binary probe file.
+    *
+    * @param file binary probe file
+    * @param setTimes if {@code true}, sets the start time, stop time,
+    * and scale values to those stored in the file
+    * @param map if {@code true}, the file is memory-mapped instead of
+    * being read into the probe's numeric list
+    */
+   protected void readBinary (File file, boolean setTimes, boolean map)
+      throws IOException {
+      BinaryProbeFile bfile = new BinaryProbeFile (file);
+      if (bfile.getVectorSize() != myVsize) {
+         bfile.close();
+         throw new IOException (
+            "Binary probe file '"+file+"' has vector size " +
+            bfile.getVectorSize() + "; expecting " + myVsize);
+      }
+      if (setTimes) {
+         setStartTime (bfile.getStartTime());
+         setStopTime (bfile.getStopTime());
+         setScale (bfile.getScale());
+      }
+      myInterpolation.setOrder (bfile.getInterpolationOrder());
+      createNumericList();
+      if (map) {
+         myMappedFile = bfile;
+         myMappedWindow = newNumericList();
+      }
+      else {
+         try {
+            bfile.readAll (myNumericList);
+            myNumericList.setInterpolation (myInterpolation);
+         }
+         finally {
+            bfile.close();
+         }
+      }
+   }
+
+   /**
+    * Exports the data values in this probe to a binary probe file, as
+    * described for {@link BinaryProbeFile}. Values are stored with full
+    * precision.
+    *
+    * @param file file to write the data to
+    */
+   public void exportBinaryData (File file) throws IOException {
+      if (myMappedFile != null) {
+         if (file.getCanonicalFile().equals (
+                myMappedFile.getFile().getCanonicalFile())) {
+            return; // data is already in the file
+         }
+         BinaryProbeWriter writer = new BinaryProbeWriter (
+            file, myVsize, myInterpolation.getOrder(),
+            getStartTime(), getStopTime(), getScale(), /*append=*/false);
+         try {
+            double[] vals = new double[myVsize];
+            for (long k=0; k<myMappedFile.numKnots(); k++) {
+               myMappedFile.getValues (k, vals, 0);
+               writer.append (myMappedFile.getTime (k), vals);
+            }
+         }
+         finally {
+            writer.close();
+         }
+      }
+      else {
+         BinaryProbeFile.write (
+            file, myNumericList, getStartTime(), getStopTime(), getScale());
+      }
+   }
+
+   /**
+    * Imports the data values in this probe from a binary probe file, as
+    * described for {@link BinaryProbeFile}. All current probe data is
+    * removed. The scaling and start and stop times of this probe are
+    * unchanged, while the interpolation order is set from the file.
+    *
+    * @param file file to import the data from
+    */
+   public void importBinaryData (File file) throws IOException {
+      readBinary (file, /*setTimes=*/false, /*map=*/false);
+   }
+
    protected void load(boolean setTimes) throws IOException {
       File file = getAttachedFile();
       if (file != null) {
@@ -1286,6 +1505,7 @@ public abstract class NumericProbeBase extends Probe implements Displayable {
       File file, String fmtStr, String separator, boolean includeTime)
       throws IOException  {
 
+      unmapData();
       PrintWriter pw =
          new PrintWriter (new BufferedWriter (new FileWriter (file)));
 
@@ -1465,6 +1685,7 @@ public abstract class NumericProbeBase extends Probe implements Displayable {
             "WARNING: " + overCnt +
             " lines in import file have more numbers than expected; ignoring");
       }
+      closeMappedData();
       myNumericList.clear();
       for (NumericListKnot knot : newKnots) {
          myNumericList.add (knot);
@@ -1507,6 +1728,10 @@ public abstract class NumericProbeBase extends Probe implements Displayable {
          TextExportProps tprops = (TextExportProps)props;
          writeText (file, tprops.getFormatStr(), " ", tprops.getIncludeTime());
       }
+      else if (ArtisynthPath.getFileExtension(file).equals (
+                  BinaryProbeFile.EXTENSION)) {
+         exportBinaryData (file);
+      }
       else {
          throw new IOException ("Unrecognized type for file "+name);
       }
@@ -1531,6 +1756,9 @@ public abstract class NumericProbeBase extends Probe implements Displayable {
       else if ("txt".equalsIgnoreCase (ext)) {
          importText (file, timeStep, ' ');
       }
+      else if (BinaryProbeFile.EXTENSION.equalsIgnoreCase (ext)) {
+         importBinaryData (file);
+      }
       else {
          throw new IOException ("Unrecognized type for file "+name);
       }
@@ -7,6 +7,7 @@ import java.util.*;
 import maspack.util.*;
 import maspack.matrix.*;
 import maspack.interpolation.*;
+import maspack.interpolation.Interpolation.Order;
 import artisynth.core.probes.Probe.ExportProps;
 
 /**
@@ -152,8 +153,219 @@ public class NumericProbeTest extends UnitTest {
       testImportExport (/*numk*/10, /*vsize*/0, /*timeStep*/0.1, /*input*/true);
    }
 
+   void checkMappedInterpolation (
+      NumericInputProbe probe, NumericList check, double stopTime) {
+      VectorNd v = new VectorNd (probe.getVsize());
+      VectorNd vchk = new VectorNd (probe.getVsize());
+      // forward sweep followed by random access
+      int nsamps = 200;
+      for (int i=0; i<2*nsamps; i++) {
+         double t = (i < nsamps ?
+            -0.1 + i*(stopTime+0.2)/nsamps :
+            RandomGenerator.nextDouble (-0.1, stopTime+0.1));
+         probe.interpolateData (v, t);
+         check.interpolate (vchk, t);
+         checkEquals ("mapped interpolation at t="+t, v, vchk, 0);
+      }
+   }
+
+   public void testBinaryFiles (int numk, int vsize, double timeStep) {
+      double stopTime = Math.max (0, numk-1)*timeStep;
+      File textFile = new File ("testBinaryFiles.txt");
+      File binFile = new File ("testBinaryFiles." + BinaryProbeFile.EXTENSION);
+      try {
+         NumericInputProbe probe0 =
+            (NumericInputProbe)createProbe (vsize, true, stopTime);
+         setRandomData (probe0, numk, timeStep);
+
+         // export and import
+         probe0.exportData (binFile, null);
+         NumericProbeBase probe1 = createProbe (vsize, true, stopTime);
+         probe1.importData (binFile, -1);
+         if (!probeDataEqual (probe0, probe1)) {
+            throw new TestException (
+               "imported probe != exported probe, binary");
+         }
+
+         // lossless conversion from text
+         PrintWriter pw =
+            new PrintWriter (new BufferedWriter (new FileWriter (textFile)));
+         probe0.write (pw, "%g");
+         pw.close();
+         BinaryProbeFile.convertTextToBinary (textFile, binFile);
+         NumericInputProbe probeT =
+            (NumericInputProbe)createProbe (vsize, true, stopTime);
+         probeT.read (textFile, /*setTimes=*/true);
+         for (Order order : new Order[] {
+               Order.Step, Order.Linear, Order.Cubic, Order.CubicStep }) {
+            probeT.setInterpolationOrder (order);
+            BinaryProbeFile.write (
+               binFile, probeT.getNumericList(),
+               probeT.getStartTime(), probeT.getStopTime(), probeT.getScale());
+            NumericInputProbe probeB =
+               (NumericInputProbe)createProbe (vsize, true, stopTime);
+            probeB.read (binFile, /*setTimes=*/true);
+            check ("binary input probe data not mapped", 
+                   numk == 0 || probeB.isDataMapped());
+            checkEquals (
+               "binary interpolation order",
+               probeB.getInterpolationOrder(), order);
+            checkMappedInterpolation (
+               probeB, probeT.getNumericList(), stopTime);
+            probeB.unmapData();
+            check ("binary input probe data still mapped", 
+                   !probeB.isDataMapped());
+            if (!probeDataEqual (probeT, probeB)) {
+               throw new TestException (
+                  "binary probe data != text probe data");
+            }
+         }
+         BinaryProbeFile.convertTextToBinary (textFile, binFile);
+         NumericInputProbe probeB =
+            (NumericInputProbe)createProbe (vsize, true, stopTime);
+         probeB.read (binFile, /*setTimes=*/true);
+         probeB.unmapData();
+         if (!probeDataEqual (probeT, probeB)) {
+            throw new TestException (
+               "converted probe data != text probe data");
+         }
+      }
+      catch (IOException e) {
+         throw new TestException ("I/O error during binary file test", e);
+      }
+      finally {
+         textFile.delete();
+         binFile.delete();
+      }
+   }
+
+   public void testBinaryWriter() {
+      int vsize = 3;
+      File binFile = new File ("testBinaryWriter." + BinaryProbeFile.EXTENSION);
+      try {
+         BinaryProbeWriter writer = new BinaryProbeWriter (
+            binFile, vsize, Order.Linear, 0, 1, 1, /*append=*/false);
+         NumericList check = new NumericList (vsize);
+         double[] vals = new double[vsize];
+         // simulate output with time resets, which truncate the data
+         double[] resetTimes = new double[] { 0.5, 0.25, 0.8 };
+         double t = 0;
+         int nreset = 0;
+         for (int i=0; i<2000; i++) {
+            for (int j=0; j<vsize; j++) {
+               vals[j] = RandomGenerator.nextDouble (-1, 1);
+            }
+            NumericListKnot knot = check.add (t, vals);
+            check.clearAfter (knot);
+            writer.append (t, vals);
+            if (i%500 == 499 && nreset < resetTimes.length) {
+               t = resetTimes[nreset++];
+            }
+            else {
+               t += 0.001;
+            }
+         }
+         writer.close();
+         checkEquals ("writer knot count", writer.numKnots(),
+                      (long)check.getNumKnots());
+         // reopen in append mode and truncate
+         writer = new BinaryProbeWriter (
+            binFile, vsize, Order.Linear, 0, 1, 1, /*append=*/true);
+         for (int j=0; j<vsize; j++) {
+            vals[j] = RandomGenerator.nextDouble (-1, 1);
+         }
+         NumericListKnot knot = check.add (0.9, vals);
+         check.clearAfter (knot);
+         writer.append (0.9, vals);
+         writer.close();
+
+         BinaryProbeFile bfile = new BinaryProbeFile (binFile);
+         NumericList list = new NumericList (vsize);
+         bfile.readAll (list);
+         bfile.close();
+         check ("binary writer data != check data", list.equals (check));
+      }
+      catch (IOException e) {
+         throw new TestException ("I/O error during binary writer test", e);
+      }
+      finally {
+         binFile.delete();
+      }
+   }
+
+   public void testMappedAccess (int numk, int vsize, double timeStep) {
+      double stopTime = Math.max (0, numk-1)*timeStep;
+      String ext = "." + BinaryProbeFile.EXTENSION;
+      File binFile = new File ("testMappedAccess" + ext).getAbsoluteFile();
+      File saveFile = new File ("testMappedSave" + ext).getAbsoluteFile();
+      try {
+         NumericInputProbe probe0 =
+            (NumericInputProbe)createProbe (vsize, true, stopTime);
+         setRandomData (probe0, numk, timeStep);
+         probe0.exportData (binFile, null);
+
+         // save a mapped probe to another file and reload it
+         NumericInputProbe probeM =
+            (NumericInputProbe)createProbe (vsize, true, stopTime);
+         probeM.read (binFile, /*setTimes=*/true);
+         check ("probe not mapped", numk == 0 || probeM.isDataMapped());
+         checkEquals ("mapped probe isEmpty", probeM.isEmpty(), numk == 0);
+         check ("isEmpty unmapped probe", numk == 0 || probeM.isDataMapped());
+         probeM.setAttachedFileName (saveFile.getPath());
+         probeM.save();
+         check ("save unmapped probe", numk == 0 || probeM.isDataMapped());
+         NumericInputProbe probeR =
+            (NumericInputProbe)createProbe (vsize, true, stopTime);
+         probeR.setAttachedFileName (saveFile.getPath());
+         probeR.load();
+         check ("reloaded probe not mapped",
+                numk == 0 || probeR.isDataMapped());
+         NumericList list = probeR.getNumericList();
+         check ("reloaded probe still mapped", !probeR.isDataMapped());
+         check ("reloaded probe data != saved probe data",
+                list.equals (probe0.getNumericList()));
+
+         // other accessors also see the mapped data
+         if (numk > 0) {
+            checkEquals (
+               "mapped probe min/max",
+               new VectorNd (probeM.getMinMaxValues()),
+               new VectorNd (probe0.getMinMaxValues()), 0);
+         }
+         check ("mapped probe getData() != probe data",
+                Arrays.deepEquals (probeM.getData(), probe0.getData()));
+         probeM.read (binFile, /*setTimes=*/true);
+         check ("mapped probe getInput() != probe data",
+                probeM.getInput().equals (probe0.getNumericList()));
+      }
+      catch (IOException e) {
+         throw new TestException ("I/O error during mapped access test", e);
+      }
+      finally {
+         binFile.delete();
+         saveFile.delete();
+      }
+   }
+
+   public void testBinaryFiles() {
+      testBinaryFiles (/*numk*/0, /*vsize*/3, /*timeStep*/0.1);
+      testBinaryFiles (/*numk*/1, /*vsize*/3, /*timeStep*/0.1);
+      testBinaryFiles (/*numk*/2, /*vsize*/5, /*timeStep*/0.1);
+      testBinaryFiles (/*numk*/1000, /*vsize*/4, /*timeStep*/0.01);
+      // use small segments so that mapping crosses segment boundaries
+      long maxSegSize = BinaryProbeFile.maxSegmentSize;
+      BinaryProbeFile.maxSegmentSize = 1000;
+      testBinaryFiles (/*numk*/1000, /*vsize*/4, /*timeStep*/0.01);
+      BinaryProbeFile.maxSegmentSize = maxSegSize;
+      testBinaryWriter();
+      testMappedAccess (/*numk*/0, /*vsize*/3, /*timeStep*/0.1);
+      testMappedAccess (/*numk*/1, /*vsize*/3, /*timeStep*/0.1);
+      testMappedAccess (/*numk*/100, /*vsize*/4, /*timeStep*/0.01);
+   }
+
    public void test() {
       testImportExport();
+      testBinaryFiles();
    }
 
    public static void main (String[] args) {
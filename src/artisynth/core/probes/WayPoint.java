@@ -16,6 +16,10 @@ public class WayPoint {
    protected boolean myValidP;
    protected boolean myBreakPointP;
 
+   // if non-null, the state is kept in this store instead of in memory
+   protected WayPointStore myStore;
+   protected WayPointStore.Record myRecord;
+
    // links for maintaining double linked list inside the WayPointProbe
    protected WayPoint myNext;
    protected WayPoint myPrev;
@@ -44,28 +48,96 @@ public class WayPoint {
 
    public void setValid (boolean valid) {
       myValidP = valid;
+      if (!valid) {
+         // stored data for invalid states may be reclaimed by the store
+         myRecord = null;
+      }
    }
 
+   /**
+    * Returns the state associated with this waypoint. If the state is kept
+    * in a {@link WayPointStore}, it is reloaded from the store, and a new
+    * state object is returned on each call.
+    *
+    * @return state for this waypoint, or {@code null}
+    */
    public CompositeState getState() {
+      if (myRecord != null) {
+         return myStore.load (myRecord);
+      }
       return myState;
    }
 
    public void setState (RootModel model) {
-      myState = (CompositeState)model.createState(null);
+      CompositeState state = (CompositeState)model.createState(null);
       if (myTime == 0) {
-         model.getInitialState (myState, null);
+         model.getInitialState (state, null);
       }
       else {
-         model.getState (myState);
+         model.getState (state);
       }
-      setValid (true);
+      setState (state);
    }
    
    public void setState (CompositeState state) {
-      myState = state;
+      if (myStore != null && state != null) {
+         myRecord = myStore.store (state, getPrevRecord());
+         myState = null;
+      }
+      else {
+         myRecord = null;
+         myState = state;
+      }
       setValid (true);
    }
 
+   /**
+    * Returns the record of the previous waypoint, if it is valid and stored,
+    * to serve as a base for delta encoding.
+    */
+   private WayPointStore.Record getPrevRecord() {
+      if (myPrev != null && myPrev.myValidP && myPrev.myStore == myStore) {
+         return myPrev.myRecord;
+      }
+      return null;
+   }
+
+   /**
+    * Queries whether the state of this waypoint is kept in a {@link
+    * WayPointStore} rather than in memory.
+    *
+    * @return {@code true} if the state is stored
+    */
+   public boolean isStateStored() {
+      return myRecord != null;
+   }
+
+   /**
+    * Sets the store used to keep the state of this waypoint. The state of a
+    * valid waypoint is moved into the new store, or into memory if {@code
+    * store} is {@code null}.
+    */
+   void setStore (WayPointStore store) {
+      if (store != myStore) {
+         // the states of invalid waypoints are not needed
+         CompositeState state = myValidP ? getState() : null;
+         myStore = store;
+         myRecord = null;
+         myState = null;
+         if (state != null) {
+            setState (state);
+         }
+      }
+   }
+
+   /**
+    * Returns the position in the store data file just past the end of this
+    * waypoint's stored state, or 0 if the state is not stored.
+    */
+   long getStoredEnd() {
+      return myRecord != null ? myRecord.end() : 0;
+   }
+
    public boolean isBreakPoint() {
       return myBreakPointP;
    }
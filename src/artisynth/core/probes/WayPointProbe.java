@@ -19,6 +19,7 @@ public class WayPointProbe extends OutputProbe implements Iterable<WayPoint> {
    protected RootModel myRootModel; // root model associated with the waypoints
    protected WayPoint myWay0; // hard wired way point at time = 0
    protected boolean myCheckStateP = false; // for testing only
+   protected WayPointStore myStore; // if non-null, stores waypoint states
    
    private boolean myResetInitialState = false;
    private boolean myInitialStateValidP = true;
@@ -211,6 +212,9 @@ public class WayPointProbe extends OutputProbe implements Iterable<WayPoint> {
          throw new InternalErrorException (
             "TreeMap and linked list report different existing WayPoint");
       }
+      if (myStore != null) {
+         newWay.setStore (myStore);
+      }
       return oldWay;
    }
 
@@ -263,11 +267,108 @@ public class WayPointProbe extends OutputProbe implements Iterable<WayPoint> {
     * Clears all waypoints in this probe, except for the waypoint at time 0.
     */
    public void clear() {
+      if (myStore != null) {
+         // removed waypoints lose their stored states
+         for (WayPoint way=myWay0.myNext; way!=null; way=way.myNext) {
+            way.setValid (false);
+         }
+         myStore.clear();
+      }
       myWayPoints.clear();
       myWayPoints.put (0.0, myWay0);
       myWay0.myNext = null;
    }
 
+   /**
+    * Enables disk storage for the states of this probe's waypoints, so that
+    * they do not need to be kept in memory. States are stored in a {@link
+    * WayPointStore}, delta encoded against the state of the previous
+    * waypoint, and reloaded transparently when {@link WayPoint#getState} is
+    * called. The state of the waypoint at time 0 is always kept in memory.
+    * If disk storage is already enabled, the existing states are moved to
+    * the new store.
+    *
+    * @param file file for storing the states. If {@code null}, a temporary
+    * file is used.
+    * @return store used for the waypoint states, whose settings can be
+    * used to control compression and caching
+    * @throws IOException if the file could not be opened
+    */
+   public WayPointStore enableDiskStorage (File file) throws IOException {
+      WayPointStore oldStore = myStore;
+      myStore = new WayPointStore (file, myRootModel);
+      for (WayPoint way=myWay0.myNext; way!=null; way=way.myNext) {
+         way.setStore (myStore);
+      }
+      if (oldStore != null) {
+         oldStore.close();
+      }
+      return myStore;
+   }
+
+   /**
+    * Disables disk storage for the states of this probe's waypoints, moving
+    * any stored states back into memory.
+    */
+   public void disableDiskStorage() {
+      if (myStore != null) {
+         for (WayPoint way=myWay0.myNext; way!=null; way=way.myNext) {
+            way.setStore (null);
+         }
+         myStore.close();
+         myStore = null;
+      }
+   }
+
+   /**
+    * Queries whether disk storage is enabled for the states of this probe's
+    * waypoints.
+    *
+    * @return {@code true} if disk storage is enabled
+    * @see #enableDiskStorage
+    */
+   public boolean isDiskStorageEnabled() {
+      return myStore != null;
+   }
+
+   /**
+    * Returns the store used for the states of this probe's waypoints, or
+    * {@code null} if disk storage is not enabled.
+    *
+    * @return waypoint store, or {@code null}
+    */
+   public WayPointStore getWayPointStore() {
+      return myStore;
+   }
+
+   /**
+    * Truncates the store so as to discard the data of invalidated
+    * waypoints. Since states are stored in simulation order, the data for
+    * waypoints invalidated by a reset is usually at the end of the file.
+    */
+   private void reclaimStorage() {
+      long end = 0;
+      for (WayPoint way=myWay0.myNext; way!=null; way=way.myNext) {
+         end = Math.max (end, way.getStoredEnd());
+      }
+      myStore.truncate (end);
+   }
+
+   /**
+    * Releases resources used by this probe, including any disk storage
+    * for its waypoint states.
+    */
+   public void dispose() {
+      if (myStore != null) {
+         for (WayPoint way=myWay0.myNext; way!=null; way=way.myNext) {
+            way.setValid (false);
+            way.myStore = null;
+         }
+         myStore.close();
+         myStore = null;
+      }
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -577,6 +678,9 @@ public class WayPointProbe extends OutputProbe implements Iterable<WayPoint> {
          way.setValid (false);
          way = way.myNext;
       }
+      if (myStore != null) {
+         reclaimStorage();
+      }
    }
 
 //   /**
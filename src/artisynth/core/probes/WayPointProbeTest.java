@@ -1,7 +1,9 @@
 package artisynth.core.probes;
 
+import java.io.IOException;
 import java.util.ListIterator;
 import maspack.util.*;
+import artisynth.core.modelbase.*;
 
 public class WayPointProbeTest extends UnitTest {
 
@@ -228,6 +230,108 @@ public class WayPointProbeTest extends UnitTest {
          check ("way point "+i+" is valid", !ways[i].isValid());
       }      
 
+      testDiskStorage();
+   }
+
+   /**
+    * Creates a test state, consisting of a numeric state whose values vary
+    * slowly with time, and whose size depends on {@code size}.
+    */
+   CompositeState createState (double t, int size) {
+      CompositeState state = new CompositeState();
+      NumericState nstate = new NumericState();
+      for (int i=0; i<size; i++) {
+         nstate.zput (i);
+         nstate.dput (i < size/2 ? i : Math.sin (t+i));
+      }
+      state.addState (nstate);
+      CompositeState substate = new CompositeState();
+      nstate = new NumericState();
+      nstate.dput (t);
+      substate.addState (nstate);
+      state.addState (substate);
+      return state;
+   }
+
+   void checkStates (
+      WayPointProbe wayPoints, WayPoint[] ways, CompositeState[] states) {
+      for (int i=1; i<ways.length; i++) {
+         WayPoint way = ways[i];
+         if (way.isValid()) {
+            check ("way point "+i+" not stored",
+                   !wayPoints.isDiskStorageEnabled() || way.isStateStored());
+            StringBuilder msg = new StringBuilder();
+            if (!states[i].equals (way.getState(), msg)) {
+               throw new TestException (
+                  "stored state for way point "+i+" differs:\n" + msg);
+            }
+         }
+      }
+   }
+
+   void storeStates (
+      WayPoint[] ways, CompositeState[] states, int i0, int size) {
+      for (int i=i0; i<ways.length; i++) {
+         // change the state size part way through to force a key record
+         states[i] = createState (ways[i].getTime(), i < 30 ? size : size+1);
+         ways[i].setState (states[i].duplicate());
+      }
+   }
+
+   public void testDiskStorage() {
+      WayPointProbe wayPoints = new WayPointProbe();
+      int nways = 50;
+      WayPoint[] ways = new WayPoint[nways];
+      CompositeState[] states = new CompositeState[nways];
+      for (int i=1; i<nways; i++) {
+         ways[i] = new WayPoint (0.01*i);
+         wayPoints.add (ways[i]);
+      }
+      try {
+         // set some states in memory, then enable disk storage
+         storeStates (ways, states, 1, 100);
+         WayPointStore store = wayPoints.enableDiskStorage (null);
+         checkStates (wayPoints, ways, states);
+         checkEquals ("number stored", store.numStored(), nways-1);
+
+         // simulate a reset to waypoint 20, which should reclaim space
+         long size = store.getFileSize();
+         wayPoints.invalidateAfterTime (ways[20].getTime());
+         for (int i=21; i<nways; i++) {
+            check ("way point "+i+" still stored", !ways[i].isStateStored());
+         }
+         check ("store not truncated", store.getFileSize() < size);
+         storeStates (ways, states, 21, 100);
+         checkStates (wayPoints, ways, states);
+
+         // check with a small cache, no compression and short key intervals
+         store.setCacheSize (1);
+         store.setCompressionEnabled (false);
+         store.setKeyInterval (4);
+         wayPoints.invalidateAfterTime (ways[10].getTime());
+         storeStates (ways, states, 11, 80);
+         checkStates (wayPoints, ways, states);
+         // access in reverse to defeat the cache
+         for (int i=nways-1; i>0; i--) {
+            check ("reverse access, way point "+i,
+                   states[i].equals (ways[i].getState(), null));
+         }
+
+         // move to a new store and then back into memory
+         wayPoints.enableDiskStorage (null);
+         checkStates (wayPoints, ways, states);
+         wayPoints.disableDiskStorage();
+         for (int i=1; i<nways; i++) {
+            check ("way point "+i+" still stored", !ways[i].isStateStored());
+         }
+         checkStates (wayPoints, ways, states);
+      }
+      catch (IOException e) {
+         throw new TestException ("I/O error during disk storage test", e);
+      }
+      finally {
+         wayPoints.dispose();
+      }
    }
 
    public static void main (String[] args) {
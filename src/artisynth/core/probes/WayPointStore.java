@@ -0,0 +1,462 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package artisynth.core.probes;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import artisynth.core.modelbase.CompositeState;
+import artisynth.core.workspace.RootModel;
+
+/**
+ * Disk-backed storage for the states of {@link WayPoint}s, used by a {@link
+ * WayPointProbe} to keep the memory required by waypoints bounded for long
+ * simulations.
+ *
+ * <p>Each state is serialized using {@link CompositeState#writeBinary}, which
+ * in turn writes each of its numeric sub-states using their own {@code
+ * writeBinary} methods. The serialized bytes are then stored as a
+ * <i>delta</i> against the bytes of the previous waypoint, by XOR-ing the two
+ * byte sequences, so that values which have not changed become runs of zero
+ * bytes. Deltas are optionally compressed, which is where most of the space
+ * savings come from. To bound the cost of reconstructing a state, a full
+ * <i>key</i> record is written every {@link #getKeyInterval} records, or
+ * whenever the size of the serialized state changes.
+ *
+ * <p>Records are appended to a single data file and never modified. Recently
+ * used serialized states are kept in a small LRU cache, so that storing
+ * successive waypoints, or moving back and forth between nearby waypoints,
+ * usually does not require reading from the file.
+ */
+public class WayPointStore {
+
+   /**
+    * Default number of serialized states kept in the LRU cache.
+    */
+   public static int DEFAULT_CACHE_SIZE = 8;
+
+   /**
+    * Default maximum number of records between key records.
+    */
+   public static int DEFAULT_KEY_INTERVAL = 32;
+
+   /**
+    * Describes the location and encoding of a stored state.
+    */
+   static class Record {
+      long myOffset;       // offset of the data within the file
+      int myLength;        // number of bytes stored in the file
+      int myRawLength;     // number of bytes in the serialized state
+      boolean myCompressed;
+      Record myBase;       // record the delta is relative to, or null
+      int myDepth;         // number of records to the last key record
+
+      long end() {
+         return myOffset + myLength;
+      }
+   }
+
+   File myFile;
+   boolean myFileIsTemporary;
+   FileChannel myChannel;
+   long mySize;            // current size of the data file
+
+   RootModel myRootModel;
+   boolean myCompressionEnabled = true;
+   int myCacheSize = DEFAULT_CACHE_SIZE;
+   int myKeyInterval = DEFAULT_KEY_INTERVAL;
+
+   LinkedHashMap<Record,byte[]> myCache;
+   int myNumRecords;
+   long myNumRawBytes;
+
+   private ByteArrayOutputStream myBytes = new ByteArrayOutputStream();
+   private Deflater myDeflater;
+   private Inflater myInflater;
+   private byte[] myBuf = new byte[0];
+
+   /**
+    * Creates a new store that writes its data to a specified file. If {@code
+    * file} is {@code null}, a temporary file is created which is deleted
+    * when the store is closed or when the program exits.
+    *
+    * @param file file for storing the data, or {@code null}
+    * @param root root model used to create states when they are reloaded.
+    * If {@code null}, reloaded states are created directly from the stored
+    * data.
+    * @throws IOException if the file could not be opened
+    */
+   public WayPointStore (File file, RootModel root) throws IOException {
+      if (file == null) {
+         file = File.createTempFile ("waypoints", ".dat");
+         file.deleteOnExit();
+         myFileIsTemporary = true;
+      }
+      myFile = file;
+      myChannel = FileChannel.open (
+         file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE,
+         StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+      myRootModel = root;
+      myCache = new LinkedHashMap<Record,byte[]> (16, 0.75f, true) {
+         private static final long serialVersionUID = 1L;
+         protected boolean removeEldestEntry (Map.Entry<Record,byte[]> e) {
+            return size() > myCacheSize;
+         }
+      };
+   }
+
+   /**
+    * Returns the file used to store the data.
+    *
+    * @return data file
+    */
+   public File getFile() {
+      return myFile;
+   }
+
+   /**
+    * Returns whether stored states are compressed.
+    *
+    * @return {@code true} if compression is enabled
+    */
+   public boolean getCompressionEnabled() {
+      return myCompressionEnabled;
+   }
+
+   /**
+    * Sets whether subsequently stored states are compressed. Compression
+    * reduces the file size considerably, at some cost in speed. The default
+    * is {@code true}.
+    *
+    * @param enable if {@code true}, enables compression
+    */
+   public void setCompressionEnabled (boolean enable) {
+      myCompressionEnabled = enable;
+   }
+
+   /**
+    * Returns the maximum number of serialized states kept in the LRU cache.
+    *
+    * @return maximum cache size
+    */
+   public int getCacheSize() {
+      return myCacheSize;
+   }
+
+   /**
+    * Sets the maximum number of serialized states kept in the LRU cache.
+    * The default is given by {@link #DEFAULT_CACHE_SIZE}.
+    *
+    * @param size maximum cache size; must be {@code >= 1}
+    */
+   public synchronized void setCacheSize (int size) {
+      if (size < 1) {
+         throw new IllegalArgumentException (
+            "cache size is "+size+"; must be >= 1");
+      }
+      myCacheSize = size;
+      while (myCache.size() > size) {
+         myCache.remove (myCache.keySet().iterator().next());
+      }
+   }
+
+   /**
+    * Returns the maximum number of records between key records.
+    *
+    * @return maximum key record interval
+    */
+   public int getKeyInterval() {
+      return myKeyInterval;
+   }
+
+   /**
+    * Sets the maximum number of records between key records, which bounds
+    * the number of deltas that must be applied to reconstruct a state that
+    * is not in the cache. A value of 1 disables delta encoding. The default
+    * is given by {@link #DEFAULT_KEY_INTERVAL}.
+    *
+    * @param interval maximum key record interval; must be {@code >= 1}
+    */
+   public void setKeyInterval (int interval) {
+      if (interval < 1) {
+         throw new IllegalArgumentException (
+            "key interval is "+interval+"; must be >= 1");
+      }
+      myKeyInterval = interval;
+   }
+
+   /**
+    * Returns the current size of the data file, in bytes.
+    *
+    * @return data file size
+    */
+   public long getFileSize() {
+      return mySize;
+   }
+
+   /**
+    * Returns the number of states stored since this store was created or
+    * last cleared.
+    *
+    * @return number of stored states
+    */
+   public int numStored() {
+      return myNumRecords;
+   }
+
+   /**
+    * Returns the total serialized size of the states stored since this
+    * store was created or last cleared. Comparing this with {@link
+    * #getFileSize} gives the effective compression ratio.
+    *
+    * @return total serialized size, in bytes
+    */
+   public long getRawSize() {
+      return myNumRawBytes;
+   }
+
+   private byte[] serialize (CompositeState state) {
+      myBytes.reset();
+      try {
+         DataOutputStream dos = new DataOutputStream (myBytes);
+         state.writeBinary (dos);
+         dos.flush();
+      }
+      catch (IOException e) {
+         // shouldn't happen when writing to a byte array
+         throw new UncheckedIOException (e);
+      }
+      return myBytes.toByteArray();
+   }
+
+   private byte[] ensureBuffer (int size) {
+      if (myBuf.length < size) {
+         myBuf = new byte[Math.max (size, 2*myBuf.length)];
+      }
+      return myBuf;
+   }
+
+   private static void xor (byte[] dst, byte[] src, int len) {
+      for (int i=0; i<len; i++) {
+         dst[i] ^= src[i];
+      }
+   }
+
+   /**
+    * Stores a state, encoding it as a delta against a previously stored
+    * state if possible.
+    *
+    * @param state state to store
+    * @param prev record for the previous waypoint, or {@code null}
+    * @return record describing the stored state
+    */
+   synchronized Record store (CompositeState state, Record prev) {
+      byte[] raw = serialize (state);
+      Record rec = new Record();
+      rec.myRawLength = raw.length;
+      byte[] data = raw;
+      if (prev != null && prev.myDepth+1 < myKeyInterval &&
+          prev.myRawLength == raw.length && prev.end() <= mySize) {
+         data = raw.clone();
+         xor (data, getRaw (prev), raw.length);
+         rec.myBase = prev;
+         rec.myDepth = prev.myDepth+1;
+      }
+      int len = data.length;
+      if (myCompressionEnabled) {
+         if (myDeflater == null) {
+            myDeflater = new Deflater (Deflater.BEST_SPEED);
+         }
+         byte[] buf = ensureBuffer (len+len/8+64);
+         myDeflater.reset();
+         myDeflater.setInput (data);
+         myDeflater.finish();
+         int clen = 0;
+         while (!myDeflater.finished() && clen < buf.length) {
+            clen += myDeflater.deflate (buf, clen, buf.length-clen);
+         }
+         if (myDeflater.finished() && clen < len) {
+            data = buf;
+            len = clen;
+            rec.myCompressed = true;
+         }
+      }
+      rec.myOffset = mySize;
+      rec.myLength = len;
+      try {
+         ByteBuffer bbuf = ByteBuffer.wrap (data, 0, len);
+         long pos = rec.myOffset;
+         while (bbuf.hasRemaining()) {
+            pos += myChannel.write (bbuf, pos);
+         }
+      }
+      catch (IOException e) {
+         throw new UncheckedIOException (
+            "Error writing waypoint data to '"+myFile+"'", e);
+      }
+      mySize = rec.end();
+      myNumRecords++;
+      myNumRawBytes += raw.length;
+      myCache.put (rec, raw);
+      return rec;
+   }
+
+   /**
+    * Returns the serialized bytes for a record, reconstructing them from the
+    * data file if they are not in the cache.
+    */
+   private byte[] getRaw (Record rec) {
+      byte[] raw = myCache.get (rec);
+      if (raw != null) {
+         return raw;
+      }
+      if (rec.end() > mySize) {
+         throw new IllegalStateException (
+            "waypoint record has been removed from the store");
+      }
+      byte[] data = new byte[rec.myLength];
+      try {
+         ByteBuffer bbuf = ByteBuffer.wrap (data);
+         while (bbuf.hasRemaining()) {
+            if (myChannel.read (bbuf, rec.myOffset+bbuf.position()) < 0) {
+               throw new EOFException (
+                  "Unexpected end of waypoint file '"+myFile+"'");
+            }
+         }
+      }
+      catch (IOException e) {
+         throw new UncheckedIOException (
+            "Error reading waypoint data from '"+myFile+"'", e);
+      }
+      if (rec.myCompressed) {
+         if (myInflater == null) {
+            myInflater = new Inflater();
+         }
+         raw = new byte[rec.myRawLength];
+         myInflater.reset();
+         myInflater.setInput (data);
+         try {
+            int n = 0;
+            while (n < raw.length && !myInflater.finished()) {
+               n += myInflater.inflate (raw, n, raw.length-n);
+            }
+            if (n != raw.length) {
+               throw new DataFormatException (
+                  "decompressed size is "+n+", expected "+raw.length);
+            }
+         }
+         catch (DataFormatException e) {
+            throw new UncheckedIOException (new IOException (
+               "Corrupt waypoint data in '"+myFile+"'", e));
+         }
+      }
+      else {
+         raw = data;
+      }
+      if (rec.myBase != null) {
+         xor (raw, getRaw (rec.myBase), raw.length);
+      }
+      myCache.put (rec, raw);
+      return raw;
+   }
+
+   /**
+    * Reloads a stored state.
+    *
+    * @param rec record describing the state
+    * @return reloaded state
+    */
+   synchronized CompositeState load (Record rec) {
+      byte[] raw = getRaw (rec);
+      CompositeState state;
+      if (myRootModel != null) {
+         state = myRootModel.createState (null);
+      }
+      else {
+         state = new CompositeState();
+      }
+      try {
+         state.readBinary (
+            new DataInputStream (new ByteArrayInputStream (raw)));
+      }
+      catch (IOException e) {
+         throw new UncheckedIOException (
+            "Error reloading waypoint state from '"+myFile+"'", e);
+      }
+      return state;
+   }
+
+   /**
+    * Returns {@code true} if the data for a record is still in the store.
+    */
+   synchronized boolean contains (Record rec) {
+      return rec.end() <= mySize;
+   }
+
+   /**
+    * Truncates the data file to a given size, discarding all records that
+    * extend beyond it. Used to reclaim the space used by waypoints that have
+    * been invalidated.
+    *
+    * @param size new file size
+    */
+   synchronized void truncate (long size) {
+      if (size >= mySize) {
+         return;
+      }
+      try {
+         myChannel.truncate (size);
+      }
+      catch (IOException e) {
+         throw new UncheckedIOException (
+            "Error truncating waypoint file '"+myFile+"'", e);
+      }
+      mySize = size;
+      myCache.keySet().removeIf (rec -> rec.end() > size);
+   }
+
+   /**
+    * Removes all stored states.
+    */
+   public synchronized void clear() {
+      truncate (0);
+      myCache.clear();
+      myNumRecords = 0;
+      myNumRawBytes = 0;
+   }
+
+   /**
+    * Closes this store, deleting the data file if it is temporary.
+    */
+   public synchronized void close() {
+      myCache.clear();
+      try {
+         myChannel.close();
+      }
+      catch (IOException e) {
+         // ignore
+      }
+      if (myFileIsTemporary) {
+         myFile.delete();
+      }
+      if (myDeflater != null) {
+         myDeflater.end();
+         myDeflater = null;
+      }
+      if (myInflater != null) {
+         myInflater.end();
+         myInflater = null;
+      }
+   }
+}
@@ -25,6 +25,29 @@ public class ArtisynthIO {
          new FileWriter (file))));
    }
 
+   /**
+    * Creates an IndentingPrintWriter for a particular file, which writes
+    * either text or, if {@code binary} is {@code true}, the binary token
+    * format produced by {@link BinaryTokenWriter}. Binary files can be read
+    * back using the tokenizers returned by {@link #newReaderTokenizer(File)},
+    * and load considerably faster for models with large amounts of numeric
+    * data, such as FEM models and meshes.
+    * 
+    * @param file
+    * File on which to create the writer
+    * @param binary
+    * if {@code true}, write the file in binary token format
+    */
+   public static IndentingPrintWriter newIndentingPrintWriter (
+      File file, boolean binary) throws IOException {
+      if (binary) {
+         return new IndentingPrintWriter (new BinaryTokenWriter (file));
+      }
+      else {
+         return newIndentingPrintWriter (file);
+      }
+   }
+
    /**
     * Creates a buffered IndentingPrintWriter for a particular file.
     * 
@@ -40,15 +63,24 @@ public class ArtisynthIO {
    /**
     * Creates a ReaderTokenizer for a specified input file. The tokenizer is set
     * to accept <code>.</code>, <code>/</code>, and <code>$</code> as
-    * word characters, and the underlying Reader is buffered.
+    * word characters, and the underlying Reader is buffered. If the file
+    * was written in the binary token format (see {@link
+    * #newIndentingPrintWriter(File,boolean)}), a {@link
+    * BinaryReaderTokenizer} is returned instead.
     * 
     * @param file
     * File on which to create the tokenizer
     */
    public static ReaderTokenizer newReaderTokenizer (File file)
       throws IOException {
-      ReaderTokenizer rtok =
-         new ReaderTokenizer (new BufferedReader (new FileReader (file)));
+      ReaderTokenizer rtok;
+      if (BinaryReaderTokenizer.isBinaryTokenFile (file)) {
+         rtok = new BinaryReaderTokenizer (file);
+      }
+      else {
+         rtok = new ReaderTokenizer (
+            new BufferedReader (new FileReader (file)));
+      }
       rtok.wordChars ("./$");
       rtok.setResourceName (file.toString());
       return rtok;
@@ -68,6 +68,8 @@ import artisynth.core.modelbase.PropertyChangeEvent;
 import artisynth.core.modelbase.RenderableComponent;
 import artisynth.core.modelbase.RenderableComponentList;
 import artisynth.core.modelbase.RenderableModelBase;
+import artisynth.core.modelbase.StepProfiler;
+import artisynth.core.modelbase.StepProfiler.Phase;
 import artisynth.core.modelbase.ScanWriteUtils;
 import artisynth.core.modelbase.StepAdjustment;
 import artisynth.core.modelbase.StructureChangeEvent;
@@ -145,6 +147,9 @@ public class RootModel extends RenderableModelBase
    protected boolean myAdaptiveStepping = DEFAULT_ADAPTIVE_STEPPING;
    protected double myMinStepSize = DEFAULT_MIN_STEP_SIZE;
 
+   protected static final boolean DEFAULT_PROFILING = false;
+   protected StepProfiler myStepProfiler = null;
+
    private static final Point3d DEFAULT_VIEWER_CENTER = new Point3d();
    private static final Point3d DEFAULT_VIEWER_EYE = new Point3d (0, -1, 0);
    private static final AxisAngle DEFAULT_VIEW_ORIENTATION = 
@@ -598,6 +603,9 @@ public class RootModel extends RenderableModelBase
       myProps.add (
          "adaptiveStepping",
          "enables/disables adaptive step sizing", DEFAULT_ADAPTIVE_STEPPING);
+      myProps.add (
+         "profiling",
+         "enables/disables per-phase step profiling", DEFAULT_PROFILING);
       // remove and replace maxStepSize to redefine default value and range
       myProps.remove ("maxStepSize");
       myProps.add (
@@ -622,6 +630,42 @@ public class RootModel extends RenderableModelBase
    public double getMinStepSize() {
       return myMinStepSize;
    }
+
+   /**
+    * Queries whether step profiling is enabled for this root model.
+    *
+    * @return {@code true} if step profiling is enabled
+    * @see #getStepProfiler
+    */
+   public boolean getProfiling() {
+      return myStepProfiler != null;
+   }
+
+   /**
+    * Enables or disables step profiling for this root model. When enabled,
+    * the time and memory allocation for each phase of each step are
+    * recorded by a {@link StepProfiler}, which can be obtained using {@link
+    * #getStepProfiler}. Disabling profiling discards the profiler and its
+    * data.
+    *
+    * @param enable if {@code true}, enables step profiling
+    */
+   public synchronized void setProfiling (boolean enable) {
+      if (enable != getProfiling()) {
+         myStepProfiler = (enable ? new StepProfiler() : null);
+      }
+   }
+
+   /**
+    * Returns the step profiler for this root model, or {@code null} if
+    * profiling is not enabled.
+    *
+    * @return step profiler, or {@code null}
+    * @see #setProfiling
+    */
+   public StepProfiler getStepProfiler() {
+      return myStepProfiler;
+   }
    
    public void setMinStepSize (double step) {
       myMinStepSize = step;
@@ -806,7 +850,7 @@ public class RootModel extends RenderableModelBase
       if (myMainViewer == null) {
          // XXX hack in case this is called inside the RootModel constructor
          // instead of inside the build method
-         return Main.getMain().getViewer();
+         return Main.getMain() != null ? Main.getMain().getViewer() : null;
       }
       else {
          return myMainViewer;
@@ -1373,7 +1417,9 @@ public class RootModel extends RenderableModelBase
    }
 
    public void rerender() {
-      Main.getMain().rerender();
+      if (Main.getMain() != null) {
+         Main.getMain().rerender();
+      }
    }
 
    /**
@@ -1719,7 +1765,21 @@ public class RootModel extends RenderableModelBase
             myModelInfoValid = true;
          }
       }
-      doadvance (t0, t1, flags);
+      StepProfiler prof = myStepProfiler;
+      if (prof == null) {
+         doadvance (t0, t1, flags);
+      }
+      else {
+         prof.activate();
+         try {
+            prof.beginStep (t0, t1);
+            doadvance (t0, t1, flags);
+         }
+         finally {
+            prof.endStep();
+            prof.deactivate();
+         }
+      }
       return null;
    }
 
@@ -1729,31 +1789,52 @@ public class RootModel extends RenderableModelBase
    }
    
    public synchronized void applyInputProbes (List<Probe> list, double t) {
+      StepProfiler prof = StepProfiler.getCurrent();
+      if (prof != null) {
+         prof.begin (Phase.INPUT_PROBES);
+      }
       for (Probe p : list) {
          if (p.isActive() && withinTimeRange (p, t)) {
             p.apply (t);
          }
       }
+      if (prof != null) {
+         prof.end (Phase.INPUT_PROBES);
+      }
    }
 
    public synchronized void applyControllers (
       List<Controller> list, double t0, double t1) {
 
+      StepProfiler prof = StepProfiler.getCurrent();
+      if (prof != null) {
+         prof.begin (Phase.CONTROLLERS);
+      }
       for (Controller c : list) {
          if (c.isActive()) { // && withinTimeRange (c, t1)) {
             c.apply (t0, t1);
          }
       }
+      if (prof != null) {
+         prof.end (Phase.CONTROLLERS);
+      }
    }
 
    public synchronized void applyMonitors (
       List<Monitor> list, double t0, double t1) {
 
+      StepProfiler prof = StepProfiler.getCurrent();
+      if (prof != null) {
+         prof.begin (Phase.MONITORS);
+      }
       for (Monitor m : list) {
          if (m.isActive()) { // && withinTimeRange (m, t1)) {
             m.apply (t0, t1);
          }
       }
+      if (prof != null) {
+         prof.end (Phase.MONITORS);
+      }
    }
 
    public synchronized void applyOutputProbes (
@@ -1764,6 +1845,10 @@ public class RootModel extends RenderableModelBase
       boolean coincidesWithStep =
          (maxStep != -1 && TimeBase.modulo (t1, maxStep) == 0);  
 
+      StepProfiler prof = StepProfiler.getCurrent();
+      if (prof != null) {
+         prof.begin (Phase.OUTPUT_PROBES);
+      }
       for (Probe p : list) {
          if (!p.isActive() || !withinTimeRange (p, t1)) {
             continue;
@@ -1773,6 +1858,9 @@ public class RootModel extends RenderableModelBase
             p.apply (t1);
          }
       }
+      if (prof != null) {
+         prof.end (Phase.OUTPUT_PROBES);
+      }
    }
 
    private double nextProbeEvent (List<Probe> probes, double t0) {
@@ -1873,7 +1961,14 @@ public class RootModel extends RenderableModelBase
                if (s >= 1) {
                   applyInputProbes (info.inputProbes, tb);
                   applyControllers (info.controllers, ta, tb);
+                  StepProfiler prof = StepProfiler.getCurrent();
+                  if (prof != null) {
+                     prof.begin (Phase.ADVANCE);
+                  }
                   adj = info.model.advance (ta, tb, flags);
+                  if (prof != null) {
+                     prof.end (Phase.ADVANCE);
+                  }
                   s = getRecommendedScaling (adj);
                }
                if (myAdaptiveStepping && s < 1) {
@@ -2069,6 +2164,7 @@ public class RootModel extends RenderableModelBase
       for (Monitor m : myMonitors) {
          m.dispose();
       }
+      myWayPoints.dispose();
       // This dispose code not needed since dispose will now be called
       // be the control panel remove handler
       // for (ControlPanel cp : myControlPanels) {
@@ -0,0 +1,189 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.concurrency;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import maspack.util.InternalErrorException;
+
+/**
+ * Executes index-range loops across a fixed number of threads. The range
+ * <code>[0, n)</code> is divided into contiguous chunks, one per thread, so
+ * that the assignment of indices to threads depends only on <code>n</code>
+ * and the number of threads. This makes it possible for callers to obtain
+ * reproducible results when each thread accumulates into its own workspace
+ * and the workspaces are subsequently combined in thread order.
+ *
+ * <p>The calling thread executes the first chunk itself, while the remaining
+ * chunks are passed to worker threads which are created on demand and
+ * released after a period of inactivity.
+ */
+public class ParallelLoop {
+
+   protected static long defaultTimeoutMS = 5000;
+
+   /**
+    * Task executed on a contiguous sub-range of a parallel loop.
+    */
+   public interface RangeTask {
+      /**
+       * Processes indices <code>lo</code> (inclusive) to <code>hi</code>
+       * (exclusive).
+       *
+       * @param tidx index of the thread chunk, in the range
+       * <code>[0, numThreads)</code>. Can be used to select a per-thread
+       * workspace.
+       * @param lo first index of the range
+       * @param hi one past the last index of the range
+       */
+      public void run (int tidx, int lo, int hi);
+   }
+
+   private int myNumThreads;
+   private ThreadPoolExecutor myExecutor;
+   private Future<?>[] myFutures;
+   private String myName;
+
+   /**
+    * Creates a new ParallelLoop.
+    *
+    * @param name base name for the worker threads
+    * @param numThreads number of threads (including the caller)
+    * used to execute each loop
+    */
+   public ParallelLoop (String name, int numThreads) {
+      if (numThreads < 1) {
+         throw new IllegalArgumentException (
+            "numThreads must be at least 1; got "+numThreads);
+      }
+      myName = name;
+      myNumThreads = numThreads;
+      myFutures = new Future<?>[numThreads];
+   }
+
+   /**
+    * Returns the number of threads used to execute each loop.
+    *
+    * @return number of threads
+    */
+   public int numThreads() {
+      return myNumThreads;
+   }
+
+   /**
+    * Returns a default number of threads, based on the number of
+    * available processors.
+    *
+    * @return default number of threads
+    */
+   public static int getDefaultNumThreads() {
+      return Runtime.getRuntime().availableProcessors();
+   }
+
+   private ThreadPoolExecutor getExecutor() {
+      if (myExecutor == null) {
+         myExecutor = new ThreadPoolExecutor (
+            myNumThreads-1, myNumThreads-1,
+            defaultTimeoutMS, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new NamedThreadFactory (myName));
+         myExecutor.allowCoreThreadTimeOut (true);
+      }
+      return myExecutor;
+   }
+
+   /**
+    * Returns the start of the <code>k</code>-th chunk when <code>n</code>
+    * indices are divided among <code>nchunks</code> chunks.
+    */
+   public static int chunkStart (int k, int n, int nchunks) {
+      return (int)(((long)k*n)/nchunks);
+   }
+
+   /**
+    * Executes <code>task</code> over the index range <code>[0, n)</code>.
+    * This method does not return until all chunks have completed. If any
+    * chunk throws an exception, it is rethrown in the calling thread after
+    * the other chunks have finished.
+    *
+    * @param n number of indices to process
+    * @param task task to execute on each chunk
+    */
+   public void run (int n, final RangeTask task) {
+      int nchunks = Math.min (myNumThreads, n);
+      if (nchunks <= 1) {
+         if (n > 0) {
+            task.run (0, 0, n);
+         }
+         return;
+      }
+      ThreadPoolExecutor executor = getExecutor();
+      for (int k=1; k<nchunks; k++) {
+         final int tidx = k;
+         final int lo = chunkStart (k, n, nchunks);
+         final int hi = chunkStart (k+1, n, nchunks);
+         myFutures[k] = executor.submit (new Runnable() {
+               public void run() {
+                  task.run (tidx, lo, hi);
+               }
+            });
+      }
+      RuntimeException error = null;
+      try {
+         task.run (0, 0, chunkStart (1, n, nchunks));
+      }
+      catch (RuntimeException e) {
+         error = e;
+      }
+      for (int k=1; k<nchunks; k++) {
+         try {
+            myFutures[k].get();
+         }
+         catch (ExecutionException e) {
+            if (error == null) {
+               Throwable cause = e.getCause();
+               if (cause instanceof RuntimeException) {
+                  error = (RuntimeException)cause;
+               }
+               else if (cause instanceof Error) {
+                  throw (Error)cause;
+               }
+               else {
+                  error = new InternalErrorException (
+                     "Exception in parallel loop: " + cause);
+               }
+            }
+         }
+         catch (InterruptedException e) {
+            if (error == null) {
+               error = new InternalErrorException (
+                  "Parallel loop interrupted");
+            }
+         }
+         myFutures[k] = null;
+      }
+      if (error != null) {
+         throw error;
+      }
+   }
+
+   /**
+    * Releases the worker threads associated with this loop. The loop
+    * can still be used afterwards, in which case new threads will be
+    * created.
+    */
+   public void dispose() {
+      if (myExecutor != null) {
+         myExecutor.shutdown();
+         myExecutor = null;
+      }
+   }
+}
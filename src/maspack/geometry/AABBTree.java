@@ -46,6 +46,22 @@ public class AABBTree extends BVTree {
    public AABBTree (MeshBase mesh) {
       this (mesh, 2, -1);
    }
+
+   public AABBTree (IndexedTriangleMesh mesh, int maxLeafElems, double margin) {
+      setMaxLeafElements (maxLeafElems);
+      if (margin < 0) {
+         setMargin (1e-8*mesh.computeRadius());
+      }
+      else {
+         setMargin (margin);
+      }
+      build (mesh);
+      numberNodes (myRoot, 0);
+   }
+
+   public AABBTree (IndexedTriangleMesh mesh) {
+      this (mesh, 2, -1);
+   }
   
    private boolean splitNode (
       AABB node, ElemDesc[] edescs,
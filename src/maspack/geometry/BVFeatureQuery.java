@@ -467,7 +467,7 @@ public class BVFeatureQuery {
       }
       myPointFaceCalc.myFace = null;
 
-      if (!bvh.getRoot().intersectsSphere (lpnt, tol)) {
+      if (!rootIntersectsSphere (bvh, lpnt, tol)) {
          lastCase = "Culled " + tol;
          return false;
       }
@@ -749,7 +749,7 @@ public class BVFeatureQuery {
       else {
          lpnt = pnt;
       }
-      if (!bvh.getRoot().intersectsSphere (lpnt, tol)) {
+      if (!rootIntersectsSphere (bvh, lpnt, tol)) {
          return InsideQuery.OUTSIDE;
       }
 
@@ -969,12 +969,18 @@ public class BVFeatureQuery {
 
    private class BVCheckRequest {
       BVNode myNode;
+      int myIdx = -1; // node index, for LinearAABBTree searches
       double myDist;
 
       BVCheckRequest (BVNode node, double dist) {
          myNode = node;
          myDist = dist;
       }
+
+      BVCheckRequest (int idx, double dist) {
+         myIdx = idx;
+         myDist = dist;
+      }
    }
 
    private class BVCheckComparator implements Comparator<BVCheckRequest> {
@@ -1000,7 +1006,9 @@ public class BVFeatureQuery {
       public void reset();
 
       /**
-       * Computes the nearest distance to the bounding node
+       * Computes the nearest distance to the bounding node. For searches
+       * on a {@link LinearAABBTree}, {@code node} may be a temporary {@link
+       * AABB} that only provides the node's bounds.
        * 
        * @param node node to check distance to
        * @return distance to <code>node</code>
@@ -1735,6 +1743,9 @@ public class BVFeatureQuery {
 
    public Boundable nearestObject (BVTree bvh, ObjectDistanceCalculator dcalc) {
 
+      if (bvh instanceof LinearAABBTree) {
+         return nearestObject ((LinearAABBTree)bvh, dcalc);
+      }
       double nearestDistance = INF;
       Boundable nearestFeature = null;
       dcalc.reset();
@@ -1795,6 +1806,10 @@ public class BVFeatureQuery {
 
       //	   double nearestDistance = INF;
       //	   Boundable nearestFeature = null;
+      if (bvh instanceof LinearAABBTree) {
+         nearestObjects ((LinearAABBTree)bvh, dcalc, coll);
+         return;
+      }
       dcalc.reset();
 
       PriorityQueue<BVCheckRequest> queue =
@@ -1859,6 +1874,9 @@ public class BVFeatureQuery {
 
    public BVNode nearestLeafToPoint(BVTree bvh, Point3d pnt) {
 
+      if (bvh instanceof LinearAABBTree) {
+         return nearestLeafToPoint ((LinearAABBTree)bvh, pnt);
+      }
       double nearestDistance = INF;
       BVNode nearestNode = null;
 
@@ -1897,4 +1915,171 @@ public class BVFeatureQuery {
 
       return nearestNode;
    }
+
+   // The following methods search a LinearAABBTree using its node arrays,
+   // so that its AABB hierarchy does not need to be updated from the arrays
+   // each time the tree is refit. Node bounds are copied into a temporary
+   // AABB when needed by a distance calculator.
+
+   /**
+    * Returns true if the root of a tree intersects a sphere in the tree's
+    * local coordinates.
+    */
+   private boolean rootIntersectsSphere (
+      BVTree bvh, Point3d lpnt, double r) {
+      if (bvh instanceof LinearAABBTree) {
+         LinearAABBTree tree = (LinearAABBTree)bvh;
+         if (tree.numNodes() > 0) {
+            AABB box = new AABB();
+            tree.getNodeBounds (0, box);
+            return box.intersectsSphere (lpnt, r);
+         }
+      }
+      return bvh.getRoot().intersectsSphere (lpnt, r);
+   }
+
+   private Boundable nearestObject (
+      LinearAABBTree bvh, ObjectDistanceCalculator dcalc) {
+
+      double nearestDistance = INF;
+      Boundable nearestFeature = null;
+      dcalc.reset();
+      if (bvh.numNodes() == 0) {
+         return null;
+      }
+      PriorityQueue<BVCheckRequest> queue =
+      new PriorityQueue<BVCheckRequest> (11, new BVCheckComparator());
+
+      AABB box = new AABB();
+      bvh.getNodeBounds (0, box);
+      double d = dcalc.nearestDistance (box);
+      if (d != -1) {
+         queue.add (new BVCheckRequest (0, d));
+      }
+      while (!queue.isEmpty()) {
+         BVCheckRequest req = queue.poll();
+         if (req.myDist > nearestDistance) {
+            break;
+         }
+         int n = req.myIdx;
+         int ch = bvh.getChildIndex (n);
+         if (ch == -1) {
+            int off = bvh.getElementOffset (n);
+            int end = off + bvh.numElements (n);
+            for (int k=off; k<end; k++) {
+               d = dcalc.nearestDistance (bvh.getElement (k));
+               if (d != -1 && d < nearestDistance) {
+                  nearestFeature = dcalc.nearestObject();
+                  nearestDistance = d;
+               }
+            }
+         }
+         else {
+            for (int c=ch; c<=ch+1; c++) {
+               bvh.getNodeBounds (c, box);
+               d = dcalc.nearestDistance (box);
+               if (d != -1 && d < nearestDistance) {
+                  queue.add (new BVCheckRequest (c, d));
+               }
+            }
+         }
+      }
+
+      // trigger storing of nearest feature
+      dcalc.reset ();
+      if (nearestFeature != null) {
+         dcalc.nearestDistance(nearestFeature);
+      }
+      return nearestFeature;
+   }
+
+   private void nearestObjects (
+      LinearAABBTree bvh, ObjectDistanceCalculator dcalc,
+      ObjectDistanceCollector coll) {
+
+      dcalc.reset();
+      if (bvh.numNodes() == 0) {
+         return;
+      }
+      PriorityQueue<BVCheckRequest> queue =
+      new PriorityQueue<BVCheckRequest> (11, new BVCheckComparator());
+
+      AABB box = new AABB();
+      bvh.getNodeBounds (0, box);
+      double d = dcalc.nearestDistance (box);
+      if (d != -1) {
+         queue.add (new BVCheckRequest (0, d));
+      }
+      while (!queue.isEmpty()) {
+         BVCheckRequest req = queue.poll();
+         if (!coll.check(req)) {
+            break;
+         }
+         int n = req.myIdx;
+         int ch = bvh.getChildIndex (n);
+         if (ch == -1) {
+            int off = bvh.getElementOffset (n);
+            int end = off + bvh.numElements (n);
+            for (int k=off; k<end; k++) {
+               Boundable e = bvh.getElement (k);
+               d = dcalc.nearestDistance (e);
+               if (d != -1) {
+                  coll.add(e, d);
+               }
+            }
+         }
+         else {
+            for (int c=ch; c<=ch+1; c++) {
+               bvh.getNodeBounds (c, box);
+               d = dcalc.nearestDistance (box);
+               if (d != -1) {
+                  queue.add (new BVCheckRequest (c, d));
+               }
+            }
+         }
+      }
+   }
+
+   private BVNode nearestLeafToPoint (LinearAABBTree bvh, Point3d pnt) {
+
+      double nearestDistance = INF;
+      int nearestIdx = -1;
+      if (bvh.numNodes() == 0) {
+         return null;
+      }
+      PriorityQueue<BVCheckRequest> queue =
+      new PriorityQueue<BVCheckRequest> (11, new BVCheckComparator());
+
+      AABB box = new AABB();
+      bvh.getNodeBounds (0, box);
+      double d = box.distanceToPoint (pnt);
+      if (d != -1) {
+         queue.add (new BVCheckRequest (0, d));
+      }
+      while (!queue.isEmpty()) {
+         BVCheckRequest req = queue.poll();
+         if (req.myDist > nearestDistance) {
+            break;
+         }
+         int n = req.myIdx;
+         int ch = bvh.getChildIndex (n);
+         if (ch == -1) {
+            // the queued distance is the distance to the leaf
+            if (req.myDist < nearestDistance) {
+               nearestDistance = req.myDist;
+               nearestIdx = n;
+            }
+         }
+         else {
+            for (int c=ch; c<=ch+1; c++) {
+               bvh.getNodeBounds (c, box);
+               d = box.distanceToPoint (pnt);
+               if (d != -1 && d < nearestDistance) {
+                  queue.add (new BVCheckRequest (c, d));
+               }
+            }
+         }
+      }
+      return nearestIdx != -1 ? bvh.getLeaf (nearestIdx) : null;
+   }
 }
@@ -214,6 +214,17 @@ public abstract class BVTree implements IsRenderable {
       Collection<? extends Boundable> elist = getElementsForMesh (mesh);
       build (elist);
    }  
+
+   /**
+    * Builds a bounding volume tree for the triangles of an indexed triangle
+    * mesh. The elements are the triangle features returned by {@link
+    * IndexedTriangleMesh#getTriangles}.
+    * 
+    * @param mesh mesh for which the tree should be built
+    */
+   public void build (IndexedTriangleMesh mesh) {
+      build (mesh.getTriangles());
+   }
    
    // /**
    //  * Builds a bounding volume tree for the elements in a mesh. Mesh types
@@ -535,16 +546,28 @@ public abstract class BVTree implements IsRenderable {
 
       BVNodeTester tester = null;
 
-      if ((!(this instanceof AABBTree) && !(this instanceof OBBTree)) ||
-          (!(bvt instanceof AABBTree) && !(bvt instanceof OBBTree))) {
+      if (!isBoxTree (this) || !isBoxTree (bvt)) {
          throw new IllegalArgumentException (
-            "Each bounding volume hierarchy must be an AABBTree or an OBBTree");
+            "Each bounding volume hierarchy must be an AABBTree, " +
+            "LinearAABBTree or OBBTree");
+      }
+      if (bvt instanceof LinearAABBTree) {
+         // let the other tree traverse its node arrays directly
+         RigidTransform3d X12 = new RigidTransform3d();
+         X12.invert (X21);
+         bvt.intersectTree (nodes2, nodes1, this, X12);
+         return;
       }
       tester = new BVBoxNodeTester (this, bvt);
       recursivelyIntersectTree (
          nodes1, nodes2, getRoot(), bvt.getRoot(), tester, X21); 
    }
 
+   private static boolean isBoxTree (BVTree bvt) {
+      return (bvt instanceof AABBTree || bvt instanceof OBBTree ||
+              bvt instanceof LinearAABBTree);
+   }
+
    /**
     * Returns a list of all leaf nodes in this tree which intersect a line
     * segment.
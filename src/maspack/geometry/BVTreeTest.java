@@ -20,6 +20,8 @@ import maspack.render.RenderableUtils;
 
 public class BVTreeTest {
 
+   private static final double INF = Double.POSITIVE_INFINITY;
+
    PolygonalMesh myComplexMesh1;
    PolygonalMesh myComplexMesh2;
 
@@ -27,6 +29,8 @@ public class BVTreeTest {
    AABBTree myAABBTree2;
    OBBTree myOBBTree1;
    OBBTree myOBBTree2;
+   LinearAABBTree myLinearTree1;
+   LinearAABBTree myLinearTree2;
 
    public BVTreeTest() {
       String meshFileName =
@@ -43,6 +47,8 @@ public class BVTreeTest {
       myAABBTree2 = new AABBTree (myComplexMesh2, 2);
       myOBBTree1 = new OBBTree (myComplexMesh1, 2, 0.001);
       myOBBTree2 = new OBBTree (myComplexMesh2, 2);
+      myLinearTree1 = new LinearAABBTree (myComplexMesh1, 2);
+      myLinearTree2 = new LinearAABBTree (myComplexMesh2, 2);
       myAABBTree1.numberNodes();
       myAABBTree2.numberNodes();
       myOBBTree1.numberNodes();
@@ -211,6 +217,64 @@ public class BVTreeTest {
       }
    }
 
+   /**
+    * Checks sphere, plane, line and line segment queries against an
+    * exhaustive search of the leaf nodes.
+    */
+   public void testIntersectQueries (BVTree bvh) {
+      Point3d center = new Point3d();
+      double radius = RenderableUtils.getRadiusAndCenter (center, bvh);
+
+      ArrayList<BVNode> leafNodes = bvh.getLeafNodes();
+
+      int numtrials = 100;
+      for (int i=0; i<numtrials; i++) {
+         Point3d p1 = new Point3d();
+         p1.setRandom();
+         p1.scale (2*radius);
+         p1.add (center);
+         Point3d p2 = new Point3d();
+         p2.setRandom();
+         p2.scale (2*radius);
+         p2.add (center);
+         Vector3d dir = new Vector3d();
+         dir.sub (p2, p1);
+         double r = RandomGenerator.nextDouble (0, radius/4);
+         Plane plane = new Plane (dir, p1);
+
+         HashSet<BVNode> sphereCheck = new HashSet<BVNode>();
+         HashSet<BVNode> planeCheck = new HashSet<BVNode>();
+         HashSet<BVNode> lineCheck = new HashSet<BVNode>();
+         HashSet<BVNode> segCheck = new HashSet<BVNode>();
+         for (BVNode node : leafNodes) {
+            if (node.intersectsSphere (p1, r)) {
+               sphereCheck.add (node);
+            }
+            if (node.intersectsPlane (plane.normal, plane.offset)) {
+               planeCheck.add (node);
+            }
+            if (node.intersectsLine (null, p1, dir, -INF, INF)) {
+               lineCheck.add (node);
+            }
+            if (node.intersectsLineSegment (p1, p2)) {
+               segCheck.add (node);
+            }
+         }
+         ArrayList<BVNode> nodes = new ArrayList<BVNode>();
+         bvh.intersectSphere (nodes, p1, r);
+         checkNodeSetsEqual ("intersectSphere:", nodes, sphereCheck, p1);
+         nodes.clear();
+         bvh.intersectPlane (nodes, plane);
+         checkNodeSetsEqual ("intersectPlane:", nodes, planeCheck, p1);
+         nodes.clear();
+         bvh.intersectLine (nodes, p1, dir, -INF, INF);
+         checkNodeSetsEqual ("intersectLine:", nodes, lineCheck, p1);
+         nodes.clear();
+         bvh.intersectLineSegment (nodes, p1, p2);
+         checkNodeSetsEqual ("intersectLineSegment:", nodes, segCheck, p1);
+      }
+   }
+
    public void testIntersectTree (
       BVTree bvh1, BVTree bvh2, RigidTransform3d X21) {
 
@@ -263,6 +327,10 @@ public class BVTreeTest {
          testIntersectTree (myAABBTree1, myOBBTree2, X21);
          testIntersectTree (myOBBTree1, myAABBTree2, X21);
          testIntersectTree (myOBBTree1, myOBBTree2, X21);
+         testIntersectTree (myLinearTree1, myLinearTree2, X21);
+         testIntersectTree (myLinearTree1, myOBBTree2, X21);
+         testIntersectTree (myAABBTree1, myLinearTree2, X21);
+         testIntersectTree (myOBBTree1, myLinearTree2, X21);
       }
    }
 
@@ -270,6 +338,9 @@ public class BVTreeTest {
       testIntersectPoint (myAABBTree1);
       //myOBBTree1.print();
       testIntersectPoint (myOBBTree1);
+      testIntersectPoint (myLinearTree1);
+      testIntersectQueries (myAABBTree1);
+      testIntersectQueries (myLinearTree1);
    }
 
    private void testPointContainedInAncestors (Point3d pnt, BVNode node) {
@@ -400,6 +471,7 @@ public class BVTreeTest {
          trees.add (new OBBTree (mesh));
          trees.add (new OBBTree (mesh, Method.Covariance));
          trees.add (new OBBTree (mesh, Method.Points));
+         trees.add (new LinearAABBTree (mesh));
          
          for (BVTree tree : trees) {
             testFeaturesContainedInAncestors (tree);
@@ -415,6 +487,9 @@ public class BVTreeTest {
 
       AABBTree aabbTree = new AABBTree (mesh);
       OBBTree obbTree = new OBBTree (mesh);
+      LinearAABBTree linearTree = new LinearAABBTree (mesh);
+      // use enough threads to exercise the parallel refit on large meshes
+      linearTree.setNumThreads (2);
       
       int numtrials = 50;
       Vector3d del = new Vector3d();
@@ -426,16 +501,109 @@ public class BVTreeTest {
          }
          aabbTree.update();
          obbTree.update();
+         linearTree.update();
+
+         // leaves returned by queries must have current bounds, even though
+         // the bounds of the other nodes have not yet been updated
+         ArrayList<BVNode> nodes1 = new ArrayList<BVNode>();
+         ArrayList<BVNode> nodes2 = new ArrayList<BVNode>();
+         linearTree.intersectTree (
+            nodes1, nodes2, linearTree, RigidTransform3d.IDENTITY);
+         for (BVNode node : nodes1) {
+            testFeaturesBoundedByNodes (node, linearTree.getMargin());
+         }
 
          testFeaturesContainedInAncestors (aabbTree);
          testFeaturesContainedInAncestors (obbTree);
+         testFeaturesContainedInAncestors (linearTree);
          testFeaturesBoundedByNodes (aabbTree.getRoot(), aabbTree.getMargin());
          testFeaturesBoundedByNodes (obbTree.getRoot(), obbTree.getMargin());
+         testFeaturesBoundedByNodes (
+            linearTree.getRoot(), linearTree.getMargin());
       }
    }
       
+   /**
+    * Checks that BVFeatureQuery, which searches a LinearAABBTree using its
+    * node arrays, gives the same results for a LinearAABBTree as for an
+    * AABBTree, including after the mesh has been deformed.
+    */
+   public void testFeatureQueries (PolygonalMesh mesh) {
+      double radius = RenderableUtils.getRadius (mesh);
+      double noiseAmplitude = radius/Math.pow (mesh.numVertices(), 1/3.0);
+
+      AABBTree aabbTree = new AABBTree (mesh);
+      LinearAABBTree linearTree = new LinearAABBTree (mesh);
+      BVFeatureQuery query = new BVFeatureQuery();
+      Point3d center = new Point3d();
+      RenderableUtils.getRadiusAndCenter (center, mesh);
+
+      int numtrials = 10;
+      Vector3d del = new Vector3d();
+      for (int i=0; i<numtrials; i++) {
+         if (i > 0) {
+            for (Vertex3d vtx : mesh.getVertices()) {
+               del.setRandom ();
+               del.scale (noiseAmplitude/10);
+               vtx.pnt.add (del);
+            }
+            mesh.notifyVertexPositionsModified();
+            aabbTree.update();
+            linearTree.update();
+         }
+         for (int j=0; j<20; j++) {
+            Point3d pnt = new Point3d();
+            pnt.setRandom();
+            pnt.scale (1.5*radius);
+            pnt.add (center);
+
+            Point3d near = new Point3d();
+            Point3d nearChk = new Point3d();
+            query.nearestFaceToPoint (near, null, linearTree, pnt);
+            query.nearestFaceToPoint (nearChk, null, aabbTree, pnt);
+            if (Math.abs (near.distance(pnt)-nearChk.distance(pnt)) >
+                1e-12*radius) {
+               throw new TestException (
+                  "nearestFaceToPoint: distance " + near.distance(pnt) +
+                  ", expected " + nearChk.distance(pnt));
+            }
+            Vertex3d vtx = query.nearestVertexToPoint (linearTree, pnt);
+            Vertex3d vtxChk = query.nearestVertexToPoint (aabbTree, pnt);
+            if (vtx.pnt.distance(pnt) != vtxChk.pnt.distance(pnt)) {
+               throw new TestException (
+                  "nearestVertexToPoint: distance " + vtx.pnt.distance(pnt) +
+                  ", expected " + vtxChk.pnt.distance(pnt));
+            }
+            // the trees have different leaves, so check the nearest leaf
+            // against an exhaustive search
+            BVNode leaf = query.nearestLeafToPoint (linearTree, pnt);
+            double leafDist = INF;
+            for (BVNode node : linearTree.getLeafNodes()) {
+               leafDist = Math.min (leafDist, node.distanceToPoint (pnt));
+            }
+            if (leaf.distanceToPoint(pnt) != leafDist) {
+               throw new TestException (
+                  "nearestLeafToPoint: distance " + leaf.distanceToPoint(pnt) +
+                  ", expected " + leafDist);
+            }
+            boolean inside =
+               query.isInsideOrientedMesh (linearTree, pnt, -1);
+            boolean insideChk =
+               query.isInsideOrientedMesh (aabbTree, pnt, -1);
+            if (inside != insideChk) {
+               throw new TestException (
+                  "isInsideOrientedMesh: " + inside +
+                  ", expected " + insideChk);
+            }
+         }
+      }
+   }
+
    public void test() {
       testIntersectTree();
+      testIntersections();
+      testFeatureQueries (MeshFactory.createSphere (1.0, 7));
+      testFeatureQueries (new PolygonalMesh (myComplexMesh1));
       testContainment (MeshFactory.createBox (1.0, 1.5, 2.0));
       testContainment (MeshFactory.createSphere (1.0, 7));
       testContainment (new PolygonalMesh (myComplexMesh1));
@@ -445,6 +613,8 @@ public class BVTreeTest {
       testUpdating (MeshFactory.createBox (1.0, 1.5, 2.0));
       testUpdating (MeshFactory.createSphere (1.0, 7));
       testUpdating (new PolygonalMesh (myComplexMesh1));
+      // large enough for LinearAABBTree to refit in parallel
+      testUpdating (MeshFactory.createIcosahedralSphere (1.0, 4));
       testUpdating (MeshFactory.createSphericalPolyline (8.0, 12, 12));
       testUpdating (MeshFactory.createRandomPointMesh (200, 5));
    }
@@ -321,7 +321,8 @@ public class DistanceGrid extends ScalarGridBase {
     * cell size. Must be {@code >} 0.
     * @param signed if <code>true</code>, indicates that the field should be
     * signed. At present, signed fields can only be computed if all features
-    * are faces (i.e., {@link Face}).
+    * are faces (i.e., {@link Face}) or indexed mesh triangles (i.e.,
+    * {@link IndexedTriangleMesh.Triangle}).
     */
    public DistanceGrid (
       List<? extends Feature> features, double marginFrac, int maxRes,
@@ -354,7 +355,8 @@ public class DistanceGrid extends ScalarGridBase {
     * x, y, and z axes.
     * @param signed if <code>true</code>, indicates that the field should be
     * signed. At present, signed fields can only be computed if all features
-    * are faces (i.e., {@link Face}).
+    * are faces (i.e., {@link Face}) or indexed mesh triangles (i.e.,
+    * {@link IndexedTriangleMesh.Triangle}).
     */
    public DistanceGrid (
       List<? extends Feature> features, double marginFrac, Vector3i resolution,
@@ -440,9 +442,7 @@ public class DistanceGrid extends ScalarGridBase {
          myQuadCoefs = null;
          myTetIsOutside = null;
          if (myFeatures != null) {
-            int[] closestFeatureIdxs = new int[numVertices()];
-            calculatePhi (myValues, closestFeatureIdxs, myFeatures, mySignedP);
-            myClosestFeatureIdxs = closestFeatureIdxs;
+            calculatePhi (Arrays.asList (myFeatures), mySignedP);
          }
       }
    }
@@ -531,8 +531,10 @@ public class DistanceGrid extends ScalarGridBase {
    }
 
    private void clearNormals() {
-      for (int i=0; i<myNormals.length; i++) {
-         myNormals[i] = null;
+      if (myNormals != null) {
+         for (int i=0; i<myNormals.length; i++) {
+            myNormals[i] = null;
+         }
       }
    }
 
@@ -549,7 +551,8 @@ public class DistanceGrid extends ScalarGridBase {
     * @param features features used to compute the distance field
     * @param signed if <code>true</code>, indicates that the field should be
     * signed. At present, signed fields can only be computed if all features
-    * are faces (i.e., {@link Face}).
+    * are faces (i.e., {@link Face}) or indexed mesh triangles (i.e.,
+    * {@link IndexedTriangleMesh.Triangle}).
     */
    public void computeDistances (
       List<? extends Feature> features, boolean signed) {
@@ -583,7 +586,7 @@ public class DistanceGrid extends ScalarGridBase {
     */
    public void setVertexDistances (
       double[] distances, boolean signed) {
-      super.setVertexValues (distances);
+      setVertexValues (distances);
       myQuadCoefs = null;
       myTetIsOutside = null;
       clearNormals();
@@ -600,7 +603,7 @@ public class DistanceGrid extends ScalarGridBase {
     * not yet been set.
     */
    public double[] getVertexDistances() {
-      return super.getVertexValues();
+      return getVertexValues();
    }
    
    /**
@@ -612,7 +615,7 @@ public class DistanceGrid extends ScalarGridBase {
     * @return distance value at the vertex
     */
    protected double getVertexDistance (int vi) {
-      return super.getVertexValue (vi);
+      return getVertexValue (vi);
    }
 
    /**
@@ -623,7 +626,7 @@ public class DistanceGrid extends ScalarGridBase {
     * @return distance value at the vertex
     */
    public double getVertexDistance (Vector3i vxyz) {
-      return super.getVertexValue (vxyz);
+      return getVertexValue (vxyz);
    }
    
    /**
@@ -636,7 +639,7 @@ public class DistanceGrid extends ScalarGridBase {
     * @return distance value at the vertex
     */   
    protected double getVertexDistance (int xi, int yj, int zk) {
-      return super.getVertexValue (xi, yj, zk);
+      return getVertexValue (xi, yj, zk);
    }
 
    /**
@@ -645,7 +648,7 @@ public class DistanceGrid extends ScalarGridBase {
     * <i>signed</i> property is set to <code>false</code>.
     */
    public void zeroVertexDistances () {
-      super.zeroVertexValues();
+      zeroVertexValues();
       myQuadCoefs = null;
       myTetIsOutside = null;
       clearNormals();
@@ -766,7 +769,8 @@ public class DistanceGrid extends ScalarGridBase {
     * cell size
     * @param signed if <code>true</code>, indicates that the field should be
     * signed. At present, signed fields can only be computed if all features
-    * are faces (i.e., {@link Face}).
+    * are faces (i.e., {@link Face}) or indexed mesh triangles (i.e.,
+    * {@link IndexedTriangleMesh.Triangle}).
     */
    public void computeFromFeatures (
       List<? extends Feature> features, 
@@ -784,6 +788,35 @@ public class DistanceGrid extends ScalarGridBase {
       calculatePhi (mesh, signed);      
    }    
 
+   /**
+    * Computes the distance field for the triangles of an indexed triangle
+    * mesh. This is done by calling
+    * <pre>
+    *  computeFromFeatures (
+    *     mesh.getTriangles(), marginFrac, TCL, maxRes, signed);
+    * </pre>
+    * so that the grid's features are the {@link IndexedTriangleMesh.Triangle}
+    * objects of the mesh.
+    *
+    * @param mesh mesh used to compute the distance field
+    * @param marginFrac specifies the fractional amount that the
+    * grid should be grown in each direction to better contain the mesh
+    * @param TCL optional - if non-null, specifies the pose of the grid center
+    * @param maxRes if {@code > 0},
+    * specifies the resolution along the longest
+    * width, with resolutions along other widths set to ensure uniform
+    * cell size
+    * @param signed if <code>true</code>, indicates that the field should be
+    * signed, in which case the mesh should be closed
+    */
+   public void computeFromMesh (
+      IndexedTriangleMesh mesh, 
+      double marginFrac, RigidTransform3d TCL, int maxRes, boolean signed) {
+      
+      computeFromFeatures (
+         mesh.getTriangles(), marginFrac, TCL, maxRes, signed);
+   }    
+
    /**
     * Fits the widths and center of this grid to a set of features. The way in
     * which this is done is the same as for {@link #computeFromFeatures};
@@ -875,7 +908,8 @@ public class DistanceGrid extends ScalarGridBase {
     * cell size
     * @param signed if <code>true</code>, indicates that the field should be
     * signed. At present, signed fields can only be computed if all features
-    * are faces (i.e., {@link Face}).
+    * are faces (i.e., {@link Face}) or indexed mesh triangles (i.e.,
+    * {@link IndexedTriangleMesh.Triangle}).
     */
    public void computeFromFeaturesOBB (
       List<? extends Feature> features, 
@@ -1237,11 +1271,19 @@ public class DistanceGrid extends ScalarGridBase {
          }
 
          if (signed) {
-            if (!(feature instanceof Face)) {
+            Face face = null;
+            IndexedTriangleMesh.Triangle tri = null;
+            if (feature instanceof Face) {
+               face = (Face)feature;
+            }
+            else if (feature instanceof IndexedTriangleMesh.Triangle) {
+               tri = (IndexedTriangleMesh.Triangle)feature;
+            }
+            else {
                throw new IllegalArgumentException (
-                  "Signed grid can only be created if all features are Faces");
+                  "Signed grid can only be created if all features are "+
+                  "Faces or Triangles");
             }
-            Face face = (Face)feature;
             Point3d bot = new Point3d();
             Point3d top = new Point3d();
             // Ray-casts from bottom x-y plane, upwards, counting intersections.
@@ -1257,8 +1299,14 @@ public class DistanceGrid extends ScalarGridBase {
                      myGridToLocal.transformPnt (
                         top, new Point3d (xi, yj, maxz+1));
                      
-                     res = RobustPreds.intersectSegmentTriangle (
-                        ipnt, bot, top, face, maxDist, /*worldCoords=*/false);
+                     if (face != null) {
+                        res = RobustPreds.intersectSegmentTriangle (
+                           ipnt, bot, top, face, maxDist,
+                           /*worldCoords=*/false);
+                     }
+                     else {
+                        res = tri.intersectSegment (ipnt, bot, top, maxDist);
+                     }
                   }
                   
                   if (res > 0) {
@@ -1815,7 +1863,7 @@ public class DistanceGrid extends ScalarGridBase {
       // check 8 nearest features from corners
       for (int i=0; i<coords.length; i+=3) {
          int idx = xyzIndicesToVertex(coords[i], coords[i+1], coords[i+2]);
-         Feature f = myFeatures[idx];
+         Feature f = myFeatures[myClosestFeatureIdxs[idx]];
          f.nearestPoint(tmp, point);
          double d = tmp.distance(point);
          if (d < dmin) {
@@ -2754,6 +2802,16 @@ public class DistanceGrid extends ScalarGridBase {
       return xyzi;
    }
 
+   /**
+    * Queries whether quadratic interpolation coefficients are precomputed and
+    * stored for every quad tet, or instead computed on demand for each query.
+    *
+    * @return {@code true} if quadratic coefficients are stored
+    */
+   protected boolean storesQuadCoefs() {
+      return storeQuadCoefs;
+   }
+
    protected void updateQuadCoefsIfNecessary() {
       if (myQuadCoefs == null) {
          // calculate number of quad cells in x, y, and z
@@ -2803,7 +2861,7 @@ public class DistanceGrid extends ScalarGridBase {
       Vector3d coords = new Vector3d();
       double[] a;
       double dx, dy, dz;
-      if (storeQuadCoefs) {
+      if (storesQuadCoefs()) {
          updateQuadCoefsIfNecessary();
          int voff = getQuadCellCoords (coords, null, point, quadGridToX);
          if (voff == -1) {
@@ -2921,7 +2979,7 @@ public class DistanceGrid extends ScalarGridBase {
       double[] a;
       double dx, dy, dz;
       Vector3i vidx = null;
-      if (storeQuadCoefs) {
+      if (storesQuadCoefs()) {
          updateQuadCoefsIfNecessary();
          if (useNormalsForQuadGrad) {
             vidx = new Vector3i();
@@ -3002,16 +3060,16 @@ public class DistanceGrid extends ScalarGridBase {
    private void computeQuadCoefs (
       double[] a, int voff, int[] nodeOffs, int xi, int yi, int zi) {
       
-      double v0  = myValues[voff+nodeOffs[0]];
-      double v1  = myValues[voff+nodeOffs[1]];
-      double v2  = myValues[voff+nodeOffs[2]];
-      double v3  = myValues[voff+nodeOffs[3]];
-      double v4  = myValues[voff+nodeOffs[4]];
-      double v5  = myValues[voff+nodeOffs[5]];
-      double v6  = myValues[voff+nodeOffs[6]];
-      double v7  = myValues[voff+nodeOffs[7]];
-      double v8  = myValues[voff+nodeOffs[8]];
-      double v9  = myValues[voff+nodeOffs[9]];
+      double v0  = getVertexValue (voff+nodeOffs[0]);
+      double v1  = getVertexValue (voff+nodeOffs[1]);
+      double v2  = getVertexValue (voff+nodeOffs[2]);
+      double v3  = getVertexValue (voff+nodeOffs[3]);
+      double v4  = getVertexValue (voff+nodeOffs[4]);
+      double v5  = getVertexValue (voff+nodeOffs[5]);
+      double v6  = getVertexValue (voff+nodeOffs[6]);
+      double v7  = getVertexValue (voff+nodeOffs[7]);
+      double v8  = getVertexValue (voff+nodeOffs[8]);
+      double v9  = getVertexValue (voff+nodeOffs[9]);
 
       a[xi] =  2*v0 + 2*v1 - 4*v4;
       a[yi] =  2*v1 + 2*v2 - 4*v5;
@@ -3342,8 +3400,10 @@ public class DistanceGrid extends ScalarGridBase {
     */
    public void scaleDistance (double s) {
       super.scaleDistance (s);
-      for (int i=0; i<myValues.length; i++) {
-         myValues[i] *= s;
+      if (myValues != null) {
+         for (int i=0; i<myValues.length; i++) {
+            myValues[i] *= s;
+         }
       }
       if (myGridToLocal != null) {
          scaleTransformer (myQuadGridToLocal, s);
@@ -3355,7 +3415,7 @@ public class DistanceGrid extends ScalarGridBase {
       Vector3i[] vertices = tdesc.getVertices();
       for (int k=0; k<vertices.length; k++) {
          int vi = xyzIndicesToVertex (vertices[k]);
-         if (myValues[vi] <= mindist) {
+         if (getVertexValue (vi) <= mindist) {
             return false;
          }
       }
@@ -3399,7 +3459,7 @@ public class DistanceGrid extends ScalarGridBase {
          for (int j=0; j<3; j++) {
             for (int k=0; k<3; k++) {
                int vi = xyzIndicesToVertex (xi+i, yj+j, zk+k);
-               if (myValues[vi] >= 0) {
+               if (getVertexValue (vi) >= 0) {
                   hasPositive = true;
                }
                else {
@@ -3512,8 +3572,8 @@ public class DistanceGrid extends ScalarGridBase {
    boolean first = true;
 
    void maybeAddEdge (HashSet<GridEdge> edges, int v0, int v1) {
-      double d0 = myValues[v0];
-      double d1 = myValues[v1];
+      double d0 = getVertexValue (v0);
+      double d1 = getVertexValue (v1);
       if (d0*d1 < 0) {
          GridEdge edge = new GridEdge (v0, v1);
          if (!edges.contains (edge)) {
@@ -24,6 +24,7 @@ public abstract class Feature implements Boundable {
    public static final int EDGE = 5;
    public static final int FACET = 6;
    public static final int CELL = 7;
+   public static final int TRIANGLE = 8;
    public static final int TYPE_MASK = 0xff;
 
    public Feature (int type) {
@@ -69,6 +70,9 @@ public abstract class Feature implements Boundable {
          case CELL: {
             return "CELL";
          }
+         case TRIANGLE: {
+            return "TRIANGLE";
+         }
          default: {
             return "???";
          }
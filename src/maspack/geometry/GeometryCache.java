@@ -0,0 +1,763 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.geometry;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import maspack.geometry.OBB.Method;
+import maspack.matrix.RigidTransform3d;
+import maspack.matrix.Vector3d;
+import maspack.matrix.Vector3i;
+
+/**
+ * A persistent, content-addressed disk cache for distance grids and
+ * bounding volume hierarchies computed from meshes whose geometry does not
+ * change between runs. Each entry is stored in its own file within the
+ * cache directory, named by a key that is a SHA-256 hash of the mesh
+ * geometry and the settings used to compute the entry (see {@link
+ * #createKey}). Entries are written in a compact binary form and read back
+ * by memory-mapping the file.
+ *
+ * <p>The total size of the cache directory is limited by {@link
+ * #getMaxSize}. When an entry is added and the limit is exceeded, the least
+ * recently used entries are deleted. Use is tracked using the last
+ * modification time of each file, which is updated whenever an entry is
+ * retrieved.
+ *
+ * <p>Failures while reading or writing the cache are never fatal: a
+ * corrupt or unreadable entry is deleted and treated as missing, so that
+ * the caller simply recomputes it.
+ *
+ * <p>A default cache, used by {@link PolygonalMesh#getBVTree} for fixed
+ * meshes and by applications for their distance grids, can be set using
+ * {@link #setDefault}. By default, there is no default cache.
+ */
+public class GeometryCache {
+
+   /**
+    * File extension used for cache entries.
+    */
+   public static final String EXTENSION = "agc";
+
+   /**
+    * Default maximum size of the cache directory, in bytes.
+    */
+   public static final long DEFAULT_MAX_SIZE = (1L << 30);
+
+   static final int MAGIC = 0x41474331;
+   static final int VERSION = 1;
+   static final int HEADER_SIZE = 16;
+
+   // entry types
+   static final int DENSE_GRID = 1;
+   static final int SPARSE_GRID = 2;
+   static final int OBB_TREE = 3;
+
+   private static GeometryCache myDefault = null;
+
+   File myDir;
+   long myMaxSize;
+
+   /**
+    * Creates a cache that stores its entries in the directory {@code dir},
+    * which is created if necessary.
+    *
+    * @param dir cache directory
+    * @param maxSize maximum total size of the cache entries, in bytes
+    */
+   public GeometryCache (File dir, long maxSize) {
+      if (maxSize < 0) {
+         throw new IllegalArgumentException (
+            "maxSize must be non-negative; got "+maxSize);
+      }
+      myDir = dir;
+      myMaxSize = maxSize;
+      if (!dir.exists()) {
+         dir.mkdirs();
+      }
+   }
+
+   /**
+    * Returns the default cache, or {@code null} if there is none.
+    *
+    * @return default cache
+    */
+   public static GeometryCache getDefault() {
+      return myDefault;
+   }
+
+   /**
+    * Sets the default cache. Specifying {@code null} disables default
+    * caching.
+    *
+    * @param cache new default cache
+    */
+   public static void setDefault (GeometryCache cache) {
+      myDefault = cache;
+   }
+
+   /**
+    * Returns the directory in which this cache stores its entries.
+    *
+    * @return cache directory
+    */
+   public File getDirectory() {
+      return myDir;
+   }
+
+   /**
+    * Returns the maximum total size of the entries in this cache.
+    *
+    * @return maximum size, in bytes
+    */
+   public long getMaxSize() {
+      return myMaxSize;
+   }
+
+   /**
+    * Sets the maximum total size of the entries in this cache. If the
+    * current size exceeds this, the least recently used entries are
+    * removed.
+    *
+    * @param maxSize maximum size, in bytes
+    */
+   public void setMaxSize (long maxSize) {
+      if (maxSize < 0) {
+         throw new IllegalArgumentException (
+            "maxSize must be non-negative; got "+maxSize);
+      }
+      myMaxSize = maxSize;
+      evict();
+   }
+
+   private File[] listEntries() {
+      File[] files = myDir.listFiles (
+         (dir, name) -> name.endsWith ("."+EXTENSION));
+      return files != null ? files : new File[0];
+   }
+
+   /**
+    * Returns the total size of the entries in this cache.
+    *
+    * @return cache size, in bytes
+    */
+   public long getSize() {
+      long size = 0;
+      for (File file : listEntries()) {
+         size += file.length();
+      }
+      return size;
+   }
+
+   /**
+    * Returns the number of entries in this cache.
+    *
+    * @return number of entries
+    */
+   public int numEntries() {
+      return listEntries().length;
+   }
+
+   /**
+    * Queries whether this cache contains an entry for a given key.
+    *
+    * @param key key for the entry
+    * @return {@code true} if the entry exists
+    */
+   public boolean containsKey (String key) {
+      return getFile (key).exists();
+   }
+
+   /**
+    * Removes all entries from this cache.
+    */
+   public void clear() {
+      for (File file : listEntries()) {
+         file.delete();
+      }
+   }
+
+   File getFile (String key) {
+      return new File (myDir, key+"."+EXTENSION);
+   }
+
+   /**
+    * Removes the least recently used entries until the cache size is within
+    * its limit.
+    */
+   private synchronized void evict() {
+      File[] files = listEntries();
+      long[] sizes = new long[files.length];
+      long[] times = new long[files.length];
+      Integer[] order = new Integer[files.length];
+      long size = 0;
+      for (int i=0; i<files.length; i++) {
+         sizes[i] = files[i].length();
+         times[i] = files[i].lastModified();
+         order[i] = i;
+         size += sizes[i];
+      }
+      if (size <= myMaxSize) {
+         return;
+      }
+      Arrays.sort (order, Comparator.comparingLong (i -> times[i]));
+      for (int k=0; k<order.length && size > myMaxSize; k++) {
+         int i = order[k];
+         if (files[i].delete()) {
+            size -= sizes[i];
+         }
+      }
+   }
+
+   /* --- keys --- */
+
+   private static void updateDigest (
+      MessageDigest digest, ByteBuffer buf, double val) {
+      if (buf.remaining() < 8) {
+         flushDigest (digest, buf);
+      }
+      buf.putDouble (val);
+   }
+
+   private static void updateDigest (
+      MessageDigest digest, ByteBuffer buf, int val) {
+      if (buf.remaining() < 4) {
+         flushDigest (digest, buf);
+      }
+      buf.putInt (val);
+   }
+
+   private static void flushDigest (MessageDigest digest, ByteBuffer buf) {
+      buf.flip();
+      digest.update (buf);
+      buf.clear();
+   }
+
+   /**
+    * Creates a cache key from the geometry of one or more meshes and a set
+    * of settings used to compute an entry. The key is a SHA-256 hash of the
+    * mesh vertex positions (in mesh coordinates), the face or line
+    * topology, and the string representations of the settings. The settings
+    * should include everything that affects the computed entry, such as
+    * resolutions and margins.
+    *
+    * @param meshes meshes used to compute the entry
+    * @param settings settings used to compute the entry
+    * @return key for the entry
+    */
+   public static String createKey (
+      List<? extends MeshBase> meshes, Object... settings) {
+      MessageDigest digest;
+      try {
+         digest = MessageDigest.getInstance ("SHA-256");
+      }
+      catch (NoSuchAlgorithmException e) {
+         throw new UnsupportedOperationException (
+            "SHA-256 is not available", e);
+      }
+      ByteBuffer buf = ByteBuffer.allocate (4096);
+      updateDigest (digest, buf, VERSION);
+      updateDigest (digest, buf, meshes.size());
+      for (MeshBase mesh : meshes) {
+         updateDigest (digest, buf, mesh.numVertices());
+         for (Vertex3d vtx : mesh.getVertices()) {
+            updateDigest (digest, buf, vtx.pnt.x);
+            updateDigest (digest, buf, vtx.pnt.y);
+            updateDigest (digest, buf, vtx.pnt.z);
+         }
+         if (mesh instanceof PolygonalMesh) {
+            PolygonalMesh pmesh = (PolygonalMesh)mesh;
+            updateDigest (digest, buf, pmesh.numFaces());
+            for (Face face : pmesh.getFaces()) {
+               int[] idxs = face.getVertexIndices();
+               updateDigest (digest, buf, idxs.length);
+               for (int i=0; i<idxs.length; i++) {
+                  updateDigest (digest, buf, idxs[i]);
+               }
+            }
+         }
+         else if (mesh instanceof PolylineMesh) {
+            PolylineMesh pmesh = (PolylineMesh)mesh;
+            updateDigest (digest, buf, pmesh.numLines());
+            for (Polyline line : pmesh.getLines()) {
+               int[] idxs = line.getVertexIndices();
+               updateDigest (digest, buf, idxs.length);
+               for (int i=0; i<idxs.length; i++) {
+                  updateDigest (digest, buf, idxs[i]);
+               }
+            }
+         }
+      }
+      flushDigest (digest, buf);
+      for (Object setting : settings) {
+         digest.update (String.valueOf(setting).getBytes());
+         digest.update ((byte)0);
+      }
+      StringBuilder sb = new StringBuilder();
+      for (byte b : digest.digest()) {
+         sb.append (String.format ("%02x", b));
+      }
+      return sb.toString();
+   }
+
+   /* --- reading and writing --- */
+
+   /**
+    * Maps the entry for {@code key} and checks its header, returning a
+    * buffer positioned after the header, or {@code null} if the entry is
+    * missing or invalid. The entry type can be obtained using {@code
+    * buf.getInt(8)}.
+    */
+   private ByteBuffer map (String key) {
+      File file = getFile (key);
+      if (!file.exists()) {
+         return null;
+      }
+      try (FileChannel channel =
+              FileChannel.open (file.toPath(), StandardOpenOption.READ)) {
+         MappedByteBuffer buf =
+            channel.map (FileChannel.MapMode.READ_ONLY, 0, channel.size());
+         if (buf.remaining() < HEADER_SIZE ||
+             buf.getInt() != MAGIC ||
+             buf.getInt() != VERSION) {
+            file.delete();
+            return null;
+         }
+         buf.getInt(); // type
+         buf.getInt(); // reserved
+         // mark as recently used
+         file.setLastModified (System.currentTimeMillis());
+         return buf;
+      }
+      catch (IOException e) {
+         return null;
+      }
+   }
+
+   private DataOutputStream openForWriting (File tmpFile, int type)
+      throws IOException {
+      DataOutputStream dos = new DataOutputStream (
+         new BufferedOutputStream (new FileOutputStream (tmpFile), 1 << 16));
+      dos.writeInt (MAGIC);
+      dos.writeInt (VERSION);
+      dos.writeInt (type);
+      dos.writeInt (0); // reserved
+      return dos;
+   }
+
+   private void commit (File tmpFile, String key) throws IOException {
+      Files.move (
+         tmpFile.toPath(), getFile(key).toPath(),
+         StandardCopyOption.REPLACE_EXISTING,
+         StandardCopyOption.ATOMIC_MOVE);
+      evict();
+   }
+
+   private File createTempFile (String key) throws IOException {
+      return File.createTempFile (key, ".tmp", myDir);
+   }
+
+   private static void writeTransform (
+      DataOutputStream dos, RigidTransform3d T) throws IOException {
+      for (int i=0; i<3; i++) {
+         for (int j=0; j<3; j++) {
+            dos.writeDouble (T.R.get (i, j));
+         }
+      }
+      dos.writeDouble (T.p.x);
+      dos.writeDouble (T.p.y);
+      dos.writeDouble (T.p.z);
+   }
+
+   private static RigidTransform3d readTransform (
+      ByteBuffer buf, RigidTransform3d T) {
+      double[] vals = new double[9];
+      buf.asDoubleBuffer().get (vals);
+      buf.position (buf.position()+72);
+      T.R.set (vals);
+      T.p.x = buf.getDouble();
+      T.p.y = buf.getDouble();
+      T.p.z = buf.getDouble();
+      return T;
+   }
+
+   private static void writeVector (
+      DataOutputStream dos, Vector3d v) throws IOException {
+      dos.writeDouble (v.x);
+      dos.writeDouble (v.y);
+      dos.writeDouble (v.z);
+   }
+
+   private static Vector3d readVector (ByteBuffer buf, Vector3d v) {
+      v.x = buf.getDouble();
+      v.y = buf.getDouble();
+      v.z = buf.getDouble();
+      return v;
+   }
+
+   private static double[] readDoubles (ByteBuffer buf, int num) {
+      double[] vals = new double[num];
+      buf.asDoubleBuffer().get (vals);
+      buf.position (buf.position()+8*num);
+      return vals;
+   }
+
+   private static int[] readInts (ByteBuffer buf, int num) {
+      int[] vals = new int[num];
+      buf.asIntBuffer().get (vals);
+      buf.position (buf.position()+4*num);
+      return vals;
+   }
+
+   /**
+    * Checks if {@code features} is identical to the features stored in
+    * {@code grid}.
+    */
+   private boolean featuresMatch (
+      DistanceGrid grid, List<? extends Feature> features) {
+      Feature[] gridFeats = grid.getFeatures();
+      if (gridFeats == null || features == null ||
+          gridFeats.length != features.size()) {
+         return false;
+      }
+      for (int i=0; i<gridFeats.length; i++) {
+         if (gridFeats[i] != features.get(i)) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /* --- distance grids --- */
+
+   /**
+    * Stores a distance grid in this cache. If the grid's features are
+    * identical to {@code features}, the closest feature information is
+    * stored as well, and can be restored by {@link #getDistanceGrid}.
+    * Grids for which no distances have been computed are not stored.
+    *
+    * @param key key for the entry, typically created using {@link
+    * #createKey}
+    * @param grid grid to store. May be a {@link SparseDistanceGrid}.
+    * @param features features used to compute the grid, or {@code null}
+    * @return {@code true} if the grid was stored
+    */
+   public boolean putDistanceGrid (
+      String key, DistanceGrid grid, List<? extends Feature> features) {
+
+      boolean sparse = (grid instanceof SparseDistanceGrid);
+      if (!sparse && grid.myValues == null) {
+         return false;
+      }
+      boolean hasFeatures = featuresMatch (grid, features);
+      File tmpFile = null;
+      try {
+         tmpFile = createTempFile (key);
+         try (DataOutputStream dos = openForWriting (
+                 tmpFile, sparse ? SPARSE_GRID : DENSE_GRID)) {
+            Vector3i res = grid.getResolution();
+            dos.writeInt (res.x);
+            dos.writeInt (res.y);
+            dos.writeInt (res.z);
+            dos.writeInt (grid.isSigned() ? 1 : 0);
+            dos.writeInt (hasFeatures ? features.size() : -1);
+            dos.writeInt (0); // reserved
+            writeVector (dos, grid.getWidths());
+            writeTransform (dos, grid.getCenterAndOrientation());
+            if (sparse) {
+               writeSparseData (dos, (SparseDistanceGrid)grid);
+            }
+            else {
+               writeDenseData (dos, grid, hasFeatures);
+            }
+         }
+         commit (tmpFile, key);
+         return true;
+      }
+      catch (IOException e) {
+         if (tmpFile != null) {
+            tmpFile.delete();
+         }
+         return false;
+      }
+   }
+
+   private void writeDenseData (
+      DataOutputStream dos, DistanceGrid grid, boolean hasFeatures)
+      throws IOException {
+      int numv = grid.numVertices();
+      for (int i=0; i<numv; i++) {
+         dos.writeDouble (grid.myValues[i]);
+      }
+      if (hasFeatures) {
+         int[] idxs = grid.myClosestFeatureIdxs;
+         for (int i=0; i<numv; i++) {
+            dos.writeInt (idxs[i]);
+         }
+      }
+   }
+
+   private void writeSparseData (
+      DataOutputStream dos, SparseDistanceGrid grid) throws IOException {
+      int ntiles = grid.myTiles.length;
+      dos.writeDouble (grid.myBandCells);
+      dos.writeDouble (grid.myBandWidth);
+      dos.writeInt (ntiles);
+      dos.writeInt (grid.numAllocatedTiles());
+      for (int t=0; t<ntiles; t++) {
+         dos.writeDouble (grid.myTileFills[t]);
+      }
+      for (int t=0; t<ntiles; t++) {
+         if (grid.myTiles[t] != null) {
+            dos.writeInt (t);
+            double[] vals = grid.myTiles[t];
+            for (int i=0; i<vals.length; i++) {
+               dos.writeDouble (vals[i]);
+            }
+         }
+      }
+   }
+
+   /**
+    * Retrieves a distance grid from this cache. If the stored grid included
+    * closest feature information, then {@code features} must be supplied
+    * and have the same size as the original feature list; otherwise, the
+    * entry is treated as missing.
+    *
+    * @param key key for the entry
+    * @param features features used to compute the grid. These are
+    * associated with the returned grid.
+    * @return the grid, or {@code null} if there is no valid entry for
+    * {@code key}
+    */
+   public DistanceGrid getDistanceGrid (
+      String key, List<? extends Feature> features) {
+      ByteBuffer buf = map (key);
+      if (buf == null ||
+          (buf.getInt(8) != DENSE_GRID && buf.getInt(8) != SPARSE_GRID)) {
+         return null;
+      }
+      boolean sparse = (buf.getInt(8) == SPARSE_GRID);
+      try {
+         Vector3i res = new Vector3i();
+         res.x = buf.getInt();
+         res.y = buf.getInt();
+         res.z = buf.getInt();
+         boolean signed = (buf.getInt() != 0);
+         int nfeats = buf.getInt();
+         buf.getInt(); // reserved
+         if (nfeats >= 0 && (features == null || features.size() != nfeats)) {
+            return null;
+         }
+         Vector3d widths = readVector (buf, new Vector3d());
+         RigidTransform3d TCL = readTransform (buf, new RigidTransform3d());
+         if (sparse) {
+            SparseDistanceGrid grid = new SparseDistanceGrid();
+            grid.initGrid (widths, res, TCL);
+            readSparseData (buf, grid, nfeats >= 0 ? features : null, signed);
+            return grid;
+         }
+         else {
+            DistanceGrid grid = new DistanceGrid (widths, res, TCL);
+            int numv = grid.numVertices();
+            double[] dists = readDoubles (buf, numv);
+            if (nfeats >= 0) {
+               int[] idxs = readInts (buf, numv);
+               grid.setDistancesAndFeatures (dists, features, idxs, signed);
+            }
+            else {
+               grid.setVertexDistances (dists, signed);
+            }
+            return grid;
+         }
+      }
+      catch (BufferUnderflowException | IllegalArgumentException e) {
+         // entry is corrupt
+         getFile(key).delete();
+         return null;
+      }
+   }
+
+   private void readSparseData (
+      ByteBuffer buf, SparseDistanceGrid grid,
+      List<? extends Feature> features, boolean signed) {
+      double bandCells = buf.getDouble();
+      double bandWidth = buf.getDouble();
+      int ntiles = buf.getInt();
+      int nalloc = buf.getInt();
+      double[] fills = readDoubles (buf, ntiles);
+      double[][] tiles = new double[ntiles][];
+      for (int k=0; k<nalloc; k++) {
+         int t = buf.getInt();
+         if (t < 0 || t >= ntiles) {
+            throw new IllegalArgumentException ("tile index out of range");
+         }
+         tiles[t] = readDoubles (buf, SparseDistanceGrid.TILE_NUMV);
+      }
+      Feature[] feats = null;
+      if (features != null) {
+         feats = features.toArray (new Feature[0]);
+      }
+      grid.setTiles (tiles, fills, bandCells, bandWidth, feats, signed);
+   }
+
+   /* --- OBB trees --- */
+
+   /**
+    * Stores an OBB tree built for the faces of a mesh. Trees whose leaf
+    * elements are not all faces of {@code mesh} are not stored.
+    *
+    * @param key key for the entry, typically created using {@link
+    * #createKey}
+    * @param tree tree to store
+    * @param mesh mesh for which the tree was built
+    * @return {@code true} if the tree was stored
+    */
+   public boolean putOBBTree (String key, OBBTree tree, PolygonalMesh mesh) {
+      ArrayList<Face> faces = mesh.getFaces();
+      for (int i=0; i<faces.size(); i++) {
+         if (faces.get(i).getIndex() != i) {
+            return false;
+         }
+      }
+      File tmpFile = null;
+      try {
+         tmpFile = createTempFile (key);
+         try (DataOutputStream dos = openForWriting (tmpFile, OBB_TREE)) {
+            dos.writeInt (tree.getMaxLeafElements());
+            dos.writeInt (tree.getMethod().ordinal());
+            dos.writeDouble (tree.getMargin());
+            dos.writeInt (faces.size());
+            dos.writeInt (0); // reserved
+            if (!writeOBBNode (dos, tree.getRoot(), mesh)) {
+               throw new IOException ("tree elements are not mesh faces");
+            }
+         }
+         commit (tmpFile, key);
+         return true;
+      }
+      catch (IOException e) {
+         if (tmpFile != null) {
+            tmpFile.delete();
+         }
+         return false;
+      }
+   }
+
+   private boolean writeOBBNode (
+      DataOutputStream dos, OBB node, PolygonalMesh mesh) throws IOException {
+      writeTransform (dos, node.myX);
+      writeVector (dos, node.myHalfWidths);
+      dos.writeInt (node.numChildren());
+      int nelems = (node.myElements != null ? node.myElements.length : 0);
+      dos.writeInt (nelems);
+      for (int i=0; i<nelems; i++) {
+         Boundable elem = node.myElements[i];
+         if (!(elem instanceof Face) || ((Face)elem).getMesh() != mesh) {
+            return false;
+         }
+         dos.writeInt (((Face)elem).getIndex());
+      }
+      BVNode child = node.getFirstChild();
+      while (child != null) {
+         if (!writeOBBNode (dos, (OBB)child, mesh)) {
+            return false;
+         }
+         child = child.getNext();
+      }
+      return true;
+   }
+
+   /**
+    * Retrieves an OBB tree for the faces of a mesh from this cache.
+    *
+    * @param key key for the entry
+    * @param mesh mesh for which the tree was built. The leaf elements of
+    * the returned tree are faces of this mesh.
+    * @return the tree, or {@code null} if there is no valid entry for
+    * {@code key}
+    */
+   public OBBTree getOBBTree (String key, PolygonalMesh mesh) {
+      ByteBuffer buf = map (key);
+      if (buf == null || buf.getInt(8) != OBB_TREE) {
+         return null;
+      }
+      try {
+         OBBTree tree = new OBBTree();
+         tree.setMaxLeafElements (buf.getInt());
+         tree.setMethod (Method.values()[buf.getInt()]);
+         tree.setMargin (buf.getDouble());
+         int nfaces = buf.getInt();
+         buf.getInt(); // reserved
+         if (nfaces != mesh.numFaces()) {
+            return null;
+         }
+         tree.setRoot (readOBBNode (buf, mesh.getFaces()));
+         tree.numberNodes();
+         return tree;
+      }
+      catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+         // entry is corrupt
+         getFile(key).delete();
+         return null;
+      }
+   }
+
+   private OBB readOBBNode (ByteBuffer buf, ArrayList<Face> faces) {
+      OBB node = new OBB();
+      readTransform (buf, node.myX);
+      readVector (buf, node.myHalfWidths);
+      int nchildren = buf.getInt();
+      int nelems = buf.getInt();
+      if (nelems > 0) {
+         Boundable[] elems = new Boundable[nelems];
+         for (int i=0; i<nelems; i++) {
+            elems[i] = faces.get (buf.getInt());
+         }
+         node.setElements (elems);
+      }
+      for (int k=0; k<nchildren; k++) {
+         node.addChild (readOBBNode (buf, faces));
+      }
+      return node;
+   }
+
+   /**
+    * Returns an OBB tree for the faces of a mesh, retrieving it from this
+    * cache if possible, and otherwise building it and adding it to the
+    * cache. The tree is built using {@link
+    * OBBTree#OBBTree(MeshBase,int) OBBTree(mesh,maxLeafElems)}.
+    *
+    * @param mesh mesh for which the tree is required
+    * @param maxLeafElems maximum number of elements in each leaf node
+    * @return OBB tree for the mesh
+    */
+   public OBBTree getOrCreateOBBTree (PolygonalMesh mesh, int maxLeafElems) {
+      String key = createKey (
+         Arrays.asList (mesh), "OBBTree", maxLeafElems,
+         OBBTree.myDefaultMethod);
+      OBBTree tree = getOBBTree (key, mesh);
+      if (tree == null) {
+         tree = new OBBTree (mesh, maxLeafElems);
+         putOBBTree (key, tree, mesh);
+      }
+      return tree;
+   }
+}
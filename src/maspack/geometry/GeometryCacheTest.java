@@ -0,0 +1,241 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.geometry;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import maspack.geometry.DistanceGrid.DistanceMethod;
+import maspack.matrix.Point3d;
+import maspack.matrix.RigidTransform3d;
+import maspack.matrix.Vector3d;
+import maspack.matrix.Vector3i;
+import maspack.util.RandomGenerator;
+import maspack.util.TestException;
+import maspack.util.UnitTest;
+
+/**
+ * Tests GeometryCache.
+ */
+public class GeometryCacheTest extends UnitTest {
+
+   File myDir;
+
+   GeometryCache createCache (long maxSize) {
+      return new GeometryCache (myDir, maxSize);
+   }
+
+   void checkSameTree (BVNode node, BVNode check) {
+      OBB obb = (OBB)node;
+      OBB chk = (OBB)check;
+      if (!obb.myX.equals (chk.myX) ||
+          !obb.myHalfWidths.equals (chk.myHalfWidths)) {
+         throw new TestException (
+            "node "+node.getNumber()+" differs from original");
+      }
+      if (node.getNumber() != check.getNumber()) {
+         throw new TestException (
+            "node number is "+node.getNumber()+
+            ", expected "+check.getNumber());
+      }
+      if (node.numChildren() != check.numChildren()) {
+         throw new TestException (
+            "node "+node.getNumber()+" has "+node.numChildren()+
+            " children, expected "+check.numChildren());
+      }
+      if (!Arrays.equals (node.getElements(), check.getElements())) {
+         throw new TestException (
+            "elements for node "+node.getNumber()+" differ from original");
+      }
+      BVNode child = node.getFirstChild();
+      BVNode chkChild = check.getFirstChild();
+      while (child != null) {
+         checkSameTree (child, chkChild);
+         child = child.getNext();
+         chkChild = chkChild.getNext();
+      }
+   }
+
+   void testOBBTree() {
+      GeometryCache cache = createCache (GeometryCache.DEFAULT_MAX_SIZE);
+      PolygonalMesh mesh = MeshFactory.createTorus (1.0, 0.4, 20, 12);
+      OBBTree tree = cache.getOrCreateOBBTree (mesh, 2);
+      checkEquals ("num entries", cache.numEntries(), 1);
+      OBBTree cached = cache.getOrCreateOBBTree (mesh, 2);
+      checkEquals ("num entries", cache.numEntries(), 1);
+      if (cached == tree) {
+         throw new TestException ("tree was not loaded from cache");
+      }
+      checkEquals ("margin", cached.getMargin(), tree.getMargin(), 0);
+      checkEquals (
+         "max leaf elements",
+         cached.getMaxLeafElements(), tree.getMaxLeafElements());
+      checkSameTree (cached.getRoot(), tree.getRoot());
+
+      // queries should work on the cached tree
+      BVFeatureQuery query = new BVFeatureQuery();
+      Point3d near = new Point3d();
+      Point3d chk = new Point3d();
+      for (int i=0; i<100; i++) {
+         Point3d pnt = new Point3d();
+         pnt.setRandom();
+         Face f = query.nearestFaceToPoint (near, null, cached, pnt);
+         Face c = query.nearestFaceToPoint (chk, null, tree, pnt);
+         if (f != c) {
+            throw new TestException ("nearest face differs for cached tree");
+         }
+         checkEquals ("nearest point", near, chk, 0);
+      }
+
+      // changing the geometry changes the key
+      PolygonalMesh moved = mesh.copy();
+      moved.transform (new RigidTransform3d (0.1, 0, 0));
+      cache.getOrCreateOBBTree (moved, 2);
+      checkEquals ("num entries", cache.numEntries(), 2);
+      cache.clear();
+   }
+
+   DistanceGrid createDenseGrid (PolygonalMesh mesh) {
+      DistanceGrid grid = new DistanceGrid (new Vector3i (1, 1, 1));
+      grid.setDistanceMethod (DistanceMethod.BVH);
+      grid.computeFromMesh (mesh, 0.1, null, 20, /*signed=*/true);
+      return grid;
+   }
+
+   void checkGridQueries (DistanceGrid grid, DistanceGrid check) {
+      Vector3d nrm = new Vector3d();
+      Vector3d chkNrm = new Vector3d();
+      for (int i=0; i<100; i++) {
+         Point3d pnt = new Point3d();
+         pnt.setRandom();
+         double d = grid.getLocalDistanceAndNormal (nrm, pnt);
+         double c = check.getLocalDistanceAndNormal (chkNrm, pnt);
+         checkEquals ("distance", d, c, 0);
+         checkEquals ("normal", nrm, chkNrm, 0);
+         d = grid.getQuadDistanceAndGradient (nrm, null, pnt);
+         c = check.getQuadDistanceAndGradient (chkNrm, null, pnt);
+         checkEquals ("quad distance", d, c, 0);
+         checkEquals ("quad gradient", nrm, chkNrm, 0);
+         Feature f = grid.getNearestLocalFeature (new Point3d(), pnt);
+         Feature g = check.getNearestLocalFeature (new Point3d(), pnt);
+         if (f != g) {
+            throw new TestException ("nearest feature differs");
+         }
+      }
+   }
+
+   void testGrids() {
+      GeometryCache cache = createCache (GeometryCache.DEFAULT_MAX_SIZE);
+      PolygonalMesh mesh = MeshFactory.createIcosahedralSphere (0.8, 2);
+
+      DistanceGrid grid = createDenseGrid (mesh);
+      String key = GeometryCache.createKey (Arrays.asList (mesh), "dense", 20);
+      checkEquals ("contains", cache.containsKey (key), false);
+      if (cache.getDistanceGrid (key, mesh.getFaces()) != null) {
+         throw new TestException ("grid found in empty cache");
+      }
+      checkEquals (
+         "put dense", cache.putDistanceGrid (key, grid, mesh.getFaces()), true);
+      DistanceGrid cached = cache.getDistanceGrid (key, mesh.getFaces());
+      if (cached == null || cached instanceof SparseDistanceGrid) {
+         throw new TestException ("dense grid not restored");
+      }
+      if (!cached.epsilonEquals (grid, 0)) {
+         throw new TestException ("restored dense grid differs");
+      }
+      checkGridQueries (cached, grid);
+      // closest features require the feature list
+      if (cache.getDistanceGrid (key, null) != null) {
+         throw new TestException ("grid restored without features");
+      }
+
+      SparseDistanceGrid sgrid =
+         new SparseDistanceGrid (mesh.getFaces(), 0.1, 40, true);
+      key = GeometryCache.createKey (Arrays.asList (mesh), "sparse", 40);
+      checkEquals (
+         "put sparse", cache.putDistanceGrid (key, sgrid, mesh.getFaces()),
+         true);
+      cached = cache.getDistanceGrid (key, mesh.getFaces());
+      if (!(cached instanceof SparseDistanceGrid)) {
+         throw new TestException ("sparse grid not restored");
+      }
+      SparseDistanceGrid scached = (SparseDistanceGrid)cached;
+      if (!scached.epsilonEquals (sgrid, 0)) {
+         throw new TestException ("restored sparse grid differs");
+      }
+      checkEquals (
+         "allocated tiles",
+         scached.numAllocatedTiles(), sgrid.numAllocatedTiles());
+      checkGridQueries (scached, sgrid);
+      cache.clear();
+   }
+
+   void testCorruptEntry() throws IOException {
+      GeometryCache cache = createCache (GeometryCache.DEFAULT_MAX_SIZE);
+      PolygonalMesh mesh = MeshFactory.createIcosahedralSphere (0.8, 1);
+      DistanceGrid grid = createDenseGrid (mesh);
+      String key = GeometryCache.createKey (Arrays.asList (mesh), "corrupt");
+      cache.putDistanceGrid (key, grid, mesh.getFaces());
+      File file = cache.getFile (key);
+      try (RandomAccessFile raf = new RandomAccessFile (file, "rw")) {
+         raf.setLength (raf.length()/2);
+      }
+      if (cache.getDistanceGrid (key, mesh.getFaces()) != null) {
+         throw new TestException ("truncated entry was loaded");
+      }
+      checkEquals ("corrupt entry removed", file.exists(), false);
+   }
+
+   void testEviction() {
+      PolygonalMesh mesh = MeshFactory.createIcosahedralSphere (0.8, 1);
+      DistanceGrid grid = createDenseGrid (mesh);
+      GeometryCache cache = createCache (GeometryCache.DEFAULT_MAX_SIZE);
+      String[] keys = new String[4];
+      long now = System.currentTimeMillis();
+      for (int i=0; i<keys.length; i++) {
+         keys[i] = GeometryCache.createKey (Arrays.asList (mesh), "evict", i);
+         cache.putDistanceGrid (keys[i], grid, mesh.getFaces());
+         // set distinct ages, with entry 0 the oldest
+         cache.getFile(keys[i]).setLastModified (now-10000*(keys.length-i));
+      }
+      long entrySize = cache.getFile(keys[0]).length();
+      // using entry 0 makes it the most recent
+      cache.getDistanceGrid (keys[0], mesh.getFaces());
+      cache.setMaxSize (2*entrySize);
+      checkEquals ("num entries", cache.numEntries(), 2);
+      checkEquals ("entry 0 kept", cache.containsKey (keys[0]), true);
+      checkEquals ("entry 1 kept", cache.containsKey (keys[1]), false);
+      checkEquals ("entry 2 kept", cache.containsKey (keys[2]), false);
+      checkEquals ("entry 3 kept", cache.containsKey (keys[3]), true);
+      cache.clear();
+   }
+
+   public void test() throws IOException {
+      RandomGenerator.setSeed (0x1234);
+      myDir = Files.createTempDirectory ("geometryCacheTest").toFile();
+      try {
+         testOBBTree();
+         testGrids();
+         testCorruptEntry();
+         testEviction();
+      }
+      finally {
+         for (File file : myDir.listFiles()) {
+            file.delete();
+         }
+         myDir.delete();
+      }
+   }
+
+   public static void main (String[] args) {
+      GeometryCacheTest tester = new GeometryCacheTest();
+      tester.runtest();
+   }
+}
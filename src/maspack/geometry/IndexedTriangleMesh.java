@@ -0,0 +1,643 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.geometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import maspack.matrix.Matrix3d;
+import maspack.matrix.Point3d;
+import maspack.matrix.Vector3d;
+
+/**
+ * Compact, immutable triangle mesh in which vertex positions are stored in
+ * a flat array of doubles and triangles are stored as a flat array of vertex
+ * indices. Unlike {@link PolygonalMesh}, no vertex, half-edge or face
+ * objects are created, which makes this class suitable for large meshes
+ * that are used for read-only purposes such as collision queries and
+ * distance grid generation.
+ *
+ * <p>The positions of vertex {@code i} are located at {@code 3*i},
+ * {@code 3*i+1}, {@code 3*i+2} within the position array, and the vertex
+ * indices of triangle {@code t} are located at {@code 3*t}, {@code 3*t+1},
+ * {@code 3*t+2} within the index array, in counter-clockwise order. The
+ * half-edge {@code 3*t+k} of triangle {@code t} runs from its {@code k}-th
+ * vertex to its {@code (k+1)%3}-th vertex.
+ *
+ * <p>Adjacency information (the triangles adjacent to each vertex and the
+ * opposite of each half-edge) is not stored by default, and is computed
+ * only when first requested. Likewise, the {@link Triangle} features that
+ * are needed to build bounding volume hierarchies and distance grids are
+ * only created when {@link #getTriangles} is first called.
+ */
+public class IndexedTriangleMesh {
+
+   protected double[] myPositions;
+   protected int[] myTriIdxs;
+   protected String myName;
+
+   // lazily computed adjacency: triangles adjacent to vertex i are located
+   // at myVertexTriOffsets[i] to myVertexTriOffsets[i+1]-1 within
+   // myVertexTris; myOppositeHalfEdges[h] is the opposite of half-edge h, or
+   // -1 if there is none.
+   private int[] myVertexTriOffsets;
+   private int[] myVertexTris;
+   private int[] myOppositeHalfEdges;
+
+   // lazily created features and bounding volume hierarchy
+   private List<Triangle> myTriangles;
+   private AABBTree myBVTree;
+
+   /**
+    * Lightweight feature describing a single triangle of an
+    * IndexedTriangleMesh. Triangles can be used to build bounding volume
+    * hierarchies (see {@link BVTree#build(IndexedTriangleMesh)}) and
+    * distance grids (see {@link DistanceGrid#computeFromMesh(
+    * IndexedTriangleMesh,double,maspack.matrix.RigidTransform3d,int,boolean)
+    * DistanceGrid.computeFromMesh}).
+    */
+   public static class Triangle extends Feature {
+
+      IndexedTriangleMesh myMesh;
+      int myIdx;
+      Point3d myP0;
+      Point3d myP1;
+      Point3d myP2;
+
+      Triangle (IndexedTriangleMesh mesh, int idx, Point3d[] pnts) {
+         super (Feature.TRIANGLE);
+         myMesh = mesh;
+         myIdx = idx;
+         myP0 = pnts[mesh.myTriIdxs[3*idx  ]];
+         myP1 = pnts[mesh.myTriIdxs[3*idx+1]];
+         myP2 = pnts[mesh.myTriIdxs[3*idx+2]];
+      }
+
+      /**
+       * Returns the index of this triangle within its mesh.
+       */
+      public int getIndex() {
+         return myIdx;
+      }
+
+      /**
+       * Returns the mesh containing this triangle.
+       */
+      public IndexedTriangleMesh getMesh() {
+         return myMesh;
+      }
+
+      /**
+       * Returns the mesh index of the {@code k}-th vertex of this triangle.
+       */
+      public int getVertexIndex (int k) {
+         if (k < 0 || k > 2) {
+            throw new ArrayIndexOutOfBoundsException ("k=" + k);
+         }
+         return myMesh.myTriIdxs[3*myIdx+k];
+      }
+
+      public int numPoints() {
+         return 3;
+      }
+
+      public Point3d getPoint (int idx) {
+         switch (idx) {
+            case 0: return myP0;
+            case 1: return myP1;
+            case 2: return myP2;
+            default: {
+               throw new ArrayIndexOutOfBoundsException ("idx=" + idx);
+            }
+         }
+      }
+
+      public void computeCentroid (Vector3d centroid) {
+         centroid.add (myP0, myP1);
+         centroid.add (myP2);
+         centroid.scale (1/3.0);
+      }
+
+      public void updateBounds (Vector3d min, Vector3d max) {
+         myP0.updateBounds (min, max);
+         myP1.updateBounds (min, max);
+         myP2.updateBounds (min, max);
+      }
+
+      public double computeCovariance (Matrix3d C) {
+         C.setZero();
+         double area = CovarianceUtils.addTriangleCovariance (
+            C, myP0, myP1, myP2);
+         C.scale (1 / (12.0));
+         C.m10 = C.m01;
+         C.m20 = C.m02;
+         C.m21 = C.m12;
+         return area;
+      }
+
+      public void nearestPoint (Point3d nearest, Point3d pnt) {
+         Face.nearestPointTriangle (nearest, myP0, myP1, myP2, pnt);
+      }
+
+      /**
+       * Computes the (unnormalized) normal of this triangle, whose
+       * magnitude equals twice the triangle's area.
+       *
+       * @param nrm returns the normal
+       */
+      public void computeNormal (Vector3d nrm) {
+         Vector3d d1 = new Vector3d();
+         Vector3d d2 = new Vector3d();
+         d1.sub (myP1, myP0);
+         d2.sub (myP2, myP0);
+         nrm.cross (d1, d2);
+      }
+
+      /**
+       * Intersects a line segment with this triangle, in the same manner
+       * as {@link RobustPreds#intersectSegmentTriangle(
+       * Point3d,Point3d,Point3d,Face,double,boolean)
+       * RobustPreds.intersectSegmentTriangle} does for faces. Coordinates
+       * are those of the mesh.
+       *
+       * @param ipnt returns the intersection point, if any
+       * @param pt segment tail
+       * @param ph segment head
+       * @param maxlen if {@code > 0}, maximum length of the segment and
+       * triangle edges, used to enable a fast intersection test
+       * @return 1 if the segment intersects the triangle, 0 otherwise
+       */
+      public int intersectSegment (
+         Point3d ipnt, Point3d pt, Point3d ph, double maxlen) {
+
+         int res = -1;
+         if (maxlen > 0) {
+            double[] coords = new double[3];
+            res = RobustPreds.intersectSegmentTriangleFast (
+               coords, pt, ph, myP0, myP1, myP2, maxlen);
+            if (res > 0) {
+               ipnt.combine (1-coords[0], pt, coords[0], ph);
+            }
+         }
+         if (res == -1) {
+            int[] tidxs = myMesh.myTriIdxs;
+            res = RobustPreds.intersectSegmentTriangle (
+               ipnt, 0, pt, 1, ph,
+               tidxs[3*myIdx]+2, myP0,
+               tidxs[3*myIdx+1]+2, myP1,
+               tidxs[3*myIdx+2]+2, myP2);
+         }
+         return res;
+      }
+   }
+
+   /**
+    * Creates a new mesh from vertex positions and triangle indices.  The
+    * supplied arrays are used directly and should not be modified
+    * afterwards.
+    *
+    * @param pos vertex positions, with {@code x, y, z} stored consecutively
+    * @param tris vertex indices for each triangle, in counter-clockwise order
+    */
+   public IndexedTriangleMesh (double[] pos, int[] tris) {
+      if (pos.length%3 != 0) {
+         throw new IllegalArgumentException (
+            "length of pos is "+pos.length+"; must be a multiple of 3");
+      }
+      if (tris.length%3 != 0) {
+         throw new IllegalArgumentException (
+            "length of tris is "+tris.length+"; must be a multiple of 3");
+      }
+      int numv = pos.length/3;
+      for (int i=0; i<tris.length; i++) {
+         if (tris[i] < 0 || tris[i] >= numv) {
+            throw new IllegalArgumentException (
+               "vertex index "+tris[i]+" for triangle "+(i/3)+
+               " is out of range");
+         }
+      }
+      myPositions = pos;
+      myTriIdxs = tris;
+   }
+
+   /**
+    * Creates a new mesh from single precision vertex positions and
+    * triangle indices. The triangle index array is used directly and should
+    * not be modified afterwards.
+    *
+    * @param pos vertex positions, with {@code x, y, z} stored consecutively
+    * @param tris vertex indices for each triangle, in counter-clockwise order
+    */
+   public IndexedTriangleMesh (float[] pos, int[] tris) {
+      this (toDoubles (pos), tris);
+   }
+
+   /**
+    * Creates a new mesh from the vertices and faces of a polygonal mesh.
+    * Faces with more than three vertices are triangulated into a fan about
+    * their first vertex. Positions are given in mesh coordinates.
+    *
+    * @param mesh polygonal mesh to copy
+    */
+   public IndexedTriangleMesh (PolygonalMesh mesh) {
+      int numv = mesh.numVertices();
+      double[] pos = new double[3*numv];
+      for (int i=0; i<numv; i++) {
+         Point3d pnt = mesh.getVertex(i).pnt;
+         pos[3*i  ] = pnt.x;
+         pos[3*i+1] = pnt.y;
+         pos[3*i+2] = pnt.z;
+      }
+      int numt = 0;
+      for (Face face : mesh.getFaces()) {
+         numt += face.numVertices()-2;
+      }
+      int[] tris = new int[3*numt];
+      int k = 0;
+      for (Face face : mesh.getFaces()) {
+         int[] idxs = face.getVertexIndices();
+         for (int j=1; j<idxs.length-1; j++) {
+            tris[k++] = idxs[0];
+            tris[k++] = idxs[j];
+            tris[k++] = idxs[j+1];
+         }
+      }
+      myPositions = pos;
+      myTriIdxs = tris;
+      myName = mesh.getName();
+   }
+
+   private static double[] toDoubles (float[] fvals) {
+      double[] dvals = new double[fvals.length];
+      for (int i=0; i<fvals.length; i++) {
+         dvals[i] = fvals[i];
+      }
+      return dvals;
+   }
+
+   /**
+    * Sets the name of this mesh.
+    *
+    * @param name new mesh name
+    */
+   public void setName (String name) {
+      myName = name;
+   }
+
+   /**
+    * Returns the name of this mesh, or {@code null} if it has none.
+    *
+    * @return mesh name
+    */
+   public String getName() {
+      return myName;
+   }
+
+   /**
+    * Returns the number of vertices in this mesh.
+    *
+    * @return number of vertices
+    */
+   public int numVertices() {
+      return myPositions.length/3;
+   }
+
+   /**
+    * Returns the number of triangles in this mesh.
+    *
+    * @return number of triangles
+    */
+   public int numTriangles() {
+      return myTriIdxs.length/3;
+   }
+
+   /**
+    * Returns the position of a vertex.
+    *
+    * @param pos returns the position
+    * @param vidx vertex index
+    */
+   public void getVertex (Point3d pos, int vidx) {
+      pos.set (
+         myPositions[3*vidx], myPositions[3*vidx+1], myPositions[3*vidx+2]);
+   }
+
+   /**
+    * Returns the index of the {@code k}-th vertex of a triangle.
+    *
+    * @param tidx triangle index
+    * @param k vertex number within the triangle (0, 1, or 2)
+    * @return vertex index
+    */
+   public int getTriangleVertex (int tidx, int k) {
+      return myTriIdxs[3*tidx+k];
+   }
+
+   /**
+    * Returns a copy of the vertex positions.
+    *
+    * @return vertex positions, with {@code x, y, z} stored consecutively
+    */
+   public double[] getPositions() {
+      return Arrays.copyOf (myPositions, myPositions.length);
+   }
+
+   /**
+    * Returns a single precision copy of the vertex positions, such as is
+    * needed for creating render buffers.
+    *
+    * @return vertex positions, with {@code x, y, z} stored consecutively
+    */
+   public float[] getFloatPositions() {
+      float[] fpos = new float[myPositions.length];
+      for (int i=0; i<fpos.length; i++) {
+         fpos[i] = (float)myPositions[i];
+      }
+      return fpos;
+   }
+
+   /**
+    * Returns a copy of the triangle vertex indices.
+    *
+    * @return triangle indices, with the three indices for each triangle
+    * stored consecutively
+    */
+   public int[] getTriangleIndices() {
+      return Arrays.copyOf (myTriIdxs, myTriIdxs.length);
+   }
+
+   /**
+    * Computes the (unnormalized) normal of a triangle, whose magnitude
+    * equals twice the triangle's area.
+    *
+    * @param nrm returns the normal
+    * @param tidx triangle index
+    */
+   public void computeTriangleNormal (Vector3d nrm, int tidx) {
+      double[] pos = myPositions;
+      int i0 = 3*myTriIdxs[3*tidx];
+      int i1 = 3*myTriIdxs[3*tidx+1];
+      int i2 = 3*myTriIdxs[3*tidx+2];
+      double d1x = pos[i1  ] - pos[i0  ];
+      double d1y = pos[i1+1] - pos[i0+1];
+      double d1z = pos[i1+2] - pos[i0+2];
+      double d2x = pos[i2  ] - pos[i0  ];
+      double d2y = pos[i2+1] - pos[i0+1];
+      double d2z = pos[i2+2] - pos[i0+2];
+      nrm.set (d1y*d2z - d1z*d2y, d1z*d2x - d1x*d2z, d1x*d2y - d1y*d2x);
+   }
+
+   /**
+    * Updates a bounding box to include all the vertices of this mesh.
+    *
+    * @param min minimum coordinates of the box
+    * @param max maximum coordinates of the box
+    */
+   public void updateBounds (Vector3d min, Vector3d max) {
+      double[] pos = myPositions;
+      for (int i=0; i<pos.length; i+=3) {
+         if (pos[i  ] < min.x) min.x = pos[i  ];
+         if (pos[i  ] > max.x) max.x = pos[i  ];
+         if (pos[i+1] < min.y) min.y = pos[i+1];
+         if (pos[i+1] > max.y) max.y = pos[i+1];
+         if (pos[i+2] < min.z) min.z = pos[i+2];
+         if (pos[i+2] > max.z) max.z = pos[i+2];
+      }
+   }
+
+   /**
+    * Returns half the diagonal of the axis-aligned bounding box of this
+    * mesh, or 0 if the mesh has no vertices.
+    *
+    * @return mesh radius
+    */
+   public double computeRadius() {
+      if (numVertices() == 0) {
+         return 0;
+      }
+      double inf = Double.POSITIVE_INFINITY;
+      Vector3d min = new Vector3d (inf, inf, inf);
+      Vector3d max = new Vector3d (-inf, -inf, -inf);
+      updateBounds (min, max);
+      return min.distance (max)/2;
+   }
+
+   /**
+    * Returns {@code true} if adjacency information has been computed for
+    * this mesh, either explicitly or by calling one of the adjacency query
+    * methods.
+    *
+    * @return {@code true} if adjacency information is present
+    */
+   public synchronized boolean hasAdjacency() {
+      return myOppositeHalfEdges != null;
+   }
+
+   /**
+    * Computes the adjacency information for this mesh, if it has not
+    * already been computed.
+    */
+   public synchronized void updateAdjacency() {
+      if (myOppositeHalfEdges != null) {
+         return;
+      }
+      int numv = numVertices();
+      int numh = myTriIdxs.length;
+      int[] offsets = new int[numv+1];
+      for (int h=0; h<numh; h++) {
+         offsets[myTriIdxs[h]+1]++;
+      }
+      for (int i=0; i<numv; i++) {
+         offsets[i+1] += offsets[i];
+      }
+      int[] vtris = new int[numh];
+      int[] fill = Arrays.copyOf (offsets, numv);
+      for (int h=0; h<numh; h++) {
+         vtris[fill[myTriIdxs[h]]++] = h/3;
+      }
+      // find opposite half-edges: the opposite of the half-edge a->b is
+      // a half-edge b->a belonging to one of the triangles adjacent to b
+      int[] opposite = new int[numh];
+      for (int h=0; h<numh; h++) {
+         int t = h/3;
+         int a = myTriIdxs[h];
+         int b = myTriIdxs[3*t+(h+1)%3];
+         opposite[h] = -1;
+         for (int j=offsets[b]; j<offsets[b+1]; j++) {
+            int s = vtris[j];
+            if (s == t) {
+               continue;
+            }
+            // half-edge 3*s+k starts at b; check if it ends at a
+            int k = vertexSlot (s, b);
+            if (myTriIdxs[3*s+(k+1)%3] == a) {
+               opposite[h] = 3*s+k;
+               break;
+            }
+         }
+      }
+      myVertexTriOffsets = offsets;
+      myVertexTris = vtris;
+      myOppositeHalfEdges = opposite;
+   }
+
+   /**
+    * Returns the slot (0, 1, or 2) of vertex vidx within triangle tidx.
+    */
+   private int vertexSlot (int tidx, int vidx) {
+      if (myTriIdxs[3*tidx] == vidx) {
+         return 0;
+      }
+      else if (myTriIdxs[3*tidx+1] == vidx) {
+         return 1;
+      }
+      else {
+         return 2;
+      }
+   }
+
+   /**
+    * Removes any adjacency information, freeing the associated memory.
+    */
+   public synchronized void clearAdjacency() {
+      myVertexTriOffsets = null;
+      myVertexTris = null;
+      myOppositeHalfEdges = null;
+   }
+
+   /**
+    * Returns the opposite of a half-edge, computing the adjacency
+    * information if necessary. Half-edge {@code 3*t+k} of triangle {@code
+    * t} runs from its {@code k}-th vertex to its {@code (k+1)%3}-th vertex.
+    *
+    * @param hidx half-edge index
+    * @return opposite half-edge index, or -1 if the half-edge lies on a
+    * boundary
+    */
+   public int getOppositeHalfEdge (int hidx) {
+      updateAdjacency();
+      return myOppositeHalfEdges[hidx];
+   }
+
+   /**
+    * Returns the triangle adjacent to a given triangle across its {@code
+    * k}-th half-edge, computing the adjacency information if necessary.
+    *
+    * @param tidx triangle index
+    * @param k half-edge number within the triangle (0, 1, or 2)
+    * @return index of the adjacent triangle, or -1 if there is none
+    */
+   public int getAdjacentTriangle (int tidx, int k) {
+      int opp = getOppositeHalfEdge (3*tidx+k);
+      return opp == -1 ? -1 : opp/3;
+   }
+
+   /**
+    * Returns the indices of the triangles adjacent to a vertex, computing
+    * the adjacency information if necessary.
+    *
+    * @param vidx vertex index
+    * @return indices of the adjacent triangles
+    */
+   public int[] getVertexTriangles (int vidx) {
+      updateAdjacency();
+      return Arrays.copyOfRange (
+         myVertexTris, myVertexTriOffsets[vidx], myVertexTriOffsets[vidx+1]);
+   }
+
+   /**
+    * Queries whether this mesh is closed, which is true if every half-edge
+    * has an opposite. Computes the adjacency information if necessary.
+    *
+    * @return {@code true} if this mesh is closed
+    */
+   public boolean isClosed() {
+      updateAdjacency();
+      for (int opp : myOppositeHalfEdges) {
+         if (opp == -1) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Returns the triangles of this mesh as a list of features, creating
+    * them if necessary. The triangles refer to a shared array of vertex
+    * points which is created along with them.
+    *
+    * @return list of triangles (unmodifiable)
+    */
+   public synchronized List<Triangle> getTriangles() {
+      if (myTriangles == null) {
+         int numv = numVertices();
+         Point3d[] pnts = new Point3d[numv];
+         for (int i=0; i<numv; i++) {
+            pnts[i] = new Point3d (
+               myPositions[3*i], myPositions[3*i+1], myPositions[3*i+2]);
+         }
+         int numt = numTriangles();
+         ArrayList<Triangle> tris = new ArrayList<>(numt);
+         for (int t=0; t<numt; t++) {
+            tris.add (new Triangle (this, t, pnts));
+         }
+         myTriangles = Collections.unmodifiableList (tris);
+      }
+      return myTriangles;
+   }
+
+   /**
+    * Returns a bounding volume hierarchy for the triangles of this mesh,
+    * creating it if necessary. Elements of the hierarchy are the {@link
+    * Triangle} features returned by {@link #getTriangles}.
+    *
+    * @return bounding volume hierarchy for this mesh
+    */
+   public synchronized BVTree getBVTree() {
+      if (myBVTree == null) {
+         myBVTree = new AABBTree (this);
+      }
+      return myBVTree;
+   }
+
+   /**
+    * Removes the triangle features, their vertex points, and the bounding
+    * volume hierarchy, freeing the associated memory.
+    */
+   public synchronized void clearFeatures() {
+      myTriangles = null;
+      myBVTree = null;
+   }
+
+   /**
+    * Creates a PolygonalMesh with the same vertices and triangles as this
+    * mesh.
+    *
+    * @return new polygonal mesh
+    */
+   public PolygonalMesh toPolygonalMesh() {
+      int numv = numVertices();
+      int numt = numTriangles();
+      Point3d[] pnts = new Point3d[numv];
+      for (int i=0; i<numv; i++) {
+         pnts[i] = new Point3d();
+         getVertex (pnts[i], i);
+      }
+      int[][] faces = new int[numt][];
+      for (int t=0; t<numt; t++) {
+         faces[t] = Arrays.copyOfRange (myTriIdxs, 3*t, 3*t+3);
+      }
+      PolygonalMesh mesh = new PolygonalMesh();
+      mesh.set (pnts, faces);
+      if (myName != null) {
+         mesh.setName (myName);
+      }
+      return mesh;
+   }
+}
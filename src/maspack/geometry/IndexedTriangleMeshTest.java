@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.geometry;
+
+import java.io.File;
+import java.io.IOException;
+
+import maspack.geometry.io.GenericMeshReader;
+import maspack.geometry.io.StlReader;
+import maspack.geometry.io.StlWriter;
+import maspack.matrix.Point3d;
+import maspack.matrix.Vector3d;
+import maspack.util.RandomGenerator;
+import maspack.util.TestException;
+import maspack.util.UnitTest;
+
+/**
+ * Tests IndexedTriangleMesh, including its adjacency information and its use
+ * with bounding volume hierarchies, distance grids and STL reading.
+ */
+public class IndexedTriangleMeshTest extends UnitTest {
+
+   void checkSameGeometry (IndexedTriangleMesh imesh, PolygonalMesh pmesh) {
+      checkEquals ("numVertices", imesh.numVertices(), pmesh.numVertices());
+      checkEquals ("numTriangles", imesh.numTriangles(), pmesh.numFaces());
+      Point3d pos = new Point3d();
+      for (int i=0; i<imesh.numVertices(); i++) {
+         imesh.getVertex (pos, i);
+         checkEquals ("vertex "+i, pos, pmesh.getVertex(i).pnt);
+      }
+      for (int t=0; t<imesh.numTriangles(); t++) {
+         int[] idxs = pmesh.getFace(t).getVertexIndices();
+         for (int k=0; k<3; k++) {
+            checkEquals (
+               "triangle "+t+", vertex "+k,
+               imesh.getTriangleVertex(t, k), idxs[k]);
+         }
+      }
+   }
+
+   void testConstruction() {
+      PolygonalMesh sphere = MeshFactory.createIcosahedralSphere (1.0, 2);
+      IndexedTriangleMesh imesh = new IndexedTriangleMesh (sphere);
+      checkSameGeometry (imesh, sphere);
+      checkSameGeometry (imesh, imesh.toPolygonalMesh());
+
+      // quad faces should be triangulated
+      PolygonalMesh box = MeshFactory.createBox (1.0, 2.0, 3.0);
+      imesh = new IndexedTriangleMesh (box);
+      checkEquals ("box numTriangles", imesh.numTriangles(), 12);
+      PolygonalMesh tbox = box.clone();
+      tbox.triangulate();
+      checkEquals (
+         "box area", imesh.toPolygonalMesh().computeArea(),
+         tbox.computeArea(), 1e-14);
+
+      // float constructor and argument checks
+      IndexedTriangleMesh fmesh = new IndexedTriangleMesh (
+         imesh.getFloatPositions(), imesh.getTriangleIndices());
+      checkEquals ("float numVertices", fmesh.numVertices(), 8);
+      try {
+         new IndexedTriangleMesh (new double[9], new int[] {0, 1, 3});
+         throw new TestException ("out of range index not detected");
+      }
+      catch (IllegalArgumentException e) {
+         // expected
+      }
+   }
+
+   void testAdjacency() {
+      PolygonalMesh sphere = MeshFactory.createIcosahedralSphere (1.0, 2);
+      IndexedTriangleMesh imesh = new IndexedTriangleMesh (sphere);
+      if (imesh.hasAdjacency()) {
+         throw new TestException ("adjacency computed before it was needed");
+      }
+      checkEquals ("sphere isClosed", imesh.isClosed(), true);
+      checkEquals ("hasAdjacency", imesh.hasAdjacency(), true);
+      int numh = 3*imesh.numTriangles();
+      for (int h=0; h<numh; h++) {
+         int opp = imesh.getOppositeHalfEdge (h);
+         checkEquals ("opposite of opposite", imesh.getOppositeHalfEdge(opp), h);
+         int t = h/3;
+         int s = opp/3;
+         int tail = imesh.getTriangleVertex (t, h%3);
+         int head = imesh.getTriangleVertex (t, (h+1)%3);
+         checkEquals ("opposite tail", imesh.getTriangleVertex (s, opp%3), head);
+         checkEquals (
+            "opposite head", imesh.getTriangleVertex (s, (opp+1)%3), tail);
+      }
+      for (int i=0; i<imesh.numVertices(); i++) {
+         checkEquals (
+            "num vertex triangles, vertex "+i,
+            imesh.getVertexTriangles(i).length,
+            sphere.getVertex(i).numIncidentHalfEdges());
+      }
+      imesh.clearAdjacency();
+      checkEquals ("hasAdjacency", imesh.hasAdjacency(), false);
+
+      // a single triangle is open
+      IndexedTriangleMesh tri = new IndexedTriangleMesh (
+         new double[] { 0, 0, 0,  1, 0, 0,  0, 1, 0 }, new int[] { 0, 1, 2 });
+      checkEquals ("triangle isClosed", tri.isClosed(), false);
+      checkEquals ("adjacent triangle", tri.getAdjacentTriangle (0, 1), -1);
+   }
+
+   void testBVTree() {
+      PolygonalMesh sphere = MeshFactory.createIcosahedralSphere (1.0, 3);
+      IndexedTriangleMesh imesh = new IndexedTriangleMesh (sphere);
+      BVTree bvh = imesh.getBVTree();
+      BVFeatureQuery query = new BVFeatureQuery();
+      Point3d pnt = new Point3d();
+      Point3d near = new Point3d();
+      Point3d nearChk = new Point3d();
+      for (int i=0; i<100; i++) {
+         pnt.setRandom();
+         pnt.scale (2);
+         Feature feat = query.nearestFeatureToPoint (near, bvh, pnt);
+         if (!(feat instanceof IndexedTriangleMesh.Triangle)) {
+            throw new TestException ("nearest feature is not a Triangle");
+         }
+         query.nearestFaceToPoint (nearChk, null, sphere, pnt);
+         checkEquals (
+            "nearest distance", near.distance(pnt), nearChk.distance(pnt),
+            1e-12);
+      }
+   }
+
+   void testDistanceGrid() {
+      PolygonalMesh sphere = MeshFactory.createIcosahedralSphere (1.0, 2);
+      IndexedTriangleMesh imesh = new IndexedTriangleMesh (sphere);
+      for (boolean signed : new boolean[] { false, true }) {
+         DistanceGrid grid = new DistanceGrid ();
+         grid.computeFromMesh (imesh, 0.1, null, 20, signed);
+         DistanceGrid check = new DistanceGrid ();
+         check.computeFromFeatures (sphere.getFaces(), 0.1, null, 20, signed);
+         checkEquals ("numVertices", grid.numVertices(), check.numVertices());
+         for (int vi=0; vi<grid.numVertices(); vi++) {
+            checkEquals (
+               "grid value, signed="+signed+", vertex "+vi,
+               grid.getVertexValue(vi), check.getVertexValue(vi), 1e-12);
+         }
+      }
+   }
+
+   void testStlReading() throws IOException {
+      PolygonalMesh sphere = MeshFactory.createIcosahedralSphere (1.0, 2);
+      File file = File.createTempFile ("indexedMeshTest", ".stl");
+      try {
+         for (boolean binary : new boolean[] { false, true }) {
+            StlWriter writer = new StlWriter (file);
+            writer.setBinary (binary);
+            writer.writeMesh (sphere);
+            writer.close();
+            PolygonalMesh pmesh = StlReader.read (file);
+            IndexedTriangleMesh imesh =
+               GenericMeshReader.readIndexedMesh (file);
+            checkSameGeometry (imesh, pmesh);
+         }
+      }
+      finally {
+         file.delete();
+      }
+   }
+
+   public void test() throws IOException {
+      testConstruction();
+      testAdjacency();
+      testBVTree();
+      testDistanceGrid();
+      testStlReading();
+   }
+
+   public static void main (String[] args) {
+      RandomGenerator.setSeed (0x1234);
+      IndexedTriangleMeshTest tester = new IndexedTriangleMeshTest();
+      tester.runtest();
+   }
+}
@@ -250,7 +250,7 @@ public abstract class InterpolatingGridBase implements Renderable, Scannable {
          // clear or recompute distances
          int numV = myNx*myNy*myNz;
          initVertexValues (numV);
-         myColorIndices = new int[numV];
+         myColorIndices = null; // allocated on demand by initColorMap()
          // adjust render ranges
          if (myRenderRanges == null) {
             myRenderRanges = new int[] {0, MAX_INT, 0, MAX_INT, 0, MAX_INT};
@@ -364,7 +364,12 @@ public abstract class InterpolatingGridBase implements Renderable, Scannable {
       myNz = grid.myNz;
       myNxNy = grid.myNxNy;
 
-      setLocalToWorld (grid.myTLocalToWorld);
+      if (grid.myTLocalToWorld != null) {
+         setLocalToWorld (grid.myTLocalToWorld);
+      }
+      else {
+         setLocalToWorld (RigidTransform3d.IDENTITY);
+      }
    }
 
    /**
@@ -381,9 +386,7 @@ public abstract class InterpolatingGridBase implements Renderable, Scannable {
       myColorMap = new LinkedHashMap<Color,Integer>();
       myColors = new ArrayList<Color>();
       myColors.add (Color.GREEN);
-      for (int i=0; i<myColorIndices.length; i++) {
-         myColorIndices[i] = 0;
-      }
+      myColorIndices = new int[numVertices()];
    }
    
    /**
@@ -0,0 +1,1190 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.geometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import maspack.concurrency.ParallelLoop;
+import maspack.matrix.Plane;
+import maspack.matrix.Point3d;
+import maspack.matrix.RigidTransform3d;
+import maspack.matrix.Vector3d;
+import maspack.util.DynamicIntArray;
+
+/**
+ * An axis-aligned bounding box tree whose nodes are stored in flat primitive
+ * arrays instead of as linked {@link AABB} objects. This makes refitting and
+ * traversal considerably more cache-friendly than for {@link AABBTree},
+ * which matters for large deformable meshes whose trees must be refit every
+ * time step.
+ *
+ * <p>The tree is binary, with nodes stored in breadth-first order, so that
+ * the two children of a node are adjacent, the nodes of each level are
+ * contiguous, and every child has a larger index than its parent. Node
+ * bounds are stored in a single array, six values per node, while child
+ * indices and element ranges are stored in separate integer arrays. The
+ * elements themselves are reordered so that the elements below any node
+ * form a contiguous range.
+ *
+ * <p>The tree is built top-down, with split positions chosen using a binned
+ * surface area heuristic. {@link #update} refits the tree bottom-up, one
+ * level at a time, and may use multiple threads (see {@link
+ * #setNumThreads}). Point, sphere, plane, line, line segment and tree
+ * intersection queries are performed non-recursively using an explicit
+ * stack.
+ *
+ * <p>For compatibility with code that traverses bounding volume hierarchies
+ * directly, {@link #getRoot} returns a hierarchy of {@link AABB} nodes. These
+ * are created the first time they are needed, and their bounds are updated
+ * from the arrays only when they are requested after the tree has changed.
+ * Code that only uses the query methods of this class, together with the
+ * queries in {@link BVFeatureQuery} and tree intersections with other box
+ * trees, therefore never touches them, except to obtain the leaf nodes that
+ * are returned.
+ */
+public class LinearAABBTree extends BVTree {
+
+   /**
+    * Number of bins used for the surface area heuristic
+    */
+   private static final int NUM_BINS = 16;
+
+   /**
+    * Minimum number of nodes in a level for it to be refit in parallel
+    */
+   private static final int MIN_PARALLEL_NODES = 512;
+
+   private int myNumNodes;
+   private double[] myBounds;      // minx,miny,minz,maxx,maxy,maxz per node
+   private int[] myChild;          // index of first child, or -1 for leaves
+   private int[] myElemOff;        // offset of a node's elements in myElems
+   private int[] myElemNum;        // number of elements below a node
+   private int[] myLevelOff;       // offset of each level, plus end marker
+   private Boundable[] myElems;
+
+   // For mesh features (faces, line segments and vertices), whose bounds
+   // are those of their points, leaves are refit from a flat copy of the
+   // point positions instead of by querying each element.
+   private Point3d[] myPoints;     // distinct points referenced by elements
+   private double[] myPointPos;    // point positions, 3 per point
+   private int[] myLeafPntOff;     // offset of each node's point indices
+   private int[] myLeafPnts;       // point indices for each leaf
+
+   // AABB nodes used to present the tree as a BVNode hierarchy
+   private AABB[] myNodes;
+   private int myVersion;
+   private int myNodesVersion;
+
+   private int myNumThreads = ParallelLoop.getDefaultNumThreads();
+   private ParallelLoop myLoop;
+
+   /**
+    * Creates an empty tree.
+    */
+   public LinearAABBTree () {
+   }
+
+   /**
+    * Creates a tree for a mesh.
+    *
+    * @param mesh mesh for which the tree should be built
+    * @param maxLeafElems maximum number of elements in a leaf node
+    * @param margin margin around the elements. If negative, a default
+    * margin based on the mesh radius is used.
+    */
+   public LinearAABBTree (MeshBase mesh, int maxLeafElems, double margin) {
+      setMaxLeafElementsForMesh (mesh, maxLeafElems);
+      setMarginForMesh (mesh, margin);
+      build (mesh);
+   }
+
+   /**
+    * Creates a tree for a mesh, using a default margin.
+    *
+    * @param mesh mesh for which the tree should be built
+    * @param maxLeafElems maximum number of elements in a leaf node
+    */
+   public LinearAABBTree (MeshBase mesh, int maxLeafElems) {
+      this (mesh, maxLeafElems, -1);
+   }
+
+   /**
+    * Creates a tree for a mesh, using a default margin and a maximum of
+    * two elements per leaf node.
+    *
+    * @param mesh mesh for which the tree should be built
+    */
+   public LinearAABBTree (MeshBase mesh) {
+      this (mesh, 2, -1);
+   }
+
+   /**
+    * Returns the number of threads used by {@link #update}.
+    *
+    * @return number of update threads
+    */
+   public int getNumThreads() {
+      return myNumThreads;
+   }
+
+   /**
+    * Sets the number of threads used by {@link #update}. The default value
+    * is given by {@link ParallelLoop#getDefaultNumThreads}. Only tree levels
+    * containing a large number of nodes are refit in parallel, so smaller
+    * trees are always refit by the calling thread.
+    *
+    * @param num number of update threads
+    */
+   public void setNumThreads (int num) {
+      if (num < 1) {
+         throw new IllegalArgumentException (
+            "number of threads must be at least 1; got "+num);
+      }
+      if (num != myNumThreads) {
+         if (myLoop != null) {
+            myLoop.dispose();
+            myLoop = null;
+         }
+         myNumThreads = num;
+      }
+   }
+
+   /**
+    * Returns the number of levels in this tree.
+    *
+    * @return number of tree levels
+    */
+   public int numLevels() {
+      return myLevelOff == null ? 0 : myLevelOff.length-1;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public int numNodes() {
+      return myNumNodes;
+   }
+
+   // -- building --
+
+   private static double halfArea (double[] b, int k) {
+      double dx = b[k+3]-b[k];
+      double dy = b[k+4]-b[k+1];
+      double dz = b[k+5]-b[k+2];
+      return dx*dy + dy*dz + dz*dx;
+   }
+
+   private static void clearBounds (double[] b, int k) {
+      b[k  ] =  INF; b[k+1] =  INF; b[k+2] =  INF;
+      b[k+3] = -INF; b[k+4] = -INF; b[k+5] = -INF;
+   }
+
+   private static void addBounds (double[] b, int k, double[] a, int j) {
+      if (a[j  ] < b[k  ]) b[k  ] = a[j  ];
+      if (a[j+1] < b[k+1]) b[k+1] = a[j+1];
+      if (a[j+2] < b[k+2]) b[k+2] = a[j+2];
+      if (a[j+3] > b[k+3]) b[k+3] = a[j+3];
+      if (a[j+4] > b[k+4]) b[k+4] = a[j+4];
+      if (a[j+5] > b[k+5]) b[k+5] = a[j+5];
+   }
+
+   /**
+    * Working storage used for building the tree.
+    */
+   private static class BuildData {
+      double[] centroids;         // element centroids, 3 per element
+      double[] bounds;            // element bounds, 6 per element
+      int[] perm;                 // element ordering
+      int[] binCnt = new int[NUM_BINS];
+      double[] binBnds = new double[6*NUM_BINS];
+      double[] rightArea = new double[NUM_BINS];
+      int[] rightCnt = new int[NUM_BINS];
+      double[] accum = new double[6];
+   }
+
+   /**
+    * Finds the split for the elements in perm[lo:hi) that minimizes the
+    * surface area heuristic. Returns the axis in the low two bits and the
+    * bin index (the first bin on the right side) in the remaining bits, or
+    * -1 if the centroids are coincident.
+    */
+   private int findSplit (BuildData bd, int lo, int hi, double[] cbnds) {
+      int[] perm = bd.perm;
+      double[] cents = bd.centroids;
+      clearBounds (cbnds, 0);
+      for (int i=lo; i<hi; i++) {
+         int k = 3*perm[i];
+         for (int j=0; j<3; j++) {
+            double c = cents[k+j];
+            if (c < cbnds[j]) cbnds[j] = c;
+            if (c > cbnds[j+3]) cbnds[j+3] = c;
+         }
+      }
+      double bestCost = INF;
+      int best = -1;
+      double[] accum = bd.accum;
+      for (int axis=0; axis<3; axis++) {
+         double min = cbnds[axis];
+         double ext = cbnds[axis+3]-min;
+         if (ext <= 0) {
+            continue;
+         }
+         double scale = NUM_BINS/ext;
+         Arrays.fill (bd.binCnt, 0);
+         for (int b=0; b<NUM_BINS; b++) {
+            clearBounds (bd.binBnds, 6*b);
+         }
+         for (int i=lo; i<hi; i++) {
+            int e = perm[i];
+            int b = binIndex (cents[3*e+axis], min, scale);
+            bd.binCnt[b]++;
+            addBounds (bd.binBnds, 6*b, bd.bounds, 6*e);
+         }
+         // sweep from the right to get the areas and counts of right sides
+         clearBounds (accum, 0);
+         int cnt = 0;
+         for (int b=NUM_BINS-1; b>0; b--) {
+            cnt += bd.binCnt[b];
+            addBounds (accum, 0, bd.binBnds, 6*b);
+            bd.rightCnt[b] = cnt;
+            bd.rightArea[b] = cnt > 0 ? halfArea (accum, 0) : 0;
+         }
+         // sweep from the left, evaluating the cost of splitting before b
+         clearBounds (accum, 0);
+         cnt = 0;
+         for (int b=1; b<NUM_BINS; b++) {
+            cnt += bd.binCnt[b-1];
+            addBounds (accum, 0, bd.binBnds, 6*(b-1));
+            if (cnt == 0 || bd.rightCnt[b] == 0) {
+               continue;
+            }
+            double cost =
+               cnt*halfArea (accum, 0) + bd.rightCnt[b]*bd.rightArea[b];
+            if (cost < bestCost) {
+               bestCost = cost;
+               best = (b << 2) | axis;
+            }
+         }
+      }
+      return best;
+   }
+
+   private static int binIndex (double c, double min, double scale) {
+      int b = (int)((c-min)*scale);
+      return b < NUM_BINS ? b : NUM_BINS-1;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void build (Boundable[] elems, int nelems) {
+      BuildData bd = new BuildData();
+      bd.centroids = new double[3*nelems];
+      bd.bounds = new double[6*nelems];
+      bd.perm = new int[nelems];
+      Vector3d cent = new Vector3d();
+      Vector3d min = new Vector3d();
+      Vector3d max = new Vector3d();
+      for (int i=0; i<nelems; i++) {
+         elems[i].computeCentroid (cent);
+         bd.centroids[3*i  ] = cent.x;
+         bd.centroids[3*i+1] = cent.y;
+         bd.centroids[3*i+2] = cent.z;
+         min.set ( INF,  INF,  INF);
+         max.set (-INF, -INF, -INF);
+         elems[i].updateBounds (min, max);
+         bd.bounds[6*i  ] = min.x;
+         bd.bounds[6*i+1] = min.y;
+         bd.bounds[6*i+2] = min.z;
+         bd.bounds[6*i+3] = max.x;
+         bd.bounds[6*i+4] = max.y;
+         bd.bounds[6*i+5] = max.z;
+         bd.perm[i] = i;
+      }
+      int maxNodes = Math.max (1, 2*nelems-1);
+      int[] child = new int[maxNodes];
+      int[] elemOff = new int[maxNodes];
+      int[] elemNum = new int[maxNodes];
+      int[] level = new int[maxNodes];
+      double[] cbnds = new double[6];
+      int maxLeafElems = Math.max (1, myMaxLeafElements);
+
+      // Nodes are processed in the order they are created, which results in
+      // a breadth-first layout with siblings adjacent
+      int numNodes = 1;
+      elemOff[0] = 0;
+      elemNum[0] = nelems;
+      for (int n=0; n<numNodes; n++) {
+         int lo = elemOff[n];
+         int hi = lo + elemNum[n];
+         child[n] = -1;
+         if (hi-lo <= maxLeafElems) {
+            continue;
+         }
+         int mid;
+         int split = findSplit (bd, lo, hi, cbnds);
+         if (split == -1) {
+            // centroids coincide; divide the elements evenly
+            mid = (lo+hi)/2;
+         }
+         else {
+            int axis = (split & 0x3);
+            int bin = (split >> 2);
+            double cmin = cbnds[axis];
+            double scale = NUM_BINS/(cbnds[axis+3]-cmin);
+            mid = partition (bd, lo, hi, axis, bin, cmin, scale);
+            if (mid == lo || mid == hi) {
+               mid = (lo+hi)/2;
+            }
+         }
+         int c = numNodes;
+         numNodes += 2;
+         child[n] = c;
+         elemOff[c] = lo;
+         elemNum[c] = mid-lo;
+         elemOff[c+1] = mid;
+         elemNum[c+1] = hi-mid;
+         level[c] = level[c+1] = level[n]+1;
+      }
+      myNumNodes = numNodes;
+      myChild = Arrays.copyOf (child, numNodes);
+      myElemOff = Arrays.copyOf (elemOff, numNodes);
+      myElemNum = Arrays.copyOf (elemNum, numNodes);
+      int numLevels = level[numNodes-1]+1;
+      myLevelOff = new int[numLevels+1];
+      for (int n=1; n<numNodes; n++) {
+         if (level[n] != level[n-1]) {
+            myLevelOff[level[n]] = n;
+         }
+      }
+      myLevelOff[numLevels] = numNodes;
+      myElems = new Boundable[nelems];
+      for (int i=0; i<nelems; i++) {
+         myElems[i] = elems[bd.perm[i]];
+      }
+      myBounds = new double[6*numNodes];
+      myNodes = null;
+      buildLeafPoints();
+      update();
+   }
+
+   private static boolean isPointBounded (Boundable elem) {
+      return (elem instanceof Face || elem instanceof LineSegment ||
+              elem instanceof Vertex3d);
+   }
+
+   /**
+    * If all elements are mesh features, collects the distinct points they
+    * reference, together with the point indices for each leaf.
+    */
+   private void buildLeafPoints() {
+      myPoints = null;
+      myPointPos = null;
+      myLeafPntOff = null;
+      myLeafPnts = null;
+      for (int i=0; i<myElems.length; i++) {
+         if (!isPointBounded (myElems[i])) {
+            return;
+         }
+      }
+      IdentityHashMap<Point3d,Integer> pntMap =
+         new IdentityHashMap<Point3d,Integer>();
+      ArrayList<Point3d> pnts = new ArrayList<Point3d>();
+      int[] leafPntOff = new int[myNumNodes+1];
+      DynamicIntArray leafPnts = new DynamicIntArray();
+      // visit the leaves in element order, so that nearby leaves reference
+      // nearby points
+      int[] leaves = new int[myNumNodes];
+      int numLeaves = 0;
+      for (int n=0; n<myNumNodes; n++) {
+         if (myChild[n] == -1) {
+            leaves[numLeaves++] = n;
+         }
+      }
+      int[] start = new int[myNumNodes];
+      int[] num = new int[myNumNodes];
+      sortByElementOffset (leaves, numLeaves);
+      for (int l=0; l<numLeaves; l++) {
+         int n = leaves[l];
+         start[n] = leafPnts.size();
+         int off = myElemOff[n];
+         int end = off + myElemNum[n];
+         for (int i=off; i<end; i++) {
+            Boundable elem = myElems[i];
+            for (int j=0; j<elem.numPoints(); j++) {
+               Point3d pnt = elem.getPoint (j);
+               Integer idx = pntMap.get (pnt);
+               if (idx == null) {
+                  idx = pnts.size();
+                  pntMap.put (pnt, idx);
+                  pnts.add (pnt);
+               }
+               boolean found = false;
+               for (int k=start[n]; k<leafPnts.size(); k++) {
+                  if (leafPnts.get(k) == idx) {
+                     found = true;
+                     break;
+                  }
+               }
+               if (!found) {
+                  leafPnts.add (idx);
+               }
+            }
+         }
+         num[n] = leafPnts.size()-start[n];
+      }
+      // store the leaf point indices in node order
+      myLeafPnts = new int[leafPnts.size()];
+      int k = 0;
+      for (int n=0; n<myNumNodes; n++) {
+         leafPntOff[n] = k;
+         for (int i=0; i<num[n]; i++) {
+            myLeafPnts[k++] = leafPnts.get (start[n]+i);
+         }
+      }
+      leafPntOff[myNumNodes] = k;
+      myLeafPntOff = leafPntOff;
+      myPoints = pnts.toArray (new Point3d[0]);
+      myPointPos = new double[3*myPoints.length];
+   }
+
+   private void sortByElementOffset (int[] leaves, int num) {
+      // insertion into buckets indexed by element offset; leaf element
+      // ranges are disjoint, so offsets are unique unless a leaf is empty
+      int[] byOff = new int[myElems.length+1];
+      Arrays.fill (byOff, -1);
+      int k = 0;
+      for (int l=0; l<num; l++) {
+         int n = leaves[l];
+         if (myElemNum[n] == 0) {
+            leaves[k++] = n;
+         }
+         else {
+            byOff[myElemOff[n]] = n;
+         }
+      }
+      for (int i=0; i<byOff.length; i++) {
+         if (byOff[i] != -1) {
+            leaves[k++] = byOff[i];
+         }
+      }
+   }
+
+   /**
+    * Partitions perm[lo:hi) so that elements whose centroid bins are less
+    * than {@code bin} come first, and returns the start of the remainder.
+    */
+   private int partition (
+      BuildData bd, int lo, int hi, int axis, int bin,
+      double cmin, double scale) {
+      int[] perm = bd.perm;
+      double[] cents = bd.centroids;
+      int i = lo;
+      int j = hi-1;
+      while (i <= j) {
+         if (binIndex (cents[3*perm[i]+axis], cmin, scale) < bin) {
+            i++;
+         }
+         else {
+            int tmp = perm[i];
+            perm[i] = perm[j];
+            perm[j] = tmp;
+            j--;
+         }
+      }
+      return i;
+   }
+
+   // -- refitting --
+
+   private void refitNode (int n, Vector3d min, Vector3d max) {
+      double[] bnds = myBounds;
+      int k = 6*n;
+      int c = myChild[n];
+      if (c == -1 && myLeafPnts != null) {
+         double[] pos = myPointPos;
+         clearBounds (bnds, k);
+         int end = myLeafPntOff[n+1];
+         for (int i=myLeafPntOff[n]; i<end; i++) {
+            int j = 3*myLeafPnts[i];
+            double x = pos[j];
+            double y = pos[j+1];
+            double z = pos[j+2];
+            if (x < bnds[k  ]) bnds[k  ] = x;
+            if (y < bnds[k+1]) bnds[k+1] = y;
+            if (z < bnds[k+2]) bnds[k+2] = z;
+            if (x > bnds[k+3]) bnds[k+3] = x;
+            if (y > bnds[k+4]) bnds[k+4] = y;
+            if (z > bnds[k+5]) bnds[k+5] = z;
+         }
+      }
+      else if (c == -1) {
+         min.set ( INF,  INF,  INF);
+         max.set (-INF, -INF, -INF);
+         int off = myElemOff[n];
+         int end = off+myElemNum[n];
+         for (int i=off; i<end; i++) {
+            myElems[i].updateBounds (min, max);
+         }
+         bnds[k  ] = min.x;
+         bnds[k+1] = min.y;
+         bnds[k+2] = min.z;
+         bnds[k+3] = max.x;
+         bnds[k+4] = max.y;
+         bnds[k+5] = max.z;
+      }
+      else {
+         int k0 = 6*c;
+         int k1 = k0+6;
+         bnds[k  ] = Math.min (bnds[k0  ], bnds[k1  ]);
+         bnds[k+1] = Math.min (bnds[k0+1], bnds[k1+1]);
+         bnds[k+2] = Math.min (bnds[k0+2], bnds[k1+2]);
+         bnds[k+3] = Math.max (bnds[k0+3], bnds[k1+3]);
+         bnds[k+4] = Math.max (bnds[k0+4], bnds[k1+4]);
+         bnds[k+5] = Math.max (bnds[k0+5], bnds[k1+5]);
+      }
+      double margin = myMargin;
+      bnds[k  ] -= margin;
+      bnds[k+1] -= margin;
+      bnds[k+2] -= margin;
+      bnds[k+3] += margin;
+      bnds[k+4] += margin;
+      bnds[k+5] += margin;
+   }
+
+   private void gatherPoints (int lo, int hi) {
+      Point3d[] pnts = myPoints;
+      double[] pos = myPointPos;
+      for (int i=lo; i<hi; i++) {
+         Point3d pnt = pnts[i];
+         pos[3*i  ] = pnt.x;
+         pos[3*i+1] = pnt.y;
+         pos[3*i+2] = pnt.z;
+      }
+   }
+
+   private void refitRange (int lo, int hi) {
+      Vector3d min = new Vector3d();
+      Vector3d max = new Vector3d();
+      for (int n=hi-1; n>=lo; n--) {
+         refitNode (n, min, max);
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    *
+    * <p>The refit proceeds bottom-up, one level at a time. If the number of
+    * threads is greater than one, levels that contain a large number of
+    * nodes are refit in parallel.
+    */
+   public void update() {
+      if (myNumNodes == 0) {
+         return;
+      }
+      if (myNumThreads == 1 || myNumNodes < 2*MIN_PARALLEL_NODES) {
+         if (myPoints != null) {
+            gatherPoints (0, myPoints.length);
+         }
+         // children always follow their parents, so a reverse sweep
+         // refits the whole tree
+         refitRange (0, myNumNodes);
+      }
+      else {
+         if (myLoop == null) {
+            myLoop = new ParallelLoop ("LinearAABBTree", myNumThreads);
+         }
+         if (myPoints != null) {
+            myLoop.run (myPoints.length, new ParallelLoop.RangeTask() {
+                  public void run (int tidx, int lo, int hi) {
+                     gatherPoints (lo, hi);
+                  }
+               });
+         }
+         for (int l=numLevels()-1; l>=0; l--) {
+            final int off = myLevelOff[l];
+            int num = myLevelOff[l+1]-off;
+            if (num < MIN_PARALLEL_NODES) {
+               refitRange (off, off+num);
+            }
+            else {
+               myLoop.run (num, new ParallelLoop.RangeTask() {
+                     public void run (int tidx, int lo, int hi) {
+                        refitRange (off+lo, off+hi);
+                     }
+                  });
+            }
+         }
+      }
+      myVersion++;
+   }
+
+   // -- BVNode presentation --
+
+   /**
+    * Creates the AABB nodes if necessary, without updating their bounds.
+    */
+   private synchronized AABB[] getNodeObjects() {
+      if (myNumNodes == 0) {
+         return null;
+      }
+      if (myNodes == null) {
+         AABB[] nodes = new AABB[myNumNodes];
+         for (int n=0; n<myNumNodes; n++) {
+            nodes[n] = new AABB();
+            nodes[n].setNumber (n);
+         }
+         for (int n=0; n<myNumNodes; n++) {
+            int c = myChild[n];
+            if (c == -1) {
+               int off = myElemOff[n];
+               nodes[n].setElements (
+                  Arrays.copyOfRange (myElems, off, off+myElemNum[n]));
+            }
+            else {
+               nodes[n].addChild (nodes[c]);
+               nodes[n].addChild (nodes[c+1]);
+            }
+         }
+         myNodes = nodes;
+         myNodesVersion = myVersion-1;
+      }
+      return myNodes;
+   }
+
+   private void setNodeBounds (AABB node, int n) {
+      int k = 6*n;
+      double[] bnds = myBounds;
+      node.myMin.set (bnds[k  ], bnds[k+1], bnds[k+2]);
+      node.myMax.set (bnds[k+3], bnds[k+4], bnds[k+5]);
+   }
+
+   /**
+    * Creates the AABB nodes if necessary, and updates all their bounds if the
+    * tree has changed since they were last updated.
+    */
+   private synchronized AABB[] getNodes() {
+      AABB[] nodes = getNodeObjects();
+      if (nodes != null && myNodesVersion != myVersion) {
+         for (int n=0; n<myNumNodes; n++) {
+            setNodeBounds (nodes[n], n);
+         }
+         myNodesVersion = myVersion;
+      }
+      return nodes;
+   }
+
+   /**
+    * Returns the AABB node for a leaf found by a query. Queries work
+    * directly on the bounds arrays, so only the bounds of the leaves they
+    * return need to be copied to the nodes after an update(), instead of
+    * the bounds of the whole tree. Copying the same values from several
+    * threads at once is harmless.
+    */
+   private AABB getLeafNode (AABB[] nodes, int n) {
+      AABB node = nodes[n];
+      if (myNodesVersion != myVersion) {
+         setNodeBounds (node, n);
+      }
+      return node;
+   }
+
+   /**
+    * Returns the root node of this tree, presented as a hierarchy of {@link
+    * AABB} nodes whose numbers equal their breadth-first indices. The
+    * hierarchy reflects the tree as of the most recent {@link #update}.
+    *
+    * @return root node, or {@code null} if the tree has not been built
+    */
+   public AABB getRoot() {
+      AABB[] nodes = getNodes();
+      return nodes != null ? nodes[0] : null;
+   }
+
+   /**
+    * Returns the {@link AABB} node corresponding to a particular node index.
+    *
+    * @param idx node index
+    * @return corresponding node
+    */
+   public AABB getNode (int idx) {
+      return getNodes()[idx];
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public int numberNodes() {
+      // nodes are always numbered by their breadth-first index
+      return myNumNodes;
+   }
+
+   // -- direct node access, used by BVFeatureQuery --
+
+   /**
+    * Returns the index of the first child of node {@code n}, or -1 if it is
+    * a leaf. The second child immediately follows the first.
+    */
+   int getChildIndex (int n) {
+      return myChild[n];
+   }
+
+   /**
+    * Sets {@code box} to the bounds of node {@code n}.
+    */
+   void getNodeBounds (int n, AABB box) {
+      setNodeBounds (box, n);
+   }
+
+   /**
+    * Returns the offset of the elements of node {@code n} within the
+    * reordered element array accessed by {@link #getElement}.
+    */
+   int getElementOffset (int n) {
+      return myElemOff[n];
+   }
+
+   /**
+    * Returns the number of elements below node {@code n}.
+    */
+   int numElements (int n) {
+      return myElemNum[n];
+   }
+
+   /**
+    * Returns the {@code k}-th element of the reordered element array.
+    */
+   Boundable getElement (int k) {
+      return myElems[k];
+   }
+
+   /**
+    * Returns the AABB node for leaf {@code n}, updating only its bounds.
+    */
+   AABB getLeaf (int n) {
+      return getLeafNode (getNodeObjects(), n);
+   }
+
+   // -- queries --
+
+   /**
+    * {@inheritDoc}
+    */
+   public double getRadius() {
+      if (myNumNodes == 0) {
+         return 0;
+      }
+      double dx = myBounds[3]-myBounds[0];
+      double dy = myBounds[4]-myBounds[1];
+      double dz = myBounds[5]-myBounds[2];
+      return Math.sqrt (dx*dx + dy*dy + dz*dz)/2;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void getCenter (Vector3d center) {
+      if (myNumNodes == 0) {
+         center.set (myBvhToWorld.p);
+      }
+      else {
+         center.set (
+            (myBounds[0]+myBounds[3])/2,
+            (myBounds[1]+myBounds[4])/2,
+            (myBounds[2]+myBounds[5])/2);
+         center.transform (myBvhToWorld.R);
+         center.add (myBvhToWorld.p);
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void updateBounds (Vector3d min, Vector3d max) {
+      if (myNumNodes > 0) {
+         Point3d p = new Point3d (myBounds[0], myBounds[1], myBounds[2]);
+         p.updateBounds (min, max);
+         p.set (myBounds[3], myBounds[4], myBounds[5]);
+         p.updateBounds (min, max);
+      }
+   }
+
+   private int[] allocStack() {
+      // a depth-first traversal of a binary tree needs at most one
+      // stack entry per level, plus one
+      return new int[numLevels()+1];
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void intersectPoint (ArrayList<BVNode> nodes, Point3d pnt) {
+      if (myNumNodes == 0) {
+         return;
+      }
+      if (myBvhToWorld != RigidTransform3d.IDENTITY) {
+         pnt = new Point3d (pnt);
+         pnt.inverseTransform (myBvhToWorld);
+      }
+      intersectSphereLocal (nodes, pnt, 0);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void intersectSphere (
+      ArrayList<BVNode> nodes, Point3d center, double r) {
+      if (myNumNodes == 0) {
+         return;
+      }
+      if (myBvhToWorld != RigidTransform3d.IDENTITY) {
+         center = new Point3d (center);
+         center.inverseTransform (myBvhToWorld);
+      }
+      intersectSphereLocal (nodes, center, r);
+   }
+
+   private void intersectSphereLocal (
+      ArrayList<BVNode> nodes, Point3d c, double r) {
+      AABB[] nodeObjs = getNodeObjects();
+      double[] bnds = myBounds;
+      double x = c.x;
+      double y = c.y;
+      double z = c.z;
+      int[] stack = allocStack();
+      int top = 0;
+      stack[top++] = 0;
+      while (top > 0) {
+         int n = stack[--top];
+         int k = 6*n;
+         if (bnds[k  ] <= x+r && x-r <= bnds[k+3] &&
+             bnds[k+1] <= y+r && y-r <= bnds[k+4] &&
+             bnds[k+2] <= z+r && z-r <= bnds[k+5]) {
+            int ch = myChild[n];
+            if (ch == -1) {
+               nodes.add (getLeafNode (nodeObjs, n));
+            }
+            else {
+               stack[top++] = ch+1;
+               stack[top++] = ch;
+            }
+         }
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void intersectPlane (ArrayList<BVNode> nodes, Plane plane) {
+      if (myNumNodes == 0) {
+         return;
+      }
+      if (myBvhToWorld != RigidTransform3d.IDENTITY) {
+         plane = new Plane (plane);
+         plane.inverseTransform (myBvhToWorld);
+      }
+      AABB[] nodeObjs = getNodeObjects();
+      double[] bnds = myBounds;
+      Vector3d nrm = plane.normal;
+      double nx = Math.abs (nrm.x);
+      double ny = Math.abs (nrm.y);
+      double nz = Math.abs (nrm.z);
+      int[] stack = allocStack();
+      int top = 0;
+      stack[top++] = 0;
+      while (top > 0) {
+         int n = stack[--top];
+         int k = 6*n;
+         // signed distance of the box center to the plane, compared with
+         // the projected box radius
+         double d =
+            (nrm.x*(bnds[k]+bnds[k+3]) + nrm.y*(bnds[k+1]+bnds[k+4]) +
+             nrm.z*(bnds[k+2]+bnds[k+5]))/2 - plane.offset;
+         double rad =
+            (nx*(bnds[k+3]-bnds[k]) + ny*(bnds[k+4]-bnds[k+1]) +
+             nz*(bnds[k+5]-bnds[k+2]))/2;
+         if (Math.abs (d) <= rad) {
+            int ch = myChild[n];
+            if (ch == -1) {
+               nodes.add (getLeafNode (nodeObjs, n));
+            }
+            else {
+               stack[top++] = ch+1;
+               stack[top++] = ch;
+            }
+         }
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void intersectLine (
+      ArrayList<BVNode> nodes, Point3d origin, Vector3d dir,
+      double min, double max) {
+      if (myNumNodes == 0) {
+         return;
+      }
+      if (myBvhToWorld != RigidTransform3d.IDENTITY) {
+         origin = new Point3d (origin);
+         origin.inverseTransform (myBvhToWorld);
+         dir = new Vector3d (dir);
+         dir.inverseTransform (myBvhToWorld);
+      }
+      intersectLineLocal (nodes, origin, dir, min, max);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void intersectLineSegment (
+      ArrayList<BVNode> nodes, Point3d p1, Point3d p2) {
+      if (myNumNodes == 0) {
+         return;
+      }
+      if (myBvhToWorld != RigidTransform3d.IDENTITY) {
+         p1 = new Point3d (p1);
+         p1.inverseTransform (myBvhToWorld);
+         p2 = new Point3d (p2);
+         p2.inverseTransform (myBvhToWorld);
+      }
+      Vector3d dir = new Vector3d();
+      dir.sub (p2, p1);
+      intersectLineLocal (nodes, p1, dir, 0, 1);
+   }
+
+   /**
+    * Slab test for the line {@code origin + s dir}, with {@code s} in
+    * {@code [min, max]}, against the bounds of node {@code n}.
+    */
+   private boolean intersectsLine (
+      int n, Point3d origin, Vector3d dir, double min, double max) {
+      int k = 6*n;
+      double[] bnds = myBounds;
+      for (int j=0; j<3; j++) {
+         double o = origin.get (j);
+         double d = dir.get (j);
+         double lo = bnds[k+j];
+         double hi = bnds[k+j+3];
+         if (d == 0) {
+            if (o < lo || o > hi) {
+               return false;
+            }
+         }
+         else {
+            double t0 = (lo-o)/d;
+            double t1 = (hi-o)/d;
+            if (t0 > t1) {
+               double tmp = t0; t0 = t1; t1 = tmp;
+            }
+            if (t0 > min) {
+               min = t0;
+            }
+            if (t1 < max) {
+               max = t1;
+            }
+            if (min > max) {
+               return false;
+            }
+         }
+      }
+      return true;
+   }
+
+   private void intersectLineLocal (
+      ArrayList<BVNode> nodes, Point3d origin, Vector3d dir,
+      double min, double max) {
+      AABB[] nodeObjs = getNodeObjects();
+      int[] stack = allocStack();
+      int top = 0;
+      stack[top++] = 0;
+      while (top > 0) {
+         int n = stack[--top];
+         if (intersectsLine (n, origin, dir, min, max)) {
+            int ch = myChild[n];
+            if (ch == -1) {
+               nodes.add (getLeafNode (nodeObjs, n));
+            }
+            else {
+               stack[top++] = ch+1;
+               stack[top++] = ch;
+            }
+         }
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    *
+    * <p>If the other tree is also a {@code LinearAABBTree}, the
+    * intersection is computed directly from the node arrays of both
+    * trees. Otherwise, the node arrays of this tree are traversed against
+    * the nodes of the other tree.
+    */
+   public void intersectTree (
+      ArrayList<BVNode> nodes1, ArrayList<BVNode> nodes2,
+      BVTree bvt, RigidTransform3d X21) {
+
+      if (!(bvt instanceof LinearAABBTree)) {
+         intersectNodeTree (nodes1, nodes2, bvt, X21);
+         return;
+      }
+      LinearAABBTree tree2 = (LinearAABBTree)bvt;
+      if (myNumNodes == 0 || tree2.myNumNodes == 0) {
+         return;
+      }
+      AABB[] nodeObjs1 = getNodeObjects();
+      AABB[] nodeObjs2 = tree2.getNodeObjects();
+      double[] bnds1 = myBounds;
+      double[] bnds2 = tree2.myBounds;
+      boolean identity = X21.equals (RigidTransform3d.IDENTITY);
+
+      Vector3d hw1 = new Vector3d();
+      Vector3d hw2 = new Vector3d();
+      Vector3d c2 = new Vector3d();
+      Vector3d pd = new Vector3d();
+
+      int[] stack = new int[2*(numLevels()+tree2.numLevels()+2)];
+      int top = 0;
+      stack[top++] = 0;
+      stack[top++] = 0;
+      while (top > 0) {
+         int n2 = stack[--top];
+         int n1 = stack[--top];
+         int k1 = 6*n1;
+         int k2 = 6*n2;
+         boolean disjoint;
+         if (identity) {
+            disjoint =
+               (bnds1[k1+3] < bnds2[k2  ] || bnds1[k1  ] > bnds2[k2+3] ||
+                bnds1[k1+4] < bnds2[k2+1] || bnds1[k1+1] > bnds2[k2+4] ||
+                bnds1[k1+5] < bnds2[k2+2] || bnds1[k1+2] > bnds2[k2+5]);
+         }
+         else {
+            hw1.set (
+               (bnds1[k1+3]-bnds1[k1  ])/2,
+               (bnds1[k1+4]-bnds1[k1+1])/2,
+               (bnds1[k1+5]-bnds1[k1+2])/2);
+            hw2.set (
+               (bnds2[k2+3]-bnds2[k2  ])/2,
+               (bnds2[k2+4]-bnds2[k2+1])/2,
+               (bnds2[k2+5]-bnds2[k2+2])/2);
+            c2.set (
+               (bnds2[k2+3]+bnds2[k2  ])/2,
+               (bnds2[k2+4]+bnds2[k2+1])/2,
+               (bnds2[k2+5]+bnds2[k2+2])/2);
+            pd.transform (X21.R, c2);
+            pd.add (X21.p);
+            pd.x -= (bnds1[k1+3]+bnds1[k1  ])/2;
+            pd.y -= (bnds1[k1+4]+bnds1[k1+1])/2;
+            pd.z -= (bnds1[k1+5]+bnds1[k1+2])/2;
+            disjoint = BVBoxNodeTester.isDisjoint (hw1, hw2, X21.R, pd);
+         }
+         if (disjoint) {
+            continue;
+         }
+         int ch1 = myChild[n1];
+         int ch2 = tree2.myChild[n2];
+         if (ch1 == -1 && ch2 == -1) {
+            nodes1.add (getLeafNode (nodeObjs1, n1));
+            nodes2.add (tree2.getLeafNode (nodeObjs2, n2));
+            continue;
+         }
+         // descend into the larger node, unless it is a leaf
+         boolean descend1;
+         if (ch1 == -1) {
+            descend1 = false;
+         }
+         else if (ch2 == -1) {
+            descend1 = true;
+         }
+         else {
+            descend1 = (halfArea (bnds1, k1) >= halfArea (bnds2, k2));
+         }
+         if (top+4 > stack.length) {
+            stack = Arrays.copyOf (stack, 2*stack.length);
+         }
+         if (descend1) {
+            stack[top++] = ch1+1;
+            stack[top++] = n2;
+            stack[top++] = ch1;
+            stack[top++] = n2;
+         }
+         else {
+            stack[top++] = n1;
+            stack[top++] = ch2+1;
+            stack[top++] = n1;
+            stack[top++] = ch2;
+         }
+      }
+   }
+
+   /**
+    * Intersects this tree with a tree whose nodes are {@link BVNode}
+    * objects, such as an {@link OBBTree}, using the node arrays for this
+    * tree so that its AABB hierarchy does not need to be updated.
+    */
+   private void intersectNodeTree (
+      ArrayList<BVNode> nodes1, ArrayList<BVNode> nodes2,
+      BVTree bvt, RigidTransform3d X21) {
+
+      BVNode root2 = bvt.getRoot();
+      if (myNumNodes == 0 || root2 == null) {
+         return;
+      }
+      AABB[] nodeObjs1 = getNodeObjects();
+      AABB box1 = new AABB();
+      BVBoxNodeTester tester = new BVBoxNodeTester (box1, root2);
+
+      int[] stack1 = new int[64];
+      BVNode[] stack2 = new BVNode[64];
+      int top = 0;
+      stack1[top] = 0;
+      stack2[top++] = root2;
+      while (top > 0) {
+         top--;
+         int n1 = stack1[top];
+         BVNode node2 = stack2[top];
+         stack2[top] = null;
+         setNodeBounds (box1, n1);
+         if (tester.isDisjoint (box1, node2, X21)) {
+            continue;
+         }
+         int ch1 = myChild[n1];
+         if (ch1 == -1 && node2.isLeaf()) {
+            nodes1.add (getLeafNode (nodeObjs1, n1));
+            nodes2.add (node2);
+            continue;
+         }
+         // descend into this tree until reaching a leaf, and then into
+         // the other tree
+         if (top+8 > stack1.length) {
+            stack1 = Arrays.copyOf (stack1, 2*stack1.length);
+            stack2 = Arrays.copyOf (stack2, 2*stack2.length);
+         }
+         if (ch1 != -1) {
+            stack1[top] = ch1+1;
+            stack2[top++] = node2;
+            stack1[top] = ch1;
+            stack2[top++] = node2;
+         }
+         else {
+            for (BVNode child2=node2.getFirstChild(); child2!=null;
+                 child2=child2.getNext()) {
+               if (top == stack1.length) {
+                  stack1 = Arrays.copyOf (stack1, 2*stack1.length);
+                  stack2 = Arrays.copyOf (stack2, 2*stack2.length);
+               }
+               stack1[top] = n1;
+               stack2[top++] = child2;
+            }
+         }
+      }
+   }
+}
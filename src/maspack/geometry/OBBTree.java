@@ -58,6 +58,14 @@ public class OBBTree extends BVTree {
       return root;
    }
 
+   /**
+    * Sets the root node directly, as when the tree is restored from a {@link
+    * GeometryCache}.
+    */
+   void setRoot (OBB node) {
+      root = node;
+   }
+
    // DBG
    public boolean debug = false;
 
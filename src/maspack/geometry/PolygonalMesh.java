@@ -73,6 +73,15 @@ public class PolygonalMesh extends MeshBase {
    //private boolean bvHierarchyValid = false;
    private BVTree myBVTree = null;
    private boolean myBVTreeUpdated = false;
+
+   /**
+    * Controls whether the default bounding volume hierarchy returned by
+    * {@link #getBVTree} for meshes that are not fixed is a {@link
+    * LinearAABBTree} (if {@code true}) or an {@link AABBTree}. The default
+    * is {@code true}, since deformable meshes must be refit every time step
+    * and a LinearAABBTree is faster to refit and query.
+    */
+   public static boolean useLinearAABBTree = true;
    
    // topological properties
    private boolean myTopologyPredicatesValid = false;
@@ -3689,7 +3698,16 @@ public class PolygonalMesh extends MeshBase {
    public BVTree getBVTree() {
       if (myBVTree == null) {
          if (isFixed) {
-            myBVTree = new OBBTree (this, 2);
+            GeometryCache cache = GeometryCache.getDefault();
+            if (cache != null) {
+               myBVTree = cache.getOrCreateOBBTree (this, 2);
+            }
+            else {
+               myBVTree = new OBBTree (this, 2);
+            }
+         }
+         else if (useLinearAABBTree) {
+            myBVTree = new LinearAABBTree (this);
          }
          else {
             myBVTree = new AABBTree (this);
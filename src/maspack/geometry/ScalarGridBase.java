@@ -409,7 +409,7 @@ public class ScalarGridBase extends InterpolatingGridBase {
       IndentingPrintWriter.addIndentation (pw, 2);
       int numv = numVertices();
       for (int i=0; i<numv; i++) {
-         pw.println (fmt.format(myValues[i]));
+         pw.println (fmt.format(getVertexValue(i)));
       }    
       IndentingPrintWriter.addIndentation (pw, -2);
       pw.println ("]");
@@ -430,7 +430,7 @@ public class ScalarGridBase extends InterpolatingGridBase {
       }
       int numv = numVertices();
       for (int i=0; i<numv; i++) {
-         if (Math.abs(myValues[i]-grid.myValues[i]) > tol) {
+         if (Math.abs(getVertexValue(i)-grid.getVertexValue(i)) > tol) {
             return false;
          }
       }
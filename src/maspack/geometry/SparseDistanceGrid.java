@@ -0,0 +1,1091 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.geometry;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import maspack.concurrency.ParallelLoop;
+import maspack.matrix.Point3d;
+import maspack.matrix.Vector3d;
+import maspack.matrix.Vector3i;
+import maspack.util.ReaderTokenizer;
+
+/**
+ * A {@link DistanceGrid} that only stores distances within a narrow band
+ * about the surface. This is intended for large grids around thin structures,
+ * for which a dense grid would need hundreds of megabytes even though
+ * collision and wrapping queries only take place near the surface.
+ *
+ * <p>The grid vertices are partitioned into cubic <i>tiles</i> of {@link
+ * #TILE_SIZE} vertices along each axis. When the grid is computed from a set
+ * of features, only the tiles lying within the band of the features are
+ * allocated, and the distances for these are computed in parallel using
+ * nearest-feature queries on a bounding volume hierarchy. Each unallocated
+ * tile is assigned a single distance value, equal to plus or minus the band
+ * width (see {@link #getBandWidth}), with the sign determined from the
+ * allocated tiles surrounding it. Distance values stored in the allocated
+ * tiles are likewise clamped to the band width, so that the field remains
+ * continuous.
+ *
+ * <p>All the linear interpolation queries of {@link DistanceGrid}, such as
+ * {@link #getLocalDistanceAndNormal(Vector3d,Point3d)} and {@link
+ * #getWorldDistanceAndGradient(Vector3d,Point3d)}, are supported and return
+ * the same results as a dense grid for points within the band. Quadratic
+ * interpolation is also supported, with the coefficients computed on demand
+ * instead of being stored. Vertex normals are likewise computed on demand.
+ * Methods that require a dense set of values, such as {@link #smooth()},
+ * throw an {@link UnsupportedOperationException}.
+ *
+ * <p>Distances are always computed using nearest-feature queries (i.e., the
+ * {@link DistanceMethod#BVH} method), and signed distances require that all
+ * the features be faces of an oriented mesh.
+ */
+public class SparseDistanceGrid extends DistanceGrid {
+
+   /**
+    * Base 2 logarithm of the tile size.
+    */
+   protected static final int TILE_BITS = 3;
+
+   /**
+    * Number of vertices along each edge of a tile.
+    */
+   public static final int TILE_SIZE = (1 << TILE_BITS);
+
+   protected static final int TILE_MASK = TILE_SIZE-1;
+   protected static final int TILE_NUMV = TILE_SIZE*TILE_SIZE*TILE_SIZE;
+
+   // operations used to combine the grid with another mesh
+   private static final int UNION = 0;
+   private static final int INTERSECTION = 1;
+   private static final int DIFFERENCE01 = 2;
+   private static final int DIFFERENCE10 = 3;
+
+   public static double DEFAULT_BAND_CELLS = 3.0;
+   protected double myBandCells = DEFAULT_BAND_CELLS;
+   // band width in distance units; distances are clamped to +/- this value
+   protected double myBandWidth = 0;
+
+   protected int myTx;  // number of tiles along X
+   protected int myTy;  // number of tiles along Y
+   protected int myTz;  // number of tiles along Z
+   protected double[][] myTiles;   // vertex distances for allocated tiles
+   protected double[] myTileFills; // distance for each unallocated tile
+
+   // bounding volume hierarchy used for nearest feature queries
+   protected BVTree myFeatureTree;
+   protected int myNumThreads = ParallelLoop.getDefaultNumThreads();
+
+   /**
+    * Default constructor. Should not be called by applications, unless
+    * {@link #scan} is called immediately after.
+    */
+   public SparseDistanceGrid () {
+      super();
+   }
+
+   /**
+    * Creates a new sparse distance grid, axis-aligned and centered on the
+    * origin, with the specified resolution and x, y, z widths set to 1.  The
+    * grid distances are initialized to zero.
+    *
+    * @param resolution cell resolution along the x, y, and z axes
+    */
+   public SparseDistanceGrid (Vector3i resolution) {
+      super();
+      initGrid (null, resolution, null);
+   }
+
+   /**
+    * Creates a new sparse distance grid for a specified list of features,
+    * axis-aligned and centered on the features, with a uniform cell width
+    * along all axes defined so that the resolution along the maximum width
+    * axis is <code>maxRes</code>. The arguments are the same as for the
+    * corresponding {@link
+    * DistanceGrid#DistanceGrid(List,double,int,boolean) DistanceGrid}
+    * constructor.
+    *
+    * @param features features used to compute the distance field
+    * @param marginFrac specifies the fractional amount that the
+    * grid should be grown in each direction to better contain the features
+    * @param maxRes specfies the resolution along the longest
+    * width. Must be {@code >} 0.
+    * @param signed if <code>true</code>, indicates that the field should be
+    * signed, in which case all features must be faces.
+    */
+   public SparseDistanceGrid (
+      List<? extends Feature> features, double marginFrac, int maxRes,
+      boolean signed) {
+      super();
+      if (maxRes <= 0) {
+         throw new IllegalArgumentException (
+            "maxRes=" + maxRes + "; must be > 0");
+      }
+      computeFromFeatures (
+         features, marginFrac, /*TCL=*/null, maxRes, signed);
+      clearColors();
+   }
+
+   /**
+    * Creates a new sparse distance grid for a specified list of features,
+    * axis-aligned and centered on the features, with a the cell resolution
+    * along each axis given by <code>resolution</code>.
+    *
+    * @param features features used to compute the distance field
+    * @param marginFrac specifies the fractional amount that the
+    * grid should be grown in each direction to better contain the features
+    * @param resolution specfies the resolution along each of the
+    * x, y, and z axes.
+    * @param signed if <code>true</code>, indicates that the field should be
+    * signed, in which case all features must be faces.
+    */
+   public SparseDistanceGrid (
+      List<? extends Feature> features, double marginFrac, Vector3i resolution,
+      boolean signed) {
+      super();
+      setResolution (resolution);
+      computeFromFeatures (
+         features, marginFrac, /*TCL=*/null, /*maxRes=*/0, signed);
+      clearColors();
+   }
+
+   /**
+    * Creates a new sparse distance grid that is a copy of an existing grid.
+    * If the existing grid is dense, its distances are converted to sparse
+    * form as described for {@link #setVertexDistances}.
+    *
+    * @param grid distance grid to copy
+    */
+   public SparseDistanceGrid (DistanceGrid grid) {
+      super();
+      set (grid);
+   }
+
+   /**
+    * Sets this grid to be a copy of an existing grid. If the existing grid is
+    * dense, its distances are converted to sparse form as described for
+    * {@link #setVertexDistances}.
+    *
+    * @param grid distance grid to copy
+    */
+   public void set (DistanceGrid grid) {
+      if (grid instanceof SparseDistanceGrid) {
+         SparseDistanceGrid sgrid = (SparseDistanceGrid)grid;
+         super.set (grid);
+         myBandCells = sgrid.myBandCells;
+         myBandWidth = sgrid.myBandWidth;
+         myTx = sgrid.myTx;
+         myTy = sgrid.myTy;
+         myTz = sgrid.myTz;
+         myTiles = new double[sgrid.myTiles.length][];
+         for (int t=0; t<myTiles.length; t++) {
+            if (sgrid.myTiles[t] != null) {
+               myTiles[t] = Arrays.copyOf (sgrid.myTiles[t], TILE_NUMV);
+            }
+         }
+         myTileFills = Arrays.copyOf (
+            sgrid.myTileFills, sgrid.myTileFills.length);
+         myFeatureTree = sgrid.myFeatureTree;
+         myNumThreads = sgrid.myNumThreads;
+      }
+      else {
+         // copies the dense values and normals, which are then discarded
+         super.set (grid);
+         initTiles();
+         if (myValues != null) {
+            setTilesFromValues (myValues);
+         }
+         myValues = null;
+         myNormals = null;
+         myClosestFeatureIdxs = null;
+         myFeatureTree = null;
+         if (myFeatures != null) {
+            myFeatureTree = createFeatureTree (myFeatures);
+         }
+      }
+   }
+
+   /**
+    * Returns the width of the band within which distances are stored,
+    * expressed as a multiple of the maximum cell width. See {@link
+    * #setBandCells}.
+    *
+    * @return band width in cells
+    */
+   public double getBandCells() {
+      return myBandCells;
+   }
+
+   /**
+    * Sets the width of the band within which distances are stored, expressed
+    * as a multiple of the maximum cell width. Distances whose magnitude
+    * exceeds this width are clamped. The default value is 3, and the value
+    * must be at least 1. The band should be wide enough to accommodate the
+    * largest expected penetration distance. Changing this value does not
+    * affect the distances until they are next computed.
+    *
+    * @param ncells band width in cells
+    */
+   public void setBandCells (double ncells) {
+      if (ncells < 1) {
+         throw new IllegalArgumentException (
+            "band cells must be at least 1; got " + ncells);
+      }
+      myBandCells = ncells;
+   }
+
+   /**
+    * Returns the width of the band within which distances are stored, in
+    * distance units. This was determined by multiplying {@link
+    * #getBandCells} by the maximum cell width when the distances were last
+    * computed. Distance values are clamped to lie within plus or minus this
+    * width.
+    *
+    * @return band width
+    */
+   public double getBandWidth() {
+      return myBandWidth;
+   }
+
+   /**
+    * Returns the number of threads used to compute the distances.
+    *
+    * @return number of threads
+    */
+   public int getNumThreads() {
+      return myNumThreads;
+   }
+
+   /**
+    * Sets the number of threads used to compute the distances. The default
+    * value is given by {@link ParallelLoop#getDefaultNumThreads}.
+    *
+    * @param num number of threads
+    */
+   public void setNumThreads (int num) {
+      if (num < 1) {
+         throw new IllegalArgumentException (
+            "number of threads must be at least 1; got "+num);
+      }
+      myNumThreads = num;
+   }
+
+   /**
+    * Returns the total number of tiles in this grid.
+    *
+    * @return total number of tiles
+    */
+   public int numTiles() {
+      return myTiles != null ? myTiles.length : 0;
+   }
+
+   /**
+    * Returns the number of tiles for which distances are explicitly stored.
+    *
+    * @return number of allocated tiles
+    */
+   public int numAllocatedTiles() {
+      int num = 0;
+      if (myTiles != null) {
+         for (int t=0; t<myTiles.length; t++) {
+            if (myTiles[t] != null) {
+               num++;
+            }
+         }
+      }
+      return num;
+   }
+
+   /**
+    * Queries whether the distance at a vertex is explicitly stored, as
+    * opposed to being given by the value for an unallocated tile.
+    *
+    * @param xi x vertex index
+    * @param yj y vertex index
+    * @param zk z vertex index
+    * @return {@code true} if the vertex distance is explicitly stored
+    */
+   public boolean isVertexStored (int xi, int yj, int zk) {
+      return myTiles[tileIndex (xi, yj, zk)] != null;
+   }
+
+   /* --- tile storage --- */
+
+   private final int tileIndex (int xi, int yj, int zk) {
+      return ((xi >> TILE_BITS) +
+              myTx*((yj >> TILE_BITS) + myTy*(zk >> TILE_BITS)));
+   }
+
+   private static final int tileOffset (int xi, int yj, int zk) {
+      return ((xi & TILE_MASK) +
+              TILE_SIZE*((yj & TILE_MASK) + TILE_SIZE*(zk & TILE_MASK)));
+   }
+
+   private void initTiles() {
+      myTx = (myNx+TILE_MASK) >> TILE_BITS;
+      myTy = (myNy+TILE_MASK) >> TILE_BITS;
+      myTz = (myNz+TILE_MASK) >> TILE_BITS;
+      myTiles = new double[myTx*myTy*myTz][];
+      myTileFills = new double[myTiles.length];
+   }
+
+   protected void initVertexValues (int numv) {
+      myValues = null;
+      myNormals = null;
+      initTiles();
+   }
+
+   private double[] allocateTile (int tidx) {
+      double[] vals = myTiles[tidx];
+      if (vals == null) {
+         vals = new double[TILE_NUMV];
+         Arrays.fill (vals, myTileFills[tidx]);
+         myTiles[tidx] = vals;
+      }
+      return vals;
+   }
+
+   private double clipToBand (double d, double band) {
+      if (d > band) {
+         return band;
+      }
+      else if (d < -band) {
+         return -band;
+      }
+      else {
+         return d;
+      }
+   }
+
+   private double updateBandWidth() {
+      myBandWidth = myBandCells*getCellWidths().maxElement();
+      return myBandWidth;
+   }
+
+   /**
+    * Converts a dense array of vertex values into tiles. Tiles whose values
+    * all lie beyond the band on the same side are left unallocated.
+    */
+   private void setTilesFromValues (double[] values) {
+      double band = updateBandWidth();
+      for (int tz=0; tz<myTz; tz++) {
+         for (int ty=0; ty<myTy; ty++) {
+            for (int tx=0; tx<myTx; tx++) {
+               int tidx = tx + myTx*(ty + myTy*tz);
+               int x0 = tx << TILE_BITS;
+               int y0 = ty << TILE_BITS;
+               int z0 = tz << TILE_BITS;
+               int x1 = Math.min (x0+TILE_SIZE, myNx);
+               int y1 = Math.min (y0+TILE_SIZE, myNy);
+               int z1 = Math.min (z0+TILE_SIZE, myNz);
+               double min = INF;
+               double max = -INF;
+               for (int zk=z0; zk<z1; zk++) {
+                  for (int yj=y0; yj<y1; yj++) {
+                     for (int xi=x0; xi<x1; xi++) {
+                        double d = values[xyzIndicesToVertex (xi, yj, zk)];
+                        min = Math.min (min, d);
+                        max = Math.max (max, d);
+                     }
+                  }
+               }
+               myTiles[tidx] = null;
+               if (min >= band) {
+                  myTileFills[tidx] = band;
+               }
+               else if (max <= -band) {
+                  myTileFills[tidx] = -band;
+               }
+               else {
+                  myTileFills[tidx] = band;
+                  double[] vals = allocateTile (tidx);
+                  for (int zk=z0; zk<z1; zk++) {
+                     for (int yj=y0; yj<y1; yj++) {
+                        for (int xi=x0; xi<x1; xi++) {
+                           double d = values[xyzIndicesToVertex (xi, yj, zk)];
+                           vals[tileOffset (xi, yj, zk)] =
+                              clipToBand (d, band);
+                        }
+                     }
+                  }
+               }
+            }
+         }
+      }
+   }
+
+   /* --- vertex value access --- */
+
+   protected double getVertexValue (int vi) {
+      int numv = numVertices();
+      if (vi < 0 || vi >= numv) {
+         throw new IndexOutOfBoundsException (
+            "index is "+vi+", number of vertices is "+numv);
+      }
+      int xi = vi%myNx;
+      int yj = (vi/myNx)%myNy;
+      int zk = vi/myNxNy;
+      return getVertexValue (xi, yj, zk);
+   }
+
+   protected double getVertexValue (Vector3i vxyz) {
+      return getVertexValue (vxyz.x, vxyz.y, vxyz.z);
+   }
+
+   protected double getVertexValue (int xi, int yj, int zk) {
+      int tidx = tileIndex (xi, yj, zk);
+      double[] vals = myTiles[tidx];
+      if (vals == null) {
+         return myTileFills[tidx];
+      }
+      else {
+         return vals[tileOffset (xi, yj, zk)];
+      }
+   }
+
+   protected void setVertexValue (int vi, double value) {
+      int numv = numVertices();
+      if (vi < 0 || vi >= numv) {
+         throw new IndexOutOfBoundsException (
+            "index is "+vi+", number of vertices is "+numv);
+      }
+      setVertexValue (vi%myNx, (vi/myNx)%myNy, vi/myNxNy, value);
+   }
+
+   /**
+    * Sets the value for the vertex indexed by its x, y, z indices. If the
+    * vertex lies in an unallocated tile, the tile is allocated.
+    *
+    * @param xi x vertex index
+    * @param yj y vertex index
+    * @param zk z vertex index
+    * @param value new value for the vertex
+    */
+   public void setVertexValue (int xi, int yj, int zk, double value) {
+      double[] vals = allocateTile (tileIndex (xi, yj, zk));
+      vals[tileOffset (xi, yj, zk)] = value;
+      myQuadCoefs = null;
+      myRobValid = false;
+   }
+
+   /**
+    * {@inheritDoc}
+    *
+    * <p>The values are converted to sparse form: tiles whose values all lie
+    * beyond the band (see {@link #getBandWidth}) on the same side are left
+    * unallocated, and all values are clamped to the band.
+    */
+   protected void setVertexValues (double[] values) {
+      int numv = numVertices();
+      if (values.length < numv) {
+         throw new IllegalArgumentException (
+            "values.length=" + values.length +
+            "; must be >= num vertices ("+numv+")");
+      }
+      setTilesFromValues (values);
+      myRobValid = false;
+   }
+
+   /**
+    * Returns a dense array of the values at each vertex. Since this grid does
+    * not store a dense array, the returned array is newly allocated and
+    * changes to it do not affect the grid.
+    *
+    * @return array of vertex values.
+    */
+   protected double[] getVertexValues() {
+      int numv = numVertices();
+      double[] values = new double[numv];
+      for (int vi=0; vi<numv; vi++) {
+         values[vi] = getVertexValue (vi);
+      }
+      return values;
+   }
+
+   protected void zeroVertexValues () {
+      if (myTiles != null) {
+         Arrays.fill (myTiles, null);
+         Arrays.fill (myTileFills, 0);
+         myRobValid = false;
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    *
+    * <p>Since the grid is sparse, the returned array is newly allocated and
+    * changes to it do not affect the grid.
+    */
+   public double[] getVertexDistances() {
+      return getVertexValues();
+   }
+
+   /**
+    * {@inheritDoc}
+    *
+    * <p>The distances are converted to sparse form: tiles whose values all
+    * lie beyond the band (see {@link #getBandWidth}) on the same side are left
+    * unallocated, and all values are clamped to the band.
+    */
+   public void setVertexDistances (double[] distances, boolean signed) {
+      super.setVertexDistances (distances, signed);
+   }
+
+   /**
+    * Not supported for sparse grids, since closest features are not stored
+    * for each vertex.
+    *
+    * @throws UnsupportedOperationException
+    */
+   public void setDistancesAndFeatures (
+      double[] distances,
+      List<? extends Feature> features, int[] closestFeatures, boolean signed) {
+      throw new UnsupportedOperationException (
+         "Not supported by SparseDistanceGrid");
+   }
+
+   /**
+    * Returns the normal at a vertex, as specified by its x, y, z indices. The
+    * normal is computed on demand by mid-point differencing of the distance
+    * values at adjacent vertices, and is zero if the vertex and its neighbours
+    * all lie beyond the band.
+    *
+    * @param xi x vertex index
+    * @param yj y vertex index
+    * @param zk z vertex index
+    * @return normal at the vertex
+    */
+   protected Vector3d getLocalVertexNormal (int xi, int yj, int zk) {
+      Vector3d nrm = new Vector3d();
+      int lo, hi;
+      lo = Math.max (xi-1, 0);
+      hi = Math.min (xi+1, myNx-1);
+      nrm.x = (getVertexValue (hi, yj, zk)-getVertexValue (lo, yj, zk))/(hi-lo);
+      lo = Math.max (yj-1, 0);
+      hi = Math.min (yj+1, myNy-1);
+      nrm.y = (getVertexValue (xi, hi, zk)-getVertexValue (xi, lo, zk))/(hi-lo);
+      lo = Math.max (zk-1, 0);
+      hi = Math.min (zk+1, myNz-1);
+      nrm.z = (getVertexValue (xi, yj, hi)-getVertexValue (xi, yj, lo))/(hi-lo);
+      myGridToLocal.transformCovec (nrm, nrm);
+      double mag = nrm.norm();
+      if (mag > 0) {
+         nrm.scale (1/mag);
+      }
+      return nrm;
+   }
+
+   /**
+    * Quadratic coefficients are always computed on demand, since storing
+    * them would require dense storage.
+    */
+   protected boolean storesQuadCoefs() {
+      return false;
+   }
+
+   /* --- distance computation --- */
+
+   private BVTree createFeatureTree (Feature[] features) {
+      AABBTree tree = new AABBTree();
+      tree.build (features, features.length);
+      return tree;
+   }
+
+   /**
+    * Marks the tiles containing vertices that lie within the band of at least
+    * one feature.
+    */
+   private boolean[] markBandTiles (Feature[] features, double band) {
+      boolean[] marked = new boolean[myTx*myTy*myTz];
+      Vector3d cw = getCellWidths();
+      Point3d gpnt = new Point3d();
+      Point3d min = new Point3d();
+      Point3d max = new Point3d();
+      Vector3i lo = new Vector3i();
+      Vector3i hi = new Vector3i();
+      for (Feature feat : features) {
+         min.set (INF, INF, INF);
+         max.set (-INF, -INF, -INF);
+         for (int i=0; i<feat.numPoints(); i++) {
+            myGridToLocal.inverseTransformPnt (gpnt, feat.getPoint(i));
+            gpnt.updateBounds (min, max);
+         }
+         lo.x = Math.max ((int)Math.ceil (min.x - band/cw.x), 0);
+         lo.y = Math.max ((int)Math.ceil (min.y - band/cw.y), 0);
+         lo.z = Math.max ((int)Math.ceil (min.z - band/cw.z), 0);
+         hi.x = Math.min ((int)Math.floor (max.x + band/cw.x), myNx-1);
+         hi.y = Math.min ((int)Math.floor (max.y + band/cw.y), myNy-1);
+         hi.z = Math.min ((int)Math.floor (max.z + band/cw.z), myNz-1);
+         if (lo.x > hi.x || lo.y > hi.y || lo.z > hi.z) {
+            continue;
+         }
+         for (int tz=(lo.z>>TILE_BITS); tz<=(hi.z>>TILE_BITS); tz++) {
+            for (int ty=(lo.y>>TILE_BITS); ty<=(hi.y>>TILE_BITS); ty++) {
+               for (int tx=(lo.x>>TILE_BITS); tx<=(hi.x>>TILE_BITS); tx++) {
+                  marked[tx + myTx*(ty + myTy*tz)] = true;
+               }
+            }
+         }
+      }
+      return marked;
+   }
+
+   private double computeDistance (
+      BVFeatureQuery query, BVTree tree, Point3d pnt, Point3d near,
+      boolean signed) {
+
+      double d;
+      if (signed) {
+         boolean inside = query.isInsideOrientedMesh (tree, pnt, -1);
+         if (query.getFaceForInsideOrientedTest (near, null) == null) {
+            // point was outside the tree, so nearest face was not computed
+            query.nearestFaceToPoint (near, null, tree, pnt);
+         }
+         d = near.distance (pnt);
+         if (inside) {
+            d = -d;
+         }
+      }
+      else {
+         query.nearestFeatureToPoint (near, tree, pnt);
+         d = near.distance (pnt);
+      }
+      return d;
+   }
+
+   /**
+    * Computes the distances for the tiles lying within the band of a set of
+    * features, and sets the values for the remaining tiles. {@code tree}
+    * is a bounding volume hierarchy built for the features.
+    */
+   private void computeTiles (
+      final double[][] tiles, double[] fills, Feature[] features,
+      final BVTree tree, final boolean signed) {
+
+      final double band = myBandWidth;
+      Arrays.fill (tiles, null);
+      Arrays.fill (fills, band);
+      if (features.length == 0) {
+         return;
+      }
+      for (Feature feat : features) {
+         if (feat instanceof Face) {
+            // make sure face normals are computed before the parallel loop
+            ((Face)feat).getNormal();
+         }
+         else if (signed) {
+            throw new IllegalArgumentException (
+               "Signed distances can only be computed for faces");
+         }
+      }
+      boolean[] marked = markBandTiles (features, band);
+      int num = 0;
+      for (int t=0; t<marked.length; t++) {
+         if (marked[t]) {
+            num++;
+         }
+      }
+      final int[] tidxs = new int[num];
+      num = 0;
+      for (int t=0; t<marked.length; t++) {
+         if (marked[t]) {
+            tidxs[num++] = t;
+         }
+      }
+      ParallelLoop loop =
+         new ParallelLoop ("SparseDistanceGrid", myNumThreads);
+      try {
+         loop.run (tidxs.length, new ParallelLoop.RangeTask() {
+               public void run (int tidx, int lo, int hi) {
+                  BVFeatureQuery query = new BVFeatureQuery();
+                  Point3d pnt = new Point3d();
+                  Point3d near = new Point3d();
+                  for (int k=lo; k<hi; k++) {
+                     int t = tidxs[k];
+                     int x0 = (t%myTx) << TILE_BITS;
+                     int y0 = ((t/myTx)%myTy) << TILE_BITS;
+                     int z0 = (t/(myTx*myTy)) << TILE_BITS;
+                     int x1 = Math.min (x0+TILE_SIZE, myNx);
+                     int y1 = Math.min (y0+TILE_SIZE, myNy);
+                     int z1 = Math.min (z0+TILE_SIZE, myNz);
+                     // vertices beyond the grid boundary are left at band
+                     double[] vals = new double[TILE_NUMV];
+                     Arrays.fill (vals, band);
+                     for (int zk=z0; zk<z1; zk++) {
+                        for (int yj=y0; yj<y1; yj++) {
+                           for (int xi=x0; xi<x1; xi++) {
+                              pnt.set (xi, yj, zk);
+                              myGridToLocal.transformPnt (pnt, pnt);
+                              double d = computeDistance (
+                                 query, tree, pnt, near, signed);
+                              vals[tileOffset(xi,yj,zk)] = clipToBand (d, band);
+                           }
+                        }
+                     }
+                     tiles[t] = vals;
+                  }
+               }
+            });
+      }
+      finally {
+         loop.dispose();
+      }
+      if (signed) {
+         computeFillSigns (tiles, fills, band);
+      }
+   }
+
+   /**
+    * Returns the distance at the vertex of tile {@code t} that is adjacent to
+    * tile {@code tn}, where {@code tn} is displaced from {@code t} by one
+    * tile along the axis {@code axis} in the direction {@code dir}.
+    */
+   private double adjacentTileValue (
+      double[][] tiles, int t, int axis, int dir) {
+      int x = 0, y = 0, z = 0;
+      if (dir < 0) {
+         // adjacent vertex is on the max side of t
+         if (axis == 0) {
+            x = TILE_MASK;
+         }
+         else if (axis == 1) {
+            y = TILE_MASK;
+         }
+         else {
+            z = TILE_MASK;
+         }
+      }
+      return tiles[t][x + TILE_SIZE*(y + TILE_SIZE*z)];
+   }
+
+   /**
+    * Determines the sign of the unallocated tiles. Each connected region of
+    * unallocated tiles lies entirely inside or outside the surface, since the
+    * band is at least one cell wide, and so its sign can be determined from
+    * that of a vertex in an adjacent allocated tile.
+    */
+   private void computeFillSigns (
+      double[][] tiles, double[] fills, double band) {
+
+      int ntiles = tiles.length;
+      boolean[] visited = new boolean[ntiles];
+      int[] queue = new int[ntiles];
+      int[] tcoords = new int[3];
+      int[] tsizes = new int[] { myTx, myTy, myTz };
+      int[] tstrides = new int[] { 1, myTx, myTx*myTy };
+      for (int t0=0; t0<ntiles; t0++) {
+         if (tiles[t0] != null || visited[t0]) {
+            continue;
+         }
+         // breadth first search of the region containing t0
+         int head = 0;
+         int tail = 0;
+         queue[tail++] = t0;
+         visited[t0] = true;
+         double sign = 0;
+         while (head < tail) {
+            int t = queue[head++];
+            tcoords[0] = t%myTx;
+            tcoords[1] = (t/myTx)%myTy;
+            tcoords[2] = t/(myTx*myTy);
+            for (int axis=0; axis<3; axis++) {
+               for (int dir=-1; dir<=1; dir+=2) {
+                  int c = tcoords[axis]+dir;
+                  if (c < 0 || c >= tsizes[axis]) {
+                     continue;
+                  }
+                  int tn = t + dir*tstrides[axis];
+                  if (tiles[tn] != null) {
+                     if (sign == 0) {
+                        sign = Math.signum (
+                           adjacentTileValue (tiles, tn, axis, -dir));
+                     }
+                  }
+                  else if (!visited[tn]) {
+                     visited[tn] = true;
+                     queue[tail++] = tn;
+                  }
+               }
+            }
+         }
+         double fill = (sign < 0 ? -band : band);
+         for (int k=0; k<tail; k++) {
+            fills[queue[k]] = fill;
+         }
+      }
+   }
+
+   void calculatePhi (List<? extends Feature> features, boolean signed) {
+      Feature[] featArray = features.toArray(new Feature[0]);
+      updateBandWidth();
+      BVTree tree = createFeatureTree (featArray);
+      computeTiles (myTiles, myTileFills, featArray, tree, signed);
+      myQuadCoefs = null;
+      myTetIsOutside = null;
+      myClosestFeatureIdxs = null;
+      myFeatures = featArray;
+      myFeatureTree = tree;
+      mySignedP = signed;
+      myRobValid = false;
+   }
+
+   void calculatePhi (PolygonalMesh mesh, boolean signed) {
+      calculatePhi (mesh.getFaces(), signed);
+   }
+
+   /**
+    * Sets the tile data directly, as when the grid is restored from a {@link
+    * GeometryCache}. The arrays are used without copying and must be
+    * consistent with the current resolution.
+    */
+   void setTiles (
+      double[][] tiles, double[] fills, double bandCells, double bandWidth,
+      Feature[] features, boolean signed) {
+      if (tiles.length != myTx*myTy*myTz || fills.length != tiles.length) {
+         throw new IllegalArgumentException (
+            "number of tiles is "+tiles.length+", expected "+myTx*myTy*myTz);
+      }
+      myTiles = tiles;
+      myTileFills = fills;
+      myBandCells = bandCells;
+      myBandWidth = bandWidth;
+      myQuadCoefs = null;
+      myTetIsOutside = null;
+      myClosestFeatureIdxs = null;
+      myFeatures = features;
+      myFeatureTree = (features != null ? createFeatureTree (features) : null);
+      mySignedP = signed;
+      myRobValid = false;
+   }
+
+   private double combine (int op, double d0, double d1) {
+      switch (op) {
+         case UNION: {
+            return Math.min (d0, d1);
+         }
+         case INTERSECTION: {
+            return Math.max (d0, d1);
+         }
+         case DIFFERENCE01: {
+            return Math.max (d0, -d1);
+         }
+         case DIFFERENCE10: {
+            return Math.max (-d0, d1);
+         }
+         default: {
+            throw new IllegalArgumentException ("unknown operation " + op);
+         }
+      }
+   }
+
+   /**
+    * Combines the distances of this grid with the signed distances for
+    * another mesh, one tile at a time. Since the surface of the result is
+    * contained within the surfaces of the inputs, the tiles within the band
+    * of the result are all allocated.
+    */
+   private void combineWithMesh (PolygonalMesh mesh, int op) {
+      if (myBandWidth == 0) {
+         updateBandWidth();
+      }
+      int ntiles = myTiles.length;
+      double[][] tiles = new double[ntiles][];
+      double[] fills = new double[ntiles];
+      Feature[] faces = mesh.getFaces().toArray (new Feature[0]);
+      computeTiles (
+         tiles, fills, faces, createFeatureTree (faces), /*signed=*/true);
+      for (int t=0; t<ntiles; t++) {
+         double[] vals0 = myTiles[t];
+         double[] vals1 = tiles[t];
+         if (vals0 == null && vals1 == null) {
+            myTileFills[t] = combine (op, myTileFills[t], fills[t]);
+         }
+         else {
+            vals0 = allocateTile (t);
+            for (int i=0; i<TILE_NUMV; i++) {
+               double d1 = (vals1 != null ? vals1[i] : fills[t]);
+               vals0[i] = combine (op, vals0[i], d1);
+            }
+         }
+      }
+      myQuadCoefs = null;
+      myTetIsOutside = null;
+      myFeatures = null;
+      myFeatureTree = null;
+      mySignedP = true;
+      myRobValid = false;
+   }
+
+   public void computeUnion (PolygonalMesh mesh) {
+      combineWithMesh (mesh, UNION);
+   }
+
+   public void computeIntersection (PolygonalMesh mesh) {
+      combineWithMesh (mesh, INTERSECTION);
+   }
+
+   public void computeDifference01 (PolygonalMesh mesh) {
+      combineWithMesh (mesh, DIFFERENCE01);
+   }
+
+   public void computeDifference10 (PolygonalMesh mesh) {
+      combineWithMesh (mesh, DIFFERENCE10);
+   }
+
+   /* --- features --- */
+
+   /**
+    * Determines nearest feature to an arbitray point in local coordinates.
+    * Since nearest features are not stored for each vertex, this is
+    * determined by a query on a bounding volume hierarchy. If the grid is not
+    * associated with features (i.e., {@link #getFeatures} returns
+    * <code>null</code>), or if the point lies outside the grid,
+    * <code>null</code> is returned.
+    *
+    * @param nearest returns the nearest point on the feature (local
+    * coordinates)
+    * @param point point for which to find nearest feature (local coordinates)
+    * @return nearest feature, or null if outside of domain or if
+    * no features are set.
+    */
+   public Feature getNearestLocalFeature (Point3d nearest, Point3d point) {
+      if (myFeatureTree == null ||
+          !getCellCoords (new Vector3i(), null, point)) {
+         return null;
+      }
+      BVFeatureQuery query = new BVFeatureQuery();
+      return query.nearestFeatureToPoint (nearest, myFeatureTree, point);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public Feature getClosestFeature (int idx) {
+      if (myFeatureTree == null) {
+         return null;
+      }
+      Point3d pnt = new Point3d();
+      getLocalVertexCoords (pnt, idx);
+      BVFeatureQuery query = new BVFeatureQuery();
+      return query.nearestFeatureToPoint (null, myFeatureTree, pnt);
+   }
+
+   public void clearFeatures() {
+      super.clearFeatures();
+      myFeatureTree = null;
+   }
+
+   /* --- operations requiring dense storage --- */
+
+   /**
+    * Not supported for sparse grids.
+    *
+    * @throws UnsupportedOperationException
+    */
+   public void smooth (int n) {
+      throw new UnsupportedOperationException (
+         "Not supported by SparseDistanceGrid");
+   }
+
+   /**
+    * Not supported for sparse grids.
+    *
+    * @throws UnsupportedOperationException
+    */
+   public void smooth (double lambda, double mu) {
+      throw new UnsupportedOperationException (
+         "Not supported by SparseDistanceGrid");
+   }
+
+   /**
+    * Not supported for sparse grids.
+    *
+    * @throws UnsupportedOperationException
+    */
+   public void smooth (double lambda, double mu, int iters) {
+      throw new UnsupportedOperationException (
+         "Not supported by SparseDistanceGrid");
+   }
+
+   /**
+    * Not supported for sparse grids.
+    *
+    * @throws UnsupportedOperationException
+    */
+   public void smooth () {
+      throw new UnsupportedOperationException (
+         "Not supported by SparseDistanceGrid");
+   }
+
+   /**
+    * {@inheritDoc}
+    *
+    * <p>For sparse grids, this method allocates a temporary dense array of
+    * the vertex distances.
+    */
+   public PolygonalMesh createDistanceSurface (double val) {
+      MarchingTetrahedra marcher = new MarchingTetrahedra();
+      PolygonalMesh mesh = marcher.createMesh (
+         getVertexValues(), Vector3d.ZERO, new Vector3d(1,1,1),
+         getResolution(), val);
+      mesh.transform (myGridToLocal);
+      return mesh;
+   }
+
+   /* --- scaling and I/O --- */
+
+   public void scaleDistance (double s) {
+      super.scaleDistance (s);
+      for (int t=0; t<myTiles.length; t++) {
+         double[] vals = myTiles[t];
+         if (vals != null) {
+            for (int i=0; i<TILE_NUMV; i++) {
+               vals[i] *= s;
+            }
+         }
+         myTileFills[t] *= s;
+      }
+      myBandWidth *= s;
+   }
+
+   /**
+    * {@inheritDoc}
+    *
+    * <p>The vertex values are read in dense form and then converted to
+    * sparse form as described for {@link #setVertexDistances}.
+    */
+   public void scan (ReaderTokenizer rtok, Object ref) throws IOException {
+      super.scan (rtok, ref);
+      if (myValues != null) {
+         setTilesFromValues (myValues);
+         myValues = null;
+      }
+   }
+
+   /**
+    * Returns <code>true</code> if this grid equals another within a
+    * prescribed tolerance. Unlike the comparison for dense grids, the band
+    * width is also compared.
+    *
+    * @param grid grid to compare against
+    * @param tol floating point tolerance (absolute)
+    */
+   public boolean epsilonEquals (DistanceGrid grid, double tol) {
+      if (!super.epsilonEquals (grid, tol)) {
+         return false;
+      }
+      if (grid instanceof SparseDistanceGrid) {
+         double band = ((SparseDistanceGrid)grid).myBandWidth;
+         if (Math.abs (band-myBandWidth) > tol) {
+            return false;
+         }
+      }
+      return true;
+   }
+}
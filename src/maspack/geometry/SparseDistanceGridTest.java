@@ -0,0 +1,289 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.geometry;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import maspack.matrix.Matrix3d;
+import maspack.matrix.Point3d;
+import maspack.matrix.RigidTransform3d;
+import maspack.matrix.Vector3d;
+import maspack.matrix.Vector3i;
+import maspack.util.IndentingPrintWriter;
+import maspack.util.NumberFormat;
+import maspack.util.RandomGenerator;
+import maspack.util.ReaderTokenizer;
+import maspack.util.TestException;
+import maspack.util.UnitTest;
+
+/**
+ * Tests SparseDistanceGrid against a dense DistanceGrid whose distances are
+ * computed by brute force.
+ */
+public class SparseDistanceGridTest extends UnitTest {
+
+   static final double EPS = 1e-10;
+
+   /**
+    * Creates a dense grid with the same geometry as {@code sgrid}, with
+    * signed distances to {@code mesh} computed at every vertex.
+    */
+   DistanceGrid createDenseGrid (
+      SparseDistanceGrid sgrid, PolygonalMesh mesh) {
+
+      DistanceGrid grid = new DistanceGrid (
+         sgrid.getWidths(), sgrid.getResolution(),
+         sgrid.getCenterAndOrientation());
+      int numv = grid.numVertices();
+      double[] dists = new double[numv];
+      Point3d pnt = new Point3d();
+      Point3d near = new Point3d();
+      for (int vi=0; vi<numv; vi++) {
+         grid.getLocalVertexCoords (pnt, vi);
+         BVFeatureQuery.getNearestFaceToPoint (near, null, mesh, pnt);
+         double d = near.distance (pnt);
+         if (BVFeatureQuery.isInsideOrientedMesh (mesh, pnt)) {
+            d = -d;
+         }
+         dists[vi] = d;
+      }
+      grid.setVertexDistances (dists, /*signed=*/true);
+      return grid;
+   }
+
+   void checkVertexDistances (
+      SparseDistanceGrid sgrid, DistanceGrid grid, String msg) {
+
+      double band = sgrid.getBandWidth();
+      for (int vi=0; vi<grid.numVertices(); vi++) {
+         double d = grid.getVertexDistance (vi);
+         double s = sgrid.getVertexDistance (vi);
+         double chk;
+         if (d >= band) {
+            chk = band;
+         }
+         else if (d <= -band) {
+            chk = -band;
+         }
+         else {
+            chk = d;
+         }
+         if (Math.abs(d) < EPS) {
+            // sign may differ for points on the surface
+            s = Math.abs(s);
+            chk = Math.abs(chk);
+         }
+         if (Math.abs(s-chk) > EPS) {
+            Vector3i vxyz = new Vector3i();
+            grid.vertexToXyzIndices (vxyz, vi);
+            throw new TestException (
+               msg + ": distance at vertex " + vxyz + " is " + s +
+               ", expected " + chk);
+         }
+      }
+   }
+
+   void checkQueries (
+      SparseDistanceGrid sgrid, DistanceGrid grid, int npnts) {
+
+      // queries should agree for points close enough to the surface that
+      // all the vertices involved lie within the band
+      double maxDist =
+         sgrid.getBandWidth() - 6*grid.getCellWidths().maxElement();
+      if (maxDist <= 0) {
+         throw new TestException ("band is too narrow for query test");
+      }
+      Vector3d widths = grid.getWidths();
+      RigidTransform3d TCL = grid.getCenterAndOrientation();
+      Vector3d nrm = new Vector3d();
+      Vector3d chkNrm = new Vector3d();
+      Matrix3d Dnrm = new Matrix3d();
+      Matrix3d chkDnrm = new Matrix3d();
+      Vector3d grad = new Vector3d();
+      Vector3d chkGrad = new Vector3d();
+      int ntested = 0;
+      for (int i=0; i<npnts; i++) {
+         Point3d q = new Point3d (
+            RandomGenerator.nextDouble (-0.5*widths.x, 0.5*widths.x),
+            RandomGenerator.nextDouble (-0.5*widths.y, 0.5*widths.y),
+            RandomGenerator.nextDouble (-0.5*widths.z, 0.5*widths.z));
+         q.transform (TCL);
+         double chk = grid.getLocalDistance (q);
+         if (Math.abs(chk) > maxDist) {
+            continue;
+         }
+         checkEquals ("distance", sgrid.getLocalDistance(q), chk, EPS);
+
+         double d = sgrid.getLocalDistanceAndNormal (nrm, Dnrm, q);
+         chk = grid.getLocalDistanceAndNormal (chkNrm, chkDnrm, q);
+         checkEquals ("distance with normal", d, chk, EPS);
+         checkEquals ("normal", nrm, chkNrm, EPS);
+         checkEquals ("normal derivative", Dnrm, chkDnrm, EPS);
+
+         Point3d qw = new Point3d (q);
+         grid.getLocalToWorldTransformer().transformPnt (qw, qw);
+         d = sgrid.getWorldDistanceAndGradient (grad, qw);
+         chk = grid.getWorldDistanceAndGradient (chkGrad, qw);
+         checkEquals ("distance with gradient", d, chk, EPS);
+         checkEquals ("gradient", grad, chkGrad, EPS);
+
+         d = sgrid.getQuadDistanceAndGradient (grad, Dnrm, q);
+         chk = grid.getQuadDistanceAndGradient (chkGrad, chkDnrm, q);
+         checkEquals ("quad distance", d, chk, EPS);
+         checkEquals ("quad gradient", grad, chkGrad, EPS);
+         checkEquals ("quad hessian", Dnrm, chkDnrm, EPS);
+         ntested++;
+      }
+      if (ntested < npnts/20) {
+         throw new TestException (
+            "only "+ntested+" of "+npnts+" points were within the band");
+      }
+   }
+
+   void testMesh (
+      PolygonalMesh mesh, int maxRes, RigidTransform3d TLW) {
+
+      SparseDistanceGrid sgrid = new SparseDistanceGrid (new Vector3i(1,1,1));
+      sgrid.setBandCells (8);
+      sgrid.setNumThreads (1);
+      sgrid.computeFromMesh (
+         mesh, /*marginFrac=*/0.1, /*TCL=*/null, maxRes, /*signed=*/true);
+      if (TLW != null) {
+         sgrid.setLocalToWorld (TLW);
+      }
+      DistanceGrid grid = createDenseGrid (sgrid, mesh);
+      if (TLW != null) {
+         grid.setLocalToWorld (TLW);
+      }
+      checkVertexDistances (sgrid, grid, "computeFromMesh");
+      checkQueries (sgrid, grid, 2000);
+
+      // results should not depend on the number of threads
+      SparseDistanceGrid pgrid = new SparseDistanceGrid (new Vector3i(1,1,1));
+      pgrid.setBandCells (8);
+      pgrid.setNumThreads (3);
+      pgrid.computeFromMesh (
+         mesh, /*marginFrac=*/0.1, /*TCL=*/null, maxRes, /*signed=*/true);
+      if (TLW != null) {
+         pgrid.setLocalToWorld (TLW);
+      }
+      if (!pgrid.epsilonEquals (sgrid, 0)) {
+         throw new TestException ("multi-threaded build differs");
+      }
+
+      // converting the dense grid should give the same result
+      SparseDistanceGrid cgrid = new SparseDistanceGrid (new Vector3i(1,1,1));
+      cgrid.setBandCells (8);
+      cgrid.set (grid);
+      checkVertexDistances (cgrid, grid, "dense conversion");
+
+      testScanWrite (sgrid);
+   }
+
+   void testScanWrite (SparseDistanceGrid sgrid) {
+      StringWriter sw = new StringWriter();
+      IndentingPrintWriter pw = new IndentingPrintWriter (sw);
+      SparseDistanceGrid newGrid = new SparseDistanceGrid();
+      DistanceGrid denseGrid = new DistanceGrid();
+      newGrid.setBandCells (sgrid.getBandCells());
+      try {
+         sgrid.write (pw, new NumberFormat ("%.17g"), null);
+         newGrid.scan (
+            new ReaderTokenizer (new StringReader (sw.toString())), null);
+         denseGrid.scan (
+            new ReaderTokenizer (new StringReader (sw.toString())), null);
+      }
+      catch (Exception e) {
+         e.printStackTrace();
+         throw new TestException ("exception during write/scan test");
+      }
+      if (!newGrid.epsilonEquals (sgrid, 0)) {
+         throw new TestException ("sparse write/scan test failed");
+      }
+      if (!denseGrid.epsilonEquals (sgrid, 0)) {
+         throw new TestException ("dense write/scan test failed");
+      }
+      // scanned tiles are dropped if all their values lie beyond the band,
+      // so the scanned grid may be slightly sparser
+      if (newGrid.numAllocatedTiles() > sgrid.numAllocatedTiles()) {
+         throw new TestException (
+            "scanned grid has "+newGrid.numAllocatedTiles()+
+            " allocated tiles, expected at most "+sgrid.numAllocatedTiles());
+      }
+   }
+
+   void testSparsity() {
+      // at high resolution, only tiles near the surface should be allocated
+      PolygonalMesh sphere = MeshFactory.createIcosahedralSphere (1.0, 3);
+      SparseDistanceGrid sgrid =
+         new SparseDistanceGrid (sphere.getFaces(), 0.1, 160, true);
+      int nalloc = sgrid.numAllocatedTiles();
+      if (nalloc > sgrid.numTiles()/3) {
+         throw new TestException (
+            "sphere allocated "+nalloc+" of "+sgrid.numTiles()+" tiles");
+      }
+      // points far from the surface are clamped to the band
+      Point3d pnt = new Point3d (0, 0, 0);
+      checkEquals (
+         "clamped inside distance", sgrid.getLocalDistance (pnt),
+         -sgrid.getBandWidth(), 1e-12);
+      pnt.set (1.08, 0, 0);
+      checkEquals (
+         "clamped outside distance", sgrid.getLocalDistance (pnt),
+         sgrid.getBandWidth(), 1e-12);
+
+      // distances and normals for a thin plate
+      PolygonalMesh plate = MeshFactory.createBox (2.0, 1.0, 0.02);
+      sgrid = new SparseDistanceGrid (plate.getFaces(), 0.1, 200, true);
+      pnt.set (0.1, 0.2, 0.005);
+      Vector3d nrm = new Vector3d();
+      double d = sgrid.getLocalDistanceAndNormal (nrm, pnt);
+      checkEquals ("plate distance", d, -0.005, 1e-8);
+      checkEquals ("plate normal", nrm, new Vector3d (0, 0, 1), 1e-8);
+   }
+
+   void testUnion() {
+      PolygonalMesh sphere0 = MeshFactory.createIcosahedralSphere (0.6, 2);
+      PolygonalMesh sphere1 = MeshFactory.createIcosahedralSphere (0.6, 2);
+      sphere0.transform (new RigidTransform3d (-0.3, 0, 0));
+      sphere1.transform (new RigidTransform3d (0.3, 0.1, 0));
+      PolygonalMesh both = sphere0.copy();
+      both.addMesh (sphere1);
+
+      SparseDistanceGrid sgrid = new SparseDistanceGrid (new Vector3i(1,1,1));
+      sgrid.fitToFeatures (both.getFaces(), 0.1, null, 30);
+      sgrid.computeDistances (sphere0, /*signed=*/true);
+      sgrid.computeUnion (sphere1);
+
+      DistanceGrid grid0 = createDenseGrid (sgrid, sphere0);
+      DistanceGrid grid1 = createDenseGrid (sgrid, sphere1);
+      double[] dists = new double[grid0.numVertices()];
+      for (int vi=0; vi<dists.length; vi++) {
+         dists[vi] = Math.min (
+            grid0.getVertexDistance(vi), grid1.getVertexDistance(vi));
+      }
+      grid0.setVertexDistances (dists, /*signed=*/true);
+      checkVertexDistances (sgrid, grid0, "union");
+   }
+
+   public void test() {
+      RandomGenerator.setSeed (0x1234);
+      PolygonalMesh torus = MeshFactory.createTorus (1.0, 0.5, 24, 24);
+      testMesh (torus, 40, null);
+      RigidTransform3d TLW = new RigidTransform3d();
+      TLW.setRandom();
+      testMesh (MeshFactory.createIcosahedralSphere (1.0, 3), 36, TLW);
+      testSparsity();
+      testUnion();
+   }
+
+   public static void main (String[] args) {
+      SparseDistanceGridTest tester = new SparseDistanceGridTest();
+      tester.runtest();
+   }
+}
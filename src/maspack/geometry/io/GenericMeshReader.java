@@ -5,7 +5,9 @@ import java.io.IOException;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 
+import maspack.geometry.IndexedTriangleMesh;
 import maspack.geometry.MeshBase;
+import maspack.geometry.PolygonalMesh;
 import maspack.geometry.io.MeshWriter.DataFormat;
 import maspack.geometry.io.MeshWriter.FloatType;
 import maspack.util.ClassFinder;
@@ -145,6 +147,33 @@ public class GenericMeshReader implements MeshReader {
       return newMesh;
    }
 
+   /**
+    * Reads an indexed triangle mesh. If the underlying reader implements
+    * {@link IndexedMeshReader}, the mesh is read directly. Otherwise, a
+    * PolygonalMesh is read and then converted.
+    *
+    * @return mesh that was read
+    * @throws IOException if an I/O or format error occurred
+    */
+   public IndexedTriangleMesh readIndexedMesh () throws IOException {
+      if (myReader instanceof IndexedMeshReader) {
+         IndexedTriangleMesh mesh =
+            ((IndexedMeshReader)myReader).readIndexedMesh();
+         if (myReader instanceof StlReader) {
+            myDataFormat = ((StlReader)myReader).getDataFormat();
+            myFloatType = FloatType.FLOAT;
+         }
+         return mesh;
+      }
+      MeshBase mesh = readMesh ((MeshBase)null);
+      if (!(mesh instanceof PolygonalMesh)) {
+         throw new UnsupportedOperationException (
+            "Mesh type "+mesh.getClass()+" cannot be converted to an "+
+            "indexed triangle mesh");
+      }
+      return new IndexedTriangleMesh ((PolygonalMesh)mesh);
+   }
+
    public void close() {
       myReader.close();
    }
@@ -183,4 +212,20 @@ public class GenericMeshReader implements MeshReader {
       return reader.readMesh (mesh); 
    }
 
+   public static IndexedTriangleMesh readIndexedMesh (String fileName)
+      throws IOException {
+      return readIndexedMesh (new File(fileName));
+   }
+
+   public static IndexedTriangleMesh readIndexedMesh (File file)
+      throws IOException {
+      GenericMeshReader reader = new GenericMeshReader (file);
+      try {
+         return reader.readIndexedMesh();
+      }
+      finally {
+         reader.close();
+      }
+   }
+
 }
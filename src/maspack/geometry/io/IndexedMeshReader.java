@@ -0,0 +1,30 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.geometry.io;
+
+import java.io.IOException;
+
+import maspack.geometry.IndexedTriangleMesh;
+
+/**
+ * Implemented by mesh readers that can read a triangle mesh directly into an
+ * {@link IndexedTriangleMesh}, without first creating a PolygonalMesh. Readers
+ * created by a {@link MeshReaderFactory} may also implement this interface,
+ * in which case {@link GenericMeshReader#readIndexedMesh} will use it.
+ */
+public interface IndexedMeshReader {
+
+   /**
+    * Reads an indexed triangle mesh. Polygonal faces with more than three
+    * vertices are triangulated.
+    *
+    * @return mesh that was read
+    * @throws IOException if an I/O or format error occurred
+    */
+   public IndexedTriangleMesh readIndexedMesh() throws IOException;
+
+}
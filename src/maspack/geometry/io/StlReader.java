@@ -17,6 +17,7 @@ import java.util.HashMap;
 import maspack.geometry.AABBTree;
 import maspack.geometry.BVNode;
 import maspack.geometry.Boundable;
+import maspack.geometry.IndexedTriangleMesh;
 import maspack.geometry.MeshBase;
 import maspack.geometry.io.MeshWriter.DataFormat;
 // import maspack.geometry.KDTree3d;
@@ -32,7 +33,8 @@ import maspack.util.ReaderTokenizer;
  * @author Antonio
  *
  */
-public class StlReader extends MeshReaderBase {
+public class StlReader extends MeshReaderBase
+   implements IndexedMeshReader {
 
    public static double DEFAULT_TOLERANCE = 1e-15;
    double myTol = DEFAULT_TOLERANCE;
@@ -315,19 +317,63 @@ public class StlReader extends MeshReaderBase {
    
    public static PolygonalMesh readASCII(
       PolygonalMesh mesh, Reader reader, double tol) throws IOException {
-      ReaderTokenizer rtok = new ReaderTokenizer(reader);
       ArrayList<Point3d> nodeList = new ArrayList<Point3d>();
       ArrayList<ArrayList<Integer>> faceList = new ArrayList<ArrayList<Integer>>();
       boolean _printDebug = false;
-      rtok.eolIsSignificant(true);
-      
-      String solidName = "";
 
       if (_printDebug) {
          System.out.print("Reading file... ");
       }
       long start = System.nanoTime ();
 
+      String solidName = scanASCII (reader, nodeList, faceList, tol);
+      if (solidName == null) {
+         return null;
+      }
+      boolean setMeshName = true;
+      if (mesh != null) {
+         setMeshName = false;
+      }
+
+      if (_printDebug) {
+         System.out.println ("("+1.e-9*(System.nanoTime()-start)+")");
+         System.out.print ("merging nodes... ");
+         start = System.nanoTime ();
+      }
+      mergeNearbyNodes (nodeList, faceList, tol);
+      if (_printDebug) {
+         System.out.println ("("+1.e-9*(System.nanoTime()-start)+")");
+         System.out.print ("building mesh... ");
+         start = System.nanoTime ();
+      }
+      mesh = buildMesh(mesh, nodeList, faceList);
+      if (_printDebug) {
+         System.out.println ("("+1.e-9*(System.nanoTime()-start)+")");
+         System.out.println("Done!");
+         System.out.println("Unique verts: " + nodeList.size ());
+         System.out.println("Unique faces: " + faceList.size ());
+      }
+
+      if (setMeshName) {
+         mesh.setName(solidName);
+      }
+      return mesh;
+   }
+
+   /**
+    * Scans the nodes and faces of an ASCII file, stopping at the first
+    * "endsolid" or "end" keyword. Returns the solid name (or an empty string
+    * if there is none), or null if no "endsolid" or "end" was found.
+    */
+   private static String scanASCII (
+      Reader reader, ArrayList<Point3d> nodeList,
+      ArrayList<ArrayList<Integer>> faceList, double tol) throws IOException {
+
+      ReaderTokenizer rtok = new ReaderTokenizer(reader);
+      rtok.eolIsSignificant(true);
+      
+      String solidName = "";
+
       // read until we find "solid"
       while (rtok.nextToken() != ReaderTokenizer.TT_EOF) {
          if (rtok.ttype == ReaderTokenizer.TT_WORD) {
@@ -350,41 +396,142 @@ public class StlReader extends MeshReaderBase {
                }
                case "endsolid":
                case "end": {
-                  boolean setMeshName = true;
-                  if (mesh != null) {
-                     setMeshName = false;
-                  }
-               
-                  if (_printDebug) {
-                     System.out.println ("("+1.e-9*(System.nanoTime()-start)+")");
-                     System.out.print ("merging nodes... ");
-                     start = System.nanoTime ();
-                  }
-                  mergeNearbyNodes (nodeList, faceList, tol);
-                  if (_printDebug) {
-                     System.out.println ("("+1.e-9*(System.nanoTime()-start)+")");
-                     System.out.print ("building mesh... ");
-                     start = System.nanoTime ();
-                  }
-                  mesh = buildMesh(mesh, nodeList, faceList);
-                  if (_printDebug) {
-                     System.out.println ("("+1.e-9*(System.nanoTime()-start)+")");
-                     System.out.println("Done!");
-                     System.out.println("Unique verts: " + nodeList.size ());
-                     System.out.println("Unique faces: " + faceList.size ());
-                  }
-               
-                  if (setMeshName) {
-                     mesh.setName(solidName);
-                  }
-                  return mesh;
+                  return solidName;
                }
             } 
          }
       }
-      
       return null;
-      
+   }
+
+   /**
+    * Reads an indexed triangle mesh from ASCII STL input.
+    */
+   public static IndexedTriangleMesh readIndexedASCII (
+      Reader reader, double tol) throws IOException {
+
+      ArrayList<Point3d> nodeList = new ArrayList<Point3d>();
+      ArrayList<ArrayList<Integer>> faceList =
+         new ArrayList<ArrayList<Integer>>();
+      String solidName = scanASCII (reader, nodeList, faceList, tol);
+      if (solidName == null) {
+         return null;
+      }
+      mergeNearbyNodes (nodeList, faceList, tol);
+      double[] pos = new double[3*nodeList.size()];
+      for (int i=0; i<nodeList.size(); i++) {
+         Point3d pnt = nodeList.get(i);
+         pos[3*i  ] = pnt.x;
+         pos[3*i+1] = pnt.y;
+         pos[3*i+2] = pnt.z;
+      }
+      int numt = 0;
+      for (ArrayList<Integer> face : faceList) {
+         numt += Math.max (0, face.size()-2);
+      }
+      // triangulate any faces with more than three vertices
+      int[] tris = new int[3*numt];
+      int k = 0;
+      for (ArrayList<Integer> face : faceList) {
+         for (int j=1; j<face.size()-1; j++) {
+            tris[k++] = face.get(0);
+            tris[k++] = face.get(j);
+            tris[k++] = face.get(j+1);
+         }
+      }
+      IndexedTriangleMesh mesh = new IndexedTriangleMesh (pos, tris);
+      mesh.setName (solidName);
+      return mesh;
+   }
+
+   /**
+    * Reads an indexed triangle mesh from binary STL input. Facet vertices
+    * are read into a flat array and coincident vertices are merged using
+    * an open addressing hash table, so that no per-vertex objects are
+    * created. As with {@link #readBinary}, only vertices with identical
+    * coordinates are merged.
+    */
+   public static IndexedTriangleMesh readIndexedBinary (
+      InputStream is) throws IOException {
+
+      is.skip (80);
+      byte[] bbuf = new byte[4];
+      if (is.read(bbuf,0,4) < 4) {
+         throw new IOException ("Invalid STL file detected! (no facet count)");
+      }
+      ByteBuffer bb = ByteBuffer.wrap(bbuf);
+      bb.order(ByteOrder.LITTLE_ENDIAN);
+      long numFacets = bb.getInt() & 0xFFFFFFFFL;
+      if (numFacets > Integer.MAX_VALUE/9) {
+         throw new IOException (
+            "Invalid STL file detected! (facet count " + numFacets + ")");
+      }
+      int numt = (int)numFacets;
+      float[] raw = new float[9*numt];
+      int facetSize = 50;
+      bbuf = new byte[facetSize];
+      bb = ByteBuffer.wrap(bbuf);
+      bb.order(ByteOrder.LITTLE_ENDIAN);
+      for (int t=0; t<numt; t++) {
+         int nBytesRead = 0;
+         while (nBytesRead < facetSize) {
+            int nr = is.read(bbuf,nBytesRead,facetSize-nBytesRead);
+            if (nr == -1) {
+               throw new IOException (
+                  "Invalid STL file detected! (non-matching size)");
+            }
+            nBytesRead += nr;
+         }
+         // skip the normal, and ignore the attribute byte count
+         bb.position (12);
+         for (int j=0; j<9; j++) {
+            raw[9*t+j] = bb.getFloat();
+         }
+      }
+      // merge identical vertices
+      int nraw = 3*numt;
+      int tableSize = Integer.highestOneBit (Math.max (2*nraw, 2)-1) << 1;
+      int[] table = new int[tableSize]; // stores unique vertex index + 1
+      int[] tris = new int[nraw];
+      // unique positions are compacted into the start of raw, which is safe
+      // since the number of unique vertices never exceeds the number read
+      float[] upos = raw;
+      int numv = 0;
+      for (int i=0; i<nraw; i++) {
+         float x = raw[3*i];
+         float y = raw[3*i+1];
+         float z = raw[3*i+2];
+         int h = (floatHash(x)*31 + floatHash(y))*31 + floatHash(z);
+         h ^= (h >>> 16);
+         int slot = h & (tableSize-1);
+         int vidx = -1;
+         while (table[slot] != 0) {
+            int u = table[slot]-1;
+            if (upos[3*u] == x && upos[3*u+1] == y && upos[3*u+2] == z) {
+               vidx = u;
+               break;
+            }
+            slot = (slot+1) & (tableSize-1);
+         }
+         if (vidx == -1) {
+            vidx = numv++;
+            upos[3*vidx  ] = x;
+            upos[3*vidx+1] = y;
+            upos[3*vidx+2] = z;
+            table[slot] = vidx+1;
+         }
+         tris[i] = vidx;
+      }
+      double[] pos = new double[3*numv];
+      for (int i=0; i<pos.length; i++) {
+         pos[i] = upos[i];
+      }
+      return new IndexedTriangleMesh (pos, tris);
+   }
+
+   private static int floatHash (float val) {
+      // ensure that 0 and -0 hash the same, since they compare as equal
+      return val == 0 ? 0 : Float.floatToIntBits (val);
    }
    
    private static PolygonalMesh buildMesh(PolygonalMesh mesh, ArrayList<Point3d> nodes, ArrayList<ArrayList<Integer>> faces) {
@@ -653,6 +800,23 @@ public class StlReader extends MeshReaderBase {
       }
    }
    
+   /**
+    * Reads an indexed triangle mesh from this reader's input.
+    */
+   public IndexedTriangleMesh readIndexedMesh() throws IOException {
+      InputStream is = new BufferedInputStream(myIstream);
+      if (isAscii (is)) {
+         BufferedReader iread = 
+            new BufferedReader (new InputStreamReader(is));
+         myDataFormat = DataFormat.ASCII;
+         return readIndexedASCII (iread, myTol);
+      } 
+      else {
+         myDataFormat = DataFormat.BINARY_LITTLE_ENDIAN;
+         return readIndexedBinary (is);
+      }        
+   }
+
    public static PolygonalMesh read (File file) throws IOException {
       StlReader reader = null;
       try {
@@ -45,6 +45,13 @@ public class DicomReader {
     */
    boolean myUseConcurrent = false;
 
+   /**
+    * Whether slice pixels are decoded when first needed, instead of when the
+    * files are read
+    */
+   boolean myDecodeOnDemand = false;
+   int mySliceCacheSize = DicomSliceCache.DEFAULT_MAX_SLICES;
+
    /**
     * List of known image decoders
     */
@@ -100,22 +107,74 @@ public class DicomReader {
       imageDecoders.add(decoder);
    }
 
+   /**
+    * Sets whether slice pixels are decoded only when they are first needed.
+    * If {@code true}, reading an image only reads the headers of its files,
+    * and the pixels of each slice are decoded on first access and kept in a
+    * bounded {@link DicomSliceCache} shared by the slices read by each call
+    * to {@code read}. This greatly reduces memory use and loading time for
+    * large images of which only a few slices are viewed. The default value
+    * is {@code false}.
+    * 
+    * @param enable if {@code true}, decode slice pixels on demand
+    */
+   public void setDecodeOnDemand(boolean enable) {
+      myDecodeOnDemand = enable;
+   }
+
+   /**
+    * Queries whether slice pixels are decoded only when they are first
+    * needed.
+    * 
+    * @return {@code true} if slice pixels are decoded on demand
+    * @see #setDecodeOnDemand
+    */
+   public boolean getDecodeOnDemand() {
+      return myDecodeOnDemand;
+   }
+
+   /**
+    * Sets the maximum number of decoded slices that are kept in memory for
+    * each image read with on-demand decoding enabled.
+    * 
+    * @param max maximum number of decoded slices (at least 1)
+    */
+   public void setSliceCacheSize(int max) {
+      if (max < 1) {
+         throw new IllegalArgumentException (
+            "Slice cache size must be at least 1");
+      }
+      mySliceCacheSize = max;
+   }
+
+   /**
+    * Returns the maximum number of decoded slices that are kept in memory
+    * for each image read with on-demand decoding enabled.
+    * 
+    * @return maximum number of decoded slices
+    */
+   public int getSliceCacheSize() {
+      return mySliceCacheSize;
+   }
+
    private class SliceReaderCallable implements Callable<DicomSlice[]> {
 
       private File file;
       private String sliceName;
+      private DicomSliceCache cache;
 
-      public SliceReaderCallable(File file) {
+      public SliceReaderCallable(File file, DicomSliceCache cache) {
 
          sliceName = file.getName();
          this.file = file;
+         this.cache = cache;
 
       }
 
       @Override
       public DicomSlice[] call() throws IOException {
          try {
-            return readSlices(sliceName, file);
+            return readSlices(sliceName, file, cache);
          } catch (Exception e) {
             Throwable cause = getRootCause(e);
             throw new IOException(
@@ -244,11 +303,15 @@ public class DicomReader {
       if (files.size() == 0) {
          return null;
       }
+      DicomSliceCache cache = null;
+      if (myDecodeOnDemand) {
+         cache = new DicomSliceCache (mySliceCacheSize);
+      }
       if (myUseConcurrent) {
-         im = readConcurrently (im, files, temporalPosition);
+         im = readConcurrently (im, files, temporalPosition, cache);
       }
       else {
-         im = readSequentially (im, files, temporalPosition);
+         im = readSequentially (im, files, temporalPosition, cache);
       }
       if (im == null) {
          return null;
@@ -261,7 +324,8 @@ public class DicomReader {
    }
 
    private DicomImage readConcurrently (
-      DicomImage im, List<File> files, int temporalPosition)
+      DicomImage im, List<File> files, int temporalPosition,
+      DicomSliceCache cache)
       throws IOException {
 
       String imageName = files.get(0).getParentFile().getName();
@@ -277,7 +341,8 @@ public class DicomReader {
 
       int nReaders = 0;
       for (int i = 0; i < files.size(); i++) {
-         SliceReaderCallable reader = new SliceReaderCallable(files.get(i));
+         SliceReaderCallable reader =
+            new SliceReaderCallable(files.get(i), cache);
          sliceReaders.add(ecs.submit(reader));
          nReaders++;
       }
@@ -352,7 +417,8 @@ public class DicomReader {
    }
 
    private DicomImage readSequentially (
-      DicomImage im, List<File> files, int temporalPosition)
+      DicomImage im, List<File> files, int temporalPosition,
+      DicomSliceCache cache)
       throws IOException {
 
       String imageName = files.get(0).getParentFile().getName();
@@ -368,7 +434,7 @@ public class DicomReader {
       for (int i = 0; i < files.size(); i++) {
          File file = files.get(i);
          try {
-            DicomSlice[] slices = readSlices(file.getName(), file);
+            DicomSlice[] slices = readSlices(file.getName(), file, cache);
             if (slices != null) {
                // split up into frames
                for (int j = 0; j < slices.length; j++) {
@@ -463,6 +529,32 @@ public class DicomReader {
     */
    public DicomSlice[] readSlices(String sliceTitle, File file)
       throws IOException {
+      DicomSliceCache cache = null;
+      if (myDecodeOnDemand) {
+         cache = new DicomSliceCache (mySliceCacheSize);
+      }
+      return readSlices(sliceTitle, file, cache);
+   }
+
+   /**
+    * Reads a slice or set of slices from a single file. If a slice cache is
+    * supplied, only the header is read, and the slice pixels are decoded
+    * from the file when first needed and stored in the cache.
+    * 
+    * @param sliceTitle
+    * title to assign slice
+    * @param file
+    * input file
+    * @param cache
+    * cache for slices decoded on demand, or {@code null} if the pixels
+    * should be decoded immediately
+    * @return the slice(s) (since a single file may represent multiple slices)
+    * @throws IOException
+    * if there is a read failure
+    */
+   public DicomSlice[] readSlices(
+      String sliceTitle, File file, DicomSliceCache cache)
+      throws IOException {
 
       BinaryFileInputStream in = null;
       try {
@@ -480,7 +572,27 @@ public class DicomReader {
       DicomHeader header = readHeader (
          lastTagId, in, "file " + file.getPath());
 
-      if (lastTagId.value == DicomTag.PIXEL_DATA) {
+      if (lastTagId.value == DicomTag.PIXEL_DATA && cache != null) {
+         in.close();
+
+         int nframes = header.getIntValue(DicomTag.NUMBER_OF_FRAMES, 1);
+         DicomSlice.PixelLoader loader = () -> readFrames(file);
+         DicomSlice[] out = new DicomSlice[nframes];
+         for (int i = 0; i < nframes; i++) {
+            String title = sliceTitle;
+            if (nframes > 1) {
+               title = sliceTitle + "_" + i;
+            }
+            out[i] = new DicomSlice(title, header, loader, i, cache);
+         }
+         if (nframes > 1) {
+            for (int i = 0; i < nframes; i++) {
+               out[i].fileSlices = out;
+            }
+         }
+         return out;
+      }
+      else if (lastTagId.value == DicomTag.PIXEL_DATA) {
 
          DicomPixelBuffer[] pixels = decodeFrames(header, in);
          DicomSlice[] out = new DicomSlice[pixels.length];
@@ -1136,6 +1248,31 @@ public class DicomReader {
    //
    // }
 
+   /**
+    * Reads a DICOM file and decodes the pixels of all its frames. Used to
+    * load slices that are decoded on demand.
+    */
+   private DicomPixelBuffer[] readFrames(File file) throws IOException {
+
+      BinaryFileInputStream in = new BinaryFileInputStream(file);
+      try {
+         in.setLittleEndian(true);
+         in.setByteChar(true);
+
+         IntHolder lastTagId = new IntHolder();
+         DicomHeader header = readHeader (
+            lastTagId, in, "file " + file.getPath());
+         if (lastTagId.value != DicomTag.PIXEL_DATA) {
+            throw new IOException (
+               "No pixel data found in file " + file.getPath());
+         }
+         return decodeFrames(header, in);
+      }
+      finally {
+         in.close();
+      }
+   }
+
    private DicomPixelBuffer[] decodeFrames(
       DicomHeader header, BinaryFileInputStream in)
       throws IOException {
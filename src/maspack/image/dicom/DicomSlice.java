@@ -7,6 +7,7 @@
 
 package maspack.image.dicom;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Map.Entry;
 
@@ -60,9 +61,26 @@ public class DicomSlice {
       
    }
    
+   /**
+    * Decodes the pixel buffers for all the frames in a DICOM file, for
+    * slices whose pixels are decoded on demand.
+    */
+   interface PixelLoader {
+      DicomPixelBuffer[] loadFrames() throws IOException;
+   }
+   
    SliceInfo info;
    private DicomHeader header;
-   DicomPixelBuffer pixelBuff;
+   DicomPixelBuffer pixelBuff;   // null if pixels are decoded on demand
+   
+   // information for decoding pixels on demand
+   PixelLoader pixelLoader;
+   int frameIndex;
+   DicomSlice[] fileSlices;      // all slices from the same file, if known
+   DicomSliceCache sliceCache;
+   private PixelType pixelType;
+   private double minIntensity = Double.NaN;
+   private double maxIntensity = Double.NaN;
    
    private static DicomElement findElement(DicomElement[] elems, int tagId) {
       for (DicomElement elem : elems) {
@@ -176,18 +194,119 @@ public class DicomSlice {
       
    }
    
+   /**
+    * Construct a DICOM slice whose pixels are decoded when first needed,
+    * and then kept in a slice cache.
+    * 
+    * @param title slice title
+    * @param header DICOM header information
+    * @param loader decodes the frames of the slice's file
+    * @param frameIdx index of the slice's frame within the file
+    * @param cache cache in which to store the decoded pixels
+    */
+   DicomSlice(String title, DicomHeader header, PixelLoader loader,
+      int frameIdx, DicomSliceCache cache) {
+      this(title, header, (DicomPixelBuffer)null);
+      this.pixelLoader = loader;
+      this.frameIndex = frameIdx;
+      this.sliceCache = cache;
+      this.pixelType = getPixelType(header);
+   }
+   
+   /**
+    * Determines the pixel type that the decoders will produce, based on the
+    * header information
+    */
+   private static PixelType getPixelType(DicomHeader header) {
+      int nSamples = header.getIntValue(DicomTag.SAMPLES_PER_PIXEL, 1);
+      String photoInterp =
+         header.getStringValue(DicomTag.PHOTOMETRIC_ITERPRETATION);
+      if (nSamples == 3 || (photoInterp != null &&
+          "PALETTE COLOR".equalsIgnoreCase(photoInterp.trim()))) {
+         return PixelType.UBYTE_RGB;
+      }
+      int bitsAllocated = header.getIntValue(DicomTag.BITS_ALLOCATED, 8);
+      boolean signed =
+         (header.getIntValue(DicomTag.PIXEL_REPRESENTATION, 0) != 0);
+      if (bitsAllocated <= 8) {
+         return signed ? PixelType.BYTE : PixelType.UBYTE;
+      }
+      return signed ? PixelType.SHORT : PixelType.USHORT;
+   }
+   
    /**
     * @return Returns the pixel type of the slice (byte/short grayscale, byte RGB)
     */
    public PixelType getPixelType() {
-      return pixelBuff.getPixelType();
+      if (pixelBuff != null) {
+         return pixelBuff.getPixelType();
+      }
+      return pixelType;
+   }
+   
+   /**
+    * @return whether the pixels of this slice are decoded on demand, rather
+    * than when the slice was read
+    */
+   public boolean isDecodedOnDemand() {
+      return pixelLoader != null;
    }
    
    /**
+    * Returns the underlying pixel buffer. If the slice is decoded on demand,
+    * this may require decoding the slice's file.
+    * 
     * @return the underlying pixel buffer
     */
    public DicomPixelBuffer getPixelBuffer() {
-      return pixelBuff;
+      if (pixelBuff != null || pixelLoader == null) {
+         return pixelBuff;
+      }
+      try {
+         return sliceCache.getPixelBuffer(this);
+      }
+      catch (IOException e) {
+         throw new RuntimeException(
+            "Unable to decode DICOM slice '" + info.title + "'", e);
+      }
+   }
+   
+   /**
+    * Records the intensity range once the pixels have been decoded
+    */
+   void updateIntensityRange(DicomPixelBuffer buff) {
+      minIntensity = buff.getMinIntensity();
+      maxIntensity = buff.getMaxIntensity();
+   }
+   
+   /**
+    * Intensity range implied by the header's pixel format and rescaling,
+    * used for slices that have not yet been decoded
+    */
+   private double[] getHeaderIntensityRange() {
+      double min = 0;
+      double max = 255;
+      if (pixelType != PixelType.UBYTE_RGB) {
+         int bits = header.getIntValue(DicomTag.BITS_STORED,
+            header.getIntValue(DicomTag.BITS_ALLOCATED, 8));
+         if (pixelType == PixelType.BYTE || pixelType == PixelType.SHORT) {
+            min = -Math.pow(2, bits-1);
+            max = Math.pow(2, bits-1)-1;
+         }
+         else {
+            max = Math.pow(2, bits)-1;
+         }
+         double slope = header.getDecimalValue(DicomTag.RESCALE_SLOPE, 1);
+         double inter = header.getDecimalValue(DicomTag.RESCALE_INTERCEPT, 0);
+         min = inter + slope*min;
+         max = inter + slope*max;
+         if (min > max) {
+            double tmp = min;
+            min = max;
+            max = tmp;
+         }
+      }
+      return new double[] {min, max};
    }
    
    /**
@@ -211,10 +330,11 @@ public class DicomSlice {
       DicomPixelInterpolator interp,
       ByteBuffer pixels) {
     
+      DicomPixelBuffer buff = getPixelBuffer();
       for (int i=0; i<ny; i++) {
          int idx = (y + dy*i)*info.cols+x;
          int p = pixels.position ();
-         pixelBuff.getPixels (idx, dx, nx, type, interp, pixels);
+         buff.getPixels (idx, dx, nx, type, interp, pixels);
          if (scanline > 0) {
             pixels.position (p+scanline);
          }
@@ -243,9 +363,10 @@ public class DicomSlice {
       DicomPixelInterpolator interp,
       int[] pixels, int offset) {
     
+      DicomPixelBuffer buff = getPixelBuffer();
       for (int i=0; i<ny; i++) {
          int idx = (y + dy*i)*info.cols+x;
-         pixelBuff.getPixels (idx, dx, nx, type, interp, pixels, offset);
+         buff.getPixels (idx, dx, nx, type, interp, pixels, offset);
          if (scanline > 0) {
             offset += scanline;
          }
@@ -261,28 +382,47 @@ public class DicomSlice {
     */
    public double getPixelValue(int channel, int x, int y) {
       int idx = y*info.cols+x;
-      return pixelBuff.getRescaledValue (idx);
+      return getPixelBuffer().getRescaledValue (idx);
    }
    
    /**
     * Number of channels in the slice
     */
    public int getNumChannels() {
-      return pixelBuff.getNumChannels();
+      if (pixelBuff != null) {
+         return pixelBuff.getNumChannels();
+      }
+      return pixelType == PixelType.UBYTE_RGB ? 3 : 1;
    }
    
    /**
-    * @return maximum pixel intensity in the slice
+    * @return maximum pixel intensity in the slice. For slices decoded on
+    * demand that have not yet been decoded, this is the maximum value
+    * allowed by the pixel format.
     */
    public double getMaxIntensity() {
-      return pixelBuff.getMaxIntensity();
+      if (pixelBuff != null) {
+         return pixelBuff.getMaxIntensity();
+      }
+      if (Double.isNaN(maxIntensity)) {
+         return getHeaderIntensityRange()[1];
+      }
+      return maxIntensity;
    }
    
    /**
-    * @return minimum pixel intensity in the slice
+    * @return minimum pixel intensity in the slice. For slices decoded on
+    * demand that have not yet been decoded, this is the minimum value
+    * allowed by the pixel format.
     */
    public double getMinIntensity() {
-      return pixelBuff.getMinIntensity();
+      if (pixelBuff != null) {
+         return pixelBuff.getMinIntensity();
+      }
+      if (Double.isNaN(minIntensity)) {
+         return getHeaderIntensityRange()[0];
+      }
+      return minIntensity;
    }
 
    /**
@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+
+package maspack.image.dicom;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of decoded pixel buffers for DICOM slices whose pixels are
+ * decoded on demand. When the cache is full, the buffer of the least recently
+ * used slice is discarded, and is decoded again from its file if it is
+ * needed later. Decoding is performed while holding the cache lock, since
+ * the native decoders are not thread safe.
+ */
+public class DicomSliceCache {
+
+   public static final int DEFAULT_MAX_SLICES = 64;
+
+   private int myMaxSlices;
+   private LinkedHashMap<DicomSlice,DicomPixelBuffer> myBuffers;
+
+   /**
+    * Creates a cache holding up to {@link #DEFAULT_MAX_SLICES} slices.
+    */
+   public DicomSliceCache() {
+      this (DEFAULT_MAX_SLICES);
+   }
+
+   /**
+    * Creates a cache holding up to a given number of slices.
+    *
+    * @param maxSlices maximum number of decoded slices to keep
+    */
+   public DicomSliceCache (int maxSlices) {
+      setMaxSlices (maxSlices);
+      myBuffers = new LinkedHashMap<DicomSlice,DicomPixelBuffer> (
+         16, 0.75f, true) {
+         private static final long serialVersionUID = 1L;
+         @Override
+         protected boolean removeEldestEntry (
+            Map.Entry<DicomSlice,DicomPixelBuffer> eldest) {
+            return size() > myMaxSlices;
+         }
+      };
+   }
+
+   /**
+    * Sets the maximum number of decoded slices kept by this cache.
+    *
+    * @param max maximum number of slices (at least 1)
+    */
+   public synchronized void setMaxSlices (int max) {
+      if (max < 1) {
+         throw new IllegalArgumentException (
+            "Maximum number of slices must be at least 1");
+      }
+      myMaxSlices = max;
+      if (myBuffers != null) {
+         Iterator<DicomSlice> it = myBuffers.keySet().iterator();
+         while (myBuffers.size() > max) {
+            it.next();
+            it.remove();
+         }
+      }
+   }
+
+   /**
+    * @return maximum number of decoded slices kept by this cache
+    */
+   public synchronized int getMaxSlices() {
+      return myMaxSlices;
+   }
+
+   /**
+    * @return number of decoded slices currently in the cache
+    */
+   public synchronized int numCachedSlices() {
+      return myBuffers.size();
+   }
+
+   /**
+    * Queries whether the pixels of a slice are currently in the cache.
+    *
+    * @param slice slice to check
+    * @return {@code true} if the slice's pixels are cached
+    */
+   public synchronized boolean isCached (DicomSlice slice) {
+      return myBuffers.containsKey (slice);
+   }
+
+   /**
+    * Discards all decoded slices.
+    */
+   public synchronized void clear() {
+      myBuffers.clear();
+   }
+
+   /**
+    * Returns the pixel buffer for a slice, decoding it from its file if it is
+    * not cached. When a file contains several frames, they are all decoded
+    * together, so the buffers for the other frames are cached as well.
+    */
+   synchronized DicomPixelBuffer getPixelBuffer (DicomSlice slice)
+      throws IOException {
+
+      DicomPixelBuffer buff = myBuffers.get (slice);
+      if (buff == null) {
+         DicomPixelBuffer[] frames = slice.pixelLoader.loadFrames();
+         if (slice.frameIndex >= frames.length) {
+            throw new IOException (
+               "Frame " + slice.frameIndex + " not found; file contains " +
+               frames.length + " frame(s)");
+         }
+         DicomSlice[] fileSlices = slice.fileSlices;
+         if (fileSlices != null) {
+            for (int i=0; i<fileSlices.length && i<frames.length; i++) {
+               DicomSlice fslice = fileSlices[i];
+               if (fslice != slice && !myBuffers.containsKey (fslice)) {
+                  myBuffers.put (fslice, frames[i]);
+                  fslice.updateIntensityRange (frames[i]);
+               }
+            }
+         }
+         buff = frames[slice.frameIndex];
+         // added last, so that it is the most recently used
+         myBuffers.put (slice, buff);
+         slice.updateIntensityRange (buff);
+      }
+      return buff;
+   }
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+
+package maspack.image.dicom;
+
+import maspack.image.dicom.DicomElement.VR;
+import maspack.image.dicom.DicomPixelBuffer.PixelType;
+import maspack.util.TestException;
+import maspack.util.UnitTest;
+
+/**
+ * Tests DICOM slices whose pixels are decoded on demand and stored in a
+ * {@link DicomSliceCache}, using a loader that creates synthetic frames.
+ */
+public class DicomSliceCacheTest extends UnitTest {
+
+   static final int ROWS = 4;
+   static final int COLS = 3;
+
+   /**
+    * Creates synthetic frames and counts how often it is called
+    */
+   static class TestLoader implements DicomSlice.PixelLoader {
+      int base;
+      int numFrames;
+      int numLoads;
+
+      TestLoader (int base, int numFrames) {
+         this.base = base;
+         this.numFrames = numFrames;
+      }
+
+      public DicomPixelBuffer[] loadFrames() {
+         numLoads++;
+         DicomPixelBuffer[] frames = new DicomPixelBuffer[numFrames];
+         for (int f=0; f<numFrames; f++) {
+            frames[f] = createPixels (base+f);
+         }
+         return frames;
+      }
+   }
+
+   static DicomPixelBuffer createPixels (int slice) {
+      short[] pixels = new short[ROWS*COLS];
+      for (int i=0; i<pixels.length; i++) {
+         pixels[i] = (short)(100*slice + i);
+      }
+      return new UShortPixelBuffer (pixels);
+   }
+
+   static void addUS (DicomHeader header, int tagId, int value) {
+      header.addInfo (
+         tagId, new DicomElement (tagId, VR.US, new short[] {(short)value}));
+   }
+
+   DicomHeader createHeader() {
+      DicomHeader header = new DicomHeader();
+      addUS (header, DicomTag.ROWS, ROWS);
+      addUS (header, DicomTag.COLUMNS, COLS);
+      addUS (header, DicomTag.BITS_ALLOCATED, 16);
+      addUS (header, DicomTag.BITS_STORED, 12);
+      addUS (header, DicomTag.PIXEL_REPRESENTATION, 0);
+      return header;
+   }
+
+   void testSingleFrames() {
+      int nslices = 8;
+      DicomHeader header = createHeader();
+      DicomSliceCache cache = new DicomSliceCache (3);
+      TestLoader[] loaders = new TestLoader[nslices];
+      DicomImage lazy = null;
+      DicomImage eager = null;
+      for (int s=0; s<nslices; s++) {
+         loaders[s] = new TestLoader (s, 1);
+         DicomSlice lslice =
+            new DicomSlice ("slice"+s, header, loaders[s], 0, cache);
+         DicomSlice eslice =
+            new DicomSlice ("slice"+s, header, createPixels (s));
+         if (s == 0) {
+            lazy = new DicomImage ("lazy", lslice);
+            eager = new DicomImage ("eager", eslice);
+         }
+         else {
+            lazy.addSlice (lslice);
+            eager.addSlice (eslice);
+         }
+      }
+      // nothing is decoded until pixels are needed
+      checkEquals ("pixel type", lazy.getPixelType(), PixelType.USHORT);
+      checkEquals ("num channels", lazy.getNumChannels(), 1);
+      checkEquals ("num slices", lazy.getNumSlices(), nslices);
+      checkEquals ("undecoded max intensity", lazy.getMaxIntensity(), 4095.0);
+      checkEquals ("cached slices", cache.numCachedSlices(), 0);
+      for (int s=0; s<nslices; s++) {
+         checkEquals ("slice "+s+" loads", loaders[s].numLoads, 0);
+      }
+
+      for (int s=0; s<nslices; s++) {
+         for (int r=0; r<ROWS; r++) {
+            for (int c=0; c<COLS; c++) {
+               checkEquals (
+                  "value at "+c+","+r+","+s,
+                  lazy.getValue (0, c, r, s), eager.getValue (0, c, r, s));
+            }
+         }
+         checkEquals ("slice "+s+" loads", loaders[s].numLoads, 1);
+         if (cache.numCachedSlices() > 3) {
+            throw new TestException (
+               "cache exceeded its limit: " + cache.numCachedSlices());
+         }
+      }
+      // decoded intensity ranges are remembered after eviction
+      checkEquals (
+         "max intensity", lazy.getSlice(0).getMaxIntensity(),
+         eager.getSlice(0).getMaxIntensity());
+
+      // the most recently used slice is kept, the oldest is decoded again
+      lazy.getValue (0, 0, 0, nslices-1);
+      checkEquals ("last slice loads", loaders[nslices-1].numLoads, 1);
+      lazy.getValue (0, 0, 0, 0);
+      checkEquals ("first slice loads", loaders[0].numLoads, 2);
+
+      cache.setMaxSlices (1);
+      checkEquals ("cached slices", cache.numCachedSlices(), 1);
+      checkEquals (
+         "first slice cached", cache.isCached (lazy.getSlice(0)), true);
+      cache.clear();
+      checkEquals ("cached slices", cache.numCachedSlices(), 0);
+   }
+
+   void testMultiFrame() {
+      int nframes = 4;
+      DicomHeader header = createHeader();
+      DicomSliceCache cache = new DicomSliceCache (8);
+      TestLoader loader = new TestLoader (0, nframes);
+      DicomSlice[] slices = new DicomSlice[nframes];
+      for (int f=0; f<nframes; f++) {
+         slices[f] = new DicomSlice ("frame"+f, header, loader, f, cache);
+      }
+      for (int f=0; f<nframes; f++) {
+         slices[f].fileSlices = slices;
+      }
+      // decoding one frame caches all the frames of the file
+      checkEquals ("frame 2 value", slices[2].getPixelValue (0, 1, 2), 207.0);
+      checkEquals ("loads", loader.numLoads, 1);
+      checkEquals ("cached slices", cache.numCachedSlices(), nframes);
+      for (int f=0; f<nframes; f++) {
+         checkEquals (
+            "frame "+f+" value", slices[f].getPixelValue (0, 2, 1), 100.0*f+5);
+      }
+      checkEquals ("loads", loader.numLoads, 1);
+   }
+
+   public void test() {
+      testSingleFrames();
+      testMultiFrame();
+   }
+
+   public static void main (String[] args) {
+      DicomSliceCacheTest tester = new DicomSliceCacheTest();
+      tester.runtest();
+   }
+}
@@ -336,8 +336,12 @@ public class MappedPixelGenerator extends NiftiPixelGenerator {
       invalidateVersion();
    }
    
+   /**
+    * Sets default mappings and windows from the values in an image. For
+    * memory-mapped images, only the first time frame is examined.
+    */
    public void detectDefault(NiftiImage image) {
-      detectDefault(image.buff);
+      detectDefault(image.getBuffer(0));
    }
    
    public void detectDefault(NiftiDataBuffer buff) {
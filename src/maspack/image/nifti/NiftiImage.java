@@ -28,6 +28,8 @@ public class NiftiImage implements VolumeImage, Clonable {
    
    // vals,x,y,z,t
    NiftiDataBuffer buff;
+   // memory-mapped data, used instead of buff if the image was read lazily
+   NiftiMappedData mapped;
    
    public NiftiImage(String title, String fileName) {
       this(title, new File(fileName));
@@ -38,6 +40,7 @@ public class NiftiImage implements VolumeImage, Clonable {
          NiftiImage im = NiftiReader.read(file);
          this.header = im.header;
          this.buff = im.buff;
+         this.mapped = im.mapped;
          setTitle(title);
       }
       catch (IOException e) {
@@ -144,32 +147,104 @@ public class NiftiImage implements VolumeImage, Clonable {
       }
    }
    
+   /**
+    * Creates an image whose voxel data is memory-mapped from a file, and
+    * decoded one time frame at a time as needed.
+    */
+   NiftiImage(String title, NiftiHeader header, NiftiMappedData mapped) {
+      setTitle(title);
+      this.header = header;
+      this.mapped = mapped;
+   }
+   
    private double toUnsigned(byte d) {
-      if (d >= 0) {
-         return d;
-      }
-      return ((double)Byte.MAX_VALUE)+(double)(-d);
+      return d & 0xFF;
    }
    
    private double toUnsigned(short d) {
-      if (d >= 0) {
-         return d;
-      }
-      return ((double)Short.MAX_VALUE)+(double)(-d);
+      return d & 0xFFFF;
    }
    
    private double toUnsigned(int d) {
-      if (d >= 0) {
-         return d;
-      }
-      return ((double)Integer.MAX_VALUE)+(double)(-d);
+      return d & 0xFFFFFFFFL;
    }
    
    private double toUnsigned(long d) {
-      if (d >= 0) {
-         return d;
+      double v = d;
+      if (v < 0) {
+         v += 18446744073709551616.0; // add 2^64
       }
-      return ((double)Long.MAX_VALUE)+(double)(-d);
+      return v;
+   }
+   
+   /**
+    * Returns the data dimensions x,y,z,t,v
+    */
+   private int[] dims() {
+      if (mapped != null) {
+         return mapped.dims;
+      }
+      return buff.dims;
+   }
+   
+   /**
+    * Returns a buffer containing the data for time index {@code t}. This is
+    * the whole data buffer, unless the image is memory-mapped, in which case
+    * it is a buffer containing only frame {@code t}.
+    */
+   NiftiDataBuffer getBuffer(int t) {
+      if (mapped != null) {
+         return mapped.getFrame(t);
+      }
+      return buff;
+   }
+   
+   /**
+    * Returns the index for time {@code t} within the buffer returned by
+    * {@link #getBuffer(int)}.
+    */
+   private int bufferTime(int t) {
+      if (mapped != null) {
+         return 0;
+      }
+      return t;
+   }
+   
+   /**
+    * Queries whether the voxel data of this image is memory-mapped from its
+    * file, as when read using {@link NiftiReader#readMapped(File)}.
+    * 
+    * @return {@code true} if the image data is memory-mapped
+    */
+   public boolean isMapped() {
+      return mapped != null;
+   }
+   
+   /**
+    * Sets the maximum number of decoded time frames that are kept in memory
+    * for a memory-mapped image. Has no effect if the image is not
+    * memory-mapped.
+    * 
+    * @param max maximum number of cached frames (at least 1)
+    */
+   public void setMaxCachedFrames(int max) {
+      if (mapped != null) {
+         mapped.setMaxCachedFrames(max);
+      }
+   }
+   
+   /**
+    * Returns the maximum number of decoded time frames that are kept in
+    * memory for a memory-mapped image, or 0 if the image is not
+    * memory-mapped.
+    * 
+    * @return maximum number of cached frames
+    */
+   public int getMaxCachedFrames() {
+      if (mapped != null) {
+         return mapped.getMaxCachedFrames();
+      }
+      return 0;
    }
    
    public void setTitle(String title) {
@@ -271,19 +346,19 @@ public class NiftiImage implements VolumeImage, Clonable {
    }
    
    public int getNumCols() {
-      return buff.dims[0];
+      return dims()[0];
    }
    
    public int getNumRows() {
-      return buff.dims[1];
+      return dims()[1];
    }
    
    public int getNumSlices() {
-      return buff.dims[2];
+      return dims()[2];
    }
    
    public int getNumTimes() {
-      return buff.dims[3];
+      return dims()[3];
    }
    
    /**
@@ -295,14 +370,27 @@ public class NiftiImage implements VolumeImage, Clonable {
    }
    
    public int getNumValuesPerVoxel() {
-      return buff.dims[4];
+      return dims()[4];
    }
    
    public DataType getDataType() {
+      if (mapped != null) {
+         return mapped.dataType;
+      }
       return buff.dataType;
    }
    
+   /**
+    * Returns the buffer containing the image data. If the image is
+    * memory-mapped, a new buffer is created each time and filled with all
+    * the image data, which may require a large amount of memory.
+    * 
+    * @return image data buffer
+    */
    public NiftiDataBuffer getDataBuffer() {
+      if (mapped != null) {
+         return mapped.getAllFrames();
+      }
       return buff;
    }
    
@@ -311,6 +399,9 @@ public class NiftiImage implements VolumeImage, Clonable {
    }
    
    public double getValue(int v, int i, int j, int k, int t) {
+      if (mapped != null) {
+         return mapped.getValue(0, v, i, j, k, t);
+      }
       int idx = buff.getIndex(v, i, j, k, t);
       switch(buff.getDataType()) {
          case DT_BINARY:
@@ -351,62 +442,74 @@ public class NiftiImage implements VolumeImage, Clonable {
    }
    
    public float getFloat32(int v, int i, int j, int k, int t) {
-      int idx = buff.getIndex(v, i, j, k, t);
+      NiftiDataBuffer buff = getBuffer(t);
+      int idx = buff.getIndex(v, i, j, k, bufferTime(t));
       return buff.floats[idx];
    }
    
    public double getFloat64(int v, int i, int j, int k, int t) {
-      int idx = buff.getIndex(v, i, j, k, t);
+      NiftiDataBuffer buff = getBuffer(t);
+      int idx = buff.getIndex(v, i, j, k, bufferTime(t));
       return buff.doubles[idx];
    }
    
    public double getComplex128Real(int v, int i, int j, int k, int t) {
-      int idx = buff.getRealIndex(v, i, j, k, t);
+      NiftiDataBuffer buff = getBuffer(t);
+      int idx = buff.getRealIndex(v, i, j, k, bufferTime(t));
       return buff.doubles[idx];
    }
    
    public double getComplex128Imaginary(int v, int i, int j, int k, int t) {
-      int idx = buff.getImaginaryIndex(v, i, j, k, t);
+      NiftiDataBuffer buff = getBuffer(t);
+      int idx = buff.getImaginaryIndex(v, i, j, k, bufferTime(t));
       return buff.doubles[idx];
    }
    
    public long getInt64(int v, int i, int j, int k, int t) {
-      int idx = buff.getIndex(v, i, j, k, t);
+      NiftiDataBuffer buff = getBuffer(t);
+      int idx = buff.getIndex(v, i, j, k, bufferTime(t));
       return buff.longs[idx];
    }
    
    public int getInt32(int v, int i, int j, int k, int t) {
-      int idx = buff.getIndex(v, i, j, k, t);
+      NiftiDataBuffer buff = getBuffer(t);
+      int idx = buff.getIndex(v, i, j, k, bufferTime(t));
       return buff.ints[idx];
    }
    
    public short getInt16(int v, int i, int j, int k, int t) {
-      int idx = buff.getIndex(v, i, j, k, t);
+      NiftiDataBuffer buff = getBuffer(t);
+      int idx = buff.getIndex(v, i, j, k, bufferTime(t));
       return buff.shorts[idx];
    }
    
    public byte getInt8(int v, int i, int j, int k, int t) {
-      int idx = buff.getIndex(v, i, j, k, t);
+      NiftiDataBuffer buff = getBuffer(t);
+      int idx = buff.getIndex(v, i, j, k, bufferTime(t));
       return buff.bytes[idx];
    }
    
    public boolean getBinary(int v, int i, int j, int k, int t) {
-      int idx = buff.getIndex(v, i, j, k, t);
+      NiftiDataBuffer buff = getBuffer(t);
+      int idx = buff.getIndex(v, i, j, k, bufferTime(t));
       return buff.bools[idx];
    }
    
    public byte getRed(int v, int i, int j, int k, int t) {
-      int idx = buff.getRedIndex(v, i, j, k, t);
+      NiftiDataBuffer buff = getBuffer(t);
+      int idx = buff.getRedIndex(v, i, j, k, bufferTime(t));
       return buff.bytes[idx];
    }
    
    public byte getGreen(int v, int i, int j, int k, int t) {
-      int idx = buff.getGreenIndex(v, i, j, k, t);
+      NiftiDataBuffer buff = getBuffer(t);
+      int idx = buff.getGreenIndex(v, i, j, k, bufferTime(t));
       return buff.bytes[idx];
    }
    
    public byte getBlue(int v, int i, int j, int k, int t) {
-      int idx = buff.getBlueIndex(v, i, j, k, t);
+      NiftiDataBuffer buff = getBuffer(t);
+      int idx = buff.getBlueIndex(v, i, j, k, bufferTime(t));
       return buff.bytes[idx];
    }
 
@@ -420,8 +523,8 @@ public class NiftiImage implements VolumeImage, Clonable {
       ByteBuffer pixels) {
 
       int offset = pixels.position();
-      voxelator.getPixels(buff, i, di, ni, j, dj, nj, k, dk, nk, t, scanline,
-         pageline, pixels);
+      voxelator.getPixels(getBuffer(t), i, di, ni, j, dj, nj, k, dk, nk,
+         bufferTime(t), scanline, pageline, pixels);
       return pixels.position()-offset;
    }
    
@@ -429,7 +532,10 @@ public class NiftiImage implements VolumeImage, Clonable {
       try {
          NiftiImage copy = (NiftiImage)super.clone();
          copy.header = header.clone();
-         copy.buff = buff.clone();
+         if (buff != null) {
+            copy.buff = buff.clone();
+         }
+         // mapped data is read-only and can be shared
          return copy;
       }
       catch (CloneNotSupportedException e) {
@@ -440,13 +546,23 @@ public class NiftiImage implements VolumeImage, Clonable {
 
    @Override
    public double getValue (int channel, int col, int row, int slice) {
-      int v = channel / buff.getNumEntitiesPerValue ();
-      int e = channel % buff.getNumEntitiesPerValue ();
-      return buff.getValue (v, e, col, row, slice, 0);
+      int v = channel / getNumEntitiesPerValue ();
+      int e = channel % getNumEntitiesPerValue ();
+      if (mapped != null) {
+         return mapped.getValue (e, v, col, row, slice, 0);
+      }
+      return buff.getValue (e, v, col, row, slice, 0);
+   }
+
+   private int getNumEntitiesPerValue () {
+      if (mapped != null) {
+         return mapped.getNumEntitiesPerValue ();
+      }
+      return buff.getNumEntitiesPerValue ();
    }
 
    @Override
    public int getNumChannels () {
-      return buff.getNumValuesPerVoxel ()*buff.getNumEntitiesPerValue ();
+      return getNumValuesPerVoxel ()*getNumEntitiesPerValue ();
    }
 }
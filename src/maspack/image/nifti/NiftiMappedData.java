@@ -0,0 +1,406 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.image.nifti;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import maspack.image.nifti.NiftiHeader.DataType;
+
+/**
+ * Voxel data for an uncompressed NIfTI or Analyze image that is accessed
+ * through read-only memory mappings of the image file, instead of being
+ * decoded into memory when the file is read. Single values are read directly
+ * from the mapping. Complete time frames are decoded on demand into {@link
+ * NiftiDataBuffer}s, which are kept in a small LRU cache, so that only the
+ * frames actually being viewed occupy heap space.
+ *
+ * <p>Values are scaled by the header's {@code scl_slope} and {@code
+ * scl_inter}, in the same way as for images that are read in full.
+ */
+class NiftiMappedData {
+
+   // maximum size of each mapped region; mappings are limited to 2^31 bytes
+   static final long MAX_REGION_BYTES = (1L << 30);
+
+   static final int DEFAULT_MAX_CACHED_FRAMES = 2;
+
+   DataType fileType;   // type of the data stored in the file
+   DataType dataType;   // type of the data presented by the image
+   int[] dims;          // x,y,z,t,v
+   int numEntities;     // entities per value
+   int entityBytes;
+   int valueBytes;
+   boolean scaled;
+   double slope;
+   double inter;
+
+   ByteBuffer[] regions;
+   int regionValues;    // number of values in each full region
+
+   private int myMaxCachedFrames = DEFAULT_MAX_CACHED_FRAMES;
+   private LinkedHashMap<Integer,NiftiDataBuffer> myFrames;
+
+   /**
+    * Returns {@code true} if data of the given type can be memory-mapped.
+    * This requires that each value has a fixed size of a whole number of
+    * bytes, in a format that can be read directly by a {@link ByteBuffer}.
+    */
+   static boolean isMappable (DataType type) {
+      return getEntityBytes (type) > 0;
+   }
+
+   private static int getEntityBytes (DataType type) {
+      switch (type) {
+         case NIFTI_TYPE_INT8:
+         case NIFTI_TYPE_UINT8:
+         case NIFTI_TYPE_RGB24:
+            return 1;
+         case NIFTI_TYPE_INT16:
+         case NIFTI_TYPE_UINT16:
+            return 2;
+         case NIFTI_TYPE_INT32:
+         case NIFTI_TYPE_UINT32:
+         case NIFTI_TYPE_FLOAT32:
+         case NIFTI_TYPE_COMPLEX64:
+            return 4;
+         case NIFTI_TYPE_INT64:
+         case NIFTI_TYPE_UINT64:
+         case NIFTI_TYPE_FLOAT64:
+         case NIFTI_TYPE_COMPLEX128:
+            return 8;
+         default:
+            // binary, 128-bit and unknown types are not mapped
+            return 0;
+      }
+   }
+
+   /**
+    * Maps the data region of a NIfTI or Analyze image file.
+    *
+    * @param header image header
+    * @param dims data dimensions, in the order x, y, z, t, v
+    * @param file file containing the data
+    * @param offset location of the data within the file
+    * @param order byte order of the data
+    * @throws IOException if the file cannot be mapped or is too short
+    */
+   NiftiMappedData (
+      NiftiHeader header, int[] dims, File file, long offset, ByteOrder order)
+      throws IOException {
+
+      fileType = header.datatype;
+      entityBytes = getEntityBytes (fileType);
+      if (entityBytes == 0) {
+         throw new IOException (
+            "Cannot memory-map data of type " + fileType);
+      }
+      this.dims = new int[5];
+      for (int i=0; i<5; ++i) {
+         this.dims[i] = dims[i];
+      }
+      numEntities = 1;
+      if (fileType.isComplex()) {
+         numEntities = 2;
+      }
+      else if (fileType == DataType.NIFTI_TYPE_RGB24) {
+         numEntities = 3;
+      }
+      valueBytes = numEntities*entityBytes;
+
+      // same conversion as performed by the NiftiImage constructor
+      dataType = fileType;
+      if (fileType != DataType.NIFTI_TYPE_RGB24 && header.scl_slope != 0) {
+         scaled = true;
+         slope = header.scl_slope;
+         inter = header.scl_inter;
+         if (fileType.isComplex()) {
+            dataType = DataType.NIFTI_TYPE_COMPLEX128;
+         }
+         else {
+            dataType = DataType.NIFTI_TYPE_FLOAT64;
+         }
+      }
+
+      long numValues = 1;
+      for (int i=0; i<5; ++i) {
+         numValues *= dims[i];
+      }
+      long numBytes = numValues*valueBytes;
+
+      // regions hold a whole number of values, so none straddle a boundary
+      regionValues = (int)(MAX_REGION_BYTES/valueBytes);
+      long regionBytes = (long)regionValues*valueBytes;
+      int numRegions = (int)((numValues+regionValues-1)/regionValues);
+      regions = new ByteBuffer[numRegions];
+
+      FileChannel channel =
+         FileChannel.open (file.toPath(), StandardOpenOption.READ);
+      try {
+         if (channel.size() < offset+numBytes) {
+            throw new IOException (
+               "File '" + file + "' is too short: expected " +
+               (offset+numBytes) + " bytes, found " + channel.size());
+         }
+         // mappings remain valid after the channel is closed
+         for (int r=0; r<numRegions; ++r) {
+            long start = r*regionBytes;
+            long size = Math.min (regionBytes, numBytes-start);
+            regions[r] = channel.map (MapMode.READ_ONLY, offset+start, size);
+            regions[r].order (order);
+         }
+      }
+      finally {
+         channel.close();
+      }
+
+      myFrames = new LinkedHashMap<Integer,NiftiDataBuffer> (16, 0.75f, true) {
+         private static final long serialVersionUID = 1L;
+         @Override
+         protected boolean removeEldestEntry (
+            Map.Entry<Integer,NiftiDataBuffer> eldest) {
+            return size() > myMaxCachedFrames;
+         }
+      };
+   }
+
+   /**
+    * Returns the number of entities that make up a value (2 for complex
+    * numbers, 3 for RGB24, and 1 otherwise).
+    */
+   int getNumEntitiesPerValue() {
+      return numEntities;
+   }
+
+   /**
+    * Reads an entity from a mapped region, with unsigned types converted to
+    * positive values.
+    */
+   private double readEntity (ByteBuffer bb, int off) {
+      switch (fileType) {
+         case NIFTI_TYPE_INT8:
+            return bb.get (off);
+         case NIFTI_TYPE_UINT8:
+         case NIFTI_TYPE_RGB24:
+            return bb.get (off) & 0xFF;
+         case NIFTI_TYPE_INT16:
+            return bb.getShort (off);
+         case NIFTI_TYPE_UINT16:
+            return bb.getShort (off) & 0xFFFF;
+         case NIFTI_TYPE_INT32:
+            return bb.getInt (off);
+         case NIFTI_TYPE_UINT32:
+            return bb.getInt (off) & 0xFFFFFFFFL;
+         case NIFTI_TYPE_INT64:
+            return bb.getLong (off);
+         case NIFTI_TYPE_UINT64: {
+            double v = bb.getLong (off);
+            if (v < 0) {
+               v += 18446744073709551616.0; // add 2^64
+            }
+            return v;
+         }
+         case NIFTI_TYPE_FLOAT32:
+         case NIFTI_TYPE_COMPLEX64:
+            return bb.getFloat (off);
+         case NIFTI_TYPE_FLOAT64:
+         case NIFTI_TYPE_COMPLEX128:
+            return bb.getDouble (off);
+         default:
+            return 0;
+      }
+   }
+
+   /**
+    * Gets a single (scaled) value directly from the mapped data.
+    *
+    * @param e entity within value
+    * @param v value index
+    * @param i column index
+    * @param j row index
+    * @param k slice index
+    * @param t time index
+    * @return value
+    */
+   double getValue (int e, int v, int i, int j, int k, int t) {
+      // in the file, i varies fastest and v slowest
+      long fidx =
+         ((((long)v*dims[3] + t)*dims[2] + k)*dims[1] + j)*dims[0] + i;
+      ByteBuffer bb = regions[(int)(fidx/regionValues)];
+      int off = (int)(fidx%regionValues)*valueBytes + e*entityBytes;
+      double val = readEntity (bb, off);
+      if (scaled) {
+         val = inter + slope*val;
+      }
+      return val;
+   }
+
+   /**
+    * Copies the value at a given mapped location into a buffer.
+    */
+   private void storeValue (
+      NiftiDataBuffer buff, int idx, ByteBuffer bb, int off) {
+
+      if (scaled) {
+         for (int e=0; e<numEntities; ++e) {
+            buff.doubles[idx+e] =
+               inter + slope*readEntity (bb, off+e*entityBytes);
+         }
+         return;
+      }
+      switch (fileType) {
+         case NIFTI_TYPE_INT8:
+         case NIFTI_TYPE_UINT8:
+         case NIFTI_TYPE_RGB24:
+            for (int e=0; e<numEntities; ++e) {
+               buff.bytes[idx+e] = bb.get (off+e);
+            }
+            break;
+         case NIFTI_TYPE_INT16:
+         case NIFTI_TYPE_UINT16:
+            buff.shorts[idx] = bb.getShort (off);
+            break;
+         case NIFTI_TYPE_INT32:
+         case NIFTI_TYPE_UINT32:
+            buff.ints[idx] = bb.getInt (off);
+            break;
+         case NIFTI_TYPE_INT64:
+         case NIFTI_TYPE_UINT64:
+            buff.longs[idx] = bb.getLong (off);
+            break;
+         case NIFTI_TYPE_FLOAT32:
+         case NIFTI_TYPE_COMPLEX64:
+            for (int e=0; e<numEntities; ++e) {
+               buff.floats[idx+e] = bb.getFloat (off+4*e);
+            }
+            break;
+         case NIFTI_TYPE_FLOAT64:
+         case NIFTI_TYPE_COMPLEX128:
+            for (int e=0; e<numEntities; ++e) {
+               buff.doubles[idx+e] = bb.getDouble (off+8*e);
+            }
+            break;
+         default:
+            break;
+      }
+   }
+
+   /**
+    * Decodes time frame {@code t} into time index {@code bt} of a buffer.
+    */
+   private void decodeFrame (NiftiDataBuffer buff, int t, int bt) {
+      int nvox = dims[0]*dims[1]*dims[2];
+      for (int v=0; v<dims[4]; ++v) {
+         // each (v,t) block is contiguous in the file, with i varying
+         // fastest, then j, then k
+         long fidx = ((long)v*dims[3] + t)*nvox;
+         int r = (int)(fidx/regionValues);
+         int off = (int)(fidx%regionValues)*valueBytes;
+         ByteBuffer bb = regions[r];
+         int idx = buff.getIndex (v, 0, 0, 0, bt);
+         for (int n=0; n<nvox; ++n) {
+            if (off == bb.limit()) {
+               bb = regions[++r];
+               off = 0;
+            }
+            storeValue (buff, idx, bb, off);
+            off += valueBytes;
+            idx += buff.istep;
+         }
+      }
+   }
+
+   /**
+    * Returns a buffer containing the decoded values for time frame {@code
+    * t}, with a time dimension of 1. Buffers are cached, so that repeated
+    * requests for recently used frames do not require decoding. The returned
+    * buffer should not be modified.
+    *
+    * @param t time index
+    * @return buffer containing the frame
+    */
+   NiftiDataBuffer getFrame (int t) {
+      synchronized (myFrames) {
+         NiftiDataBuffer frame = myFrames.get (t);
+         if (frame == null) {
+            int[] fdims = new int[] {dims[0], dims[1], dims[2], 1, dims[4]};
+            frame = new NiftiDataBuffer (dataType, fdims);
+            decodeFrame (frame, t, 0);
+            myFrames.put (t, frame);
+         }
+         return frame;
+      }
+   }
+
+   /**
+    * Decodes all the data into a new buffer.
+    *
+    * @return buffer containing all time frames
+    */
+   NiftiDataBuffer getAllFrames() {
+      NiftiDataBuffer buff = new NiftiDataBuffer (dataType, dims);
+      for (int t=0; t<dims[3]; ++t) {
+         decodeFrame (buff, t, t);
+      }
+      return buff;
+   }
+
+   /**
+    * Sets the maximum number of decoded time frames that are cached.
+    *
+    * @param max maximum number of cached frames
+    */
+   void setMaxCachedFrames (int max) {
+      if (max < 1) {
+         throw new IllegalArgumentException (
+            "Maximum number of cached frames must be at least 1");
+      }
+      synchronized (myFrames) {
+         myMaxCachedFrames = max;
+         while (myFrames.size() > max) {
+            Integer eldest = myFrames.keySet().iterator().next();
+            myFrames.remove (eldest);
+         }
+      }
+   }
+
+   /**
+    * Returns the maximum number of decoded time frames that are cached.
+    *
+    * @return maximum number of cached frames
+    */
+   int getMaxCachedFrames() {
+      return myMaxCachedFrames;
+   }
+
+   /**
+    * Returns the number of decoded time frames currently cached.
+    *
+    * @return number of cached frames
+    */
+   int numCachedFrames() {
+      synchronized (myFrames) {
+         return myFrames.size();
+      }
+   }
+
+   /**
+    * Removes all decoded time frames from the cache.
+    */
+   void clearCachedFrames() {
+      synchronized (myFrames) {
+         myFrames.clear();
+      }
+   }
+}
@@ -5,6 +5,7 @@ import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 
 import maspack.image.nifti.NiftiHeader.DataType;
@@ -41,35 +42,12 @@ public class NiftiReader {
       bhdr.setLittleEndian(true);
       
       NiftiHeader header = null;
-      int dims[] = new int[5];
+      int dims[] = null;
       
       try {
          header = readHeader(bhdr);
          header.extensions = readExtensions(bhdr);
-         
-         long ndims = header.dim[0];
-         
-         if (ndims == 3) {
-            // single output, no time
-            dims[0] = (int)header.dim[1];
-            dims[1] = (int)header.dim[2];
-            dims[2] = (int)header.dim[3];
-            dims[3] = 1;
-            dims[4] = 1;
-         } else if (ndims == 4) {
-            // no time
-            dims[0] = (int)header.dim[1];
-            dims[1] = (int)header.dim[2];
-            dims[2] = (int)header.dim[3];
-            dims[3] = 1;
-            dims[4] = (int)header.dim[4];
-         } else {
-            dims[0] = (int)header.dim[1];
-            dims[1] = (int)header.dim[2];
-            dims[2] = (int)header.dim[3];
-            dims[3] = (int)header.dim[4];
-            dims[4] = (int)header.dim[5];
-         }
+         dims = getDataDims(header);
          
       } catch (IOException ioe) {
          throw ioe;
@@ -102,30 +80,7 @@ public class NiftiReader {
          NiftiHeader header = readHeader(bis);
          header.extensions = readExtensions(bis);
          
-         int dims[] = new int[5];
-         long ndims = header.dim[0];
-         
-         if (ndims == 3) {
-            // single output, no time
-            dims[0] = (int)header.dim[1];
-            dims[1] = (int)header.dim[2];
-            dims[2] = (int)header.dim[3];
-            dims[3] = 1;
-            dims[4] = 1;
-         } else if (ndims == 4) {
-            // no time
-            dims[0] = (int)header.dim[1];
-            dims[1] = (int)header.dim[2];
-            dims[2] = (int)header.dim[3];
-            dims[3] = 1;
-            dims[4] = (int)header.dim[4];
-         } else {
-            dims[0] = (int)header.dim[1];
-            dims[1] = (int)header.dim[2];
-            dims[2] = (int)header.dim[3];
-            dims[3] = (int)header.dim[4];
-            dims[4] = (int)header.dim[5];
-         }
+         int dims[] = getDataDims(header);
          
          bis = advanceToOffset(bis, file, header.vox_offset);
          
@@ -141,6 +96,116 @@ public class NiftiReader {
       
    }
    
+   /**
+    * Nifti V1 or Analyze 7.5 format with separate header and image files,
+    * with the voxel data memory-mapped instead of being read into memory.
+    * See {@link #readMapped(File)}.
+    * 
+    * @param hdr header file
+    * @param img image file
+    * @return resulting image
+    * @throws IOException on read failure
+    */
+   public static NiftiImage readMapped(File hdr, File img) throws IOException {
+      
+      BinaryInputStream bhdr = new BinaryInputStream(
+         new BufferedInputStream(new FileInputStream(hdr)));
+      bhdr.setLittleEndian(true);
+      
+      NiftiHeader header = null;
+      ByteOrder order = null;
+      try {
+         header = readHeader(bhdr);
+         header.extensions = readExtensions(bhdr);
+         order = getByteOrder(bhdr);
+      } finally {
+         bhdr.close();
+      }
+      
+      if (!NiftiMappedData.isMappable(header.datatype)) {
+         return read(hdr, img);
+      }
+      NiftiMappedData data = new NiftiMappedData(
+         header, getDataDims(header), img, 0, order);
+      return new NiftiImage(hdr.getName(), header, data);
+   }
+   
+   /**
+    * Reads an uncompressed Nifti file, memory-mapping the voxel data instead
+    * of reading it into memory. Voxel values are then read from the file as
+    * they are needed, and time frames are decoded only when first accessed,
+    * so that large 4D volumes can be viewed without having to fit in the
+    * heap. Data types that cannot be mapped (binary and 128-bit types) are
+    * read in full, as with {@link #read(File)}.
+    * 
+    * @param file Nifti file
+    * @return resulting image
+    * @throws IOException on read failure
+    */
+   public static NiftiImage readMapped(File file) throws IOException {
+      
+      BinaryInputStream bis = new BinaryInputStream(
+         new BufferedInputStream(new FileInputStream(file)));
+      bis.setLittleEndian(true);
+      
+      NiftiHeader header = null;
+      ByteOrder order = null;
+      try {
+         header = readHeader(bis);
+         header.extensions = readExtensions(bis);
+         order = getByteOrder(bis);
+      } finally {
+         bis.close();
+      }
+      
+      if (!NiftiMappedData.isMappable(header.datatype)) {
+         return read(file);
+      }
+      NiftiMappedData data = new NiftiMappedData(
+         header, getDataDims(header), file, header.vox_offset, order);
+      return new NiftiImage(file.getName(), header, data);
+   }
+   
+   private static ByteOrder getByteOrder(BinaryInputStream bis) {
+      if (bis.isLittleEndian()) {
+         return ByteOrder.LITTLE_ENDIAN;
+      }
+      return ByteOrder.BIG_ENDIAN;
+   }
+   
+   /**
+    * Determines the data dimensions, in the order x,y,z,t,v, from the
+    * header dimensions
+    */
+   private static int[] getDataDims(NiftiHeader header) {
+      
+      int dims[] = new int[5];
+      long ndims = header.dim[0];
+         
+      if (ndims == 3) {
+         // single output, no time
+         dims[0] = (int)header.dim[1];
+         dims[1] = (int)header.dim[2];
+         dims[2] = (int)header.dim[3];
+         dims[3] = 1;
+         dims[4] = 1;
+      } else if (ndims == 4) {
+         // no time
+         dims[0] = (int)header.dim[1];
+         dims[1] = (int)header.dim[2];
+         dims[2] = (int)header.dim[3];
+         dims[3] = 1;
+         dims[4] = (int)header.dim[4];
+      } else {
+         dims[0] = (int)header.dim[1];
+         dims[1] = (int)header.dim[2];
+         dims[2] = (int)header.dim[3];
+         dims[3] = (int)header.dim[4];
+         dims[4] = (int)header.dim[5];
+      }
+      return dims;
+   }
+   
    public static Extension[] readExtensions(BinaryInputStream reader) throws IOException {
       
       byte[] extension = new byte[4];
@@ -0,0 +1,333 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.image.nifti;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import maspack.image.nifti.NiftiHeader.DataType;
+import maspack.util.TestException;
+import maspack.util.UnitTest;
+
+/**
+ * Tests reading NIfTI files, comparing images that are read in full with
+ * those that are memory-mapped using {@link NiftiReader#readMapped}.
+ */
+public class NiftiReaderTest extends UnitTest {
+
+   // x,y,z,t,v
+   static final int[] DIMS = new int[] {4, 3, 2, 3, 2};
+
+   int numEntities (DataType type) {
+      if (type.isComplex()) {
+         return 2;
+      }
+      else if (type == DataType.NIFTI_TYPE_RGB24) {
+         return 3;
+      }
+      return 1;
+   }
+
+   int entityBytes (DataType type) {
+      switch (type) {
+         case NIFTI_TYPE_UINT8:
+         case NIFTI_TYPE_RGB24:
+            return 1;
+         case NIFTI_TYPE_INT16:
+         case NIFTI_TYPE_UINT16:
+            return 2;
+         case NIFTI_TYPE_FLOAT32:
+         case NIFTI_TYPE_COMPLEX64:
+            return 4;
+         case NIFTI_TYPE_FLOAT64:
+            return 8;
+         default:
+            throw new TestException ("type " + type + " not supported");
+      }
+   }
+
+   /**
+    * Raw value stored for entity e of the value with file index fidx.
+    */
+   double rawValue (DataType type, int fidx, int e) {
+      switch (type) {
+         case NIFTI_TYPE_UINT8:
+            return (fidx*5)%256;
+         case NIFTI_TYPE_RGB24:
+            return (fidx*7 + 50*e)%256;
+         case NIFTI_TYPE_INT16:
+            return (fidx*37)%2000 - 1000;
+         case NIFTI_TYPE_UINT16:
+            // exceeds the range of a signed short
+            return 40000 + fidx*3;
+         case NIFTI_TYPE_FLOAT32:
+         case NIFTI_TYPE_COMPLEX64:
+         case NIFTI_TYPE_FLOAT64:
+            return 0.25*fidx - 3 + 0.5*e;
+         default:
+            return 0;
+      }
+   }
+
+   void putValue (ByteBuffer bb, DataType type, double val) {
+      switch (type) {
+         case NIFTI_TYPE_UINT8:
+         case NIFTI_TYPE_RGB24:
+            bb.put ((byte)val);
+            break;
+         case NIFTI_TYPE_INT16:
+         case NIFTI_TYPE_UINT16:
+            bb.putShort ((short)val);
+            break;
+         case NIFTI_TYPE_FLOAT32:
+         case NIFTI_TYPE_COMPLEX64:
+            bb.putFloat ((float)val);
+            break;
+         case NIFTI_TYPE_FLOAT64:
+            bb.putDouble (val);
+            break;
+         default:
+            break;
+      }
+   }
+
+   /**
+    * Creates a Nifti V1 header, followed by an empty extension flag.
+    */
+   ByteBuffer createHeader (
+      DataType type, double slope, double inter, boolean single,
+      ByteOrder order) {
+
+      ByteBuffer bb = ByteBuffer.allocate (352);
+      bb.order (order);
+      bb.putInt (0, 348);
+      bb.put (38, (byte)'r');
+      bb.putShort (40, (short)5);
+      for (int i=0; i<5; i++) {
+         bb.putShort (42+2*i, (short)DIMS[i]);
+      }
+      bb.putShort (70, (short)type.id);
+      bb.putShort (72, (short)(8*numEntities(type)*entityBytes(type)));
+      bb.putFloat (76, 1f);
+      for (int i=1; i<=5; i++) {
+         bb.putFloat (76+4*i, 1f);
+      }
+      bb.putFloat (108, single ? 352f : 0f);
+      bb.putFloat (112, (float)slope);
+      bb.putFloat (116, (float)inter);
+      String magic = single ? "n+1" : "ni1";
+      for (int i=0; i<3; i++) {
+         bb.put (344+i, (byte)magic.charAt(i));
+      }
+      return bb;
+   }
+
+   /**
+    * Creates the voxel data, in file order.
+    */
+   ByteBuffer createData (DataType type, ByteOrder order) {
+      int nvals = DIMS[0]*DIMS[1]*DIMS[2]*DIMS[3]*DIMS[4];
+      int ne = numEntities (type);
+      ByteBuffer bb = ByteBuffer.allocate (nvals*ne*entityBytes(type));
+      bb.order (order);
+      for (int fidx=0; fidx<nvals; fidx++) {
+         for (int e=0; e<ne; e++) {
+            putValue (bb, type, rawValue (type, fidx, e));
+         }
+      }
+      return bb;
+   }
+
+   void write (File file, ByteBuffer... buffs) throws IOException {
+      FileOutputStream out = new FileOutputStream (file);
+      try {
+         for (ByteBuffer bb : buffs) {
+            out.write (bb.array());
+         }
+      }
+      finally {
+         out.close();
+      }
+   }
+
+   double expectedValue (
+      DataType type, double slope, double inter,
+      int e, int v, int i, int j, int k, int t) {
+      int fidx = (((v*DIMS[3] + t)*DIMS[2] + k)*DIMS[1] + j)*DIMS[0] + i;
+      double val = rawValue (type, fidx, e);
+      if (slope != 0 && type != DataType.NIFTI_TYPE_RGB24) {
+         val = inter + slope*val;
+      }
+      return val;
+   }
+
+   /**
+    * Reads entity e of a value using the image's typed accessors.
+    */
+   double typedValue (NiftiImage im, int e, int v, int i, int j, int k, int t) {
+      switch (im.getDataType()) {
+         case NIFTI_TYPE_UINT8:
+            return im.getInt8 (v, i, j, k, t) & 0xFF;
+         case NIFTI_TYPE_RGB24:
+            if (e == 0) {
+               return im.getRed (v, i, j, k, t) & 0xFF;
+            }
+            else if (e == 1) {
+               return im.getGreen (v, i, j, k, t) & 0xFF;
+            }
+            return im.getBlue (v, i, j, k, t) & 0xFF;
+         case NIFTI_TYPE_INT16:
+            return im.getInt16 (v, i, j, k, t);
+         case NIFTI_TYPE_UINT16:
+            return im.getInt16 (v, i, j, k, t) & 0xFFFF;
+         case NIFTI_TYPE_FLOAT32:
+            return im.getFloat32 (v, i, j, k, t);
+         case NIFTI_TYPE_FLOAT64:
+            return im.getFloat64 (v, i, j, k, t);
+         case NIFTI_TYPE_COMPLEX128:
+            if (e == 0) {
+               return im.getComplex128Real (v, i, j, k, t);
+            }
+            return im.getComplex128Imaginary (v, i, j, k, t);
+         default:
+            throw new TestException (
+               "type " + im.getDataType() + " not supported");
+      }
+   }
+
+   void checkImage (
+      String msg, NiftiImage im, DataType type, double slope, double inter) {
+
+      int ne = numEntities (type);
+      checkEquals (msg+" numCols", im.getNumCols(), DIMS[0]);
+      checkEquals (msg+" numRows", im.getNumRows(), DIMS[1]);
+      checkEquals (msg+" numSlices", im.getNumSlices(), DIMS[2]);
+      checkEquals (msg+" numTimes", im.getNumTimes(), DIMS[3]);
+      checkEquals (
+         msg+" numValuesPerVoxel", im.getNumValuesPerVoxel(), DIMS[4]);
+      checkEquals (msg+" numChannels", im.getNumChannels(), DIMS[4]*ne);
+      NiftiDataBuffer buff = im.getDataBuffer();
+      for (int t=0; t<DIMS[3]; t++) {
+         for (int v=0; v<DIMS[4]; v++) {
+            for (int k=0; k<DIMS[2]; k++) {
+               for (int j=0; j<DIMS[1]; j++) {
+                  for (int i=0; i<DIMS[0]; i++) {
+                     String vmsg = msg+" ("+v+","+i+","+j+","+k+","+t+")";
+                     checkEquals (
+                        vmsg+" value", im.getValue (v, i, j, k, t),
+                        expectedValue (type, slope, inter, 0, v, i, j, k, t));
+                     for (int e=0; e<ne; e++) {
+                        double val =
+                           expectedValue (type, slope, inter, e, v, i, j, k, t);
+                        checkEquals (
+                           vmsg+" entity "+e,
+                           typedValue (im, e, v, i, j, k, t), val);
+                        checkEquals (
+                           vmsg+" buffer entity "+e,
+                           buff.getValue (e, v, i, j, k, t), val);
+                        if (t == 0) {
+                           checkEquals (
+                              vmsg+" channel "+(v*ne+e),
+                              im.getValue (v*ne+e, i, j, k), val);
+                        }
+                     }
+                  }
+               }
+            }
+         }
+      }
+   }
+
+   void testType (
+      DataType type, double slope, double inter, ByteOrder order)
+      throws IOException {
+
+      String msg = type + ", " + order + ", slope=" + slope;
+      File file = File.createTempFile ("niftiReaderTest", ".nii");
+      File hdr = File.createTempFile ("niftiReaderTest", ".hdr");
+      File img = File.createTempFile ("niftiReaderTest", ".img");
+      try {
+         ByteBuffer data = createData (type, order);
+         write (file, createHeader (type, slope, inter, true, order), data);
+         write (hdr, createHeader (type, slope, inter, false, order));
+         write (img, data);
+
+         NiftiImage eager = NiftiReader.read (file);
+         NiftiImage mapped = NiftiReader.readMapped (file);
+         checkEquals (msg+" isMapped", eager.isMapped(), false);
+         checkEquals (msg+" isMapped", mapped.isMapped(), true);
+         checkEquals (
+            msg+" data type", mapped.getDataType(), eager.getDataType());
+         checkImage (msg+" eager", eager, type, slope, inter);
+         checkImage (msg+" mapped", mapped, type, slope, inter);
+
+         // frames are decoded on demand and limited by the cache size
+         mapped.setMaxCachedFrames (1);
+         checkEquals (msg+" cached frames", mapped.mapped.numCachedFrames(), 1);
+         checkImage (msg+" mapped clone", mapped.clone(), type, slope, inter);
+
+         if (order == ByteOrder.LITTLE_ENDIAN) {
+            // full reading of separate image files assumes little-endian data
+            eager = NiftiReader.read (hdr, img);
+            checkImage (msg+" eager hdr/img", eager, type, slope, inter);
+         }
+         mapped = NiftiReader.readMapped (hdr, img);
+         checkEquals (msg+" hdr/img isMapped", mapped.isMapped(), true);
+         checkImage (msg+" mapped hdr/img", mapped, type, slope, inter);
+      }
+      finally {
+         file.delete();
+         hdr.delete();
+         img.delete();
+      }
+   }
+
+   void testTruncatedFile() throws IOException {
+      DataType type = DataType.NIFTI_TYPE_INT16;
+      ByteOrder order = ByteOrder.LITTLE_ENDIAN;
+      File file = File.createTempFile ("niftiReaderTest", ".nii");
+      try {
+         ByteBuffer data = createData (type, order);
+         ByteBuffer part = ByteBuffer.allocate (data.capacity()-2);
+         part.put (data.array(), 0, part.capacity());
+         write (file, createHeader (type, 0, 0, true, order), part);
+         try {
+            NiftiReader.readMapped (file);
+            throw new TestException ("truncated file not detected");
+         }
+         catch (IOException e) {
+            // expected
+         }
+      }
+      finally {
+         file.delete();
+      }
+   }
+
+   public void test() throws IOException {
+      for (ByteOrder order : new ByteOrder[] {
+            ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN }) {
+         testType (DataType.NIFTI_TYPE_UINT8, 0, 0, order);
+         testType (DataType.NIFTI_TYPE_INT16, 0, 0, order);
+         testType (DataType.NIFTI_TYPE_UINT16, 0, 0, order);
+         testType (DataType.NIFTI_TYPE_UINT16, 2, -1, order);
+         testType (DataType.NIFTI_TYPE_FLOAT32, 0, 0, order);
+         testType (DataType.NIFTI_TYPE_FLOAT64, 0.5, 3, order);
+         testType (DataType.NIFTI_TYPE_COMPLEX64, 2, 1, order);
+         testType (DataType.NIFTI_TYPE_RGB24, 0, 0, order);
+      }
+      testTruncatedFile();
+   }
+
+   public static void main (String[] args) {
+      NiftiReaderTest tester = new NiftiReaderTest();
+      tester.runtest();
+   }
+}
@@ -29,6 +29,13 @@ import maspack.util.*;
  * interpolated as curves on the surface of SO(3), as originally described by
  * Ken Shoemake in his SIGGRAPH 1985 paper "Animating Rotation with Quaternion
  * Curves".
+ *
+ * <p>In addition to the linked list, the knots are referenced by a columnar
+ * index containing their times in a primitive array. This allows knots to
+ * be located by binary search when interpolating at arbitrary times, while
+ * sequential access continues to be O(1). Large data sets can be loaded
+ * and retrieved in columnar form using {@link #setValues(double[],double[])}
+ * and {@link #getValues(double[],double[])}.
  */
 public class NumericList
    implements Cloneable, Iterable<NumericListKnot>, Scannable {
@@ -53,6 +60,23 @@ public class NumericList
    protected NumericListKnot myLast;
    // protected boolean myExtendValuesP = false;
 
+   // Columnar index of the knots, allowing knots to be located by binary
+   // search on a primitive array of times instead of by walking the list.
+   // myIndexTimes[k] and myIndexKnots[k] give the time and knot for the k-th
+   // knot. Appending knots to the end of the list keeps the index valid;
+   // other structural changes invalidate it, and it is then rebuilt once
+   // enough list walking has occurred to pay for the rebuild. The index
+   // adds a double and a reference per knot to the list's footprint.
+   private double[] myIndexTimes = new double[0];
+   private NumericListKnot[] myIndexKnots = new NumericListKnot[0];
+   private int myIndexSize = 0;
+   private boolean myIndexValid = true;
+   private int myIndexWalkSteps = 0; // knots walked since index invalidated
+
+   // can be set to false to disable the use of the index, for testing
+   // and timing purposes
+   static boolean useKnotIndex = true;
+
    protected Interpolation myInterpolation;
    protected static Interpolation defaultInterpolation =
       new Interpolation (Order.Step, false);
@@ -368,6 +392,7 @@ public class NumericList
          knot.prev = null;
          myHead = knot;
          myTail = knot;
+         appendToIndex (knot);
       }
       else {
          NumericListKnot anchor = findKnotAtOrBefore (knot.t, last);
@@ -377,9 +402,11 @@ public class NumericList
             knot.next = anchor.next;
             if (anchor.next == null) {
                myTail = knot;
+               appendToIndex (knot);
             }
             else {
                anchor.next.prev = knot;
+               invalidateIndex();
             }
             anchor.next = knot;
 
@@ -390,6 +417,7 @@ public class NumericList
             knot.prev = null;
             myHead = knot;
             anchor.prev = knot;
+            invalidateIndex();
          }
          else { // anchor.t == knot.t, so delete it and replace it with knot
             knot.next = anchor.next;
@@ -406,6 +434,7 @@ public class NumericList
             else {
                anchor.next.prev = knot;
             }
+            replaceInIndex (anchor, knot);
             existing = anchor;
          }
       }
@@ -421,6 +450,131 @@ public class NumericList
          nlk = nlk.next;
       } while (nlk != myTail);
       nlk.t += t;
+      if (myIndexValid) {
+         for (int k=0; k<myIndexSize; k++) {
+            myIndexTimes[k] += t;
+         }
+      }
+   }
+
+   /**
+    * Appends a knot that has just been added to the end of the list to the
+    * index, provided that the index is valid.
+    */
+   private void appendToIndex (NumericListKnot knot) {
+      if (!myIndexValid) {
+         return;
+      }
+      if (knot.prev != (myIndexSize > 0 ? myIndexKnots[myIndexSize-1] : null)) {
+         // index is out of step with the list
+         invalidateIndex();
+         return;
+      }
+      if (myIndexSize == myIndexKnots.length) {
+         int newcap = Math.max (16, 2*myIndexSize);
+         myIndexTimes = Arrays.copyOf (myIndexTimes, newcap);
+         myIndexKnots = Arrays.copyOf (myIndexKnots, newcap);
+      }
+      myIndexTimes[myIndexSize] = knot.t;
+      myIndexKnots[myIndexSize] = knot;
+      myIndexSize++;
+   }
+
+   /**
+    * Replaces a knot in the index with another knot having the same time.
+    */
+   private void replaceInIndex (NumericListKnot oldKnot, NumericListKnot knot) {
+      if (myIndexValid) {
+         int k = findIndexPosition (oldKnot.t);
+         if (k >= 0 && myIndexKnots[k] == oldKnot) {
+            myIndexKnots[k] = knot;
+         }
+         else {
+            invalidateIndex();
+         }
+      }
+   }
+
+   /**
+    * Truncates the index so that its last entry is the specified knot.
+    */
+   private void truncateIndex (NumericListKnot knot) {
+      if (myIndexValid) {
+         int k = findIndexPosition (knot.t);
+         if (k >= 0 && myIndexKnots[k] == knot) {
+            Arrays.fill (myIndexKnots, k+1, myIndexSize, null);
+            myIndexSize = k+1;
+         }
+         else {
+            invalidateIndex();
+         }
+      }
+   }
+
+   private void invalidateIndex() {
+      if (myIndexValid) {
+         myIndexValid = false;
+         myIndexWalkSteps = 0;
+      }
+   }
+
+   private void clearIndex() {
+      Arrays.fill (myIndexKnots, 0, myIndexSize, null);
+      myIndexSize = 0;
+      myIndexValid = true;
+   }
+
+   /**
+    * Rebuilds the index from the current list contents.
+    */
+   private synchronized void rebuildIndex() {
+      int numk = 0;
+      for (NumericListKnot knot = myHead; knot != null; knot = knot.next) {
+         numk++;
+      }
+      if (myIndexKnots.length < numk) {
+         myIndexTimes = new double[numk];
+         myIndexKnots = new NumericListKnot[numk];
+      }
+      else if (numk < myIndexSize) {
+         Arrays.fill (myIndexKnots, numk, myIndexSize, null);
+      }
+      int k = 0;
+      for (NumericListKnot knot = myHead; knot != null; knot = knot.next) {
+         myIndexTimes[k] = knot.t;
+         myIndexKnots[k] = knot;
+         k++;
+      }
+      myIndexSize = numk;
+      myIndexValid = true;
+   }
+
+   /**
+    * Uses binary search on the index to find the position of the last knot
+    * whose time is {@code <= t}, or 0 if there is no such knot. Returns -1 if
+    * the index is empty.
+    */
+   private int findIndexPosition (double t) {
+      double[] times = myIndexTimes;
+      int lo = 0;
+      int hi = myIndexSize-1;
+      if (hi < 0) {
+         return -1;
+      }
+      if (t < times[0]) {
+         return 0;
+      }
+      // invariant: times[lo] <= t, and t < times[hi+1] if hi+1 < size
+      while (lo < hi) {
+         int mid = (lo+hi+1) >>> 1;
+         if (times[mid] <= t) {
+            lo = mid;
+         }
+         else {
+            hi = mid-1;
+         }
+      }
+      return lo;
    }
 
    /**
@@ -598,6 +752,16 @@ public class NumericList
       else {
          knot.next.prev = knot.prev;
       }
+      if (myHead == null) {
+         clearIndex();
+      }
+      else if (myIndexValid && myIndexSize > 0 &&
+          myIndexKnots[myIndexSize-1] == knot) {
+         myIndexKnots[--myIndexSize] = null;
+      }
+      else {
+         invalidateIndex();
+      }
       knot.myList = null;
       myMinMaxValid = false;
    }
@@ -615,41 +779,92 @@ public class NumericList
       }
       knot.next = null;
       myTail = knot;
+      truncateIndex (knot);
       myMinMaxValid = false;
    }
 
    /**
     * Finds the knot whose t value is closest to, and if possible less or equal
     * to, a specified value.
+    *
+    * <p>If {@code last} is a knot in this list lying next to the required
+    * knot, the search takes O(1) time. Otherwise, the knot is located by
+    * binary search, in O(log n) time. Since the search may also rebuild
+    * the knot index, it is synchronized on this list.
     * 
     * @param t
     * specified value
+    * @param last
+    * knot point used to start the search, or {@code null}
     * @return nearest knot less than t
     */
-   public NumericListKnot findKnotAtOrBefore (double t, NumericListKnot last) {
-      if (last == null || last.myList != this) { // no hint from last knot
-                                                   // point.
-         if (myHead == null) {
-            return null; // list is empty, so knot must be null
+   public synchronized NumericListKnot findKnotAtOrBefore (
+      double t, NumericListKnot last) {
+      if (myHead == null) {
+         return null; // list is empty, so knot must be null
+      }
+      if (last == null || last.myList != this || !isNearKnot (t, last)) {
+         NumericListKnot indexed = null;
+         if (useKnotIndex && myIndexValid) {
+            int k = findIndexPosition (t);
+            if (k >= 0) {
+               indexed = myIndexKnots[k];
+            }
+         }
+         if (indexed != null && indexed.myList == this) {
+            last = indexed;
          }
-         else { // start search at Head or Tail, whichever is closer to t
+         else if (last == null || last.myList != this) { 
+            // no hint from last knot point, so start search at Head or Tail,
+            // whichever is closer to t
             double tmid = (myHead.t + myTail.t) / 2;
             last = (t <= tmid ? myHead : myTail);
          }
       }
+      int nsteps = 0;
       if (last.t > t) { // last is above t; try to move closer
          while (last.t > t && last.prev != null) {
             last = last.prev;
+            nsteps++;
          }
       }
       else {
          while (last.next != null && last.next.t <= t) {
             last = last.next;
+            nsteps++;
+         }
+      }
+      if (!myIndexValid && useKnotIndex) {
+         // A rebuild costs about one pass over the list. Rebuilding right
+         // away would waste that pass whenever several edits occur before
+         // the next search, so instead we count the knots walked since the
+         // index was invalidated, and rebuild once this roughly equals the
+         // list size (as given by the old index size). The extra walking is
+         // then bounded by the cost of one rebuild, and lists that are
+         // edited but not searched are never rebuilt.
+         myIndexWalkSteps += nsteps;
+         if (myIndexWalkSteps > myIndexSize+16) {
+            rebuildIndex();
          }
       }
       return last;
    }
 
+   /**
+    * Returns true if the knot at or before t is either {@code knot} or one
+    * of its immediate neighbors.
+    */
+   private boolean isNearKnot (double t, NumericListKnot knot) {
+      if (knot.t <= t) {
+         NumericListKnot next = knot.next;
+         return (next == null || next.t > t ||
+                 next.next == null || next.next.t > t);
+      }
+      else {
+         return (knot.prev == null || knot.prev.t <= t);
+      }
+   }
+
    /**
     * Finds the knot whose t value is closest to a specified value.
     * 
@@ -2190,6 +2405,7 @@ public class NumericList
          knot.myList = null;
       }
       myTail = myHead = myLast = null;
+      clearIndex();
       myMinMaxValid = false;
    }
    
@@ -2403,6 +2619,76 @@ public class NumericList
       }
    }
 
+   /** 
+    * Sets the contents of this numeric list from columnar arrays of times and
+    * values. This is considerably faster than adding knots individually, and
+    * is intended for loading large data sets. The values for the k-th knot
+    * are stored in {@code vals} starting at location {@code k*vsize}, where
+    * {@code vsize} is the vector size of this list.
+    * 
+    * @param times knot times, which must be strictly increasing
+    * @param vals knot values, with length {@code >= times.length*vsize}
+    */   
+   public synchronized void setValues (double[] times, double[] vals) {
+      int numk = times.length;
+      if (vals.length < numk*myVsize) {
+         throw new IllegalArgumentException (
+            "vals has length "+vals.length+"; must be at least "+numk*myVsize);
+      }
+      for (int k=1; k<numk; k++) {
+         if (!(times[k] > times[k-1])) {
+            throw new IllegalArgumentException (
+               "times must be strictly increasing; times["+k+"]="+times[k]+
+               ", times["+(k-1)+"]="+times[k-1]);
+         }
+      }
+      clear();
+      if (myIndexKnots.length < numk) {
+         myIndexTimes = new double[numk];
+         myIndexKnots = new NumericListKnot[numk];
+      }
+      NumericListKnot prev = null;
+      for (int k=0; k<numk; k++) {
+         NumericListKnot knot = new NumericListKnot (myVsize);
+         knot.t = times[k];
+         System.arraycopy (vals, k*myVsize, knot.v.getBuffer(), 0, myVsize);
+         knot.prev = prev;
+         knot.myList = this;
+         if (prev == null) {
+            myHead = knot;
+         }
+         else {
+            prev.next = knot;
+         }
+         myIndexTimes[k] = knot.t;
+         myIndexKnots[k] = knot;
+         prev = knot;
+      }
+      myTail = prev;
+      myIndexSize = numk;
+      myIndexValid = true;
+      myMinMaxValid = false;
+   }
+
+   /** 
+    * Stores the contents of this numeric list in columnar arrays of times and
+    * values, using the arrangement described for {@link
+    * #setValues(double[],double[])}.
+    * 
+    * @param times returns the knot times. Must have a length {@code >=}
+    * {@link #getNumKnots}.
+    * @param vals returns the knot values. Must have a length {@code >=}
+    * {@link #getNumKnots} times the vector size.
+    */   
+   public synchronized void getValues (double[] times, double[] vals) {
+      int k = 0;
+      for (NumericListKnot knot=myHead; knot!=null; knot=knot.next) {
+         times[k] = knot.t;
+         System.arraycopy (knot.v.getBuffer(), 0, vals, k*myVsize, myVsize);
+         k++;
+      }
+   }
+
    /** 
     * Sets the values of this numeric list from those of another numeric list.
     * The vector size of the source list must be greater than or equal to that
@@ -2528,6 +2814,10 @@ public class NumericList
       l.myRotationSubvecOffsets =
          Arrays.copyOf (myRotationSubvecOffsets, myRotationSubvecOffsets.length);
       l.myLast = l.myHead = l.myTail = null;
+      l.myIndexTimes = new double[0];
+      l.myIndexKnots = new NumericListKnot[0];
+      l.myIndexSize = 0;
+      l.myIndexValid = true;
       l.myMinMaxValid = false;
       l.a1 = new VectorNd (0);
       l.a2 = new VectorNd (0);
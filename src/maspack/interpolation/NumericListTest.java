@@ -235,9 +235,111 @@ class NumericListTest extends UnitTest {
       checkInterpolation (list, 6, 0, 0);
    }
 
+   /**
+    * Finds the knot at or before t by walking the list from the start.
+    */
+   NumericListKnot walkToKnotAtOrBefore (NumericList list, double t) {
+      NumericListKnot knot = list.getFirst();
+      if (knot != null) {
+         while (knot.next != null && knot.next.t <= t) {
+            knot = knot.next;
+         }
+      }
+      return knot;
+   }
+
+   void checkKnotSearch (NumericList list, double t) {
+      int numk = list.getNumKnots();
+      NumericListKnot check = walkToKnotAtOrBefore (list, t);
+      NumericListKnot[] hints = new NumericListKnot[] {
+         null, list.getFirst(), list.getLast(),
+         list.getKnot (RandomGenerator.nextInt (0, Math.max(0, numk-1))) };
+      for (NumericListKnot hint : hints) {
+         NumericListKnot knot = list.findKnotAtOrBefore (t, hint);
+         if (knot != check) {
+            throw new TestException (
+               "findKnotAtOrBefore("+t+") returned knot at " +
+               (knot == null ? "null" : knot.t) + ", expected " +
+               (check == null ? "null" : check.t));
+         }
+      }
+   }
+
+   NumericListKnot randomKnot (NumericList list) {
+      return list.getKnot (RandomGenerator.nextInt (0, list.getNumKnots()-1));
+   }
+
+   public void testKnotIndex() {
+      NumericList list = new NumericList (3);
+      // random insertions and removals, interleaved with searches
+      for (int i=0; i<3000; i++) {
+         int op = RandomGenerator.nextInt (0, 99);
+         if (op < 60) {
+            // coarse times so that some knots will be replaced
+            double t = Math.rint (1000*RandomGenerator.nextDouble())/10;
+            list.add (t, 1, 2, 3);
+         }
+         else if (op < 85) {
+            double tlast = (list.isEmpty() ? 0 : list.getLast().t);
+            list.add (tlast+RandomGenerator.nextDouble (0.01, 1), 1, 2, 3);
+         }
+         else if (op < 98) {
+            if (!list.isEmpty()) {
+               list.remove (op < 92 ? list.getLast() : randomKnot (list));
+            }
+         }
+         else if (!list.isEmpty()) {
+            list.clearAfter (randomKnot (list));
+         }
+         double tmax = (list.isEmpty() ? 1 : list.getLast().t+1);
+         checkKnotSearch (list, RandomGenerator.nextDouble (-1, tmax));
+         if (!list.isEmpty()) {
+            checkKnotSearch (list, randomKnot(list).t);
+         }
+      }
+      list.shiftTime (2.5);
+      for (int i=0; i<100; i++) {
+         checkKnotSearch (list, RandomGenerator.nextDouble (0, 110));
+      }
+
+      // columnar loading and retrieval
+      int numk = 500;
+      double[] times = new double[numk];
+      double[] vals = new double[3*numk];
+      NumericList check = new NumericList (3);
+      for (int k=0; k<numk; k++) {
+         times[k] = 0.01*k*k;
+         for (int j=0; j<3; j++) {
+            vals[3*k+j] = RandomGenerator.nextDouble (-1, 1);
+         }
+         check.add (times[k], vals[3*k], vals[3*k+1], vals[3*k+2]);
+      }
+      list.setValues (times, vals);
+      check ("list loaded from columns not equal to check", 
+             list.equals (check));
+      for (int i=0; i<100; i++) {
+         checkKnotSearch (list, RandomGenerator.nextDouble (-1, times[numk-1]+1));
+      }
+      double[] tchk = new double[numk];
+      double[] vchk = new double[3*numk];
+      list.getValues (tchk, vchk);
+      checkEquals ("retrieved times", new VectorNd(tchk), new VectorNd(times));
+      checkEquals ("retrieved values", new VectorNd(vchk), new VectorNd(vals));
+      NumericList copy = list.clone();
+      copy.add (-1.0, 0, 0, 0);
+      checkKnotSearch (copy, 0.5);
+      checkKnotSearch (list, -0.5);
+
+      checkForIllegalArgumentException (
+         () -> list.setValues (new double[] { 0, 1, 1 }, new double[9]));
+      checkForIllegalArgumentException (
+         () -> list.setValues (new double[] { 0, 1, 2 }, new double[8]));
+   }
+
    public void test() {
       simpleTests();
       testPositionLists();
+      testKnotIndex();
    }
 
    public void testInterpolation (NumericList list) {
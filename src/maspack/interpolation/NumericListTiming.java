@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.interpolation;
+
+import maspack.interpolation.Interpolation.Order;
+import maspack.matrix.VectorNd;
+import maspack.util.FunctionTimer;
+import maspack.util.RandomGenerator;
+
+/**
+ * Measures the load time, interpolation throughput, and heap footprint of a
+ * {@link NumericList} containing a large data set, such as that used by a
+ * motion capture input probe. Loading is timed both for knots added
+ * individually and for columnar loading via {@link
+ * NumericList#setValues(double[],double[])}. Interpolation is timed for
+ * sequential and random access, with and without the list's knot index.
+ */
+public class NumericListTiming {
+
+   static int myNumKnots = 60000; // number of knots (60 s at 1 kHz)
+   static int myVsize = 300;      // vector size (number of channels)
+   static int myCnt = 200000;     // number of timed interpolations
+
+   static double[] createTimes (int numk) {
+      double[] times = new double[numk];
+      for (int k=0; k<numk; k++) {
+         times[k] = 0.001*k;
+      }
+      return times;
+   }
+
+   static double[] createValues (int numk, int vsize) {
+      double[] vals = new double[numk*vsize];
+      for (int i=0; i<vals.length; i++) {
+         vals[i] = RandomGenerator.nextDouble (-1, 1);
+      }
+      return vals;
+   }
+
+   static long usedMemory() {
+      Runtime runtime = Runtime.getRuntime();
+      for (int i=0; i<4; i++) {
+         System.gc();
+      }
+      return runtime.totalMemory() - runtime.freeMemory();
+   }
+
+   static NumericList loadByKnot (double[] times, double[] vals) {
+      NumericList list = new NumericList (myVsize);
+      double[] kvals = new double[myVsize];
+      for (int k=0; k<times.length; k++) {
+         System.arraycopy (vals, k*myVsize, kvals, 0, myVsize);
+         list.add (times[k], kvals);
+      }
+      return list;
+   }
+
+   static NumericList loadByColumns (double[] times, double[] vals) {
+      NumericList list = new NumericList (myVsize);
+      list.setValues (times, vals);
+      return list;
+   }
+
+   static void timeLoading (double[] times, double[] vals) {
+      FunctionTimer timer = new FunctionTimer();
+      int cnt = 3;
+      loadByKnot (times, vals); // warm up
+      timer.start();
+      for (int i=0; i<cnt; i++) {
+         loadByKnot (times, vals);
+      }
+      timer.stop();
+      System.out.println ("  load by knot:    " + timer.result (cnt));
+      loadByColumns (times, vals); // warm up
+      timer.start();
+      for (int i=0; i<cnt; i++) {
+         loadByColumns (times, vals);
+      }
+      timer.stop();
+      System.out.println ("  load by columns: " + timer.result (cnt));
+   }
+
+   static String timeInterpolation (
+      NumericList list, double[] tvals, boolean useIndex) {
+      NumericList.useKnotIndex = useIndex;
+      VectorNd v = new VectorNd (myVsize);
+      FunctionTimer timer = new FunctionTimer();
+      // warm up
+      for (int i=0; i<tvals.length/10; i++) {
+         list.interpolate (v, tvals[i]);
+      }
+      timer.start();
+      for (int i=0; i<tvals.length; i++) {
+         list.interpolate (v, tvals[i]);
+      }
+      timer.stop();
+      NumericList.useKnotIndex = true;
+      return timer.result (tvals.length);
+   }
+
+   static void timeInterpolation (NumericList list, double tend) {
+      int cnt = myCnt;
+      double[] seqTimes = new double[cnt];
+      for (int i=0; i<cnt; i++) {
+         seqTimes[i] = (i*tend)/cnt;
+      }
+      // random access is slow without the index, so reduce the count
+      int rcnt = Math.max (1, cnt/100);
+      double[] randTimes = new double[rcnt];
+      for (int i=0; i<rcnt; i++) {
+         randTimes[i] = RandomGenerator.nextDouble (0, tend);
+      }
+      list.setInterpolation (new Interpolation (Order.Linear, false));
+      System.out.println (
+         "  sequential interpolation, list walk: " +
+         timeInterpolation (list, seqTimes, false));
+      System.out.println (
+         "  sequential interpolation, index:     " +
+         timeInterpolation (list, seqTimes, true));
+      System.out.println (
+         "  random interpolation, list walk:     " +
+         timeInterpolation (list, randTimes, false));
+      System.out.println (
+         "  random interpolation, index:         " +
+         timeInterpolation (list, randTimes, true));
+   }
+
+   public static void main (String[] args) {
+      for (int i=0; i<args.length; i++) {
+         if (args[i].equals ("-knots") && i<args.length-1) {
+            myNumKnots = Integer.parseInt (args[++i]);
+         }
+         else if (args[i].equals ("-vsize") && i<args.length-1) {
+            myVsize = Integer.parseInt (args[++i]);
+         }
+         else if (args[i].equals ("-cnt") && i<args.length-1) {
+            myCnt = Integer.parseInt (args[++i]);
+         }
+         else {
+            System.out.println (
+               "Usage: java "+NumericListTiming.class.getName() +
+               " [-knots <n>] [-vsize <n>] [-cnt <n>]");
+            System.exit (1);
+         }
+      }
+      RandomGenerator.setSeed (0x1234);
+      double[] times = createTimes (myNumKnots);
+      double[] vals = createValues (myNumKnots, myVsize);
+      System.out.println (
+         "knots=" + myNumKnots + ", vsize=" + myVsize + ":");
+      timeLoading (times, vals);
+
+      long mem0 = usedMemory();
+      NumericList list = loadByColumns (times, vals);
+      long mem1 = usedMemory();
+      long rawBytes = 8L*(times.length + vals.length);
+      System.out.printf (
+         "  heap: %.1f MB, raw data: %.1f MB, overhead %.1f bytes/knot\n",
+         (mem1-mem0)/1e6, rawBytes/1e6,
+         (mem1-mem0-rawBytes)/(double)myNumKnots);
+
+      timeInterpolation (list, times[myNumKnots-1]);
+   }
+}
@@ -31,6 +31,8 @@ public class SVDecomposition3d {
    private Matrix3d U_;
    private Matrix3d V_;
    private Matrix3d B;
+   // singular values used by the polar decompositions
+   private Vector3d mySig;
 
    protected double S;
    protected double C;
@@ -1407,6 +1409,13 @@ public class SVDecomposition3d {
       B.m02 = 0;
    }
 
+   private Vector3d getSigBuffer() {
+      if (mySig == null) {
+         mySig = new Vector3d();
+      }
+      return mySig;
+   }
+
    /**
     * Factors a 3 x 3 matrix F into a right polar decomposition
     * <pre>
@@ -1418,7 +1427,7 @@ public class SVDecomposition3d {
    public void polarDecomposition (
       Matrix3dBase R, Matrix3d P, Matrix3dBase F) {
 
-      Vector3d sig = new Vector3d();
+      Vector3d sig = getSigBuffer();
       if (!doPolarDecomposition (R, sig, F)) {
          if (P != null) {
             P.set (F);
@@ -1445,7 +1454,7 @@ public class SVDecomposition3d {
    public void polarDecomposition (
       Matrix3dBase R, SymmetricMatrix3d P, Matrix3dBase F) {
 
-      Vector3d sig = new Vector3d();
+      Vector3d sig = getSigBuffer();
       if (doPolarDecomposition (R, sig, F)) {
          if (P != null) {
             // place the symmetric part in P
@@ -1465,7 +1474,7 @@ public class SVDecomposition3d {
    public void leftPolarDecomposition (
       Matrix3d P, Matrix3dBase R, Matrix3dBase F) {
 
-      Vector3d sig = new Vector3d();
+      Vector3d sig = getSigBuffer();
       if (!doPolarDecomposition (R, sig, F)) {
          if (P != null) {
             P.set (F);
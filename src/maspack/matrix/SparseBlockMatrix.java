@@ -13,6 +13,7 @@ import java.util.LinkedList;
 import java.util.ArrayList;
 import java.util.Random;
 
+import maspack.concurrency.ParallelLoop;
 import maspack.util.Clonable;
 import maspack.util.IndentingPrintWriter;
 import maspack.util.InternalErrorException;
@@ -998,18 +999,38 @@ public class SparseBlockMatrix extends SparseMatrixBase implements Clonable {
    }
 
    protected void mulAddVec (
-      double[] res, double[] vec, int r0, int nr, int c0, int nc) {
+      final double[] res, final double[] vec,
+      final int r0, int nr, final int c0, int nc) {
 
       int rowf = r0 + nr;
-      int colf = c0 + nc;
-      int bi0 = getBlockRow (r0);
+      final int colf = c0 + nc;
+      final int bi0 = getBlockRow (r0);
       
       // not a valid row
       if (bi0 < 0) {
          return;
       }
+      int bif = bi0;
+      while (bif<myNumBlockRows && myRowOffsets[bif]<rowf) {
+         bif++;
+      }
+      ParallelLoop loop = getMulLoop (nr);
+      if (loop == null) {
+         mulAddBlockRows (res, vec, bi0, bif, r0, c0, colf);
+      }
+      else {
+         // block rows write to disjoint parts of res
+         loop.run (bif-bi0, new ParallelLoop.RangeTask() {
+               public void run (int tidx, int lo, int hi) {
+                  mulAddBlockRows (res, vec, bi0+lo, bi0+hi, r0, c0, colf);
+               }
+            });
+      }
+   }
 
-      for (int bi=bi0; bi<myNumBlockRows && myRowOffsets[bi]<rowf; bi++) {
+   private void mulAddBlockRows (
+      double[] res, double[] vec, int bi0, int bif, int r0, int c0, int colf) {
+      for (int bi=bi0; bi<bif; bi++) {
          int rowOff = myRowOffsets[bi];
          for (MatrixBlock blk=myRows[bi].myHead; blk!=null; blk=blk.next()) {
             int colOff = myColOffsets[blk.getBlockCol()];
@@ -1234,13 +1255,40 @@ public class SparseBlockMatrix extends SparseMatrixBase implements Clonable {
    }
 
    protected void mulTransposeAddVec (
-      double[] res, double[] vec, int r0, int nr, int c0, int nc) {
+      final double[] res, final double[] vec,
+      final int r0, final int nr, final int c0, int nc) {
 
       int rowf = c0 + nc;
-      int colf = r0 + nr;
-      int bi0 = getBlockRow (c0);
+      final int colf = r0 + nr;
+      final int bi0 = getBlockRow (c0);
+
+      int bif = bi0;
+      while (bif<myNumBlockRows && myRowOffsets[bif]<rowf) {
+         bif++;
+      }
+      ParallelLoop loop = getMulLoop (nc);
+      if (loop == null) {
+         mulTransposeAddBlockRows (res, vec, bi0, bif, r0, c0, colf);
+      }
+      else {
+         // block rows may write to the same parts of res, so threads other
+         // than the first accumulate into their own buffers
+         final double[][] bufs = getMulBuffers (nr);
+         int nchunks = Math.min (loop.numThreads(), bif-bi0);
+         loop.run (bif-bi0, new ParallelLoop.RangeTask() {
+               public void run (int tidx, int lo, int hi) {
+                  mulTransposeAddBlockRows (
+                     tidx == 0 ? res : bufs[tidx],
+                     vec, bi0+lo, bi0+hi, r0, c0, colf);
+               }
+            });
+         reduceMulBuffers (res, nr, nchunks);
+      }
+   }
 
-      for (int bi=bi0; bi<myNumBlockRows && myRowOffsets[bi]<rowf; bi++) {
+   private void mulTransposeAddBlockRows (
+      double[] res, double[] vec, int bi0, int bif, int r0, int c0, int colf) {
+      for (int bi=bi0; bi<bif; bi++) {
          int rowOff = myRowOffsets[bi];
          for (MatrixBlock blk=myRows[bi].myHead; blk!=null; blk = blk.next()) {
             int colOff = myColOffsets[blk.getBlockCol()];
@@ -2467,6 +2515,7 @@ public class SparseBlockMatrix extends SparseMatrixBase implements Clonable {
          throw new InternalErrorException (
             "clone not supported for super class of SparseBlockMatrix");
       }
+      M.clearMulWorkspace();
       M.set (this);
       return M;
    }
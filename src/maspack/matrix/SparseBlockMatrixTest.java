@@ -1066,6 +1066,21 @@ public class SparseBlockMatrixTest extends MatrixTest {
          testMulMat (S);
       }
 
+      // repeat the vector products using multiple threads
+      int minSize = SparseMatrixBase.MIN_PARALLEL_MUL_SIZE;
+      SparseMatrixBase.MIN_PARALLEL_MUL_SIZE = 0;
+      try {
+         for (int i=0; i<20; i++) {
+            SparseBlockMatrix S = createRandomMatrix(-1,-1);
+            S.setNumThreads (3);
+            testMulVec (S);
+            testMulTransposeVec (S);
+         }
+      }
+      finally {
+         SparseMatrixBase.MIN_PARALLEL_MUL_SIZE = minSize;
+      }
+
       testStructure (MatSym);
       testStructure (Mat);
       //testStructure (MatGen);
@@ -14,6 +14,7 @@ import java.util.ArrayList;
 import java.util.Random;
 import java.util.*;
 
+import maspack.concurrency.ParallelLoop;
 import maspack.util.ArraySort;
 import maspack.util.ArraySupport;
 import maspack.util.DynamicIntArray;
@@ -1393,29 +1394,36 @@ public class SparseCRSMatrix extends SparseMatrixBase implements Clonable {
 
    protected void mulVec (
       double[] res, double[] vec, int r0, int nr, int c0, int nc) {
-      int rowf = r0+nr;
-      int colf = c0+nc;
-      for (int i=r0; i<rowf; i++) {
-         RowData row = myRows.get(i);
-         double sum = 0;
-         for (int k=0; k<row.numVals(); k++) {
-            int j = row.myColIdxs[k];
-            if (j >= colf) {
-               break;
-            }
-            if (j >= c0) {
-               sum += row.myValues[k]*vec[j-c0];
-            }
-         }
-         res[i-r0] = sum;
-      }
+      mulRows (res, vec, r0, nr, c0, nc, /*add=*/false);
    }
 
    protected void mulAddVec (
       double[] res, double[] vec, int r0, int nr, int c0, int nc) {
-      int rowf = r0+nr;
-      int colf = c0+nc;
-      for (int i=r0; i<rowf; i++) {
+      mulRows (res, vec, r0, nr, c0, nc, /*add=*/true);
+   }
+
+   private void mulRows (
+      final double[] res, final double[] vec,
+      final int r0, int nr, final int c0, int nc, final boolean add) {
+      final int colf = c0+nc;
+      ParallelLoop loop = getMulLoop (nr);
+      if (loop == null) {
+         mulRows (res, vec, r0, r0+nr, r0, c0, colf, add);
+      }
+      else {
+         // rows write to disjoint parts of res
+         loop.run (nr, new ParallelLoop.RangeTask() {
+               public void run (int tidx, int lo, int hi) {
+                  mulRows (res, vec, r0+lo, r0+hi, r0, c0, colf, add);
+               }
+            });
+      }
+   }
+
+   private void mulRows (
+      double[] res, double[] vec, int i0, int i1,
+      int r0, int c0, int colf, boolean add) {
+      for (int i=i0; i<i1; i++) {
          RowData row = myRows.get(i);
          double sum = 0;
          for (int k=0; k<row.numVals(); k++) {
@@ -1427,7 +1435,12 @@ public class SparseCRSMatrix extends SparseMatrixBase implements Clonable {
                sum += row.myValues[k]*vec[j-c0];
             }
          }
-         res[i-r0] += sum;
+         if (add) {
+            res[i-r0] += sum;
+         }
+         else {
+            res[i-r0] = sum;
+         }
       }
    }
 
@@ -1441,13 +1454,36 @@ public class SparseCRSMatrix extends SparseMatrixBase implements Clonable {
    }
 
    protected void mulTransposeAddVec (
-      double[] res, double[] vec, int r0, int nr, int c0, int nc) {
+      final double[] res, final double[] vec,
+      final int r0, final int nr, final int c0, int nc) {
 
       // rowf and colf are with respect to the *transposed* matrix
-      int rowf = r0+nr;
+      final int rowf = r0+nr;
       int colf = c0+nc;
 
-      for (int i=c0; i<colf; i++) {
+      ParallelLoop loop = getMulLoop (nc);
+      if (loop == null) {
+         mulTransposeAddRows (res, vec, c0, colf, r0, rowf, c0);
+      }
+      else {
+         // rows may write to the same parts of res, so threads other than
+         // the first accumulate into their own buffers
+         final double[][] bufs = getMulBuffers (nr);
+         int nchunks = Math.min (loop.numThreads(), nc);
+         loop.run (nc, new ParallelLoop.RangeTask() {
+               public void run (int tidx, int lo, int hi) {
+                  mulTransposeAddRows (
+                     tidx == 0 ? res : bufs[tidx],
+                     vec, c0+lo, c0+hi, r0, rowf, c0);
+               }
+            });
+         reduceMulBuffers (res, nr, nchunks);
+      }
+   }
+
+   private void mulTransposeAddRows (
+      double[] res, double[] vec, int i0, int i1, int r0, int rowf, int c0) {
+      for (int i=i0; i<i1; i++) {
          RowData row = myRows.get(i);
          for (int k=0; k<row.numVals(); k++) {
             int j = row.myColIdxs[k];
@@ -1866,6 +1902,7 @@ public class SparseCRSMatrix extends SparseMatrixBase implements Clonable {
          throw new InternalErrorException (
             "Cannot clone SparseCRSMatrix");
       }
+      S.clearMulWorkspace();
       S.myRows = new ArrayList<>();
       for (RowData row : myRows) {
          S.myRows.add (new RowData(row));
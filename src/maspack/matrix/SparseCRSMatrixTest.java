@@ -555,6 +555,21 @@ class SparseCRSMatrixTest extends MatrixTest {
          testMulMat (S);
       }
 
+      // repeat the vector products using multiple threads
+      int minSize = SparseMatrixBase.MIN_PARALLEL_MUL_SIZE;
+      SparseMatrixBase.MIN_PARALLEL_MUL_SIZE = 0;
+      try {
+         for (int i=0; i<20; i++) {
+            SparseCRSMatrix S = createRandomMatrix();
+            S.setNumThreads (3);
+            testMulVec (S);
+            testMulTransposeVec (S);
+         }
+      }
+      finally {
+         SparseMatrixBase.MIN_PARALLEL_MUL_SIZE = minSize;
+      }
+
       testRemoveRows();
    }
 
@@ -9,6 +9,7 @@ package maspack.matrix;
 import java.io.*;
 import java.util.*;
 
+import maspack.concurrency.ParallelLoop;
 import maspack.util.NumberFormat;
 import maspack.util.MD5Checksum;
 
@@ -18,6 +19,131 @@ import maspack.util.MD5Checksum;
 public abstract class SparseMatrixBase extends MatrixBase
    implements SparseMatrix {
 
+   /**
+    * Minimum number of rows (or columns, for transpose products) in a
+    * vector product before it is executed in parallel. Products for
+    * smaller matrices always use the serial code.
+    */
+   public static int MIN_PARALLEL_MUL_SIZE = 3000;
+
+   protected int myNumThreads = 1;
+   protected ParallelLoop myMulLoop;
+   // per-thread reduction buffers for parallel transpose products
+   protected double[][] myMulBuffers;
+
+   /**
+    * Sets the number of threads used to compute vector products with this
+    * matrix. When this is greater than one, products for matrices larger
+    * than {@link #MIN_PARALLEL_MUL_SIZE} are partitioned by row among the
+    * threads, with transpose products accumulated in per-thread buffers
+    * that are then summed in thread order. Results are therefore
+    * repeatable for a given number of threads, but may differ in the last
+    * few bits from those computed serially. A matrix using more than one
+    * thread should not be used for products by several threads at once.
+    *
+    * @param num number of threads used for vector products
+    */
+   public void setNumThreads (int num) {
+      if (num < 1) {
+         throw new IllegalArgumentException (
+            "Number of threads must be at least 1; got "+num);
+      }
+      if (num != myNumThreads) {
+         myNumThreads = num;
+         myMulLoop = null;
+         myMulBuffers = null;
+      }
+   }
+
+   /**
+    * Returns the number of threads used to compute vector products with this
+    * matrix.
+    *
+    * @return number of threads used for vector products
+    * @see #setNumThreads
+    */
+   public int getNumThreads() {
+      return myNumThreads;
+   }
+
+   /**
+    * Sets the loop used to compute vector products with this matrix in
+    * parallel, so that it can be shared with other matrices and avoid the
+    * creation of additional threads. The number of threads is set to that
+    * of the loop. Specifying {@code null} restores serial products.
+    *
+    * @param loop parallel loop to use for vector products
+    */
+   public void setParallelLoop (ParallelLoop loop) {
+      myNumThreads = (loop != null ? loop.numThreads() : 1);
+      myMulLoop = loop;
+      myMulBuffers = null;
+   }
+
+   /**
+    * Returns the loop to use for a vector product with {@code n} rows, or
+    * {@code null} if the product should be computed serially.
+    */
+   protected ParallelLoop getMulLoop (int n) {
+      if (myNumThreads <= 1 || n < MIN_PARALLEL_MUL_SIZE) {
+         return null;
+      }
+      if (myMulLoop == null) {
+         myMulLoop = new ParallelLoop ("SparseMatrixMul", myNumThreads);
+      }
+      return myMulLoop;
+   }
+
+   /**
+    * Returns zeroed reduction buffers of size {@code n} for threads
+    * 1 to {@code numThreads-1}. Thread 0 accumulates directly into the
+    * result.
+    */
+   protected double[][] getMulBuffers (int n) {
+      int nt = myMulLoop.numThreads();
+      if (myMulBuffers == null || myMulBuffers.length != nt) {
+         myMulBuffers = new double[nt][];
+      }
+      for (int t=1; t<nt; t++) {
+         if (myMulBuffers[t] == null || myMulBuffers[t].length < n) {
+            myMulBuffers[t] = new double[n];
+         }
+         else {
+            Arrays.fill (myMulBuffers[t], 0, n, 0);
+         }
+      }
+      return myMulBuffers;
+   }
+
+   /**
+    * Adds the first {@code n} entries of the reduction buffers for threads
+    * 1 to {@code nchunks-1} into {@code res}, in thread order.
+    */
+   protected void reduceMulBuffers (
+      final double[] res, final int n, final int nchunks) {
+      final double[][] bufs = myMulBuffers;
+      myMulLoop.run (n, new ParallelLoop.RangeTask() {
+            public void run (int tidx, int lo, int hi) {
+               for (int t=1; t<nchunks; t++) {
+                  double[] buf = bufs[t];
+                  for (int j=lo; j<hi; j++) {
+                     res[j] += buf[j];
+                  }
+               }
+            }
+         });
+   }
+
+   /**
+    * Should be called by subclasses when they are cloned, so that the copy
+    * does not share the parallel loop or reduction buffers. The number of
+    * threads is preserved.
+    */
+   protected void clearMulWorkspace() {
+      myMulLoop = null;
+      myMulBuffers = null;
+   }
+
    /**
     * {@inheritDoc}
     */
@@ -15,7 +15,6 @@ import maspack.util.Range;
 
 public class GenericPropertyHandle implements Property {
    HasProperties myHost;
-   Method myGetMethod;
    Method mySetMethod;
    Method myGetRangeMethod;
    Object myKey;
@@ -26,7 +25,6 @@ public class GenericPropertyHandle implements Property {
 
    public GenericPropertyHandle (HasProperties host, PropertyDesc desc) {
       myHost = host;
-      myGetMethod = desc.myGetMethod;
       mySetMethod = desc.mySetMethod;
       myGetRangeMethod = desc.myGetRangeMethod;
       myKey = desc.myKey;
@@ -56,22 +54,16 @@ public class GenericPropertyHandle implements Property {
 
    public Object get() {
       try {
-         if (myKey != null) {
-            return myGetMethod.invoke (myHost, myKey);
-         }
-         else {
-            return myGetMethod.invoke (myHost);
-         }
+         return myDesc.invokeGet (myHost);
       }
       catch (RuntimeException e) {
          System.out.println ("exception invoking getMethod for " + getName());
          throw e;
       }
-      catch (InvocationTargetException e) {
-         e.printStackTrace();
-         throw new RuntimeException (e.getTargetException().getMessage());
+      catch (Error e) {
+         throw e;
       }
-      catch (Exception e) {
+      catch (Throwable e) {
          e.printStackTrace();
          throw new RuntimeException (e.getMessage());
       }
@@ -86,24 +78,47 @@ public class GenericPropertyHandle implements Property {
          return;
       }
       try {
-         if (myKey != null) {
-            mySetMethod.invoke (myHost, myKey, obj);
-         }
-         else {
-            mySetMethod.invoke (myHost, obj);            
-         }
+         myDesc.invokeSet (myHost, obj);
       }
-      catch (RuntimeException e) {
+      catch (RuntimeException | Error e) {
          throw e;
       }
-      catch (InvocationTargetException e) {
-         throw (RuntimeException)e.getCause();
-      }
-      catch (Exception e) {
+      catch (Throwable e) {
          throw new RuntimeException (e.getMessage());
       }
    }
 
+   /**
+    * Returns {@code true} if this property has a primitive {@code double}
+    * value which can be accessed without boxing using {@link #getDouble}
+    * and {@link #setDouble}.
+    *
+    * @return {@code true} if primitive double access is available
+    */
+   public boolean hasDoubleAccess() {
+      return myDesc.hasDoubleAccess();
+   }
+
+   /**
+    * Returns the value of this property as a primitive {@code double}.
+    * Should only be called if {@link #hasDoubleAccess} returns {@code true}.
+    *
+    * @return double value of this property
+    */
+   public double getDouble() {
+      return myDesc.getDoubleValue (myHost);
+   }
+
+   /**
+    * Sets the value of this property from a primitive {@code double}.
+    * Should only be called if {@link #hasDoubleAccess} returns {@code true}.
+    *
+    * @param value new double value for this property
+    */
+   public void setDouble (double value) {
+      myDesc.setDoubleValue (myHost, value);
+   }
+
    public Range getRange () {
       if (myGetRangeMethod != null) {
          try {
@@ -568,4 +568,55 @@ public class NumericConverter {
       }
    }
 
+   private boolean hasDoubleAccess (Property prop) {
+      return (myType == PropertyDesc.TypeCode.DOUBLE &&
+              prop instanceof GenericPropertyHandle &&
+              ((GenericPropertyHandle)prop).hasDoubleAccess());
+   }
+
+   /**
+    * Reads the numeric value of a property into an array, starting at a
+    * specified offset. The property should have the same type as the object
+    * used to create this converter. Properties with primitive {@code double}
+    * values are read directly, without creating boxed objects.
+    *
+    * @param array array in which to store the value
+    * @param off starting offset within the array
+    * @param prop property to read
+    */
+   public void getPropertyValues (double[] array, int off, Property prop) {
+      if (hasDoubleAccess (prop)) {
+         array[off] = ((GenericPropertyHandle)prop).getDouble();
+      }
+      else if (off == 0) {
+         objectToArray (array, prop.get());
+      }
+      else {
+         objectToArray (myArray, prop.get());
+         System.arraycopy (myArray, 0, array, off, myDimension);
+      }
+   }
+
+   /**
+    * Sets the value of a property from numeric values stored in an array,
+    * starting at a specified offset. The property should have the same type
+    * as the object used to create this converter. Properties with primitive
+    * {@code double} values are set directly, without creating boxed objects.
+    *
+    * @param prop property to set
+    * @param array array containing the values
+    * @param off starting offset within the array
+    */
+   public void setPropertyValues (Property prop, double[] array, int off) {
+      if (hasDoubleAccess (prop)) {
+         ((GenericPropertyHandle)prop).setDouble (array[off]);
+      }
+      else if (off == 0) {
+         prop.set (arrayToObject (array));
+      }
+      else {
+         System.arraycopy (array, off, myArray, 0, myDimension);
+         prop.set (arrayToObject (myArray));
+      }
+   }
 }
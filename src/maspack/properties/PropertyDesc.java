@@ -10,6 +10,10 @@ import java.awt.Color;
 import java.awt.Font;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.List;
 
@@ -57,6 +61,15 @@ public class PropertyDesc implements PropertyInfo {
    protected Method myGetModeMethod;
    protected Method mySetModeMethod;
    protected Method myCreateMethod;
+   // method handles for the get and set methods, adapted to take and return
+   // Objects. Created once when the methods are located, and used in place
+   // of Method.invoke(). Will be null if the handles could not be created.
+   protected MethodHandle myGetHandle;
+   protected MethodHandle mySetHandle;
+   // primitive handles for non-keyed properties with double values, which
+   // allow the value to be accessed without boxing
+   protected MethodHandle myGetDoubleHandle;
+   protected MethodHandle mySetDoubleHandle;
    // if present, leading argument for the methods
    protected Object myKey;
    protected Class<?> myKeyClass;
@@ -743,6 +756,22 @@ public class PropertyDesc implements PropertyInfo {
       }
    }
 
+   /**
+    * Creates a method handle for a method, adapted to a specified type.
+    * Returns {@code null} if the handle cannot be created, in which case
+    * the method will be called using reflection.
+    */
+   private MethodHandle createHandle (Method method, MethodType type) {
+      try {
+         return MethodHandles.publicLookup().unreflect (method).asType (type);
+      }
+      catch (Exception e) {
+         // method is not publicly accessible, e.g., because its declaring
+         // class is not public
+         return null;
+      }
+   }
+
    private void initGetMethod (String methodName) {
       if (myKey != null) {
          myGetMethod = locateMethod (methodName, myKeyClass);
@@ -754,6 +783,24 @@ public class PropertyDesc implements PropertyInfo {
          setPropertyType (myGetMethod.getReturnType());
       }
       checkReturnType (myGetMethod, myValueClass);
+      if (myKey != null) {
+         myGetHandle = createHandle (
+            myGetMethod,
+            MethodType.methodType (Object.class, Object.class, Object.class));
+         myGetDoubleHandle = null;
+      }
+      else {
+         myGetHandle = createHandle (
+            myGetMethod, MethodType.methodType (Object.class, Object.class));
+         if (myGetMethod.getReturnType() == double.class) {
+            myGetDoubleHandle = createHandle (
+               myGetMethod,
+               MethodType.methodType (double.class, Object.class));
+         }
+         else {
+            myGetDoubleHandle = null;
+         }
+      }
    }
 
    private void initSetMethod (String methodName) {
@@ -763,9 +810,139 @@ public class PropertyDesc implements PropertyInfo {
       }
       if (myKey != null) {
          mySetMethod = locateMethod (methodName, myKeyClass, myValueClass);
+         mySetHandle = createHandle (
+            mySetMethod,
+            MethodType.methodType (
+               void.class, Object.class, Object.class, Object.class));
+         mySetDoubleHandle = null;
       }
       else {
          mySetMethod = locateMethod (methodName, myValueClass);
+         mySetHandle = createHandle (
+            mySetMethod,
+            MethodType.methodType (void.class, Object.class, Object.class));
+         if (myValueClass == double.class) {
+            mySetDoubleHandle = createHandle (
+               mySetMethod,
+               MethodType.methodType (void.class, Object.class, double.class));
+         }
+         else {
+            mySetDoubleHandle = null;
+         }
+      }
+   }
+
+   /**
+    * Invokes the get method for this property on a specified host. Method
+    * handles are used if available, and otherwise reflection. Exceptions
+    * thrown by the get method are passed through unwrapped.
+    */
+   Object invokeGet (Object host) throws Throwable {
+      if (myGetHandle != null) {
+         if (myKey == null) {
+            return (Object)myGetHandle.invokeExact (host);
+         }
+         else {
+            return (Object)myGetHandle.invokeExact (host, myKey);
+         }
+      }
+      try {
+         if (myKey == null) {
+            return myGetMethod.invoke (host);
+         }
+         else {
+            return myGetMethod.invoke (host, myKey);
+         }
+      }
+      catch (InvocationTargetException e) {
+         throw e.getCause();
+      }
+   }
+
+   /**
+    * Invokes the set method for this property on a specified host. Method
+    * handles are used if available, and otherwise reflection. Exceptions
+    * thrown by the set method are passed through unwrapped.
+    */
+   void invokeSet (Object host, Object value) throws Throwable {
+      if (mySetHandle != null) {
+         if (myKey == null) {
+            mySetHandle.invokeExact (host, value);
+         }
+         else {
+            mySetHandle.invokeExact (host, myKey, value);
+         }
+         return;
+      }
+      try {
+         if (myKey == null) {
+            mySetMethod.invoke (host, value);
+         }
+         else {
+            mySetMethod.invoke (host, myKey, value);
+         }
+      }
+      catch (InvocationTargetException e) {
+         throw e.getCause();
+      }
+   }
+
+   /**
+    * Returns {@code true} if this property has a primitive {@code double}
+    * value which can be accessed without boxing using {@link
+    * #getDoubleValue} and {@link #setDoubleValue}.
+    *
+    * @return {@code true} if primitive double access is available
+    */
+   public boolean hasDoubleAccess() {
+      return (myGetDoubleHandle != null &&
+              (mySetDoubleHandle != null || mySetMethod == null));
+   }
+
+   /**
+    * Returns the value of this property for a specified host as a primitive
+    * {@code double}. Should only be called if {@link #hasDoubleAccess}
+    * returns {@code true}.
+    *
+    * @param host host object
+    * @return double value of the property
+    */
+   public double getDoubleValue (HasProperties host) {
+      try {
+         return (double)myGetDoubleHandle.invokeExact ((Object)host);
+      }
+      catch (RuntimeException | Error e) {
+         throw e;
+      }
+      catch (Throwable e) {
+         throw new InternalErrorException (
+            "Error invoking "+host.getClass().getName()+"."+
+            myGetMethod.getName()+": "+e);
+      }
+   }
+
+   /**
+    * Sets the value of this property for a specified host from a primitive
+    * {@code double}. Should only be called if {@link #hasDoubleAccess}
+    * returns {@code true}. Has no effect if the property is read-only.
+    *
+    * @param host host object
+    * @param value new double value for the property
+    */
+   public void setDoubleValue (HasProperties host, double value) {
+      if (mySetDoubleHandle == null) {
+         return;
+      }
+      try {
+         mySetDoubleHandle.invokeExact ((Object)host, value);
+      }
+      catch (RuntimeException | Error e) {
+         throw e;
+      }
+      catch (Throwable e) {
+         throw new InternalErrorException (
+            "Error invoking "+host.getClass().getName()+"."+
+            mySetMethod.getName()+": "+e);
       }
    }
    
@@ -1038,7 +1215,7 @@ public class PropertyDesc implements PropertyInfo {
    }
 
    protected void methodInvocationError (
-      Exception e, HasProperties host, Method method) {
+      Throwable e, HasProperties host, Method method) {
       e.printStackTrace(); 
       throw new InternalErrorException (
          "Error invoking "+host.getClass().getName()+"."+method.getName());
@@ -1067,14 +1244,9 @@ public class PropertyDesc implements PropertyInfo {
       else {
          checkHostClass (host);
          try {
-            if (myKey == null) {
-               return myGetMethod.invoke (host);
-            }
-            else {
-               return myGetMethod.invoke (host, myKey);
-            }
+            return invokeGet (host);
          }
-         catch (Exception e) {
+         catch (Throwable e) {
             methodInvocationError (e, host, myGetMethod);
          }
          return null;
@@ -1112,14 +1284,9 @@ public class PropertyDesc implements PropertyInfo {
       else {
          checkHostClass (host);
          try {
-            if (myKey == null) {
-               mySetMethod.invoke (host, value);
-            }
-            else {
-               mySetMethod.invoke (host, myKey, value);
-            }
+            invokeSet (host, value);
          }
-         catch (Exception e) {
+         catch (Throwable e) {
             methodInvocationError (e, host, mySetMethod);
          }
       }
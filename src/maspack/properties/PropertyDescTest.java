@@ -324,7 +324,90 @@ public class PropertyDescTest extends UnitTest implements HasProperties {
       }
    }
 
+   /**
+    * Non-public host class, whose methods cannot be accessed using public
+    * method handles, and so must be invoked using reflection.
+    */
+   static class HiddenHost implements HasProperties {
+      double myValue = 1.0;
+
+      static protected PropertyList hiddenProps =
+         new PropertyList (HiddenHost.class);
+
+      static {
+         hiddenProps.add ("value", "test value", 1.0);
+      }
+
+      public double getValue() {
+         return myValue;
+      }
+
+      public void setValue (double val) {
+         myValue = val;
+      }
+
+      public Property getProperty (String name) {
+         return PropertyList.getProperty (name, this);
+      }
+
+      public PropertyList getAllPropertyInfo() {
+         return hiddenProps;
+      }
+   }
+
+   void checkDoubleAccess (
+      HasProperties host, PropertyDesc desc, boolean handles) {
+      GenericPropertyHandle prop =
+         (GenericPropertyHandle)desc.createHandle (host);
+      String name = desc.getName();
+      checkEquals (name+" has handles", desc.myGetHandle != null, handles);
+      checkEquals (name+" has double access", prop.hasDoubleAccess(), handles);
+      prop.set (2.5);
+      checkEquals (name+" get", prop.get(), 2.5);
+      NumericConverter conv = new NumericConverter (prop.get());
+      double[] buf = new double[3];
+      conv.getPropertyValues (buf, 1, prop);
+      checkEquals (name+" getPropertyValues", buf[1], 2.5);
+      buf[2] = -4.0;
+      conv.setPropertyValues (prop, buf, 2);
+      checkEquals (name+" setPropertyValues", prop.get(), -4.0);
+      if (handles) {
+         prop.setDouble (7.0);
+         checkEquals (name+" getDouble", prop.getDouble(), 7.0);
+      }
+   }
+
+   void testAccessors() {
+      checkDoubleAccess (this, props.get ("double"), true);
+      checkDoubleAccess (
+         new HiddenHost(), HiddenHost.hiddenProps.get ("value"), false);
+
+      // non-double properties use generic handles only
+      GenericPropertyHandle prop =
+         (GenericPropertyHandle)props.get ("vectorNd").createHandle (this);
+      checkEquals ("vectorNd has double access", prop.hasDoubleAccess(), false);
+      NumericConverter conv = new NumericConverter (prop.get());
+      double[] buf = new double[5];
+      conv.getPropertyValues (buf, 2, prop);
+      checkEquals (
+         "vectorNd getPropertyValues",
+         new VectorNd (new double[] { buf[2], buf[3], buf[4] }), myVectorNd);
+      buf = new double[] { 0, 4, 5, 6 };
+      conv.setPropertyValues (prop, buf, 1);
+      checkEquals (
+         "vectorNd setPropertyValues",
+         myVectorNd, new VectorNd (new double[] { 4, 5, 6 }));
+
+      prop = (GenericPropertyHandle)props.get ("int").createHandle (this);
+      conv = new NumericConverter (prop.get());
+      conv.setPropertyValues (prop, new double[] { 0, 42 }, 1);
+      checkEquals ("int setPropertyValues", myInt, 42);
+      props.get ("int").setValue (this, 17);
+      checkEquals ("int setValue", props.get ("int").getValue (this), 17);
+   }
+
    public void test() {
+      testAccessors();
       StringWriter sw = new StringWriter (1024);
       IndentingPrintWriter pw = new IndentingPrintWriter (sw);
       
@@ -0,0 +1,444 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.solvers;
+
+import java.util.Arrays;
+
+import maspack.util.InternalErrorException;
+
+/**
+ * Computes fill-reducing orderings for sparse symmetric matrices using an
+ * approximate minimum degree (AMD) algorithm, following Amestoy, Davis and
+ * Duff, "An Approximate Minimum Degree Ordering Algorithm", SIAM J. Matrix
+ * Anal. Appl., 17(4), 1996.
+ *
+ * <p>Elimination is carried out on a quotient graph, in which eliminated
+ * nodes become <i>elements</i> that implicitly represent the cliques created
+ * by fill. Node degrees are replaced by the approximate external degree
+ * bound of the paper, indistinguishable nodes are merged into
+ * supervariables, and elements that become subsets of the current pivot
+ * element are absorbed. Very dense rows are removed from the graph at the
+ * start and ordered last.
+ */
+public class AMDOrdering {
+
+   private static final int VAR = 0;
+   private static final int ELEM = 1;
+   private static final int DEAD = 2;
+
+   private int myN;
+
+   // quotient graph state
+   private int[] myStatus;
+   private int[] myNv;      // supervariable weights; 0 for merged variables
+   private int[] myDegree;  // approximate external degrees
+   private int[][] myVars;  // variable adjacency for each variable
+   private int[] myNumVars;
+   private int[][] myElems; // element adjacency for each variable
+   private int[] myNumElems;
+   private int[][] myElemVars; // variables of each element
+   private int[] myElemSize;   // weighted size of each element
+
+   // degree lists
+   private int[] myHead;
+   private int[] myNext;
+   private int[] myPrev;
+
+   // lists of variables merged into each supervariable
+   private int[] myChainNext;
+   private int[] myChainTail;
+
+   // marker arrays
+   private int[] myMark;
+   private int myStamp;
+   private int[] myW;
+   private int[] myWFlag;
+   private int myWStamp;
+
+   private AMDOrdering (int n) {
+      myN = n;
+   }
+
+   /**
+    * Computes a fill-reducing ordering for a symmetric matrix whose sparsity
+    * structure is given in 0-based compressed row storage (CRS) format. Only
+    * the structure is used. The structure may describe either the upper
+    * triangle, the lower triangle, or the full matrix; diagonal entries are
+    * ignored.
+    *
+    * @param rowOffs row start offsets into <code>colIdxs</code>, followed
+    * by the number of entries. Must have a length of at least
+    * <code>n+1</code>.
+    * @param colIdxs column indices of each entry
+    * @param n size of the matrix
+    * @return permutation array <code>perm</code>, such that
+    * <code>perm[k]</code> gives the index of the <code>k</code>-th row
+    * (and column) of the reordered matrix
+    */
+   public static int[] computeOrdering (int[] rowOffs, int[] colIdxs, int n) {
+      AMDOrdering amd = new AMDOrdering (n);
+      return amd.order (rowOffs, colIdxs);
+   }
+
+   private int[] order (int[] rowOffs, int[] colIdxs) {
+      int n = myN;
+      int[] perm = new int[n];
+      if (n == 0) {
+         return perm;
+      }
+      buildGraph (rowOffs, colIdxs);
+
+      // remove dense rows; these will be ordered last
+      int denseLimit = Math.max (16, (int)(10*Math.sqrt (n)));
+      denseLimit = Math.min (n-2, denseLimit);
+      myStatus = new int[n];
+      int numDense = 0;
+      long[] dense = new long[n];
+      for (int i=0; i<n; i++) {
+         if (n > 16 && myNumVars[i] > denseLimit) {
+            myStatus[i] = DEAD;
+            dense[numDense++] = ((long)myNumVars[i] << 32) | i;
+         }
+      }
+      myNv = new int[n];
+      myDegree = new int[n];
+      myHead = new int[n+1];
+      myNext = new int[n];
+      myPrev = new int[n];
+      Arrays.fill (myHead, -1);
+      for (int i=0; i<n; i++) {
+         if (myStatus[i] == VAR) {
+            myNv[i] = 1;
+            int deg = 0;
+            for (int k=0; k<myNumVars[i]; k++) {
+               if (myStatus[myVars[i][k]] == VAR) {
+                  deg++;
+               }
+            }
+            myDegree[i] = deg;
+            insertDegree (i);
+         }
+      }
+      myElems = new int[n][];
+      myNumElems = new int[n];
+      myElemVars = new int[n][];
+      myElemSize = new int[n];
+      myChainNext = new int[n];
+      myChainTail = new int[n];
+      for (int i=0; i<n; i++) {
+         myElems[i] = new int[4];
+         myChainNext[i] = -1;
+         myChainTail[i] = i;
+      }
+      myMark = new int[n];
+      myW = new int[n];
+      myWFlag = new int[n];
+
+      int[] pivots = new int[n];
+      int numPivots = 0;
+      int numElim = 0;
+      int mindeg = 0;
+      int[] lp = new int[n];
+      long[] hashKeys = new long[n];
+
+      while (numElim < n-numDense) {
+         // select pivot of minimum approximate degree
+         while (myHead[mindeg] == -1) {
+            mindeg++;
+         }
+         int p = myHead[mindeg];
+         removeDegree (p);
+         pivots[numPivots++] = p;
+         numElim += myNv[p];
+
+         // form the pivot element Lp from the variables of p and the
+         // variables of the elements adjacent to p
+         int stamp = nextStamp();
+         myMark[p] = stamp;
+         int nlp = 0;
+         int degp = 0;
+         for (int k=0; k<myNumElems[p]; k++) {
+            int e = myElems[p][k];
+            if (myStatus[e] != ELEM) {
+               continue;
+            }
+            int[] evars = myElemVars[e];
+            for (int l=0; l<evars.length; l++) {
+               int j = evars[l];
+               if (myNv[j] > 0 && myStatus[j] == VAR && myMark[j] != stamp) {
+                  myMark[j] = stamp;
+                  lp[nlp++] = j;
+                  degp += myNv[j];
+               }
+            }
+            // element e is absorbed into p
+            myStatus[e] = DEAD;
+            myElemVars[e] = null;
+         }
+         for (int k=0; k<myNumVars[p]; k++) {
+            int j = myVars[p][k];
+            if (myNv[j] > 0 && myStatus[j] == VAR && myMark[j] != stamp) {
+               myMark[j] = stamp;
+               lp[nlp++] = j;
+               degp += myNv[j];
+            }
+         }
+         myStatus[p] = ELEM;
+         myVars[p] = null;
+         myElems[p] = null;
+         myNumVars[p] = 0;
+         myNumElems[p] = 0;
+
+         // compute |Le \ Lp| for all elements e adjacent to Lp
+         int wstamp = ++myWStamp;
+         for (int k=0; k<nlp; k++) {
+            int i = lp[k];
+            removeDegree (i);
+            for (int l=0; l<myNumElems[i]; l++) {
+               int e = myElems[i][l];
+               if (myStatus[e] == ELEM) {
+                  if (myWFlag[e] != wstamp) {
+                     myWFlag[e] = wstamp;
+                     myW[e] = myElemSize[e];
+                  }
+                  myW[e] -= myNv[i];
+               }
+            }
+         }
+
+         // update the adjacency and degree of each variable in Lp
+         int remaining = n - numDense - numElim;
+         for (int k=0; k<nlp; k++) {
+            int i = lp[k];
+            long hash = 0;
+            // element list: drop dead elements, absorb those contained in Lp
+            int[] elems = myElems[i];
+            int ne = 0;
+            int dege = 0;
+            for (int l=0; l<myNumElems[i]; l++) {
+               int e = elems[l];
+               if (myStatus[e] == ELEM) {
+                  int we = myW[e];
+                  if (we == 0) {
+                     // aggressive absorption
+                     myStatus[e] = DEAD;
+                     myElemVars[e] = null;
+                  }
+                  else {
+                     elems[ne++] = e;
+                     dege += we;
+                     hash += e;
+                  }
+               }
+            }
+            if (ne == elems.length) {
+               elems = Arrays.copyOf (elems, 2*ne);
+               myElems[i] = elems;
+            }
+            elems[ne++] = p;
+            hash += p;
+            myNumElems[i] = ne;
+
+            // variable list: drop eliminated and merged variables, and
+            // those now covered by Lp
+            int[] vars = myVars[i];
+            int nv = 0;
+            int dega = 0;
+            for (int l=0; l<myNumVars[i]; l++) {
+               int j = vars[l];
+               if (myNv[j] > 0 && myStatus[j] == VAR && myMark[j] != stamp) {
+                  vars[nv++] = j;
+                  dega += myNv[j];
+                  hash += j;
+               }
+            }
+            myNumVars[i] = nv;
+
+            int deg = dega + dege + degp - myNv[i];
+            deg = Math.min (deg, myDegree[i] + degp - myNv[i]);
+            deg = Math.min (deg, remaining - myNv[i]);
+            myDegree[i] = Math.max (deg, 0);
+            hashKeys[k] = ((hash & 0x7fffffffL) << 32) | i;
+         }
+
+         // detect indistinguishable variables and merge them
+         Arrays.sort (hashKeys, 0, nlp);
+         for (int k=0; k<nlp; k++) {
+            int i = (int)hashKeys[k];
+            if (myNv[i] == 0) {
+               continue;
+            }
+            long hi = hashKeys[k] >>> 32;
+            int kend = k+1;
+            while (kend < nlp && (hashKeys[kend] >>> 32) == hi) {
+               kend++;
+            }
+            if (kend == k+1) {
+               continue;
+            }
+            int istamp = nextStamp();
+            for (int l=0; l<myNumElems[i]; l++) {
+               myMark[myElems[i][l]] = istamp;
+            }
+            for (int l=0; l<myNumVars[i]; l++) {
+               myMark[myVars[i][l]] = istamp;
+            }
+            for (int m=k+1; m<kend; m++) {
+               int j = (int)hashKeys[m];
+               if (myNv[j] == 0 ||
+                   myNumElems[j] != myNumElems[i] ||
+                   myNumVars[j] != myNumVars[i]) {
+                  continue;
+               }
+               boolean same = true;
+               for (int l=0; l<myNumElems[j] && same; l++) {
+                  same = (myMark[myElems[j][l]] == istamp);
+               }
+               for (int l=0; l<myNumVars[j] && same; l++) {
+                  same = (myMark[myVars[j][l]] == istamp);
+               }
+               if (same) {
+                  // merge j into i
+                  myDegree[i] -= myNv[j];
+                  myNv[i] += myNv[j];
+                  myNv[j] = 0;
+                  myStatus[j] = DEAD;
+                  myElems[j] = null;
+                  myVars[j] = null;
+                  myNumElems[j] = 0;
+                  myNumVars[j] = 0;
+                  myChainNext[myChainTail[i]] = j;
+                  myChainTail[i] = myChainTail[j];
+               }
+            }
+         }
+
+         // finalize the pivot element and reinsert its variables
+         int nlive = 0;
+         int esize = 0;
+         for (int k=0; k<nlp; k++) {
+            int i = lp[k];
+            if (myNv[i] > 0) {
+               lp[nlive++] = i;
+               esize += myNv[i];
+               if (myDegree[i] < 0) {
+                  myDegree[i] = 0;
+               }
+               insertDegree (i);
+               if (myDegree[i] < mindeg) {
+                  mindeg = myDegree[i];
+               }
+            }
+         }
+         if (nlive == 0) {
+            myStatus[p] = DEAD;
+         }
+         else {
+            myElemVars[p] = Arrays.copyOf (lp, nlive);
+            myElemSize[p] = esize;
+         }
+      }
+
+      // expand supervariables into the final ordering
+      int k = 0;
+      for (int m=0; m<numPivots; m++) {
+         for (int j=pivots[m]; j!=-1; j=myChainNext[j]) {
+            perm[k++] = j;
+         }
+      }
+      // dense rows are placed last, in order of increasing degree
+      Arrays.sort (dense, 0, numDense);
+      for (int m=0; m<numDense; m++) {
+         perm[k++] = (int)dense[m];
+      }
+      if (k != n) {
+         throw new InternalErrorException (
+            "AMD ordering produced "+k+" indices; expected "+n);
+      }
+      return perm;
+   }
+
+   private int nextStamp() {
+      if (myStamp == Integer.MAX_VALUE) {
+         Arrays.fill (myMark, 0);
+         myStamp = 0;
+      }
+      return ++myStamp;
+   }
+
+   private void insertDegree (int i) {
+      int d = myDegree[i];
+      int h = myHead[d];
+      myNext[i] = h;
+      myPrev[i] = -1;
+      if (h != -1) {
+         myPrev[h] = i;
+      }
+      myHead[d] = i;
+   }
+
+   private void removeDegree (int i) {
+      int prev = myPrev[i];
+      int next = myNext[i];
+      if (prev != -1) {
+         myNext[prev] = next;
+      }
+      else {
+         myHead[myDegree[i]] = next;
+      }
+      if (next != -1) {
+         myPrev[next] = prev;
+      }
+   }
+
+   /**
+    * Builds symmetric adjacency lists, without diagonal or duplicate
+    * entries, from the supplied CRS structure.
+    */
+   private void buildGraph (int[] rowOffs, int[] colIdxs) {
+      int n = myN;
+      int[] cnt = new int[n];
+      for (int i=0; i<n; i++) {
+         for (int k=rowOffs[i]; k<rowOffs[i+1]; k++) {
+            int j = colIdxs[k];
+            if (j != i) {
+               cnt[i]++;
+               cnt[j]++;
+            }
+         }
+      }
+      myVars = new int[n][];
+      for (int i=0; i<n; i++) {
+         myVars[i] = new int[cnt[i]];
+      }
+      myNumVars = new int[n];
+      int[] mark = new int[n];
+      Arrays.fill (mark, -1);
+      for (int i=0; i<n; i++) {
+         for (int k=rowOffs[i]; k<rowOffs[i+1]; k++) {
+            int j = colIdxs[k];
+            if (j != i) {
+               myVars[i][myNumVars[i]++] = j;
+               myVars[j][myNumVars[j]++] = i;
+            }
+         }
+      }
+      // remove duplicates, which arise if both triangles are given
+      for (int i=0; i<n; i++) {
+         int[] vars = myVars[i];
+         int nv = 0;
+         for (int k=0; k<myNumVars[i]; k++) {
+            int j = vars[k];
+            if (mark[j] != i) {
+               mark[j] = i;
+               vars[nv++] = j;
+            }
+         }
+         myNumVars[i] = nv;
+      }
+   }
+}
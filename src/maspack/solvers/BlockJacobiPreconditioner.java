@@ -0,0 +1,213 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.solvers;
+
+import maspack.matrix.CholeskyDecomposition;
+import maspack.matrix.ImproperSizeException;
+import maspack.matrix.LinearTransformNd;
+import maspack.matrix.MatrixBlock;
+import maspack.matrix.MatrixNd;
+import maspack.matrix.SparseBlockMatrix;
+import maspack.matrix.VectorNd;
+
+/**
+ * Block Jacobi preconditioner for a symmetric {@link SparseBlockMatrix},
+ * formed from the inverses of its diagonal blocks. Diagonal blocks which are
+ * not positive definite are replaced by the absolute values of their
+ * diagonals, so that the preconditioner is always symmetric positive
+ * definite and can be used with {@link CGSolver} or {@link MINRESSolver}.
+ * Storage is proportional to the number of rows.
+ */
+public class BlockJacobiPreconditioner implements LinearTransformNd {
+
+   int mySize;
+   int myNumBlocks;
+   int[] myRowOffs = new int[1];  // row offset for each block
+   int[] myValOffs = new int[1];  // value offset for each block
+   double[] myVals = new double[0];
+   int myNumNonSPD;
+
+   MatrixNd myTmp = new MatrixNd();
+   MatrixNd myInv = new MatrixNd();
+   CholeskyDecomposition myChol = new CholeskyDecomposition();
+
+   public BlockJacobiPreconditioner() {
+   }
+
+   public BlockJacobiPreconditioner (SparseBlockMatrix M) {
+      set (M, M.rowSize());
+   }
+
+   /**
+    * Sets this preconditioner from the diagonal blocks of the principal
+    * sub-matrix of {@code M} formed from its first {@code size} rows and
+    * columns. {@code size} must fall on a block boundary.
+    *
+    * @param M matrix to form the preconditioner from
+    * @param size size of the principal sub-matrix
+    */
+   public void set (SparseBlockMatrix M, int size) {
+      int nblks = M.getAlignedBlockRow (size);
+      if (nblks == -1 || M.getAlignedBlockCol (size) == -1) {
+         throw new ImproperSizeException (
+            "size "+size+" is not block aligned");
+      }
+      mySize = size;
+      myNumBlocks = nblks;
+      if (myRowOffs.length < nblks+1) {
+         myRowOffs = new int[nblks+1];
+         myValOffs = new int[nblks+1];
+      }
+      int nvals = 0;
+      for (int bi=0; bi<nblks; bi++) {
+         int n = M.getBlockRowSize (bi);
+         myRowOffs[bi] = M.getBlockRowOffset (bi);
+         myValOffs[bi] = nvals;
+         nvals += n*n;
+      }
+      myRowOffs[nblks] = size;
+      myValOffs[nblks] = nvals;
+      if (myVals.length < nvals) {
+         myVals = new double[nvals];
+      }
+      myNumNonSPD = 0;
+      for (int bi=0; bi<nblks; bi++) {
+         setBlockInverse (bi, M.getBlock (bi, bi));
+      }
+   }
+
+   private void setBlockInverse (int bi, MatrixBlock blk) {
+      int n = myRowOffs[bi+1]-myRowOffs[bi];
+      int off = myValOffs[bi];
+      myTmp.setSize (n, n);
+      if (blk != null) {
+         myTmp.set (blk);
+      }
+      else {
+         myTmp.setZero();
+      }
+      boolean spd = true;
+      try {
+         myChol.factor (myTmp);
+         myInv.setSize (n, n);
+         myChol.inverse (myInv);
+      }
+      catch (IllegalArgumentException e) {
+         spd = false;
+      }
+      if (spd) {
+         for (int i=0; i<n; i++) {
+            for (int j=0; j<n; j++) {
+               myVals[off++] = myInv.get (i, j);
+            }
+         }
+      }
+      else {
+         myNumNonSPD++;
+         for (int i=0; i<n; i++) {
+            for (int j=0; j<n; j++) {
+               double d = Math.abs (myTmp.get (i, i));
+               myVals[off++] = (i == j ? (d != 0 ? 1/d : 1) : 0);
+            }
+         }
+      }
+   }
+
+   /**
+    * Returns the number of diagonal blocks that were not positive definite
+    * when this preconditioner was last set, and were therefore replaced by
+    * the absolute values of their diagonals.
+    *
+    * @return number of non-positive-definite diagonal blocks
+    */
+   public int numNonSPDBlocks() {
+      return myNumNonSPD;
+   }
+
+   /**
+    * Adds to {@code sdiag} the diagonal of {@code G P G^T}, where {@code P}
+    * is this preconditioner and {@code G^T} is formed from the first {@link
+    * #rowSize} rows of {@code GT}. This gives an approximation to the
+    * diagonal of the Schur complement {@code G inv(M) G^T} which can be used
+    * to precondition the constraint part of a KKT system.
+    *
+    * @param sdiag diagonal to add to. Must have a size equal to the
+    * number of columns of {@code GT}.
+    * @param GT transpose of the constraint matrix
+    */
+   public void addSchurDiagonal (VectorNd sdiag, SparseBlockMatrix GT) {
+      if (sdiag.size() != GT.colSize()) {
+         throw new ImproperSizeException (
+            "sdiag size "+sdiag.size()+" != GT column size "+GT.colSize());
+      }
+      double[] buf = sdiag.getBuffer();
+      for (int bi=0; bi<myNumBlocks; bi++) {
+         int n = myRowOffs[bi+1]-myRowOffs[bi];
+         int off = myValOffs[bi];
+         for (MatrixBlock blk=GT.firstBlockInRow(bi); blk!=null;
+              blk=blk.next()) {
+            int c0 = GT.getBlockColOffset (blk.getBlockCol());
+            for (int c=0; c<blk.colSize(); c++) {
+               double sum = 0;
+               for (int i=0; i<n; i++) {
+                  double pg = 0;
+                  for (int j=0; j<n; j++) {
+                     pg += myVals[off+i*n+j]*blk.get (j, c);
+                  }
+                  sum += blk.get (i, c)*pg;
+               }
+               buf[c0+c] += sum;
+            }
+         }
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void mul (VectorNd vr, VectorNd v1) {
+      if (v1.size() < mySize) {
+         throw new ImproperSizeException (
+            "v1 size "+v1.size()+" < "+mySize);
+      }
+      if (vr.size() < mySize) {
+         vr.setSize (mySize);
+      }
+      double[] res = vr.getBuffer();
+      double[] vec = v1.getBuffer();
+      if (res == vec) {
+         vec = new double[mySize];
+         System.arraycopy (v1.getBuffer(), 0, vec, 0, mySize);
+      }
+      for (int bi=0; bi<myNumBlocks; bi++) {
+         int r0 = myRowOffs[bi];
+         int n = myRowOffs[bi+1]-r0;
+         int off = myValOffs[bi];
+         for (int i=0; i<n; i++) {
+            double sum = 0;
+            for (int j=0; j<n; j++) {
+               sum += myVals[off++]*vec[r0+j];
+            }
+            res[r0+i] = sum;
+         }
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public int rowSize() {
+      return mySize;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public int colSize() {
+      return mySize;
+   }
+}
@@ -22,6 +22,15 @@ public class DantzigQPSolver {
    protected VectorNd myq;
    protected VectorNd myy;
    protected VectorNd myz;
+   protected MatrixNd myAT;
+   protected MatrixNd myHAeq;
+   protected VectorNd myfbeq;
+   protected VectorNd myxlam;
+
+   // LCP state from the previous solve, used for warm starting
+   protected VectorNi myState;
+   protected boolean myWarmStartEnabled = false;
+   protected int myIterationCnt;
 
    /**
     * Described whether or not a solution was found. Where appropriate,
@@ -88,6 +97,90 @@ public class DantzigQPSolver {
       myq = new VectorNd();
       myy = new VectorNd();
       myz = new VectorNd();
+      myAT = new MatrixNd();
+      myHAeq = new MatrixNd();
+      myfbeq = new VectorNd();
+      myxlam = new VectorNd();
+      myState = new VectorNi();
+   }
+
+   /**
+    * Enables or disables warm starting. When enabled, the active set of
+    * inequality constraints found by each solve is used to seed the LCP
+    * basis for the next solve, which can greatly reduce the number of pivots
+    * when a sequence of closely related problems is being solved. The
+    * warm start information is discarded whenever the number of inequality
+    * constraints changes, or if a warm-started solve fails. Warm starting is
+    * disabled by default.
+    *
+    * @param enable if {@code true}, enables warm starting
+    */
+   public void setWarmStartEnabled (boolean enable) {
+      myWarmStartEnabled = enable;
+      myLcp.setWarmStartEnabled (enable);
+      if (!enable) {
+         resetWarmStart();
+      }
+   }
+
+   /**
+    * Queries whether warm starting is enabled.
+    *
+    * @return {@code true} if warm starting is enabled
+    * @see #setWarmStartEnabled
+    */
+   public boolean getWarmStartEnabled() {
+      return myWarmStartEnabled;
+   }
+
+   /**
+    * Discards the warm start information, so that the next solve will
+    * start with no active inequality constraints.
+    */
+   public void resetWarmStart() {
+      myState.setSize (0);
+   }
+
+   /**
+    * Returns the number of LCP iterations used in the most recent solve. This
+    * will be 0 if the most recent problem had no inequality constraints.
+    *
+    * @return number of iterations for the most recent solve
+    */
+   public int getIterationCount() {
+      return myIterationCnt;
+   }
+
+   /**
+    * Solves the LCP associated with the inequality constraints, using the
+    * warm start state if enabled.
+    */
+   private Status solveLCP() {
+      int n = myq.size();
+      myz.setSize (n);
+      if (!myWarmStartEnabled) {
+         Status status =
+            statusFromLCP(myLcp.solve (myz, /*state=*/null, myM, myq));
+         myIterationCnt = myLcp.getIterationCount();
+         return status;
+      }
+      boolean warm = (myState.size() == n);
+      if (!warm) {
+         myState.setSize (n);
+         myState.setZero(); // all variables start at W_VAR_LOWER
+      }
+      Status status = statusFromLCP(myLcp.solve (myz, myState, myM, myq));
+      myIterationCnt = myLcp.getIterationCount();
+      if (status != Status.SOLVED && warm) {
+         // try again with a cold start
+         myState.setZero();
+         status = statusFromLCP(myLcp.solve (myz, myState, myM, myq));
+         myIterationCnt += myLcp.getIterationCount();
+      }
+      if (status != Status.SOLVED) {
+         resetWarmStart();
+      }
+      return status;
    }
 
    private void checkProblemDimensions (
@@ -135,6 +228,7 @@ public class DantzigQPSolver {
       VectorNd x, MatrixNd H, VectorNd f, MatrixNd A, VectorNd b) {
 
       checkProblemDimensions (H, f, A, b);
+      myIterationCnt = 0;
       if (myCholD == null) {
          myCholD = new CholeskyDecomposition();
       }
@@ -155,10 +249,10 @@ public class DantzigQPSolver {
       }
       myM.setSize (A.rowSize(), A.rowSize());
       myq.setSize (A.rowSize());
-      MatrixNd AT = new MatrixNd (A.colSize(), A.rowSize());
-      AT.transpose (A);
+      myAT.setSize (A.colSize(), A.rowSize());
+      myAT.transpose (A);
 
-      if (!myCholD.solve (myY, AT)) {
+      if (!myCholD.solve (myY, myAT)) {
          return Status.SINGULAR_SYSTEM;
       }
       myM.mul (A, myY);
@@ -170,11 +264,8 @@ public class DantzigQPSolver {
       myq.add (b);
       myq.negate();
 
-      int n = myq.size();
-      myz.setSize (n);
       myy.setSize (H.rowSize());
-      Status status = 
-         statusFromLCP(myLcp.solve (myz, /*state=*/null, myM, myq));
+      Status status = solveLCP();
       if (status == Status.SOLVED) {
          A.mulTranspose (myy, myz);
          myy.sub (f);
@@ -220,6 +311,11 @@ public class DantzigQPSolver {
             HAeq.set (j, qsize+i, val);
          }
       }
+      for (int i=0; i<neq; i++) {
+         for (int j=0; j<neq; j++) {
+            HAeq.set (qsize+i, qsize+j, 0);
+         }
+      }
    }
 
    protected void setFbeq (VectorNd fbeq, VectorNd c, VectorNd g) {
@@ -284,6 +380,7 @@ public class DantzigQPSolver {
             "Aeq row size " + Aeq.rowSize() + 
             " does not equal beq size " + beq.size());
       }
+      myIterationCnt = 0;
       if (myLUD == null) {
          myLUD = new LUDecomposition();
       }
@@ -301,9 +398,12 @@ public class DantzigQPSolver {
          }
       }
       
-      MatrixNd HAeq = new MatrixNd (hsize+neq, hsize+neq);
-      VectorNd fbeq = new VectorNd (hsize+neq);
-      VectorNd xlam = new VectorNd (hsize+neq);
+      MatrixNd HAeq = myHAeq;
+      VectorNd fbeq = myfbeq;
+      VectorNd xlam = myxlam;
+      HAeq.setSize (hsize+neq, hsize+neq);
+      fbeq.setSize (hsize+neq);
+      xlam.setSize (hsize+neq);
       x.setSize (H.rowSize());
 
       setHAeq (HAeq, H, Aeq);
@@ -322,7 +422,8 @@ public class DantzigQPSolver {
             return Status.SOLVED;
          }
       }
-      MatrixNd AT = new MatrixNd (A.colSize()+neq, A.rowSize());
+      MatrixNd AT = myAT;
+      AT.setSize (A.colSize()+neq, A.rowSize());
       myM.setSize (A.rowSize(), A.rowSize());
       myq.setSize (A.rowSize());
       setAT (AT, A, neq);
@@ -340,10 +441,7 @@ public class DantzigQPSolver {
       myq.add (b);
       myq.negate();
 
-      int n = myq.size();
-      myz.setSize (n);
-      Status status = 
-         statusFromLCP(myLcp.solve (myz, /*state=*/null, myM, myq));
+      Status status = solveLCP();
       if (status == Status.SOLVED) {
          A.mulTranspose (myy, myz);
          myy.setSize (hsize+neq);
@@ -225,9 +225,69 @@ public class DantzigQPSolverTest extends UnitTest {
       }
    }
 
+   /**
+    * Solves a sequence of slowly varying random problems with and without
+    * warm starting, and checks that the solutions agree and that warm
+    * starting does not increase the number of iterations.
+    */
+   public void warmStartTest (int size, int nineq, int neq, int nsteps) {
+      DantzigQPSolver warmSolver = new DantzigQPSolver();
+      warmSolver.setWarmStartEnabled (true);
+      DantzigQPSolver coldSolver = new DantzigQPSolver();
+
+      MatrixNd R = new MatrixNd (size, size);
+      R.setRandom();
+      MatrixNd H = new MatrixNd (size, size);
+      H.mulTransposeLeft (R, R);
+      for (int i=0; i<size; i++) {
+         H.add (i, i, 1.0);
+      }
+      MatrixNd A = new MatrixNd (nineq, size);
+      A.setRandom();
+      VectorNd b = new VectorNd (nineq);
+      b.setRandom();
+      MatrixNd Aeq = new MatrixNd (neq, size);
+      Aeq.setRandom();
+      VectorNd beq = new VectorNd (neq);
+      beq.setRandom();
+      VectorNd f = new VectorNd (size);
+      f.setRandom();
+      f.scale (10);
+      VectorNd df = new VectorNd (size);
+
+      VectorNd xwarm = new VectorNd (size);
+      VectorNd xcold = new VectorNd (size);
+      int warmIters = 0;
+      int coldIters = 0;
+      for (int k=0; k<nsteps; k++) {
+         Status wstatus = warmSolver.solve (xwarm, H, f, A, b, Aeq, beq);
+         Status cstatus = coldSolver.solve (xcold, H, f, A, b, Aeq, beq);
+         if (wstatus != Status.SOLVED || cstatus != Status.SOLVED) {
+            throw new TestException (
+               "Unexpected solution status: warm=" + wstatus +
+               ", cold=" + cstatus);
+         }
+         if (!xwarm.epsilonEquals (xcold, 1e-8*(1+xcold.norm()))) {
+            throw new TestException (
+               "Warm started solution:\n" + xwarm + "\nExpected:\n" + xcold);
+         }
+         warmIters += warmSolver.getIterationCount();
+         coldIters += coldSolver.getIterationCount();
+         df.setRandom();
+         f.scaledAdd (0.05, df);
+      }
+      if (warmIters > coldIters) {
+         throw new TestException (
+            "Warm start used "+warmIters+" iterations, cold start used "+
+            coldIters);
+      }
+   }
+
    public void test() {
       simpleCubeTest();
       matlabTests();
+      warmStartTest (20, 30, 0, 50);
+      warmStartTest (20, 30, 3, 50);
    }
 
    public static void main (String[] args) {
@@ -0,0 +1,285 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.solvers;
+
+import maspack.matrix.ImproperSizeException;
+import maspack.matrix.LinearTransformNd;
+import maspack.matrix.SparseBlockMatrix;
+import maspack.matrix.VectorNd;
+
+/**
+ * Iteratively solves the equality-constrained KKT system
+ * <pre>
+ * M vel - G^T lam = bm
+ * G vel + Rg lam = bg
+ * </pre>
+ * with the same conventions as {@link KKTSolver}, but without forming or
+ * factoring the system matrix. The system is written in the symmetric form
+ * <pre>
+ * [  M   -G^T ] [ vel ]   [  bm ]
+ * [           ] [     ] = [     ]
+ * [ -G   -Rg  ] [ lam ]   [ -bg ]
+ * </pre>
+ * and solved using {@link MINRESSolver}, with a block diagonal
+ * preconditioner formed from a {@link BlockJacobiPreconditioner} for
+ * {@code M} and the inverse diagonal of an approximate Schur complement
+ * {@code G inv(M) G^T + Rg}. {@code M} should be symmetric and is
+ * typically positive definite. The matrices are accessed only through
+ * vector products, and storage grows linearly with the size of the system,
+ * so this solver can be used for problems too large to factor.
+ */
+public class IterativeKKTSolver {
+
+   public static double DEFAULT_TOLERANCE = 1e-8;
+   public static int DEFAULT_MAX_ITERATIONS = 10000;
+
+   MINRESSolver mySolver;
+   BlockJacobiPreconditioner myMPrecon;
+   VectorNd mySInv = new VectorNd();
+
+   SparseBlockMatrix myM;
+   SparseBlockMatrix myGT;
+   VectorNd myRg;
+   int mySizeM;
+   int myNumG;
+
+   VectorNd myX = new VectorNd();
+   VectorNd myB = new VectorNd();
+   VectorNd myV = new VectorNd();
+   VectorNd myL = new VectorNd();
+   VectorNd myTmpM = new VectorNd();
+   VectorNd myTmpG = new VectorNd();
+
+   double myTol = DEFAULT_TOLERANCE;
+   int myMaxIterations = DEFAULT_MAX_ITERATIONS;
+
+   /**
+    * Applies the symmetric KKT matrix.
+    */
+   class KKTOperator implements LinearTransformNd {
+
+      public void mul (VectorNd vr, VectorNd v1) {
+         v1.getSubVector (0, myV);
+         if (myNumG > 0) {
+            v1.getSubVector (mySizeM, myL);
+         }
+         myM.mul (myTmpM, myV, mySizeM, mySizeM);
+         if (myNumG > 0) {
+            myGT.mul (myV, myL, mySizeM, myNumG);
+            myTmpM.sub (myV);
+            myGT.mulTranspose (myTmpG, v1, myNumG, mySizeM);
+            myTmpG.negate();
+            if (myRg != null) {
+               for (int i=0; i<myNumG; i++) {
+                  myTmpG.add (i, -myRg.get(i)*myL.get(i));
+               }
+            }
+            vr.setSubVector (mySizeM, myTmpG);
+         }
+         vr.setSubVector (0, myTmpM);
+      }
+
+      public int rowSize() {
+         return mySizeM+myNumG;
+      }
+
+      public int colSize() {
+         return mySizeM+myNumG;
+      }
+   }
+
+   /**
+    * Applies the block diagonal preconditioner.
+    */
+   class KKTPreconditioner implements LinearTransformNd {
+
+      public void mul (VectorNd vr, VectorNd v1) {
+         v1.getSubVector (0, myV);
+         myMPrecon.mul (myTmpM, myV);
+         vr.setSubVector (0, myTmpM);
+         double[] res = vr.getBuffer();
+         double[] vec = v1.getBuffer();
+         double[] sinv = mySInv.getBuffer();
+         for (int i=0; i<myNumG; i++) {
+            res[mySizeM+i] = sinv[i]*vec[mySizeM+i];
+         }
+      }
+
+      public int rowSize() {
+         return mySizeM+myNumG;
+      }
+
+      public int colSize() {
+         return mySizeM+myNumG;
+      }
+   }
+
+   KKTOperator myOperator = new KKTOperator();
+   KKTPreconditioner myPreconditioner = new KKTPreconditioner();
+
+   public IterativeKKTSolver() {
+      mySolver = new MINRESSolver();
+      myMPrecon = new BlockJacobiPreconditioner();
+   }
+
+   /**
+    * Sets the relative residual tolerance used to terminate the iterations.
+    * The default value is given by {@link #DEFAULT_TOLERANCE}.
+    *
+    * @param tol relative residual tolerance
+    */
+   public void setTolerance (double tol) {
+      myTol = tol;
+   }
+
+   /**
+    * Returns the relative residual tolerance used to terminate the
+    * iterations.
+    *
+    * @return relative residual tolerance
+    */
+   public double getTolerance() {
+      return myTol;
+   }
+
+   /**
+    * Sets the maximum number of iterations. The default value is given by
+    * {@link #DEFAULT_MAX_ITERATIONS}.
+    *
+    * @param max maximum number of iterations
+    */
+   public void setMaxIterations (int max) {
+      myMaxIterations = max;
+   }
+
+   /**
+    * Returns the maximum number of iterations.
+    *
+    * @return maximum number of iterations
+    */
+   public int getMaxIterations() {
+      return myMaxIterations;
+   }
+
+   /**
+    * Returns the number of iterations performed by the last call to {@link
+    * #solve solve()}.
+    *
+    * @return number of iterations
+    */
+   public int getNumIterations() {
+      return mySolver.getNumIterations();
+   }
+
+   /**
+    * Returns the relative residual, in the norm defined by the
+    * preconditioner, at the end of the last call to {@link #solve solve()}.
+    *
+    * @return last relative residual
+    */
+   public double getRelativeResidual() {
+      return mySolver.getRelativeResidual();
+   }
+
+   /**
+    * Returns the preconditioner used for the {@code M} part of the system.
+    *
+    * @return preconditioner for {@code M}
+    */
+   public BlockJacobiPreconditioner getMPreconditioner() {
+      return myMPrecon;
+   }
+
+   private void updatePreconditioner() {
+      myMPrecon.set (myM, mySizeM);
+      mySInv.setSize (myNumG);
+      if (myNumG > 0) {
+         mySInv.setZero();
+         myMPrecon.addSchurDiagonal (mySInv, myGT);
+         double[] sinv = mySInv.getBuffer();
+         for (int i=0; i<myNumG; i++) {
+            double s = sinv[i];
+            if (myRg != null) {
+               s += Math.abs (myRg.get(i));
+            }
+            sinv[i] = (s > 0 ? 1/s : 1);
+         }
+      }
+   }
+
+   /**
+    * Solves the KKT system described in the class documentation. On input,
+    * {@code vel} and {@code lam} supply an initial guess, and on output they
+    * contain the solution.
+    *
+    * @param vel initial guess and returned velocity
+    * @param lam initial guess and returned constraint impulses
+    * @param M symmetric matrix {@code M}
+    * @param sizeM size of {@code M}. Must fall on a block boundary.
+    * @param GT transpose of the constraint matrix. May be {@code null}
+    * if there are no constraints.
+    * @param Rg if non-null, supplies the diagonal regularization matrix
+    * @param bm velocity right hand side
+    * @param bg constraint right hand side
+    * @return {@code true} if the solution converged to within the tolerance
+    * specified by {@link #setTolerance}
+    */
+   public boolean solve (
+      VectorNd vel, VectorNd lam, SparseBlockMatrix M, int sizeM,
+      SparseBlockMatrix GT, VectorNd Rg, VectorNd bm, VectorNd bg) {
+
+      int numG = (GT != null ? GT.colSize() : 0);
+      if (bm.size() < sizeM) {
+         throw new ImproperSizeException (
+            "bm size "+bm.size()+" < sizeM "+sizeM);
+      }
+      if (numG > 0 && bg.size() != numG) {
+         throw new ImproperSizeException (
+            "bg size "+bg.size()+" incompatible with GT size "+numG);
+      }
+      myM = M;
+      myGT = GT;
+      myRg = Rg;
+      mySizeM = sizeM;
+      myNumG = numG;
+      vel.setSize (sizeM);
+      lam.setSize (numG);
+      myV.setSize (sizeM);
+      myL.setSize (numG);
+      myTmpM.setSize (sizeM);
+      myTmpG.setSize (numG);
+
+      updatePreconditioner();
+
+      int n = sizeM+numG;
+      myX.setSize (n);
+      myB.setSize (n);
+      myX.setSubVector (0, vel);
+      myB.setSubVector (0, bm.size() == sizeM ? bm : subvec (bm, sizeM));
+      if (numG > 0) {
+         myX.setSubVector (sizeM, lam);
+         myTmpG.negate (bg);
+         myB.setSubVector (sizeM, myTmpG);
+      }
+      boolean converged = mySolver.solve (
+         myX, myOperator, myB, myTol, myMaxIterations, myPreconditioner);
+      myX.getSubVector (0, vel);
+      if (numG > 0) {
+         myX.getSubVector (sizeM, lam);
+      }
+      myM = null;
+      myGT = null;
+      myRg = null;
+      return converged;
+   }
+
+   private VectorNd subvec (VectorNd v, int size) {
+      VectorNd sub = new VectorNd (size);
+      v.getSubVector (0, sub);
+      return sub;
+   }
+}
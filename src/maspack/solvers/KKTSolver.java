@@ -18,6 +18,10 @@ import java.util.Arrays;
 public class KKTSolver {
 
    private SparseSolverId mySolverType = SparseSolverId.Pardiso;
+   // solver type specified when this KKTSolver was created. mySolverType
+   // may differ from this if the specified type cannot handle M.
+   private SparseSolverId myRequestedSolverType = SparseSolverId.Pardiso;
+   private int myNumThreads = 1;
    private boolean myUseMurty = false;
 
    public boolean debug = false;
@@ -41,6 +45,7 @@ public class KKTSolver {
    SparseBlockMatrix myGT;
    UmfpackSolver myUmfpack;
    PardisoSolver myPardiso;
+   SparseLDLTSolver myLDLT;
    DirectSolver myMatrixSolver;
    boolean myIndices1Based = false;
    boolean myLastSolveWasIterative = false;
@@ -63,6 +68,10 @@ public class KKTSolver {
    VectorNd myMGx = new VectorNd();
    VectorNd myMGy = new VectorNd();
 
+   // packed right hand sides and solutions for multi-rhs solves
+   double[] myMultiB = new double[0];
+   double[] myMultiX = new double[0];
+
    MatrixNd myLcpM = new MatrixNd();
    VectorNd myQ = new VectorNd();
    VectorNd myZ = new VectorNd();
@@ -105,7 +114,35 @@ public class KKTSolver {
       NUMERIC_ERROR
    };
 
+   /**
+    * Creates a KKTSolver that uses the specified direct solver. If the
+    * solver cannot handle the matrix M passed to {@link #analyze analyze()}
+    * (as is the case for {@link SparseSolverId#SparseLDLT} when M is not
+    * symmetric), a compatible solver given by {@link
+    * SparseSolverId#getCompatibleDirectSolver} is used instead for that
+    * analysis.
+    *
+    * @param solverType type of direct solver to use
+    */
    public KKTSolver (SparseSolverId solverType) {
+      setSolverType (solverType);
+      myRequestedSolverType = solverType;
+      myDantzig = new DantzigLCPSolver();
+      myDantzig.setWarmStartEnabled (myWarmStartLCPs);
+   }
+
+   /**
+    * Creates the direct solver for the indicated type, disposing of any
+    * existing one.
+    */
+   private void setSolverType (SparseSolverId solverType) {
+      if (myMatrixSolver != null) {
+         myMatrixSolver.dispose();
+         myMatrixSolver = null;
+         myPardiso = null;
+         myUmfpack = null;
+         myLDLT = null;
+      }
       switch (solverType) {
          case Pardiso: {
             myPardiso = new PardisoSolver();
@@ -117,14 +154,29 @@ public class KKTSolver {
             myMatrixSolver = myUmfpack;
             break;
          }
+         case SparseLDLT: {
+            myLDLT = new SparseLDLTSolver();
+            myLDLT.setNumThreads (myNumThreads);
+            myMatrixSolver = myLDLT;
+            break;
+         }
          default: {
             throw new IllegalArgumentException (
                "Solver type " + solverType + " not supported");
          }
       }
       mySolverType = solverType;
-      myDantzig = new DantzigLCPSolver();
-      myDantzig.setWarmStartEnabled (myWarmStartLCPs);
+   }
+
+   /**
+    * Returns the type of direct solver currently in use. This may differ
+    * from the type specified in the constructor if that type cannot handle
+    * the matrix M of the most recent analysis.
+    *
+    * @return current direct solver type
+    */
+   public SparseSolverId getSolverType() {
+      return mySolverType;
    }
 
    public KKTSolver() {
@@ -198,6 +250,16 @@ public class KKTSolver {
       // values in some cases
       getCRSValues (M, sizeM, numVals, GT, Rg);
 
+      SparseSolverId solverType =
+         myRequestedSolverType.getCompatibleDirectSolver (typeM);
+      if (solverType == null) {
+         throw new UnsupportedOperationException (
+            myRequestedSolverType + " solver is not compatible with M, " +
+            "and neither Pardiso nor Umfpack is available");
+      }
+      if (solverType != mySolverType) {
+         setSolverType (solverType);
+      }
       if (mySolverType == SparseSolverId.Umfpack) {
          setUmfpackIndices (sizeMG, numVals);
          if (myUmfpack.analyze (
@@ -206,6 +268,11 @@ public class KKTSolver {
             throw new NumericalException ("Unable to analyze matrix");
          }
       }
+      else if (mySolverType == SparseSolverId.SparseLDLT) {
+         // SparseLDLT uses 0-based indices directly
+         myLDLT.analyze (
+            myVals, myColIdxs, myRowOffs, sizeMG, Matrix.SYMMETRIC);
+      }
       else { // add 1 to indices, since Pardiso indices are 1-based
          // XXX
          for (int i = 0; i < numVals; i++) {
@@ -1329,7 +1396,7 @@ public class KKTSolver {
       myHi.setSize (n);
       myLo.setSize (n);
 
-      if (myPardiso != null && useBlockSolves) {
+      if (hasMultipleRhsSolve() && useBlockSolves) {
          MatrixNd ND = new MatrixNd();
          getDenseND (ND, NT, DT);
          solveMG (ND.getBuffer(), ND.getBuffer(), n);
@@ -1657,7 +1724,7 @@ public class KKTSolver {
     */
    public void solveMG (VectorNd x, VectorNd b) {
       myMatrixSolver.solve (x, b);
-      if (computeResidualMG) {
+      if (computeResidualMG && myPardiso != null) {
          double res = 
             myPardiso.residual (
                myRowOffs, myColIdxs, myVals, mySizeM+myNumG, 
@@ -1671,12 +1738,60 @@ public class KKTSolver {
       }
    }
 
+   /**
+    * Queries whether the matrix solver can solve for multiple right hand
+    * sides at once, as required by {@link #solveMG(double[],double[],int)}.
+    *
+    * @return {@code true} if multiple right hand sides are supported
+    */
+   public boolean hasMultipleRhsSolve() {
+      return myPardiso != null || myLDLT != null;
+   }
+
+   /**
+    * Sets the number of threads used by the matrix solver. This currently
+    * only affects {@link SparseSolverId#SparseLDLT}, which uses the threads
+    * for numeric factorization and multiple right hand side solves. Pardiso
+    * manages its own threads.
+    *
+    * @param num number of threads
+    */
+   public void setNumThreads (int num) {
+      myNumThreads = num;
+      if (myLDLT != null) {
+         myLDLT.setNumThreads (num);
+      }
+   }
+
+   /**
+    * Returns the number of threads used by the matrix solver, as described
+    * for {@link #setNumThreads}.
+    *
+    * @return number of threads
+    */
+   public int getNumThreads() {
+      if (myLDLT != null) {
+         return myLDLT.getNumThreads();
+      }
+      else if (myPardiso != null) {
+         return myPardiso.getNumThreads();
+      }
+      else {
+         return 1;
+      }
+   }
+
    public void solveMG (double[] Xbuf, double[] Bbuf, int nrhs) {
-      if (myPardiso != null) {
+      if (hasMultipleRhsSolve()) {
          int w = mySizeM+myNumG;
          // NOTE: solve arguments with multiple right hand sides are stored in
          // column major form
-         myPardiso.solve (Xbuf, Bbuf, nrhs);
+         if (myPardiso != null) {
+            myPardiso.solve (Xbuf, Bbuf, nrhs);
+         }
+         else {
+            myLDLT.solve (Xbuf, Bbuf, nrhs);
+         }
          // negate lam.
          for (int i=0; i<nrhs; i++) {
             for (int j=mySizeM; j<w; j++) {
@@ -1686,7 +1801,79 @@ public class KKTSolver {
       }
       else {
          throw new UnsupportedOperationException (
-            "solve for multiple rhs only supported for Pardiso");
+            "solve for multiple rhs only supported for Pardiso and SparseLDLT");
+      }
+   }
+
+   /**
+    * Queries whether {@link
+    * #solve(VectorNd[],VectorNd[],VectorNd[],VectorNd,int)
+    * solve(vel,lam,bm,bg,nrhs)} can currently be used to solve for
+    * multiple right hand sides. This requires that the system has been
+    * factored, that it has no unilateral or friction constraints (so that
+    * the solve is linear), and that the matrix solver supports multiple
+    * right hand sides.
+    *
+    * @return {@code true} if multiple right hand sides can be solved
+    */
+   public boolean canSolveMultiple() {
+      return (myState == State.FACTORED && myNumN == 0 && myNumD == 0 &&
+              hasMultipleRhsSolve());
+   }
+
+   /**
+    * Solves the factored system
+    * <pre>
+    * [ M -G ] [ vel ]   [ bm ]
+    * [      ] [     ] = [    ]
+    * [ G Rg ] [ lam ]   [ bg ]
+    * </pre>
+    * for multiple right hand sides {@code bm[j]}, all of which share the same
+    * bilateral offsets {@code bg}, using a single multi-rhs solve. This can
+    * only be called when {@link #canSolveMultiple} returns {@code true}.
+    *
+    * @param vel returns the velocity solutions. Each must have a size
+    * equal to the size of M.
+    * @param lam returns the bilateral constraint impulses. Each is
+    * resized if necessary.
+    * @param bm right hand side velocity terms
+    * @param bg bilateral constraint offsets
+    * @param nrhs number of right hand sides
+    */
+   public void solve (
+      VectorNd[] vel, VectorNd[] lam, VectorNd[] bm, VectorNd bg, int nrhs) {
+      if (!canSolveMultiple()) {
+         throw new ImproperStateException (
+            "System not factored, has unilateral or friction constraints, "+
+            "or solver does not support multiple right hand sides");
+      }
+      if (bg.size() != myNumG) {
+         throw new IllegalArgumentException (
+            "bg size "+bg.size()+" incompatible with GT size " + myNumG);
+      }
+      int w = mySizeM+myNumG;
+      if (myMultiB.length < w*nrhs) {
+         myMultiB = new double[w*nrhs];
+         myMultiX = new double[w*nrhs];
+      }
+      double[] Bbuf = myMultiB;
+      double[] Xbuf = myMultiX;
+      double[] bgbuf = bg.getBuffer();
+      for (int j=0; j<nrhs; j++) {
+         if (vel[j].size() != mySizeM || bm[j].size() != mySizeM) {
+            throw new IllegalArgumentException (
+               "size of vel and/or bm incompatible with factored M size of "
+               + mySizeM);
+         }
+         System.arraycopy (bm[j].getBuffer(), 0, Bbuf, j*w, mySizeM);
+         System.arraycopy (bgbuf, 0, Bbuf, j*w+mySizeM, myNumG);
+      }
+      // solveMG negates the lam values
+      solveMG (Xbuf, Bbuf, nrhs);
+      for (int j=0; j<nrhs; j++) {
+         System.arraycopy (Xbuf, j*w, vel[j].getBuffer(), 0, mySizeM);
+         lam[j].setSize (myNumG);
+         System.arraycopy (Xbuf, j*w+mySizeM, lam[j].getBuffer(), 0, myNumG);
       }
    }
 
@@ -1768,6 +1955,9 @@ public class KKTSolver {
                "Umfpack: Matrix is near singular, solve could fail");
          }
       }
+      else if (mySolverType == SparseSolverId.SparseLDLT) {
+         myLDLT.factor (myVals);
+      }
       else {
          myPardiso.factor (myVals);
          if (myPardiso.getState() != PardisoSolver.FACTORED) {
@@ -1782,6 +1972,9 @@ public class KKTSolver {
    }
 
    public int getNumNonZerosInFactors() {
+      if (myLDLT != null) {
+         return myLDLT.getNumNonZerosInFactors();
+      }
       return myPardiso.getNumNonZerosInFactors();
    }
 
@@ -1795,6 +1988,7 @@ public class KKTSolver {
          myMatrixSolver = null;
          myPardiso = null;
          myUmfpack = null;
+         myLDLT = null;
       }
    }
 
@@ -1819,6 +2013,9 @@ public class KKTSolver {
       if (myPardiso != null) {
          return myPardiso.getNumPerturbedPivots();
       }
+      else if (myLDLT != null) {
+         return myLDLT.getNumPerturbedPivots();
+      }
       else {
          return -1;
       }
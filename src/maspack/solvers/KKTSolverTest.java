@@ -110,6 +110,155 @@ public class KKTSolverTest {
          M, 6, GT, NT, Rg, Rn, bm, bg, bn, vel, lam, the, Matrix.INDEFINITE);
    }
 
+   /**
+    * Checks that a KKTSolver created for SparseLDLT, which only handles
+    * symmetric matrices, switches to a solver that can handle a
+    * non-symmetric M, and back to SparseLDLT when M is symmetric again.
+    */
+   public void testSolverFallback() {
+      int sizeM = 6;
+      int numG = 3;
+      MatrixNdBlock Mblk = new MatrixNdBlock (sizeM, sizeM);
+      Mblk.setRandom();
+      for (int i=0; i<sizeM; i++) {
+         Mblk.add (i, i, sizeM);
+      }
+      MatrixNdBlock GTblk = new MatrixNdBlock (sizeM, numG);
+      GTblk.setRandom();
+      SparseBlockMatrix M = new SparseBlockMatrix();
+      M.addBlock (0, 0, Mblk);
+      SparseBlockMatrix GT = new SparseBlockMatrix();
+      GT.addBlock (0, 0, GTblk);
+      VectorNd vel = new VectorNd (sizeM);
+      VectorNd lam = new VectorNd (numG);
+      VectorNd bm = new VectorNd (sizeM);
+      VectorNd bg = new VectorNd (numG);
+      bm.setRandom();
+      bg.setRandom();
+
+      KKTSolver solver = new KKTSolver (SparseSolverId.SparseLDLT);
+      SparseSolverId fallback =
+         SparseSolverId.SparseLDLT.getCompatibleDirectSolver (
+            Matrix.INDEFINITE);
+      if (fallback == null) {
+         try {
+            solver.analyze (M, sizeM, GT, null, Matrix.INDEFINITE);
+            throw new TestException (
+               "no exception for non-symmetric M without a fallback solver");
+         }
+         catch (UnsupportedOperationException e) {
+            // expected
+         }
+      }
+      else {
+         solver.analyze (M, sizeM, GT, null, Matrix.INDEFINITE);
+         if (solver.getSolverType() != fallback) {
+            throw new TestException (
+               "solver type is "+solver.getSolverType()+", expected "+fallback);
+         }
+         solver.factor (M, sizeM, GT, null);
+         solver.solve (vel, lam, bm, bg);
+         if (checkSolve (M, sizeM, GT, null, vel, lam, null, bm, null) > PREC) {
+            throw new TestException ("non-symmetric solve failed");
+         }
+      }
+      // make M symmetric and check that SparseLDLT is used again
+      Mblk.mulTranspose (Mblk);
+      solver.analyze (M, sizeM, GT, null, Matrix.SYMMETRIC);
+      if (solver.getSolverType() != SparseSolverId.SparseLDLT) {
+         throw new TestException (
+            "solver type is "+solver.getSolverType()+", expected SparseLDLT");
+      }
+      solver.factor (M, sizeM, GT, null);
+      solver.solve (vel, lam, bm, bg);
+      if (checkSolve (M, sizeM, GT, null, vel, lam, null, bm, null) > PREC) {
+         throw new TestException ("symmetric solve failed");
+      }
+      solver.dispose();
+   }
+
+   /**
+    * Creates a symmetric positive definite block tridiagonal matrix with
+    * nblks x nblks blocks of size bsize.
+    */
+   SparseBlockMatrix createBlockTridiagonal (int nblks, int bsize) {
+      SparseBlockMatrix M = new SparseBlockMatrix();
+      for (int bi=0; bi<nblks; bi++) {
+         MatrixNdBlock Mblk = new MatrixNdBlock (bsize, bsize);
+         Mblk.setRandom();
+         Mblk.mulTranspose (Mblk);
+         for (int i=0; i<bsize; i++) {
+            Mblk.add (i, i, nblks);
+         }
+         M.addBlock (bi, bi, Mblk);
+         if (bi > 0) {
+            MatrixNdBlock Mupr = new MatrixNdBlock (bsize, bsize);
+            Mupr.setRandom();
+            MatrixNdBlock Mlwr = new MatrixNdBlock (bsize, bsize);
+            Mlwr.transpose (Mupr);
+            M.addBlock (bi-1, bi, Mupr);
+            M.addBlock (bi, bi-1, Mlwr);
+         }
+      }
+      return M;
+   }
+
+   /**
+    * Checks that solving for multiple right hand sides at once gives the
+    * same solutions as solving for each right hand side separately.
+    */
+   public void testMultipleSolve() {
+      int sizeM = 12;
+      int numG = 4;
+      int nrhs = 5;
+      SparseBlockMatrix M = createBlockTridiagonal (4, 3);
+      MatrixNdBlock GTblk = new MatrixNdBlock (sizeM, numG);
+      GTblk.setRandom();
+      SparseBlockMatrix GT = new SparseBlockMatrix();
+      GT.addBlock (0, 0, GTblk);
+      VectorNd bg = new VectorNd (numG);
+      bg.setRandom();
+      VectorNd[] bm = new VectorNd[nrhs];
+      VectorNd[] vel = new VectorNd[nrhs];
+      VectorNd[] lam = new VectorNd[nrhs];
+      for (int j=0; j<nrhs; j++) {
+         bm[j] = new VectorNd (sizeM);
+         bm[j].setRandom();
+         vel[j] = new VectorNd (sizeM);
+         lam[j] = new VectorNd ();
+      }
+      KKTSolver solver = new KKTSolver (SparseSolverId.SparseLDLT);
+      solver.analyze (M, sizeM, GT, null, Matrix.SYMMETRIC);
+      solver.factor (M, sizeM, GT, null);
+      if (!solver.canSolveMultiple()) {
+         throw new TestException (
+            "multiple right hand sides not supported for SparseLDLT");
+      }
+      // solve again with fewer right hand sides, so that the solver's
+      // internal buffers are reused
+      for (int n=nrhs; n>0; n-=3) {
+         solver.solve (vel, lam, bm, bg, n);
+         for (int j=0; j<n; j++) {
+            VectorNd velChk = new VectorNd (sizeM);
+            VectorNd lamChk = new VectorNd (numG);
+            solver.solve (velChk, lamChk, bm[j], bg);
+            if (checkSolve (
+                   M, sizeM, GT, null, vel[j], lam[j], null, bm[j],
+                   null) > PREC) {
+               throw new TestException ("multiple solve failed for rhs "+j);
+            }
+            if (!vel[j].epsilonEquals (velChk, 1e-12) ||
+                !lam[j].epsilonEquals (lamChk, 1e-12)) {
+               throw new TestException (
+                  "multiple solve differs from single solve for rhs "+j+
+                  ":\nvel=" + vel[j] + "\nexpected " + velChk +
+                  "\nlam=" + lam[j] + "\nexpected " + lamChk);
+            }
+         }
+      }
+      solver.dispose();
+   }
+
    private void solveAndCheck (
       Object M, int sizeM, SparseBlockMatrix GT, SparseBlockMatrix NT,
       VectorNd Rg, VectorNd Rn, VectorNd bm, VectorNd bg, VectorNd bn,
@@ -582,6 +731,8 @@ public class KKTSolverTest {
       PardisoSolver.printThreadInfo = false;
       try {
          //tester.test();
+         tester.testSolverFallback();
+         tester.testMultipleSolve();
          //tester.testFromFile ("blockCollide3.txt");
          tester.testFromFile ("MLCPtest.txt");
       }
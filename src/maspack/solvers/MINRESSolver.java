@@ -0,0 +1,307 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.solvers;
+
+import maspack.matrix.ImproperSizeException;
+import maspack.matrix.LinearTransformNd;
+import maspack.matrix.Matrix;
+import maspack.matrix.NumericalException;
+import maspack.matrix.VectorNd;
+
+/**
+ * Solves symmetric, and possibly indefinite, linear systems using the
+ * minimum residual (MINRES) method of Paige and Saunders. An optional
+ * preconditioner may be supplied, which must be symmetric positive
+ * definite. Unlike {@link CGSolver}, the system matrix does not need to be
+ * positive definite, so this solver can be applied directly to saddle point
+ * systems such as the KKT systems arising from constrained mechanical
+ * problems.
+ *
+ * <p>When a preconditioner is used, residuals are measured in the norm
+ * defined by the preconditioner, i.e., ||r||_P = sqrt (r^T inv(M) r),
+ * where M is the preconditioning matrix. Storage consists of a fixed
+ * number of work vectors, and so grows linearly with the system size.
+ */
+public class MINRESSolver implements IterativeSolver {
+
+   private int myLastIterationCnt;
+   private double myLastRelResidual;
+   private double myTol = 0.001;
+   private int myMaxIter = 100;
+   private ToleranceType myTolType = ToleranceType.RelativeResidual;
+
+   public boolean debug = false;
+
+   // work vectors
+   VectorNd r1 = new VectorNd (0);
+   VectorNd r2 = new VectorNd (0);
+   VectorNd y = new VectorNd (0);
+   VectorNd v = new VectorNd (0);
+   VectorNd w = new VectorNd (0);
+   VectorNd w1 = new VectorNd (0);
+   VectorNd w2 = new VectorNd (0);
+
+   public double getTolerance() {
+      return myTol;
+   }
+
+   public void setTolerance (double tol) {
+      myTol = tol;
+   }
+
+   public ToleranceType getToleranceType() {
+      return myTolType;
+   }
+
+   /**
+    * Sets the tolerance type. {@link ToleranceType#AbsoluteError
+    * AbsoluteError} is not supported by this solver and is treated the same
+    * as {@link ToleranceType#AbsoluteResidual AbsoluteResidual}.
+    *
+    * @param type new tolerance type
+    */
+   public void setToleranceType (ToleranceType type) {
+      myTolType = type;
+   }
+
+   public int getMaxIterations() {
+      return myMaxIter;
+   }
+
+   public void setMaxIterations (int max) {
+      myMaxIter = max;
+   }
+
+   /**
+    * Solves a linear system A x = b using the MINRES method. The matrix
+    * associated with the linear system is represented implicitly by a
+    * {@link maspack.matrix.LinearTransformNd LinearTransformNd}, and must
+    * be symmetric.
+    *
+    * @param x
+    * result vector, as well as initial guess of the solution
+    * @param A
+    * linear transform for the system to be solved
+    * @param b
+    * input vector
+    * @return true if a solution was found within the specified tolerance
+    */
+   public boolean solve (VectorNd x, LinearTransformNd A, VectorNd b) {
+      return solve (x, A, b, myTol, myMaxIter, null);
+   }
+
+   /**
+    * Solves a linear system A x = b using the MINRES method. The method will
+    * iterate while the relative residual ||A x - b||/||b|| is greater than a
+    * supplied tolerance and the number of iterations is less than a
+    * specified maximum.
+    *
+    * @param x
+    * result vector, as well as initial guess of the solution
+    * @param A
+    * linear transform for the system to be solved
+    * @param b
+    * input vector
+    * @param tol
+    * solution tolerance
+    * @param maxIter
+    * maximum number of iterations
+    * @return true if a solution was found within the specified tolerance
+    */
+   public boolean solve (
+      VectorNd x, LinearTransformNd A, VectorNd b, double tol, int maxIter) {
+      return solve (x, A, b, tol, maxIter, null);
+   }
+
+   private double preconditionedDot (VectorNd r, VectorNd z) {
+      double d = r.dot (z);
+      if (d < 0) {
+         throw new NumericalException (
+            "MINRES preconditioner is not positive definite");
+      }
+      return d;
+   }
+
+   /**
+    * Solves a linear system A x = b using the MINRES method with a
+    * preconditioner. The matrix associated with the linear system and the
+    * preconditioner are each represented implicitly by a {@link
+    * maspack.matrix.LinearTransformNd LinearTransformNd}. The {@link
+    * maspack.matrix.LinearTransformNd#mul mul} method of the preconditioner
+    * should implement the transformation y = inv(M) x, where M is a
+    * symmetric positive definite matrix that approximates A in magnitude.
+    * The method will iterate while the relative residual ||A x - b||/||b||,
+    * measured in the norm defined by the preconditioner, is greater than a
+    * supplied tolerance and the number of iterations is less than a
+    * specified maximum.
+    *
+    * @param x
+    * result vector, as well as initial guess of the solution
+    * @param A
+    * linear transform for the system to be solved
+    * @param b
+    * input vector
+    * @param tol
+    * solution tolerance
+    * @param maxIter
+    * maximum number of iterations
+    * @param P
+    * preconditioner (optional, may be specified as null)
+    * @return true if a solution was found within the specified tolerance
+    * @throws NumericalException if the preconditioner is found to be
+    * indefinite
+    */
+   public boolean solve (
+      VectorNd x, LinearTransformNd A, VectorNd b, double tol, int maxIter,
+      LinearTransformNd P) {
+
+      if (A.rowSize() != A.colSize()) {
+         throw new ImproperSizeException ("Matrix must be square");
+      }
+      if (b.size() != A.rowSize() || x.size() != b.size()) {
+         throw new ImproperSizeException ("Inconsistent argument sizes");
+      }
+      int n = x.size();
+      if (r1.size() != n) {
+         r1.setSize (n);
+         r2.setSize (n);
+         y.setSize (n);
+         v.setSize (n);
+         w.setSize (n);
+         w1.setSize (n);
+         w2.setSize (n);
+      }
+
+      // norm of b, used for relative tolerances
+      double bnorm;
+      if (P != null) {
+         P.mul (y, b);
+         bnorm = Math.sqrt (preconditionedDot (b, y));
+      }
+      else {
+         bnorm = b.norm();
+      }
+      double resLimit;
+      switch (myTolType) {
+         case RelativeResidual: {
+            resLimit = tol*bnorm;
+            break;
+         }
+         case AbsoluteResidual:
+         case AbsoluteError: {
+            resLimit = tol;
+            break;
+         }
+         default: {
+            throw new IllegalStateException (
+               "Unhandled tolerance type " + myTolType);
+         }
+      }
+
+      // initial residual
+      A.mul (r1, x);
+      r1.sub (b, r1);
+      if (P != null) {
+         P.mul (y, r1);
+      }
+      else {
+         y.set (r1);
+      }
+      double beta1 = Math.sqrt (preconditionedDot (r1, y));
+      r2.set (r1);
+      w.setZero();
+      w2.setZero();
+
+      double oldb = 0;
+      double beta = beta1;
+      double dbar = 0;
+      double epsln = 0;
+      double phibar = beta1;
+      double cs = -1;
+      double sn = 0;
+
+      int cnt = 0;
+      while (cnt < maxIter && phibar > resLimit) {
+         double s = 1/beta;
+         v.scale (s, y);
+         A.mul (y, v);
+         if (cnt > 0) {
+            y.scaledAdd (-beta/oldb, r1);
+         }
+         double alfa = v.dot (y);
+         y.scaledAdd (-alfa/beta, r2);
+         // swap r1 and r2, so that r1 = old r2 and r2 = y
+         VectorNd tmp = r1;
+         r1 = r2;
+         r2 = tmp;
+         r2.set (y);
+         if (P != null) {
+            P.mul (y, r2);
+         }
+         oldb = beta;
+         beta = Math.sqrt (preconditionedDot (r2, y));
+
+         // apply the previous rotation, and compute the next one
+         double oldeps = epsln;
+         double delta = cs*dbar + sn*alfa;
+         double gbar = sn*dbar - cs*alfa;
+         epsln = sn*beta;
+         dbar = -cs*beta;
+         double gamma = Math.max (Math.hypot (gbar, beta), Double.MIN_NORMAL);
+         cs = gbar/gamma;
+         sn = beta/gamma;
+         double phi = cs*phibar;
+         phibar = sn*phibar;
+
+         // update the search direction and solution
+         tmp = w1;
+         w1 = w2;
+         w2 = w;
+         w = tmp;
+         w.scaledAdd (-oldeps, w1, v);
+         w.scaledAdd (-delta, w2);
+         w.scale (1/gamma);
+         x.scaledAdd (phi, w);
+         cnt++;
+         if (debug) {
+            System.out.println ("  " + cnt + " " + phibar);
+         }
+         if (beta == 0) {
+            // Krylov space is exhausted, so x is exact
+            phibar = 0;
+         }
+      }
+      myLastIterationCnt = cnt;
+      myLastRelResidual = (bnorm > 0 ? phibar/bnorm : phibar);
+      return phibar <= resLimit;
+   }
+
+   /**
+    * Returns the number of iterations associated with the last call to
+    * {@link #solve solve}.
+    *
+    * @return number of iterations
+    */
+   public int getNumIterations() {
+      return myLastIterationCnt;
+   }
+
+   /**
+    * Returns the relative residual ||A x - b||/||b|| at the end of the last
+    * call to {@link #solve solve}. If a preconditioner was used, the norm is
+    * the one defined by the preconditioner.
+    *
+    * @return last relative residual
+    */
+   public double getRelativeResidual() {
+      return myLastRelResidual;
+   }
+
+   public boolean isCompatible (int matrixType) {
+      return ((matrixType & Matrix.SYMMETRIC) != 0);
+   }
+}
@@ -0,0 +1,230 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.solvers;
+
+import maspack.matrix.LUDecomposition;
+import maspack.matrix.Matrix;
+import maspack.matrix.Matrix3x1Block;
+import maspack.matrix.Matrix3x3Block;
+import maspack.matrix.MatrixNd;
+import maspack.matrix.SparseBlockMatrix;
+import maspack.matrix.VectorNd;
+import maspack.util.RandomGenerator;
+import maspack.util.TestException;
+import maspack.util.UnitTest;
+
+/**
+ * Tests MINRESSolver, BlockJacobiPreconditioner and IterativeKKTSolver.
+ */
+public class MINRESSolverTest extends UnitTest {
+
+   double myTol = 1e-10;
+
+   void checkSolution (String msg, VectorNd x, VectorNd xcheck, double tol) {
+      if (!x.epsilonEquals (xcheck, tol*xcheck.norm())) {
+         throw new TestException (
+            msg+": solver gave wrong answer. Expected\n" +
+            xcheck.toString ("%12.8f") + "\nGot\n" + x.toString ("%12.8f"));
+      }
+   }
+
+   void testDense (int size, boolean spd) {
+      MINRESSolver solver = new MINRESSolver();
+      LUDecomposition LU = new LUDecomposition();
+      MatrixNd M = new MatrixNd (size, size);
+      VectorNd x = new VectorNd (size);
+      VectorNd b = new VectorNd (size);
+      VectorNd xcheck = new VectorNd (size);
+
+      M.setRandom();
+      if (spd) {
+         M.mulTranspose (M);
+      }
+      else {
+         MatrixNd MT = new MatrixNd (M);
+         MT.transpose();
+         M.add (MT);
+      }
+      b.setRandom();
+      if (!solver.solve (x, M, b, myTol, 10*size)) {
+         throw new TestException (
+            "No convergence: residual=" + solver.getRelativeResidual());
+      }
+      LU.factor (M);
+      LU.solve (xcheck, b);
+      checkSolution ("dense", x, xcheck, 1e-6);
+
+      // preconditioning with the inverse should converge in one iteration
+      MatrixNd P = new MatrixNd (size, size);
+      if (spd) {
+         LU.inverse (P);
+         x.setZero();
+         if (!solver.solve (x, M, b, myTol, 10*size, P)) {
+            throw new TestException (
+               "No convergence, inverse preconditioner: residual=" +
+               solver.getRelativeResidual());
+         }
+         if (solver.getNumIterations() > 2) {
+            throw new TestException (
+               "Num iterations "+solver.getNumIterations()+
+               " > 2 with inverse preconditioner");
+         }
+         checkSolution ("inverse preconditioner", x, xcheck, 1e-6);
+      }
+   }
+
+   /**
+    * Creates a symmetric positive definite block matrix with the structure of
+    * a chain of 3 x 3 blocks, with each block coupled to its two neighbors.
+    */
+   SparseBlockMatrix createChainMatrix (int nblks) {
+      int[] sizes = new int[nblks];
+      for (int i=0; i<nblks; i++) {
+         sizes[i] = 3;
+      }
+      SparseBlockMatrix M = new SparseBlockMatrix (sizes, sizes);
+      for (int i=0; i<nblks; i++) {
+         Matrix3x3Block blk = new Matrix3x3Block();
+         blk.setRandom (-0.5, 0.5);
+         blk.m00 += 10;
+         blk.m11 += 10;
+         blk.m22 += 10;
+         blk.setSymmetric (blk);
+         M.addBlock (i, i, blk);
+         for (int k=1; k<=2; k++) {
+            if (i+k < nblks) {
+               Matrix3x3Block off = new Matrix3x3Block();
+               off.setRandom (-2, 2);
+               Matrix3x3Block offT = new Matrix3x3Block();
+               offT.transpose (off);
+               M.addBlock (i, i+k, off);
+               M.addBlock (i+k, i, offT);
+            }
+         }
+      }
+      return M;
+   }
+
+   SparseBlockMatrix createConstraints (int nblks, int numc) {
+      int[] rowSizes = new int[nblks];
+      for (int i=0; i<nblks; i++) {
+         rowSizes[i] = 3;
+      }
+      int[] colSizes = new int[numc];
+      for (int k=0; k<numc; k++) {
+         colSizes[k] = 1;
+      }
+      SparseBlockMatrix GT = new SparseBlockMatrix (rowSizes, colSizes);
+      for (int k=0; k<numc; k++) {
+         // each constraint acts on its own block, plus a random one
+         int bi = (k*nblks)/numc;
+         int bj = RandomGenerator.nextInt (0, nblks-1);
+         Matrix3x1Block blk = new Matrix3x1Block();
+         blk.setRandom();
+         GT.addBlock (bi, k, blk);
+         if (bj != bi) {
+            blk = new Matrix3x1Block();
+            blk.setRandom();
+            GT.addBlock (bj, k, blk);
+         }
+      }
+      return GT;
+   }
+
+   void testBlockJacobi (int nblks) {
+      SparseBlockMatrix M = createChainMatrix (nblks);
+      int size = M.rowSize();
+      VectorNd b = new VectorNd (size);
+      b.setRandom();
+      CGSolver cg = new CGSolver();
+      MINRESSolver minres = new MINRESSolver();
+      BlockJacobiPreconditioner P = new BlockJacobiPreconditioner (M);
+      checkEquals ("non SPD blocks", P.numNonSPDBlocks(), 0);
+
+      VectorNd xcg = new VectorNd (size);
+      if (!cg.solve (xcg, M, b, myTol, 10*size, P)) {
+         throw new TestException (
+            "CG no convergence: residual=" + cg.getRelativeResidual());
+      }
+      VectorNd x = new VectorNd (size);
+      if (!minres.solve (x, M, b, myTol, 10*size, P)) {
+         throw new TestException (
+            "MINRES no convergence: residual=" + minres.getRelativeResidual());
+      }
+      checkSolution ("block Jacobi", x, xcg, 1e-6);
+      int iters = minres.getNumIterations();
+      x.setZero();
+      minres.solve (x, M, b, myTol, 10*size, null);
+      if (iters > minres.getNumIterations()) {
+         throw new TestException (
+            "Preconditioned solve took "+iters+
+            " iterations, vs. "+minres.getNumIterations()+" without");
+      }
+   }
+
+   void testKKT (int nblks, int numc, boolean regularize) {
+      SparseBlockMatrix M = createChainMatrix (nblks);
+      SparseBlockMatrix GT = createConstraints (nblks, numc);
+      int sizeM = M.rowSize();
+      VectorNd bm = new VectorNd (sizeM);
+      VectorNd bg = new VectorNd (numc);
+      VectorNd Rg = null;
+      bm.setRandom();
+      bg.setRandom();
+      if (regularize) {
+         Rg = new VectorNd (numc);
+         for (int i=0; i<numc; i++) {
+            Rg.set (i, RandomGenerator.nextDouble (0, 0.1));
+         }
+      }
+
+      KKTSolver direct = new KKTSolver (SparseSolverId.SparseLDLT);
+      VectorNd velCheck = new VectorNd (sizeM);
+      VectorNd lamCheck = new VectorNd (numc);
+      direct.analyze (M, sizeM, GT, Rg, Matrix.SYMMETRIC);
+      direct.factor (M, sizeM, GT, Rg);
+      direct.solve (velCheck, lamCheck, bm, bg);
+      direct.dispose();
+
+      IterativeKKTSolver solver = new IterativeKKTSolver();
+      solver.setTolerance (1e-12);
+      VectorNd vel = new VectorNd (sizeM);
+      VectorNd lam = new VectorNd (numc);
+      if (!solver.solve (vel, lam, M, sizeM, GT, Rg, bm, bg)) {
+         throw new TestException (
+            "KKT no convergence: residual=" + solver.getRelativeResidual());
+      }
+      checkSolution ("KKT vel", vel, velCheck, 1e-7);
+      checkSolution ("KKT lam", lam, lamCheck, 1e-7);
+
+      // warm start from the solution should converge immediately
+      solver.solve (vel, lam, M, sizeM, GT, Rg, bm, bg);
+      if (solver.getNumIterations() > 1) {
+         throw new TestException (
+            "Warm started solve took "+solver.getNumIterations()+
+            " iterations");
+      }
+   }
+
+   public void test() {
+      RandomGenerator.setSeed (0x1234);
+      for (int i=0; i<10; i++) {
+         testDense (20, true);
+         testDense (20, false);
+      }
+      testBlockJacobi (50);
+      testBlockJacobi (200);
+      testKKT (30, 0, false);
+      testKKT (30, 10, false);
+      testKKT (100, 40, true);
+   }
+
+   public static void main (String[] args) {
+      MINRESSolverTest tester = new MINRESSolverTest();
+      tester.runtest();
+   }
+}
@@ -308,6 +308,7 @@ public class MurtyMechSolver {
    DirectSolver myMatrixSolver;      // current sparse solver
    UmfpackSolver myUmfpack;          // Umfpack solver, if used
    PardisoSolver myPardiso;          // Pardiso solver, if used
+   SparseLDLTSolver myLDLT;          // SparseLDLT solver, if used
    int mySavedMaxRefinementSteps;    // saved value of Pardiso refinement steps
    boolean myAMatrixFactored;        // A matrix factored and ready for solution
    
@@ -554,6 +555,11 @@ public class MurtyMechSolver {
             myMatrixSolver = myUmfpack;
             break;
          }
+         case SparseLDLT: {
+            myLDLT = new SparseLDLTSolver();
+            myMatrixSolver = myLDLT;
+            break;
+         }
          default: {
             throw new IllegalArgumentException (
                "Solver type " + solverType + " not supported");
@@ -571,6 +577,10 @@ public class MurtyMechSolver {
          myUmfpack = (UmfpackSolver)solver;
          mySolverType = SparseSolverId.Umfpack;
       }
+      else if (solver instanceof SparseLDLTSolver) {
+         myLDLT = (SparseLDLTSolver)solver;
+         mySolverType = SparseSolverId.SparseLDLT;
+      }
       else {
          throw new UnsupportedOperationException ("Unsupported solver "+solver);
       }
@@ -910,6 +920,25 @@ public class MurtyMechSolver {
          myAvgDirectTime = 0;
          myAMatrixFactored = false;
       }
+      else if (mySolverType == SparseSolverId.SparseLDLT) {
+         // SparseLDLT uses 0-based indices; keep 1-based copies for getA()
+         myAnalyzeTimer.restart();
+         myLDLT.analyze (
+            myValuesA, colIdxs, myRowOffsA, mySizeA, Matrix.SYMMETRIC);
+         myAnalyzeTimer.stop();
+         myARowOffs = Arrays.copyOf (myRowOffsA, mySizeA+1);
+         for (int i=0; i<myARowOffs.length; i++) {
+            myARowOffs[i]++;
+         }
+         myAColIdxs = Arrays.copyOf (colIdxs, colIdxs.length);
+         for (int i=0; i<myAColIdxs.length; i++) {
+            myAColIdxs[i]++;
+         }
+         myTotalAnalyzeCnt++;
+         myHybridCnt = 0;
+         myAvgDirectTime = 0;
+         myAMatrixFactored = false;
+      }
       else {
          throw new UnsupportedOperationException (
             "Solver " + mySolverType + " is not supported");
@@ -963,6 +992,13 @@ public class MurtyMechSolver {
          myTotalFactorCnt++;
          myAMatrixFactored = true;
       }
+      else if (mySolverType == SparseSolverId.SparseLDLT) {
+         myFactorTimer.restart();
+         myLDLT.factor (myValuesA);
+         myFactorTimer.stop();
+         myTotalFactorCnt++;
+         myAMatrixFactored = true;
+      }
       else {
          throw new UnsupportedOperationException (
             "Solver " + mySolverType + " is not supported");
@@ -977,6 +1013,13 @@ public class MurtyMechSolver {
          mySolveCnt++;
          myTotalSolveCnt++;
       }
+      else if (mySolverType == SparseSolverId.SparseLDLT) {
+         mySolveTimer.restart();
+         myLDLT.solve (y, x);
+         mySolveTimer.stop();
+         mySolveCnt++;
+         myTotalSolveCnt++;
+      }
       else {
          throw new UnsupportedOperationException (
             "Solver " + mySolverType + " is not supported");
@@ -992,12 +1035,38 @@ public class MurtyMechSolver {
          mySolveCnt += nrows;
          myTotalSolveCnt += nrows;
       }
+      else if (mySolverType == SparseSolverId.SparseLDLT) {
+         mySolveTimer.restart();
+         int nrows= Y.rowSize(); 
+         myLDLT.solve (Y.getBuffer(), X.getBuffer(), nrows);
+         mySolveTimer.stop();
+         mySolveCnt += nrows;
+         myTotalSolveCnt += nrows;
+      }
       else {
          throw new UnsupportedOperationException (
             "Solver " + mySolverType + " is not supported");
       }
    }
 
+   private int getMaxRefinementSteps() {
+      if (myLDLT != null) {
+         return myLDLT.getMaxRefinementSteps();
+      }
+      else {
+         return myPardiso.getMaxRefinementSteps();
+      }
+   }
+
+   private void setMaxRefinementSteps (int max) {
+      if (myLDLT != null) {
+         myLDLT.setMaxRefinementSteps (max);
+      }
+      else {
+         myPardiso.setMaxRefinementSteps (max);
+      }
+   }
+
    private boolean canDoHybridSolve() {
       if (myHybridSolves && myPardiso != null &&
           mySizeND == 0 && myAvgDirectTime > 0) {
@@ -2936,8 +3005,8 @@ public class MurtyMechSolver {
 
       myTol = myDefaultTol;
 
-      mySavedMaxRefinementSteps = myPardiso.getMaxRefinementSteps();
-      myPardiso.setMaxRefinementSteps(0);
+      mySavedMaxRefinementSteps = getMaxRefinementSteps();
+      setMaxRefinementSteps(0);
 
       updateAndSolveA (stateN, stateD);
       myNTActivityFrozen = ((flags & NT_INACTIVE) != 0);
@@ -2972,7 +3041,7 @@ public class MurtyMechSolver {
       else {
          extractMGSolution (vel, lam);
       }
-      myPardiso.setMaxRefinementSteps(mySavedMaxRefinementSteps);
+      setMaxRefinementSteps(mySavedMaxRefinementSteps);
       myNTActivityFrozen = false;
       getStateN (stateN);
       getStateD (stateD);
@@ -3026,8 +3095,8 @@ public class MurtyMechSolver {
 
       setFrictionLimits (flim);
 
-      mySavedMaxRefinementSteps = myPardiso.getMaxRefinementSteps();
-      myPardiso.setMaxRefinementSteps(0);
+      mySavedMaxRefinementSteps = getMaxRefinementSteps();
+      setMaxRefinementSteps(0);
       
       myTol = myDefaultTol;
 
@@ -3044,7 +3113,7 @@ public class MurtyMechSolver {
          extractMGSolution (vel, lam);      
       }
       
-      myPardiso.setMaxRefinementSteps(mySavedMaxRefinementSteps);
+      setMaxRefinementSteps(mySavedMaxRefinementSteps);
       myNTActivityFrozen = false;
       getStateN (stateN);
       getStateD (stateD);
@@ -3148,6 +3217,7 @@ public class MurtyMechSolver {
          myMatrixSolver = null;
          myPardiso = null;
          myUmfpack = null;
+         myLDLT = null;
       }
    }
 
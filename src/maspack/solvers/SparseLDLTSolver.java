@@ -0,0 +1,1664 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.solvers;
+
+import java.util.Arrays;
+
+import maspack.concurrency.ParallelLoop;
+import maspack.matrix.ImproperStateException;
+import maspack.matrix.Matrix;
+import maspack.matrix.Matrix.Partition;
+import maspack.matrix.VectorNd;
+import maspack.util.InternalErrorException;
+
+/**
+ * Pure Java sparse direct solver for symmetric matrices, based on a
+ * supernodal L D L^T factorization. Since no native code is required,
+ * the solver is available on all platforms and can be used when Pardiso
+ * cannot be loaded.
+ *
+ * <p>As with {@link PardisoSolver}, solving is divided into three phases:
+ *
+ * <ul>
+ * <li>{@link #analyze analyze()}, which computes a fill-reducing ordering
+ * using {@link AMDOrdering}, the elimination tree, and the supernodal
+ * structure of the factor. This depends only on the sparsity structure of
+ * the matrix and so needs to be repeated only when the structure changes.
+ * <li>{@link #factor() factor()}, which computes the numeric factorization.
+ * Supernodes at the same level of the (supernodal) elimination tree are
+ * independent and are factored concurrently when more than one thread is
+ * specified. Large supernodes near the root of the tree are instead
+ * processed by dividing their rows among the threads. In either case, the
+ * arithmetic performed for each factor entry is the same, so that the
+ * results do not depend on the number of threads.
+ * <li>{@link #solve(VectorNd,VectorNd) solve()}, which performs forward and
+ * backward substitution.
+ * </ul>
+ *
+ * <p>No dynamic pivoting is performed. Instead, the matrix is first scaled
+ * symmetrically so that the largest entry in each row and column has a
+ * magnitude of about one, and pivots of the scaled matrix whose magnitude
+ * falls below a small multiple of the largest entry are perturbed, with
+ * solutions subsequently improved using iterative refinement. The scaling
+ * prevents small but genuine pivots, such as those arising from stiff
+ * systems with constraints, from being mistaken for zero pivots. To improve
+ * stability for saddle point (KKT) systems, rows with zero diagonal entries
+ * are ordered after the rows they are coupled to.
+ */
+public class SparseLDLTSolver implements DirectSolver {
+
+   /**
+    * Indicates that no matrix has been analyzed.
+    */
+   public static final int UNSET = 0;
+
+   /**
+    * Indicates that a matrix has been analyzed but not factored.
+    */
+   public static final int ANALYZED = 1;
+
+   /**
+    * Indicates that a matrix has been analyzed and factored.
+    */
+   public static final int FACTORED = 2;
+
+   /**
+    * Default value for the pivot perturbation, relative to the
+    * largest absolute value of the scaled matrix.
+    */
+   public static final double DEFAULT_PIVOT_PERTURBATION = 1e-8;
+
+   /**
+    * Default maximum number of iterative refinement steps.
+    */
+   public static final int DEFAULT_MAX_REFINEMENT_STEPS = 2;
+
+   // maximum number of passes used to compute the symmetric scaling
+   private static final int MAX_SCALING_PASSES = 10;
+   // scaling passes stop once all row maxima are within this tolerance of 1
+   private static final double SCALING_TOL = 0.1;
+
+   // maximum number of columns in a supernode
+   private static final int MAX_SUPERNODE_WIDTH = 128;
+   // minimum number of multiply-adds needed before rows of a single
+   // supernode are divided among threads
+   private static final int MIN_PARALLEL_WORK = 20000;
+   // number of right hand sides solved together in multi-rhs solves
+   private static final int SOLVE_BLOCK_SIZE = 8;
+
+   private int myState = UNSET;
+   private int mySize;
+   private Matrix myMatrix;
+   private int myType;
+
+   // input matrix, in 0-based upper triangular CRS format
+   private int myNumVals;
+   private int[] myRowOffs;
+   private int[] myColIdxs;
+   private double[] myVals;
+
+   // ordering: myPerm[k] gives the original index of the k-th pivot
+   private int[] myPerm;
+
+   // supernodal structure
+   private int myNumSnodes;
+   private int[] mySnodeCols;    // first column of each supernode
+   private int[] mySnodeRowOffs; // offsets into mySnodeRows
+   private int[] mySnodeRows;    // sorted row indices of each supernode
+   private int[] mySnodeValOffs; // offsets into myL
+   private int myMaxWidth;
+   private int myMaxUpdateSize;
+
+   // updates for each supernode: supernodes that update it, and the
+   // position of the first updating row within each of these
+   private int[] myUpdOffs;
+   private int[] myUpdSnodes;
+   private int[] myUpdStarts;
+
+   // supernodes grouped by level in the supernodal elimination tree
+   private int[] myLevelOffs;
+   private int[] myLevelSnodes;
+
+   // location in myL to which each input value is added
+   private int[] myValDest;
+
+   // numeric factor. Each supernode is stored as a dense row-major block
+   // whose width is the number of supernode columns and whose height is the
+   // number of supernode rows. The diagonal of the leading square block
+   // contains D, with the unit diagonal of L implied.
+   private double[] myL;
+   private double[] myD;
+
+   // symmetric scaling applied to the matrix before factorization, indexed
+   // by original row
+   private double[] myScale;
+   private double[] myRowMax;
+
+   private double myPivotPerturbation = DEFAULT_PIVOT_PERTURBATION;
+   private int myMaxRefinementSteps = DEFAULT_MAX_REFINEMENT_STEPS;
+   private int myNumPerturbedPivots;
+   private int myNumNegEigenvalues;
+   private int myNumPosEigenvalues;
+
+   private int myNumThreads = 1;
+   private ParallelLoop myLoop;
+   private Workspace[] myWorkspaces = new Workspace[0];
+
+   // solve buffers
+   private double[] myY = new double[0];
+   private double[] myR = new double[0];
+   private double[] myDx = new double[0];
+   private double[] mySolveTmp = new double[0];
+
+   /**
+    * Per-thread storage used during numeric factorization.
+    */
+   private static class Workspace {
+      int[] map;     // maps row indices to supernode row positions
+      double[] tmp;  // scaled row used within dense factorizations
+      double[] Y;    // scaled rows of an updating supernode
+      int numPerturbed;
+      int numNeg;
+      int numPos;
+
+      Workspace (int n, int maxWidth, int maxUpdateSize) {
+         map = new int[n];
+         tmp = new double[maxWidth];
+         Y = new double[maxUpdateSize];
+      }
+
+      void clearCounts() {
+         numPerturbed = 0;
+         numNeg = 0;
+         numPos = 0;
+      }
+   }
+
+   /**
+    * Creates a new SparseLDLTSolver which uses a single thread.
+    */
+   public SparseLDLTSolver() {
+   }
+
+   /**
+    * Creates a new SparseLDLTSolver which uses the specified number of
+    * threads for numeric factorization.
+    *
+    * @param numThreads number of threads
+    */
+   public SparseLDLTSolver (int numThreads) {
+      setNumThreads (numThreads);
+   }
+
+   /**
+    * Sets the number of threads used for numeric factorization and for
+    * solves with multiple right hand sides. The computed results do not
+    * depend on this number.
+    *
+    * @param num number of threads. Must be at least 1.
+    */
+   public void setNumThreads (int num) {
+      if (num < 1) {
+         throw new IllegalArgumentException (
+            "number of threads must be at least 1; got "+num);
+      }
+      if (num != myNumThreads) {
+         if (myLoop != null) {
+            myLoop.dispose();
+            myLoop = null;
+         }
+         myNumThreads = num;
+      }
+   }
+
+   /**
+    * Returns the number of threads used for numeric factorization and
+    * multiple right hand side solves.
+    *
+    * @return number of threads
+    */
+   public int getNumThreads() {
+      return myNumThreads;
+   }
+
+   /**
+    * Sets the magnitude, relative to the largest absolute value of the
+    * scaled matrix, below which pivots are perturbed during factorization.
+    *
+    * @param eps relative pivot perturbation
+    */
+   public void setPivotPerturbation (double eps) {
+      myPivotPerturbation = eps;
+   }
+
+   /**
+    * Returns the relative pivot perturbation.
+    *
+    * @return relative pivot perturbation
+    * @see #setPivotPerturbation
+    */
+   public double getPivotPerturbation() {
+      return myPivotPerturbation;
+   }
+
+   /**
+    * Sets the maximum number of iterative refinement steps which are applied
+    * within a solve when pivots were perturbed during the factorization.
+    *
+    * @param max maximum number of refinement steps
+    */
+   public void setMaxRefinementSteps (int max) {
+      myMaxRefinementSteps = max;
+   }
+
+   /**
+    * Returns the maximum number of iterative refinement steps.
+    *
+    * @return maximum number of refinement steps
+    * @see #setMaxRefinementSteps
+    */
+   public int getMaxRefinementSteps() {
+      return myMaxRefinementSteps;
+   }
+
+   /**
+    * Returns the current state of this solver, which is either
+    * {@link #UNSET UNSET}, {@link #ANALYZED ANALYZED}, or
+    * {@link #FACTORED FACTORED}.
+    *
+    * @return state of this solver
+    */
+   public int getState() {
+      return myState;
+   }
+
+   /**
+    * Returns the size of the matrix most recently analyzed.
+    *
+    * @return matrix size
+    */
+   public int getSize() {
+      return mySize;
+   }
+
+   /**
+    * Sets the matrix associated with this solver and performs symbolic
+    * analysis on it. The matrix is assumed to be square and symmetric, and
+    * only its upper triangular part is used. If <code>size</code> is less
+    * than <code>M.rowSize()</code>, the matrix is taken to be the top-left
+    * diagonal sub-matrix of the indicated size. This solver retains a
+    * pointer to <code>M</code> until the next call to {@link #analyze
+    * analyze()} or {@link #analyzeAndFactor analyzeAndFactor()}.
+    *
+    * @param M supplies the matrix to be analyzed
+    * @param size size of the matrix to be analyzed
+    * @param type type of the matrix to be analyzed. Must include
+    * {@link Matrix#SYMMETRIC SYMMETRIC}.
+    * @throws IllegalArgumentException if the matrix is not square, if
+    * <code>size</code> is out of bounds, or if <code>type</code> does
+    * not indicate a symmetric matrix
+    */
+   public void analyze (Matrix M, int size, int type) {
+      if (M.rowSize() != M.colSize()) {
+         throw new IllegalArgumentException ("Matrix is not square");
+      }
+      if (size < 0 || size > M.rowSize()) {
+         throw new IllegalArgumentException (
+            "Requested size " + size + " is out of bounds");
+      }
+      checkType (type);
+      int numVals = M.numNonZeroVals (Partition.UpperTriangular, size, size);
+      int[] colIdxs = new int[numVals];
+      int[] rowOffs = new int[size+1];
+      double[] vals = new double[numVals];
+      M.getCRSIndices (colIdxs, rowOffs, Partition.UpperTriangular, size, size);
+      M.getCRSValues (vals, Partition.UpperTriangular, size, size);
+      // Matrix CRS indices are 1-based
+      for (int k=0; k<numVals; k++) {
+         colIdxs[k]--;
+      }
+      for (int i=0; i<=size; i++) {
+         rowOffs[i]--;
+      }
+      doAnalyze (vals, colIdxs, rowOffs, size, numVals);
+      myMatrix = M;
+      myType = type;
+   }
+
+   /**
+    * Performs symbolic analysis on a symmetric matrix supplied in
+    * compressed row storage (CRS) format. Only the upper triangular part of
+    * the matrix should be given; entries below the diagonal are ignored.
+    * Unlike the CRS format used by {@link Matrix#setCRSValues
+    * Matrix.setCRSValues()}, indices are 0-based. The index arrays are
+    * copied, so that the caller may subsequently modify them.
+    *
+    * @param vals non-zero matrix values. These are only used to identify
+    * zero diagonal entries, and may be <code>null</code>, in which case
+    * missing diagonal entries are treated as zero.
+    * @param colIdxs 0-based column index for each value
+    * @param rowOffs 0-based offset of the first value in each row,
+    * followed by the total number of values. Must have a length of at
+    * least <code>size+1</code>.
+    * @param size size of the matrix
+    * @param type type of the matrix. Must include
+    * {@link Matrix#SYMMETRIC SYMMETRIC}.
+    */
+   public void analyze (
+      double[] vals, int[] colIdxs, int[] rowOffs, int size, int type) {
+      checkType (type);
+      doAnalyze (vals, colIdxs, rowOffs, size, rowOffs[size]);
+      myMatrix = null;
+      myType = type;
+   }
+
+   private void checkType (int type) {
+      if ((type & Matrix.SYMMETRIC) == 0) {
+         throw new IllegalArgumentException (
+            "SparseLDLTSolver only supports symmetric matrices");
+      }
+   }
+
+   private void doAnalyze (
+      double[] vals, int[] colIdxs, int[] rowOffs, int n, int numVals) {
+
+      myState = UNSET;
+      mySize = n;
+      myNumVals = numVals;
+      myRowOffs = Arrays.copyOf (rowOffs, n+1);
+      myColIdxs = Arrays.copyOf (colIdxs, numVals);
+      myVals = new double[numVals];
+
+      // fill-reducing ordering, with zero-diagonal rows delayed
+      int[] perm = AMDOrdering.computeOrdering (myRowOffs, myColIdxs, n);
+      perm = delayZeroDiagonals (perm, vals);
+
+      // elimination tree for the ordering, and its postorder
+      int[] iperm = inversePermutation (perm);
+      int[] lowerOffs = new int[n+1];
+      int[] lowerCols = lowerRowStructure (iperm, lowerOffs);
+      int[] parent = eliminationTree (lowerOffs, lowerCols, n);
+      int[] post = postorder (parent, n);
+      for (int k=0; k<n; k++) {
+         post[k] = perm[post[k]];
+      }
+      myPerm = post;
+      iperm = inversePermutation (myPerm);
+      lowerCols = lowerRowStructure (iperm, lowerOffs);
+      parent = eliminationTree (lowerOffs, lowerCols, n);
+
+      int[] colCounts = columnCounts (lowerOffs, lowerCols, parent, n);
+      findSupernodes (parent, colCounts);
+      computeSupernodeRows (lowerOffs, lowerCols, parent, colCounts);
+      computeUpdatesAndLevels (parent);
+      computeValueDestinations (iperm);
+
+      int nnz = mySnodeValOffs[myNumSnodes];
+      myL = new double[nnz];
+      myD = new double[n];
+      myScale = new double[n];
+      myRowMax = new double[n];
+      myWorkspaces = new Workspace[0];
+      myState = ANALYZED;
+   }
+
+   /**
+    * Modifies an ordering so that each row with a zero diagonal entry is
+    * placed after all of the rows with nonzero diagonals to which it is
+    * coupled. This ensures that such rows acquire a nonzero diagonal
+    * through fill before they are eliminated.
+    */
+   private int[] delayZeroDiagonals (int[] perm, double[] vals) {
+      int n = mySize;
+      boolean[] zeroDiag = new boolean[n];
+      Arrays.fill (zeroDiag, true);
+      int numZero = n;
+      for (int i=0; i<n; i++) {
+         for (int k=myRowOffs[i]; k<myRowOffs[i+1]; k++) {
+            if (myColIdxs[k] == i && (vals == null || vals[k] != 0)) {
+               if (zeroDiag[i]) {
+                  zeroDiag[i] = false;
+                  numZero--;
+               }
+            }
+         }
+      }
+      if (numZero == 0) {
+         return perm;
+      }
+      // zero-diagonal neighbors of each nonzero-diagonal row
+      int[] offs = new int[n+1];
+      int[] pending = new int[n];
+      for (int i=0; i<n; i++) {
+         for (int k=myRowOffs[i]; k<myRowOffs[i+1]; k++) {
+            int j = myColIdxs[k];
+            if (j > i && zeroDiag[i] != zeroDiag[j]) {
+               offs[(zeroDiag[i] ? j : i)+1]++;
+            }
+         }
+      }
+      for (int i=0; i<n; i++) {
+         offs[i+1] += offs[i];
+      }
+      int[] nbrs = new int[offs[n]];
+      int[] fill = Arrays.copyOf (offs, n);
+      for (int i=0; i<n; i++) {
+         for (int k=myRowOffs[i]; k<myRowOffs[i+1]; k++) {
+            int j = myColIdxs[k];
+            if (j > i && zeroDiag[i] != zeroDiag[j]) {
+               if (zeroDiag[i]) {
+                  nbrs[fill[j]++] = i;
+                  pending[i]++;
+               }
+               else {
+                  nbrs[fill[i]++] = j;
+                  pending[j]++;
+               }
+            }
+         }
+      }
+      int[] newPerm = new int[n];
+      boolean[] deferred = new boolean[n];
+      int m = 0;
+      for (int k=0; k<n; k++) {
+         int i = perm[k];
+         if (zeroDiag[i]) {
+            if (pending[i] == 0) {
+               newPerm[m++] = i;
+            }
+            else {
+               deferred[i] = true;
+            }
+         }
+         else {
+            newPerm[m++] = i;
+            for (int l=offs[i]; l<offs[i+1]; l++) {
+               int j = nbrs[l];
+               if (--pending[j] == 0 && deferred[j]) {
+                  newPerm[m++] = j;
+                  deferred[j] = false;
+               }
+            }
+         }
+      }
+      if (m != n) {
+         throw new InternalErrorException (
+            "Reordered "+m+" rows; expected "+n);
+      }
+      return newPerm;
+   }
+
+   private int[] inversePermutation (int[] perm) {
+      int[] iperm = new int[perm.length];
+      for (int k=0; k<perm.length; k++) {
+         iperm[perm[k]] = k;
+      }
+      return iperm;
+   }
+
+   /**
+    * Computes the row structure of the strictly lower triangular part of
+    * the permuted matrix. Column indices within each row are not sorted.
+    */
+   private int[] lowerRowStructure (int[] iperm, int[] offs) {
+      int n = mySize;
+      Arrays.fill (offs, 0);
+      for (int i=0; i<n; i++) {
+         for (int k=myRowOffs[i]; k<myRowOffs[i+1]; k++) {
+            int j = myColIdxs[k];
+            if (j > i) {
+               offs[Math.max (iperm[i], iperm[j])+1]++;
+            }
+         }
+      }
+      for (int i=0; i<n; i++) {
+         offs[i+1] += offs[i];
+      }
+      int[] cols = new int[offs[n]];
+      int[] fill = Arrays.copyOf (offs, n);
+      for (int i=0; i<n; i++) {
+         for (int k=myRowOffs[i]; k<myRowOffs[i+1]; k++) {
+            int j = myColIdxs[k];
+            if (j > i) {
+               int a = iperm[i];
+               int b = iperm[j];
+               if (a < b) {
+                  cols[fill[b]++] = a;
+               }
+               else {
+                  cols[fill[a]++] = b;
+               }
+            }
+         }
+      }
+      return cols;
+   }
+
+   /**
+    * Computes the elimination tree using Liu's algorithm with path
+    * compression.
+    */
+   private int[] eliminationTree (int[] offs, int[] cols, int n) {
+      int[] parent = new int[n];
+      int[] ancestor = new int[n];
+      for (int r=0; r<n; r++) {
+         parent[r] = -1;
+         ancestor[r] = -1;
+         for (int k=offs[r]; k<offs[r+1]; k++) {
+            int i = cols[k];
+            while (i != -1 && i < r) {
+               int inext = ancestor[i];
+               ancestor[i] = r;
+               if (inext == -1) {
+                  parent[i] = r;
+               }
+               i = inext;
+            }
+         }
+      }
+      return parent;
+   }
+
+   /**
+    * Computes a postordering of a forest, with children visited in order of
+    * increasing index.
+    */
+   private int[] postorder (int[] parent, int n) {
+      int[] head = new int[n];
+      int[] next = new int[n];
+      Arrays.fill (head, -1);
+      for (int j=n-1; j>=0; j--) {
+         if (parent[j] != -1) {
+            next[j] = head[parent[j]];
+            head[parent[j]] = j;
+         }
+      }
+      int[] post = new int[n];
+      int[] stack = new int[n];
+      int k = 0;
+      for (int j=0; j<n; j++) {
+         if (parent[j] != -1) {
+            continue;
+         }
+         int top = 0;
+         stack[0] = j;
+         while (top >= 0) {
+            int p = stack[top];
+            int child = head[p];
+            if (child == -1) {
+               top--;
+               post[k++] = p;
+            }
+            else {
+               head[p] = next[child];
+               stack[++top] = child;
+            }
+         }
+      }
+      return post;
+   }
+
+   /**
+    * Computes the number of strictly lower triangular entries in each
+    * column of L, by traversing the row subtrees of the elimination tree.
+    */
+   private int[] columnCounts (int[] offs, int[] cols, int[] parent, int n) {
+      int[] counts = new int[n];
+      int[] mark = new int[n];
+      Arrays.fill (mark, -1);
+      for (int r=0; r<n; r++) {
+         mark[r] = r;
+         for (int k=offs[r]; k<offs[r+1]; k++) {
+            for (int i=cols[k]; mark[i]!=r; i=parent[i]) {
+               counts[i]++;
+               mark[i] = r;
+            }
+         }
+      }
+      return counts;
+   }
+
+   /**
+    * Groups columns into fundamental supernodes, consisting of chains of
+    * columns with nested structure.
+    */
+   private void findSupernodes (int[] parent, int[] colCounts) {
+      int n = mySize;
+      int[] cols = new int[n+1];
+      int nsn = 0;
+      for (int j=0; j<n; j++) {
+         if (j == 0 || parent[j-1] != j ||
+             colCounts[j-1] != colCounts[j]+1 ||
+             j-cols[nsn-1] >= MAX_SUPERNODE_WIDTH) {
+            cols[nsn++] = j;
+         }
+      }
+      cols[nsn] = n;
+      myNumSnodes = nsn;
+      mySnodeCols = Arrays.copyOf (cols, nsn+1);
+   }
+
+   /**
+    * Computes the sorted row indices of each supernode, along with the
+    * offsets of each supernode within the numeric factor.
+    */
+   private void computeSupernodeRows (
+      int[] lowerOffs, int[] lowerCols, int[] parent, int[] colCounts) {
+
+      int n = mySize;
+      int nsn = myNumSnodes;
+      int[] colSnode = columnSupernodes();
+
+      // lower triangular column structure of the permuted matrix
+      int[] colOffs = new int[n+1];
+      for (int k=0; k<lowerOffs[n]; k++) {
+         colOffs[lowerCols[k]+1]++;
+      }
+      for (int j=0; j<n; j++) {
+         colOffs[j+1] += colOffs[j];
+      }
+      int[] rows = new int[lowerOffs[n]];
+      int[] fill = Arrays.copyOf (colOffs, n);
+      for (int r=0; r<n; r++) {
+         for (int k=lowerOffs[r]; k<lowerOffs[r+1]; k++) {
+            rows[fill[lowerCols[k]]++] = r;
+         }
+      }
+
+      // supernodal elimination tree
+      int[] sparent = new int[nsn];
+      int[] shead = new int[nsn];
+      int[] snext = new int[nsn];
+      Arrays.fill (shead, -1);
+      for (int J=nsn-1; J>=0; J--) {
+         int l = mySnodeCols[J+1]-1;
+         sparent[J] = (parent[l] == -1 ? -1 : colSnode[parent[l]]);
+         if (sparent[J] != -1) {
+            snext[J] = shead[sparent[J]];
+            shead[sparent[J]] = J;
+         }
+      }
+
+      mySnodeRowOffs = new int[nsn+1];
+      mySnodeValOffs = new int[nsn+1];
+      myMaxWidth = 0;
+      long numRows = 0;
+      long numVals = 0;
+      for (int J=0; J<nsn; J++) {
+         int f = mySnodeCols[J];
+         int w = mySnodeCols[J+1]-f;
+         int h = colCounts[f]+1;
+         mySnodeRowOffs[J] = (int)numRows;
+         mySnodeValOffs[J] = (int)numVals;
+         numRows += h;
+         numVals += (long)h*w;
+         if (numVals > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException (
+               "Factorization too large: more than " + Integer.MAX_VALUE +
+               " non-zero values");
+         }
+         myMaxWidth = Math.max (myMaxWidth, w);
+      }
+      mySnodeRowOffs[nsn] = (int)numRows;
+      mySnodeValOffs[nsn] = (int)numVals;
+
+      mySnodeRows = new int[(int)numRows];
+      int[] mark = new int[n];
+      Arrays.fill (mark, -1);
+      for (int J=0; J<nsn; J++) {
+         int f = mySnodeCols[J];
+         int l = mySnodeCols[J+1]-1;
+         int off = mySnodeRowOffs[J];
+         int h = mySnodeRowOffs[J+1]-off;
+         int m = off;
+         for (int j=f; j<=l; j++) {
+            mySnodeRows[m++] = j;
+         }
+         for (int j=f; j<=l; j++) {
+            for (int k=colOffs[j]; k<colOffs[j+1]; k++) {
+               int r = rows[k];
+               if (r > l && mark[r] != J) {
+                  mark[r] = J;
+                  mySnodeRows[m++] = r;
+               }
+            }
+         }
+         for (int K=shead[J]; K!=-1; K=snext[K]) {
+            for (int k=mySnodeRowOffs[K]; k<mySnodeRowOffs[K+1]; k++) {
+               int r = mySnodeRows[k];
+               if (r > l && mark[r] != J) {
+                  mark[r] = J;
+                  mySnodeRows[m++] = r;
+               }
+            }
+         }
+         if (m-off != h) {
+            throw new InternalErrorException (
+               "Supernode "+J+" has "+(m-off)+" rows; expected "+h);
+         }
+         Arrays.sort (mySnodeRows, off+(l-f+1), off+h);
+      }
+   }
+
+   private int[] columnSupernodes() {
+      int[] colSnode = new int[mySize];
+      for (int J=0; J<myNumSnodes; J++) {
+         for (int j=mySnodeCols[J]; j<mySnodeCols[J+1]; j++) {
+            colSnode[j] = J;
+         }
+      }
+      return colSnode;
+   }
+
+   /**
+    * Determines, for each supernode, the supernodes that update it, and
+    * groups the supernodes into levels that can be factored concurrently.
+    */
+   private void computeUpdatesAndLevels (int[] parent) {
+      int nsn = myNumSnodes;
+      int[] colSnode = columnSupernodes();
+      int[] counts = new int[nsn+1];
+      myMaxUpdateSize = 0;
+      for (int pass=0; pass<2; pass++) {
+         if (pass == 1) {
+            for (int J=0; J<nsn; J++) {
+               counts[J+1] += counts[J];
+            }
+            myUpdOffs = Arrays.copyOf (counts, nsn+1);
+            myUpdSnodes = new int[counts[nsn]];
+            myUpdStarts = new int[counts[nsn]];
+         }
+         for (int K=0; K<nsn; K++) {
+            int off = mySnodeRowOffs[K];
+            int h = mySnodeRowOffs[K+1]-off;
+            int w = mySnodeCols[K+1]-mySnodeCols[K];
+            int prevJ = -1;
+            int start = 0;
+            for (int p=w; p<h; p++) {
+               int J = colSnode[mySnodeRows[off+p]];
+               if (J != prevJ) {
+                  if (pass == 0) {
+                     counts[J+1]++;
+                  }
+                  else {
+                     int idx = counts[J]++;
+                     myUpdSnodes[idx] = K;
+                     myUpdStarts[idx] = p;
+                  }
+                  if (prevJ != -1) {
+                     myMaxUpdateSize =
+                        Math.max (myMaxUpdateSize, (p-start)*w);
+                  }
+                  prevJ = J;
+                  start = p;
+               }
+            }
+            if (prevJ != -1) {
+               myMaxUpdateSize = Math.max (myMaxUpdateSize, (h-start)*w);
+            }
+         }
+      }
+
+      // levels
+      int[] level = new int[nsn];
+      int numLevels = 0;
+      for (int J=0; J<nsn; J++) {
+         int l = mySnodeCols[J+1]-1;
+         if (parent[l] != -1) {
+            int P = colSnode[parent[l]];
+            level[P] = Math.max (level[P], level[J]+1);
+         }
+         numLevels = Math.max (numLevels, level[J]+1);
+      }
+      myLevelOffs = new int[numLevels+1];
+      for (int J=0; J<nsn; J++) {
+         myLevelOffs[level[J]+1]++;
+      }
+      for (int i=0; i<numLevels; i++) {
+         myLevelOffs[i+1] += myLevelOffs[i];
+      }
+      myLevelSnodes = new int[nsn];
+      int[] fill = Arrays.copyOf (myLevelOffs, numLevels);
+      for (int J=0; J<nsn; J++) {
+         myLevelSnodes[fill[level[J]]++] = J;
+      }
+   }
+
+   /**
+    * Determines where each input value is to be added within the factor.
+    */
+   private void computeValueDestinations (int[] iperm) {
+      int n = mySize;
+      int[] colSnode = columnSupernodes();
+      myValDest = new int[myNumVals];
+      for (int i=0; i<n; i++) {
+         for (int k=myRowOffs[i]; k<myRowOffs[i+1]; k++) {
+            int j = myColIdxs[k];
+            if (j < i) {
+               myValDest[k] = -1;
+               continue;
+            }
+            int a = iperm[i];
+            int b = iperm[j];
+            int col = Math.min (a, b);
+            int row = Math.max (a, b);
+            int J = colSnode[col];
+            int f = mySnodeCols[J];
+            int w = mySnodeCols[J+1]-f;
+            int pos = Arrays.binarySearch (
+               mySnodeRows, mySnodeRowOffs[J], mySnodeRowOffs[J+1], row);
+            if (pos < 0) {
+               throw new InternalErrorException (
+                  "Row "+row+" not found in supernode "+J);
+            }
+            pos -= mySnodeRowOffs[J];
+            myValDest[k] = mySnodeValOffs[J] + pos*w + (col-f);
+         }
+      }
+   }
+
+   /**
+    * Factors the matrix most recently supplied by {@link
+    * #analyze(Matrix,int,int) analyze(Matrix,int,int)}, using its current
+    * numeric values.
+    *
+    * @throws ImproperStateException if not preceded by a call to
+    * {@link #analyze(Matrix,int,int) analyze(Matrix,int,int)} or
+    * {@link #analyzeAndFactor analyzeAndFactor()}
+    */
+   public void factor() {
+      if (myMatrix == null) {
+         throw new ImproperStateException (
+            "analyze(Matrix) or analyzeAndFactor(Matrix) not previously called");
+      }
+      myMatrix.getCRSValues (myVals, Partition.UpperTriangular, mySize, mySize);
+      doFactor();
+   }
+
+   /**
+    * Factors the most recently analyzed matrix using the supplied numeric
+    * values, which should be arranged to match the CRS structure given to
+    * {@link #analyze analyze()}.
+    *
+    * @param vals non-zero matrix values
+    * @throws ImproperStateException if no matrix has been analyzed
+    * @throws IllegalArgumentException if <code>vals</code> contains fewer
+    * values than the analyzed matrix
+    */
+   public void factor (double[] vals) {
+      if (myState == UNSET) {
+         throw new ImproperStateException ("No matrix currently set");
+      }
+      if (vals.length < myNumVals) {
+         throw new IllegalArgumentException (
+            "Not enough values: vals.length=" + vals.length +
+            ", expected number is " + myNumVals);
+      }
+      System.arraycopy (vals, 0, myVals, 0, myNumVals);
+      doFactor();
+   }
+
+   private void ensureWorkspaces() {
+      if (myWorkspaces.length != myNumThreads) {
+         myWorkspaces = new Workspace[myNumThreads];
+         for (int i=0; i<myNumThreads; i++) {
+            myWorkspaces[i] =
+               new Workspace (mySize, myMaxWidth, myMaxUpdateSize);
+         }
+      }
+      if (myNumThreads > 1 && myLoop == null) {
+         myLoop = new ParallelLoop ("SparseLDLTSolver", myNumThreads);
+      }
+   }
+
+   /**
+    * Computes the symmetric scaling S for which the largest entry in each
+    * row and column of S M S has a magnitude close to one. The scale factors
+    * are found iteratively by repeatedly dividing them by the square roots
+    * of the current row maxima. Rows that contain only zeros are not scaled.
+    */
+   private void computeScaling() {
+      int n = mySize;
+      double[] scale = myScale;
+      double[] rmax = myRowMax;
+      Arrays.fill (scale, 1.0);
+      for (int pass=0; pass<MAX_SCALING_PASSES; pass++) {
+         Arrays.fill (rmax, 0);
+         for (int i=0; i<n; i++) {
+            for (int k=myRowOffs[i]; k<myRowOffs[i+1]; k++) {
+               int j = myColIdxs[k];
+               if (j >= i && myValDest[k] != -1) {
+                  double a = Math.abs (scale[i]*myVals[k]*scale[j]);
+                  if (a > rmax[i]) {
+                     rmax[i] = a;
+                  }
+                  if (a > rmax[j]) {
+                     rmax[j] = a;
+                  }
+               }
+            }
+         }
+         boolean converged = true;
+         for (int i=0; i<n; i++) {
+            double r = rmax[i];
+            if (r > 0) {
+               if (Math.abs (1-r) > SCALING_TOL) {
+                  converged = false;
+               }
+               scale[i] /= Math.sqrt (r);
+            }
+         }
+         if (converged) {
+            break;
+         }
+      }
+   }
+
+   private void doFactor() {
+      ensureWorkspaces();
+      computeScaling();
+      Arrays.fill (myL, 0);
+      double maxAbs = 0;
+      for (int i=0; i<mySize; i++) {
+         for (int k=myRowOffs[i]; k<myRowOffs[i+1]; k++) {
+            int dest = myValDest[k];
+            if (dest != -1) {
+               double v = myScale[i]*myVals[k]*myScale[myColIdxs[k]];
+               myL[dest] += v;
+               maxAbs = Math.max (maxAbs, Math.abs (v));
+            }
+         }
+      }
+      final double tol =
+         myPivotPerturbation*(maxAbs > 0 ? maxAbs : 1.0);
+      for (Workspace ws : myWorkspaces) {
+         ws.clearCounts();
+      }
+      int numLevels = myLevelOffs.length-1;
+      for (int lev=0; lev<numLevels; lev++) {
+         final int lo = myLevelOffs[lev];
+         int num = myLevelOffs[lev+1]-lo;
+         if (myNumThreads > 1 && num >= myNumThreads) {
+            myLoop.run (num, new ParallelLoop.RangeTask() {
+                  public void run (int tidx, int i0, int i1) {
+                     Workspace ws = myWorkspaces[tidx];
+                     for (int i=i0; i<i1; i++) {
+                        factorSupernode (myLevelSnodes[lo+i], ws, tol, false);
+                     }
+                  }
+               });
+         }
+         else {
+            for (int i=0; i<num; i++) {
+               factorSupernode (
+                  myLevelSnodes[lo+i], myWorkspaces[0], tol, myNumThreads > 1);
+            }
+         }
+      }
+      myNumPerturbedPivots = 0;
+      myNumNegEigenvalues = 0;
+      myNumPosEigenvalues = 0;
+      for (Workspace ws : myWorkspaces) {
+         myNumPerturbedPivots += ws.numPerturbed;
+         myNumNegEigenvalues += ws.numNeg;
+         myNumPosEigenvalues += ws.numPos;
+      }
+      myState = FACTORED;
+   }
+
+   /**
+    * Factors supernode J, after first applying the updates from all the
+    * supernodes in its subtree. If <code>parallel</code> is
+    * <code>true</code>, the rows of large computations are divided among
+    * threads.
+    */
+   private void factorSupernode (
+      int J, Workspace ws, double tol, boolean parallel) {
+
+      final int f = mySnodeCols[J];
+      final int w = mySnodeCols[J+1]-f;
+      final int roff = mySnodeRowOffs[J];
+      final int h = mySnodeRowOffs[J+1]-roff;
+      final int voff = mySnodeValOffs[J];
+      final int[] map = ws.map;
+      for (int p=0; p<h; p++) {
+         map[mySnodeRows[roff+p]] = p;
+      }
+      // updates from descendant supernodes
+      for (int u=myUpdOffs[J]; u<myUpdOffs[J+1]; u++) {
+         final int K = myUpdSnodes[u];
+         final int s = myUpdStarts[u];
+         final int kroff = mySnodeRowOffs[K];
+         final int hK = mySnodeRowOffs[K+1]-kroff;
+         final int fK = mySnodeCols[K];
+         final int wK = mySnodeCols[K+1]-fK;
+         final int kvoff = mySnodeValOffs[K];
+         int e = s;
+         while (e < hK && mySnodeRows[kroff+e] < f+w) {
+            e++;
+         }
+         final int e_ = e;
+         // Y = rows s to e of L_K, scaled by D_K
+         final double[] Y = ws.Y;
+         for (int c=s; c<e; c++) {
+            int yoff = (c-s)*wK;
+            int loff = kvoff + c*wK;
+            for (int k=0; k<wK; k++) {
+               Y[yoff+k] = myD[fK+k]*myL[loff+k];
+            }
+         }
+         int nrows = hK-s;
+         if (parallel && (long)nrows*(e-s)*wK >= MIN_PARALLEL_WORK) {
+            myLoop.run (nrows, new ParallelLoop.RangeTask() {
+                  public void run (int tidx, int i0, int i1) {
+                     updateRows (J, K, s, e_, s+i0, s+i1, Y, map);
+                  }
+               });
+         }
+         else {
+            updateRows (J, K, s, e, s, hK, Y, map);
+         }
+      }
+      // dense factorization of the diagonal block
+      double[] tmp = ws.tmp;
+      for (int i=0; i<w; i++) {
+         int ri = voff + i*w;
+         factorRow (ri, voff, i, w, f, tmp);
+         double d = myL[ri+i];
+         for (int k=0; k<i; k++) {
+            d -= tmp[k]*myL[ri+k];
+         }
+         if (Math.abs (d) <= tol || Double.isNaN (d)) {
+            d = (d < 0 ? -tol : tol);
+            ws.numPerturbed++;
+         }
+         if (d < 0) {
+            ws.numNeg++;
+         }
+         else {
+            ws.numPos++;
+         }
+         myL[ri+i] = d;
+         myD[f+i] = d;
+      }
+      // off-diagonal rows
+      if (parallel && (long)(h-w)*w*w >= 2*MIN_PARALLEL_WORK) {
+         myLoop.run (h-w, new ParallelLoop.RangeTask() {
+               public void run (int tidx, int i0, int i1) {
+                  double[] tmp = myWorkspaces[tidx].tmp;
+                  for (int p=w+i0; p<w+i1; p++) {
+                     factorRow (voff + p*w, voff, w, w, f, tmp);
+                  }
+               }
+            });
+      }
+      else {
+         for (int p=w; p<h; p++) {
+            factorRow (voff + p*w, voff, w, w, f, tmp);
+         }
+      }
+   }
+
+   /**
+    * Computes the first <code>ncols</code> entries of a row of L within a
+    * supernode, given the updated matrix values stored in that row. On
+    * return, <code>tmp</code> contains the entries scaled by D.
+    */
+   private void factorRow (
+      int ri, int voff, int ncols, int w, int f, double[] tmp) {
+      for (int c=0; c<ncols; c++) {
+         int rc = voff + c*w;
+         double s = myL[ri+c];
+         for (int k=0; k<c; k++) {
+            s -= tmp[k]*myL[rc+k];
+         }
+         tmp[c] = s;
+         myL[ri+c] = s/myD[f+c];
+      }
+   }
+
+   /**
+    * Applies the update from supernode K to supernode J, for K's rows
+    * <code>i0</code> to <code>i1</code>. Rows <code>s</code> to
+    * <code>e</code> of K correspond to columns of J.
+    */
+   private void updateRows (
+      int J, int K, int s, int e, int i0, int i1, double[] Y, int[] map) {
+
+      int f = mySnodeCols[J];
+      int w = mySnodeCols[J+1]-f;
+      int voff = mySnodeValOffs[J];
+      int kroff = mySnodeRowOffs[K];
+      int wK = mySnodeCols[K+1]-mySnodeCols[K];
+      int kvoff = mySnodeValOffs[K];
+      // rows and columns are processed in pairs to reduce memory traffic;
+      // each entry is still accumulated in order of increasing k
+      int i = i0;
+      for ( ; i+1<i1; i+=2) {
+         int loff0 = kvoff + i*wK;
+         int loff1 = loff0 + wK;
+         int dst0 = voff + map[mySnodeRows[kroff+i]]*w - f;
+         int dst1 = voff + map[mySnodeRows[kroff+i+1]]*w - f;
+         int cmax0 = Math.min (i+1, e);
+         int cmax1 = Math.min (i+2, e);
+         int c = s;
+         for ( ; c+1<cmax0; c+=2) {
+            int yoff0 = (c-s)*wK;
+            int yoff1 = yoff0 + wK;
+            double s00 = 0, s01 = 0, s10 = 0, s11 = 0;
+            for (int k=0; k<wK; k++) {
+               double l0 = myL[loff0+k];
+               double l1 = myL[loff1+k];
+               double y0 = Y[yoff0+k];
+               double y1 = Y[yoff1+k];
+               s00 += l0*y0;
+               s01 += l0*y1;
+               s10 += l1*y0;
+               s11 += l1*y1;
+            }
+            int col0 = mySnodeRows[kroff+c];
+            int col1 = mySnodeRows[kroff+c+1];
+            myL[dst0 + col0] -= s00;
+            myL[dst0 + col1] -= s01;
+            myL[dst1 + col0] -= s10;
+            myL[dst1 + col1] -= s11;
+         }
+         for ( ; c<cmax1; c++) {
+            int yoff = (c-s)*wK;
+            double s0 = 0, s1 = 0;
+            for (int k=0; k<wK; k++) {
+               double y = Y[yoff+k];
+               s0 += myL[loff0+k]*y;
+               s1 += myL[loff1+k]*y;
+            }
+            int col = mySnodeRows[kroff+c];
+            if (c < cmax0) {
+               myL[dst0 + col] -= s0;
+            }
+            myL[dst1 + col] -= s1;
+         }
+      }
+      for ( ; i<i1; i++) {
+         int loff = kvoff + i*wK;
+         int dst = voff + map[mySnodeRows[kroff+i]]*w - f;
+         int cmax = Math.min (i+1, e);
+         for (int c=s; c<cmax; c++) {
+            int yoff = (c-s)*wK;
+            double sum = 0;
+            for (int k=0; k<wK; k++) {
+               sum += myL[loff+k]*Y[yoff+k];
+            }
+            myL[dst + mySnodeRows[kroff+c]] -= sum;
+         }
+      }
+   }
+
+   /**
+    * Analyzes and factors a matrix, which is assumed to be symmetric. This is
+    * equivalent to
+    *
+    * <pre>
+    *   analyze (M, M.rowSize(), Matrix.SYMMETRIC)
+    *   factor()
+    * </pre>
+    *
+    * @param M matrix to factor
+    */
+   public void analyzeAndFactor (Matrix M) {
+      analyze (M, M.rowSize(), Matrix.SYMMETRIC);
+      factor();
+   }
+
+   /**
+    * Solves the system
+    *
+    * <pre>
+    *  M x = b
+    * </pre>
+    *
+    * using the current factorization.
+    *
+    * @param x returns the solution
+    * @param b right hand side
+    * @throws ImproperStateException if the matrix has not been factored
+    * @throws IllegalArgumentException if <code>b</code> has a size less
+    * than the matrix size
+    */
+   public void solve (VectorNd x, VectorNd b) {
+      if (b.size() < mySize) {
+         throw new IllegalArgumentException (
+            "b size " + b.size() + " less than matrix size " + mySize);
+      }
+      if (x.size() < mySize) {
+         x.setSize (mySize);
+      }
+      solve (x.getBuffer(), b.getBuffer());
+   }
+
+   /**
+    * Solves the system
+    *
+    * <pre>
+    *  M x = b
+    * </pre>
+    *
+    * using the current factorization. If pivots were perturbed during the
+    * factorization, iterative refinement is applied to the solution.
+    *
+    * @param x returns the solution
+    * @param b right hand side
+    * @throws ImproperStateException if the matrix has not been factored
+    */
+   public void solve (double[] x, double[] b) {
+      if (myState != FACTORED) {
+         throw new ImproperStateException ("Matrix not factored");
+      }
+      int n = mySize;
+      if (myY.length < n) {
+         myY = new double[n];
+         myR = new double[n];
+         myDx = new double[n];
+      }
+      if (mySolveTmp.length < myMaxWidth) {
+         mySolveTmp = new double[myMaxWidth];
+      }
+      solveFactored (x, 0, b, 0);
+      if (myNumPerturbedPivots > 0) {
+         for (int step=0; step<myMaxRefinementSteps; step++) {
+            // r = b - M x
+            symmetricMul (myR, x);
+            double rnorm = 0;
+            for (int i=0; i<n; i++) {
+               myR[i] = b[i] - myR[i];
+               rnorm = Math.max (rnorm, Math.abs (myR[i]));
+            }
+            if (rnorm == 0) {
+               break;
+            }
+            solveFactored (myDx, 0, myR, 0);
+            for (int i=0; i<n; i++) {
+               x[i] += myDx[i];
+            }
+         }
+      }
+   }
+
+   /**
+    * Solves the system
+    *
+    * <pre>
+    *  M X = B
+    * </pre>
+    *
+    * for multiple right hand sides, using the current factorization.
+    * <code>X</code> and <code>B</code> are stored in column-major order,
+    * with each column having a length equal to the matrix size. The
+    * columns are solved together in small blocks, which are distributed
+    * among threads if {@link #getNumThreads} is greater than 1.
+    *
+    * @param X returns the solutions
+    * @param B right hand sides
+    * @param nrhs number of right hand sides
+    * @throws ImproperStateException if the matrix has not been factored
+    */
+   public void solve (double[] X, double[] B, int nrhs) {
+      int n = mySize;
+      if (X.length < n*nrhs || B.length < n*nrhs) {
+         throw new IllegalArgumentException (
+            "X and B must have lengths of at least " + n*nrhs);
+      }
+      if (nrhs == 1 || myNumPerturbedPivots > 0) {
+         // solve each column separately, so that refinement can be applied
+         // if necessary
+         double[] x = new double[n];
+         double[] b = new double[n];
+         for (int j=0; j<nrhs; j++) {
+            System.arraycopy (B, j*n, b, 0, n);
+            solve (x, b);
+            System.arraycopy (x, 0, X, j*n, n);
+         }
+         return;
+      }
+      if (myState != FACTORED) {
+         throw new ImproperStateException ("Matrix not factored");
+      }
+      // Columns are solved in blocks of up to SOLVE_BLOCK_SIZE, so that
+      // each supernode of L is traversed once per block instead of once per
+      // column. Blocks can be solved in parallel.
+      final int nblks = (nrhs+SOLVE_BLOCK_SIZE-1)/SOLVE_BLOCK_SIZE;
+      if (myNumThreads > 1 && nblks > 1 &&
+          (long)getNumNonZerosInFactors()*nrhs >= MIN_PARALLEL_WORK) {
+         ensureWorkspaces();
+         myLoop.run (nblks, new ParallelLoop.RangeTask() {
+               public void run (int tidx, int b0, int b1) {
+                  solveBlocks (X, B, nrhs, b0, b1);
+               }
+            });
+      }
+      else {
+         solveBlocks (X, B, nrhs, 0, nblks);
+      }
+   }
+
+   /**
+    * Solves the right hand side blocks in the range [b0, b1), using
+    * locally allocated storage so that this can be called concurrently.
+    */
+   private void solveBlocks (
+      double[] X, double[] B, int nrhs, int b0, int b1) {
+      double[] Y = new double[mySize*SOLVE_BLOCK_SIZE];
+      double[] tmp = new double[myMaxWidth*SOLVE_BLOCK_SIZE];
+      for (int blk=b0; blk<b1; blk++) {
+         int j0 = blk*SOLVE_BLOCK_SIZE;
+         int nb = Math.min (SOLVE_BLOCK_SIZE, nrhs-j0);
+         solveFactoredBlock (X, B, j0, nb, Y, tmp);
+      }
+   }
+
+   /**
+    * Solves L D L^T Y = S B for the {@code nb} columns of B starting at
+    * column {@code j0}, without refinement, and sets X = S Y. Within Y and tmp, the values for each
+    * row are stored contiguously, so that the inner loops run over the
+    * columns of the block. Operations are performed in the same order as
+    * in solveFactored(), so the results are identical.
+    */
+   private void solveFactoredBlock (
+      double[] X, double[] B, int j0, int nb, double[] Y, double[] tmp) {
+      int n = mySize;
+      for (int k=0; k<n; k++) {
+         int pk = myPerm[k];
+         double sk = myScale[pk];
+         for (int r=0; r<nb; r++) {
+            Y[k*nb+r] = sk*B[(j0+r)*n+pk];
+         }
+      }
+      // forward substitution
+      for (int J=0; J<myNumSnodes; J++) {
+         int f = mySnodeCols[J];
+         int w = mySnodeCols[J+1]-f;
+         int roff = mySnodeRowOffs[J];
+         int h = mySnodeRowOffs[J+1]-roff;
+         int voff = mySnodeValOffs[J];
+         for (int i=1; i<w; i++) {
+            int ri = voff + i*w;
+            int yi = (f+i)*nb;
+            for (int k=0; k<i; k++) {
+               double l = myL[ri+k];
+               int yk = (f+k)*nb;
+               for (int r=0; r<nb; r++) {
+                  Y[yi+r] -= l*Y[yk+r];
+               }
+            }
+         }
+         for (int p=w; p<h; p++) {
+            int rp = voff + p*w;
+            int yp = mySnodeRows[roff+p]*nb;
+            for (int r=0; r<nb; r++) {
+               tmp[r] = 0;
+            }
+            for (int k=0; k<w; k++) {
+               double l = myL[rp+k];
+               int yk = (f+k)*nb;
+               for (int r=0; r<nb; r++) {
+                  tmp[r] += l*Y[yk+r];
+               }
+            }
+            for (int r=0; r<nb; r++) {
+               Y[yp+r] -= tmp[r];
+            }
+         }
+      }
+      // diagonal
+      for (int k=0; k<n; k++) {
+         double d = myD[k];
+         for (int r=0; r<nb; r++) {
+            Y[k*nb+r] /= d;
+         }
+      }
+      // backward substitution
+      for (int J=myNumSnodes-1; J>=0; J--) {
+         int f = mySnodeCols[J];
+         int w = mySnodeCols[J+1]-f;
+         int roff = mySnodeRowOffs[J];
+         int h = mySnodeRowOffs[J+1]-roff;
+         int voff = mySnodeValOffs[J];
+         for (int k=0; k<w*nb; k++) {
+            tmp[k] = 0;
+         }
+         for (int p=w; p<h; p++) {
+            int rp = voff + p*w;
+            int yp = mySnodeRows[roff+p]*nb;
+            for (int k=0; k<w; k++) {
+               double l = myL[rp+k];
+               for (int r=0; r<nb; r++) {
+                  tmp[k*nb+r] += l*Y[yp+r];
+               }
+            }
+         }
+         for (int i=w-1; i>=0; i--) {
+            int yi = (f+i)*nb;
+            for (int r=0; r<nb; r++) {
+               Y[yi+r] -= tmp[i*nb+r];
+            }
+            for (int q=i+1; q<w; q++) {
+               double l = myL[voff+q*w+i];
+               int yq = (f+q)*nb;
+               for (int r=0; r<nb; r++) {
+                  Y[yi+r] -= l*Y[yq+r];
+               }
+            }
+         }
+      }
+      for (int k=0; k<n; k++) {
+         int pk = myPerm[k];
+         double sk = myScale[pk];
+         for (int r=0; r<nb; r++) {
+            X[(j0+r)*n+pk] = sk*Y[k*nb+r];
+         }
+      }
+   }
+
+   /**
+    * Computes y = M x using the stored upper triangular values of M.
+    */
+   private void symmetricMul (double[] y, double[] x) {
+      int n = mySize;
+      for (int i=0; i<n; i++) {
+         y[i] = 0;
+      }
+      for (int i=0; i<n; i++) {
+         double xi = x[i];
+         double sum = 0;
+         for (int k=myRowOffs[i]; k<myRowOffs[i+1]; k++) {
+            int j = myColIdxs[k];
+            if (j >= i) {
+               double v = myVals[k];
+               sum += v*x[j];
+               if (j != i) {
+                  y[j] += v*xi;
+               }
+            }
+         }
+         y[i] += sum;
+      }
+   }
+
+   /**
+    * Solves L D L^T y = S b for the permuted and scaled system, without
+    * refinement, and sets x = S y.
+    */
+   private void solveFactored (double[] x, int xoff, double[] b, int boff) {
+      int n = mySize;
+      double[] y = myY;
+      double[] tmp = mySolveTmp;
+      for (int k=0; k<n; k++) {
+         int pk = myPerm[k];
+         y[k] = myScale[pk]*b[boff+pk];
+      }
+      // forward substitution
+      for (int J=0; J<myNumSnodes; J++) {
+         int f = mySnodeCols[J];
+         int w = mySnodeCols[J+1]-f;
+         int roff = mySnodeRowOffs[J];
+         int h = mySnodeRowOffs[J+1]-roff;
+         int voff = mySnodeValOffs[J];
+         for (int i=1; i<w; i++) {
+            int ri = voff + i*w;
+            double s = y[f+i];
+            for (int k=0; k<i; k++) {
+               s -= myL[ri+k]*y[f+k];
+            }
+            y[f+i] = s;
+         }
+         for (int p=w; p<h; p++) {
+            int rp = voff + p*w;
+            double s = 0;
+            for (int k=0; k<w; k++) {
+               s += myL[rp+k]*y[f+k];
+            }
+            y[mySnodeRows[roff+p]] -= s;
+         }
+      }
+      // diagonal
+      for (int k=0; k<n; k++) {
+         y[k] /= myD[k];
+      }
+      // backward substitution
+      for (int J=myNumSnodes-1; J>=0; J--) {
+         int f = mySnodeCols[J];
+         int w = mySnodeCols[J+1]-f;
+         int roff = mySnodeRowOffs[J];
+         int h = mySnodeRowOffs[J+1]-roff;
+         int voff = mySnodeValOffs[J];
+         for (int k=0; k<w; k++) {
+            tmp[k] = 0;
+         }
+         for (int p=w; p<h; p++) {
+            int rp = voff + p*w;
+            double yp = y[mySnodeRows[roff+p]];
+            for (int k=0; k<w; k++) {
+               tmp[k] += myL[rp+k]*yp;
+            }
+         }
+         for (int i=w-1; i>=0; i--) {
+            double s = y[f+i] - tmp[i];
+            for (int q=i+1; q<w; q++) {
+               s -= myL[voff+q*w+i]*y[f+q];
+            }
+            y[f+i] = s;
+         }
+      }
+      for (int k=0; k<n; k++) {
+         int pk = myPerm[k];
+         x[xoff+pk] = myScale[pk]*y[k];
+      }
+   }
+
+   /**
+    * Factors the current matrix and solves M x = b. Automatic iterative
+    * solving is not supported, and so <code>tolExp</code> is ignored.
+    */
+   public void autoFactorAndSolve (VectorNd x, VectorNd b, int tolExp) {
+      factor();
+      solve (x, b);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public boolean hasAutoIterativeSolving() {
+      return false;
+   }
+
+   /**
+    * Returns the fill-reducing permutation computed by the most recent
+    * analysis, such that <code>perm[k]</code> gives the original index of
+    * the <code>k</code>-th pivot.
+    *
+    * @return fill-reducing permutation, or <code>null</code> if no matrix
+    * has been analyzed
+    */
+   public int[] getPermutation() {
+      return myPerm == null ? null : Arrays.copyOf (myPerm, mySize);
+   }
+
+   /**
+    * Returns the number of supernodes found by the most recent analysis.
+    *
+    * @return number of supernodes
+    */
+   public int getNumSupernodes() {
+      return myNumSnodes;
+   }
+
+   /**
+    * Returns the number of non-zero elements in the factor L, including its
+    * (unit) diagonal. This is determined during the analysis phase. Values
+    * which are stored explicitly within supernodes but are structurally zero
+    * are not counted.
+    *
+    * @return number of non-zero elements in the factor
+    */
+   public int getNumNonZerosInFactors() {
+      if (myState == UNSET) {
+         return 0;
+      }
+      int nnz = 0;
+      for (int J=0; J<myNumSnodes; J++) {
+         int w = mySnodeCols[J+1]-mySnodeCols[J];
+         int h = mySnodeRowOffs[J+1]-mySnodeRowOffs[J];
+         nnz += h*w - w*(w-1)/2;
+      }
+      return nnz;
+   }
+
+   /**
+    * Returns the number of negative pivots (and hence negative eigenvalues)
+    * found during the most recent factorization.
+    *
+    * @return number of negative eigenvalues
+    */
+   public int getNumNegEigenvalues() {
+      return myNumNegEigenvalues;
+   }
+
+   /**
+    * Returns the number of positive pivots (and hence positive eigenvalues)
+    * found during the most recent factorization.
+    *
+    * @return number of positive eigenvalues
+    */
+   public int getNumPosEigenvalues() {
+      return myNumPosEigenvalues;
+   }
+
+   /**
+    * Returns the number of pivots which were perturbed during the most
+    * recent factorization. Pivot perturbation generally indicates a
+    * singular, or very nearly singular, matrix.
+    *
+    * @return number of perturbed pivots
+    */
+   public int getNumPerturbedPivots() {
+      return myNumPerturbedPivots;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void dispose() {
+      if (myLoop != null) {
+         myLoop.dispose();
+         myLoop = null;
+      }
+      myWorkspaces = new Workspace[0];
+      myL = null;
+      myD = null;
+      myMatrix = null;
+      myState = UNSET;
+   }
+}
@@ -0,0 +1,325 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.solvers;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+
+import maspack.matrix.Matrix;
+import maspack.matrix.Matrix.Partition;
+import maspack.matrix.SparseMatrixNd;
+import maspack.matrix.VectorNd;
+import maspack.util.PathFinder;
+import maspack.util.RandomGenerator;
+import maspack.util.ReaderTokenizer;
+import maspack.util.TestException;
+import maspack.util.UnitTest;
+
+public class SparseLDLTSolverTest extends UnitTest {
+
+   /**
+    * Creates a random sparse symmetric matrix with approximately
+    * <code>nnzPerRow</code> off-diagonal entries per row. If
+    * <code>spd</code> is true, the diagonal is made dominant.
+    */
+   SparseMatrixNd createRandomSymmetric (int n, int nnzPerRow, boolean spd) {
+      SparseMatrixNd S = new SparseMatrixNd (n, n);
+      double[] rowSums = new double[n];
+      for (int i=0; i<n; i++) {
+         for (int k=0; k<nnzPerRow/2; k++) {
+            int j = RandomGenerator.nextInt (0, n-1);
+            if (j != i) {
+               double v = RandomGenerator.nextDouble (-1, 1);
+               S.set (i, j, v);
+               S.set (j, i, v);
+            }
+         }
+      }
+      for (int i=0; i<n; i++) {
+         for (int j=0; j<n; j++) {
+            if (j != i) {
+               rowSums[i] += Math.abs (S.get (i, j));
+            }
+         }
+      }
+      for (int i=0; i<n; i++) {
+         if (spd) {
+            S.set (i, i, rowSums[i] + RandomGenerator.nextDouble (0.1, 1));
+         }
+         else {
+            S.set (i, i, RandomGenerator.nextDouble (-1, 1));
+         }
+      }
+      return S;
+   }
+
+   /**
+    * Creates a KKT matrix [ M G^T ; G 0 ], with M an n x n random SPD
+    * matrix and G a random m x n constraint matrix.
+    */
+   SparseMatrixNd createRandomKKT (int n, int m) {
+      SparseMatrixNd M = createRandomSymmetric (n, 6, true);
+      SparseMatrixNd S = new SparseMatrixNd (n+m, n+m);
+      for (int i=0; i<n; i++) {
+         for (int j=0; j<n; j++) {
+            double v = M.get (i, j);
+            if (v != 0) {
+               S.set (i, j, v);
+            }
+         }
+      }
+      for (int i=0; i<m; i++) {
+         // ensure full row rank by giving each row its own column
+         S.set (n+i, i, 1.0);
+         S.set (i, n+i, 1.0);
+         for (int k=0; k<3; k++) {
+            int j = RandomGenerator.nextInt (0, n-1);
+            double v = RandomGenerator.nextDouble (-1, 1);
+            S.set (n+i, j, v);
+            S.set (j, n+i, v);
+         }
+      }
+      return S;
+   }
+
+   double relativeResidual (Matrix M, VectorNd x, VectorNd b) {
+      VectorNd r = new VectorNd (b.size());
+      M.mul (r, x);
+      r.sub (b);
+      return r.norm()/b.norm();
+   }
+
+   VectorNd randomVector (int n) {
+      VectorNd b = new VectorNd (n);
+      b.setRandom();
+      return b;
+   }
+
+   void checkPermutation (int[] perm, int n) {
+      checkEquals ("permutation length", perm.length, n);
+      boolean[] found = new boolean[n];
+      for (int k=0; k<n; k++) {
+         if (perm[k] < 0 || perm[k] >= n || found[perm[k]]) {
+            throw new TestException (
+               "Invalid permutation entry perm["+k+"]="+perm[k]);
+         }
+         found[perm[k]] = true;
+      }
+   }
+
+   void checkSolve (
+      SparseLDLTSolver solver, SparseMatrixNd S, double tol) {
+      int n = S.rowSize();
+      solver.analyze (S, n, Matrix.SYMMETRIC);
+      checkPermutation (solver.getPermutation(), n);
+      solver.factor();
+      VectorNd b = randomVector (n);
+      VectorNd x = new VectorNd (n);
+      solver.solve (x, b);
+      double res = relativeResidual (S, x, b);
+      if (res > tol) {
+         throw new TestException (
+            "relative residual "+res+" exceeds "+tol+" for size "+n);
+      }
+   }
+
+   /**
+    * Symmetric indefinite example also used in PardisoSolverTest.
+    */
+   public void testSmallIndefinite() {
+      int size = 5;
+      int[] rowOffs = new int[] { 0, 3, 6, 8, 10, 11 };
+      int[] colIdxs = new int[] { 0, 1, 2, 1, 2, 3, 2, 3, 3, 4, 4 };
+      double[] vals = new double[] { 3, 1, 2, 0, 1, 2, 4, 1, 0, 6, 2 };
+      double[] b = new double[] { 1, 2, 3, 4, 5 };
+      double[] check = new double[] {
+         0.111111111111111, -0.88888888888888, 0.777777777777777,
+         0.555555555555555, 0.833333333333333 };
+
+      SparseLDLTSolver solver = new SparseLDLTSolver();
+      solver.analyze (vals, colIdxs, rowOffs, size, Matrix.SYMMETRIC);
+      solver.factor (vals);
+      double[] x = new double[size];
+      solver.solve (x, b);
+      checkEquals ("small indefinite solution",
+                   new VectorNd(x), new VectorNd(check), 1e-12);
+      checkEquals ("negative eigenvalues", solver.getNumNegEigenvalues(), 2);
+      checkEquals ("positive eigenvalues", solver.getNumPosEigenvalues(), 3);
+
+      // refactor with scaled values: solution should scale inversely
+      double[] vals2 = new double[vals.length];
+      for (int k=0; k<vals.length; k++) {
+         vals2[k] = 2*vals[k];
+      }
+      solver.factor (vals2);
+      solver.solve (x, b);
+      VectorNd xcheck = new VectorNd (check);
+      xcheck.scale (0.5);
+      checkEquals ("refactored solution", new VectorNd(x), xcheck, 1e-12);
+   }
+
+   public void testRandom() {
+      SparseLDLTSolver solver = new SparseLDLTSolver();
+      for (int n : new int[] { 1, 2, 10, 50, 300 }) {
+         checkSolve (solver, createRandomSymmetric (n, 8, true), 1e-12);
+         checkEquals (
+            "SPD negative eigenvalues", solver.getNumNegEigenvalues(), 0);
+      }
+      for (int n : new int[] { 10, 50, 300 }) {
+         checkSolve (solver, createRandomSymmetric (n, 8, false), 1e-8);
+      }
+      // matrix with a dense row and column
+      SparseMatrixNd S = createRandomSymmetric (400, 4, true);
+      for (int j=1; j<400; j++) {
+         S.set (0, j, 0.001);
+         S.set (j, 0, 0.001);
+      }
+      checkSolve (solver, S, 1e-12);
+   }
+
+   public void testKKT() {
+      SparseLDLTSolver solver = new SparseLDLTSolver();
+      int n = 200;
+      int m = 50;
+      SparseMatrixNd S = createRandomKKT (n, m);
+      checkSolve (solver, S, 1e-10);
+      checkEquals ("KKT perturbed pivots", solver.getNumPerturbedPivots(), 0);
+      checkEquals ("KKT negative eigenvalues", solver.getNumNegEigenvalues(), m);
+      checkEquals ("KKT positive eigenvalues", solver.getNumPosEigenvalues(), n);
+
+      // stiff KKT system, for which the constraint pivots are much smaller
+      // than the largest matrix entry
+      for (int i=0; i<n; i++) {
+         for (int j=0; j<n; j++) {
+            double v = S.get (i, j);
+            if (v != 0) {
+               S.set (i, j, 1e7*v);
+            }
+         }
+      }
+      checkSolve (solver, S, 1e-7);
+      checkEquals (
+         "stiff KKT perturbed pivots", solver.getNumPerturbedPivots(), 0);
+      checkEquals (
+         "stiff KKT negative eigenvalues", solver.getNumNegEigenvalues(), m);
+   }
+
+   public void testSingular() {
+      // rank-deficient matrix: pivots are perturbed rather than failing
+      SparseMatrixNd S = new SparseMatrixNd (3, 3);
+      S.set (0, 0, 1);
+      S.set (0, 1, 1);
+      S.set (1, 0, 1);
+      S.set (1, 1, 1);
+      S.set (2, 2, 1);
+      SparseLDLTSolver solver = new SparseLDLTSolver();
+      solver.analyzeAndFactor (S);
+      checkEquals ("singular perturbed pivots",
+                   solver.getNumPerturbedPivots(), 1);
+      VectorNd x = new VectorNd (3);
+      solver.solve (x, new VectorNd (new double[] { 1, 1, 1 }));
+      check ("singular solution is finite", !Double.isNaN (x.norm()));
+   }
+
+   public void testThreadsAndMultipleRhs() {
+      int n = 3000;
+      SparseMatrixNd S = createRandomSymmetric (n, 10, false);
+      VectorNd b = randomVector (n);
+      VectorNd x1 = new VectorNd (n);
+      VectorNd x4 = new VectorNd (n);
+
+      SparseLDLTSolver solver = new SparseLDLTSolver (1);
+      solver.analyze (S, n, Matrix.SYMMETRIC);
+      solver.factor();
+      solver.solve (x1, b);
+      int nneg = solver.getNumNegEigenvalues();
+
+      solver.setNumThreads (4);
+      solver.factor();
+      solver.solve (x4, b);
+      checkEquals ("solution with 4 threads", x4, x1, 0);
+      checkEquals ("negative eigenvalues with 4 threads",
+                   solver.getNumNegEigenvalues(), nneg);
+
+      // use enough right hand sides to span several solve blocks
+      int nrhs = 19;
+      double[] B = new double[n*nrhs];
+      double[] X = new double[n*nrhs];
+      for (int j=0; j<nrhs; j++) {
+         for (int i=0; i<n; i++) {
+            B[j*n+i] = RandomGenerator.nextDouble (-1, 1);
+         }
+      }
+      solver.solve (X, B, nrhs);
+      double[] x = new double[n];
+      double[] bcol = new double[n];
+      for (int j=0; j<nrhs; j++) {
+         System.arraycopy (B, j*n, bcol, 0, n);
+         solver.solve (x, bcol);
+         for (int i=0; i<n; i++) {
+            if (X[j*n+i] != x[i]) {
+               throw new TestException (
+                  "multiple rhs solution differs at ("+i+","+j+")");
+            }
+         }
+      }
+      solver.dispose();
+   }
+
+   public void testMatrixFile() throws IOException {
+      SparseMatrixNd S = new SparseMatrixNd (0, 0);
+      ReaderTokenizer rtok =
+         new ReaderTokenizer (
+            new BufferedReader (
+               new FileReader (
+                  PathFinder.getSourceRelativePath (this, "testMatrix.mat"))));
+      S.scan (rtok);
+      rtok.close();
+      int size = S.rowSize();
+      VectorNd b = new VectorNd (size);
+      VectorNd x = new VectorNd (size);
+      b.setAll (1);
+      SparseLDLTSolver solver = new SparseLDLTSolver (2);
+      solver.analyze (S, size, Matrix.SYMMETRIC);
+      solver.factor();
+      solver.solve (x, b);
+      double res = relativeResidual (S, x, b);
+      if (res > 1e-10) {
+         throw new TestException (
+            "testMatrix.mat: relative residual "+res+" exceeds 1e-10");
+      }
+      int nnzUpper = S.numNonZeroVals (Partition.UpperTriangular, size, size);
+      check ("factor has at least as many non-zeros as the matrix",
+             solver.getNumNonZerosInFactors() >= nnzUpper);
+      solver.dispose();
+   }
+
+   public void testExceptions() {
+      SparseLDLTSolver solver = new SparseLDLTSolver();
+      checkForIllegalArgumentException (
+         () -> solver.analyze (new SparseMatrixNd (3, 3), 3, Matrix.INDEFINITE));
+      checkForIllegalArgumentException (
+         () -> solver.setNumThreads (0));
+   }
+
+   public void test() throws IOException {
+      RandomGenerator.setSeed (0x1234);
+      testSmallIndefinite();
+      testRandom();
+      testKKT();
+      testSingular();
+      testThreadsAndMultipleRhs();
+      testMatrixFile();
+      testExceptions();
+   }
+
+   public static void main (String[] args) {
+      SparseLDLTSolverTest tester = new SparseLDLTSolverTest();
+      tester.runtest();
+   }
+}
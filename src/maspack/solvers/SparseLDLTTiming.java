@@ -0,0 +1,257 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.solvers;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+
+import maspack.matrix.Matrix;
+import maspack.matrix.Matrix.Partition;
+import maspack.matrix.SparseMatrixNd;
+import maspack.matrix.VectorNd;
+import maspack.util.FunctionTimer;
+import maspack.util.PathFinder;
+import maspack.util.ReaderTokenizer;
+
+/**
+ * Times the analyze, factor and solve phases of {@link SparseLDLTSolver}
+ * for different numbers of threads, and compares them with {@link
+ * PardisoSolver} when it is available. Matrices are the
+ * <code>testMatrix.mat</code> matrix used by {@link PardisoSolverTest},
+ * and a symmetric matrix with the structure of a 3D hexahedral FEM
+ * stiffness matrix.
+ */
+public class SparseLDLTTiming {
+
+   static int myRes = 20;       // grid resolution for the FEM-like matrix
+   static int myMaxThreads = 8; // maximum number of threads to try
+   static int myCnt = 5;        // number of timed factorizations
+
+   static class CRSMatrix {
+      String name;
+      int size;
+      int[] rowOffs;   // 0-based
+      int[] colIdxs;   // 0-based
+      double[] vals;
+   }
+
+   static CRSMatrix getCRS (String name, Matrix M) {
+      CRSMatrix crs = new CRSMatrix();
+      int size = M.rowSize();
+      int nvals = M.numNonZeroVals (Partition.UpperTriangular, size, size);
+      crs.name = name;
+      crs.size = size;
+      crs.rowOffs = new int[size+1];
+      crs.colIdxs = new int[nvals];
+      crs.vals = new double[nvals];
+      M.getCRSIndices (
+         crs.colIdxs, crs.rowOffs, Partition.UpperTriangular, size, size);
+      M.getCRSValues (crs.vals, Partition.UpperTriangular, size, size);
+      for (int k=0; k<nvals; k++) {
+         crs.colIdxs[k]--;
+      }
+      for (int i=0; i<=size; i++) {
+         crs.rowOffs[i]--;
+      }
+      return crs;
+   }
+
+   static CRSMatrix readTestMatrix() throws IOException {
+      SparseMatrixNd S = new SparseMatrixNd (0, 0);
+      ReaderTokenizer rtok =
+         new ReaderTokenizer (
+            new BufferedReader (
+               new FileReader (
+                  PathFinder.getSourceRelativePath (
+                     SparseLDLTTiming.class, "testMatrix.mat"))));
+      S.scan (rtok);
+      rtok.close();
+      return getCRS ("testMatrix.mat", S);
+   }
+
+   /**
+    * Creates a matrix with the structure of a stiffness matrix for a
+    * res x res x res grid of hexahedral elements, with 3 degrees of freedom
+    * per node.
+    */
+   static CRSMatrix createGridMatrix (int res) {
+      int nn = res+1;
+      int numNodes = nn*nn*nn;
+      int size = 3*numNodes;
+      int[] rowOffs = new int[size+1];
+      // first pass counts, second pass fills
+      int[] colIdxs = null;
+      double[] vals = null;
+      for (int pass=0; pass<2; pass++) {
+         int k = 0;
+         for (int n=0; n<numNodes; n++) {
+            int i = n%nn;
+            int j = (n/nn)%nn;
+            int l = n/(nn*nn);
+            for (int c=0; c<3; c++) {
+               rowOffs[3*n+c] = k;
+               for (int dl=-1; dl<=1; dl++) {
+                  for (int dj=-1; dj<=1; dj++) {
+                     for (int di=-1; di<=1; di++) {
+                        int ii = i+di, jj = j+dj, ll = l+dl;
+                        if (ii < 0 || ii >= nn || jj < 0 || jj >= nn ||
+                            ll < 0 || ll >= nn) {
+                           continue;
+                        }
+                        int m = ii + nn*(jj + nn*ll);
+                        if (m < n) {
+                           continue;
+                        }
+                        for (int d=(m==n ? c : 0); d<3; d++) {
+                           if (pass == 1) {
+                              colIdxs[k] = 3*m+d;
+                              if (m == n) {
+                                 vals[k] = (d == c ? 27.0 : 0.5);
+                              }
+                              else {
+                                 vals[k] = (d == c ? -1.0 : 0.1);
+                              }
+                           }
+                           k++;
+                        }
+                     }
+                  }
+               }
+            }
+         }
+         rowOffs[size] = k;
+         if (pass == 0) {
+            colIdxs = new int[k];
+            vals = new double[k];
+         }
+      }
+      CRSMatrix crs = new CRSMatrix();
+      crs.name = "hex grid "+res+"x"+res+"x"+res;
+      crs.size = size;
+      crs.rowOffs = rowOffs;
+      crs.colIdxs = colIdxs;
+      crs.vals = vals;
+      return crs;
+   }
+
+   static void timeLDLT (CRSMatrix crs, int nthreads) {
+      FunctionTimer timer = new FunctionTimer();
+      SparseLDLTSolver solver = new SparseLDLTSolver (nthreads);
+      double[] x = new double[crs.size];
+      double[] b = new double[crs.size];
+      for (int i=0; i<crs.size; i++) {
+         b[i] = 1;
+      }
+      timer.start();
+      solver.analyze (
+         crs.vals, crs.colIdxs, crs.rowOffs, crs.size, Matrix.SYMMETRIC);
+      timer.stop();
+      String analyzeTime = timer.result (1);
+      // warm up
+      solver.factor (crs.vals);
+      timer.start();
+      for (int i=0; i<myCnt; i++) {
+         solver.factor (crs.vals);
+      }
+      timer.stop();
+      String factorTime = timer.result (myCnt);
+      timer.start();
+      for (int i=0; i<myCnt; i++) {
+         solver.solve (x, b);
+      }
+      timer.stop();
+      String solveTime = timer.result (myCnt);
+      System.out.println (
+         "  SparseLDLT threads=" + nthreads + ": analyze " + analyzeTime +
+         ", factor " + factorTime + ", solve " + solveTime +
+         ", nnz(L)=" + solver.getNumNonZerosInFactors());
+      solver.dispose();
+   }
+
+   static void timePardiso (CRSMatrix crs) {
+      FunctionTimer timer = new FunctionTimer();
+      PardisoSolver solver = new PardisoSolver();
+      int nvals = crs.rowOffs[crs.size];
+      // Pardiso uses 1-based indices
+      int[] colIdxs = new int[nvals];
+      int[] rowOffs = new int[crs.size+1];
+      for (int k=0; k<nvals; k++) {
+         colIdxs[k] = crs.colIdxs[k]+1;
+      }
+      for (int i=0; i<=crs.size; i++) {
+         rowOffs[i] = crs.rowOffs[i]+1;
+      }
+      double[] x = new double[crs.size];
+      double[] b = new double[crs.size];
+      for (int i=0; i<crs.size; i++) {
+         b[i] = 1;
+      }
+      timer.start();
+      solver.analyze (crs.vals, colIdxs, rowOffs, crs.size, Matrix.SYMMETRIC);
+      timer.stop();
+      String analyzeTime = timer.result (1);
+      solver.factor (crs.vals);
+      timer.start();
+      for (int i=0; i<myCnt; i++) {
+         solver.factor (crs.vals);
+      }
+      timer.stop();
+      String factorTime = timer.result (myCnt);
+      timer.start();
+      for (int i=0; i<myCnt; i++) {
+         solver.solve (x, b);
+      }
+      timer.stop();
+      String solveTime = timer.result (myCnt);
+      System.out.println (
+         "  Pardiso threads=" + solver.getNumThreads() + ": analyze " +
+         analyzeTime + ", factor " + factorTime + ", solve " + solveTime +
+         ", nnz(L)=" + solver.getNumNonZerosInFactors());
+      solver.dispose();
+   }
+
+   static void timeMatrix (CRSMatrix crs) {
+      System.out.println (
+         crs.name + ": size=" + crs.size + ", nnz(upper)=" +
+         crs.rowOffs[crs.size]);
+      for (int nthreads=1; nthreads<=myMaxThreads; nthreads*=2) {
+         timeLDLT (crs, nthreads);
+      }
+      if (PardisoSolver.isAvailable()) {
+         timePardiso (crs);
+      }
+   }
+
+   public static void main (String[] args) {
+      for (int i=0; i<args.length; i++) {
+         if (args[i].equals ("-res") && i<args.length-1) {
+            myRes = Integer.parseInt (args[++i]);
+         }
+         else if (args[i].equals ("-maxThreads") && i<args.length-1) {
+            myMaxThreads = Integer.parseInt (args[++i]);
+         }
+         else if (args[i].equals ("-cnt") && i<args.length-1) {
+            myCnt = Integer.parseInt (args[++i]);
+         }
+         else {
+            System.out.println (
+               "Usage: java "+SparseLDLTTiming.class.getName() +
+               " [-res <n>] [-maxThreads <n>] [-cnt <n>]");
+            System.exit (1);
+         }
+      }
+      PardisoSolver.printThreadInfo = false;
+      try {
+         timeMatrix (readTestMatrix());
+      }
+      catch (IOException e) {
+         System.out.println ("Can't read testMatrix.mat: " + e);
+      }
+      timeMatrix (createGridMatrix (myRes));
+   }
+}
@@ -16,10 +16,22 @@ public enum SparseSolverId {
     */
    Umfpack (true, Matrix.INDEFINITE),
 
+   /**
+    * Pure Java supernodal LDL^T solver for symmetric matrices,
+    * implemented by {@link SparseLDLTSolver}
+    */
+   SparseLDLT (true, Matrix.SYMMETRIC),
+
    /**
     * Conjugate gradient
     */
-   ConjugateGradient (false, Matrix.SPD);
+   ConjugateGradient (false, Matrix.SPD),
+
+   /**
+    * Minimum residual method for symmetric, possibly indefinite, systems,
+    * implemented by {@link MINRESSolver}
+    */
+   MINRES (false, Matrix.SYMMETRIC);
 
    private boolean myIsDirect = false;
    private int myMatrixType = 0;
@@ -67,6 +79,32 @@ public enum SparseSolverId {
       }
    }
 
+   /**
+    * Returns a direct solver type that can be used in place of this one to
+    * solve matrices of the indicated type. This is the type itself if it is
+    * direct and compatible with the matrix type. Otherwise, it is {@link
+    * #Pardiso} or {@link #Umfpack}, whichever is available first, since these
+    * handle all matrix types. If neither is available, {@code null} is
+    * returned.
+    *
+    * @param matrixType type of the matrix to be solved
+    * @return compatible direct solver type, or {@code null}
+    */
+   public SparseSolverId getCompatibleDirectSolver (int matrixType) {
+      if (isDirect() && isCompatible (matrixType)) {
+         return this;
+      }
+      else if (PardisoSolver.isAvailable()) {
+         return Pardiso;
+      }
+      else if (UmfpackSolver.isAvailable()) {
+         return Umfpack;
+      }
+      else {
+         return null;
+      }
+   }
+
    /**
     * Creates and returns the solver for this type, if it represents a direct
     * solver. Otherwise, returns {@code null}.
@@ -81,6 +119,9 @@ public enum SparseSolverId {
          case Umfpack: {
             return new UmfpackSolver();
          }
+         case SparseLDLT: {
+            return new SparseLDLTSolver();
+         }
          default: {
             return null;
          }
@@ -98,6 +139,9 @@ public enum SparseSolverId {
          case ConjugateGradient: {
             return new CGSolver();
          }
+         case MINRES: {
+            return new MINRESSolver();
+         }
          default: {
             return null;
          }
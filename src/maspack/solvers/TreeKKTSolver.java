@@ -0,0 +1,695 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.solvers;
+
+import java.util.ArrayList;
+
+import maspack.matrix.ImproperSizeException;
+import maspack.matrix.MatrixBlock;
+import maspack.matrix.SparseBlockMatrix;
+import maspack.matrix.VectorNd;
+import maspack.util.DynamicIntArray;
+
+/**
+ * Solves the equality-constrained KKT system
+ * <pre>
+ * M vel - G^T lam = bm
+ * G vel + Rg lam = bg
+ * </pre>
+ * with the same conventions as {@link KKTSolver}, in linear time, for
+ * systems whose block structure forms a tree. This is the case for
+ * articulated structures of rigid bodies connected by joints, without
+ * closed loops or contact.
+ *
+ * <p>The system is written in the symmetric form
+ * <pre>
+ * [  M   -G^T ] [ vel ]   [  bm ]
+ * [           ] [     ] = [     ]
+ * [ -G   -Rg  ] [ lam ]   [ -bg ]
+ * </pre>
+ * and regarded as a graph whose nodes are the block rows of {@code M}
+ * (bodies) and the block columns of {@code G^T} (constraints), with edges
+ * given by the off-diagonal blocks. If this graph is a forest, then
+ * eliminating the nodes leaves first produces no fill-in, and the system
+ * can be factored and solved with a cost proportional to the number of
+ * nodes (Baraff, "Linear-Time Dynamics using Lagrange Multipliers", 1996).
+ * The solution is the same as that produced by {@link KKTSolver}.
+ *
+ * <p>Usage consists of calling {@link #analyze} whenever the structure of
+ * the system changes, followed by {@link #factor} and {@link #solve}. Both
+ * {@code analyze} and {@code factor} return {@code false} if the system is
+ * not suitable for this solver, in which case a general solver should be
+ * used instead.
+ */
+public class TreeKKTSolver {
+
+   /**
+    * Describes a node in the elimination tree. Dense blocks are stored in
+    * row-major order.
+    */
+   private static class Node {
+      int myIdx;         // block row of M, or block column of GT
+      boolean myIsCon;   // true if the node is a constraint
+      int mySize;        // size of the node
+      int myOff;         // offset within the combined solution vector
+      Node myParent;     // parent node, or null for a root
+
+      double[] myD;      // pivot block, LU factored in place
+      int[] myPerm;      // row permutation for the LU factorization
+      double[] myHcp;    // H(this,parent)
+      double[] myHpc;    // H(parent,this)
+      double[] myA;      // inv(D) H(this,parent)
+      boolean myHcpSet;
+      boolean myHpcSet;
+
+      Node (int idx, boolean isCon, int size, int off) {
+         myIdx = idx;
+         myIsCon = isCon;
+         mySize = size;
+         myOff = off;
+         myD = new double[size*size];
+         myPerm = new int[size];
+      }
+
+      void setParent (Node parent) {
+         myParent = parent;
+         int n = mySize*parent.mySize;
+         myHcp = new double[n];
+         myHpc = new double[n];
+         myA = new double[n];
+      }
+   }
+
+   // nodes, ordered so that each node appears before its parent
+   ArrayList<Node> myNodes = new ArrayList<Node>();
+   // nodes indexed by block row of M, followed by block column of GT
+   Node[] myNodeArray;
+   int mySizeM;
+   int mySizeG;
+   int myNumBlkM;
+   int myNumBlkG;
+   boolean myAnalyzed = false;
+
+   double[] myBuf = new double[0];
+   VectorNd myX = new VectorNd();
+
+   /**
+    * Relative size of the smallest pivot that is accepted when factoring
+    * the diagonal blocks.
+    */
+   public static double PIVOT_TOL = 1e-12;
+
+   public TreeKKTSolver() {
+   }
+
+   /**
+    * Returns the number of block rows of {@code M} whose offsets are less
+    * than {@code size}.
+    */
+   private int numBlockRows (SparseBlockMatrix M, int size) {
+      int nblks = 0;
+      while (nblks < M.numBlockRows() && M.getBlockRowOffset(nblks) < size) {
+         nblks++;
+      }
+      return nblks;
+   }
+
+   private boolean rgIsZero (VectorNd Rg, int off, int size) {
+      if (Rg != null && Rg.size() >= off+size) {
+         for (int i=off; i<off+size; i++) {
+            if (Rg.get(i) != 0) {
+               return false;
+            }
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Analyzes the structure of the KKT system, and determines an
+    * elimination order if the system is tree structured.
+    *
+    * @param M symmetric matrix
+    * @param sizeM size of the system defined by {@code M}
+    * @param GT transpose of the bilateral constraint matrix
+    * @param Rg bilateral constraint regularization, or {@code null}
+    * @return {@code true} if the system is tree structured and can
+    * be handled by this solver
+    */
+   public boolean analyze (
+      SparseBlockMatrix M, int sizeM, SparseBlockMatrix GT, VectorNd Rg) {
+
+      myAnalyzed = false;
+      myNodes.clear();
+      myNodeArray = null;
+      mySizeM = sizeM;
+      myNumBlkM = numBlockRows (M, sizeM);
+      if (myNumBlkM > 0 &&
+          M.getBlockRowOffset(myNumBlkM-1) +
+          M.getBlockRowSize(myNumBlkM-1) != sizeM) {
+         throw new ImproperSizeException (
+            "sizeM "+sizeM+" does not align with the blocks of M");
+      }
+      if (GT != null) {
+         mySizeG = GT.colSize();
+         myNumBlkG = GT.numBlockCols();
+      }
+      else {
+         mySizeG = 0;
+         myNumBlkG = 0;
+      }
+      int numNodes = myNumBlkM+myNumBlkG;
+
+      // build adjacency lists. Body nodes are numbered 0 ... myNumBlkM-1,
+      // and constraint nodes myNumBlkM ... numNodes-1.
+      DynamicIntArray[] adj = new DynamicIntArray[numNodes];
+      for (int i=0; i<numNodes; i++) {
+         adj[i] = new DynamicIntArray();
+      }
+      int numEdges = 0;
+      for (int bi=0; bi<myNumBlkM; bi++) {
+         for (MatrixBlock blk=M.firstBlockInRow(bi); blk!=null;
+              blk=blk.next()) {
+            int bj = blk.getBlockCol();
+            if (bj != bi && bj < myNumBlkM) {
+               // count each edge once, allowing for M storing only one
+               // triangle
+               if (bj > bi || M.getBlock (bj, bi) == null) {
+                  adj[bi].add (bj);
+                  adj[bj].add (bi);
+                  numEdges++;
+               }
+            }
+         }
+      }
+      // GT is not necessarily vertically linked, so traverse it by rows
+      for (int bi=0; bi<myNumBlkM && myNumBlkG>0; bi++) {
+         for (MatrixBlock blk=GT.firstBlockInRow(bi); blk!=null;
+              blk=blk.next()) {
+            int bj = blk.getBlockCol();
+            adj[bi].add (myNumBlkM+bj);
+            adj[myNumBlkM+bj].add (bi);
+            numEdges++;
+         }
+      }
+      if (numEdges >= numNodes) {
+         // too many edges for a forest
+         return false;
+      }
+      Node[] nodes = new Node[numNodes];
+      for (int bi=0; bi<myNumBlkM; bi++) {
+         nodes[bi] = new Node (
+            bi, false, M.getBlockRowSize(bi), M.getBlockRowOffset(bi));
+      }
+      for (int bj=0; bj<myNumBlkG; bj++) {
+         int size = GT.getBlockColSize(bj);
+         int off = GT.getBlockColOffset(bj);
+         nodes[myNumBlkM+bj] = new Node (bj, true, size, sizeM+off);
+      }
+
+      // choose a root for each connected component. A constraint with a
+      // single neighbor and no regularization has a singular pivot if
+      // eliminated first, so it must be the root.
+      int[] component = new int[numNodes];
+      for (int i=0; i<numNodes; i++) {
+         component[i] = -1;
+      }
+      ArrayList<Node> order = new ArrayList<Node>(numNodes);
+      int[] queue = new int[numNodes];
+      int ncomps = 0;
+      // first pass: label components
+      for (int i=0; i<numNodes; i++) {
+         if (component[i] == -1) {
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = i;
+            component[i] = ncomps;
+            while (head < tail) {
+               int k = queue[head++];
+               for (int j=0; j<adj[k].size(); j++) {
+                  int n = adj[k].get(j);
+                  if (component[n] == -1) {
+                     component[n] = ncomps;
+                     queue[tail++] = n;
+                  }
+               }
+            }
+            ncomps++;
+         }
+      }
+      int[] roots = new int[ncomps];
+      for (int c=0; c<ncomps; c++) {
+         roots[c] = -1;
+      }
+      for (int i=myNumBlkM; i<numNodes; i++) {
+         Node node = nodes[i];
+         if (adj[i].size() <= 1 &&
+             rgIsZero (Rg, node.myOff-sizeM, node.mySize)) {
+            int c = component[i];
+            if (roots[c] != -1) {
+               // two unregularized leaf constraints in the same component
+               return false;
+            }
+            roots[c] = i;
+         }
+      }
+      // second pass: breadth-first search from each root. The tree test
+      // above guarantees that no node is reached twice.
+      boolean[] visited = new boolean[numNodes];
+      for (int i=0; i<numNodes; i++) {
+         int c = component[i];
+         if (roots[c] == -1) {
+            roots[c] = i;
+         }
+         int r = roots[c];
+         if (!visited[r]) {
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = r;
+            visited[r] = true;
+            while (head < tail) {
+               int k = queue[head++];
+               order.add (nodes[k]);
+               for (int j=0; j<adj[k].size(); j++) {
+                  int n = adj[k].get(j);
+                  if (!visited[n]) {
+                     visited[n] = true;
+                     nodes[n].setParent (nodes[k]);
+                     queue[tail++] = n;
+                  }
+                  else if (nodes[k].myParent != nodes[n]) {
+                     // cycle
+                     return false;
+                  }
+               }
+            }
+         }
+      }
+      // reverse breadth-first order, so that children precede parents
+      for (int i=order.size()-1; i>=0; i--) {
+         myNodes.add (order.get(i));
+      }
+      myNodeArray = nodes;
+      myX.setSize (sizeM+mySizeG);
+      myAnalyzed = true;
+      return true;
+   }
+
+   /**
+    * Returns {@code true} if the most recent call to {@link #analyze}
+    * found the system to be tree structured.
+    *
+    * @return {@code true} if the system is tree structured
+    */
+   public boolean isTreeStructured() {
+      return myAnalyzed;
+   }
+
+   /**
+    * Returns the number of nodes in the elimination tree.
+    *
+    * @return number of tree nodes
+    */
+   public int numNodes() {
+      return myNodes.size();
+   }
+
+
+   /**
+    * Returns a buffer of at least the specified size for copying block
+    * values.
+    */
+   private double[] getBuffer (int size) {
+      if (myBuf.length < size) {
+         myBuf = new double[size];
+      }
+      return myBuf;
+   }
+
+   /**
+    * Stores the off-diagonal block of M that couples body nodes bi and bj.
+    */
+   private void setBodyCoupling (MatrixBlock blk, Node ni, Node nj) {
+      if (ni.myParent == nj) {
+         blk.get (ni.myHcp);
+         ni.myHcpSet = true;
+      }
+      else {
+         blk.get (nj.myHpc);
+         nj.myHpcSet = true;
+      }
+   }
+
+   /**
+    * Stores the block of GT that couples a body node with a constraint node.
+    * The corresponding blocks of the KKT matrix are -GT and -G.
+    */
+   private void setConstraintCoupling (
+      MatrixBlock blk, Node bod, Node con) {
+      int nr = bod.mySize;
+      int nc = con.mySize;
+      double[] buf = getBuffer (nr*nc);
+      blk.get (buf);
+      // H(bod,con) = -blk, and H(con,bod) = -blk^T
+      double[] Hbc;
+      double[] Hcb;
+      if (bod.myParent == con) {
+         Hbc = bod.myHcp;
+         Hcb = bod.myHpc;
+      }
+      else {
+         Hbc = con.myHpc;
+         Hcb = con.myHcp;
+      }
+      for (int i=0; i<nr; i++) {
+         for (int j=0; j<nc; j++) {
+            double val = -buf[i*nc+j];
+            Hbc[i*nc+j] = val;
+            Hcb[j*nr+i] = val;
+         }
+      }
+   }
+
+   /**
+    * Sets one off-diagonal coupling block of a body-body edge to the
+    * transpose of the other, for matrices storing only one triangle.
+    */
+   private void transposeCoupling (Node node) {
+      int nr = node.mySize;
+      int nc = node.myParent.mySize;
+      if (!node.myHcpSet) {
+         for (int i=0; i<nr; i++) {
+            for (int j=0; j<nc; j++) {
+               node.myHcp[i*nc+j] = node.myHpc[j*nr+i];
+            }
+         }
+      }
+      else if (!node.myHpcSet) {
+         for (int i=0; i<nr; i++) {
+            for (int j=0; j<nc; j++) {
+               node.myHpc[j*nr+i] = node.myHcp[i*nc+j];
+            }
+         }
+      }
+   }
+
+   /**
+    * Numerically factors the KKT system, which must have the same structure
+    * as that supplied to the most recent call to {@link #analyze}.
+    *
+    * @param M symmetric matrix
+    * @param sizeM size of the system defined by {@code M}
+    * @param GT transpose of the bilateral constraint matrix
+    * @param Rg bilateral constraint regularization, or {@code null}
+    * @return {@code false} if the system could not be factored because
+    * a pivot block was singular
+    */
+   public boolean factor (
+      SparseBlockMatrix M, int sizeM, SparseBlockMatrix GT, VectorNd Rg) {
+      if (!myAnalyzed) {
+         throw new IllegalStateException (
+            "System has not been analyzed or is not tree structured");
+      }
+      if (sizeM != mySizeM) {
+         throw new ImproperSizeException (
+            "sizeM "+sizeM+" differs from analyzed size "+mySizeM);
+      }
+      // load the diagonal and coupling blocks
+      for (Node node : myNodes) {
+         node.myHcpSet = false;
+         node.myHpcSet = false;
+         if (node.myIsCon) {
+            double[] D = node.myD;
+            int n = node.mySize;
+            int off = node.myOff-mySizeM;
+            boolean hasRg = (Rg != null && Rg.size() >= off+n);
+            for (int i=0; i<n; i++) {
+               for (int j=0; j<n; j++) {
+                  D[i*n+j] = (i == j && hasRg ? -Rg.get(off+i) : 0);
+               }
+            }
+         }
+      }
+      for (int bi=0; bi<myNumBlkM; bi++) {
+         Node ni = myNodeArray[bi];
+         boolean hasDiagonal = false;
+         for (MatrixBlock blk=M.firstBlockInRow(bi); blk!=null;
+              blk=blk.next()) {
+            int bj = blk.getBlockCol();
+            if (bj == bi) {
+               blk.get (ni.myD);
+               hasDiagonal = true;
+            }
+            else if (bj < myNumBlkM) {
+               setBodyCoupling (blk, ni, myNodeArray[bj]);
+            }
+         }
+         if (!hasDiagonal) {
+            for (int i=0; i<ni.myD.length; i++) {
+               ni.myD[i] = 0;
+            }
+         }
+         if (myNumBlkG > 0) {
+            for (MatrixBlock blk=GT.firstBlockInRow(bi); blk!=null;
+                 blk=blk.next()) {
+               setConstraintCoupling (
+                  blk, ni, myNodeArray[myNumBlkM+blk.getBlockCol()]);
+            }
+         }
+      }
+      for (Node node : myNodes) {
+         Node parent = node.myParent;
+         if (parent != null && !node.myIsCon && !parent.myIsCon) {
+            transposeCoupling (node);
+         }
+      }
+      // eliminate nodes, leaves first
+      for (Node node : myNodes) {
+         if (!luFactor (node.myD, node.myPerm, node.mySize)) {
+            return false;
+         }
+         Node parent = node.myParent;
+         if (parent != null) {
+            int n = node.mySize;
+            int np = parent.mySize;
+            // A = inv(D) H(node,parent)
+            System.arraycopy (node.myHcp, 0, node.myA, 0, n*np);
+            luSolve (node.myA, np, node.myD, node.myPerm, n);
+            // D(parent) -= H(parent,node) A
+            double[] Dp = parent.myD;
+            double[] Hpc = node.myHpc;
+            double[] A = node.myA;
+            for (int i=0; i<np; i++) {
+               for (int j=0; j<np; j++) {
+                  double sum = 0;
+                  for (int k=0; k<n; k++) {
+                     sum += Hpc[i*n+k]*A[k*np+j];
+                  }
+                  Dp[i*np+j] -= sum;
+               }
+            }
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Computes an LU decomposition, with partial pivoting, of the n x n
+    * matrix stored in D. Returns false if a pivot is too small.
+    */
+   private boolean luFactor (double[] D, int[] perm, int n) {
+      double scale = 0;
+      for (int i=0; i<n*n; i++) {
+         double a = Math.abs (D[i]);
+         if (a > scale) {
+            scale = a;
+         }
+         else if (Double.isNaN (a)) {
+            return false;
+         }
+      }
+      if (scale == 0 || Double.isInfinite (scale)) {
+         return false;
+      }
+      for (int k=0; k<n; k++) {
+         // find pivot
+         int p = k;
+         double max = Math.abs (D[k*n+k]);
+         for (int i=k+1; i<n; i++) {
+            double a = Math.abs (D[i*n+k]);
+            if (a > max) {
+               max = a;
+               p = i;
+            }
+         }
+         if (max <= PIVOT_TOL*scale) {
+            return false;
+         }
+         perm[k] = p;
+         if (p != k) {
+            for (int j=0; j<n; j++) {
+               double tmp = D[k*n+j];
+               D[k*n+j] = D[p*n+j];
+               D[p*n+j] = tmp;
+            }
+         }
+         double piv = D[k*n+k];
+         for (int i=k+1; i<n; i++) {
+            double l = (D[i*n+k] /= piv);
+            if (l != 0) {
+               for (int j=k+1; j<n; j++) {
+                  D[i*n+j] -= l*D[k*n+j];
+               }
+            }
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Solves D X = B in place for the n x m matrix B, stored in X, where D
+    * has been factored by {@link #luFactor}.
+    */
+   private void luSolve (double[] X, int m, double[] D, int[] perm, int n) {
+      for (int k=0; k<n; k++) {
+         int p = perm[k];
+         if (p != k) {
+            for (int j=0; j<m; j++) {
+               double tmp = X[k*m+j];
+               X[k*m+j] = X[p*m+j];
+               X[p*m+j] = tmp;
+            }
+         }
+      }
+      for (int i=1; i<n; i++) {
+         for (int k=0; k<i; k++) {
+            double l = D[i*n+k];
+            if (l != 0) {
+               for (int j=0; j<m; j++) {
+                  X[i*m+j] -= l*X[k*m+j];
+               }
+            }
+         }
+      }
+      for (int i=n-1; i>=0; i--) {
+         for (int k=i+1; k<n; k++) {
+            double u = D[i*n+k];
+            if (u != 0) {
+               for (int j=0; j<m; j++) {
+                  X[i*m+j] -= u*X[k*m+j];
+               }
+            }
+         }
+         double piv = D[i*n+i];
+         for (int j=0; j<m; j++) {
+            X[i*m+j] /= piv;
+         }
+      }
+   }
+
+   /**
+    * Solves D x = b in place for a vector stored in x[off:off+n].
+    */
+   private void luSolveVector (
+      double[] x, int off, double[] D, int[] perm, int n) {
+      for (int k=0; k<n; k++) {
+         int p = perm[k];
+         if (p != k) {
+            double tmp = x[off+k];
+            x[off+k] = x[off+p];
+            x[off+p] = tmp;
+         }
+      }
+      for (int i=1; i<n; i++) {
+         double sum = x[off+i];
+         for (int k=0; k<i; k++) {
+            sum -= D[i*n+k]*x[off+k];
+         }
+         x[off+i] = sum;
+      }
+      for (int i=n-1; i>=0; i--) {
+         double sum = x[off+i];
+         for (int k=i+1; k<n; k++) {
+            sum -= D[i*n+k]*x[off+k];
+         }
+         x[off+i] = sum/D[i*n+i];
+      }
+   }
+
+   /**
+    * Solves the KKT system using the factorization computed by the most
+    * recent call to {@link #factor}.
+    *
+    * @param vel returns the velocity solution
+    * @param lam returns the bilateral constraint forces
+    * @param bm right side for the {@code M} equations
+    * @param bg right side for the bilateral constraint equations
+    */
+   public void solve (VectorNd vel, VectorNd lam, VectorNd bm, VectorNd bg) {
+      if (!myAnalyzed) {
+         throw new IllegalStateException (
+            "System has not been analyzed or is not tree structured");
+      }
+      double[] x = myX.getBuffer();
+      for (int i=0; i<mySizeM; i++) {
+         x[i] = bm.get(i);
+      }
+      for (int i=0; i<mySizeG; i++) {
+         x[mySizeM+i] = -bg.get(i);
+      }
+      // forward elimination, leaves first. Each node's values are replaced
+      // by inv(D) times its reduced right side.
+      for (int k=0; k<myNodes.size(); k++) {
+         Node node = myNodes.get(k);
+         int n = node.mySize;
+         int off = node.myOff;
+         luSolveVector (x, off, node.myD, node.myPerm, n);
+         Node parent = node.myParent;
+         if (parent != null) {
+            // x(parent) -= H(parent,node) x(node)
+            int np = parent.mySize;
+            int poff = parent.myOff;
+            double[] Hpc = node.myHpc;
+            for (int i=0; i<np; i++) {
+               double sum = 0;
+               for (int j=0; j<n; j++) {
+                  sum += Hpc[i*n+j]*x[off+j];
+               }
+               x[poff+i] -= sum;
+            }
+         }
+      }
+      // back substitution, roots first
+      for (int k=myNodes.size()-1; k>=0; k--) {
+         Node node = myNodes.get(k);
+         Node parent = node.myParent;
+         if (parent != null) {
+            // x(node) -= A x(parent)
+            int n = node.mySize;
+            int off = node.myOff;
+            int np = parent.mySize;
+            int poff = parent.myOff;
+            double[] A = node.myA;
+            for (int i=0; i<n; i++) {
+               double sum = 0;
+               for (int j=0; j<np; j++) {
+                  sum += A[i*np+j]*x[poff+j];
+               }
+               x[off+i] -= sum;
+            }
+         }
+      }
+      vel.setSize (mySizeM);
+      double[] vbuf = vel.getBuffer();
+      System.arraycopy (x, 0, vbuf, 0, mySizeM);
+      if (lam != null) {
+         lam.setSize (mySizeG);
+         double[] lbuf = lam.getBuffer();
+         System.arraycopy (x, mySizeM, lbuf, 0, mySizeG);
+      }
+   }
+}
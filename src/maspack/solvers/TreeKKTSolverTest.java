@@ -0,0 +1,266 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.solvers;
+
+import maspack.matrix.Matrix;
+import maspack.matrix.Matrix6dBlock;
+import maspack.matrix.MatrixNdBlock;
+import maspack.matrix.SparseBlockMatrix;
+import maspack.matrix.VectorNd;
+import maspack.util.RandomGenerator;
+import maspack.util.TestException;
+import maspack.util.UnitTest;
+
+/**
+ * Tests TreeKKTSolver by comparing its solutions with those of KKTSolver.
+ */
+public class TreeKKTSolverTest extends UnitTest {
+
+   /**
+    * Describes a random articulated structure: body 0 is attached to
+    * ground, and each subsequent body is attached to a randomly chosen
+    * earlier body, by either a joint or a spring.
+    */
+   private class TreeSystem {
+      int myNumBods;
+      int[] myParents;
+      boolean[] mySprings;
+      int[] myConSizes;
+      int myNumCons;
+
+      SparseBlockMatrix myM;
+      SparseBlockMatrix myGT;
+
+      TreeSystem (int nbods, boolean springs) {
+         myNumBods = nbods;
+         myParents = new int[nbods];
+         mySprings = new boolean[nbods];
+         myParents[0] = -1;
+         for (int i=1; i<nbods; i++) {
+            myParents[i] = RandomGenerator.nextInt (0, i-1);
+            mySprings[i] = springs && RandomGenerator.nextInt (0, 3) == 0;
+         }
+         myNumCons = 0;
+         for (int i=0; i<nbods; i++) {
+            if (!mySprings[i]) {
+               myNumCons++;
+            }
+         }
+         myConSizes = new int[myNumCons];
+         for (int k=0; k<myNumCons; k++) {
+            myConSizes[k] = RandomGenerator.nextInt (1, 5);
+         }
+      }
+
+      /**
+       * Creates the matrices, with the constraints given in random order.
+       * If {@code extraCon} is {@code true}, an additional constraint is
+       * attached to the last body and its parent, creating a loop.
+       */
+      void createMatrices (boolean extraCon) {
+         int[] sizes = new int[myNumBods];
+         for (int i=0; i<myNumBods; i++) {
+            sizes[i] = 6;
+         }
+         myM = new SparseBlockMatrix (sizes, sizes);
+         for (int i=0; i<myNumBods; i++) {
+            Matrix6dBlock blk = new Matrix6dBlock();
+            blk.setRandom (-0.5, 0.5);
+            Matrix6dBlock blkT = new Matrix6dBlock();
+            blkT.transpose (blk);
+            blk.add (blkT);
+            for (int j=0; j<6; j++) {
+               blk.set (j, j, blk.get (j, j) + 20);
+            }
+            myM.addBlock (i, i, blk);
+         }
+         int numc = myNumCons + (extraCon ? 1 : 0);
+         int[] conSizes = new int[numc];
+         int[] perm = randomPermutation (myNumCons);
+         for (int k=0; k<myNumCons; k++) {
+            conSizes[perm[k]] = myConSizes[k];
+         }
+         if (extraCon) {
+            conSizes[myNumCons] = 1;
+         }
+         myGT = new SparseBlockMatrix (sizes, conSizes);
+         int k = 0;
+         for (int i=0; i<myNumBods; i++) {
+            int p = myParents[i];
+            if (mySprings[i]) {
+               Matrix6dBlock blk = new Matrix6dBlock();
+               blk.setRandom (-1, 1);
+               Matrix6dBlock blkT = new Matrix6dBlock();
+               blkT.transpose (blk);
+               myM.addBlock (i, p, blk);
+               myM.addBlock (p, i, blkT);
+            }
+            else {
+               int bj = perm[k++];
+               addConstraint (i, p, bj);
+            }
+         }
+         if (extraCon) {
+            int i = myNumBods-1;
+            addConstraint (i, myParents[i], myNumCons);
+         }
+      }
+
+      void addConstraint (int bod, int parent, int bj) {
+         int size = myGT.getBlockColSize(bj);
+         MatrixNdBlock blk = new MatrixNdBlock (6, size);
+         blk.setRandom();
+         myGT.addBlock (bod, bj, blk);
+         if (parent != -1) {
+            blk = new MatrixNdBlock (6, size);
+            blk.setRandom();
+            myGT.addBlock (parent, bj, blk);
+         }
+      }
+   }
+
+   int[] randomPermutation (int n) {
+      int[] perm = new int[n];
+      for (int i=0; i<n; i++) {
+         perm[i] = i;
+      }
+      for (int i=n-1; i>0; i--) {
+         int j = RandomGenerator.nextInt (0, i);
+         int tmp = perm[i];
+         perm[i] = perm[j];
+         perm[j] = tmp;
+      }
+      return perm;
+   }
+
+   void checkSolution (String msg, VectorNd x, VectorNd xcheck, double tol) {
+      if (!x.epsilonEquals (xcheck, tol*xcheck.norm())) {
+         throw new TestException (
+            msg+": solver gave wrong answer. Expected\n" +
+            xcheck.toString ("%12.8f") + "\nGot\n" + x.toString ("%12.8f"));
+      }
+   }
+
+   void testTree (int nbods, boolean springs, boolean regularize) {
+      TreeSystem sys = new TreeSystem (nbods, springs);
+      sys.createMatrices (/*extraCon=*/false);
+      SparseBlockMatrix M = sys.myM;
+      SparseBlockMatrix GT = sys.myGT;
+      int sizeM = M.rowSize();
+      int sizeG = GT.colSize();
+
+      VectorNd bm = new VectorNd (sizeM);
+      VectorNd bg = new VectorNd (sizeG);
+      VectorNd Rg = null;
+      bm.setRandom();
+      bg.setRandom();
+      if (regularize) {
+         Rg = new VectorNd (sizeG);
+         for (int i=0; i<sizeG; i++) {
+            Rg.set (i, RandomGenerator.nextDouble (0, 0.1));
+         }
+      }
+      KKTSolver direct = new KKTSolver (SparseSolverId.SparseLDLT);
+      VectorNd velCheck = new VectorNd (sizeM);
+      VectorNd lamCheck = new VectorNd (sizeG);
+      direct.analyze (M, sizeM, GT, Rg, Matrix.SYMMETRIC);
+      direct.factor (M, sizeM, GT, Rg);
+      direct.solve (velCheck, lamCheck, bm, bg);
+      direct.dispose();
+
+      TreeKKTSolver solver = new TreeKKTSolver();
+      if (!solver.analyze (M, sizeM, GT, Rg)) {
+         throw new TestException ("Tree system not recognized as a tree");
+      }
+      checkEquals ("numNodes", solver.numNodes(), nbods+sys.myNumCons);
+      if (!solver.factor (M, sizeM, GT, Rg)) {
+         throw new TestException ("Tree system could not be factored");
+      }
+      VectorNd vel = new VectorNd (sizeM);
+      VectorNd lam = new VectorNd (sizeG);
+      solver.solve (vel, lam, bm, bg);
+      checkSolution ("tree vel", vel, velCheck, 1e-8);
+      checkSolution ("tree lam", lam, lamCheck, 1e-8);
+
+      // a second solve with the same factorization should give the same
+      // result
+      VectorNd vel2 = new VectorNd (sizeM);
+      VectorNd lam2 = new VectorNd (sizeG);
+      solver.solve (vel2, lam2, bm, bg);
+      checkEquals ("repeated vel", vel2, vel);
+      checkEquals ("repeated lam", lam2, lam);
+
+      // adding a loop should cause the analysis to fail
+      sys.createMatrices (/*extraCon=*/true);
+      if (solver.analyze (sys.myM, sizeM, sys.myGT, null)) {
+         throw new TestException ("System with loop recognized as a tree");
+      }
+      if (solver.isTreeStructured()) {
+         throw new TestException ("isTreeStructured() true after failure");
+      }
+   }
+
+   void testGroundedTwice () {
+      // a chain attached to ground at both ends is a loop, unless the
+      // constraints are regularized
+      int nbods = 5;
+      int[] sizes = new int[nbods];
+      for (int i=0; i<nbods; i++) {
+         sizes[i] = 6;
+      }
+      int[] conSizes = new int[nbods+1];
+      for (int k=0; k<=nbods; k++) {
+         conSizes[k] = 3;
+      }
+      SparseBlockMatrix M = new SparseBlockMatrix (sizes, sizes);
+      SparseBlockMatrix GT = new SparseBlockMatrix (sizes, conSizes);
+      for (int i=0; i<nbods; i++) {
+         Matrix6dBlock blk = new Matrix6dBlock();
+         blk.setIdentity();
+         M.addBlock (i, i, blk);
+      }
+      for (int k=0; k<=nbods; k++) {
+         if (k > 0) {
+            MatrixNdBlock blk = new MatrixNdBlock (6, 3);
+            blk.setRandom();
+            GT.addBlock (k-1, k, blk);
+         }
+         if (k < nbods) {
+            MatrixNdBlock blk = new MatrixNdBlock (6, 3);
+            blk.setRandom();
+            GT.addBlock (k, k, blk);
+         }
+      }
+      TreeKKTSolver solver = new TreeKKTSolver();
+      if (solver.analyze (M, M.rowSize(), GT, null)) {
+         throw new TestException ("Doubly grounded chain accepted");
+      }
+      VectorNd Rg = new VectorNd (GT.colSize());
+      Rg.setAll (0.01);
+      if (!solver.analyze (M, M.rowSize(), GT, Rg)) {
+         throw new TestException (
+            "Regularized doubly grounded chain not accepted");
+      }
+   }
+
+   public void test() {
+      RandomGenerator.setSeed (0x1234);
+      for (int i=0; i<20; i++) {
+         testTree (1, false, false);
+         testTree (10, false, false);
+         testTree (10, true, false);
+         testTree (30, true, true);
+      }
+      testTree (200, false, false);
+      testGroundedTwice();
+   }
+
+   public static void main (String[] args) {
+      TreeKKTSolverTest tester = new TreeKKTSolverTest();
+      tester.runtest();
+   }
+}
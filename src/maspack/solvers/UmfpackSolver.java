@@ -102,6 +102,12 @@ public class UmfpackSolver implements DirectSolver {
          System.err.println (e.getMessage());
          myInitStatus = ERR_CANT_LOAD_LIBRARIES;
       }
+      catch (Exception e) {
+         // NativeLibraryManager throws IllegalStateException if the library
+         // can't be located
+         System.err.println (e.getMessage());
+         myInitStatus = ERR_CANT_LOAD_LIBRARIES;
+      }
    }
 
    public UmfpackSolver() {
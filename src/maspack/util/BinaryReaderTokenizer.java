@@ -0,0 +1,323 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.util;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * ReaderTokenizer that reads its input from data created by a {@link
+ * BinaryTokenWriter}. Numbers which were stored as primitive values are
+ * returned directly as number tokens, without any character parsing, while
+ * the remaining text is tokenized in the usual way. The resulting token
+ * sequence, including line numbers and end-of-line tokens, is the same as
+ * that produced by a regular ReaderTokenizer reading the original text,
+ * and so code that scans from a ReaderTokenizer can read binary data
+ * without modification.
+ *
+ * <p>If number parsing is disabled (see {@link #parseNumbers}), stored
+ * numbers are converted back to text and tokenized according to the
+ * current settings. Integers are recovered exactly, while floating point
+ * numbers are recovered using {@link Double#toString(double)}. Likewise,
+ * {@link #readLine} separates stored numbers using single spaces.
+ */
+public class BinaryReaderTokenizer extends ReaderTokenizer {
+
+   private String[] myStrings;
+   private byte[] myTypes;
+   private int[] myTextIdxs;
+   private int[] myInts;
+   private double[] myDoubles;
+
+   private int myEntryIdx = 0;
+   private int myTextIdx = 0;
+   private int myIntIdx = 0;
+   private int myDoubleIdx = 0;
+
+   private boolean myInText = false;
+   private boolean myPushedBack = false;
+   private SegmentReader mySegments;
+
+   /**
+    * Supplies text segments to the character-level tokenizer. Returns EOF at
+    * the end of each segment.
+    */
+   private static class SegmentReader extends Reader {
+      String myStr;
+      int myPos;
+
+      void setSegment (String str) {
+         myStr = str;
+         myPos = 0;
+      }
+
+      public int read (char[] cbuf, int off, int len) {
+         if (myStr == null || myPos == myStr.length()) {
+            return -1;
+         }
+         int n = Math.min (len, myStr.length()-myPos);
+         myStr.getChars (myPos, myPos+n, cbuf, off);
+         myPos += n;
+         return n;
+      }
+
+      public void close() {
+         myStr = null;
+      }
+   }
+
+   /**
+    * Creates a new BinaryReaderTokenizer from data in the specified input
+    * stream. All the data is read, and the stream is closed, by the
+    * constructor.
+    *
+    * @param in input stream containing the data
+    * @throws IOException if the data is not in the binary token format or
+    * an I/O error occurred
+    */
+   public BinaryReaderTokenizer (InputStream in) throws IOException {
+      super (new SegmentReader());
+      mySegments = (SegmentReader)getReader();
+      DataInputStream dis = new DataInputStream (in);
+      try {
+         readData (dis);
+      }
+      finally {
+         dis.close();
+      }
+   }
+
+   /**
+    * Creates a new BinaryReaderTokenizer from data in the specified file.
+    *
+    * @param file file containing the data
+    * @throws IOException if the data is not in the binary token format or
+    * an I/O error occurred
+    */
+   public BinaryReaderTokenizer (File file) throws IOException {
+      this (new BufferedInputStream (new FileInputStream (file)));
+      setResourceName (file.toString());
+   }
+
+   /**
+    * Returns {@code true} if the specified file begins with the magic number
+    * identifying data written by a {@link BinaryTokenWriter}.
+    *
+    * @param file file to check
+    * @return {@code true} if the file contains binary token data
+    */
+   public static boolean isBinaryTokenFile (File file) {
+      if (!file.isFile() || file.length() < 4) {
+         return false;
+      }
+      DataInputStream dis = null;
+      try {
+         dis = new DataInputStream (new FileInputStream (file));
+         return dis.readInt() == BinaryTokenWriter.MAGIC;
+      }
+      catch (IOException e) {
+         return false;
+      }
+      finally {
+         if (dis != null) {
+            try {
+               dis.close();
+            }
+            catch (IOException e) {
+               // ignore
+            }
+         }
+      }
+   }
+
+   private ByteBuffer readBuffer (DataInputStream dis, int nbytes)
+      throws IOException {
+      byte[] bytes = new byte[nbytes];
+      dis.readFully (bytes);
+      return ByteBuffer.wrap (bytes);
+   }
+
+   private int readSize (DataInputStream dis) throws IOException {
+      int n = dis.readInt();
+      if (n < 0) {
+         throw new IOException ("Corrupt binary token data: negative size");
+      }
+      return n;
+   }
+
+   private void readData (DataInputStream dis) throws IOException {
+      if (dis.readInt() != BinaryTokenWriter.MAGIC) {
+         throw new IOException ("Input is not in binary token format");
+      }
+      int version = dis.readInt();
+      if (version != BinaryTokenWriter.VERSION) {
+         throw new IOException (
+            "Unsupported binary token format version " + version);
+      }
+      myStrings = new String[readSize (dis)];
+      for (int i=0; i<myStrings.length; i++) {
+         byte[] bytes = new byte[readSize (dis)];
+         dis.readFully (bytes);
+         myStrings[i] = new String (bytes, StandardCharsets.UTF_8);
+      }
+      myTypes = new byte[readSize (dis)];
+      dis.readFully (myTypes);
+      int n = readSize (dis);
+      myTextIdxs = new int[n];
+      readBuffer (dis, 4*n).asIntBuffer().get (myTextIdxs);
+      n = readSize (dis);
+      myInts = new int[n];
+      readBuffer (dis, 4*n).asIntBuffer().get (myInts);
+      n = readSize (dis);
+      myDoubles = new double[n];
+      readBuffer (dis, 8*n).asDoubleBuffer().get (myDoubles);
+   }
+
+   private void startText (String str) {
+      mySegments.setSegment (str);
+      myInText = true;
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public int nextToken() throws IOException {
+      if (myPushedBack) {
+         myPushedBack = false;
+         return ttype;
+      }
+      while (true) {
+         if (myInText) {
+            if (super.nextToken() != TT_EOF) {
+               return ttype;
+            }
+            myInText = false;
+         }
+         if (myEntryIdx == myTypes.length) {
+            return ttype = TT_EOF;
+         }
+         switch (myTypes[myEntryIdx++]) {
+            case BinaryTokenWriter.TEXT: {
+               startText (myStrings[myTextIdxs[myTextIdx++]]);
+               break;
+            }
+            case BinaryTokenWriter.INT: {
+               int value = myInts[myIntIdx++];
+               if (getParseNumbers()) {
+                  setIntegerToken (value);
+                  return ttype;
+               }
+               startText (Integer.toString (value));
+               break;
+            }
+            case BinaryTokenWriter.DOUBLE: {
+               double value = myDoubles[myDoubleIdx++];
+               if (getParseNumbers()) {
+                  setNumberToken (value);
+                  return ttype;
+               }
+               startText (Double.toString (value));
+               break;
+            }
+            default: {
+               throw new IOException (
+                  "Corrupt binary token data: unknown entry type " +
+                  myTypes[myEntryIdx-1]);
+            }
+         }
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void pushBack() {
+      if (ttype != TT_NOTHING) {
+         myPushedBack = true;
+      }
+   }
+
+   private void appendNumber (StringBuilder sb, String str) {
+      int len = sb.length();
+      if (len > 0 && sb.charAt (len-1) > ' ') {
+         sb.append (' ');
+      }
+      sb.append (str);
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public String readLine() throws IOException {
+      StringBuilder sb = new StringBuilder();
+      myPushedBack = false;
+      while (true) {
+         if (myInText) {
+            int c = getc();
+            if (c == '\n') {
+               ttype = TT_EOL;
+               break;
+            }
+            else if (c >= 0) {
+               if (c != '\r') {
+                  sb.append ((char)c);
+               }
+               continue;
+            }
+            myInText = false;
+         }
+         if (myEntryIdx == myTypes.length) {
+            ttype = TT_EOF;
+            break;
+         }
+         switch (myTypes[myEntryIdx++]) {
+            case BinaryTokenWriter.TEXT: {
+               startText (myStrings[myTextIdxs[myTextIdx++]]);
+               break;
+            }
+            case BinaryTokenWriter.INT: {
+               appendNumber (sb, Integer.toString (myInts[myIntIdx++]));
+               break;
+            }
+            case BinaryTokenWriter.DOUBLE: {
+               appendNumber (sb, Double.toString (myDoubles[myDoubleIdx++]));
+               break;
+            }
+            default: {
+               throw new IOException (
+                  "Corrupt binary token data: unknown entry type " +
+                  myTypes[myEntryIdx-1]);
+            }
+         }
+      }
+      return sb.toString();
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void skipLine() throws IOException {
+      readLine();
+   }
+
+   /**
+    * Not supported for binary input.
+    *
+    * @throws UnsupportedOperationException always
+    */
+   public void setReader (Reader reader) {
+      throw new UnsupportedOperationException (
+         "setReader() not supported for binary input");
+   }
+}
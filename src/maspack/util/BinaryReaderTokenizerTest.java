@@ -0,0 +1,196 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+
+/**
+ * Tests BinaryTokenWriter and BinaryReaderTokenizer by checking that binary
+ * data produces the same tokens as the text it was created from.
+ */
+public class BinaryReaderTokenizerTest extends UnitTest {
+
+   private static String[] myMisc = new String[] {
+      "[", "]", "[1", "2]", "-0", "007", "1.", ".5", "1e5", "1E+05", "+3",
+      "12abc", "x=12", "inf", "-inf", "0x1f", "'quoted 12 3.5'", "\"a\\\"b\"",
+      "# comment 1 2 3", "a/b/0", "foo.bar", "$x", "1.5.6", "99999999999",
+      "-2147483648", "2147483647", "3.0E-5", "=", "'unterminated 1 2"
+   };
+
+   private String randomNumber() {
+      switch (RandomGenerator.nextInt (0, 3)) {
+         case 0: {
+            return Integer.toString (RandomGenerator.nextInt (-1000, 1000));
+         }
+         case 1: {
+            return String.format ("%g", RandomGenerator.nextDouble (-10, 10));
+         }
+         case 2: {
+            return Double.toString (RandomGenerator.nextInt (-80, 80)/8.0);
+         }
+         default: {
+            return String.format (
+               "%.10g", 1e-8*RandomGenerator.nextDouble (-1, 1));
+         }
+      }
+   }
+
+   private void addLine (StringBuilder sb) {
+      int nitems = RandomGenerator.nextInt (0, 10);
+      for (int i=0; i<nitems; i++) {
+         int k = RandomGenerator.nextInt (0, 9);
+         if (k < 5) {
+            sb.append (randomNumber());
+         }
+         else if (k < 7) {
+            sb.append ("word" + k);
+         }
+         else if (k < 8) {
+            // reference list, scanned with number parsing disabled
+            sb.append ("ref [");
+            int nrefs = RandomGenerator.nextInt (0, 4);
+            for (int j=0; j<nrefs; j++) {
+               sb.append (" ");
+               if (RandomGenerator.nextBoolean()) {
+                  sb.append (RandomGenerator.nextInt (-1, 100));
+               }
+               else {
+                  sb.append ("comps/" + RandomGenerator.nextInt (0, 9));
+               }
+            }
+            sb.append (" ]");
+         }
+         else if (k < 9) {
+            sb.append (myMisc[RandomGenerator.nextInt (0, myMisc.length-1)]);
+         }
+         else {
+            // rest of line is read using readLine()
+            sb.append ("line");
+            int nvals = RandomGenerator.nextInt (0, 4);
+            for (int j=0; j<nvals; j++) {
+               sb.append (" ");
+               sb.append (RandomGenerator.nextInt (-100, 100));
+            }
+            break;
+         }
+         sb.append (RandomGenerator.nextBoolean() ? " " : "   ");
+      }
+   }
+
+   private String createText (int nlines) {
+      StringBuilder sb = new StringBuilder();
+      for (int i=0; i<nlines; i++) {
+         sb.append (RandomGenerator.nextBoolean() ? "" : "  ");
+         addLine (sb);
+         sb.append ("\n");
+      }
+      // final line without a newline
+      addLine (sb);
+      return sb.toString();
+   }
+
+   private byte[] writeBinary (String text) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      PrintWriter pw = new PrintWriter (new BinaryTokenWriter (bytes));
+      // write in pieces to check handling of partial lines
+      int i = 0;
+      while (i < text.length()) {
+         int n = Math.min (RandomGenerator.nextInt (1, 50), text.length()-i);
+         pw.print (text.substring (i, i+n));
+         i += n;
+      }
+      pw.close();
+      return bytes.toByteArray();
+   }
+
+   private void checkToken (ReaderTokenizer rtok, ReaderTokenizer btok) {
+      if (rtok.ttype != btok.ttype ||
+          rtok.lineno() != btok.lineno() ||
+          rtok.tokenIsInteger() != btok.tokenIsInteger() ||
+          (rtok.ttype == ReaderTokenizer.TT_NUMBER &&
+           (rtok.nval != btok.nval || rtok.lval != btok.lval)) ||
+          ((rtok.ttype == ReaderTokenizer.TT_WORD ||
+            rtok.ttype == '"' || rtok.ttype == '\'') &&
+           !rtok.sval.equals (btok.sval))) {
+         throw new TestException (
+            "Text token " + rtok + " != binary token " + btok);
+      }
+   }
+
+   private void test (int nlines, boolean eolSignificant) throws IOException {
+      String text = createText (nlines);
+      byte[] data = writeBinary (text);
+      ReaderTokenizer rtok = new ReaderTokenizer (new StringReader (text));
+      ReaderTokenizer btok =
+         new BinaryReaderTokenizer (new ByteArrayInputStream (data));
+      rtok.wordChars ("./$");
+      btok.wordChars ("./$");
+      rtok.eolIsSignificant (eolSignificant);
+      btok.eolIsSignificant (eolSignificant);
+
+      int ntoks = 0;
+      int dsave = 0;
+      while (rtok.nextToken() != ReaderTokenizer.TT_EOF) {
+         btok.nextToken();
+         checkToken (rtok, btok);
+         ntoks++;
+         if (rtok.ttype == ReaderTokenizer.TT_WORD) {
+            if (rtok.sval.equals ("ref")) {
+               rtok.parseNumbers (false);
+               btok.parseNumbers (false);
+               dsave = rtok.getCharSetting ('-');
+               rtok.wordChar ('-');
+               btok.wordChar ('-');
+            }
+            else if (rtok.sval.equals ("line")) {
+               checkEquals ("readLine", btok.readLine(), rtok.readLine());
+               checkEquals ("readLine ttype", btok.ttype, rtok.ttype);
+               continue;
+            }
+         }
+         else if (rtok.ttype == ']' && !rtok.getParseNumbers()) {
+            rtok.parseNumbers (true);
+            btok.parseNumbers (true);
+            rtok.setCharSetting ('-', dsave);
+            btok.setCharSetting ('-', dsave);
+         }
+         // randomly push back and reread
+         if (RandomGenerator.nextInt (0, 9) == 0) {
+            rtok.pushBack();
+            btok.pushBack();
+            rtok.nextToken();
+            btok.nextToken();
+            checkToken (rtok, btok);
+         }
+      }
+      btok.nextToken();
+      checkToken (rtok, btok);
+      if (ntoks == 0 && nlines > 0) {
+         throw new TestException ("No tokens were generated");
+      }
+   }
+
+   public void test() throws IOException {
+      RandomGenerator.setSeed (0x1234);
+      test (0, false);
+      test (0, true);
+      for (int i=0; i<50; i++) {
+         test (20, false);
+         test (20, true);
+      }
+      test (2000, false);
+   }
+
+   public static void main (String[] args) {
+      BinaryReaderTokenizerTest tester = new BinaryReaderTokenizerTest();
+      tester.runtest();
+   }
+}
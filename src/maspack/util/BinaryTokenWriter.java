@@ -0,0 +1,343 @@
+/**
+ * Copyright (c) 2026, by the Authors: ArtiSynth Team Members
+ *
+ * This software is freely available under a 2-clause BSD license. Please see
+ * the LICENSE file in the ArtiSynth distribution directory for details.
+ */
+package maspack.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Writer that stores the text written to it in a binary form that can be
+ * read back quickly using a {@link BinaryReaderTokenizer}. Numbers that
+ * appear as separate, whitespace delimited items are removed from the text
+ * and stored in primitive {@code int} and {@code double} arrays, so that
+ * they can be read back without being parsed. All remaining text, including
+ * line breaks, comments and quoted strings, is stored in a table of text
+ * segments which are tokenized in the usual way when read. This means that
+ * any code which writes to a {@link java.io.PrintWriter} and scans using a
+ * {@link ReaderTokenizer} can use this format unchanged, and the files will
+ * produce the same tokens, line numbers and end-of-line tokens as their
+ * text counterparts.
+ *
+ * <p>Comments and quoted strings are recognized using the default
+ * settings of {@link ReaderTokenizer}, i.e., {@code #} for comments and
+ * single or double quotes for strings. The data is written to the output
+ * stream when the writer is closed.
+ */
+public class BinaryTokenWriter extends Writer {
+
+   /**
+    * Magic number identifying binary token files.
+    */
+   public static final int MAGIC = 0x41535442; // "ASTB"
+
+   /**
+    * Current version of the format.
+    */
+   public static final int VERSION = 1;
+
+   // entry types
+   static final byte TEXT = 0;
+   static final byte INT = 1;
+   static final byte DOUBLE = 2;
+
+   private OutputStream myOut;
+   private boolean myClosed = false;
+   private StringBuilder myLine = new StringBuilder();
+   private StringBuilder myText = new StringBuilder();
+
+   private ArrayList<String> myStrings = new ArrayList<String>();
+   private HashMap<String,Integer> myStringIdxs = new HashMap<String,Integer>();
+   private DynamicByteArray myTypes = new DynamicByteArray();
+   private DynamicIntArray myTextIdxs = new DynamicIntArray();
+   private DynamicIntArray myInts = new DynamicIntArray();
+   private DynamicDoubleArray myDoubles = new DynamicDoubleArray();
+
+   /**
+    * Creates a BinaryTokenWriter which writes to the specified output
+    * stream when closed.
+    *
+    * @param out output stream to write the data to
+    */
+   public BinaryTokenWriter (OutputStream out) {
+      myOut = out;
+   }
+
+   /**
+    * Creates a BinaryTokenWriter which writes to the specified file when
+    * closed.
+    *
+    * @param file file to write the data to
+    * @throws IOException if the file cannot be opened
+    */
+   public BinaryTokenWriter (File file) throws IOException {
+      this (new BufferedOutputStream (new FileOutputStream (file)));
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void write (char[] cbuf, int off, int len) throws IOException {
+      if (myClosed) {
+         throw new IOException ("Writer is closed");
+      }
+      for (int i=off; i<off+len; i++) {
+         char c = cbuf[i];
+         myLine.append (c);
+         if (c == '\n') {
+            processLine();
+         }
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   public void flush() throws IOException {
+   }
+
+   /**
+    * Processes any remaining text and writes the data to the output
+    * stream, which is then closed.
+    */
+   public void close() throws IOException {
+      if (myClosed) {
+         return;
+      }
+      processLine();
+      flushText();
+      DataOutputStream dos = new DataOutputStream (myOut);
+      try {
+         dos.writeInt (MAGIC);
+         dos.writeInt (VERSION);
+         dos.writeInt (myStrings.size());
+         for (String str : myStrings) {
+            byte[] bytes = str.getBytes (StandardCharsets.UTF_8);
+            dos.writeInt (bytes.length);
+            dos.write (bytes);
+         }
+         int n = myTypes.size();
+         dos.writeInt (n);
+         dos.write (myTypes.getArray(), 0, n);
+         writeInts (dos, myTextIdxs);
+         writeInts (dos, myInts);
+         writeDoubles (dos, myDoubles);
+      }
+      finally {
+         myClosed = true;
+         dos.close();
+      }
+   }
+
+   private void writeInts (DataOutputStream dos, DynamicIntArray array)
+      throws IOException {
+      int n = array.size();
+      dos.writeInt (n);
+      ByteBuffer buf = ByteBuffer.allocate (4*n);
+      buf.asIntBuffer().put (array.getArray(), 0, n);
+      dos.write (buf.array());
+   }
+
+   private void writeDoubles (DataOutputStream dos, DynamicDoubleArray array)
+      throws IOException {
+      int n = array.size();
+      dos.writeInt (n);
+      ByteBuffer buf = ByteBuffer.allocate (8*n);
+      buf.asDoubleBuffer().put (array.getArray(), 0, n);
+      dos.write (buf.array());
+   }
+
+   private static boolean isWhitespace (char c) {
+      return c <= ' ';
+   }
+
+   private static boolean isDelimiter (char c) {
+      return c <= ' ' || c == '#' || c == '"' || c == '\'';
+   }
+
+   private static boolean isDigit (char c) {
+      return c >= '0' && c <= '9';
+   }
+
+   /**
+    * Checks if str[i0:i1] is an integer which fits in an int and is written
+    * in canonical form, so that the original text can be recovered from its
+    * value.
+    */
+   static boolean isCanonicalInt (CharSequence str, int i0, int i1) {
+      int i = i0;
+      if (i < i1 && str.charAt(i) == '-') {
+         i++;
+      }
+      int ndigits = i1-i;
+      if (ndigits == 0 || ndigits > 10) {
+         return false;
+      }
+      if (str.charAt(i) == '0' && (ndigits > 1 || i > i0)) {
+         // no leading zeros, and no "-0"
+         return false;
+      }
+      long l = 0;
+      for ( ; i<i1; i++) {
+         char c = str.charAt(i);
+         if (!isDigit (c)) {
+            return false;
+         }
+         l = 10*l + (c-'0');
+      }
+      if (str.charAt(i0) == '-') {
+         l = -l;
+      }
+      return l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE;
+   }
+
+   private static int scanDigits (CharSequence str, int i, int i1) {
+      while (i < i1 && isDigit (str.charAt(i))) {
+         i++;
+      }
+      return i;
+   }
+
+   /**
+    * Checks if str[i0:i1] is a decimal floating point number with either
+    * a decimal point or an exponent.
+    */
+   static boolean isDecimalDouble (CharSequence str, int i0, int i1) {
+      int i = i0;
+      if (i < i1 && str.charAt(i) == '-') {
+         i++;
+      }
+      int k = scanDigits (str, i, i1);
+      if (k == i) {
+         return false;
+      }
+      i = k;
+      boolean dotOrExp = false;
+      if (i < i1 && str.charAt(i) == '.') {
+         k = scanDigits (str, ++i, i1);
+         if (k == i) {
+            return false;
+         }
+         i = k;
+         dotOrExp = true;
+      }
+      if (i < i1 && (str.charAt(i) == 'e' || str.charAt(i) == 'E')) {
+         i++;
+         if (i < i1 && (str.charAt(i) == '-' || str.charAt(i) == '+')) {
+            i++;
+         }
+         k = scanDigits (str, i, i1);
+         if (k == i) {
+            return false;
+         }
+         i = k;
+         dotOrExp = true;
+      }
+      return dotOrExp && i == i1;
+   }
+
+   private void flushText() {
+      if (myText.length() > 0) {
+         String str = myText.toString();
+         Integer idx = myStringIdxs.get (str);
+         if (idx == null) {
+            idx = myStrings.size();
+            myStrings.add (str);
+            myStringIdxs.put (str, idx);
+         }
+         myTypes.add (TEXT);
+         myTextIdxs.add (idx);
+         myText.setLength (0);
+      }
+   }
+
+   private boolean textIsSpaceOnly() {
+      for (int i=0; i<myText.length(); i++) {
+         char c = myText.charAt(i);
+         if (c == '\n' || !isWhitespace (c)) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   private void addNumber (byte type) {
+      // whitespace between numbers is implied, unless it contains a newline
+      if (textIsSpaceOnly()) {
+         myText.setLength (0);
+      }
+      else {
+         flushText();
+      }
+      myTypes.add (type);
+   }
+
+   private void processLine() {
+      StringBuilder line = myLine;
+      int n = line.length();
+      int i = 0;
+      while (i < n) {
+         char c = line.charAt(i);
+         if (isWhitespace (c)) {
+            myText.append (c);
+            i++;
+         }
+         else if (c == '#') {
+            // comment: store the rest of the line as text
+            myText.append (line, i, n);
+            i = n;
+         }
+         else if (c == '"' || c == '\'') {
+            // quoted string: store up to the closing quote or end of line
+            int k = i+1;
+            while (k < n && line.charAt(k) != c && line.charAt(k) != '\n') {
+               if (line.charAt(k) == '\\') {
+                  k++;
+               }
+               k++;
+            }
+            if (k < n && line.charAt(k) == c) {
+               k++;
+            }
+            k = Math.min (k, n);
+            myText.append (line, i, k);
+            i = k;
+         }
+         else {
+            int k = i+1;
+            while (k < n && !isDelimiter (line.charAt(k))) {
+               k++;
+            }
+            boolean separated =
+               (myText.length() == 0 ||
+                isWhitespace (myText.charAt (myText.length()-1))) &&
+               (k == n || isWhitespace (line.charAt(k)));
+            if (separated && isCanonicalInt (line, i, k)) {
+               addNumber (INT);
+               myInts.add (Integer.parseInt (line.substring (i, k)));
+            }
+            else if (separated && isDecimalDouble (line, i, k)) {
+               addNumber (DOUBLE);
+               myDoubles.add (Double.parseDouble (line.substring (i, k)));
+            }
+            else {
+               myText.append (line, i, k);
+            }
+            i = k;
+         }
+      }
+      line.setLength (0);
+   }
+}
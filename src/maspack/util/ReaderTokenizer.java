@@ -2446,6 +2446,37 @@ public class ReaderTokenizer {
       return  tokenIsInteger() && myTokenIsHex;
    }
 
+   /**
+    * Sets the current token to a floating point number. Intended for use by
+    * subclasses that supply numeric tokens directly instead of parsing them
+    * from characters.
+    *
+    * @param value numeric value of the token
+    */
+   protected void setNumberToken (double value) {
+      ttype = TT_NUMBER;
+      nval = value;
+      sval = null;
+      myTokenIsInteger = false;
+      myTokenIsHex = false;
+   }
+
+   /**
+    * Sets the current token to an integer. Intended for use by
+    * subclasses that supply numeric tokens directly instead of parsing them
+    * from characters.
+    *
+    * @param value integer value of the token
+    */
+   protected void setIntegerToken (long value) {
+      ttype = TT_NUMBER;
+      nval = value;
+      lval = value;
+      sval = null;
+      myTokenIsInteger = true;
+      myTokenIsHex = false;
+   }
+
    /**
     * Returns true if the current token is a word. This is a convenience routine
     * for checking that {@link #ttype ttype} equals {@link #TT_WORD TT_WORD}.